@@ -1350,6 +1350,24 @@ public final class DataProto {
      * <code>optional .DateTimeColumnMessage date_column = 9;</code>
      */
     edu.washington.escience.myria.proto.DataProto.DateTimeColumnMessageOrBuilder getDateColumnOrBuilder();
+
+    /**
+     * <code>optional bytes nulls = 10;</code>
+     *
+     * <pre>
+     * Bitmap of the null rows, least significant bit of the first byte is row 0. Absent if no row is null.
+     * </pre>
+     */
+    boolean hasNulls();
+
+    /**
+     * <code>optional bytes nulls = 10;</code>
+     *
+     * <pre>
+     * Bitmap of the null rows, least significant bit of the first byte is row 0. Absent if no row is null.
+     * </pre>
+     */
+    com.google.protobuf.ByteString getNulls();
   }
   /**
    * Protobuf type {@code ColumnMessage}
@@ -1521,6 +1539,11 @@ public final class DataProto {
               bitField0_ |= 0x00000080;
               break;
             }
+            case 82: {
+              bitField0_ |= 0x00000100;
+              nulls_ = input.readBytes();
+              break;
+            }
           }
         }
       } catch (com.google.protobuf.InvalidProtocolBufferException e) {
@@ -1910,6 +1933,33 @@ public final class DataProto {
       return dateColumn_;
     }
 
+    public static final int NULLS_FIELD_NUMBER = 10;
+    private com.google.protobuf.ByteString nulls_;
+
+    /**
+     * <code>optional bytes nulls = 10;</code>
+     *
+     * <pre>
+     * Bitmap of the null rows, least significant bit of the first byte is row 0. Absent if no row is null.
+     * </pre>
+     */
+    @Override
+    public boolean hasNulls() {
+      return ((bitField0_ & 0x00000100) == 0x00000100);
+    }
+
+    /**
+     * <code>optional bytes nulls = 10;</code>
+     *
+     * <pre>
+     * Bitmap of the null rows, least significant bit of the first byte is row 0. Absent if no row is null.
+     * </pre>
+     */
+    @Override
+    public com.google.protobuf.ByteString getNulls() {
+      return nulls_;
+    }
+
     private void initFields() {
       type_ = edu.washington.escience.myria.proto.DataProto.ColumnMessage.Type.INT;
       intColumn_ = edu.washington.escience.myria.proto.DataProto.IntColumnMessage.getDefaultInstance();
@@ -1919,6 +1969,7 @@ public final class DataProto {
       stringColumn_ = edu.washington.escience.myria.proto.DataProto.StringColumnMessage.getDefaultInstance();
       booleanColumn_ = edu.washington.escience.myria.proto.DataProto.BooleanColumnMessage.getDefaultInstance();
       dateColumn_ = edu.washington.escience.myria.proto.DataProto.DateTimeColumnMessage.getDefaultInstance();
+      nulls_ = com.google.protobuf.ByteString.EMPTY;
     }
 
     private byte memoizedIsInitialized = -1;
@@ -2010,6 +2061,9 @@ public final class DataProto {
       if (((bitField0_ & 0x00000080) == 0x00000080)) {
         output.writeMessage(9, dateColumn_);
       }
+      if (((bitField0_ & 0x00000100) == 0x00000100)) {
+        output.writeBytes(10, nulls_);
+      }
       getUnknownFields().writeTo(output);
     }
 
@@ -2047,6 +2101,9 @@ public final class DataProto {
       if (((bitField0_ & 0x00000080) == 0x00000080)) {
         size += com.google.protobuf.CodedOutputStream.computeMessageSize(9, dateColumn_);
       }
+      if (((bitField0_ & 0x00000100) == 0x00000100)) {
+        size += com.google.protobuf.CodedOutputStream.computeBytesSize(10, nulls_);
+      }
       size += getUnknownFields().getSerializedSize();
       memoizedSerializedSize = size;
       return size;
@@ -2228,6 +2285,8 @@ public final class DataProto {
           dateColumnBuilder_.clear();
         }
         bitField0_ = (bitField0_ & ~0x00000080);
+        nulls_ = com.google.protobuf.ByteString.EMPTY;
+        bitField0_ = (bitField0_ & ~0x00000100);
         return this;
       }
 
@@ -2321,6 +2380,10 @@ public final class DataProto {
         } else {
           result.dateColumn_ = dateColumnBuilder_.build();
         }
+        if (((from_bitField0_ & 0x00000100) == 0x00000100)) {
+          to_bitField0_ |= 0x00000100;
+        }
+        result.nulls_ = nulls_;
         result.bitField0_ = to_bitField0_;
         onBuilt();
         return result;
@@ -2364,6 +2427,9 @@ public final class DataProto {
         if (other.hasDateColumn()) {
           mergeDateColumn(other.getDateColumn());
         }
+        if (other.hasNulls()) {
+          setNulls(other.getNulls());
+        }
         mergeUnknownFields(other.getUnknownFields());
         return this;
       }
@@ -3375,6 +3441,63 @@ public final class DataProto {
         return dateColumnBuilder_;
       }
 
+      private com.google.protobuf.ByteString nulls_ = com.google.protobuf.ByteString.EMPTY;
+
+      /**
+     * <code>optional bytes nulls = 10;</code>
+     *
+     * <pre>
+     * Bitmap of the null rows, least significant bit of the first byte is row 0. Absent if no row is null.
+     * </pre>
+     */
+      @Override
+      public boolean hasNulls() {
+        return ((bitField0_ & 0x00000100) == 0x00000100);
+      }
+
+      /**
+     * <code>optional bytes nulls = 10;</code>
+     *
+     * <pre>
+     * Bitmap of the null rows, least significant bit of the first byte is row 0. Absent if no row is null.
+     * </pre>
+     */
+      @Override
+      public com.google.protobuf.ByteString getNulls() {
+        return nulls_;
+      }
+
+      /**
+     * <code>optional bytes nulls = 10;</code>
+     *
+     * <pre>
+     * Bitmap of the null rows, least significant bit of the first byte is row 0. Absent if no row is null.
+     * </pre>
+     */
+      public Builder setNulls(final com.google.protobuf.ByteString value) {
+        if (value == null) {
+          throw new NullPointerException();
+        }
+        bitField0_ |= 0x00000100;
+        nulls_ = value;
+        onChanged();
+        return this;
+      }
+
+      /**
+     * <code>optional bytes nulls = 10;</code>
+     *
+     * <pre>
+     * Bitmap of the null rows, least significant bit of the first byte is row 0. Absent if no row is null.
+     * </pre>
+     */
+      public Builder clearNulls() {
+        bitField0_ = (bitField0_ & ~0x00000100);
+        nulls_ = getDefaultInstance().getNulls();
+        onChanged();
+        return this;
+      }
+
       // @@protoc_insertion_point(builder_scope:ColumnMessage)
     }
 
@@ -6912,7 +7035,7 @@ public final class DataProto {
                 + " \002(\0162\021.DataMessage.Type\022\022\n\noperatorID\030\002 "
                 + "\001(\004\022\037\n\007columns\030\003 \003(\0132\016.ColumnMessage\022\022\n\n"
                 + "num_tuples\030\004 \001(\r\022\013\n\003seq\030\005 \001(\004\"\033\n\004Type\022\n\n"
-                + "\006NORMAL\020\001\022\007\n\003EOI\020\002\"\274\003\n\rColumnMessage\022!\n\004"
+                + "\006NORMAL\020\001\022\007\n\003EOI\020\002\"\313\003\n\rColumnMessage\022!\n\004"
                 + "type\030\001 \002(\0162\023.ColumnMessage.Type\022%\n\nint_c"
                 + "olumn\030\003 \001(\0132\021.IntColumnMessage\022\'\n\013long_c"
                 + "olumn\030\004 \001(\0132\022.LongColumnMessage\022)\n\014float"
@@ -6921,17 +7044,18 @@ public final class DataProto {
             "+\n\rstring_column\030\007 \001(\0132\024.StringColumnMes"
                 + "sage\022-\n\016boolean_column\030\010 \001(\0132\025.BooleanCo"
                 + "lumnMessage\022+\n\013date_column\030\t \001(\0132\026.DateT"
-                + "imeColumnMessage\"W\n\004Type\022\007\n\003INT\020\000\022\010\n\004LON"
-                + "G\020\001\022\t\n\005FLOAT\020\002\022\n\n\006DOUBLE\020\003\022\n\n\006STRING\020\004\022\013"
-                + "\n\007BOOLEAN\020\005\022\014\n\010DATETIME\020\006\" \n\020IntColumnMe"
-                + "ssage\022\014\n\004data\030\001 \002(\014\"!\n\021LongColumnMessage"
-                + "\022\014\n\004data\030\001 \002(\014\"\"\n\022FloatColumnMessage\022\014\n\004"
-                + "data\030\001 \002(\014\"#\n\023DoubleColumnMessage\022\014\n\004dat"
-                + "a\030\001 \002(\014\"O\n\023StringColumnMessage\022\014\n\004data\030\001",
-            " \002(\014\022\025\n\rstart_indices\030\002 \003(\005\022\023\n\013end_indic"
-                + "es\030\003 \003(\005\"$\n\024BooleanColumnMessage\022\014\n\004data"
-                + "\030\001 \002(\014\"%\n\025DateTimeColumnMessage\022\014\n\004data\030"
-                + "\001 \002(\014B0\n#edu.washington.escience.myria.p" + "rotoB\tDataProto" };
+                + "imeColumnMessage\022\r\n\005nulls\030\n \001(\014\"W\n\004Type\022"
+                + "\007\n\003INT\020\000\022\010\n\004LONG\020\001\022\t\n\005FLOAT\020\002\022\n\n\006DOUBLE\020"
+                + "\003\022\n\n\006STRING\020\004\022\013\n\007BOOLEAN\020\005\022\014\n\010DATETIME\020\006"
+                + "\" \n\020IntColumnMessage\022\014\n\004data\030\001 \002(\014\"!\n\021Lo"
+                + "ngColumnMessage\022\014\n\004data\030\001 \002(\014\"\"\n\022FloatCo"
+                + "lumnMessage\022\014\n\004data\030\001 \002(\014\"#\n\023DoubleColum"
+                + "nMessage\022\014\n\004data\030\001 \002(\014\"O\n\023StringColumnMe",
+            "ssage\022\014\n\004data\030\001 \002(\014\022\025\n\rstart_indices\030\002 \003"
+                + "(\005\022\023\n\013end_indices\030\003 \003(\005\"$\n\024BooleanColumn"
+                + "Message\022\014\n\004data\030\001 \002(\014\"%\n\025DateTimeColumnM"
+                + "essage\022\014\n\004data\030\001 \002(\014B0\n#edu.washington.e"
+                + "science.myria.protoB\tDataProto" };
     com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
         new com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner() {
           @Override
@@ -6952,7 +7076,7 @@ public final class DataProto {
         new com.google.protobuf.GeneratedMessage.FieldAccessorTable(internal_static_ColumnMessage_descriptor,
             new java.lang.String[] {
                 "Type", "IntColumn", "LongColumn", "FloatColumn", "DoubleColumn", "StringColumn", "BooleanColumn",
-                "DateColumn", });
+                "DateColumn", "Nulls", });
     internal_static_IntColumnMessage_descriptor = getDescriptor().getMessageTypes().get(2);
     internal_static_IntColumnMessage_fieldAccessorTable =
         new com.google.protobuf.GeneratedMessage.FieldAccessorTable(internal_static_IntColumnMessage_descriptor,
@@ -0,0 +1,188 @@
+package edu.washington.escience.myria;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.Deflater;
+
+import edu.washington.escience.myria.proto.DataProto.DataMessage;
+import edu.washington.escience.myria.storage.ReadableTable;
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.storage.TupleBatchBuffer;
+import edu.washington.escience.myria.storage.TupleUtils;
+
+/**
+ * ColumnarBinaryTupleWriter is a {@link TupleWriter} that serializes tuples to a self-describing, column-oriented
+ * binary format. Values are not formatted as text: each batch is written as one block holding the
+ * {@link DataMessage} that Myria itself uses to ship the batch between workers, i.e., one ColumnMessage per column with
+ * the raw column data and null bitmap. The format is read by
+ * {@link edu.washington.escience.myria.client.ColumnarBinaryReader}.
+ *
+ * The layout, in the big-endian encoding of {@link DataOutputStream}, is:
+ *
+ * <pre>
+ * header:  {@link #MAGIC}, int version, byte compression, int numColumns, numColumns * (UTF name, UTF type name)
+ * block:   int length > 0, length bytes of the (possibly compressed) serialized DataMessage
+ * trailer: int {@link #END_OF_DATA}, or int {@link #ERROR} followed by UTF message if the query failed
+ * </pre>
+ *
+ * With {@link #COMPRESSION_DEFLATE}, each block is compressed separately, and its length is followed by an int with
+ * the uncompressed length.
+ */
+public class ColumnarBinaryTupleWriter implements TupleWriter {
+
+  /** The first bytes of the format. */
+  public static final byte[] MAGIC = { 'M', 'Y', 'R', 'I', 'A', 'C', 'O', 'L' };
+  /** The version of the format. */
+  public static final int VERSION = 1;
+  /** Blocks are not compressed. */
+  public static final byte COMPRESSION_NONE = 0;
+  /** Blocks are compressed with {@link Deflater}. */
+  public static final byte COMPRESSION_DEFLATE = 1;
+  /** The block length that marks the end of the data. */
+  public static final int END_OF_DATA = 0;
+  /** The block length that marks that the query failed. */
+  public static final int ERROR = -1;
+
+  /** The stream to which the data will be written. */
+  private final DataOutputStream output;
+  /** The schema of the tuples. */
+  private final Schema schema;
+  /** The compressor, or null if blocks are not compressed. */
+  private final Deflater deflater;
+  /** Reusable buffer for compressed blocks. */
+  private byte[] compressed;
+
+  /**
+   * Constructs a {@link ColumnarBinaryTupleWriter} that does not compress its output.
+   *
+   * @param out the {@link OutputStream} to which the data will be written.
+   * @param schema the schema of the tuples.
+   */
+  public ColumnarBinaryTupleWriter(final OutputStream out, final Schema schema) {
+    this(out, schema, false);
+  }
+
+  /**
+   * Constructs a {@link ColumnarBinaryTupleWriter}.
+   *
+   * @param out the {@link OutputStream} to which the data will be written.
+   * @param schema the schema of the tuples.
+   * @param compress whether to compress the blocks.
+   */
+  public ColumnarBinaryTupleWriter(final OutputStream out, final Schema schema, final boolean compress) {
+    output = new DataOutputStream(new BufferedOutputStream(Objects.requireNonNull(out, "out")));
+    this.schema = Objects.requireNonNull(schema, "schema");
+    if (compress) {
+      deflater = new Deflater(Deflater.BEST_SPEED);
+      compressed = new byte[0];
+    } else {
+      deflater = null;
+    }
+  }
+
+  @Override
+  public void writeColumnHeaders(final List<String> columnNames) throws IOException {
+    output.write(MAGIC);
+    output.writeInt(VERSION);
+    if (deflater == null) {
+      output.writeByte(COMPRESSION_NONE);
+    } else {
+      output.writeByte(COMPRESSION_DEFLATE);
+    }
+    output.writeInt(schema.numColumns());
+    for (int i = 0; i < schema.numColumns(); ++i) {
+      output.writeUTF(columnNames.get(i));
+      output.writeUTF(schema.getColumnType(i).name());
+    }
+  }
+
+  @Override
+  public void writeTuples(final ReadableTable tuples) throws IOException {
+    if (tuples instanceof TupleBatch) {
+      writeBatch((TupleBatch) tuples);
+      return;
+    }
+    /* Other tables are not backed by serializable columns; copy them into batches. */
+    TupleBatchBuffer tbb = new TupleBatchBuffer(schema);
+    for (int row = 0; row < tuples.numTuples(); ++row) {
+      for (int column = 0; column < tuples.numColumns(); ++column) {
+        TupleUtils.copyValue(tuples, column, row, tbb, column);
+      }
+    }
+    for (TupleBatch tb : tbb.getAll()) {
+      writeBatch(tb);
+    }
+  }
+
+  /**
+   * Write one batch as a block.
+   *
+   * @param tb the batch.
+   * @throws IOException if there is an error writing the block.
+   */
+  private void writeBatch(final TupleBatch tb) throws IOException {
+    if (tb.numTuples() == 0) {
+      return;
+    }
+    byte[] data = tb.toTransportMessage().getDataMessage().toByteArray();
+    if (deflater == null) {
+      output.writeInt(data.length);
+      output.write(data);
+      return;
+    }
+    deflater.reset();
+    deflater.setInput(data);
+    deflater.finish();
+    int length = 0;
+    if (compressed.length < data.length / 2 + 64) {
+      compressed = new byte[data.length / 2 + 64];
+    }
+    while (!deflater.finished()) {
+      if (length == compressed.length) {
+        compressed = Arrays.copyOf(compressed, compressed.length * 2);
+      }
+      length += deflater.deflate(compressed, length, compressed.length - length);
+    }
+    output.writeInt(length);
+    output.writeInt(data.length);
+    output.write(compressed, 0, length);
+  }
+
+  @Override
+  public void done() throws IOException {
+    try {
+      output.writeInt(END_OF_DATA);
+      output.flush();
+    } finally {
+      close();
+    }
+  }
+
+  @Override
+  public void error() throws IOException {
+    try {
+      output.writeInt(ERROR);
+      output.writeUTF("There was an error. Investigate the query status to see the message");
+      output.flush();
+    } finally {
+      close();
+    }
+  }
+
+  /**
+   * Release the compressor and close the stream.
+   *
+   * @throws IOException if there is an error closing the stream.
+   */
+  private void close() throws IOException {
+    if (deflater != null) {
+      deflater.end();
+    }
+    output.close();
+  }
+}
@@ -1,91 +1,287 @@
 package edu.washington.escience.myria;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
+import java.util.Arrays;
 import java.util.List;
-
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVPrinter;
+import java.util.Objects;
 
 import edu.washington.escience.myria.storage.ReadableTable;
+import edu.washington.escience.myria.util.ByteArrayBuilder;
 
 /**
- * CsvTupleWriter is a {@link TupleWriter} that serializes tuples to a delimited file, usually a CSV. It uses a
- * {@link CSVPrinter} to do the underlying serialization. The fields to be output may contain special characters such as
- * newlines, because fields may be quoted (using double quotes '"'). Double quotation marks inside of fields are escaped
- * using the CSV-standard trick of replacing '"' with '""'.
- * 
+ * CsvTupleWriter is a {@link TupleWriter} that serializes tuples to a delimited file, usually a CSV. The fields to be
+ * output may contain special characters such as newlines, because fields may be quoted (using double quotes '"').
+ * Double quotation marks inside of fields are escaped using the CSV-standard trick of replacing '"' with '""'. Fields
+ * are quoted exactly when the minimal quoting policy of {@link org.apache.commons.csv.CSVPrinter} would quote them.
+ *
+ * Each batch is serialized one column at a time into reusable byte buffers, so the type of a column is examined once
+ * per batch and integers and strings are encoded without allocating. The columns are then stitched into records. The
+ * output is encoded as UTF-8.
+ *
  * CSV files should be compatible with Microsoft Excel.
- * 
+ *
  */
 public class CsvTupleWriter implements TupleWriter {
 
-  /** The CSVWriter used to write the output. */
-  private final CSVPrinter csvPrinter;
+  /** The quote character. */
+  private static final char QUOTE = '"';
+  /** The record separator. */
+  private static final byte[] RECORD_SEPARATOR = { '\r', '\n' };
+  /** Write the serialized records to the stream whenever this many bytes are buffered. */
+  private static final int FLUSH_THRESHOLD = 1 << 16;
+
+  /** The stream to which the data will be written. */
+  private final OutputStream out;
+  /** The field separator. */
+  private final char separator;
+  /** The field separator, encoded. */
+  private final byte[] separatorBytes;
+  /** Whether a serialized integer could contain the separator, in which case it may need quoting. */
+  private final boolean numbersMayNeedQuotes;
+
+  /** The serialized records not yet written to the stream. */
+  private final ByteArrayBuilder output;
+  /** The serialized values of each column of the current batch. */
+  private ByteArrayBuilder[] columnBytes;
+  /** The end offset in {@link #columnBytes} of each value of each column of the current batch. */
+  private int[][] columnEnds;
 
   /**
    * Constructs a {@link CsvTupleWriter} object that will produce an Excel-compatible comma-separated value (CSV) file
    * from the provided tuples.
-   * 
+   *
    * @param out the {@link OutputStream} to which the data will be written.
    * @throws IOException if there is an IO exception
    */
   public CsvTupleWriter(final OutputStream out) throws IOException {
-    this(out, CSVFormat.DEFAULT);
+    this(',', out);
   }
 
   /**
    * Constructs a {@link CsvTupleWriter} object that will produce Excel-compatible comma-separated and tab-separated
    * files from the tuples in the provided queue.
-   * 
+   *
    * @param separator the character used to separate fields in a line.
    * @param out the {@link OutputStream} to which the data will be written.
    * @throws IOException if there is an IO exception
    */
   public CsvTupleWriter(final char separator, final OutputStream out) throws IOException {
-    this(out, CSVFormat.DEFAULT.withDelimiter(separator));
-  }
-
-  /**
-   * @param out the {@link OutputStream} to which the data will be written.
-   * @param csvFormat the CSV format.
-   * @throws IOException if there is an IO exception
-   */
-  private CsvTupleWriter(final OutputStream out, final CSVFormat csvFormat) throws IOException {
-    csvPrinter = new CSVPrinter(new BufferedWriter(new OutputStreamWriter(out)), csvFormat);
+    this.out = Objects.requireNonNull(out, "out");
+    this.separator = separator;
+    ByteArrayBuilder sep = new ByteArrayBuilder(4).appendUtf8(String.valueOf(separator));
+    separatorBytes = Arrays.copyOf(sep.array(), sep.length());
+    numbersMayNeedQuotes = Character.isDigit(separator) || separator == '-';
+    output = new ByteArrayBuilder(FLUSH_THRESHOLD * 2);
+    columnBytes = new ByteArrayBuilder[0];
+    columnEnds = new int[0][];
   }
 
   @Override
   public void writeColumnHeaders(final List<String> columnNames) throws IOException {
-    csvPrinter.printRecord(columnNames);
+    for (int j = 0; j < columnNames.size(); ++j) {
+      if (j > 0) {
+        output.append(separatorBytes, 0, separatorBytes.length);
+      }
+      appendField(output, columnNames.get(j), j == 0);
+    }
+    output.append(RECORD_SEPARATOR, 0, RECORD_SEPARATOR.length);
   }
 
   @Override
   public void writeTuples(final ReadableTable tuples) throws IOException {
-    final String[] row = new String[tuples.numColumns()];
-    /* Serialize every row into the output stream. */
-    for (int i = 0; i < tuples.numTuples(); ++i) {
-      for (int j = 0; j < tuples.numColumns(); ++j) {
-        row[j] = tuples.getObject(j, i).toString();
+    final int numTuples = tuples.numTuples();
+    final int numColumns = tuples.numColumns();
+    if (columnBytes.length < numColumns) {
+      columnBytes = Arrays.copyOf(columnBytes, numColumns);
+      columnEnds = Arrays.copyOf(columnEnds, numColumns);
+    }
+    for (int j = 0; j < numColumns; ++j) {
+      if (columnBytes[j] == null) {
+        columnBytes[j] = new ByteArrayBuilder(numTuples * 8);
+      }
+      if (columnEnds[j] == null || columnEnds[j].length < numTuples) {
+        columnEnds[j] = new int[numTuples];
+      }
+      formatColumn(tuples, j, numTuples);
+    }
+
+    /* Stitch the serialized columns into records. */
+    for (int i = 0; i < numTuples; ++i) {
+      for (int j = 0; j < numColumns; ++j) {
+        if (j > 0) {
+          output.append(separatorBytes, 0, separatorBytes.length);
+        }
+        final int start;
+        if (i == 0) {
+          start = 0;
+        } else {
+          start = columnEnds[j][i - 1];
+        }
+        output.append(columnBytes[j].array(), start, columnEnds[j][i] - start);
+      }
+      output.append(RECORD_SEPARATOR, 0, RECORD_SEPARATOR.length);
+      if (output.length() >= FLUSH_THRESHOLD) {
+        output.writeTo(out);
+        output.reset();
+      }
+    }
+  }
+
+  /**
+   * Serialize one column of a batch into {@link #columnBytes}, recording where each value ends in {@link #columnEnds}.
+   *
+   * @param tuples the batch.
+   * @param column the column.
+   * @param numTuples the number of tuples in the batch.
+   */
+  private void formatColumn(final ReadableTable tuples, final int column, final int numTuples) {
+    final ByteArrayBuilder bytes = columnBytes[column];
+    final int[] ends = columnEnds[column];
+    final boolean first = column == 0;
+    bytes.reset();
+    switch (tuples.getSchema().getColumnType(column)) {
+      case INT_TYPE:
+        if (!numbersMayNeedQuotes) {
+          for (int i = 0; i < numTuples; ++i) {
+            if (tuples.isNull(column, i)) {
+              appendField(bytes, "", first);
+            } else {
+              appendNumber(bytes, tuples.getInt(column, i), first);
+            }
+            ends[i] = bytes.length();
+          }
+          return;
+        }
+        break;
+      case LONG_TYPE:
+        if (!numbersMayNeedQuotes) {
+          for (int i = 0; i < numTuples; ++i) {
+            if (tuples.isNull(column, i)) {
+              appendField(bytes, "", first);
+            } else {
+              appendNumber(bytes, tuples.getLong(column, i), first);
+            }
+            ends[i] = bytes.length();
+          }
+          return;
+        }
+        break;
+      case STRING_TYPE:
+        for (int i = 0; i < numTuples; ++i) {
+          if (tuples.isNull(column, i)) {
+            appendField(bytes, "", first);
+          } else {
+            appendField(bytes, tuples.getString(column, i), first);
+          }
+          ends[i] = bytes.length();
+        }
+        return;
+      default:
+        break;
+    }
+    /* The remaining types have no allocation-free text representation; use the one of their boxed values. */
+    for (int i = 0; i < numTuples; ++i) {
+      if (tuples.isNull(column, i)) {
+        appendField(bytes, "", first);
+      } else {
+        appendField(bytes, tuples.getObject(column, i).toString(), first);
       }
-      csvPrinter.printRecord((Object[]) row);
+      ends[i] = bytes.length();
     }
   }
 
+  /**
+   * Append an integer field, quoting it if needed. Only used when the separator cannot occur in the number.
+   *
+   * @param bytes where to append the field.
+   * @param value the value of the field.
+   * @param newRecord whether the field is the first of its record.
+   */
+  private void appendNumber(final ByteArrayBuilder bytes, final long value, final boolean newRecord) {
+    /* A leading '-' makes the first field of a record quoted, see needsQuotes. */
+    if (newRecord && value < 0) {
+      bytes.append((byte) QUOTE).append(value).append((byte) QUOTE);
+    } else {
+      bytes.append(value);
+    }
+  }
+
+  /**
+   * Append a field, quoting it if needed.
+   *
+   * @param bytes where to append the field.
+   * @param value the value of the field.
+   * @param newRecord whether the field is the first of its record.
+   */
+  private void appendField(final ByteArrayBuilder bytes, final CharSequence value, final boolean newRecord) {
+    final int end = value.length();
+    if (!needsQuotes(value, newRecord)) {
+      bytes.appendUtf8(value, 0, end);
+      return;
+    }
+    bytes.append((byte) QUOTE);
+    int start = 0;
+    for (int pos = 0; pos < end; ++pos) {
+      if (value.charAt(pos) == QUOTE) {
+        /* Write up to and including the quote, and start the next segment on it so that it is doubled. */
+        bytes.appendUtf8(value, start, pos + 1);
+        start = pos;
+      }
+    }
+    bytes.appendUtf8(value, start, end);
+    bytes.append((byte) QUOTE);
+  }
+
+  /**
+   * The minimal quoting policy of {@link org.apache.commons.csv.CSVPrinter}.
+   *
+   * @param value the value of the field.
+   * @param newRecord whether the field is the first of its record.
+   * @return whether the field must be quoted.
+   */
+  private boolean needsQuotes(final CharSequence value, final boolean newRecord) {
+    final int len = value.length();
+    if (len == 0) {
+      /* An empty first field is quoted, since otherwise a record with only that field would be an empty line. */
+      return newRecord;
+    }
+    char c = value.charAt(0);
+    if (newRecord && (c < '0' || c > '9' && c < 'A' || c > 'Z' && c < 'a' || c > 'z')) {
+      return true;
+    }
+    if (c <= '#') {
+      return true;
+    }
+    for (int pos = 0; pos < len; ++pos) {
+      c = value.charAt(pos);
+      if (c == '\n' || c == '\r' || c == QUOTE || c == separator) {
+        return true;
+      }
+    }
+    return value.charAt(len - 1) <= ' ';
+  }
+
   @Override
   public void done() throws IOException {
-    csvPrinter.flush();
-    csvPrinter.close();
+    try {
+      output.writeTo(out);
+      output.reset();
+      out.flush();
+    } finally {
+      out.close();
+    }
   }
 
   @Override
   public void error() throws IOException {
     try {
-      csvPrinter.print("There was an error. Investigate the query status to see the message");
+      output.writeTo(out);
+      output.reset();
+      out.write("There was an error. Investigate the query status to see the message".getBytes("UTF-8"));
+      out.flush();
     } finally {
-      csvPrinter.close();
+      out.close();
     }
   }
 }
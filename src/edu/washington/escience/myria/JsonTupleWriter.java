@@ -155,6 +155,10 @@ public class JsonTupleWriter implements TupleWriter {
         print('"');
         print(escapedColumnNames.get(j));
         print("\":");
+        if (tuples.isNull(j, i)) {
+          print("null");
+          continue;
+        }
         switch (columnTypes.get(j)) {
           case BOOLEAN_TYPE:
             print(tuples.getBoolean(j, i));
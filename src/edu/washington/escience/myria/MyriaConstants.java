@@ -77,6 +77,52 @@ public final class MyriaConstants {
    */
   public static final String EXEC_ENV_VAR_PROFILING_MODE = "profiling_mode";
 
+  /**
+   * The {@link edu.washington.escience.myria.profiling.ExecutingOperatorMarker} of the fragment, if it is sampled.
+   */
+  public static final String EXEC_ENV_VAR_EXECUTING_OPERATOR = "executingOperator";
+
+  /**
+   * The worker's {@link edu.washington.escience.myria.storage.ScanResultCache}.
+   */
+  public static final String EXEC_ENV_VAR_SCAN_RESULT_CACHE = "scanResultCache";
+
+  /**
+   * The worker's {@link java.util.concurrent.ExecutorService} for the read-ahead of scans.
+   */
+  public static final String EXEC_ENV_VAR_PREFETCH_EXECUTOR = "prefetchExecutor";
+
+  /**
+   * Default value for {@link MyriaSystemConfigKeys#SCAN_CACHE_MEMORY_BYTES}. 64 MB.
+   */
+  public static final long SCAN_CACHE_MEMORY_BYTES_DEFAULT_VALUE = 64L * MB;
+
+  /**
+   * Default value for {@link MyriaSystemConfigKeys#SCAN_CACHE_DISK_BYTES}. 0, i.e., no disk tier.
+   */
+  public static final long SCAN_CACHE_DISK_BYTES_DEFAULT_VALUE = 0;
+
+  /**
+   * The period, in milliseconds, at which a worker logs the statistics of its scan result cache.
+   */
+  public static final long SCAN_CACHE_STATS_INTERVAL = 60 * 1000;
+
+  /**
+   * Default number of bits of a runtime Bloom filter. 8 Mbit, i.e., 1 MB, or about 10 bits per key for a million keys.
+   */
+  public static final int BLOOM_FILTER_BITS_DEFAULT_VALUE = 8 * 1024 * 1024;
+
+  /**
+   * Default number of hash functions of a runtime Bloom filter, which is optimal for 10 bits per key.
+   */
+  public static final int BLOOM_FILTER_HASHES_DEFAULT_VALUE = 7;
+
+  /**
+   * Default number of tuples one input of an adaptive hash join must reach, before either reaches EOS, for the join to
+   * build its hash table on the other input.
+   */
+  public static final long ADAPTIVE_HASH_JOIN_THRESHOLD_DEFAULT_VALUE = 1000 * 1000;
+
   /**
    * Default value for {@link MyriaSystemConfigKeys#FLOW_CONTROL_WRITE_BUFFER_HIGH_MARK_BYTES}.
    */
@@ -93,6 +139,9 @@ public final class MyriaConstants {
   /** Time interval between two resource usage reports. */
   public static final int RESOURCE_REPORT_INTERVAL = 1000;
 
+  /** Time interval (in milliseconds) between two snapshots of the operators executing in each fragment. */
+  public static final int SAMPLING_PROFILING_INTERVAL = 10;
+
   /** The identity of the master worker is current always zero. */
   public static final int MASTER_ID = 0;
 
@@ -234,6 +283,27 @@ public final class MyriaConstants {
    */
   public static final int DEFAULT_PIPED_INPUT_STREAM_SIZE = 1024 * 1024 * 16;
 
+  /**
+   * The size of the byte buffers that carry a dataset download from the query to the client. 1 MB.
+   */
+  public static final int DOWNLOAD_CHUNK_SIZE = 1024 * 1024;
+
+  /**
+   * The number of byte buffers of a dataset download, i.e., how many bytes can back up before we stop writing tuples
+   * and wait for the client to read them, in {@link #DOWNLOAD_CHUNK_SIZE} units.
+   */
+  public static final int DOWNLOAD_NUM_CHUNKS = 16;
+
+  /**
+   * The size of the ranged reads that a scan issues ahead of its parser when its data source supports them. 4 MB.
+   */
+  public static final int PREFETCH_CHUNK_SIZE = 4 * MB;
+
+  /**
+   * The number of ranged reads that a scan keeps in flight in parallel, in {@link #PREFETCH_CHUNK_SIZE} units.
+   */
+  public static final int PREFETCH_NUM_CHUNKS = 4;
+
   /**
    * The maximum number of currently active (running, queued, paused, ...) queries at the master.
    */
@@ -274,6 +344,19 @@ public final class MyriaConstants {
       Type.STRING_TYPE, Type.LONG_TYPE, Type.LONG_TYPE, Type.LONG_TYPE, "timestamp", "opId", "measurement", "value",
       "queryId", "subqueryId");
 
+  /**
+   * The relation that stores the aggregated samples of sampling profiling.
+   */
+  public static final RelationKey SAMPLE_PROFILING_RELATION = new RelationKey("public", "logs", "Sampling");
+
+  /**
+   * The schema of the {@link #SAMPLE_PROFILING_RELATION}. The stack is the semicolon-separated list of operator ids
+   * from the fragment root to the sampled operator, i.e., it is in the collapsed format consumed by flame graph tools.
+   */
+  public static final Schema SAMPLE_PROFILING_SCHEMA = Schema.ofFields(Type.LONG_TYPE, Type.LONG_TYPE, Type.INT_TYPE,
+      Type.INT_TYPE, Type.STRING_TYPE, Type.LONG_TYPE, "queryId", "subqueryId", "fragmentId", "opId", "stack",
+      "numSamples");
+
   /**
    * For how long cached versions of the profiling data should be valid.
    */
@@ -285,6 +368,18 @@ public final class MyriaConstants {
    */
   public static final int MAXIMUM_NUM_SUBQUERIES = 1000;
 
+  /**
+   * The maximum number of distinct values in a string dictionary. Once a scan has seen more distinct values in a string
+   * column, it stops dictionary-encoding that column.
+   */
+  public static final int STRING_DICTIONARY_MAX_SIZE = 1 << 16;
+
+  /**
+   * The maximum number of bytes of released off-heap buffers that a fragment keeps for reuse. Buffers released beyond
+   * that are freed immediately.
+   */
+  public static final long OFF_HEAP_POOL_MAX_BYTES = 64L << 20;
+
   /**
    * Default imports for janino. Modules imported here can be used in expressions.
    */
@@ -310,6 +405,10 @@ public final class MyriaConstants {
     /**
      * QUERY: query execution only.
      */
-    QUERY
+    QUERY,
+    /**
+     * SAMPLING: periodic snapshots of the operator each fragment is executing. Low overhead.
+     */
+    SAMPLING
   };
 }
@@ -72,6 +72,17 @@ public final class MyriaSystemConfigKeys {
    * */
   public static final String WORKER_IDENTIFIER = "worker.identifier";
 
+  /**
+   * The number of bytes of scan results that a worker caches in memory.
+   * */
+  public static final String SCAN_CACHE_MEMORY_BYTES = "worker.scancache.memory.bytes";
+
+  /**
+   * The number of bytes of scan results evicted from memory that a worker caches on local disk. 0 disables the disk
+   * tier.
+   * */
+  public static final String SCAN_CACHE_DISK_BYTES = "worker.scancache.disk.bytes";
+
   /** */
   public static final String WORKING_DIRECTORY = "working.directory";
   /** */
@@ -121,6 +132,12 @@ public final class MyriaSystemConfigKeys {
     if (!config.containsKey(WORKER_STORAGE_DATABASE_SYSTEM) || config.get(WORKER_STORAGE_DATABASE_SYSTEM) == null) {
       config.put(WORKER_STORAGE_DATABASE_SYSTEM, MyriaConstants.WORKER_STORAGE_DATABASE_SYSTEM_DEFAULT_VALUE + "");
     }
+    if (!config.containsKey(SCAN_CACHE_MEMORY_BYTES) || config.get(SCAN_CACHE_MEMORY_BYTES) == null) {
+      config.put(SCAN_CACHE_MEMORY_BYTES, MyriaConstants.SCAN_CACHE_MEMORY_BYTES_DEFAULT_VALUE + "");
+    }
+    if (!config.containsKey(SCAN_CACHE_DISK_BYTES) || config.get(SCAN_CACHE_DISK_BYTES) == null) {
+      config.put(SCAN_CACHE_DISK_BYTES, MyriaConstants.SCAN_CACHE_DISK_BYTES_DEFAULT_VALUE + "");
+    }
   }
 
   /**
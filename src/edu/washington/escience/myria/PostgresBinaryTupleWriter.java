@@ -87,6 +87,11 @@ public class PostgresBinaryTupleWriter implements TupleWriter {
         // 32 bit integer for length of value
         // n bytes value
 
+        if (tuples.isNull(j, i)) {
+          // a length of -1 is NULL
+          buffer.writeInt(-1);
+          continue;
+        }
         switch (columnTypes.get(j)) {
           case BOOLEAN_TYPE:
             // https://github.com/postgres/postgres/blob/master/src/backend/utils/adt/bool.c
@@ -74,6 +74,17 @@ public abstract class AccessMethod {
    */
   public abstract void tupleBatchInsert(final RelationKey relationKey, final TupleBatch tupleBatch) throws DbException;
 
+  /**
+   * Insert the tuples in this TupleBatch into each of the specified tables, in a single transaction.
+   * 
+   * @param relationKeys the tables to insert into.
+   * @param tupleBatch the tupleBatch to be inserted.
+   * 
+   * @throws DbException if there is an error inserting the tuples.
+   */
+  public abstract void tupleBatchInsert(final List<RelationKey> relationKeys, final TupleBatch tupleBatch)
+      throws DbException;
+
   /**
    * Runs a query and expose the results as an Iterator<TupleBatch>.
    * 
@@ -145,6 +156,25 @@ public abstract class AccessMethod {
    */
   public abstract void dropAndRenameTables(RelationKey oldRelation, RelationKey newRelation) throws DbException;
 
+  /**
+   * Atomically move the tuples of <code>relationKey</code> to <code>detachedKey</code>, leaving it empty, so that each
+   * concurrent insert into <code>relationKey</code> lands in exactly one of the two tables.
+   * An existing <code>detachedKey</code> is dropped first, and a missing <code>relationKey</code> is detached empty.
+   * 
+   * If <code>snapshotOf</code> is not null, it is also copied to <code>snapshotKey</code> in the same transaction, so
+   * that the snapshot holds the tuples of each concurrent {@link #tupleBatchInsert(List, TupleBatch)} into both
+   * <code>snapshotOf</code> and <code>relationKey</code> if and only if they are detached.
+   * 
+   * @param relationKey the table to be detached.
+   * @param detachedKey the new name of its tuples.
+   * @param schema the schema of the table.
+   * @param snapshotOf the table to be copied, which has the same schema, or null.
+   * @param snapshotKey the table it is copied to, which is dropped first if it exists, or null.
+   * @throws DbException if there is an error during this operation.
+   */
+  public abstract void detachTable(RelationKey relationKey, RelationKey detachedKey, Schema schema,
+      RelationKey snapshotOf, RelationKey snapshotKey) throws DbException;
+
   /**
    * Drop the specified table, if it exists.
    * 
@@ -6,8 +6,10 @@ import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Savepoint;
 import java.sql.Statement;
 import java.sql.Timestamp;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -33,6 +35,7 @@ import edu.washington.escience.myria.Schema;
 import edu.washington.escience.myria.TupleWriter;
 import edu.washington.escience.myria.Type;
 import edu.washington.escience.myria.column.Column;
+import edu.washington.escience.myria.column.StringDictionary;
 import edu.washington.escience.myria.column.builder.ColumnBuilder;
 import edu.washington.escience.myria.column.builder.ColumnFactory;
 import edu.washington.escience.myria.storage.TupleBatch;
@@ -149,11 +152,25 @@ public final class JdbcAccessMethod extends AccessMethod {
        * There are bugs when using the COPY command to store doubles and floats into PostgreSQL. See
        * uwescience/myria-web#48
        */
+      Savepoint savepoint = null;
       try {
+        /* In a transaction, a failed COPY aborts the transaction unless it is rolled back to before the COPY. */
+        if (!jdbcConnection.getAutoCommit()) {
+          savepoint = jdbcConnection.setSavepoint();
+        }
         postgresCopyInsert(relationKey, schema, tupleBatch);
         writeSucceeds = true;
+      } catch (SQLException e) {
+        throw ErrorUtils.mergeSQLException(e);
       } catch (DbException e) {
         LOGGER.error("Error inserting batch via PostgreSQL COPY", e);
+        if (savepoint != null) {
+          try {
+            jdbcConnection.rollback(savepoint);
+          } catch (SQLException e1) {
+            throw ErrorUtils.mergeSQLException(e1);
+          }
+        }
         /*
          * TODO - should we do a VACUUM now? The bad rows will not be visible to the DB, however, so the write did not
          * partially happen.
@@ -169,12 +186,16 @@ public final class JdbcAccessMethod extends AccessMethod {
             jdbcConnection.prepareStatement(insertStatementFromSchema(schema, relationKey));
         for (int row = 0; row < tupleBatch.numTuples(); ++row) {
           for (int col = 0; col < tupleBatch.numColumns(); ++col) {
+            if (tupleBatch.isNull(col, row)) {
+              statement.setNull(col + 1, Types.NULL);
+              continue;
+            }
             switch (schema.getColumnType(col)) {
               case BOOLEAN_TYPE:
                 statement.setBoolean(col + 1, tupleBatch.getBoolean(col, row));
                 break;
               case DATETIME_TYPE:
-                statement.setTimestamp(col + 1, new Timestamp(tupleBatch.getDateTime(col, row).getMillis()));
+                statement.setTimestamp(col + 1, new Timestamp(tupleBatch.getLong(col, row)));
                 break;
               case DOUBLE_TYPE:
                 statement.setDouble(col + 1, tupleBatch.getDouble(col, row));
@@ -204,6 +225,28 @@ public final class JdbcAccessMethod extends AccessMethod {
     LOGGER.debug(".. done inserting batch of size {}", tupleBatch.numTuples());
   }
 
+  @Override
+  public void tupleBatchInsert(final List<RelationKey> relationKeys, final TupleBatch tupleBatch) throws DbException {
+    Objects.requireNonNull(jdbcConnection, "jdbcConnection");
+    try {
+      final boolean autoCommit = jdbcConnection.getAutoCommit();
+      jdbcConnection.setAutoCommit(false);
+      try {
+        for (RelationKey relationKey : relationKeys) {
+          tupleBatchInsert(relationKey, tupleBatch);
+        }
+        jdbcConnection.commit();
+      } catch (final DbException e) {
+        jdbcConnection.rollback();
+        throw e;
+      } finally {
+        jdbcConnection.setAutoCommit(autoCommit);
+      }
+    } catch (final SQLException e) {
+      throw ErrorUtils.mergeSQLException(e);
+    }
+  }
+
   @Override
   public Iterator<TupleBatch> tupleBatchIteratorFromQuery(final String queryString, final Schema schema)
       throws DbException {
@@ -362,7 +405,7 @@ public final class JdbcAccessMethod extends AccessMethod {
         sb.append(", ");
       }
       sb.append(quote(schema.getColumnName(i))).append(" ").append(
-          typeToDbmsType(schema.getColumnType(i), jdbcInfo.getDbms())).append(" NOT NULL");
+          typeToDbmsType(schema.getColumnType(i), jdbcInfo.getDbms()));
     }
     sb.append(");");
     return sb.toString();
@@ -421,6 +464,90 @@ public final class JdbcAccessMethod extends AccessMethod {
     }
   }
 
+  @Override
+  public void detachTable(final RelationKey relationKey, final RelationKey detachedKey, final Schema schema,
+      final RelationKey snapshotOf, final RelationKey snapshotKey) throws DbException {
+    Objects.requireNonNull(jdbcConnection, "jdbcConnection");
+    Objects.requireNonNull(relationKey, "relationKey");
+    Objects.requireNonNull(detachedKey, "detachedKey");
+    Objects.requireNonNull(schema, "schema");
+    Preconditions.checkArgument((snapshotOf == null) == (snapshotKey == null),
+        "snapshotOf and snapshotKey must both be null or both be set");
+
+    switch (jdbcInfo.getDbms()) {
+      case MyriaConstants.STORAGE_SYSTEM_POSTGRESQL:
+        /* PostgreSQL DDL is transactional, and the rename locks out the inserts into the table until the commit. */
+        try {
+          final boolean autoCommit = jdbcConnection.getAutoCommit();
+          jdbcConnection.setAutoCommit(false);
+          try {
+            dropTableIfExists(detachedKey);
+            createTableIfNotExists(relationKey, schema);
+            execute("ALTER TABLE " + quote(relationKey) + " RENAME TO " + quote(detachedKey));
+            createTableIfNotExists(relationKey, schema);
+            if (snapshotOf != null) {
+              /*
+               * The rename waited for the inserts into the table, and the inserts that have not reached it yet wait
+               * for the commit and then insert into the new one, so the copy holds exactly the detached inserts.
+               */
+              dropTableIfExists(snapshotKey);
+              createTableIfNotExists(snapshotKey, schema);
+              execute("INSERT INTO " + quote(snapshotKey) + " SELECT * FROM " + quote(snapshotOf));
+            }
+            jdbcConnection.commit();
+          } catch (final DbException e) {
+            jdbcConnection.rollback();
+            throw e;
+          } finally {
+            jdbcConnection.setAutoCommit(autoCommit);
+          }
+        } catch (final SQLException e) {
+          throw ErrorUtils.mergeSQLException(e);
+        }
+        break;
+      case MyriaConstants.STORAGE_SYSTEM_MYSQL:
+        /*
+         * MySQL commits before each DDL statement, so the tuples are moved and copied under LOCK TABLES instead. The
+         * lock waits for the open transactions that inserted into the tables, and blocks new inserts until the unlock.
+         */
+        dropTableIfExists(detachedKey);
+        createTableIfNotExists(detachedKey, schema);
+        createTableIfNotExists(relationKey, schema);
+        StringBuilder lock =
+            new StringBuilder("LOCK TABLES ").append(quote(relationKey)).append(" WRITE, ").append(quote(detachedKey))
+                .append(" WRITE");
+        if (snapshotOf != null) {
+          dropTableIfExists(snapshotKey);
+          createTableIfNotExists(snapshotKey, schema);
+          lock.append(", ").append(quote(snapshotKey)).append(" WRITE, ").append(quote(snapshotOf)).append(" READ");
+        }
+        try {
+          final boolean autoCommit = jdbcConnection.getAutoCommit();
+          jdbcConnection.setAutoCommit(false);
+          execute(lock.toString());
+          try {
+            execute("INSERT INTO " + quote(detachedKey) + " SELECT * FROM " + quote(relationKey));
+            execute("DELETE FROM " + quote(relationKey));
+            if (snapshotOf != null) {
+              execute("INSERT INTO " + quote(snapshotKey) + " SELECT * FROM " + quote(snapshotOf));
+            }
+            jdbcConnection.commit();
+          } catch (final DbException e) {
+            jdbcConnection.rollback();
+            throw e;
+          } finally {
+            execute("UNLOCK TABLES");
+            jdbcConnection.setAutoCommit(autoCommit);
+          }
+        } catch (final SQLException e) {
+          throw ErrorUtils.mergeSQLException(e);
+        }
+        break;
+      default:
+        throw new UnsupportedOperationException("Don't know how to detach tables for DBMS " + jdbcInfo.getDbms());
+    }
+  }
+
   @Override
   public void dropTableIfExists(final RelationKey relationKey) throws DbException {
     switch (jdbcInfo.getDbms()) {
@@ -600,6 +727,8 @@ class JdbcTupleBatchIterator implements Iterator<TupleBatch> {
   private TupleBatch nextTB = null;
   /** statement is closed or not. */
   private boolean statementClosed = false;
+  /** The dictionaries that STRING columns are encoded with, shared by all the batches of this iterator. */
+  private final StringDictionary[] dictionaries;
 
   /**
    * Constructs a JdbcTupleBatchIterator from the given ResultSet and Schema objects.
@@ -610,6 +739,7 @@ class JdbcTupleBatchIterator implements Iterator<TupleBatch> {
   JdbcTupleBatchIterator(final ResultSet resultSet, final Schema schema) {
     this.resultSet = resultSet;
     this.schema = schema;
+    dictionaries = ColumnFactory.allocateDictionaries(schema);
   }
 
   @Override
@@ -635,7 +765,7 @@ class JdbcTupleBatchIterator implements Iterator<TupleBatch> {
       return null;
     }
     final int numFields = schema.numColumns();
-    final List<ColumnBuilder<?>> columnBuilders = ColumnFactory.allocateColumns(schema);
+    final List<ColumnBuilder<?>> columnBuilders = ColumnFactory.allocateColumns(schema, dictionaries);
     int numTuples = 0;
     for (numTuples = 0; numTuples < TupleBatch.BATCH_SIZE; ++numTuples) {
       if (!resultSet.next()) {
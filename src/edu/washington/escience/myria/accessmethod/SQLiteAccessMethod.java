@@ -19,6 +19,7 @@ import com.almworks.sqlite4java.SQLiteJob;
 import com.almworks.sqlite4java.SQLiteQueue;
 import com.almworks.sqlite4java.SQLiteStatement;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 
 import edu.washington.escience.myria.DbException;
 import edu.washington.escience.myria.MyriaConstants;
@@ -26,6 +27,7 @@ import edu.washington.escience.myria.RelationKey;
 import edu.washington.escience.myria.Schema;
 import edu.washington.escience.myria.Type;
 import edu.washington.escience.myria.column.Column;
+import edu.washington.escience.myria.column.StringDictionary;
 import edu.washington.escience.myria.column.builder.ColumnBuilder;
 import edu.washington.escience.myria.column.builder.ColumnFactory;
 import edu.washington.escience.myria.storage.TupleBatch;
@@ -119,62 +121,28 @@ public final class SQLiteAccessMethod extends AccessMethod {
 
   @Override
   public void tupleBatchInsert(final RelationKey relationKey, final TupleBatch tupleBatch) throws DbException {
+    tupleBatchInsert(ImmutableList.of(relationKey), tupleBatch);
+  }
+
+  @Override
+  public void tupleBatchInsert(final List<RelationKey> relationKeys, final TupleBatch tupleBatch) throws DbException {
     Objects.requireNonNull(sqliteQueue);
 
     try {
       sqliteQueue.execute(new SQLiteJob<Object>() {
         @Override
         protected Object job(final SQLiteConnection sqliteConnection) throws DbException {
-          SQLiteStatement statement = null;
-          Schema schema = tupleBatch.getSchema();
           try {
             /* BEGIN TRANSACTION */
             sqliteConnection.exec("BEGIN TRANSACTION");
-            /* Set up and execute the query */
-            statement = sqliteConnection.prepare(insertStatementFromSchema(schema, relationKey));
-            for (int row = 0; row < tupleBatch.numTuples(); ++row) {
-              for (int col = 0; col < tupleBatch.numColumns(); ++col) {
-                switch (schema.getColumnType(col)) {
-                  case BOOLEAN_TYPE:
-                    /* In SQLite, booleans are integers represented as 0 (false) or 1 (true). */
-                    int colVal = 0;
-                    if (tupleBatch.getBoolean(col, row)) {
-                      colVal = 1;
-                    }
-                    statement.bind(col + 1, colVal);
-                    break;
-                  case DATETIME_TYPE:
-                    statement.bind(col + 1, tupleBatch.getDateTime(col, row).getMillis()); // SQLite long
-                    break;
-                  case DOUBLE_TYPE:
-                    statement.bind(col + 1, tupleBatch.getDouble(col, row));
-                    break;
-                  case FLOAT_TYPE:
-                    statement.bind(col + 1, tupleBatch.getFloat(col, row));
-                    break;
-                  case INT_TYPE:
-                    statement.bind(col + 1, tupleBatch.getInt(col, row));
-                    break;
-                  case LONG_TYPE:
-                    statement.bind(col + 1, tupleBatch.getLong(col, row));
-                    break;
-                  case STRING_TYPE:
-                    statement.bind(col + 1, tupleBatch.getString(col, row));
-                    break;
-                }
-              }
-              statement.step();
-              statement.reset();
+            for (RelationKey relationKey : relationKeys) {
+              insert(sqliteConnection, relationKey, tupleBatch);
             }
             /* COMMIT TRANSACTION */
             sqliteConnection.exec("COMMIT TRANSACTION");
           } catch (final SQLiteException e) {
             LOGGER.error(e.getMessage());
             throw new DbException(e);
-          } finally {
-            if (statement != null && !statement.isDisposed()) {
-              statement.dispose();
-            }
           }
           return null;
         }
@@ -185,6 +153,66 @@ public final class SQLiteAccessMethod extends AccessMethod {
 
   }
 
+  /**
+   * Insert the tuples in this TupleBatch into the database, in the current transaction.
+   * 
+   * @param sqliteConnection the connection.
+   * @param relationKey the table to insert into.
+   * @param tupleBatch the tupleBatch to be inserted.
+   * @throws SQLiteException if there is an error inserting the tuples.
+   */
+  private void insert(final SQLiteConnection sqliteConnection, final RelationKey relationKey,
+      final TupleBatch tupleBatch) throws SQLiteException {
+    SQLiteStatement statement = null;
+    Schema schema = tupleBatch.getSchema();
+    try {
+      /* Set up and execute the query */
+      statement = sqliteConnection.prepare(insertStatementFromSchema(schema, relationKey));
+      for (int row = 0; row < tupleBatch.numTuples(); ++row) {
+        for (int col = 0; col < tupleBatch.numColumns(); ++col) {
+          if (tupleBatch.isNull(col, row)) {
+            statement.bindNull(col + 1);
+            continue;
+          }
+          switch (schema.getColumnType(col)) {
+            case BOOLEAN_TYPE:
+              /* In SQLite, booleans are integers represented as 0 (false) or 1 (true). */
+              int colVal = 0;
+              if (tupleBatch.getBoolean(col, row)) {
+                colVal = 1;
+              }
+              statement.bind(col + 1, colVal);
+              break;
+            case DATETIME_TYPE:
+              statement.bind(col + 1, tupleBatch.getLong(col, row)); // SQLite long
+              break;
+            case DOUBLE_TYPE:
+              statement.bind(col + 1, tupleBatch.getDouble(col, row));
+              break;
+            case FLOAT_TYPE:
+              statement.bind(col + 1, tupleBatch.getFloat(col, row));
+              break;
+            case INT_TYPE:
+              statement.bind(col + 1, tupleBatch.getInt(col, row));
+              break;
+            case LONG_TYPE:
+              statement.bind(col + 1, tupleBatch.getLong(col, row));
+              break;
+            case STRING_TYPE:
+              statement.bind(col + 1, tupleBatch.getString(col, row));
+              break;
+          }
+        }
+        statement.step();
+        statement.reset();
+      }
+    } finally {
+      if (statement != null && !statement.isDisposed()) {
+        statement.dispose();
+      }
+    }
+  }
+
   /** How many times to try to open a database before we give up. Normal is 2-3, outside is 10 to 20. */
   private static final int MAX_RETRY_ATTEMPTS = 1000;
 
@@ -395,6 +423,53 @@ public final class SQLiteAccessMethod extends AccessMethod {
     execute("ALTER TABLE " + newName + " RENAME TO " + oldName);
   }
 
+  @Override
+  public void detachTable(final RelationKey relationKey, final RelationKey detachedKey, final Schema schema,
+      final RelationKey snapshotOf, final RelationKey snapshotKey) throws DbException {
+    Objects.requireNonNull(sqliteQueue);
+    Preconditions.checkArgument((snapshotOf == null) == (snapshotKey == null),
+        "snapshotOf and snapshotKey must both be null or both be set");
+    final String name = relationKey.toString(MyriaConstants.STORAGE_SYSTEM_SQLITE);
+    final String detachedName = detachedKey.toString(MyriaConstants.STORAGE_SYSTEM_SQLITE);
+    final String create = createIfNotExistsStatementFromSchema(schema, relationKey);
+
+    try {
+      sqliteQueue.execute(new SQLiteJob<Object>() {
+        @Override
+        protected Object job(final SQLiteConnection sqliteConnection) throws DbException {
+          try {
+            sqliteConnection.setBusyTimeout(SQLiteAccessMethod.DEFAULT_BUSY_TIMEOUT);
+            /* IMMEDIATE takes the write lock first, so no insert into the table runs between the statements. */
+            sqliteConnection.exec("BEGIN IMMEDIATE TRANSACTION");
+            try {
+              sqliteConnection.exec("DROP TABLE IF EXISTS " + detachedName);
+              sqliteConnection.exec(create);
+              sqliteConnection.exec("ALTER TABLE " + name + " RENAME TO " + detachedName);
+              sqliteConnection.exec(create);
+              if (snapshotOf != null) {
+                final String snapshotName = snapshotKey.toString(MyriaConstants.STORAGE_SYSTEM_SQLITE);
+                sqliteConnection.exec("DROP TABLE IF EXISTS " + snapshotName);
+                sqliteConnection.exec(createIfNotExistsStatementFromSchema(schema, snapshotKey));
+                sqliteConnection.exec("INSERT INTO " + snapshotName + " SELECT * FROM "
+                    + snapshotOf.toString(MyriaConstants.STORAGE_SYSTEM_SQLITE));
+              }
+              sqliteConnection.exec("COMMIT TRANSACTION");
+            } catch (final SQLiteException e) {
+              sqliteConnection.exec("ROLLBACK TRANSACTION");
+              throw e;
+            }
+          } catch (final SQLiteException e) {
+            LOGGER.error(e.getMessage(), e);
+            throw new DbException(e);
+          }
+          return null;
+        }
+      }).get();
+    } catch (InterruptedException | ExecutionException e) {
+      throw new DbException(e);
+    }
+  }
+
   @Override
   public void dropTableIfExists(final RelationKey relationKey) throws DbException {
     execute("DROP TABLE IF EXISTS " + relationKey.toString(MyriaConstants.STORAGE_SYSTEM_SQLITE));
@@ -471,6 +546,8 @@ class SQLiteTupleBatchIterator implements Iterator<TupleBatch> {
   private final SQLiteConnection connection;
   /** The Schema of the TupleBatches returned by this Iterator. */
   private final Schema schema;
+  /** The dictionaries that STRING columns are encoded with, shared by all the batches of this iterator. */
+  private final StringDictionary[] dictionaries;
 
   /**
    * Wraps a SQLiteStatement result set in an Iterator<TupleBatch>.
@@ -483,6 +560,7 @@ class SQLiteTupleBatchIterator implements Iterator<TupleBatch> {
     this.statement = statement;
     this.connection = connection;
     this.schema = schema;
+    dictionaries = ColumnFactory.allocateDictionaries(schema);
   }
 
   /**
@@ -501,6 +579,7 @@ class SQLiteTupleBatchIterator implements Iterator<TupleBatch> {
         statement.step();
       }
       this.schema = schema;
+      dictionaries = ColumnFactory.allocateDictionaries(schema);
     } catch (final SQLiteException e) {
       throw new RuntimeException(e);
     }
@@ -520,7 +599,7 @@ class SQLiteTupleBatchIterator implements Iterator<TupleBatch> {
   public TupleBatch next() {
     /* Allocate TupleBatch parameters */
     final int numFields = schema.numColumns();
-    final List<ColumnBuilder<?>> columnBuilders = ColumnFactory.allocateColumns(schema);
+    final List<ColumnBuilder<?>> columnBuilders = ColumnFactory.allocateColumns(schema, dictionaries);
 
     /**
      * Loop through resultSet, adding one row at a time. Stop when numTuples hits BATCH_SIZE or there are no more
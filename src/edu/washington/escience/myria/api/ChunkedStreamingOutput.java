@@ -0,0 +1,193 @@
+package edu.washington.escience.myria.api;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.apache.commons.io.IOUtils;
+
+import com.google.common.base.Preconditions;
+
+import edu.washington.escience.myria.MyriaConstants;
+
+/**
+ * A {@link ChunkedStreamingOutput} is a {@link StreamingOutput} that streams to an HTTP client the bytes written to
+ * its {@link #getOutputStream() output stream} by another thread, e.g., by the
+ * {@link edu.washington.escience.myria.TupleWriter} of a query.
+ *
+ * Unlike a {@link java.io.PipedInputStream}, the bytes are handed over in large chunks through a bounded queue of
+ * reusable buffers: the writer fills a whole buffer before passing it on and the client side writes whole buffers to
+ * the connection, so neither side synchronizes per write call. When all the buffers are full, the writer blocks until
+ * the client catches up. If the client goes away, the writer fails with an {@link IOException} instead of blocking
+ * forever.
+ */
+public final class ChunkedStreamingOutput implements StreamingOutput {
+
+  /** A buffer and the number of valid bytes in it. */
+  private static final class Chunk {
+    /** The bytes. */
+    private final byte[] data;
+    /** The number of valid bytes. */
+    private int length;
+
+    /**
+     * @param size the capacity of the chunk.
+     */
+    Chunk(final int size) {
+      data = new byte[size];
+    }
+  }
+
+  /** Marks the end of the stream in {@link #filled}. */
+  private static final Chunk END = new Chunk(0);
+
+  /** The chunks that are ready to be written to the client, in order. */
+  private final BlockingQueue<Chunk> filled;
+  /** The chunks that can be filled. */
+  private final BlockingQueue<Chunk> free;
+  /** The stream to which the bytes to be sent are written. */
+  private final OutputStream output;
+  /** Set when the client side failed, so that the writer stops waiting for free chunks. */
+  private volatile boolean aborted = false;
+
+  /**
+   * Construct a {@link ChunkedStreamingOutput} with {@link MyriaConstants#DOWNLOAD_NUM_CHUNKS} buffers of
+   * {@link MyriaConstants#DOWNLOAD_CHUNK_SIZE} bytes.
+   */
+  public ChunkedStreamingOutput() {
+    this(MyriaConstants.DOWNLOAD_NUM_CHUNKS, MyriaConstants.DOWNLOAD_CHUNK_SIZE);
+  }
+
+  /**
+   * @param numChunks the number of buffers.
+   * @param chunkSize the size of each buffer, in bytes.
+   */
+  public ChunkedStreamingOutput(final int numChunks, final int chunkSize) {
+    Preconditions.checkArgument(numChunks > 1, "need at least two chunks");
+    Preconditions.checkArgument(chunkSize > 0, "chunk size must be positive");
+    /* One more slot for the end marker. */
+    filled = new ArrayBlockingQueue<Chunk>(numChunks + 1);
+    free = new ArrayBlockingQueue<Chunk>(numChunks);
+    for (int i = 0; i < numChunks; ++i) {
+      free.add(new Chunk(chunkSize));
+    }
+    output = new ChunkOutputStream();
+  }
+
+  /**
+   * @return the stream to which the bytes to be sent to the client should be written. Closing it ends the response.
+   */
+  public OutputStream getOutputStream() {
+    return output;
+  }
+
+  @Override
+  public void write(final OutputStream out) throws IOException, WebApplicationException {
+    try {
+      while (true) {
+        Chunk chunk = filled.take();
+        if (chunk == END) {
+          break;
+        }
+        out.write(chunk.data, 0, chunk.length);
+        chunk.length = 0;
+        free.add(chunk);
+      }
+    } catch (InterruptedException e) {
+      aborted = true;
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("interrupted while streaming to the client");
+    } catch (IOException | RuntimeException e) {
+      aborted = true;
+      throw e;
+    } finally {
+      IOUtils.closeQuietly(out);
+    }
+  }
+
+  /** The writer side. Not thread safe: a single thread is expected to write all the bytes. */
+  private final class ChunkOutputStream extends OutputStream {
+    /** The chunk being filled, or null if none has been taken yet. */
+    private Chunk current;
+    /** Whether the stream has been closed. */
+    private boolean closed = false;
+
+    /**
+     * @return a chunk with room for at least one byte.
+     * @throws IOException if the client side failed or the stream is closed.
+     */
+    private Chunk room() throws IOException {
+      if (closed) {
+        throw new IOException("stream closed");
+      }
+      if (current != null && current.length < current.data.length) {
+        return current;
+      }
+      handOver();
+      try {
+        while (current == null) {
+          if (aborted) {
+            throw new IOException("the client stopped reading the response");
+          }
+          current = free.poll(MyriaConstants.SHORT_WAITING_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("interrupted while waiting for the client");
+      }
+      return current;
+    }
+
+    /** Pass the current chunk, if it has any data, to the client side. */
+    private void handOver() {
+      if (current != null && current.length > 0) {
+        /* Every chunk is either free, filled, or current, so this never exceeds the capacity. */
+        filled.add(current);
+        current = null;
+      }
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+      Chunk chunk = room();
+      chunk.data[chunk.length++] = (byte) b;
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+      Preconditions.checkPositionIndexes(off, off + len, b.length);
+      int done = 0;
+      while (done < len) {
+        Chunk chunk = room();
+        int n = Math.min(len - done, chunk.data.length - chunk.length);
+        System.arraycopy(b, off + done, chunk.data, chunk.length, n);
+        chunk.length += n;
+        done += n;
+      }
+    }
+
+    @Override
+    public void flush() throws IOException {
+      if (aborted) {
+        throw new IOException("the client stopped reading the response");
+      }
+      /* Only whole chunks are handed over, except at close, to keep the queue traffic per chunk. */
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      handOver();
+      filled.add(END);
+    }
+  }
+}
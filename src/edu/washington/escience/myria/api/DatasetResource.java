@@ -2,8 +2,7 @@ package edu.washington.escience.myria.api;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.PipedInputStream;
-import java.io.PipedOutputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.util.List;
 import java.util.Set;
@@ -36,20 +35,22 @@ import com.wordnik.swagger.annotations.ApiOperation;
 import com.wordnik.swagger.annotations.ApiResponse;
 import com.wordnik.swagger.annotations.ApiResponses;
 
+import edu.washington.escience.myria.ColumnarBinaryTupleWriter;
 import edu.washington.escience.myria.CsvTupleWriter;
 import edu.washington.escience.myria.DbException;
 import edu.washington.escience.myria.JsonTupleWriter;
-import edu.washington.escience.myria.MyriaConstants;
 import edu.washington.escience.myria.RelationKey;
 import edu.washington.escience.myria.Schema;
 import edu.washington.escience.myria.TupleWriter;
 import edu.washington.escience.myria.accessmethod.AccessMethod.IndexRef;
 import edu.washington.escience.myria.api.encoding.DatasetEncoding;
 import edu.washington.escience.myria.api.encoding.DatasetStatus;
+import edu.washington.escience.myria.api.encoding.MaterializedViewEncoding;
 import edu.washington.escience.myria.api.encoding.TipsyDatasetEncoding;
 import edu.washington.escience.myria.coordinator.catalog.CatalogException;
 import edu.washington.escience.myria.io.InputStreamSource;
 import edu.washington.escience.myria.operator.BinaryFileScan;
+import edu.washington.escience.myria.operator.ColumnarBinaryFileScan;
 import edu.washington.escience.myria.operator.FileScan;
 import edu.washington.escience.myria.operator.Operator;
 import edu.washington.escience.myria.operator.TipsyFileScan;
@@ -136,14 +137,22 @@ public final class DatasetResource {
     if (cleanFormat.equals("json")) {
       return cleanFormat;
     }
-    throw new MyriaApiException(Status.BAD_REQUEST, "format must be 'csv', 'tsv', or 'json'");
+    /* Columnar binary is legal */
+    if (cleanFormat.equals("binary")) {
+      return cleanFormat;
+    }
+    throw new MyriaApiException(Status.BAD_REQUEST, "format must be 'csv', 'tsv', 'json', or 'binary'");
   }
 
   /**
    * @param userName the user who owns the target relation.
    * @param programName the program to which the target relation belongs.
    * @param relationName the name of the target relation.
-   * @param format the format of the output data. Valid options are (case-insensitive) "csv", "tsv", and "json".
+   * @param format the format of the output data. Valid options are (case-insensitive) "csv", "tsv", "json", and
+   *          "binary". The binary format is read by {@link edu.washington.escience.myria.client.ColumnarBinaryReader}.
+   * @param ordered if true, the partitions stored by the workers are concatenated in worker order instead of being
+   *          interleaved as they arrive.
+   * @param compress if true, the blocks of the binary format are compressed. Ignored for the other formats.
    * @return metadata about the specified relation.
    * @throws DbException if there is an error in the database.
    */
@@ -152,7 +161,8 @@ public final class DatasetResource {
   @Path("/user-{userName}/program-{programName}/relation-{relationName}/data")
   public Response getDatasetData(@PathParam("userName") final String userName,
       @PathParam("programName") final String programName, @PathParam("relationName") final String relationName,
-      @QueryParam("format") final String format) throws DbException {
+      @QueryParam("format") final String format, @QueryParam("ordered") final boolean ordered,
+      @QueryParam("compress") final boolean compress) throws DbException {
 
     /* Start building the response. */
     ResponseBuilder response = Response.ok();
@@ -164,19 +174,11 @@ public final class DatasetResource {
     String validFormat = validateFormat(format);
 
     /*
-     * Allocate the pipes by which the {@link DataOutput} operator will talk to the {@link StreamingOutput} object that
-     * will stream data to the client.
+     * Create a {@link ChunkedStreamingOutput} object: the {@link DataOutput} operator writes the serialized results to
+     * its output stream, and it streams them to the client...
      */
-    PipedOutputStream writerOutput = new PipedOutputStream();
-    PipedInputStream input;
-    try {
-      input = new PipedInputStream(writerOutput, MyriaConstants.DEFAULT_PIPED_INPUT_STREAM_SIZE);
-    } catch (IOException e) {
-      throw new DbException(e);
-    }
-
-    /* Create a {@link PipedStreamingOutput} object that will stream the serialized results to the client. */
-    PipedStreamingOutput entity = new PipedStreamingOutput(input);
+    ChunkedStreamingOutput entity = new ChunkedStreamingOutput();
+    OutputStream writerOutput = entity.getOutputStream();
     /* .. and make it the entity of the response. */
     response.entity(entity);
 
@@ -202,13 +204,31 @@ public final class DatasetResource {
       /* JSON: set application/json. */
       response.type(MyriaApiConstants.JSON_UTF_8);
       writer = new JsonTupleWriter(writerOutput);
+    } else if (validFormat.equals("binary")) {
+      /* Columnar binary: the schema goes in the header, so look it up first. */
+      Schema schema;
+      try {
+        schema = server.getSchema(relationKey);
+      } catch (CatalogException e) {
+        throw new DbException(e);
+      }
+      if (schema == null) {
+        /* Not found, throw a 404 (Not Found) */
+        throw new MyriaApiException(Status.NOT_FOUND, "The dataset was not found: " + relationKey.toString());
+      }
+      writer = new ColumnarBinaryTupleWriter(writerOutput, schema, compress);
+      ContentDisposition contentDisposition =
+          ContentDisposition.type("attachment").fileName(relationKey.toString() + ".bin").build();
+
+      response.header("Content-Disposition", contentDisposition);
+      response.type(MediaType.APPLICATION_OCTET_STREAM);
     } else {
       /* Should not be possible to get here. */
       throw new IllegalStateException("format should have been validated by now, and yet we got here");
     }
 
-    /* Start streaming tuples into the TupleWriter, and through the pipes to the PipedStreamingOutput. */
-    server.startDataStream(relationKey, writer);
+    /* Start streaming tuples into the TupleWriter, and through the chunks to the ChunkedStreamingOutput. */
+    server.startDataStream(relationKey, writer, ordered);
 
     /* Yay, worked! Ensure the file has the correct filename. */
     return response.build();
@@ -230,21 +250,16 @@ public final class DatasetResource {
 
     /* Validate the request format. This will throw a MyriaApiException if format is invalid. */
     String validFormat = validateFormat(format);
+    if (validFormat.equals("binary")) {
+      throw new MyriaApiException(Status.BAD_REQUEST, "format must be 'csv', 'tsv', or 'json'");
+    }
 
     /*
-     * Allocate the pipes by which the {@link DataOutput} operator will talk to the {@link StreamingOutput} object that
-     * will stream data to the client.
+     * Create a {@link ChunkedStreamingOutput} object: the {@link DataOutput} operator writes the serialized results to
+     * its output stream, and it streams them to the client...
      */
-    PipedOutputStream writerOutput = new PipedOutputStream();
-    PipedInputStream input;
-    try {
-      input = new PipedInputStream(writerOutput, MyriaConstants.DEFAULT_PIPED_INPUT_STREAM_SIZE);
-    } catch (IOException e) {
-      throw new DbException(e);
-    }
-
-    /* Create a {@link PipedStreamingOutput} object that will stream the serialized results to the client. */
-    PipedStreamingOutput entity = new PipedStreamingOutput(input);
+    ChunkedStreamingOutput entity = new ChunkedStreamingOutput();
+    OutputStream writerOutput = entity.getOutputStream();
     /* .. and make it the entity of the response. */
     response.entity(entity);
 
@@ -275,7 +290,7 @@ public final class DatasetResource {
       throw new IllegalStateException("format should have been validated by now, and yet we got here");
     }
 
-    /* Start streaming tuples into the TupleWriter, and through the pipes to the PipedStreamingOutput. */
+    /* Start streaming tuples into the TupleWriter, and through the chunks to the ChunkedStreamingOutput. */
     server.startTestDataStream(numTB, writer);
 
     /* Yay, worked! Ensure the file has the correct filename. */
@@ -289,7 +304,8 @@ public final class DatasetResource {
    * @param userName the user who owns the target relation.
    * @param programName the program to which the target relation belongs.
    * @param relationName the name of the target relation.
-   * @param format the format of the output data. Valid options are (case-insensitive) "csv", "tsv", and "json".
+   * @param format the format of the input data. Valid options are (case-insensitive) "csv", "tsv", and "binary", the
+   *          format written by {@link edu.washington.escience.myria.ColumnarBinaryTupleWriter}.
    * @throws DbException on any error
    * @return metadata about the specified relation.
    */
@@ -313,17 +329,17 @@ public final class DatasetResource {
     }
 
     String validFormat = validateFormat(format);
-    Character delimiter;
+    Operator source;
     if (validFormat.equals("csv")) {
-      delimiter = ',';
+      source = new FileScan(new InputStreamSource(is), schema, ',');
     } else if (validFormat.equals("tsv")) {
-      delimiter = '\t';
+      source = new FileScan(new InputStreamSource(is), schema, '\t');
+    } else if (validFormat.equals("binary")) {
+      source = new ColumnarBinaryFileScan(schema, new InputStreamSource(is));
     } else {
-      throw new MyriaApiException(Status.BAD_REQUEST, "format must be 'csv', 'tsv'");
+      throw new MyriaApiException(Status.BAD_REQUEST, "format must be 'csv', 'tsv', or 'binary'");
     }
 
-    Operator source = new FileScan(new InputStreamSource(is), schema, delimiter);
-
     ResponseBuilder builder = Response.ok();
     return doIngest(relationKey, source, null, null, true, builder);
   }
@@ -338,10 +354,18 @@ public final class DatasetResource {
   public Response newDataset(final DatasetEncoding dataset) throws DbException {
     dataset.validate();
 
+    Operator scan;
+    if (MoreObjects.firstNonNull(dataset.columnar, false)) {
+      scan = new ColumnarBinaryFileScan(dataset.schema, dataset.source);
+    } else {
+      scan =
+          new FileScan(dataset.source, dataset.schema, dataset.delimiter, dataset.quote, dataset.escape,
+              dataset.numberOfSkippedLines);
+    }
+
     URI datasetUri = getCanonicalResourcePath(uriInfo, dataset.relationKey);
     ResponseBuilder builder = Response.created(datasetUri);
-    return doIngest(dataset.relationKey, new FileScan(dataset.source, dataset.schema, dataset.delimiter, dataset.quote,
-        dataset.escape, dataset.numberOfSkippedLines), dataset.workers, dataset.indexes, dataset.overwrite, builder);
+    return doIngest(dataset.relationKey, scan, dataset.workers, dataset.indexes, dataset.overwrite, builder);
   }
 
   /**
@@ -355,6 +379,9 @@ public final class DatasetResource {
    *          missing or false).
    * @param isLittleEndian optional: indicates whether the data is in big-Endian (default, <code>false</code>) or
    *          little-Endian format. Only applicable when <code>binary</code> is set.
+   * @param columnar optional: if <code>true</code>, indicates that supplied data is in the columnar binary format
+   *          written by {@link edu.washington.escience.myria.ColumnarBinaryTupleWriter}, which supports all types.
+   *          Takes precedence over <code>binary</code>. (default, <code>false</code>)
    * @param overwrite optional: indicates that an existing relation should be overwritten. If <code>false</code>, then a
    *          409 Conflict response will be thrown if <code>relationKey</code> already exists in the catalog.
    * @param data optional: the source of bytes to be loaded.
@@ -366,15 +393,17 @@ public final class DatasetResource {
   public Response newDatasetMultipart(@FormDataParam("relationKey") final RelationKey relationKey,
       @FormDataParam("schema") final Schema schema, @FormDataParam("delimiter") final Character delimiter,
       @FormDataParam("binary") final Boolean binary, @FormDataParam("isLittleEndian") final Boolean isLittleEndian,
-      @FormDataParam("overwrite") final Boolean overwrite, @FormDataParam("data") final InputStream data)
-      throws DbException {
+      @FormDataParam("columnar") final Boolean columnar, @FormDataParam("overwrite") final Boolean overwrite,
+      @FormDataParam("data") final InputStream data) throws DbException {
 
     Preconditions.checkArgument(relationKey != null, "Missing required field relationKey.");
     Preconditions.checkArgument(schema != null, "Missing required field schama.");
     Preconditions.checkArgument(data != null, "Missing required field data.");
 
     Operator scan;
-    if (MoreObjects.firstNonNull(binary, false)) {
+    if (MoreObjects.firstNonNull(columnar, false)) {
+      scan = new ColumnarBinaryFileScan(schema, new InputStreamSource(data));
+    } else if (MoreObjects.firstNonNull(binary, false)) {
       scan = new BinaryFileScan(schema, new InputStreamSource(data), MoreObjects.firstNonNull(isLittleEndian, false));
     } else {
       scan = new FileScan(new InputStreamSource(data), schema, delimiter);
@@ -496,6 +525,74 @@ public final class DatasetResource {
     return doIngest(dataset.relationKey, tipsyScan, dataset.workers, dataset.indexes, false, builder);
   }
 
+  /**
+   * @param view the definition of the materialized view to be created.
+   * @param uriInfo information about the current URL.
+   * @return the created dataset resource.
+   * @throws DbException if there is an error in the database.
+   */
+  @POST
+  @Path("/view")
+  @Consumes(MediaType.APPLICATION_JSON)
+  public Response newMaterializedView(final MaterializedViewEncoding view, @Context final UriInfo uriInfo)
+      throws DbException {
+    view.validate();
+
+    /* If we already have a dataset by this name, tell the user there's a conflict. */
+    try {
+      if (server.getSchema(view.relationKey) != null) {
+        throw new MyriaApiException(Status.CONFLICT, "That dataset already exists.");
+      }
+    } catch (CatalogException e) {
+      throw new DbException(e);
+    }
+
+    DatasetStatus status;
+    try {
+      status = server.createMaterializedView(view);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return Response.status(Status.SERVICE_UNAVAILABLE).entity("Interrupted").build();
+    }
+    URI datasetUri = getCanonicalResourcePath(uriInfo, view.relationKey);
+    status.setUri(datasetUri);
+    return Response.created(datasetUri).entity(status).build();
+  }
+
+  /**
+   * Merge the tuples appended to the base relation of a materialized view since its last refresh into the view.
+   * 
+   * @param userName the user who owns the view.
+   * @param programName the program to which the view belongs.
+   * @param relationName the name of the view.
+   * @return metadata about the refreshed view.
+   * @throws DbException if there is an error in the database.
+   */
+  @POST
+  @Path("/user-{userName}/program-{programName}/relation-{relationName}/refresh")
+  public Response refreshMaterializedView(@PathParam("userName") final String userName,
+      @PathParam("programName") final String programName, @PathParam("relationName") final String relationName)
+      throws DbException {
+    RelationKey relationKey = RelationKey.of(userName, programName, relationName);
+    try {
+      if (server.getMaterializedView(relationKey) == null) {
+        throw new MyriaApiException(Status.NOT_FOUND, "The materialized view was not found: " + relationKey);
+      }
+    } catch (CatalogException e) {
+      throw new DbException(e);
+    }
+
+    DatasetStatus status;
+    try {
+      status = server.refreshMaterializedView(relationKey);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return Response.status(Status.SERVICE_UNAVAILABLE).entity("Interrupted").build();
+    }
+    status.setUri(getCanonicalResourcePath(uriInfo, relationKey));
+    return Response.ok(status).build();
+  }
+
   /**
    * @param queryId an optional query ID specifying which datasets to get.
    * @return a list of datasets.
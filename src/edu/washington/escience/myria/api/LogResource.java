@@ -92,6 +92,51 @@ public final class LogResource {
     return response.build();
   }
 
+  /**
+   * Get the sampled profile of a query, run with profiling mode SAMPLING.
+   * 
+   * @param queryId query id.
+   * @param byOperator if true, return the number of samples per operator. Otherwise, return the number of samples per
+   *          operator stack, in the collapsed format used by flame graph tools.
+   * @param request the current request.
+   * @return the number of samples across all workers
+   * @throws DbException if there is an error in the database.
+   */
+  @GET
+  @Path("sampling")
+  public Response getSamples(@QueryParam("queryId") final Long queryId,
+      @DefaultValue("false") @QueryParam("byOperator") final boolean byOperator, @Context final Request request)
+      throws DbException {
+
+    Preconditions.checkArgument(queryId != null, "Missing required field queryId.");
+
+    EntityTag eTag = new EntityTag(Integer.toString(Joiner.on('-').join("sampling", queryId, byOperator).hashCode()));
+    Object obj = checkAndAddCache(request, eTag);
+    if (obj instanceof Response) {
+      return (Response) obj;
+    }
+    ResponseBuilder response = (ResponseBuilder) obj;
+
+    response.type(MediaType.TEXT_PLAIN);
+
+    PipedOutputStream writerOutput = new PipedOutputStream();
+    PipedInputStream input;
+    TupleWriter writer;
+    try {
+      input = new PipedInputStream(writerOutput, MyriaConstants.DEFAULT_PIPED_INPUT_STREAM_SIZE);
+      writer = new CsvTupleWriter(writerOutput);
+    } catch (IOException e) {
+      throw new DbException(e);
+    }
+
+    PipedStreamingOutput entity = new PipedStreamingOutput(input);
+    response.entity(entity);
+
+    server.startSamplesStream(queryId, byOperator, writer);
+
+    return response.build();
+  }
+
   /**
    * Get contribution of each operator to runtime.
    * 
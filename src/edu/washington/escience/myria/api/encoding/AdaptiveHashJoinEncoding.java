@@ -0,0 +1,34 @@
+package edu.washington.escience.myria.api.encoding;
+
+import java.util.List;
+
+import com.google.common.base.MoreObjects;
+
+import edu.washington.escience.myria.MyriaConstants;
+import edu.washington.escience.myria.api.encoding.QueryConstruct.ConstructArgs;
+import edu.washington.escience.myria.operator.AdaptiveHashJoin;
+
+/**
+ * 
+ * Encoding for {@link AdaptiveHashJoin}. buildThreshold defaults to
+ * {@link MyriaConstants#ADAPTIVE_HASH_JOIN_THRESHOLD_DEFAULT_VALUE}.
+ * 
+ */
+public class AdaptiveHashJoinEncoding extends BinaryOperatorEncoding<AdaptiveHashJoin> {
+  public List<String> argColumnNames;
+  @Required
+  public int[] argColumns1;
+  @Required
+  public int[] argColumns2;
+  @Required
+  public int[] argSelect1;
+  @Required
+  public int[] argSelect2;
+  public Long buildThreshold;
+
+  @Override
+  public AdaptiveHashJoin construct(ConstructArgs args) {
+    return new AdaptiveHashJoin(argColumnNames, null, null, argColumns1, argColumns2, argSelect1, argSelect2,
+        MoreObjects.firstNonNull(buildThreshold, MyriaConstants.ADAPTIVE_HASH_JOIN_THRESHOLD_DEFAULT_VALUE));
+  }
+}
@@ -11,13 +11,14 @@ public class BinaryFileScanEncoding extends LeafOperatorEncoding<BinaryFileScan>
   @Required
   public DataSource source;
   public Boolean isLittleEndian;
+  public int[] workers;
 
   @Override
   public BinaryFileScan construct(ConstructArgs args) {
     if (isLittleEndian == null) {
-      return new BinaryFileScan(schema, source);
+      return new BinaryFileScan(schema, source, false, workers);
     } else {
-      return new BinaryFileScan(schema, source, isLittleEndian);
+      return new BinaryFileScan(schema, source, isLittleEndian, workers);
     }
   }
 
@@ -0,0 +1,26 @@
+package edu.washington.escience.myria.api.encoding;
+
+import com.google.common.base.MoreObjects;
+
+import edu.washington.escience.myria.MyriaConstants;
+import edu.washington.escience.myria.api.encoding.QueryConstruct.ConstructArgs;
+import edu.washington.escience.myria.operator.BloomFilterBuild;
+
+/**
+ * The filter must be sent to BloomFilterProbes with the same numBits and numHashes, which default to
+ * {@link MyriaConstants#BLOOM_FILTER_BITS_DEFAULT_VALUE} and {@link MyriaConstants#BLOOM_FILTER_HASHES_DEFAULT_VALUE}.
+ */
+public class BloomFilterBuildEncoding extends UnaryOperatorEncoding<BloomFilterBuild> {
+
+  @Required
+  public int[] argKeyColumns;
+  public Integer numBits;
+  public Integer numHashes;
+
+  @Override
+  public BloomFilterBuild construct(ConstructArgs args) {
+    return new BloomFilterBuild(null, argKeyColumns, MoreObjects.firstNonNull(numBits,
+        MyriaConstants.BLOOM_FILTER_BITS_DEFAULT_VALUE), MoreObjects.firstNonNull(numHashes,
+        MyriaConstants.BLOOM_FILTER_HASHES_DEFAULT_VALUE));
+  }
+}
@@ -0,0 +1,26 @@
+package edu.washington.escience.myria.api.encoding;
+
+import com.google.common.base.MoreObjects;
+
+import edu.washington.escience.myria.MyriaConstants;
+import edu.washington.escience.myria.api.encoding.QueryConstruct.ConstructArgs;
+import edu.washington.escience.myria.operator.BloomFilterProbe;
+
+/**
+ * argChild1 is the filter, e.g., a BroadcastConsumer of BloomFilterBuilds with the same numBits and numHashes, and
+ * argChild2 is the input to filter.
+ */
+public class BloomFilterProbeEncoding extends BinaryOperatorEncoding<BloomFilterProbe> {
+
+  @Required
+  public int[] argKeyColumns;
+  public Integer numBits;
+  public Integer numHashes;
+
+  @Override
+  public BloomFilterProbe construct(ConstructArgs args) {
+    return new BloomFilterProbe(null, null, argKeyColumns, MoreObjects.firstNonNull(numBits,
+        MyriaConstants.BLOOM_FILTER_BITS_DEFAULT_VALUE), MoreObjects.firstNonNull(numHashes,
+        MyriaConstants.BLOOM_FILTER_HASHES_DEFAULT_VALUE));
+  }
+}
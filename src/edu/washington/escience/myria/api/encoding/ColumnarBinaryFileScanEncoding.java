@@ -0,0 +1,19 @@
+package edu.washington.escience.myria.api.encoding;
+
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.api.encoding.QueryConstruct.ConstructArgs;
+import edu.washington.escience.myria.io.DataSource;
+import edu.washington.escience.myria.operator.ColumnarBinaryFileScan;
+
+public class ColumnarBinaryFileScanEncoding extends LeafOperatorEncoding<ColumnarBinaryFileScan> {
+  @Required
+  public Schema schema;
+  @Required
+  public DataSource source;
+
+  @Override
+  public ColumnarBinaryFileScan construct(ConstructArgs args) {
+    return new ColumnarBinaryFileScan(schema, source);
+  }
+
+}
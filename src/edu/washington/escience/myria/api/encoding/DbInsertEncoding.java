@@ -2,11 +2,15 @@ package edu.washington.escience.myria.api.encoding;
 
 import java.util.List;
 
+import javax.ws.rs.core.Response.Status;
+
 import com.google.common.base.MoreObjects;
 
+import edu.washington.escience.myria.DbException;
 import edu.washington.escience.myria.RelationKey;
 import edu.washington.escience.myria.accessmethod.AccessMethod.IndexRef;
 import edu.washington.escience.myria.accessmethod.ConnectionInfo;
+import edu.washington.escience.myria.api.MyriaApiException;
 import edu.washington.escience.myria.api.encoding.QueryConstruct.ConstructArgs;
 import edu.washington.escience.myria.operator.DbInsert;
 
@@ -32,6 +36,16 @@ public class DbInsertEncoding extends UnaryOperatorEncoding<DbInsert> {
   public DbInsert construct(ConstructArgs args) {
     /* default overwrite to {@code false}, so we append. */
     argOverwriteTable = MoreObjects.firstNonNull(argOverwriteTable, Boolean.FALSE);
-    return new DbInsert(null, relationKey, connectionInfo, argOverwriteTable, indexes);
+    if (argOverwriteTable) {
+      return new DbInsert(null, relationKey, connectionInfo, argOverwriteTable, indexes);
+    }
+    /* log the appended tuples for the materialized views of the relation, which will merge them when refreshed. */
+    List<RelationKey> changelogs;
+    try {
+      changelogs = args.getServer().getMaterializedViewChangelogs(relationKey);
+    } catch (DbException e) {
+      throw new MyriaApiException(Status.INTERNAL_SERVER_ERROR, e);
+    }
+    return new DbInsert(null, relationKey, connectionInfo, argOverwriteTable, indexes, changelogs);
   }
 }
\ No newline at end of file
@@ -1,13 +1,42 @@
 package edu.washington.escience.myria.api.encoding;
 
+import java.util.Arrays;
+
+import javax.ws.rs.core.Response.Status;
+
 import edu.washington.escience.myria.api.MyriaApiException;
 import edu.washington.escience.myria.api.encoding.QueryConstruct.ConstructArgs;
+import edu.washington.escience.myria.operator.BinaryOperator;
 import edu.washington.escience.myria.operator.Difference;
+import edu.washington.escience.myria.operator.SortedDifference;
+
+/**
+ * If both inputs are known to be sorted on all their columns in the same order, argSortColumns and argAscending (all
+ * true if omitted) say so, and the difference merges them instead of hashing them.
+ */
+public class DifferenceEncoding extends BinaryOperatorEncoding<BinaryOperator> {
 
-public class DifferenceEncoding extends BinaryOperatorEncoding<Difference> {
+  public int[] argSortColumns;
+  public boolean[] argAscending;
 
   @Override
-  public Difference construct(ConstructArgs args) throws MyriaApiException {
+  public BinaryOperator construct(ConstructArgs args) throws MyriaApiException {
+    if (argSortColumns != null) {
+      boolean[] ascending = argAscending;
+      if (ascending == null) {
+        ascending = new boolean[argSortColumns.length];
+        Arrays.fill(ascending, true);
+      }
+      return new SortedDifference(null, null, argSortColumns, ascending);
+    }
     return new Difference(null, null);
   }
+
+  @Override
+  protected void validateExtra() {
+    if (argSortColumns != null && argAscending != null && argSortColumns.length != argAscending.length) {
+      throw new MyriaApiException(Status.BAD_REQUEST,
+          "sort columns number should be equal to ascending orders number!");
+    }
+  }
 }
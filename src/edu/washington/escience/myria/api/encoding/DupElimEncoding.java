@@ -3,12 +3,24 @@ package edu.washington.escience.myria.api.encoding;
 import edu.washington.escience.myria.api.MyriaApiException;
 import edu.washington.escience.myria.api.encoding.QueryConstruct.ConstructArgs;
 import edu.washington.escience.myria.operator.DupElim;
+import edu.washington.escience.myria.operator.OrderedDupElim;
 import edu.washington.escience.myria.operator.StreamingStateWrapper;
+import edu.washington.escience.myria.operator.UnaryOperator;
 
-public class DupElimEncoding extends UnaryOperatorEncoding<StreamingStateWrapper> {
+/**
+ * If the input is known to be sorted on all its columns, argSortColumns says in which order, and duplicates are
+ * eliminated by comparing each tuple with the previous one instead of hashing them all. argSortColumns must include
+ * every column of the input, which {@link OrderedDupElim} checks when it opens.
+ */
+public class DupElimEncoding extends UnaryOperatorEncoding<UnaryOperator> {
+
+  public int[] argSortColumns;
 
   @Override
-  public StreamingStateWrapper construct(ConstructArgs args) throws MyriaApiException {
+  public UnaryOperator construct(ConstructArgs args) throws MyriaApiException {
+    if (argSortColumns != null) {
+      return new OrderedDupElim(null, argSortColumns);
+    }
     return new StreamingStateWrapper(null, new DupElim());
   }
 }
@@ -0,0 +1,62 @@
+package edu.washington.escience.myria.api.encoding;
+
+import edu.washington.escience.myria.api.encoding.QueryConstruct.ConstructArgs;
+import edu.washington.escience.myria.operator.network.EOIReportCombiner;
+import edu.washington.escience.myria.parallel.ExchangePairID;
+
+/**
+ * A JSON-able wrapper for {@link EOIReportCombiner}. Its child unions a LocalMultiwayConsumer of each IDBController,
+ * which then reports to the combiner of its own worker, and argTreeInput, a Consumer of this combiner in the same
+ * fragment, which receives the reports of the child combiners. The only other Consumer of this combiner feeds the
+ * EOSController. The combiners run on the workers of argTreeInput, which must be those of the IDBControllers.
+ */
+public class EOIReportCombinerEncoding extends AbstractProducerEncoding<EOIReportCombiner> {
+  @Required
+  public Integer argTreeInput;
+  @Required
+  public Integer argFanout;
+
+  private ExchangePairID realTreeOperatorId;
+  private ExchangePairID realControllerOperatorId;
+  private int realControllerWorkerId;
+  private int[] realTreeWorkerIds;
+  private int numIdbs;
+
+  @Override
+  public EOIReportCombiner construct(ConstructArgs args) {
+    return new EOIReportCombiner(null, realTreeOperatorId, realControllerOperatorId, realControllerWorkerId,
+        realTreeWorkerIds, numIdbs, argFanout);
+  }
+
+  /**
+   * @param realTreeOperatorId the operatorID through which the combiners report to each other.
+   * @param realTreeWorkerIds the workers of the tree, in tree order.
+   */
+  protected void setRealTree(final ExchangePairID realTreeOperatorId, final int[] realTreeWorkerIds) {
+    this.realTreeOperatorId = realTreeOperatorId;
+    this.realTreeWorkerIds = realTreeWorkerIds;
+  }
+
+  /**
+   * @param realControllerOperatorId the operatorID through which the root reports to the EOSController.
+   * @param realControllerWorkerId the worker of the EOSController.
+   */
+  protected void setRealController(final ExchangePairID realControllerOperatorId, final int realControllerWorkerId) {
+    this.realControllerOperatorId = realControllerOperatorId;
+    this.realControllerWorkerId = realControllerWorkerId;
+  }
+
+  /**
+   * @param numIdbs the number of IDBController operators on each worker.
+   */
+  protected void setNumIdbs(final int numIdbs) {
+    this.numIdbs = numIdbs;
+  }
+
+  /**
+   * @return the worker of the root combiner.
+   */
+  protected int getRootWorkerId() {
+    return realTreeWorkerIds[0];
+  }
+}
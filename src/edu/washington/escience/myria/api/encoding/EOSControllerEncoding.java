@@ -9,11 +9,21 @@ import edu.washington.escience.myria.util.MyriaUtils;
 
 public class EOSControllerEncoding extends AbstractProducerEncoding<EOSController> {
 
+  /** The worker of the root {@link EOIReportCombinerEncoding} that reports to this controller, or null if none does. */
+  private Integer realRootCombinerWorkerId;
+
   @Override
   public EOSController construct(ConstructArgs args) {
     List<ExchangePairID> ids = getRealOperatorIds();
-    return new EOSController(null, ids.toArray(new ExchangePairID[ids.size()]), MyriaUtils
-        .integerSetToIntArray(getRealWorkerIds()));
+    int[] workerIds = MyriaUtils.integerSetToIntArray(getRealWorkerIds());
+    if (realRootCombinerWorkerId != null) {
+      return new EOSController(null, ids.toArray(new ExchangePairID[ids.size()]), workerIds,
+          realRootCombinerWorkerId);
+    }
+    return new EOSController(null, ids.toArray(new ExchangePairID[ids.size()]), workerIds);
   }
 
-}
\ No newline at end of file
+  protected void setRealRootCombinerWorkerId(final Integer realRootCombinerWorkerId) {
+    this.realRootCombinerWorkerId = realRootCombinerWorkerId;
+  }
+}
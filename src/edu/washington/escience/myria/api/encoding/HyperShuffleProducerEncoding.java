@@ -1,33 +1,55 @@
 package edu.washington.escience.myria.api.encoding;
 
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
 import javax.ws.rs.core.Response.Status;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 
+import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.RelationKey;
 import edu.washington.escience.myria.api.MyriaApiException;
 import edu.washington.escience.myria.api.encoding.QueryConstruct.ConstructArgs;
 import edu.washington.escience.myria.operator.network.GenericShuffleProducer;
+import edu.washington.escience.myria.operator.network.partition.HyperCubeShares;
 import edu.washington.escience.myria.operator.network.partition.MFMDHashPartitionFunction;
+import edu.washington.escience.myria.parallel.Server;
 import edu.washington.escience.myria.util.MyriaArrayUtils;
 import edu.washington.escience.myria.util.MyriaUtils;
 
 /**
  * Producer part of JSON Encoding for HyperCube Join.
  * 
+ * The hypercube is either given by hyperCubeDimensions and cellPartition, or computed from the sizes in the catalog of
+ * the relations of the join, hyperCubeRelations, and the dimensions each of them hashes, hyperCubeRelationDimensions.
+ * Every producer of the join must then list the same relations and dimensions, so that they compute the same shares.
  */
 public class HyperShuffleProducerEncoding extends AbstractProducerEncoding<GenericShuffleProducer> {
 
+  /** The logger for this class. */
+  private static final Logger LOGGER = LoggerFactory.getLogger(HyperShuffleProducerEncoding.class);
+
   @Required
   public int[] hashedColumns;
   @Required
   public int[] mappedHCDimensions;
-  @Required
   public int[] hyperCubeDimensions;
-  @Required
   public int[][] cellPartition;
+  public List<RelationKey> hyperCubeRelations;
+  public int[][] hyperCubeRelationDimensions;
 
   @Override
   public GenericShuffleProducer construct(ConstructArgs args) throws MyriaApiException {
+    if (hyperCubeDimensions == null) {
+      return constructWithComputedShares(args.getServer());
+    }
 
     /*
      * Validate whether number of workers matches cube dimensions.
@@ -52,8 +74,62 @@ public class HyperShuffleProducerEncoding extends AbstractProducerEncoding<Gener
         MyriaUtils.integerSetToIntArray(args.getServer().getRandomWorkers(numCells)), pf);
   }
 
+  /**
+   * @param server the server, to look up the sizes of the relations and the alive workers.
+   * @return a producer on the optimal shares for the current relations and workers.
+   */
+  private GenericShuffleProducer constructWithComputedShares(final Server server) {
+    long[] sizes = new long[hyperCubeRelations.size()];
+    for (int i = 0; i < sizes.length; ++i) {
+      DatasetStatus status;
+      try {
+        status = server.getDatasetStatus(hyperCubeRelations.get(i));
+      } catch (final DbException e) {
+        throw new MyriaApiException(Status.INTERNAL_SERVER_ERROR, e);
+      }
+      if (status == null) {
+        throw new MyriaApiException(Status.BAD_REQUEST, "Specified relation " + hyperCubeRelations.get(i)
+            + " does not exist.");
+      }
+      sizes[i] = status.getNumTuples();
+    }
+    int numDimensions = 0;
+    for (int d : MyriaArrayUtils.arrayFlatten(hyperCubeRelationDimensions)) {
+      numDimensions = Math.max(numDimensions, d + 1);
+    }
+    for (int d : mappedHCDimensions) {
+      numDimensions = Math.max(numDimensions, d + 1);
+    }
+
+    /* every producer must pick the same workers, so take those with the smallest ids. */
+    Set<Integer> workers = new TreeSet<>(server.getAliveWorkers());
+    HyperCubeShares shares = HyperCubeShares.compute(sizes, hyperCubeRelationDimensions, numDimensions, workers.size());
+    LOGGER.info("HyperCube shuffle {} on {} of {} workers: {}", getRealOperatorIds(), shares.getNumCells(), workers
+        .size(), shares);
+
+    int[][] partitionToCells = shares.getCellPartition(mappedHCDimensions);
+    MFMDHashPartitionFunction pf =
+        new MFMDHashPartitionFunction(partitionToCells.length, shares.getShares(), hashedColumns, mappedHCDimensions);
+    int[] destinations =
+        MyriaUtils.integerSetToIntArray(ImmutableSet.copyOf(Iterables.limit(workers, shares.getNumCells())));
+    return new GenericShuffleProducer(null, MyriaUtils.getSingleElement(getRealOperatorIds()), partitionToCells,
+        destinations, pf);
+  }
+
   @Override
   protected void validateExtra() {
+    if (hyperCubeDimensions == null || cellPartition == null) {
+      if (hyperCubeDimensions != null || cellPartition != null) {
+        throw new MyriaApiException(Status.BAD_REQUEST, "hyperCubeDimensions and cellPartition go together");
+      }
+      if (hyperCubeRelations == null || hyperCubeRelationDimensions == null
+          || hyperCubeRelations.size() != hyperCubeRelationDimensions.length) {
+        throw new MyriaApiException(Status.BAD_REQUEST,
+            "either hyperCubeDimensions and cellPartition, or hyperCubeRelations and as many "
+                + "hyperCubeRelationDimensions, must be specified");
+      }
+      return;
+    }
     int[] arr = MyriaArrayUtils.arrayFlattenThenSort(cellPartition);
     for (int i = 0; i < arr.length; i++) {
       if (arr[i] != i) {
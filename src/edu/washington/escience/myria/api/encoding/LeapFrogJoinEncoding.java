@@ -9,6 +9,7 @@ import edu.washington.escience.myria.operator.LeapFrogJoin;
 public class LeapFrogJoinEncoding extends NaryOperatorEncoding<LeapFrogJoin> {
 
   public List<String> argColumnNames;
+  /** Ignored, every child is indexed by a trie on all its join fields. */
   public boolean[] indexOnFirst;
   @Required
   public int[][][] joinFieldMapping;
@@ -0,0 +1,46 @@
+package edu.washington.escience.myria.api.encoding;
+
+import javax.ws.rs.core.Response.Status;
+
+import edu.washington.escience.myria.RelationKey;
+import edu.washington.escience.myria.api.MyriaApiException;
+import edu.washington.escience.myria.operator.agg.AggregatorFactory;
+import edu.washington.escience.myria.operator.agg.IncrementalAggregates;
+
+/**
+ * The definition of a materialized view: the group by aggregate of a base relation, stored in relationKey and
+ * maintained incrementally as tuples are appended to the base relation.
+ */
+public class MaterializedViewEncoding extends MyriaApiEncoding {
+  /** The relation storing the view. */
+  @Required
+  public RelationKey relationKey;
+  /** The relation that the view aggregates. */
+  @Required
+  public RelationKey baseRelationKey;
+  /** The columns of the base relation to group by. */
+  @Required
+  public int[] argGroupFields;
+  /** The aggregates, which must be decomposable. */
+  @Required
+  public AggregatorFactory[] aggregators;
+
+  @Override
+  protected void validateExtra() {
+    if (argGroupFields.length == 0) {
+      throw new MyriaApiException(Status.BAD_REQUEST, "a materialized view must group over some fields");
+    }
+    if (aggregators.length == 0) {
+      throw new MyriaApiException(Status.BAD_REQUEST, "a materialized view must compute some aggregates");
+    }
+    for (AggregatorFactory factory : aggregators) {
+      if (!IncrementalAggregates.isDecomposable(factory)) {
+        throw new MyriaApiException(Status.BAD_REQUEST,
+            "a materialized view only supports COUNT, SUM, MIN, MAX and CountAll aggregates");
+      }
+    }
+    if (relationKey.equals(baseRelationKey)) {
+      throw new MyriaApiException(Status.BAD_REQUEST, "a materialized view cannot be stored in its base relation");
+    }
+  }
+}
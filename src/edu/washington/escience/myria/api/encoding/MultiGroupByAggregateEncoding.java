@@ -1,18 +1,38 @@
 package edu.washington.escience.myria.api.encoding;
 
+import javax.ws.rs.core.Response.Status;
+
+import edu.washington.escience.myria.api.MyriaApiException;
 import edu.washington.escience.myria.api.encoding.QueryConstruct.ConstructArgs;
+import edu.washington.escience.myria.operator.UnaryOperator;
 import edu.washington.escience.myria.operator.agg.AggregatorFactory;
 import edu.washington.escience.myria.operator.agg.MultiGroupByAggregate;
+import edu.washington.escience.myria.operator.agg.SortedGroupByAggregate;
 
-public class MultiGroupByAggregateEncoding extends UnaryOperatorEncoding<MultiGroupByAggregate> {
+/**
+ * If the input is known to be sorted with the group fields first, argSortColumns says so, and the aggregate streams
+ * over the groups instead of hashing them.
+ */
+public class MultiGroupByAggregateEncoding extends UnaryOperatorEncoding<UnaryOperator> {
 
   @Required
   public int[] argGroupFields;
   @Required
   public AggregatorFactory[] aggregators;
+  public int[] argSortColumns;
 
   @Override
-  public MultiGroupByAggregate construct(ConstructArgs args) {
+  public UnaryOperator construct(ConstructArgs args) {
+    if (argSortColumns != null) {
+      return new SortedGroupByAggregate(null, argGroupFields, aggregators);
+    }
     return new MultiGroupByAggregate(null, argGroupFields, aggregators);
   }
+
+  @Override
+  protected void validateExtra() {
+    if (argSortColumns != null && !SortedGroupByAggregate.isClustered(argSortColumns, argGroupFields)) {
+      throw new MyriaApiException(Status.BAD_REQUEST, "the group fields must be the first sort columns");
+    }
+  }
 }
@@ -21,17 +21,22 @@ import edu.washington.escience.myria.operator.Operator;
  */
 @JsonTypeInfo(use = JsonTypeInfo.Id.NAME, include = JsonTypeInfo.As.PROPERTY, property = "opType")
 @JsonSubTypes({
+    @Type(name = "AdaptiveHashJoin", value = AdaptiveHashJoinEncoding.class),
     @Type(name = "Aggregate", value = AggregateEncoding.class), @Type(name = "Apply", value = ApplyEncoding.class),
     @Type(name = "BinaryFileScan", value = BinaryFileScanEncoding.class),
+    @Type(name = "BloomFilterBuild", value = BloomFilterBuildEncoding.class),
+    @Type(name = "BloomFilterProbe", value = BloomFilterProbeEncoding.class),
     @Type(name = "BroadcastConsumer", value = BroadcastConsumerEncoding.class),
     @Type(name = "BroadcastProducer", value = BroadcastProducerEncoding.class),
     @Type(name = "CollectConsumer", value = CollectConsumerEncoding.class),
     @Type(name = "CollectProducer", value = CollectProducerEncoding.class),
+    @Type(name = "ColumnarBinaryFileScan", value = ColumnarBinaryFileScanEncoding.class),
     @Type(name = "Consumer", value = ConsumerEncoding.class), @Type(name = "Counter", value = CounterEncoding.class),
     @Type(name = "DbInsert", value = DbInsertEncoding.class),
     @Type(name = "DbQueryScan", value = QueryScanEncoding.class),
     @Type(name = "Difference", value = DifferenceEncoding.class),
     @Type(name = "DupElim", value = DupElimEncoding.class), @Type(name = "Empty", value = EmptyRelationEncoding.class),
+    @Type(name = "EOIReportCombiner", value = EOIReportCombinerEncoding.class),
     @Type(name = "EOSController", value = EOSControllerEncoding.class),
     @Type(name = "FileScan", value = FileScanEncoding.class), @Type(name = "Filter", value = FilterEncoding.class),
     @Type(name = "HyperShuffleProducer", value = HyperShuffleProducerEncoding.class),
@@ -62,6 +67,7 @@ import edu.washington.escience.myria.operator.Operator;
     @Type(name = "TempInsert", value = TempInsertEncoding.class),
     @Type(name = "TempTableScan", value = TempTableScanEncoding.class),
     @Type(name = "TipsyFileScan", value = TipsyFileScanEncoding.class),
+    @Type(name = "TopK", value = TopKEncoding.class),
     @Type(name = "UnionAll", value = UnionAllEncoding.class) })
 public abstract class OperatorEncoding<T extends Operator> extends MyriaApiEncoding {
 
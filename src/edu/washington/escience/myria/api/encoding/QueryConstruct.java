@@ -43,6 +43,7 @@ import edu.washington.escience.myria.operator.agg.SingleColumnAggregatorFactory;
 import edu.washington.escience.myria.operator.network.CollectConsumer;
 import edu.washington.escience.myria.operator.network.CollectProducer;
 import edu.washington.escience.myria.operator.network.Consumer;
+import edu.washington.escience.myria.operator.network.EOIReportCombiner;
 import edu.washington.escience.myria.operator.network.EOSController;
 import edu.washington.escience.myria.parallel.ExchangePairID;
 import edu.washington.escience.myria.parallel.JsonSubQuery;
@@ -50,6 +51,7 @@ import edu.washington.escience.myria.parallel.RelationWriteMetadata;
 import edu.washington.escience.myria.parallel.Server;
 import edu.washington.escience.myria.parallel.SubQuery;
 import edu.washington.escience.myria.parallel.SubQueryPlan;
+import edu.washington.escience.myria.parallel.ipc.IPCConnectionPool;
 import edu.washington.escience.myria.util.MyriaUtils;
 
 public class QueryConstruct {
@@ -67,6 +69,8 @@ public class QueryConstruct {
    */
   public static Map<Integer, SubQueryPlan> instantiate(final List<PlanFragmentEncoding> fragments,
       final ConstructArgs args) throws CatalogException {
+    /* Compute a TopK over a collect on the producers too, so that they send k tuples rather than all of them. */
+    pushDownTopK(fragments);
     /* First, we need to know which workers run on each plan. */
     setupWorkersForFragments(fragments, args);
     /* Next, we need to know which pipes (operators) are produced and consumed on which workers. */
@@ -100,6 +104,59 @@ public class QueryConstruct {
     return plan;
   }
 
+  /**
+   * For every {@link TopKEncoding} whose child is a {@link CollectConsumerEncoding}, add a copy of it between the
+   * matching {@link CollectProducerEncoding} and its child, unless the producer feeds other consumers or already has a
+   * TopK child. The final TopK then merges at most k tuples from each producer.
+   * 
+   * @param fragments the JSON-encoded query fragments, which will be modified.
+   */
+  private static void pushDownTopK(final List<PlanFragmentEncoding> fragments) {
+    Map<Integer, OperatorEncoding<?>> operators = new HashMap<>();
+    Map<Integer, PlanFragmentEncoding> owners = new HashMap<>();
+    Map<Integer, Integer> numConsumers = new HashMap<>();
+    int maxOpId = 0;
+    for (PlanFragmentEncoding fragment : fragments) {
+      for (OperatorEncoding<?> op : fragment.operators) {
+        operators.put(op.opId, op);
+        owners.put(op.opId, fragment);
+        maxOpId = Math.max(maxOpId, op.opId);
+        if (op instanceof AbstractConsumerEncoding) {
+          Integer producerId = ((AbstractConsumerEncoding<?>) op).argOperatorId;
+          numConsumers.put(producerId, MoreObjects.firstNonNull(numConsumers.get(producerId), 0) + 1);
+        }
+      }
+    }
+    for (OperatorEncoding<?> op : ImmutableList.copyOf(operators.values())) {
+      if (!(op instanceof TopKEncoding)) {
+        continue;
+      }
+      TopKEncoding topK = (TopKEncoding) op;
+      OperatorEncoding<?> child = operators.get(topK.argChild);
+      if (!(child instanceof CollectConsumerEncoding)) {
+        continue;
+      }
+      Integer producerId = ((CollectConsumerEncoding) child).argOperatorId;
+      OperatorEncoding<?> producer = operators.get(producerId);
+      if (!(producer instanceof CollectProducerEncoding) || numConsumers.get(producerId) != 1
+          || operators.get(((CollectProducerEncoding) producer).argChild) instanceof TopKEncoding) {
+        continue;
+      }
+      TopKEncoding local = new TopKEncoding();
+      local.opId = ++maxOpId;
+      local.opName = "Local" + MoreObjects.firstNonNull(topK.opName, "TopK");
+      local.argSortColumns = topK.argSortColumns;
+      local.argAscending = topK.argAscending;
+      local.k = topK.k;
+      local.argChild = ((CollectProducerEncoding) producer).argChild;
+      ((CollectProducerEncoding) producer).argChild = local.opId;
+      PlanFragmentEncoding fragment = owners.get(producerId);
+      List<OperatorEncoding<?>> fragmentOperators = new ArrayList<OperatorEncoding<?>>(fragment.operators);
+      fragmentOperators.add(fragmentOperators.indexOf(producer), local);
+      fragment.operators = fragmentOperators;
+    }
+  }
+
   /**
    * Set the query execution options for the specified plans.
    * 
@@ -200,6 +257,9 @@ public class QueryConstruct {
     Map<ExchangePairID, Set<Integer>> consumerWorkerMap = new HashMap<ExchangePairID, Set<Integer>>();
     Map<Integer, List<ExchangePairID>> producerOutputChannels = new HashMap<Integer, List<ExchangePairID>>();
     List<IDBControllerEncoding> idbInputs = new ArrayList<IDBControllerEncoding>();
+    Map<Integer, ExchangePairID> consumerChannels = new HashMap<Integer, ExchangePairID>();
+    Set<ExchangePairID> localChannels = new HashSet<ExchangePairID>();
+    List<EOIReportCombinerEncoding> combiners = new ArrayList<EOIReportCombinerEncoding>();
     /* Pass 1: map strings to real operator IDs, also collect producers and consumers. */
     for (PlanFragmentEncoding fragment : fragments) {
       for (OperatorEncoding<?> operator : fragment.operators) {
@@ -216,9 +276,16 @@ public class QueryConstruct {
           consumer.setRealOperatorIds(Arrays.asList(new ExchangePairID[] { channelID }));
           sourceProducerOutputChannels.add(channelID);
           consumerWorkerMap.put(channelID, ImmutableSet.<Integer> builder().addAll(fragment.workers).build());
+          consumerChannels.put(consumer.opId, channelID);
+          if (consumer instanceof LocalMultiwayConsumerEncoding) {
+            localChannels.add(channelID);
+          }
 
         } else if (operator instanceof AbstractProducerEncoding) {
           AbstractProducerEncoding<?> producer = (AbstractProducerEncoding<?>) operator;
+          if (producer instanceof EOIReportCombinerEncoding) {
+            combiners.add((EOIReportCombinerEncoding) producer);
+          }
           List<ExchangePairID> sourceProducerOutputChannels = producerOutputChannels.get(producer.opId);
           if (sourceProducerOutputChannels == null) {
             sourceProducerOutputChannels = new ArrayList<ExchangePairID>();
@@ -267,12 +334,68 @@ public class QueryConstruct {
           exchange.setRealWorkerIds(workers.build());
         } else if (operator instanceof IDBControllerEncoding) {
           IDBControllerEncoding idbController = (IDBControllerEncoding) operator;
-          idbController.realControllerWorkerId =
-              MyriaUtils.getSingleElement(consumerWorkerMap.get(idbController.getRealControllerOperatorID()));
+          ExchangePairID controllerOperatorId = idbController.getRealControllerOperatorID();
+          if (localChannels.contains(controllerOperatorId)) {
+            /* It reports to the EOIReportCombiner of its own worker. */
+            idbController.realControllerWorkerId = IPCConnectionPool.SELF_IPC_ID;
+          } else {
+            idbController.realControllerWorkerId =
+                MyriaUtils.getSingleElement(consumerWorkerMap.get(controllerOperatorId));
+          }
         }
       }
     }
 
+    if (!combiners.isEmpty()) {
+      setupEOIReportCombiners(fragments, combiners, consumerChannels, consumerWorkerMap, idbInputs.size());
+    }
+  }
+
+  /**
+   * Connect each {@link EOIReportCombinerEncoding} to the other combiners of its tree and to the EOSController, and
+   * have the EOSController count the reports of the root combiner.
+   * 
+   * @param fragments the fragments of the plan.
+   * @param combiners the combiners in the fragments.
+   * @param consumerChannels mapping from the opId of each consumer to its channel.
+   * @param consumerWorkerMap mapping from each channel to the workers of its consumer.
+   * @param numIdbs the number of IDBControllers in the plan.
+   */
+  private static void setupEOIReportCombiners(final List<PlanFragmentEncoding> fragments,
+      final List<EOIReportCombinerEncoding> combiners, final Map<Integer, ExchangePairID> consumerChannels,
+      final Map<ExchangePairID, Set<Integer>> consumerWorkerMap, final int numIdbs) {
+    Map<Integer, EOIReportCombinerEncoding> combinerById = new HashMap<Integer, EOIReportCombinerEncoding>();
+    for (EOIReportCombinerEncoding combiner : combiners) {
+      ExchangePairID treeId = consumerChannels.get(combiner.argTreeInput);
+      List<ExchangePairID> channels = combiner.getRealOperatorIds();
+      if (treeId == null || !channels.contains(treeId) || channels.size() != 2) {
+        throw new MyriaApiException(Status.BAD_REQUEST, "EOIReportCombiner " + combiner.opId
+            + " must be consumed by its argTreeInput and by the fragment of the EOSController");
+      }
+      ExchangePairID controllerId = channels.get(1 - channels.indexOf(treeId));
+      int[] treeWorkerIds = MyriaUtils.integerSetToIntArray(consumerWorkerMap.get(treeId));
+      Arrays.sort(treeWorkerIds);
+      combiner.setRealTree(treeId, treeWorkerIds);
+      combiner.setRealController(controllerId, MyriaUtils.getSingleElement(consumerWorkerMap.get(controllerId)));
+      combiner.setNumIdbs(numIdbs);
+      combinerById.put(combiner.opId, combiner);
+    }
+
+    for (PlanFragmentEncoding fragment : fragments) {
+      EOSControllerEncoding eosController = null;
+      EOIReportCombinerEncoding root = null;
+      for (OperatorEncoding<?> operator : fragment.operators) {
+        if (operator instanceof EOSControllerEncoding) {
+          eosController = (EOSControllerEncoding) operator;
+        } else if (operator instanceof AbstractConsumerEncoding
+            && combinerById.containsKey(((AbstractConsumerEncoding<?>) operator).getArgOperatorId())) {
+          root = combinerById.get(((AbstractConsumerEncoding<?>) operator).getArgOperatorId());
+        }
+      }
+      if (eosController != null && root != null) {
+        eosController.setRealRootCombinerWorkerId(root.getRootWorkerId());
+      }
+    }
   }
 
   /**
@@ -298,11 +421,15 @@ public class QueryConstruct {
     HashMap<Integer, AbstractConsumerEncoding<?>> nonIterativeConsumers =
         new HashMap<Integer, AbstractConsumerEncoding<?>>();
     HashSet<IDBControllerEncoding> idbs = new HashSet<IDBControllerEncoding>();
+    HashSet<EOIReportCombinerEncoding> combiners = new HashSet<EOIReportCombinerEncoding>();
     /* Instantiate all the operators. */
     for (OperatorEncoding<?> encoding : planFragment.operators) {
       if (encoding instanceof IDBControllerEncoding) {
         idbs.add((IDBControllerEncoding) encoding);
       }
+      if (encoding instanceof EOIReportCombinerEncoding) {
+        combiners.add((EOIReportCombinerEncoding) encoding);
+      }
       if (encoding instanceof AbstractConsumerEncoding<?>) {
         nonIterativeConsumers.put(encoding.opId, (AbstractConsumerEncoding<?>) encoding);
       }
@@ -330,6 +457,9 @@ public class QueryConstruct {
       nonIterativeConsumers.remove(idb.argIterationInput);
       nonIterativeConsumers.remove(idb.argEosControllerInput);
     }
+    for (EOIReportCombinerEncoding combiner : combiners) {
+      nonIterativeConsumers.remove(combiner.argTreeInput);
+    }
 
     Set<PlanFragmentEncoding> dependantFragments = new HashSet<PlanFragmentEncoding>();
     for (AbstractConsumerEncoding<?> c : nonIterativeConsumers.values()) {
@@ -344,12 +474,15 @@ public class QueryConstruct {
       Consumer consumer = (Consumer) myOperators.get(c.opId);
       Integer producingOpName = c.argOperatorId;
       Operator producingOp = allOperators.get(producingOpName);
-      if (producingOp instanceof IDBController) {
+      if (producingOp instanceof IDBController || producingOp instanceof EOIReportCombiner) {
         consumer.setSchema(IDBController.EOI_REPORT_SCHEMA);
       } else {
         consumer.setSchema(producingOp.getSchema());
       }
     }
+    for (EOIReportCombinerEncoding combiner : combiners) {
+      ((Consumer) myOperators.get(combiner.argTreeInput)).setSchema(IDBController.EOI_REPORT_SCHEMA);
+    }
 
     /* Connect all the operators. */
     for (OperatorEncoding<?> encoding : planFragment.operators) {
@@ -7,10 +7,11 @@ import edu.washington.escience.myria.operator.SeaFlowFileScan;
 public class SeaFlowFileScanEncoding extends LeafOperatorEncoding<SeaFlowFileScan> {
   @Required
   public DataSource source;
+  public int[] workers;
 
   @Override
   public SeaFlowFileScan construct(ConstructArgs args) {
-    return new SeaFlowFileScan(source);
+    return new SeaFlowFileScan(source, workers);
   }
 
 }
\ No newline at end of file
@@ -9,10 +9,17 @@ import edu.washington.escience.myria.util.MyriaUtils;
  * 
  */
 public class ShuffleConsumerEncoding extends AbstractConsumerEncoding<GenericShuffleConsumer> {
+  /** If set, the received batches with the smallest values in this column are consumed first. */
+  public Integer argPriorityColumn;
 
   @Override
   public GenericShuffleConsumer construct(ConstructArgs args) {
-    return new GenericShuffleConsumer(null, MyriaUtils.getSingleElement(getRealOperatorIds()), MyriaUtils
-        .integerSetToIntArray(getRealWorkerIds()));
+    GenericShuffleConsumer consumer =
+        new GenericShuffleConsumer(null, MyriaUtils.getSingleElement(getRealOperatorIds()), MyriaUtils
+            .integerSetToIntArray(getRealWorkerIds()));
+    if (argPriorityColumn != null) {
+      consumer.setPriorityColumn(argPriorityColumn);
+    }
+    return consumer;
   }
 }
\ No newline at end of file
@@ -15,6 +15,8 @@ public class ShuffleProducerEncoding extends AbstractProducerEncoding<GenericShu
   @Required
   public PartitionFunction argPf;
   public StreamingStateEncoding<?> argBufferStateType;
+  /** If set, the pending batches with the smallest values in this column are sent first. */
+  public Integer argPriorityColumn;
 
   @Override
   public GenericShuffleProducer construct(ConstructArgs args) {
@@ -37,6 +39,9 @@ public class ShuffleProducerEncoding extends AbstractProducerEncoding<GenericShu
         producer.setBackupBufferAsAppender();
       }
     }
+    if (argPriorityColumn != null) {
+      producer.setPriorityColumn(argPriorityColumn);
+    }
     return producer;
   }
 }
\ No newline at end of file
@@ -1,18 +1,38 @@
 package edu.washington.escience.myria.api.encoding;
 
+import javax.ws.rs.core.Response.Status;
+
+import edu.washington.escience.myria.api.MyriaApiException;
 import edu.washington.escience.myria.api.encoding.QueryConstruct.ConstructArgs;
+import edu.washington.escience.myria.operator.UnaryOperator;
 import edu.washington.escience.myria.operator.agg.AggregatorFactory;
 import edu.washington.escience.myria.operator.agg.SingleGroupByAggregate;
+import edu.washington.escience.myria.operator.agg.SortedGroupByAggregate;
 
-public class SingleGroupByAggregateEncoding extends UnaryOperatorEncoding<SingleGroupByAggregate> {
+/**
+ * If the input is known to be sorted with the group field first, argSortColumns says so, and the aggregate streams
+ * over the groups instead of hashing them.
+ */
+public class SingleGroupByAggregateEncoding extends UnaryOperatorEncoding<UnaryOperator> {
 
   @Required
   public AggregatorFactory[] aggregators;
   @Required
   public int argGroupField;
+  public int[] argSortColumns;
 
   @Override
-  public SingleGroupByAggregate construct(ConstructArgs args) {
+  public UnaryOperator construct(ConstructArgs args) {
+    if (argSortColumns != null) {
+      return new SortedGroupByAggregate(null, new int[] { argGroupField }, aggregators);
+    }
     return new SingleGroupByAggregate(null, argGroupField, aggregators);
   }
+
+  @Override
+  protected void validateExtra() {
+    if (argSortColumns != null && !SortedGroupByAggregate.isClustered(argSortColumns, new int[] { argGroupField })) {
+      throw new MyriaApiException(Status.BAD_REQUEST, "the group field must be the first sort column");
+    }
+  }
 }
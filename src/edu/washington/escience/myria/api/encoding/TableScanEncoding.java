@@ -4,6 +4,7 @@ import javax.ws.rs.core.Response.Status;
 
 import com.google.common.base.Preconditions;
 
+import edu.washington.escience.myria.DbException;
 import edu.washington.escience.myria.RelationKey;
 import edu.washington.escience.myria.Schema;
 import edu.washington.escience.myria.api.MyriaApiException;
@@ -28,6 +29,17 @@ public class TableScanEncoding extends LeafOperatorEncoding<DbQueryScan> {
       throw new MyriaApiException(Status.INTERNAL_SERVER_ERROR, e);
     }
     Preconditions.checkArgument(schema != null, "Specified relation %s does not exist.", relationKey);
-    return new DbQueryScan(relationKey, schema);
+    DbQueryScan scan = new DbQueryScan(relationKey, schema);
+    /* The query that last wrote the relation identifies the version that workers may have cached. */
+    DatasetStatus status;
+    try {
+      status = server.getDatasetStatus(relationKey);
+    } catch (final DbException e) {
+      throw new MyriaApiException(Status.INTERNAL_SERVER_ERROR, e);
+    }
+    if (status != null && status.getQueryId() != null) {
+      scan.setCacheVersion(status.getQueryId());
+    }
+    return scan;
   }
 }
\ No newline at end of file
@@ -10,10 +10,11 @@ public class TipsyFileScanEncoding extends LeafOperatorEncoding<TipsyFileScan> {
   public String grpFilename;
   @Required
   public String iorderFilename;
+  public int[] workers;
 
   @Override
   public TipsyFileScan construct(ConstructArgs args) {
-    return new TipsyFileScan(tipsyFilename, iorderFilename, grpFilename);
+    return new TipsyFileScan(tipsyFilename, iorderFilename, grpFilename, workers);
   }
 
 }
\ No newline at end of file
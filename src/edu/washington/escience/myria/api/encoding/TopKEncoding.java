@@ -0,0 +1,37 @@
+package edu.washington.escience.myria.api.encoding;
+
+import javax.ws.rs.core.Response.Status;
+
+import edu.washington.escience.myria.api.MyriaApiException;
+import edu.washington.escience.myria.api.encoding.QueryConstruct.ConstructArgs;
+import edu.washington.escience.myria.operator.TopK;
+
+/**
+ * A TopK over a CollectConsumer also gets a local TopK below each matching CollectProducer, see
+ * {@link QueryConstruct#instantiate}.
+ */
+public class TopKEncoding extends UnaryOperatorEncoding<TopK> {
+
+  @Required
+  public int[] argSortColumns;
+  @Required
+  public boolean[] argAscending;
+  @Required
+  public Integer k;
+
+  @Override
+  public TopK construct(ConstructArgs args) throws MyriaApiException {
+    return new TopK(null, argSortColumns, argAscending, k);
+  }
+
+  @Override
+  protected void validateExtra() {
+    if (argSortColumns.length != argAscending.length) {
+      throw new MyriaApiException(Status.BAD_REQUEST,
+          "sort columns number should be equal to ascending orders number!");
+    }
+    if (k < 0) {
+      throw new MyriaApiException(Status.BAD_REQUEST, "k must be non-negative");
+    }
+  }
+}
@@ -0,0 +1,165 @@
+package edu.washington.escience.myria.client;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import com.google.protobuf.CodedInputStream;
+
+import edu.washington.escience.myria.ColumnarBinaryTupleWriter;
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.proto.DataProto.DataMessage;
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.util.IPCUtils;
+
+/**
+ * Reads the columnar binary format written by {@link ColumnarBinaryTupleWriter}, e.g., a dataset downloaded with
+ * <code>format=binary</code>. The batches are decoded straight into columns, without parsing text.
+ *
+ * <pre>
+ * try (ColumnarBinaryReader reader = new ColumnarBinaryReader(connection.getInputStream())) {
+ *   for (TupleBatch tb = reader.next(); tb != null; tb = reader.next()) {
+ *     ...
+ *   }
+ * }
+ * </pre>
+ */
+public final class ColumnarBinaryReader implements Closeable {
+
+  /** The input being read. */
+  private final DataInput input;
+  /** The schema of the tuples. */
+  private final Schema schema;
+  /** The decompressor, or null if blocks are not compressed. */
+  private final Inflater inflater;
+  /** Reusable buffer for serialized blocks. */
+  private byte[] block = new byte[0];
+  /** Reusable buffer for decompressed blocks. */
+  private byte[] decompressed = new byte[0];
+  /** Whether the end of the data has been reached. */
+  private boolean finished = false;
+
+  /**
+   * Read the header of the format.
+   *
+   * @param in the stream to read.
+   * @throws IOException if the stream cannot be read or is not in the columnar binary format.
+   */
+  public ColumnarBinaryReader(final InputStream in) throws IOException {
+    this((DataInput) new DataInputStream(new BufferedInputStream(Objects.requireNonNull(in, "in"))));
+  }
+
+  /**
+   * Read the header of the format. Blocks are read with {@link DataInput#readFully(byte[], int, int)}, so an input such
+   * as {@link edu.washington.escience.myria.io.MappedFileInput} copies each block in one call. If the input is
+   * {@link Closeable}, {@link #close()} closes it.
+   *
+   * @param in the input to read.
+   * @throws IOException if the input cannot be read or is not in the columnar binary format.
+   */
+  public ColumnarBinaryReader(final DataInput in) throws IOException {
+    input = Objects.requireNonNull(in, "in");
+    byte[] magic = new byte[ColumnarBinaryTupleWriter.MAGIC.length];
+    input.readFully(magic);
+    if (!Arrays.equals(magic, ColumnarBinaryTupleWriter.MAGIC)) {
+      throw new IOException("not in the columnar binary format");
+    }
+    int version = input.readInt();
+    if (version != ColumnarBinaryTupleWriter.VERSION) {
+      throw new IOException("unsupported version of the columnar binary format: " + version);
+    }
+    byte compression = input.readByte();
+    if (compression == ColumnarBinaryTupleWriter.COMPRESSION_NONE) {
+      inflater = null;
+    } else if (compression == ColumnarBinaryTupleWriter.COMPRESSION_DEFLATE) {
+      inflater = new Inflater();
+    } else {
+      throw new IOException("unknown compression: " + compression);
+    }
+    int numColumns = input.readInt();
+    List<String> names = new ArrayList<String>(numColumns);
+    List<Type> types = new ArrayList<Type>(numColumns);
+    for (int i = 0; i < numColumns; ++i) {
+      names.add(input.readUTF());
+      types.add(Type.valueOf(input.readUTF()));
+    }
+    schema = new Schema(types, names);
+  }
+
+  /**
+   * @return the schema of the tuples.
+   */
+  public Schema getSchema() {
+    return schema;
+  }
+
+  /**
+   * @return the next batch, or null if there are no more.
+   * @throws IOException if the stream cannot be read, or the query that produced it failed.
+   */
+  public TupleBatch next() throws IOException {
+    if (finished) {
+      return null;
+    }
+    int length = input.readInt();
+    if (length == ColumnarBinaryTupleWriter.END_OF_DATA) {
+      finished = true;
+      return null;
+    }
+    if (length == ColumnarBinaryTupleWriter.ERROR) {
+      finished = true;
+      throw new IOException(input.readUTF());
+    }
+    if (length < 0) {
+      throw new IOException("corrupt block length: " + length);
+    }
+    int uncompressedLength = length;
+    if (inflater != null) {
+      uncompressedLength = input.readInt();
+    }
+    if (block.length < length) {
+      block = new byte[length];
+    }
+    input.readFully(block, 0, length);
+
+    DataMessage dm;
+    if (inflater == null) {
+      dm = DataMessage.parseFrom(CodedInputStream.newInstance(block, 0, length));
+    } else {
+      if (decompressed.length < uncompressedLength) {
+        decompressed = new byte[uncompressedLength];
+      }
+      inflater.reset();
+      inflater.setInput(block, 0, length);
+      try {
+        if (inflater.inflate(decompressed, 0, uncompressedLength) != uncompressedLength) {
+          throw new IOException("corrupt compressed block");
+        }
+      } catch (DataFormatException e) {
+        throw new IOException(e);
+      }
+      dm = DataMessage.parseFrom(CodedInputStream.newInstance(decompressed, 0, uncompressedLength));
+    }
+    return IPCUtils.tmToTupleBatch(dm, schema);
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (inflater != null) {
+      inflater.end();
+    }
+    if (input instanceof Closeable) {
+      ((Closeable) input).close();
+    }
+  }
+}
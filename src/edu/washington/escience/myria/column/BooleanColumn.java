@@ -2,6 +2,8 @@ package edu.washington.escience.myria.column;
 
 import java.util.BitSet;
 
+import javax.annotation.Nullable;
+
 import com.google.common.base.Preconditions;
 import com.google.protobuf.ByteString;
 
@@ -28,6 +30,16 @@ public final class BooleanColumn extends Column<Boolean> {
    * @param size the size of this column;
    * */
   public BooleanColumn(final BitSet data, final int size) {
+    this(data, size, null);
+  }
+
+  /**
+   * @param data the data
+   * @param size the size of this column;
+   * @param nulls the rows of the column that are null, or null if no row is.
+   * */
+  public BooleanColumn(final BitSet data, final int size, @Nullable final BitSet nulls) {
+    super(nulls);
     this.data = new ImmutableBitSet(data);
     numBits = size;
   }
@@ -59,7 +71,8 @@ public final class BooleanColumn extends Column<Boolean> {
     /* Note that we do *not* build the inner class. We pass its builder instead. */
     final BooleanColumnMessage.Builder inner =
         BooleanColumnMessage.newBuilder().setData(ByteString.copyFrom(data.toByteArray()));
-    return ColumnMessage.newBuilder().setType(ColumnMessage.Type.BOOLEAN).setBooleanColumn(inner).build();
+    return withNulls(ColumnMessage.newBuilder().setType(ColumnMessage.Type.BOOLEAN).setBooleanColumn(inner).build(),
+        this);
   }
 
   @Override
@@ -4,6 +4,8 @@ import java.io.Serializable;
 import java.nio.ByteBuffer;
 import java.util.BitSet;
 
+import javax.annotation.Nullable;
+
 import org.joda.time.DateTime;
 
 import com.google.protobuf.ByteString;
@@ -32,6 +34,42 @@ public abstract class Column<T extends Comparable<?>> implements ReadableColumn,
   /** Required for Java serialization. */
   private static final long serialVersionUID = 1L;
 
+  /**
+   * The rows of this column that are null, or null if no row is. A null row still holds a placeholder value, so the
+   * typed getters never fail on it; callers that care must check {@link #isNull(int)}.
+   */
+  private final BitSet nulls;
+
+  /** Constructs a column without nulls. */
+  protected Column() {
+    this(null);
+  }
+
+  /**
+   * @param nulls the rows of this column that are null, or null if no row is.
+   */
+  protected Column(@Nullable final BitSet nulls) {
+    if (nulls == null || nulls.isEmpty()) {
+      this.nulls = null;
+    } else {
+      this.nulls = nulls;
+    }
+  }
+
+  @Override
+  public boolean isNull(final int row) {
+    return nulls != null && nulls.get(row);
+  }
+
+  /**
+   * Vectorized code may skip all per-row {@link #isNull(int)} checks of this column if this returns false.
+   * 
+   * @return true if some row of this column may be null.
+   */
+  public boolean hasNulls() {
+    return nulls != null;
+  }
+
   @Override
   public boolean getBoolean(final int row) {
     throw new UnsupportedOperationException(getClass().getName());
@@ -114,7 +152,7 @@ public abstract class Column<T extends Comparable<?>> implements ReadableColumn,
       case BOOLEAN_TYPE:
         return new BooleanColumn(new BitSet(0), 0);
       case DATETIME_TYPE:
-        return new DateTimeColumn(new DateTime[] {}, 0);
+        return new DateTimeColumn(new long[] {}, 0);
       case DOUBLE_TYPE:
         return new DoubleColumn(new double[] {}, 0);
       case FLOAT_TYPE:
@@ -164,7 +202,7 @@ public abstract class Column<T extends Comparable<?>> implements ReadableColumn,
   protected static ColumnMessage defaultDateTimeProto(final Column<?> column) {
     ByteBuffer dataBytes = ByteBuffer.allocate(column.size() * Long.SIZE / Byte.SIZE);
     for (int i = 0; i < column.size(); i++) {
-      dataBytes.putLong(column.getDateTime(i).getMillis());
+      dataBytes.putLong(column.getLong(i));
     }
     dataBytes.flip();
     final DateTimeColumnMessage.Builder inner =
@@ -243,23 +281,56 @@ public abstract class Column<T extends Comparable<?>> implements ReadableColumn,
    * @return a ColumnMessage with an appropriate member.
    */
   protected static ColumnMessage defaultProto(final Column<?> column) {
+    ColumnMessage message;
     switch (column.getType()) {
       case BOOLEAN_TYPE:
-        return defaultBooleanProto(column);
+        message = defaultBooleanProto(column);
+        break;
       case DATETIME_TYPE:
-        return defaultDateTimeProto(column);
+        message = defaultDateTimeProto(column);
+        break;
       case DOUBLE_TYPE:
-        return defaultDoubleProto(column);
+        message = defaultDoubleProto(column);
+        break;
       case FLOAT_TYPE:
-        return defaultFloatProto(column);
+        message = defaultFloatProto(column);
+        break;
       case INT_TYPE:
-        return defaultIntProto(column);
+        message = defaultIntProto(column);
+        break;
       case LONG_TYPE:
-        return defaultLongProto(column);
+        message = defaultLongProto(column);
+        break;
       case STRING_TYPE:
-        return defaultStringProto(column);
+        message = defaultStringProto(column);
+        break;
+      default:
+        throw new UnsupportedOperationException("Serializing a column of type " + column.getType());
+    }
+    return withNulls(message, column);
+  }
+
+  /**
+   * Adds the null bitmap of the specified column, if it has any nulls, to a serialized copy of it.
+   * 
+   * @param message the serialized column.
+   * @param column the column that was serialized.
+   * @return the message, with its nulls field set if the column has nulls.
+   */
+  protected static ColumnMessage withNulls(final ColumnMessage message, final Column<?> column) {
+    if (!column.hasNulls()) {
+      return message;
+    }
+    BitSet nulls = new BitSet(column.size());
+    for (int i = 0; i < column.size(); ++i) {
+      if (column.isNull(i)) {
+        nulls.set(i);
+      }
+    }
+    if (nulls.isEmpty()) {
+      return message;
     }
-    throw new UnsupportedOperationException("Serializing a column of type " + column.getType());
+    return message.toBuilder().setNulls(ByteString.copyFrom(nulls.toByteArray())).build();
   }
 
   /**
@@ -120,6 +120,8 @@ public class ConstantValueColumn extends Column<Comparable<?>> {
   public long getLong(final int row) {
     if (type == Type.LONG_TYPE) {
       return longValue;
+    } else if (type == Type.DATETIME_TYPE) {
+      return dateTimeValue.getMillis();
     }
     throw new UnsupportedOperationException();
   }
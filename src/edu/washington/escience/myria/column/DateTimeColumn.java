@@ -1,32 +1,70 @@
 package edu.washington.escience.myria.column;
 
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+
+import javax.annotation.Nullable;
+
 import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
 
 import com.google.common.base.Preconditions;
+import com.google.protobuf.ByteString;
 
 import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.proto.DataProto.ColumnMessage;
+import edu.washington.escience.myria.proto.DataProto.DateTimeColumnMessage;
 
 /**
- * A column of Date values.
+ * A column of Date values. The values are stored as milliseconds since the epoch, and {@link DateTime} objects are
+ * only created when requested through {@link #getDateTime(int)}. {@link #getLong(int)} returns the raw milliseconds.
  * 
  */
 public final class DateTimeColumn extends Column<DateTime> {
   /** Required for Java serialization. */
   private static final long serialVersionUID = 1;
-  /** Internal representation of the column data. */
-  private final DateTime[] data;
+  /** Internal representation of the column data, in milliseconds since the epoch. */
+  private final long[] data;
   /** The number of existing rows in this column. */
   private final int position;
+  /** The time zone of the values of this column, or null for the default time zone. */
+  private final DateTimeZone zone;
+
+  /**
+   * Constructs a new column.
+   * 
+   * @param data the data, in milliseconds since the epoch
+   * @param numData number of tuples.
+   * */
+  public DateTimeColumn(final long[] data, final int numData) {
+    this(data, numData, null, null);
+  }
 
   /**
    * Constructs a new column.
    * 
-   * @param data the data
+   * @param data the data, in milliseconds since the epoch
    * @param numData number of tuples.
+   * @param nulls the rows of the column that are null, or null if no row is.
    * */
-  public DateTimeColumn(final DateTime[] data, final int numData) {
+  public DateTimeColumn(final long[] data, final int numData, @Nullable final BitSet nulls) {
+    this(data, numData, null, nulls);
+  }
+
+  /**
+   * Constructs a new column.
+   * 
+   * @param data the data, in milliseconds since the epoch
+   * @param numData number of tuples.
+   * @param zone the time zone of the values, or null for the default time zone.
+   * @param nulls the rows of the column that are null, or null if no row is.
+   * */
+  public DateTimeColumn(final long[] data, final int numData, @Nullable final DateTimeZone zone,
+      @Nullable final BitSet nulls) {
+    super(nulls);
     this.data = data;
     position = numData;
+    this.zone = zone;
   }
 
   @Override
@@ -42,6 +80,18 @@ public final class DateTimeColumn extends Column<DateTime> {
    */
   @Override
   public DateTime getDateTime(final int row) {
+    Preconditions.checkElementIndex(row, position);
+    return new DateTime(data[row], zone);
+  }
+
+  /**
+   * Returns the element at the specified row in this column, in milliseconds since the epoch.
+   * 
+   * @param row row of element to return.
+   * @return the element at the specified row in this column, in milliseconds since the epoch.
+   */
+  @Override
+  public long getLong(final int row) {
     Preconditions.checkElementIndex(row, position);
     return data[row];
   }
@@ -51,6 +101,16 @@ public final class DateTimeColumn extends Column<DateTime> {
     return Type.DATETIME_TYPE;
   }
 
+  @Override
+  public ColumnMessage serializeToProto() {
+    ByteBuffer dataBytes = ByteBuffer.allocate(position * Long.SIZE / Byte.SIZE);
+    dataBytes.asLongBuffer().put(data, 0, position);
+    final DateTimeColumnMessage.Builder inner =
+        DateTimeColumnMessage.newBuilder().setData(ByteString.copyFrom(dataBytes));
+    return withNulls(ColumnMessage.newBuilder().setType(ColumnMessage.Type.DATETIME).setDateColumn(inner).build(),
+        this);
+  }
+
   @Override
   public int size() {
     return position;
@@ -64,9 +124,9 @@ public final class DateTimeColumn extends Column<DateTime> {
       if (i > 0) {
         sb.append(", ");
       }
-      sb.append(data[i]);
+      sb.append(getDateTime(i));
     }
     sb.append(']');
     return sb.toString();
   }
-}
\ No newline at end of file
+}
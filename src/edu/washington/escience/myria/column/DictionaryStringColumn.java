@@ -0,0 +1,75 @@
+package edu.washington.escience.myria.column;
+
+import java.util.BitSet;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A column of String values stored as int codes into a {@link StringDictionary}. All the columns a scan produces for
+ * the same attribute share a dictionary, so two of their values are equal iff their codes are.
+ */
+public final class DictionaryStringColumn extends StringColumn {
+  /** Required for Java serialization. */
+  private static final long serialVersionUID = 1L;
+  /** The code of each row. */
+  private final int[] codes;
+  /** Number of elements in this column. */
+  private final int numStrings;
+  /** The values of the dictionary, indexed by code, as of when this column was built. */
+  private final String[] values;
+  /** The dictionary that the codes refer to. Not serialized, since codes are only comparable within one process. */
+  private final transient StringDictionary dictionary;
+
+  /**
+   * Constructs a new column.
+   * 
+   * @param codes the code of each row.
+   * @param numStrings number of tuples.
+   * @param dictionary the dictionary that the codes refer to.
+   * @param nulls the rows of the column that are null, or null if no row is.
+   */
+  public DictionaryStringColumn(final int[] codes, final int numStrings, final StringDictionary dictionary,
+      @Nullable final BitSet nulls) {
+    super(nulls);
+    this.codes = codes;
+    this.numStrings = numStrings;
+    this.dictionary = Preconditions.checkNotNull(dictionary, "dictionary");
+    values = dictionary.values();
+  }
+
+  @Override
+  public String getString(final int row) {
+    return values[codes[Preconditions.checkElementIndex(row, numStrings)]];
+  }
+
+  /**
+   * @param row the row.
+   * @return the dictionary code of the value at the specified row.
+   */
+  public int getCode(final int row) {
+    return codes[Preconditions.checkElementIndex(row, numStrings)];
+  }
+
+  /**
+   * @param other another dictionary-encoded column.
+   * @return true if the codes of this column and of the other column refer to the same dictionary.
+   */
+  public boolean sharesDictionary(final DictionaryStringColumn other) {
+    return dictionary != null && dictionary == other.dictionary;
+  }
+
+  /**
+   * @return the dictionary that the codes of this column refer to, or null if this column was deserialized.
+   */
+  @Nullable
+  public StringDictionary getDictionary() {
+    return dictionary;
+  }
+
+  @Override
+  public int size() {
+    return numStrings;
+  }
+}
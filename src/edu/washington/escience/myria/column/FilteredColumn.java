@@ -62,6 +62,16 @@ class FilteredColumn<T extends Comparable<?>> extends Column<T> {
     return validIndices[row];
   }
 
+  @Override
+  public boolean isNull(final int row) {
+    return inner.isNull(convertRow(row));
+  }
+
+  @Override
+  public boolean hasNulls() {
+    return inner.hasNulls();
+  }
+
   @Override
   public boolean getBoolean(final int row) {
     return inner.getBoolean(convertRow(row));
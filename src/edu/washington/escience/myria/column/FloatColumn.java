@@ -1,5 +1,9 @@
 package edu.washington.escience.myria.column;
 
+import java.util.BitSet;
+
+import javax.annotation.Nullable;
+
 import com.google.common.base.Preconditions;
 
 import edu.washington.escience.myria.Type;
@@ -23,6 +27,18 @@ public final class FloatColumn extends Column<Float> {
    * @param numData number of tuples.
    * */
   public FloatColumn(final float[] data, final int numData) {
+    this(data, numData, null);
+  }
+
+  /**
+   * Constructs a new column.
+   * 
+   * @param data the underlying data
+   * @param numData number of tuples.
+   * @param nulls the rows of the column that are null, or null if no row is.
+   * */
+  public FloatColumn(final float[] data, final int numData, @Nullable final BitSet nulls) {
+    super(nulls);
     Preconditions.checkNotNull(data);
     Preconditions.checkArgument(numData <= TupleBatch.BATCH_SIZE);
     this.data = data;
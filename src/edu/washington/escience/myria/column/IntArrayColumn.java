@@ -1,5 +1,9 @@
 package edu.washington.escience.myria.column;
 
+import java.util.BitSet;
+
+import javax.annotation.Nullable;
+
 import com.google.common.base.Preconditions;
 
 /**
@@ -24,6 +28,18 @@ public final class IntArrayColumn extends IntColumn {
    * @param numData number of tuples.
    * */
   public IntArrayColumn(final int[] data, final int numData) {
+    this(data, numData, null);
+  }
+
+  /**
+   * Constructs a new column.
+   * 
+   * @param data the data
+   * @param numData number of tuples.
+   * @param nulls the rows of the column that are null, or null if no row is.
+   * */
+  public IntArrayColumn(final int[] data, final int numData, @Nullable final BitSet nulls) {
+    super(nulls);
     this.data = data;
     position = numData;
   }
@@ -1,5 +1,9 @@
 package edu.washington.escience.myria.column;
 
+import java.util.BitSet;
+
+import javax.annotation.Nullable;
+
 import edu.washington.escience.myria.Type;
 
 /**
@@ -11,6 +15,18 @@ public abstract class IntColumn extends Column<Integer> {
   /** Required for Java serialization. */
   private static final long serialVersionUID = 1L;
 
+  /** Constructs a column without nulls. */
+  protected IntColumn() {
+    super();
+  }
+
+  /**
+   * @param nulls the rows of this column that are null, or null if no row is.
+   */
+  protected IntColumn(@Nullable final BitSet nulls) {
+    super(nulls);
+  }
+
   /**
    * Returns the element at the specified row in this column.
    * 
@@ -1,6 +1,9 @@
 package edu.washington.escience.myria.column;
 
 import java.nio.IntBuffer;
+import java.util.BitSet;
+
+import javax.annotation.Nullable;
 
 import com.google.protobuf.ByteString;
 
@@ -36,6 +39,17 @@ public final class IntProtoColumn extends IntColumn {
    * @param data a byte string of data.
    */
   public IntProtoColumn(final ByteString data) {
+    this(data, null);
+  }
+
+  /**
+   * Construct a new IntProtoColumn using the ByteString data.
+   * 
+   * @param data a byte string of data.
+   * @param nulls the rows of the column that are null, or null if no row is.
+   */
+  public IntProtoColumn(final ByteString data, @Nullable final BitSet nulls) {
+    super(nulls);
     columnData = data;
     intBuffer = columnData.asReadOnlyByteBuffer().asIntBuffer();
   }
@@ -53,7 +67,7 @@ public final class IntProtoColumn extends IntColumn {
   @Override
   public ColumnMessage serializeToProto() {
     final IntColumnMessage.Builder inner = IntColumnMessage.newBuilder().setData(columnData);
-    return ColumnMessage.newBuilder().setType(ColumnMessage.Type.INT).setIntColumn(inner).build();
+    return withNulls(ColumnMessage.newBuilder().setType(ColumnMessage.Type.INT).setIntColumn(inner).build(), this);
   }
 
   @Override
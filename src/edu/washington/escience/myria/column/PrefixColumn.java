@@ -35,6 +35,16 @@ public class PrefixColumn<T extends Comparable<?>> extends Column<T> {
     numRows = length;
   }
 
+  @Override
+  public boolean isNull(final int row) {
+    return inner.isNull(Preconditions.checkElementIndex(row, numRows));
+  }
+
+  @Override
+  public boolean hasNulls() {
+    return inner.hasNulls();
+  }
+
   @Override
   public boolean getBoolean(final int row) {
     return inner.getBoolean(Preconditions.checkElementIndex(row, numRows));
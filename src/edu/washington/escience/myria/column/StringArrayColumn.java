@@ -1,5 +1,9 @@
 package edu.washington.escience.myria.column;
 
+import java.util.BitSet;
+
+import javax.annotation.Nullable;
+
 import com.google.common.base.Preconditions;
 
 /**
@@ -22,6 +26,18 @@ public final class StringArrayColumn extends StringColumn {
    * @param numStrings number of tuples.
    * */
   public StringArrayColumn(final String[] data, final int numStrings) {
+    this(data, numStrings, null);
+  }
+
+  /**
+   * Constructs a new column.
+   * 
+   * @param data the data
+   * @param numStrings number of tuples.
+   * @param nulls the rows of the column that are null, or null if no row is.
+   * */
+  public StringArrayColumn(final String[] data, final int numStrings, @Nullable final BitSet nulls) {
+    super(nulls);
     this.data = data;
     this.numStrings = numStrings;
   }
@@ -1,5 +1,9 @@
 package edu.washington.escience.myria.column;
 
+import java.util.BitSet;
+
+import javax.annotation.Nullable;
+
 import edu.washington.escience.myria.Type;
 
 /**
@@ -10,6 +14,18 @@ public abstract class StringColumn extends Column<String> {
   /** Required for Java serialization. */
   private static final long serialVersionUID = 1L;
 
+  /** Constructs a column without nulls. */
+  protected StringColumn() {
+    super();
+  }
+
+  /**
+   * @param nulls the rows of this column that are null, or null if no row is.
+   */
+  protected StringColumn(@Nullable final BitSet nulls) {
+    super(nulls);
+  }
+
   @Override
   public final String getObject(final int row) {
     return getString(row);
@@ -0,0 +1,93 @@
+package edu.washington.escience.myria.column;
+
+import java.util.Arrays;
+
+import com.google.common.base.Preconditions;
+import com.gs.collections.impl.map.mutable.primitive.ObjectIntHashMap;
+
+import edu.washington.escience.myria.MyriaConstants;
+
+/**
+ * A dictionary that maps the distinct values of a string column to dense int codes. One dictionary is shared by all
+ * the batches a scan produces for a column, so that equal strings have equal codes and are the same {@link String}
+ * instance across batches.
+ * 
+ * Codes are never reassigned. The dictionary has a single writer, but a snapshot returned by {@link #values()} is
+ * never modified and can be handed to other threads.
+ */
+public final class StringDictionary {
+  /** The code of each value. */
+  private final ObjectIntHashMap<String> codes;
+  /** The value of each code. Replaced, never modified in place, when it grows. */
+  private String[] values;
+  /** The number of values in the dictionary. */
+  private int size;
+  /** The maximum number of values in the dictionary. */
+  private final int maxSize;
+
+  /** Constructs an empty dictionary that holds up to {@link MyriaConstants#STRING_DICTIONARY_MAX_SIZE} values. */
+  public StringDictionary() {
+    this(MyriaConstants.STRING_DICTIONARY_MAX_SIZE);
+  }
+
+  /**
+   * @param maxSize the maximum number of values in the dictionary.
+   */
+  public StringDictionary(final int maxSize) {
+    Preconditions.checkArgument(maxSize > 0, "maxSize must be positive");
+    this.maxSize = maxSize;
+    codes = new ObjectIntHashMap<String>();
+    values = new String[Math.min(maxSize, 16)];
+    size = 0;
+  }
+
+  /**
+   * Returns the code of the specified value, adding it to the dictionary if needed.
+   * 
+   * @param value the value.
+   * @return the code of the value, or -1 if it is not in the dictionary and the dictionary is full.
+   */
+  public int encode(final String value) {
+    int code = codes.getIfAbsent(value, -1);
+    if (code >= 0 || size == maxSize) {
+      return code;
+    }
+    if (size == values.length) {
+      values = Arrays.copyOf(values, Math.min(maxSize, 2 * values.length));
+    }
+    code = size;
+    values[code] = value;
+    codes.put(value, code);
+    ++size;
+    return code;
+  }
+
+  /**
+   * @param code a code of this dictionary.
+   * @return the value of the code.
+   */
+  public String decode(final int code) {
+    return values[Preconditions.checkElementIndex(code, size)];
+  }
+
+  /**
+   * @return the values of the dictionary, indexed by code. Codes assigned later are not covered by the returned array.
+   */
+  public String[] values() {
+    return values;
+  }
+
+  /**
+   * @return the number of values in the dictionary.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return true if the dictionary is full and will not accept new values.
+   */
+  public boolean isFull() {
+    return size == maxSize;
+  }
+}
@@ -72,6 +72,7 @@ public final class BooleanColumnBuilder extends ColumnBuilder<Boolean> {
     BooleanColumnBuilder builder =
         new BooleanColumnBuilder(numTuples,
             BitSet.valueOf(message.getBooleanColumn().getData().asReadOnlyByteBuffer()), numTuples);
+    builder.setNulls(nullsFromProtobuf(message));
     return builder.build();
   }
 
@@ -101,13 +102,22 @@ public final class BooleanColumnBuilder extends ColumnBuilder<Boolean> {
   public BooleanColumnBuilder appendFromJdbc(final ResultSet resultSet, final int jdbcIndex) throws SQLException,
       BufferOverflowException {
     Preconditions.checkArgument(!built, "No further changes are allowed after the builder has built the column.");
-    return appendBoolean(resultSet.getBoolean(jdbcIndex));
+    boolean value = resultSet.getBoolean(jdbcIndex);
+    if (resultSet.wasNull()) {
+      appendNull();
+      return this;
+    }
+    return appendBoolean(value);
   }
 
   @Override
   public BooleanColumnBuilder appendFromSQLite(final SQLiteStatement statement, final int index)
       throws SQLiteException, BufferOverflowException {
     Preconditions.checkArgument(!built, "No further changes are allowed after the builder has built the column.");
+    if (statement.columnNull(index)) {
+      appendNull();
+      return this;
+    }
     return appendBoolean(0 != statement.columnInt(index));
   }
 
@@ -119,13 +129,13 @@ public final class BooleanColumnBuilder extends ColumnBuilder<Boolean> {
   @Override
   public BooleanColumn build() {
     built = true;
-    return new BooleanColumn(data, numBits);
+    return new BooleanColumn(data, numBits, getNulls());
   }
 
   @Override
   public BooleanMutableColumn buildMutable() {
     built = true;
-    return new BooleanMutableColumn(data, numBits);
+    return new BooleanMutableColumn(data, numBits, getNulls());
   }
 
   @Override
@@ -133,6 +143,7 @@ public final class BooleanColumnBuilder extends ColumnBuilder<Boolean> {
     Preconditions.checkArgument(!built, "No further changes are allowed after the builder has built the column.");
     Preconditions.checkElementIndex(row, numBits);
     data.set(row, value);
+    clearNull(row);
   }
 
   @Override
@@ -168,7 +179,9 @@ public final class BooleanColumnBuilder extends ColumnBuilder<Boolean> {
 
   @Override
   public BooleanColumnBuilder forkNewBuilder() {
-    return new BooleanColumnBuilder(capacity, BitSet.valueOf(data.toByteArray()), numBits);
+    BooleanColumnBuilder builder = new BooleanColumnBuilder(capacity, BitSet.valueOf(data.toByteArray()), numBits);
+    builder.setNulls(copyNulls());
+    return builder;
   }
 
 }
\ No newline at end of file
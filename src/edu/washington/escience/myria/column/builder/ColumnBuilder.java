@@ -3,16 +3,20 @@ package edu.washington.escience.myria.column.builder;
 import java.nio.BufferOverflowException;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.BitSet;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import org.joda.time.DateTime;
 
 import com.almworks.sqlite4java.SQLiteException;
 import com.almworks.sqlite4java.SQLiteStatement;
+import com.google.common.base.Preconditions;
 
 import edu.washington.escience.myria.column.Column;
 import edu.washington.escience.myria.column.mutable.MutableColumn;
+import edu.washington.escience.myria.proto.DataProto.ColumnMessage;
 import edu.washington.escience.myria.storage.ReadableColumn;
 import edu.washington.escience.myria.storage.ReplaceableColumn;
 
@@ -23,6 +27,109 @@ import edu.washington.escience.myria.storage.ReplaceableColumn;
 public abstract class ColumnBuilder<T extends Comparable<?>> implements ReadableColumn, WritableColumn,
     ReplaceableColumn {
 
+  /** The placeholder value stored in null rows of DateTime columns. */
+  private static final DateTime NULL_DATETIME = new DateTime(0L);
+
+  /** The rows of this column that are null, or null if no row has been null yet. */
+  private BitSet nulls;
+
+  @Override
+  public boolean isNull(final int row) {
+    return nulls != null && nulls.get(row);
+  }
+
+  @Override
+  public ColumnBuilder<T> appendNull() throws BufferOverflowException {
+    final int row = size();
+    switch (getType()) {
+      case BOOLEAN_TYPE:
+        appendBoolean(false);
+        break;
+      case DATETIME_TYPE:
+        appendDateTime(NULL_DATETIME);
+        break;
+      case DOUBLE_TYPE:
+        appendDouble(0);
+        break;
+      case FLOAT_TYPE:
+        appendFloat(0);
+        break;
+      case INT_TYPE:
+        appendInt(0);
+        break;
+      case LONG_TYPE:
+        appendLong(0);
+        break;
+      case STRING_TYPE:
+        appendString("");
+        break;
+    }
+    if (nulls == null) {
+      nulls = new BitSet();
+    }
+    nulls.set(row);
+    return this;
+  }
+
+  @Override
+  public void replaceNull(final int row) {
+    Preconditions.checkElementIndex(row, size());
+    if (nulls == null) {
+      nulls = new BitSet();
+    }
+    nulls.set(row);
+  }
+
+  /**
+   * Marks the specified row as not null. Called by the typed replace methods of the subclasses.
+   * 
+   * @param row the row.
+   */
+  protected final void clearNull(final int row) {
+    if (nulls != null) {
+      nulls.clear(row);
+    }
+  }
+
+  /**
+   * @return the null rows of this builder, or null if no row is null. Not copied, so only for use once the builder has
+   *         built its column.
+   */
+  @Nullable
+  protected final BitSet getNulls() {
+    return nulls;
+  }
+
+  /**
+   * @return a copy of the null rows of this builder, or null if no row is null.
+   */
+  @Nullable
+  protected final BitSet copyNulls() {
+    if (nulls == null) {
+      return null;
+    }
+    return (BitSet) nulls.clone();
+  }
+
+  /**
+   * @param nulls the null rows of this builder, or null if no row is null. Not copied.
+   */
+  protected final void setNulls(@Nullable final BitSet nulls) {
+    this.nulls = nulls;
+  }
+
+  /**
+   * @param message a serialized column.
+   * @return the null rows of the serialized column, or null if no row is null.
+   */
+  @Nullable
+  protected static BitSet nullsFromProtobuf(final ColumnMessage message) {
+    if (!message.hasNulls()) {
+      return null;
+    }
+    return BitSet.valueOf(message.getNulls().asReadOnlyByteBuffer());
+  }
+
   @Override
   public ColumnBuilder<T> appendBoolean(final boolean value) throws BufferOverflowException {
     throw new UnsupportedOperationException(getClass().getName());
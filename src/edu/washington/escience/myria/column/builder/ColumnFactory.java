@@ -6,6 +6,7 @@ import java.util.List;
 import edu.washington.escience.myria.Schema;
 import edu.washington.escience.myria.Type;
 import edu.washington.escience.myria.column.Column;
+import edu.washington.escience.myria.column.StringDictionary;
 import edu.washington.escience.myria.proto.DataProto.ColumnMessage;
 
 /**
@@ -65,6 +66,45 @@ public final class ColumnFactory {
     return columns;
   }
 
+  /**
+   * Allocates one string dictionary per STRING column of the given Schema, for use with
+   * {@link #allocateColumns(Schema, StringDictionary[])}. A scan should allocate them once and reuse them for all the
+   * batches it produces, so that the codes of different batches are comparable.
+   * 
+   * @param schema the Schema
+   * @return a dictionary for each STRING column, and null for the other columns.
+   */
+  public static StringDictionary[] allocateDictionaries(final Schema schema) {
+    final StringDictionary[] dictionaries = new StringDictionary[schema.numColumns()];
+    for (int i = 0; i < dictionaries.length; ++i) {
+      if (schema.getColumnType(i) == Type.STRING_TYPE) {
+        dictionaries[i] = new StringDictionary();
+      }
+    }
+    return dictionaries;
+  }
+
+  /**
+   * Allocates an array of Columns to match the given Schema, dictionary-encoding the STRING columns that have a
+   * dictionary. Columns whose dictionary is full are not encoded.
+   * 
+   * @param schema the Schema
+   * @param dictionaries the dictionary of each column, or null for the columns that are not encoded.
+   * @return the list of Columns
+   */
+  public static List<ColumnBuilder<?>> allocateColumns(final Schema schema, final StringDictionary[] dictionaries) {
+    final ArrayList<ColumnBuilder<?>> columns = new ArrayList<ColumnBuilder<?>>(schema.numColumns());
+    for (int i = 0; i < schema.numColumns(); ++i) {
+      final StringDictionary dictionary = dictionaries[i];
+      if (dictionary != null && !dictionary.isFull()) {
+        columns.add(new StringColumnBuilder(dictionary));
+      } else {
+        columns.add(allocateColumn(schema.getColumnType(i)));
+      }
+    }
+    return columns;
+  }
+
   /**
    * Deserializes a ColumnMessage into the appropriate Column.
    * 
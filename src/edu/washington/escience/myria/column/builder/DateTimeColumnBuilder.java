@@ -4,9 +4,13 @@ import java.nio.BufferOverflowException;
 import java.nio.LongBuffer;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.Objects;
 
+import javax.annotation.Nullable;
+
 import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
 
 import com.almworks.sqlite4java.SQLiteException;
 import com.almworks.sqlite4java.SQLiteStatement;
@@ -27,9 +31,12 @@ import edu.washington.escience.myria.util.MyriaUtils;
 public final class DateTimeColumnBuilder extends ColumnBuilder<DateTime> {
 
   /**
-   * The internal representation of the data.
+   * The internal representation of the data, in milliseconds since the epoch.
    * */
-  private final DateTime[] data;
+  private final long[] data;
+
+  /** The time zone of the values of the built column, or null for the default time zone. */
+  private final DateTimeZone zone;
 
   /** Number of elements in this column. */
   private int numDates;
@@ -41,8 +48,17 @@ public final class DateTimeColumnBuilder extends ColumnBuilder<DateTime> {
 
   /** Constructs an empty column that can hold up to TupleBatch.BATCH_SIZE elements. */
   public DateTimeColumnBuilder() {
-    numDates = 0;
-    data = new DateTime[TupleBatch.BATCH_SIZE];
+    this(null);
+  }
+
+  /**
+   * Constructs an empty column that can hold up to TupleBatch.BATCH_SIZE elements. Only the instant of each appended
+   * value is stored; the values of the built column are all in the specified time zone.
+   * 
+   * @param zone the time zone of the values of the built column, or null for the default time zone.
+   */
+  public DateTimeColumnBuilder(@Nullable final DateTimeZone zone) {
+    this(new long[TupleBatch.BATCH_SIZE], 0, zone);
   }
 
   /**
@@ -50,10 +66,12 @@ public final class DateTimeColumnBuilder extends ColumnBuilder<DateTime> {
    * 
    * @param numDates the actual num strings in the data
    * @param data the underlying data
+   * @param zone the time zone of the values, or null for the default time zone.
    * */
-  private DateTimeColumnBuilder(final DateTime[] data, final int numDates) {
+  private DateTimeColumnBuilder(final long[] data, final int numDates, @Nullable final DateTimeZone zone) {
     this.numDates = numDates;
     this.data = data;
+    this.zone = zone;
   }
 
   /**
@@ -68,22 +86,33 @@ public final class DateTimeColumnBuilder extends ColumnBuilder<DateTime> {
         "Trying to construct DateColumn from non-DATE ColumnMessage %s", message.getType());
     Preconditions.checkArgument(message.hasDateColumn(), "ColumnMessage is missing DateColumn");
     final DateTimeColumnMessage dateColumn = message.getDateColumn();
-    DateTime[] newData = new DateTime[numTuples];
+    long[] newData = new long[numTuples];
     LongBuffer data = dateColumn.getData().asReadOnlyByteBuffer().asLongBuffer();
-    for (int i = 0; i < numTuples; i++) {
-      newData[i] = new DateTime(data.get());
-    }
-    return new DateTimeColumnBuilder(newData, numTuples).build();
+    data.get(newData);
+    DateTimeColumnBuilder builder = new DateTimeColumnBuilder(newData, numTuples, null);
+    builder.setNulls(nullsFromProtobuf(message));
+    return builder.build();
   }
 
   @Override
   public DateTimeColumnBuilder appendDateTime(final DateTime value) throws BufferOverflowException {
-    Preconditions.checkState(!built, "No further changes are allowed after the builder has built the column.");
     Objects.requireNonNull(value, "value");
+    return appendMillis(value.getMillis());
+  }
+
+  /**
+   * Inserts the specified instant at end of this column.
+   * 
+   * @param millis the instant, in milliseconds since the epoch.
+   * @return this column builder.
+   * @throws BufferOverflowException if the column is already full
+   */
+  public DateTimeColumnBuilder appendMillis(final long millis) throws BufferOverflowException {
+    Preconditions.checkState(!built, "No further changes are allowed after the builder has built the column.");
     if (numDates >= TupleBatch.BATCH_SIZE) {
       throw new BufferOverflowException();
     }
-    data[numDates++] = value;
+    data[numDates++] = millis;
     return this;
   }
 
@@ -96,7 +125,12 @@ public final class DateTimeColumnBuilder extends ColumnBuilder<DateTime> {
   public DateTimeColumnBuilder appendFromJdbc(final ResultSet resultSet, final int jdbcIndex) throws SQLException,
       BufferOverflowException {
     Preconditions.checkState(!built, "No further changes are allowed after the builder has built the column.");
-    return appendDateTime(new DateTime(resultSet.getTimestamp(jdbcIndex).getTime()));
+    Timestamp value = resultSet.getTimestamp(jdbcIndex);
+    if (value == null) {
+      appendNull();
+      return this;
+    }
+    return appendMillis(value.getTime());
   }
 
   @Override
@@ -104,7 +138,11 @@ public final class DateTimeColumnBuilder extends ColumnBuilder<DateTime> {
       throws SQLiteException, BufferOverflowException {
     Preconditions.checkState(!built, "No further changes are allowed after the builder has built the column.");
 
-    return appendDateTime(new DateTime(statement.columnLong(index)));
+    if (statement.columnNull(index)) {
+      appendNull();
+      return this;
+    }
+    return appendMillis(statement.columnLong(index));
   }
 
   @Override
@@ -115,13 +153,13 @@ public final class DateTimeColumnBuilder extends ColumnBuilder<DateTime> {
   @Override
   public DateTimeColumn build() {
     built = true;
-    return new DateTimeColumn(data, numDates);
+    return new DateTimeColumn(data, numDates, zone, getNulls());
   }
 
   @Override
   public DateTimeMutableColumn buildMutable() {
     built = true;
-    return new DateTimeMutableColumn(data, numDates);
+    return new DateTimeMutableColumn(data, numDates, zone, getNulls());
   }
 
   @Override
@@ -129,7 +167,8 @@ public final class DateTimeColumnBuilder extends ColumnBuilder<DateTime> {
     Preconditions.checkState(!built, "No further changes are allowed after the builder has built the column.");
     Preconditions.checkElementIndex(row, numDates);
     Preconditions.checkNotNull(value);
-    data[row] = value;
+    data[row] = value.getMillis();
+    clearNull(row);
   }
 
   @Override
@@ -152,6 +191,12 @@ public final class DateTimeColumnBuilder extends ColumnBuilder<DateTime> {
 
   @Override
   public DateTime getDateTime(final int row) {
+    Preconditions.checkElementIndex(row, numDates);
+    return new DateTime(data[row], zone);
+  }
+
+  @Override
+  public long getLong(final int row) {
     Preconditions.checkElementIndex(row, numDates);
     return data[row];
   }
@@ -170,9 +215,11 @@ public final class DateTimeColumnBuilder extends ColumnBuilder<DateTime> {
 
   @Override
   public DateTimeColumnBuilder forkNewBuilder() {
-    DateTime[] newData = new DateTime[data.length];
+    long[] newData = new long[data.length];
     System.arraycopy(data, 0, newData, 0, numDates);
-    return new DateTimeColumnBuilder(newData, numDates);
+    DateTimeColumnBuilder builder = new DateTimeColumnBuilder(newData, numDates, zone);
+    builder.setNulls(copyNulls());
+    return builder;
   }
 
 }
\ No newline at end of file
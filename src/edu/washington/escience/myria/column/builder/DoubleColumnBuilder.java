@@ -63,7 +63,10 @@ public final class DoubleColumnBuilder extends ColumnBuilder<Double> {
     for (int i = 0; i < numTuples; i++) {
       newData.put(dataBytes.getDouble());
     }
-    return new DoubleColumnBuilder(newData).build();
+    DoubleColumnBuilder builder =
+        new DoubleColumnBuilder(newData);
+    builder.setNulls(nullsFromProtobuf(message));
+    return builder.build();
   }
 
   @Override
@@ -89,13 +92,22 @@ public final class DoubleColumnBuilder extends ColumnBuilder<Double> {
   public DoubleColumnBuilder appendFromJdbc(final ResultSet resultSet, final int jdbcIndex) throws SQLException,
       BufferOverflowException {
     Preconditions.checkArgument(!built, "No further changes are allowed after the builder has built the column.");
-    return appendDouble(resultSet.getDouble(jdbcIndex));
+    double value = resultSet.getDouble(jdbcIndex);
+    if (resultSet.wasNull()) {
+      appendNull();
+      return this;
+    }
+    return appendDouble(value);
   }
 
   @Override
   public DoubleColumnBuilder appendFromSQLite(final SQLiteStatement statement, final int index) throws SQLiteException,
       BufferOverflowException {
     Preconditions.checkArgument(!built, "No further changes are allowed after the builder has built the column.");
+    if (statement.columnNull(index)) {
+      appendNull();
+      return this;
+    }
     return appendDouble(statement.columnDouble(index));
   }
 
@@ -122,13 +134,13 @@ public final class DoubleColumnBuilder extends ColumnBuilder<Double> {
   @Override
   public DoubleColumn build() {
     built = true;
-    return new DoubleColumn(data.array(), data.position());
+    return new DoubleColumn(data.array(), data.position(), getNulls());
   }
 
   @Override
   public DoubleMutableColumn buildMutable() {
     built = true;
-    return new DoubleMutableColumn(data.array(), data.position());
+    return new DoubleMutableColumn(data.array(), data.position(), getNulls());
   }
 
   @Override
@@ -136,6 +148,7 @@ public final class DoubleColumnBuilder extends ColumnBuilder<Double> {
     Preconditions.checkArgument(!built, "No further changes are allowed after the builder has built the column.");
     Preconditions.checkElementIndex(row, data.position());
     data.put(row, value);
+    clearNull(row);
   }
 
   @Override
@@ -153,7 +166,10 @@ public final class DoubleColumnBuilder extends ColumnBuilder<Double> {
   public DoubleColumnBuilder forkNewBuilder() {
     double[] arr = new double[data.array().length];
     System.arraycopy(data.array(), 0, arr, 0, data.position());
-    return new DoubleColumnBuilder((DoubleBuffer) DoubleBuffer.wrap(arr).position(data.position()).limit(data.limit()));
+    DoubleColumnBuilder builder =
+        new DoubleColumnBuilder((DoubleBuffer) DoubleBuffer.wrap(arr).position(data.position()).limit(data.limit()));
+    builder.setNulls(copyNulls());
+    return builder;
   }
 
 }
\ No newline at end of file
@@ -63,7 +63,7 @@ public final class FloatColumnBuilder extends ColumnBuilder<Float> {
     for (int i = 0; i < numTuples; i++) {
       data.put(dataBytes.getFloat());
     }
-    return new FloatColumn(data.array(), numTuples);
+    return new FloatColumn(data.array(), numTuples, nullsFromProtobuf(message));
   }
 
   @Override
@@ -89,13 +89,22 @@ public final class FloatColumnBuilder extends ColumnBuilder<Float> {
   public FloatColumnBuilder appendFromJdbc(final ResultSet resultSet, final int jdbcIndex) throws SQLException,
       BufferOverflowException {
     Preconditions.checkArgument(!built, "No further changes are allowed after the builder has built the column.");
-    return appendFloat(resultSet.getFloat(jdbcIndex));
+    float value = resultSet.getFloat(jdbcIndex);
+    if (resultSet.wasNull()) {
+      appendNull();
+      return this;
+    }
+    return appendFloat(value);
   }
 
   @Override
   public FloatColumnBuilder appendFromSQLite(final SQLiteStatement statement, final int index) throws SQLiteException,
       BufferOverflowException {
     Preconditions.checkArgument(!built, "No further changes are allowed after the builder has built the column.");
+    if (statement.columnNull(index)) {
+      appendNull();
+      return this;
+    }
     return appendFloat((float) statement.columnDouble(index));
   }
 
@@ -107,13 +116,13 @@ public final class FloatColumnBuilder extends ColumnBuilder<Float> {
   @Override
   public FloatColumn build() {
     built = true;
-    return new FloatColumn(data.array(), data.position());
+    return new FloatColumn(data.array(), data.position(), getNulls());
   }
 
   @Override
   public FloatMutableColumn buildMutable() {
     built = true;
-    return new FloatMutableColumn(data.array(), data.position());
+    return new FloatMutableColumn(data.array(), data.position(), getNulls());
   }
 
   @Override
@@ -121,6 +130,7 @@ public final class FloatColumnBuilder extends ColumnBuilder<Float> {
     Preconditions.checkArgument(!built, "No further changes are allowed after the builder has built the column.");
     Preconditions.checkElementIndex(row, data.position());
     data.put(row, value);
+    clearNull(row);
   }
 
   @Override
@@ -153,6 +163,9 @@ public final class FloatColumnBuilder extends ColumnBuilder<Float> {
   public FloatColumnBuilder forkNewBuilder() {
     float[] arr = new float[data.array().length];
     System.arraycopy(data.array(), 0, arr, 0, data.position());
-    return new FloatColumnBuilder((FloatBuffer) FloatBuffer.wrap(arr).position(data.position()).limit(data.limit()));
+    FloatColumnBuilder builder =
+        new FloatColumnBuilder((FloatBuffer) FloatBuffer.wrap(arr).position(data.position()).limit(data.limit()));
+    builder.setNulls(copyNulls());
+    return builder;
   }
 }
\ No newline at end of file
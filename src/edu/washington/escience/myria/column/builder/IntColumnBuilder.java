@@ -59,7 +59,7 @@ public final class IntColumnBuilder extends ColumnBuilder<Integer> {
     if (!message.hasIntColumn()) {
       throw new IllegalArgumentException("ColumnMessage has type INT but no IntColumn");
     }
-    return new IntProtoColumn(message.getIntColumn());
+    return new IntProtoColumn(message.getIntColumn().getData(), nullsFromProtobuf(message));
   }
 
   @Override
@@ -85,13 +85,22 @@ public final class IntColumnBuilder extends ColumnBuilder<Integer> {
   public IntColumnBuilder appendFromJdbc(final ResultSet resultSet, final int jdbcIndex) throws SQLException,
       BufferOverflowException {
     Preconditions.checkArgument(!built, "No further changes are allowed after the builder has built the column.");
-    return appendInt(resultSet.getInt(jdbcIndex));
+    int value = resultSet.getInt(jdbcIndex);
+    if (resultSet.wasNull()) {
+      appendNull();
+      return this;
+    }
+    return appendInt(value);
   }
 
   @Override
   public IntColumnBuilder appendFromSQLite(final SQLiteStatement statement, final int index) throws SQLiteException,
       BufferOverflowException {
     Preconditions.checkArgument(!built, "No further changes are allowed after the builder has built the column.");
+    if (statement.columnNull(index)) {
+      appendNull();
+      return this;
+    }
     return appendInt(statement.columnInt(index));
   }
 
@@ -103,13 +112,13 @@ public final class IntColumnBuilder extends ColumnBuilder<Integer> {
   @Override
   public IntColumn build() {
     built = true;
-    return new IntArrayColumn(data.array(), data.position());
+    return new IntArrayColumn(data.array(), data.position(), getNulls());
   }
 
   @Override
   public IntMutableColumn buildMutable() {
     built = true;
-    return new IntMutableColumn(data.array(), data.position());
+    return new IntMutableColumn(data.array(), data.position(), getNulls());
   }
 
   @Override
@@ -117,6 +126,7 @@ public final class IntColumnBuilder extends ColumnBuilder<Integer> {
     Preconditions.checkArgument(!built, "No further changes are allowed after the builder has built the column.");
     Preconditions.checkElementIndex(row, data.position());
     data.put(row, value);
+    clearNull(row);
   }
 
   @Override
@@ -149,7 +159,10 @@ public final class IntColumnBuilder extends ColumnBuilder<Integer> {
   public IntColumnBuilder forkNewBuilder() {
     int[] arr = new int[data.array().length];
     System.arraycopy(data.array(), 0, arr, 0, data.position());
-    return new IntColumnBuilder((IntBuffer) IntBuffer.wrap(arr).position(data.position()).limit(data.limit()));
+    IntColumnBuilder builder =
+        new IntColumnBuilder((IntBuffer) IntBuffer.wrap(arr).position(data.position()).limit(data.limit()));
+    builder.setNulls(copyNulls());
+    return builder;
   }
 
 }
\ No newline at end of file
@@ -63,7 +63,10 @@ public final class LongColumnBuilder extends ColumnBuilder<Long> {
     for (int i = 0; i < numTuples; i++) {
       newData.put(dataBytes.getLong());
     }
-    return new LongColumnBuilder(newData).build();
+    LongColumnBuilder builder =
+        new LongColumnBuilder(newData);
+    builder.setNulls(nullsFromProtobuf(message));
+    return builder.build();
   }
 
   @Override
@@ -82,13 +85,22 @@ public final class LongColumnBuilder extends ColumnBuilder<Long> {
   public ColumnBuilder<Long> appendFromJdbc(final ResultSet resultSet, final int jdbcIndex) throws SQLException,
       BufferOverflowException {
     Preconditions.checkArgument(!built, "No further changes are allowed after the builder has built the column.");
-    return appendLong(resultSet.getLong(jdbcIndex));
+    long value = resultSet.getLong(jdbcIndex);
+    if (resultSet.wasNull()) {
+      appendNull();
+      return this;
+    }
+    return appendLong(value);
   }
 
   @Override
   public ColumnBuilder<Long> appendFromSQLite(final SQLiteStatement statement, final int index) throws SQLiteException,
       BufferOverflowException {
     Preconditions.checkArgument(!built, "No further changes are allowed after the builder has built the column.");
+    if (statement.columnNull(index)) {
+      appendNull();
+      return this;
+    }
     return appendLong(statement.columnLong(index));
   }
 
@@ -107,13 +119,13 @@ public final class LongColumnBuilder extends ColumnBuilder<Long> {
   @Override
   public LongColumn build() {
     built = true;
-    return new LongColumn(data.array(), data.position());
+    return new LongColumn(data.array(), data.position(), getNulls());
   }
 
   @Override
   public LongMutableColumn buildMutable() {
     built = true;
-    return new LongMutableColumn(data.array(), data.position());
+    return new LongMutableColumn(data.array(), data.position(), getNulls());
   }
 
   @Override
@@ -121,6 +133,7 @@ public final class LongColumnBuilder extends ColumnBuilder<Long> {
     Preconditions.checkArgument(!built, "No further changes are allowed after the builder has built the column.");
     Preconditions.checkElementIndex(row, data.position());
     data.put(row, value);
+    clearNull(row);
   }
 
   @Override
@@ -153,7 +166,10 @@ public final class LongColumnBuilder extends ColumnBuilder<Long> {
   public LongColumnBuilder forkNewBuilder() {
     long[] arr = new long[data.array().length];
     System.arraycopy(data.array(), 0, arr, 0, arr.length);
-    return new LongColumnBuilder((LongBuffer) LongBuffer.wrap(arr).position(data.position()).limit(data.limit()));
+    LongColumnBuilder builder =
+        new LongColumnBuilder((LongBuffer) LongBuffer.wrap(arr).position(data.position()).limit(data.limit()));
+    builder.setNulls(copyNulls());
+    return builder;
   }
 
 }
\ No newline at end of file
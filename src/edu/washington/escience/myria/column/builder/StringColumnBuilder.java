@@ -6,13 +6,17 @@ import java.sql.SQLException;
 import java.util.List;
 import java.util.Objects;
 
+import javax.annotation.Nullable;
+
 import com.almworks.sqlite4java.SQLiteException;
 import com.almworks.sqlite4java.SQLiteStatement;
 import com.google.common.base.Preconditions;
 
 import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.column.DictionaryStringColumn;
 import edu.washington.escience.myria.column.StringArrayColumn;
 import edu.washington.escience.myria.column.StringColumn;
+import edu.washington.escience.myria.column.StringDictionary;
 import edu.washington.escience.myria.column.mutable.StringMutableColumn;
 import edu.washington.escience.myria.proto.DataProto.ColumnMessage;
 import edu.washington.escience.myria.proto.DataProto.StringColumnMessage;
@@ -31,6 +35,14 @@ public final class StringColumnBuilder extends ColumnBuilder<String> {
   private final String[] data;
   /** Number of elements in this column. */
   private int numStrings;
+  /** The dictionary that values are encoded with, or null if they are not encoded. */
+  private StringDictionary dictionary;
+  /** The code of each value, or null once a value could not be encoded. */
+  private int[] codes;
+  /**
+   * True if the dictionary belongs to another writer, so that only values appended with their code in it are encoded.
+   */
+  private boolean borrowedDictionary;
 
   /**
    * If the builder has built the column.
@@ -39,8 +51,22 @@ public final class StringColumnBuilder extends ColumnBuilder<String> {
 
   /** Constructs an empty column that can hold up to TupleBatch.BATCH_SIZE elements. */
   public StringColumnBuilder() {
+    this(null);
+  }
+
+  /**
+   * Constructs an empty column that can hold up to TupleBatch.BATCH_SIZE elements and encodes them with the specified
+   * dictionary. If the dictionary fills up before the column does, the column is built without encoding.
+   * 
+   * @param dictionary the dictionary to encode values with, or null to not encode them.
+   */
+  public StringColumnBuilder(@Nullable final StringDictionary dictionary) {
     numStrings = 0;
     data = new String[TupleBatch.BATCH_SIZE];
+    this.dictionary = dictionary;
+    if (dictionary != null) {
+      codes = new int[TupleBatch.BATCH_SIZE];
+    }
   }
 
   /**
@@ -48,10 +74,41 @@ public final class StringColumnBuilder extends ColumnBuilder<String> {
    * 
    * @param numStrings the actual num strings in the data
    * @param data the underlying data
+   * @param dictionary the dictionary the data is encoded with, or null.
+   * @param codes the codes of the data, or null.
+   * @param borrowedDictionary true if the dictionary belongs to another writer.
    * */
-  private StringColumnBuilder(final String[] data, final int numStrings) {
+  private StringColumnBuilder(final String[] data, final int numStrings, @Nullable final StringDictionary dictionary,
+      @Nullable final int[] codes, final boolean borrowedDictionary) {
     this.numStrings = numStrings;
     this.data = data;
+    this.dictionary = dictionary;
+    this.codes = codes;
+    this.borrowedDictionary = borrowedDictionary;
+  }
+
+  /**
+   * Encode the specified value as the value of the specified row. Stops encoding if the dictionary is full.
+   * 
+   * @param value the value.
+   * @param row the row.
+   * @return the value to store, which is the dictionary's instance of it if it was encoded.
+   */
+  private String encode(final String value, final int row) {
+    if (codes == null) {
+      return value;
+    }
+    if (borrowedDictionary) {
+      codes = null;
+      return value;
+    }
+    int code = dictionary.encode(value);
+    if (code < 0) {
+      codes = null;
+      return value;
+    }
+    codes[row] = code;
+    return dictionary.values()[code];
   }
 
   /**
@@ -73,7 +130,9 @@ public final class StringColumnBuilder extends ColumnBuilder<String> {
     for (int i = 0; i < numTuples; i++) {
       newData[i] = allStrings.substring(startIndices.get(i), endIndices.get(i));
     }
-    return new StringColumnBuilder(newData, numTuples).build();
+    StringColumnBuilder builder = new StringColumnBuilder(newData, numTuples, null, null, false);
+    builder.setNulls(nullsFromProtobuf(message));
+    return builder.build();
   }
 
   @Override
@@ -83,10 +142,77 @@ public final class StringColumnBuilder extends ColumnBuilder<String> {
     if (numStrings >= TupleBatch.BATCH_SIZE) {
       throw new BufferOverflowException();
     }
-    data[numStrings++] = value;
+    data[numStrings] = encode(value, numStrings);
+    numStrings++;
     return this;
   }
 
+  /**
+   * Append a value that is already encoded with the specified dictionary. An empty builder without a dictionary of its
+   * own borrows the dictionary, so that a buffer of values copied from dictionary-encoded columns, like the hash table
+   * of a join, keeps their codes. The borrowed dictionary is never written to, and only compared by identity.
+   * 
+   * @param value the value.
+   * @param valueDictionary the dictionary the value is encoded with.
+   * @param code the code of the value in valueDictionary.
+   * @return this column builder.
+   * @throws BufferOverflowException if the column is already full
+   */
+  public StringColumnBuilder appendEncoded(final String value, final StringDictionary valueDictionary, final int code)
+      throws BufferOverflowException {
+    Preconditions.checkState(!built, "No further changes are allowed after the builder has built the column.");
+    Objects.requireNonNull(value, "value");
+    Objects.requireNonNull(valueDictionary, "valueDictionary");
+    if (numStrings == 0 && dictionary == null) {
+      dictionary = valueDictionary;
+      codes = new int[TupleBatch.BATCH_SIZE];
+      borrowedDictionary = true;
+    }
+    if (codes == null || dictionary != valueDictionary) {
+      return appendString(value);
+    }
+    if (numStrings >= TupleBatch.BATCH_SIZE) {
+      throw new BufferOverflowException();
+    }
+    data[numStrings] = value;
+    codes[numStrings] = code;
+    numStrings++;
+    return this;
+  }
+
+  @Override
+  public StringColumnBuilder appendNull() throws BufferOverflowException {
+    if (!borrowedDictionary) {
+      super.appendNull();
+      return this;
+    }
+    /* The placeholder is not in the borrowed dictionary, but null rows are never compared by their codes. */
+    final int row = numStrings;
+    appendEncoded("", dictionary, -1);
+    replaceNull(row);
+    return this;
+  }
+
+  /**
+   * @return the dictionary that every value of this builder is encoded with, or null if some value is not encoded.
+   */
+  @Nullable
+  public StringDictionary getDictionary() {
+    if (codes == null) {
+      return null;
+    }
+    return dictionary;
+  }
+
+  /**
+   * @param row the row.
+   * @return the code of the value at the specified row, if {@link #getDictionary()} is not null.
+   */
+  public int getCode(final int row) {
+    Preconditions.checkState(codes != null, "the values are not encoded");
+    return codes[Preconditions.checkElementIndex(row, numStrings)];
+  }
+
   @Override
   public Type getType() {
     return Type.STRING_TYPE;
@@ -96,13 +222,22 @@ public final class StringColumnBuilder extends ColumnBuilder<String> {
   public StringColumnBuilder appendFromJdbc(final ResultSet resultSet, final int jdbcIndex) throws SQLException,
       BufferOverflowException {
     Preconditions.checkState(!built, "No further changes are allowed after the builder has built the column.");
-    return appendString(resultSet.getString(jdbcIndex));
+    String value = resultSet.getString(jdbcIndex);
+    if (resultSet.wasNull()) {
+      appendNull();
+      return this;
+    }
+    return appendString(value);
   }
 
   @Override
   public StringColumnBuilder appendFromSQLite(final SQLiteStatement statement, final int index) throws SQLiteException,
       BufferOverflowException {
     Preconditions.checkState(!built, "No further changes are allowed after the builder has built the column.");
+    if (statement.columnNull(index)) {
+      appendNull();
+      return this;
+    }
     return appendString(statement.columnString(index));
   }
 
@@ -114,13 +249,20 @@ public final class StringColumnBuilder extends ColumnBuilder<String> {
   @Override
   public StringColumn build() {
     built = true;
-    return new StringArrayColumn(data, numStrings);
+    /* The snapshot of a borrowed dictionary cannot be read safely, and the codes of null rows are not valid. */
+    if (codes != null && !borrowedDictionary) {
+      return new DictionaryStringColumn(codes, numStrings, dictionary, getNulls());
+    }
+    return new StringArrayColumn(data, numStrings, getNulls());
   }
 
   @Override
   public StringMutableColumn buildMutable() {
     built = true;
-    return new StringMutableColumn(data, numStrings);
+    if (codes != null) {
+      return new StringMutableColumn(data, numStrings, getNulls(), dictionary, codes);
+    }
+    return new StringMutableColumn(data, numStrings, getNulls());
   }
 
   @Override
@@ -128,7 +270,8 @@ public final class StringColumnBuilder extends ColumnBuilder<String> {
     Preconditions.checkState(!built, "No further changes are allowed after the builder has built the column.");
     Preconditions.checkElementIndex(row, numStrings);
     Objects.requireNonNull(value, "value");
-    data[row] = value;
+    data[row] = encode(value, row);
+    clearNull(row);
   }
 
   @Override
@@ -139,6 +282,8 @@ public final class StringColumnBuilder extends ColumnBuilder<String> {
       throw new BufferOverflowException();
     }
     numStrings += size;
+    /* The expanded rows have no codes. */
+    codes = null;
     return this;
   }
 
@@ -146,6 +291,7 @@ public final class StringColumnBuilder extends ColumnBuilder<String> {
   public StringColumnBuilder expandAll() {
     Preconditions.checkState(!built, "No further changes are allowed after the builder has built the column.");
     numStrings = data.length;
+    codes = null;
     return this;
   }
 
@@ -171,7 +317,15 @@ public final class StringColumnBuilder extends ColumnBuilder<String> {
   public StringColumnBuilder forkNewBuilder() {
     String[] newData = new String[data.length];
     System.arraycopy(data, 0, newData, 0, numStrings);
-    return new StringColumnBuilder(newData, numStrings);
+    int[] newCodes = null;
+    if (codes != null) {
+      newCodes = new int[codes.length];
+      System.arraycopy(codes, 0, newCodes, 0, numStrings);
+    }
+    StringColumnBuilder builder =
+        new StringColumnBuilder(newData, numStrings, dictionary, newCodes, borrowedDictionary);
+    builder.setNulls(copyNulls());
+    return builder;
   }
 
 }
\ No newline at end of file
@@ -83,4 +83,12 @@ public interface WritableColumn {
    */
   WritableColumn appendString(final String value) throws BufferOverflowException;
 
+  /**
+   * Inserts a null at end of this column.
+   * 
+   * @return this column.
+   * @throws BufferOverflowException if exceeds buffer up bound.
+   */
+  WritableColumn appendNull() throws BufferOverflowException;
+
 }
\ No newline at end of file
@@ -2,6 +2,8 @@ package edu.washington.escience.myria.column.mutable;
 
 import java.util.BitSet;
 
+import javax.annotation.Nullable;
+
 import com.google.common.base.Preconditions;
 
 import edu.washington.escience.myria.Type;
@@ -25,6 +27,16 @@ public class BooleanMutableColumn extends MutableColumn<Boolean> {
    * @param size the size of this column;
    * */
   public BooleanMutableColumn(final BitSet data, final int size) {
+    this(data, size, null);
+  }
+
+  /**
+   * @param data the data
+   * @param size the size of this column;
+   * @param nulls the rows of the column that are null, or null if no row is.
+   * */
+  public BooleanMutableColumn(final BitSet data, final int size, @Nullable final BitSet nulls) {
+    super(nulls);
     this.data = new ImmutableBitSet(data);
     numBits = size;
   }
@@ -69,15 +81,16 @@ public class BooleanMutableColumn extends MutableColumn<Boolean> {
   public void replaceBoolean(final boolean value, final int row) {
     Preconditions.checkElementIndex(row, size());
     data.set(row, value);
+    clearNull(row);
   }
 
   @Override
   public BooleanColumn toColumn() {
-    return new BooleanColumn((BitSet) data.clone(), numBits);
+    return new BooleanColumn((BitSet) data.clone(), numBits, copyNulls());
   }
 
   @Override
   public BooleanMutableColumn clone() {
-    return new BooleanMutableColumn((BitSet) data.clone(), numBits);
+    return new BooleanMutableColumn((BitSet) data.clone(), numBits, copyNulls());
   }
 }
\ No newline at end of file
@@ -1,6 +1,11 @@
 package edu.washington.escience.myria.column.mutable;
 
+import java.util.BitSet;
+
+import javax.annotation.Nullable;
+
 import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
 
 import com.google.common.base.Preconditions;
 
@@ -14,20 +19,37 @@ import edu.washington.escience.myria.column.DateTimeColumn;
 public final class DateTimeMutableColumn extends MutableColumn<DateTime> {
   /** Required for Java serialization. */
   private static final long serialVersionUID = 1L;
-  /** Internal representation of the column data. */
-  private final DateTime[] data;
+  /** Internal representation of the column data, in milliseconds since the epoch. */
+  private final long[] data;
   /** The number of existing rows in this column. */
   private final int position;
+  /** The time zone of the values of this column, or null for the default time zone. */
+  private final DateTimeZone zone;
 
   /**
    * Constructs a new column.
    * 
-   * @param data the data
+   * @param data the data, in milliseconds since the epoch
    * @param numData number of tuples.
    * */
-  public DateTimeMutableColumn(final DateTime[] data, final int numData) {
+  public DateTimeMutableColumn(final long[] data, final int numData) {
+    this(data, numData, null, null);
+  }
+
+  /**
+   * Constructs a new column.
+   * 
+   * @param data the data, in milliseconds since the epoch
+   * @param numData number of tuples.
+   * @param zone the time zone of the values, or null for the default time zone.
+   * @param nulls the rows of the column that are null, or null if no row is.
+   * */
+  public DateTimeMutableColumn(final long[] data, final int numData, @Nullable final DateTimeZone zone,
+      @Nullable final BitSet nulls) {
+    super(nulls);
     this.data = data;
     position = numData;
+    this.zone = zone;
   }
 
   @Override
@@ -38,6 +60,12 @@ public final class DateTimeMutableColumn extends MutableColumn<DateTime> {
 
   @Override
   public DateTime getDateTime(final int row) {
+    Preconditions.checkElementIndex(row, position);
+    return new DateTime(data[row], zone);
+  }
+
+  @Override
+  public long getLong(final int row) {
     Preconditions.checkElementIndex(row, position);
     return data[row];
   }
@@ -60,7 +88,7 @@ public final class DateTimeMutableColumn extends MutableColumn<DateTime> {
       if (i > 0) {
         sb.append(", ");
       }
-      sb.append(data[i]);
+      sb.append(getDateTime(i));
     }
     sb.append(']');
     return sb.toString();
@@ -69,16 +97,17 @@ public final class DateTimeMutableColumn extends MutableColumn<DateTime> {
   @Override
   public void replaceDateTime(final DateTime value, final int row) {
     Preconditions.checkElementIndex(row, size());
-    data[row] = value;
+    data[row] = value.getMillis();
+    clearNull(row);
   }
 
   @Override
   public DateTimeColumn toColumn() {
-    return new DateTimeColumn(data.clone(), position);
+    return new DateTimeColumn(data.clone(), position, zone, copyNulls());
   }
 
   @Override
   public DateTimeMutableColumn clone() {
-    return new DateTimeMutableColumn(data.clone(), position);
+    return new DateTimeMutableColumn(data.clone(), position, zone, copyNulls());
   }
 }
\ No newline at end of file
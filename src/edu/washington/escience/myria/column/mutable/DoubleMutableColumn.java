@@ -1,5 +1,9 @@
 package edu.washington.escience.myria.column.mutable;
 
+import java.util.BitSet;
+
+import javax.annotation.Nullable;
+
 import com.google.common.base.Preconditions;
 
 import edu.washington.escience.myria.Type;
@@ -25,6 +29,18 @@ public final class DoubleMutableColumn extends MutableColumn<Double> {
    * @param numData number of tuples.
    * */
   public DoubleMutableColumn(final double[] data, final int numData) {
+    this(data, numData, null);
+  }
+
+  /**
+   * Constructs a new column.
+   * 
+   * @param data the data
+   * @param numData number of tuples.
+   * @param nulls the rows of the column that are null, or null if no row is.
+   * */
+  public DoubleMutableColumn(final double[] data, final int numData, @Nullable final BitSet nulls) {
+    super(nulls);
     Preconditions.checkNotNull(data);
     Preconditions.checkArgument(numData <= TupleBatch.BATCH_SIZE);
     this.data = data;
@@ -71,15 +87,16 @@ public final class DoubleMutableColumn extends MutableColumn<Double> {
   public void replaceDouble(final double value, final int row) {
     Preconditions.checkElementIndex(row, size());
     data[row] = value;
+    clearNull(row);
   }
 
   @Override
   public DoubleColumn toColumn() {
-    return new DoubleColumn(data.clone(), position);
+    return new DoubleColumn(data.clone(), position, copyNulls());
   }
 
   @Override
   public DoubleMutableColumn clone() {
-    return new DoubleMutableColumn(data.clone(), position);
+    return new DoubleMutableColumn(data.clone(), position, copyNulls());
   }
 }
\ No newline at end of file
@@ -0,0 +1,73 @@
+package edu.washington.escience.myria.column.mutable;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.util.BitSet;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Preconditions;
+
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.column.DoubleColumn;
+import edu.washington.escience.myria.storage.OffHeapMemoryManager;
+
+/**
+ * A mutable column of Double values stored off-heap.
+ */
+public final class DoubleOffHeapMutableColumn extends OffHeapMutableColumn<Double> {
+  /** Required for Java serialization. */
+  private static final long serialVersionUID = 1L;
+  /** View of the buffer as double values. */
+  private final transient DoubleBuffer data;
+
+  /**
+   * Constructs a new column.
+   * 
+   * @param buffer the buffer holding the values, allocated from memory.
+   * @param numData number of tuples.
+   * @param memory the manager that allocated the buffer.
+   * @param nulls the rows of the column that are null, or null if no row is.
+   */
+  public DoubleOffHeapMutableColumn(final ByteBuffer buffer, final int numData, final OffHeapMemoryManager memory,
+      @Nullable final BitSet nulls) {
+    super(buffer, numData, memory, nulls);
+    data = buffer.asDoubleBuffer();
+  }
+
+  @Deprecated
+  @Override
+  public Double getObject(final int row) {
+    return Double.valueOf(getDouble(row));
+  }
+
+  @Override
+  public Type getType() {
+    return Type.DOUBLE_TYPE;
+  }
+
+  @Override
+  public double getDouble(final int row) {
+    return data.get(Preconditions.checkElementIndex(row, size()));
+  }
+
+  @Override
+  public void replaceDouble(final double value, final int row) {
+    data.put(Preconditions.checkElementIndex(row, size()), value);
+    clearNull(row);
+  }
+
+  @Override
+  public DoubleColumn toColumn() {
+    final double[] values = new double[size()];
+    final DoubleBuffer source = data.duplicate();
+    source.clear();
+    source.get(values);
+    return new DoubleColumn(values, size(), copyNulls());
+  }
+
+  @Override
+  public DoubleOffHeapMutableColumn clone() {
+    return new DoubleOffHeapMutableColumn(copyBuffer(), size(), getMemory(), copyNulls());
+  }
+}
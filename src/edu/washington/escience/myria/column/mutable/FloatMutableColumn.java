@@ -1,5 +1,9 @@
 package edu.washington.escience.myria.column.mutable;
 
+import java.util.BitSet;
+
+import javax.annotation.Nullable;
+
 import com.google.common.base.Preconditions;
 
 import edu.washington.escience.myria.Type;
@@ -25,6 +29,18 @@ public final class FloatMutableColumn extends MutableColumn<Float> {
    * @param numData number of tuples.
    * */
   public FloatMutableColumn(final float[] data, final int numData) {
+    this(data, numData, null);
+  }
+
+  /**
+   * Constructs a new column.
+   * 
+   * @param data the underlying data
+   * @param numData number of tuples.
+   * @param nulls the rows of the column that are null, or null if no row is.
+   * */
+  public FloatMutableColumn(final float[] data, final int numData, @Nullable final BitSet nulls) {
+    super(nulls);
     Preconditions.checkNotNull(data);
     Preconditions.checkArgument(numData <= TupleBatch.BATCH_SIZE);
     this.data = data;
@@ -71,15 +87,16 @@ public final class FloatMutableColumn extends MutableColumn<Float> {
   public void replaceFloat(final float value, final int row) {
     Preconditions.checkElementIndex(row, size());
     data[row] = value;
+    clearNull(row);
   }
 
   @Override
   public FloatColumn toColumn() {
-    return new FloatColumn(data.clone(), position);
+    return new FloatColumn(data.clone(), position, copyNulls());
   }
 
   @Override
   public FloatMutableColumn clone() {
-    return new FloatMutableColumn(data.clone(), position);
+    return new FloatMutableColumn(data.clone(), position, copyNulls());
   }
 }
\ No newline at end of file
@@ -0,0 +1,73 @@
+package edu.washington.escience.myria.column.mutable;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.BitSet;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Preconditions;
+
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.column.FloatColumn;
+import edu.washington.escience.myria.storage.OffHeapMemoryManager;
+
+/**
+ * A mutable column of Float values stored off-heap.
+ */
+public final class FloatOffHeapMutableColumn extends OffHeapMutableColumn<Float> {
+  /** Required for Java serialization. */
+  private static final long serialVersionUID = 1L;
+  /** View of the buffer as float values. */
+  private final transient FloatBuffer data;
+
+  /**
+   * Constructs a new column.
+   * 
+   * @param buffer the buffer holding the values, allocated from memory.
+   * @param numData number of tuples.
+   * @param memory the manager that allocated the buffer.
+   * @param nulls the rows of the column that are null, or null if no row is.
+   */
+  public FloatOffHeapMutableColumn(final ByteBuffer buffer, final int numData, final OffHeapMemoryManager memory,
+      @Nullable final BitSet nulls) {
+    super(buffer, numData, memory, nulls);
+    data = buffer.asFloatBuffer();
+  }
+
+  @Deprecated
+  @Override
+  public Float getObject(final int row) {
+    return Float.valueOf(getFloat(row));
+  }
+
+  @Override
+  public Type getType() {
+    return Type.FLOAT_TYPE;
+  }
+
+  @Override
+  public float getFloat(final int row) {
+    return data.get(Preconditions.checkElementIndex(row, size()));
+  }
+
+  @Override
+  public void replaceFloat(final float value, final int row) {
+    data.put(Preconditions.checkElementIndex(row, size()), value);
+    clearNull(row);
+  }
+
+  @Override
+  public FloatColumn toColumn() {
+    final float[] values = new float[size()];
+    final FloatBuffer source = data.duplicate();
+    source.clear();
+    source.get(values);
+    return new FloatColumn(values, size(), copyNulls());
+  }
+
+  @Override
+  public FloatOffHeapMutableColumn clone() {
+    return new FloatOffHeapMutableColumn(copyBuffer(), size(), getMemory(), copyNulls());
+  }
+}
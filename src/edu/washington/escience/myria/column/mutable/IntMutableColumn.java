@@ -1,5 +1,9 @@
 package edu.washington.escience.myria.column.mutable;
 
+import java.util.BitSet;
+
+import javax.annotation.Nullable;
+
 import com.google.common.base.Preconditions;
 
 import edu.washington.escience.myria.Type;
@@ -24,6 +28,18 @@ public final class IntMutableColumn extends MutableColumn<Integer> {
    * @param numData number of tuples.
    * */
   public IntMutableColumn(final int[] data, final int numData) {
+    this(data, numData, null);
+  }
+
+  /**
+   * Constructs a new column.
+   * 
+   * @param data the data
+   * @param numData number of tuples.
+   * @param nulls the rows of the column that are null, or null if no row is.
+   * */
+  public IntMutableColumn(final int[] data, final int numData, @Nullable final BitSet nulls) {
+    super(nulls);
     this.data = data;
     position = numData;
   }
@@ -68,15 +84,16 @@ public final class IntMutableColumn extends MutableColumn<Integer> {
   public void replaceInt(final int value, final int row) {
     Preconditions.checkElementIndex(row, size());
     data[row] = value;
+    clearNull(row);
   }
 
   @Override
   public IntArrayColumn toColumn() {
-    return new IntArrayColumn(data.clone(), position);
+    return new IntArrayColumn(data.clone(), position, copyNulls());
   }
 
   @Override
   public IntMutableColumn clone() {
-    return new IntMutableColumn(data.clone(), position);
+    return new IntMutableColumn(data.clone(), position, copyNulls());
   }
 }
\ No newline at end of file
@@ -0,0 +1,73 @@
+package edu.washington.escience.myria.column.mutable;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.BitSet;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Preconditions;
+
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.column.IntArrayColumn;
+import edu.washington.escience.myria.storage.OffHeapMemoryManager;
+
+/**
+ * A mutable column of Int values stored off-heap.
+ */
+public final class IntOffHeapMutableColumn extends OffHeapMutableColumn<Integer> {
+  /** Required for Java serialization. */
+  private static final long serialVersionUID = 1L;
+  /** View of the buffer as int values. */
+  private final transient IntBuffer data;
+
+  /**
+   * Constructs a new column.
+   * 
+   * @param buffer the buffer holding the values, allocated from memory.
+   * @param numData number of tuples.
+   * @param memory the manager that allocated the buffer.
+   * @param nulls the rows of the column that are null, or null if no row is.
+   */
+  public IntOffHeapMutableColumn(final ByteBuffer buffer, final int numData, final OffHeapMemoryManager memory,
+      @Nullable final BitSet nulls) {
+    super(buffer, numData, memory, nulls);
+    data = buffer.asIntBuffer();
+  }
+
+  @Deprecated
+  @Override
+  public Integer getObject(final int row) {
+    return Integer.valueOf(getInt(row));
+  }
+
+  @Override
+  public Type getType() {
+    return Type.INT_TYPE;
+  }
+
+  @Override
+  public int getInt(final int row) {
+    return data.get(Preconditions.checkElementIndex(row, size()));
+  }
+
+  @Override
+  public void replaceInt(final int value, final int row) {
+    data.put(Preconditions.checkElementIndex(row, size()), value);
+    clearNull(row);
+  }
+
+  @Override
+  public IntArrayColumn toColumn() {
+    final int[] values = new int[size()];
+    final IntBuffer source = data.duplicate();
+    source.clear();
+    source.get(values);
+    return new IntArrayColumn(values, size(), copyNulls());
+  }
+
+  @Override
+  public IntOffHeapMutableColumn clone() {
+    return new IntOffHeapMutableColumn(copyBuffer(), size(), getMemory(), copyNulls());
+  }
+}
@@ -1,5 +1,9 @@
 package edu.washington.escience.myria.column.mutable;
 
+import java.util.BitSet;
+
+import javax.annotation.Nullable;
+
 import com.google.common.base.Preconditions;
 
 import edu.washington.escience.myria.Type;
@@ -24,6 +28,18 @@ public final class LongMutableColumn extends MutableColumn<Long> {
    * @param numData number of tuples.
    * */
   public LongMutableColumn(final long[] data, final int numData) {
+    this(data, numData, null);
+  }
+
+  /**
+   * Constructs a new column.
+   * 
+   * @param data the data
+   * @param numData number of tuples.
+   * @param nulls the rows of the column that are null, or null if no row is.
+   * */
+  public LongMutableColumn(final long[] data, final int numData, @Nullable final BitSet nulls) {
+    super(nulls);
     this.data = data;
     position = numData;
   }
@@ -68,15 +84,16 @@ public final class LongMutableColumn extends MutableColumn<Long> {
   public void replaceLong(final long value, final int row) {
     Preconditions.checkElementIndex(row, size());
     data[row] = value;
+    clearNull(row);
   }
 
   @Override
   public LongColumn toColumn() {
-    return new LongColumn(data.clone(), position);
+    return new LongColumn(data.clone(), position, copyNulls());
   }
 
   @Override
   public LongMutableColumn clone() {
-    return new LongMutableColumn(data.clone(), position);
+    return new LongMutableColumn(data.clone(), position, copyNulls());
   }
 }
\ No newline at end of file
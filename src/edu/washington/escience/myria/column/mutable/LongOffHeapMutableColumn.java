@@ -0,0 +1,73 @@
+package edu.washington.escience.myria.column.mutable;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.BitSet;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Preconditions;
+
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.column.LongColumn;
+import edu.washington.escience.myria.storage.OffHeapMemoryManager;
+
+/**
+ * A mutable column of Long values stored off-heap.
+ */
+public final class LongOffHeapMutableColumn extends OffHeapMutableColumn<Long> {
+  /** Required for Java serialization. */
+  private static final long serialVersionUID = 1L;
+  /** View of the buffer as long values. */
+  private final transient LongBuffer data;
+
+  /**
+   * Constructs a new column.
+   * 
+   * @param buffer the buffer holding the values, allocated from memory.
+   * @param numData number of tuples.
+   * @param memory the manager that allocated the buffer.
+   * @param nulls the rows of the column that are null, or null if no row is.
+   */
+  public LongOffHeapMutableColumn(final ByteBuffer buffer, final int numData, final OffHeapMemoryManager memory,
+      @Nullable final BitSet nulls) {
+    super(buffer, numData, memory, nulls);
+    data = buffer.asLongBuffer();
+  }
+
+  @Deprecated
+  @Override
+  public Long getObject(final int row) {
+    return Long.valueOf(getLong(row));
+  }
+
+  @Override
+  public Type getType() {
+    return Type.LONG_TYPE;
+  }
+
+  @Override
+  public long getLong(final int row) {
+    return data.get(Preconditions.checkElementIndex(row, size()));
+  }
+
+  @Override
+  public void replaceLong(final long value, final int row) {
+    data.put(Preconditions.checkElementIndex(row, size()), value);
+    clearNull(row);
+  }
+
+  @Override
+  public LongColumn toColumn() {
+    final long[] values = new long[size()];
+    final LongBuffer source = data.duplicate();
+    source.clear();
+    source.get(values);
+    return new LongColumn(values, size(), copyNulls());
+  }
+
+  @Override
+  public LongOffHeapMutableColumn clone() {
+    return new LongOffHeapMutableColumn(copyBuffer(), size(), getMemory(), copyNulls());
+  }
+}
@@ -1,11 +1,15 @@
 package edu.washington.escience.myria.column.mutable;
 
 import java.io.Serializable;
+import java.util.BitSet;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import org.joda.time.DateTime;
 
+import com.google.common.base.Preconditions;
+
 import edu.washington.escience.myria.Type;
 import edu.washington.escience.myria.column.Column;
 import edu.washington.escience.myria.storage.ReadableColumn;
@@ -23,6 +27,57 @@ public abstract class MutableColumn<T extends Comparable<?>> implements Cloneabl
   /** Required for Java serialization. */
   private static final long serialVersionUID = 1L;
 
+  /** The rows of this column that are null, or null if no row has been null yet. */
+  private BitSet nulls;
+
+  /** Constructs a column without nulls. */
+  protected MutableColumn() {
+    this(null);
+  }
+
+  /**
+   * @param nulls the rows of this column that are null, or null if no row is. Not copied.
+   */
+  protected MutableColumn(@Nullable final BitSet nulls) {
+    this.nulls = nulls;
+  }
+
+  @Override
+  public boolean isNull(final int row) {
+    return nulls != null && nulls.get(row);
+  }
+
+  @Override
+  public void replaceNull(final int row) {
+    Preconditions.checkElementIndex(row, size());
+    if (nulls == null) {
+      nulls = new BitSet();
+    }
+    nulls.set(row);
+  }
+
+  /**
+   * Marks the specified row as not null. Called by the typed replace methods of the subclasses.
+   * 
+   * @param row the row.
+   */
+  protected final void clearNull(final int row) {
+    if (nulls != null) {
+      nulls.clear(row);
+    }
+  }
+
+  /**
+   * @return a copy of the null rows of this column, or null if no row is null.
+   */
+  @Nullable
+  protected final BitSet copyNulls() {
+    if (nulls == null) {
+      return null;
+    }
+    return (BitSet) nulls.clone();
+  }
+
   @Override
   public boolean getBoolean(final int row) {
     throw new UnsupportedOperationException(getClass().getName());
@@ -103,6 +158,12 @@ public abstract class MutableColumn<T extends Comparable<?>> implements Cloneabl
     throw new UnsupportedOperationException(getClass().getName());
   }
 
+  /**
+   * Release the resources held by this column, if any. The column must not be used afterwards.
+   */
+  public void release() {
+  }
+
   /**
    * return the column representation of this mutable column. It copies data.
    * 
@@ -0,0 +1,172 @@
+package edu.washington.escience.myria.column.mutable;
+
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Preconditions;
+
+import edu.washington.escience.myria.storage.OffHeapMemoryManager;
+import edu.washington.escience.myria.storage.ReadableColumn;
+
+/**
+ * A mutable column whose values are stored in a direct buffer allocated from an {@link OffHeapMemoryManager}. Only the
+ * fixed-width types are supported.
+ * 
+ * @param <T> type of the objects in this column.
+ */
+public abstract class OffHeapMutableColumn<T extends Comparable<?>> extends MutableColumn<T> {
+  /** Required for Java serialization. */
+  private static final long serialVersionUID = 1L;
+  /** The buffer holding the values. Direct buffers cannot be serialized. */
+  private final transient ByteBuffer buffer;
+  /** The manager that allocated the buffer. */
+  private final transient OffHeapMemoryManager memory;
+  /** The number of existing rows in this column. */
+  private final int position;
+  /** Whether the buffer has been returned to the manager. */
+  private boolean released;
+
+  /**
+   * @param buffer the buffer holding the values, allocated from memory.
+   * @param numData number of tuples.
+   * @param memory the manager that allocated the buffer.
+   * @param nulls the rows of the column that are null, or null if no row is.
+   */
+  protected OffHeapMutableColumn(final ByteBuffer buffer, final int numData, final OffHeapMemoryManager memory,
+      @Nullable final BitSet nulls) {
+    super(nulls);
+    this.buffer = Preconditions.checkNotNull(buffer, "buffer");
+    this.memory = Preconditions.checkNotNull(memory, "memory");
+    position = numData;
+  }
+
+  /**
+   * Copy the contents of the specified column into a new off-heap column.
+   * 
+   * @param source the column to copy.
+   * @param memory the manager to allocate the new column from.
+   * @return the new column, or null if the type of the column cannot be stored off-heap.
+   */
+  @Nullable
+  public static MutableColumn<?> copyOf(final ReadableColumn source, final OffHeapMemoryManager memory) {
+    final int numData = source.size();
+    ByteBuffer buffer;
+    switch (source.getType()) {
+      case DOUBLE_TYPE:
+        buffer = memory.allocate(numData * Double.SIZE / Byte.SIZE);
+        for (int i = 0; i < numData; ++i) {
+          buffer.putDouble(i * Double.SIZE / Byte.SIZE, source.getDouble(i));
+        }
+        return new DoubleOffHeapMutableColumn(buffer, numData, memory, copyNulls(source));
+      case FLOAT_TYPE:
+        buffer = memory.allocate(numData * Float.SIZE / Byte.SIZE);
+        for (int i = 0; i < numData; ++i) {
+          buffer.putFloat(i * Float.SIZE / Byte.SIZE, source.getFloat(i));
+        }
+        return new FloatOffHeapMutableColumn(buffer, numData, memory, copyNulls(source));
+      case INT_TYPE:
+        buffer = memory.allocate(numData * Integer.SIZE / Byte.SIZE);
+        for (int i = 0; i < numData; ++i) {
+          buffer.putInt(i * Integer.SIZE / Byte.SIZE, source.getInt(i));
+        }
+        return new IntOffHeapMutableColumn(buffer, numData, memory, copyNulls(source));
+      case LONG_TYPE:
+        buffer = memory.allocate(numData * Long.SIZE / Byte.SIZE);
+        for (int i = 0; i < numData; ++i) {
+          buffer.putLong(i * Long.SIZE / Byte.SIZE, source.getLong(i));
+        }
+        return new LongOffHeapMutableColumn(buffer, numData, memory, copyNulls(source));
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * @param source a column.
+   * @return the null rows of the column, or null if no row is null.
+   */
+  @Nullable
+  private static BitSet copyNulls(final ReadableColumn source) {
+    BitSet nulls = null;
+    for (int i = 0; i < source.size(); ++i) {
+      if (source.isNull(i)) {
+        if (nulls == null) {
+          nulls = new BitSet();
+        }
+        nulls.set(i);
+      }
+    }
+    return nulls;
+  }
+
+  /**
+   * @return the buffer holding the values of this column.
+   */
+  protected final ByteBuffer getBuffer() {
+    Preconditions.checkState(!released, "column has been released");
+    return buffer;
+  }
+
+  /**
+   * @return the manager that allocated the buffer of this column.
+   */
+  protected final OffHeapMemoryManager getMemory() {
+    return memory;
+  }
+
+  /**
+   * @return a new buffer from the same manager holding a copy of the values of this column.
+   */
+  protected final ByteBuffer copyBuffer() {
+    final ByteBuffer source = getBuffer().duplicate();
+    source.clear();
+    final ByteBuffer copy = memory.allocate(source.capacity());
+    copy.put(source);
+    copy.clear();
+    return copy;
+  }
+
+  @Override
+  public final int size() {
+    return position;
+  }
+
+  @Override
+  public final void release() {
+    if (!released) {
+      released = true;
+      memory.release(buffer);
+    }
+  }
+
+  @Override
+  public final String toString() {
+    final StringBuilder sb = new StringBuilder();
+    sb.append(size()).append(" elements: [");
+    for (int i = 0; i < size(); ++i) {
+      if (i > 0) {
+        sb.append(", ");
+      }
+      switch (getType()) {
+        case DOUBLE_TYPE:
+          sb.append(getDouble(i));
+          break;
+        case FLOAT_TYPE:
+          sb.append(getFloat(i));
+          break;
+        case INT_TYPE:
+          sb.append(getInt(i));
+          break;
+        case LONG_TYPE:
+          sb.append(getLong(i));
+          break;
+        default:
+          throw new IllegalStateException("type " + getType() + " is not stored off-heap");
+      }
+    }
+    sb.append(']');
+    return sb.toString();
+  }
+}
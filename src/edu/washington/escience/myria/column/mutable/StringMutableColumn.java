@@ -1,10 +1,15 @@
 package edu.washington.escience.myria.column.mutable;
 
+import java.util.BitSet;
+
+import javax.annotation.Nullable;
+
 import com.google.common.base.Preconditions;
 
 import edu.washington.escience.myria.Type;
 import edu.washington.escience.myria.column.StringArrayColumn;
 import edu.washington.escience.myria.column.StringColumn;
+import edu.washington.escience.myria.column.StringDictionary;
 
 /**
  * A mutable column of String values.
@@ -17,6 +22,10 @@ public final class StringMutableColumn extends MutableColumn<String> {
   private final String[] data;
   /** Number of elements in this column. */
   private final int numStrings;
+  /** The dictionary that the codes refer to. Not serialized, since codes are only comparable within one process. */
+  private final transient StringDictionary dictionary;
+  /** The code of each row, or null if the values are not encoded. */
+  private int[] codes;
 
   /**
    * Constructs a new column.
@@ -25,8 +34,56 @@ public final class StringMutableColumn extends MutableColumn<String> {
    * @param numStrings number of tuples.
    * */
   public StringMutableColumn(final String[] data, final int numStrings) {
+    this(data, numStrings, null);
+  }
+
+  /**
+   * Constructs a new column.
+   * 
+   * @param data the data
+   * @param numStrings number of tuples.
+   * @param nulls the rows of the column that are null, or null if no row is.
+   * */
+  public StringMutableColumn(final String[] data, final int numStrings, @Nullable final BitSet nulls) {
+    this(data, numStrings, nulls, null, null);
+  }
+
+  /**
+   * Constructs a new column whose values are encoded with a dictionary.
+   * 
+   * @param data the data
+   * @param numStrings number of tuples.
+   * @param nulls the rows of the column that are null, or null if no row is.
+   * @param dictionary the dictionary that the codes refer to, or null if the values are not encoded.
+   * @param codes the code of each non-null row, or null if the values are not encoded.
+   * */
+  public StringMutableColumn(final String[] data, final int numStrings, @Nullable final BitSet nulls,
+      @Nullable final StringDictionary dictionary, @Nullable final int[] codes) {
+    super(nulls);
     this.data = data;
     this.numStrings = numStrings;
+    this.dictionary = dictionary;
+    this.codes = codes;
+  }
+
+  /**
+   * @return the dictionary that every value of this column is encoded with, or null if some value is not encoded.
+   */
+  @Nullable
+  public StringDictionary getDictionary() {
+    if (codes == null) {
+      return null;
+    }
+    return dictionary;
+  }
+
+  /**
+   * @param row the row.
+   * @return the code of the value at the specified row, if {@link #getDictionary()} is not null.
+   */
+  public int getCode(final int row) {
+    Preconditions.checkState(codes != null, "the values are not encoded");
+    return codes[Preconditions.checkElementIndex(row, numStrings)];
   }
 
   @Deprecated
@@ -69,15 +126,22 @@ public final class StringMutableColumn extends MutableColumn<String> {
   public void replaceString(final String value, final int row) {
     Preconditions.checkElementIndex(row, size());
     data[row] = value;
+    /* The replacement has no code. */
+    codes = null;
+    clearNull(row);
   }
 
   @Override
   public StringColumn toColumn() {
-    return new StringArrayColumn(data.clone(), numStrings);
+    return new StringArrayColumn(data.clone(), numStrings, copyNulls());
   }
 
   @Override
   public StringMutableColumn clone() {
-    return new StringMutableColumn(data.clone(), numStrings);
+    int[] newCodes = null;
+    if (codes != null) {
+      newCodes = codes.clone();
+    }
+    return new StringMutableColumn(data.clone(), numStrings, copyNulls(), dictionary, newCodes);
   }
 }
\ No newline at end of file
@@ -41,6 +41,7 @@ import edu.washington.escience.myria.Schema;
 import edu.washington.escience.myria.Type;
 import edu.washington.escience.myria.api.MyriaJsonMapperProvider;
 import edu.washington.escience.myria.api.encoding.DatasetStatus;
+import edu.washington.escience.myria.api.encoding.MaterializedViewEncoding;
 import edu.washington.escience.myria.api.encoding.QueryEncoding;
 import edu.washington.escience.myria.api.encoding.QueryStatusEncoding;
 import edu.washington.escience.myria.api.encoding.plan.SubPlanEncoding;
@@ -136,6 +137,18 @@ public final class MasterCatalog {
     + "    stored_relation_id INTEGER NOT NULL REFERENCES stored_relations ON DELETE CASCADE,\n"
     + "    shard_index INTEGER NOT NULL,\n"
     + "    worker_id INTEGER NOT NULL REFERENCES workers);";
+  /** Create the materialized_views table, if missing from a catalog created before materialized views. */
+  private static final String CREATE_MATERIALIZED_VIEWS =
+      "CREATE TABLE IF NOT EXISTS materialized_views (\n"
+    + "    user_name TEXT NOT NULL,\n"
+    + "    program_name TEXT NOT NULL,\n"
+    + "    relation_name TEXT NOT NULL,\n"
+    + "    base_user_name TEXT NOT NULL,\n"
+    + "    base_program_name TEXT NOT NULL,\n"
+    + "    base_relation_name TEXT NOT NULL,\n"
+    + "    definition TEXT NOT NULL,\n"
+    + "    base_query_id INTEGER, -- VERSION OF THE BASE RELATION THE VIEW IS UP TO DATE WITH, NULL IF NONE \n"
+    + "    PRIMARY KEY (user_name,program_name,relation_name));";
   /** Create the stored_relations table. */
   private static final String UPDATE_UNKNOWN_STATUS =
       "UPDATE queries "
@@ -209,6 +222,7 @@ public final class MasterCatalog {
             sqliteConnection.exec(CREATE_RELATION_SCHEMA_INDEX);
             sqliteConnection.exec(CREATE_STORED_RELATIONS);
             sqliteConnection.exec(CREATE_SHARDS);
+            sqliteConnection.exec(CREATE_MATERIALIZED_VIEWS);
             sqliteConnection.exec("END TRANSACTION");
           } catch (final SQLiteException e) {
             sqliteConnection.exec("ROLLBACK TRANSACTION");
@@ -289,6 +303,7 @@ public final class MasterCatalog {
           sqliteConnection.exec("BEGIN EXCLUSIVE;");
           sqliteConnection.exec("COMMIT;");
           sqliteConnection.exec(UPDATE_UNKNOWN_STATUS);
+          sqliteConnection.exec(CREATE_MATERIALIZED_VIEWS);
           return null;
         }
       }).get();
@@ -1822,4 +1837,227 @@ public final class MasterCatalog {
       throw new CatalogException(e);
     }
   }
+
+  /**
+   * Add or replace a materialized view. The view is not up to date with any version of its base relation.
+   * 
+   * @param view the definition of the view.
+   * @throws CatalogException if there is an error
+   */
+  public void addMaterializedView(final MaterializedViewEncoding view) throws CatalogException {
+    Objects.requireNonNull(view, "view");
+    if (isClosed) {
+      throw new CatalogException("Catalog is closed.");
+    }
+    final String definition;
+    try {
+      definition = MyriaJsonMapperProvider.getMapper().writeValueAsString(view);
+    } catch (JsonProcessingException e) {
+      throw new CatalogException(e);
+    }
+
+    /* Do the work */
+    try {
+      queue.execute(new SQLiteJob<Void>() {
+        @Override
+        protected Void job(final SQLiteConnection sqliteConnection) throws CatalogException, SQLiteException {
+          try {
+            SQLiteStatement statement =
+                sqliteConnection.prepare("INSERT OR REPLACE INTO materialized_views (user_name, program_name, "
+                    + "relation_name, base_user_name, base_program_name, base_relation_name, definition) "
+                    + "VALUES (?,?,?,?,?,?,?);");
+            statement.bind(1, view.relationKey.getUserName());
+            statement.bind(2, view.relationKey.getProgramName());
+            statement.bind(3, view.relationKey.getRelationName());
+            statement.bind(4, view.baseRelationKey.getUserName());
+            statement.bind(5, view.baseRelationKey.getProgramName());
+            statement.bind(6, view.baseRelationKey.getRelationName());
+            statement.bind(7, definition);
+            statement.stepThrough();
+            statement.dispose();
+            statement = null;
+          } catch (final SQLiteException e) {
+            throw new CatalogException(e);
+          }
+          return null;
+        }
+      }).get();
+    } catch (InterruptedException | ExecutionException e) {
+      throw new CatalogException(e);
+    }
+  }
+
+  /**
+   * @param relationKey the relation storing the view.
+   * @return the definition of the view, or null if the relation is not a materialized view.
+   * @throws CatalogException if there is an error
+   */
+  public MaterializedViewEncoding getMaterializedView(final RelationKey relationKey) throws CatalogException {
+    Objects.requireNonNull(relationKey, "relationKey");
+    if (isClosed) {
+      throw new CatalogException("Catalog is closed.");
+    }
+
+    /* Do the work */
+    final String definition;
+    try {
+      definition = queue.execute(new SQLiteJob<String>() {
+        @Override
+        protected String job(final SQLiteConnection sqliteConnection) throws CatalogException, SQLiteException {
+          try {
+            SQLiteStatement statement =
+                sqliteConnection.prepare("SELECT definition FROM materialized_views "
+                    + "WHERE user_name=? AND program_name=? AND relation_name=?;");
+            statement.bind(1, relationKey.getUserName());
+            statement.bind(2, relationKey.getProgramName());
+            statement.bind(3, relationKey.getRelationName());
+            String ret = null;
+            if (statement.step()) {
+              ret = statement.columnString(0);
+            }
+            statement.dispose();
+            return ret;
+          } catch (final SQLiteException e) {
+            throw new CatalogException(e);
+          }
+        }
+      }).get();
+    } catch (InterruptedException | ExecutionException e) {
+      throw new CatalogException(e);
+    }
+    if (definition == null) {
+      return null;
+    }
+    try {
+      return MyriaJsonMapperProvider.getMapper().readValue(definition, MaterializedViewEncoding.class);
+    } catch (IOException e) {
+      throw new CatalogException(e);
+    }
+  }
+
+  /**
+   * @param baseRelationKey a relation.
+   * @return the materialized views of the relation.
+   * @throws CatalogException if there is an error
+   */
+  public List<RelationKey> getMaterializedViewsOf(final RelationKey baseRelationKey) throws CatalogException {
+    Objects.requireNonNull(baseRelationKey, "baseRelationKey");
+    if (isClosed) {
+      throw new CatalogException("Catalog is closed.");
+    }
+
+    /* Do the work */
+    try {
+      return queue.execute(new SQLiteJob<List<RelationKey>>() {
+        @Override
+        protected List<RelationKey> job(final SQLiteConnection sqliteConnection) throws CatalogException,
+            SQLiteException {
+          try {
+            SQLiteStatement statement =
+                sqliteConnection.prepare("SELECT user_name, program_name, relation_name FROM materialized_views "
+                    + "WHERE base_user_name=? AND base_program_name=? AND base_relation_name=?;");
+            statement.bind(1, baseRelationKey.getUserName());
+            statement.bind(2, baseRelationKey.getProgramName());
+            statement.bind(3, baseRelationKey.getRelationName());
+            ImmutableList.Builder<RelationKey> result = ImmutableList.builder();
+            while (statement.step()) {
+              result.add(RelationKey.of(statement.columnString(0), statement.columnString(1), statement
+                  .columnString(2)));
+            }
+            statement.dispose();
+            return result.build();
+          } catch (final SQLiteException e) {
+            throw new CatalogException(e);
+          }
+        }
+      }).get();
+    } catch (InterruptedException | ExecutionException e) {
+      throw new CatalogException(e);
+    }
+  }
+
+  /**
+   * @param relationKey the relation storing the view.
+   * @return the query that wrote the version of the base relation the view is up to date with, i.e., the view
+   *         reflects that version and the tuples appended to it since, or null if the view must be recomputed.
+   * @throws CatalogException if there is an error
+   */
+  public Long getMaterializedViewBaseQueryId(final RelationKey relationKey) throws CatalogException {
+    Objects.requireNonNull(relationKey, "relationKey");
+    if (isClosed) {
+      throw new CatalogException("Catalog is closed.");
+    }
+
+    /* Do the work */
+    try {
+      return queue.execute(new SQLiteJob<Long>() {
+        @Override
+        protected Long job(final SQLiteConnection sqliteConnection) throws CatalogException, SQLiteException {
+          try {
+            SQLiteStatement statement =
+                sqliteConnection.prepare("SELECT base_query_id FROM materialized_views "
+                    + "WHERE user_name=? AND program_name=? AND relation_name=?;");
+            statement.bind(1, relationKey.getUserName());
+            statement.bind(2, relationKey.getProgramName());
+            statement.bind(3, relationKey.getRelationName());
+            Long ret = null;
+            if (statement.step() && !statement.columnNull(0)) {
+              ret = statement.columnLong(0);
+            }
+            statement.dispose();
+            return ret;
+          } catch (final SQLiteException e) {
+            throw new CatalogException(e);
+          }
+        }
+      }).get();
+    } catch (InterruptedException | ExecutionException e) {
+      throw new CatalogException(e);
+    }
+  }
+
+  /**
+   * Record the version of the base relation that a materialized view is up to date with.
+   * 
+   * @param relationKey the relation storing the view.
+   * @param baseQueryId the query that wrote the version of the base relation, or null if the view must be recomputed.
+   * @throws CatalogException if there is an error
+   */
+  public void setMaterializedViewBaseQueryId(final RelationKey relationKey, @Nullable final Long baseQueryId)
+      throws CatalogException {
+    Objects.requireNonNull(relationKey, "relationKey");
+    if (isClosed) {
+      throw new CatalogException("Catalog is closed.");
+    }
+
+    /* Do the work */
+    try {
+      queue.execute(new SQLiteJob<Void>() {
+        @Override
+        protected Void job(final SQLiteConnection sqliteConnection) throws CatalogException, SQLiteException {
+          try {
+            SQLiteStatement statement =
+                sqliteConnection.prepare("UPDATE materialized_views SET base_query_id=? "
+                    + "WHERE user_name=? AND program_name=? AND relation_name=?;");
+            if (baseQueryId != null) {
+              statement.bind(1, baseQueryId);
+            } else {
+              statement.bindNull(1);
+            }
+            statement.bind(2, relationKey.getUserName());
+            statement.bind(3, relationKey.getProgramName());
+            statement.bind(4, relationKey.getRelationName());
+            statement.stepThrough();
+            statement.dispose();
+            statement = null;
+          } catch (final SQLiteException e) {
+            throw new CatalogException(e);
+          }
+          return null;
+        }
+      }).get();
+    } catch (InterruptedException | ExecutionException e) {
+      throw new CatalogException(e);
+    }
+  }
 }
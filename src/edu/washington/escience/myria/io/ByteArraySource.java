@@ -13,7 +13,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
  * A data source that simply wraps a byte array. Note that this does NOT copy the specified array, so the caller MUST
  * NOT mutate it.
  */
-public class ByteArraySource implements DataSource, Serializable {
+public class ByteArraySource implements RangedDataSource, Serializable {
 
   /** Required for Java serialization. */
   private static final long serialVersionUID = 1L;
@@ -36,4 +36,15 @@ public class ByteArraySource implements DataSource, Serializable {
   public InputStream getInputStream() throws IOException {
     return new ByteArrayInputStream(bytes);
   }
+
+  @Override
+  public long size() {
+    return bytes.length;
+  }
+
+  @Override
+  public InputStream getInputStream(final long start, final long length) throws IOException {
+    int offset = (int) Math.min(start, bytes.length);
+    return new ByteArrayInputStream(bytes, offset, (int) Math.min(length, bytes.length - offset));
+  }
 }
\ No newline at end of file
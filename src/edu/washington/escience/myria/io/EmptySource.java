@@ -9,10 +9,20 @@ import java.io.InputStream;
  * 
  * @author whitaker
  */
-public class EmptySource implements DataSource {
+public class EmptySource implements RangedDataSource {
 
   @Override
   public InputStream getInputStream() throws IOException {
     return new ByteArrayInputStream(new byte[0]);
   }
+
+  @Override
+  public long size() {
+    return 0;
+  }
+
+  @Override
+  public InputStream getInputStream(final long start, final long length) throws IOException {
+    return getInputStream();
+  }
 }
@@ -4,15 +4,21 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.Objects;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.io.ByteStreams;
 
 /**
  * A data source that pulls data from local file.
  */
-public class FileSource implements DataSource, Serializable {
+public class FileSource implements RangedDataSource, Serializable {
   /** Required for Java serialization. */
   private static final long serialVersionUID = 1L;
   /** The filename. */
@@ -34,6 +40,18 @@ public class FileSource implements DataSource, Serializable {
     return new FileInputStream(filename);
   }
 
+  @Override
+  public long size() throws IOException {
+    return Files.size(Paths.get(filename));
+  }
+
+  @Override
+  public InputStream getInputStream(final long start, final long length) throws IOException {
+    FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+    channel.position(start);
+    return ByteStreams.limit(Channels.newInputStream(channel), length);
+  }
+
   /**
    * @return the local file that this FileSource references.
    */
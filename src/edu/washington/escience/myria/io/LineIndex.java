@@ -0,0 +1,93 @@
+package edu.washington.escience.myria.io;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A sparse index of the lines of a text file: the offset of every stride-th line. Seeking to a line moves to the
+ * closest indexed line before it and skips at most stride lines, instead of reading the file from its start.
+ *
+ * Building the index reads the whole file once, in bulk. The index is only kept in memory, by the scan that built it.
+ */
+public final class LineIndex {
+
+  /** The default number of lines between indexed offsets. */
+  private static final int DEFAULT_STRIDE = 4096;
+  /** The size of the buffer used to find the line breaks. */
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  /** The number of lines between indexed offsets. */
+  private final int stride;
+  /** offsets[k] is the offset of line k * stride. */
+  private final long[] offsets;
+
+  /**
+   * @param stride the number of lines between indexed offsets.
+   * @param offsets offsets[k] is the offset of line k * stride.
+   */
+  private LineIndex(final int stride, final long[] offsets) {
+    this.stride = stride;
+    this.offsets = offsets;
+  }
+
+  /**
+   * Build the index of a file with the default stride. The position of the input is left at the end of the file.
+   *
+   * @param input the file.
+   * @return the index of its lines.
+   * @throws IOException if the file cannot be read.
+   */
+  public static LineIndex of(final MappedFileInput input) throws IOException {
+    return build(input, DEFAULT_STRIDE);
+  }
+
+  /**
+   * Build the index of a file by reading it from its start. The position of the input is left at the end of the file.
+   *
+   * @param input the file.
+   * @param stride the number of lines between indexed offsets.
+   * @return the index of its lines.
+   * @throws IOException if the file cannot be read.
+   */
+  static LineIndex build(final MappedFileInput input, final int stride) throws IOException {
+    Preconditions.checkArgument(stride > 0, "stride must be positive");
+    long[] offsets = new long[16];
+    int numOffsets = 1;
+    long line = 0;
+    byte[] buffer = new byte[BUFFER_SIZE];
+    input.seek(0);
+    for (long start = 0; start < input.size(); start += buffer.length) {
+      int length = (int) Math.min(buffer.length, input.size() - start);
+      input.readFully(buffer, 0, length);
+      for (int i = 0; i < length; ++i) {
+        if (buffer[i] == '\n' && ++line % stride == 0) {
+          if (numOffsets == offsets.length) {
+            offsets = Arrays.copyOf(offsets, numOffsets * 2);
+          }
+          offsets[numOffsets++] = start + i + 1;
+        }
+      }
+    }
+    return new LineIndex(stride, Arrays.copyOf(offsets, numOffsets));
+  }
+
+  /**
+   * Move the input to the start of a line.
+   *
+   * @param input the indexed file.
+   * @param line the line, counting from 0.
+   * @throws IOException if the file has fewer lines.
+   */
+  public void seek(final MappedFileInput input, final long line) throws IOException {
+    Preconditions.checkArgument(line >= 0, "line must be non-negative");
+    int k = (int) Math.min(line / stride, offsets.length - 1);
+    input.seek(offsets[k]);
+    for (long skipped = (long) k * stride; skipped < line;) {
+      if (input.readByte() == '\n') {
+        ++skipped;
+      }
+    }
+  }
+}
@@ -0,0 +1,214 @@
+package edu.washington.escience.myria.io;
+
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A big-endian {@link DataInput} over a memory-mapped file, i.e., it reads what a {@link java.io.DataOutputStream}
+ * wrote. Bulk reads with {@link #readFully(byte[], int, int)} copy straight from the page cache, without a system call
+ * or an intermediate buffer per read. The file is mapped one window at a time, so files larger than a single mapping
+ * can be read.
+ */
+public final class MappedFileInput implements DataInput, Closeable {
+
+  /** The default size of a mapped window, 1 GB. */
+  private static final long DEFAULT_WINDOW_SIZE = 1L << 30;
+
+  /** The file. */
+  private final FileChannel channel;
+  /** The size of the file. */
+  private final long size;
+  /** The maximum size of a mapped window. */
+  private final long windowSize;
+  /** The mapped window. */
+  private MappedByteBuffer window;
+  /** The offset in the file of the window. */
+  private long windowStart;
+
+  /**
+   * @param path the file to read.
+   * @throws IOException if the file cannot be opened or mapped.
+   */
+  public MappedFileInput(final Path path) throws IOException {
+    this(path, DEFAULT_WINDOW_SIZE);
+  }
+
+  /**
+   * @param path the file to read.
+   * @param windowSize the maximum size of a mapped window, at least 8 bytes so that any primitive fits in one window.
+   * @throws IOException if the file cannot be opened or mapped.
+   */
+  public MappedFileInput(final Path path, final long windowSize) throws IOException {
+    Preconditions.checkArgument(windowSize >= Long.SIZE / Byte.SIZE, "window size must be at least 8 bytes");
+    this.windowSize = windowSize;
+    channel = FileChannel.open(path, StandardOpenOption.READ);
+    size = channel.size();
+    map(0);
+  }
+
+  /**
+   * Map the window that starts at the specified offset.
+   *
+   * @param position the offset in the file.
+   * @throws IOException if the mapping fails.
+   */
+  private void map(final long position) throws IOException {
+    windowStart = position;
+    window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowSize, size - position));
+  }
+
+  /**
+   * @return the offset in the file of the next byte to read.
+   */
+  public long position() {
+    return windowStart + window.position();
+  }
+
+  /**
+   * Move to the specified offset in the file, remapping only if it is outside the current window.
+   *
+   * @param position the offset in the file of the next byte to read.
+   * @throws IOException if the mapping fails.
+   */
+  public void seek(final long position) throws IOException {
+    Preconditions.checkArgument(position >= 0 && position <= size, "position %s is outside the file", position);
+    if (position >= windowStart && position - windowStart <= window.limit()) {
+      window.position((int) (position - windowStart));
+    } else {
+      map(position);
+    }
+  }
+
+  /**
+   * @return the size of the file.
+   */
+  public long size() {
+    return size;
+  }
+
+  /**
+   * @param n a number of bytes, at most the window size.
+   * @return the window, with at least n bytes remaining.
+   * @throws IOException if the file has fewer than n bytes left.
+   */
+  private ByteBuffer require(final int n) throws IOException {
+    if (window.remaining() < n) {
+      long position = position();
+      if (position + n > size) {
+        throw new EOFException();
+      }
+      map(position);
+    }
+    return window;
+  }
+
+  @Override
+  public void readFully(final byte[] b) throws IOException {
+    readFully(b, 0, b.length);
+  }
+
+  @Override
+  public void readFully(final byte[] b, final int off, final int len) throws IOException {
+    Preconditions.checkPositionIndexes(off, off + len, b.length);
+    if (position() + len > size) {
+      throw new EOFException();
+    }
+    int done = 0;
+    while (done < len) {
+      if (!window.hasRemaining()) {
+        map(position());
+      }
+      int n = Math.min(len - done, window.remaining());
+      window.get(b, off + done, n);
+      done += n;
+    }
+  }
+
+  @Override
+  public int skipBytes(final int n) throws IOException {
+    long target = Math.min(size, position() + Math.max(n, 0));
+    int skipped = (int) (target - position());
+    seek(target);
+    return skipped;
+  }
+
+  @Override
+  public boolean readBoolean() throws IOException {
+    return require(1).get() != 0;
+  }
+
+  @Override
+  public byte readByte() throws IOException {
+    return require(1).get();
+  }
+
+  @Override
+  public int readUnsignedByte() throws IOException {
+    return require(1).get() & 0xFF;
+  }
+
+  @Override
+  public short readShort() throws IOException {
+    return require(2).getShort();
+  }
+
+  @Override
+  public int readUnsignedShort() throws IOException {
+    return require(2).getShort() & 0xFFFF;
+  }
+
+  @Override
+  public char readChar() throws IOException {
+    return require(2).getChar();
+  }
+
+  @Override
+  public int readInt() throws IOException {
+    return require(4).getInt();
+  }
+
+  @Override
+  public long readLong() throws IOException {
+    return require(8).getLong();
+  }
+
+  @Override
+  public float readFloat() throws IOException {
+    return require(4).getFloat();
+  }
+
+  @Override
+  public double readDouble() throws IOException {
+    return require(8).getDouble();
+  }
+
+  @Override
+  public String readLine() throws IOException {
+    throw new UnsupportedOperationException("readLine is deprecated in DataInput");
+  }
+
+  @Override
+  public String readUTF() throws IOException {
+    return DataInputStream.readUTF(this);
+  }
+
+  /**
+   * Close the file. The last window stays mapped until it is garbage collected.
+   *
+   * @throws IOException if closing the file fails.
+   */
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+}
@@ -0,0 +1,208 @@
+package edu.washington.escience.myria.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Preconditions;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import edu.washington.escience.myria.MyriaConstants;
+
+/**
+ * Reads a byte range of a {@link RangedDataSource} as fixed-size chunks, several of which are read ahead in parallel
+ * while the consumer parses the current one. The chunks are returned in order, so the stream reads like a plain
+ * sequential stream of the range.
+ *
+ * The chunks are read by a shared executor, e.g., the worker's, and into buffers that the stream recycles once their
+ * chunk has been consumed, so a stream allocates at most numChunks + 1 buffers whatever the length of the range.
+ */
+public final class PrefetchingInputStream extends InputStream {
+
+  /** The executor used when none is given, e.g., when a scan is not executed by a worker. */
+  private static final ExecutorService DEFAULT_EXECUTOR = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+      .setNameFormat("Prefetching reader#%d").setDaemon(true).build());
+
+  /** A chunk read into a buffer. */
+  private static final class Chunk {
+    /** The buffer. */
+    private final byte[] buffer;
+    /** The number of bytes read into the buffer. */
+    private final int length;
+
+    /**
+     * @param buffer the buffer.
+     * @param length the number of bytes read into the buffer.
+     */
+    Chunk(final byte[] buffer, final int length) {
+      this.buffer = buffer;
+      this.length = length;
+    }
+  }
+
+  /** The data source. */
+  private final RangedDataSource source;
+  /** The offset after the last byte to read. */
+  private final long end;
+  /** The size of a chunk. */
+  private final int chunkSize;
+  /** The executor that reads the chunks. */
+  private final ExecutorService executor;
+  /** The chunks being read, in order. */
+  private final Deque<Future<Chunk>> chunks;
+  /** The buffers of the consumed chunks, to read the next chunks into. */
+  private final Deque<byte[]> freeBuffers;
+  /** The offset of the first chunk that has not been submitted yet. */
+  private long nextChunkStart;
+  /** The chunk being consumed. */
+  private Chunk current = new Chunk(new byte[0], 0);
+  /** The position of the next byte in {@link #current}. */
+  private int position = 0;
+
+  /**
+   * Read the specified range with the default chunk size and read-ahead.
+   *
+   * @param source the data source.
+   * @param start the offset of the first byte to read.
+   * @param length the number of bytes to read.
+   * @param executor the executor that reads the chunks, or null to use one shared by the whole process.
+   * @see MyriaConstants#PREFETCH_CHUNK_SIZE
+   * @see MyriaConstants#PREFETCH_NUM_CHUNKS
+   */
+  public PrefetchingInputStream(final RangedDataSource source, final long start, final long length,
+      @Nullable final ExecutorService executor) {
+    this(source, start, length, MyriaConstants.PREFETCH_CHUNK_SIZE, MyriaConstants.PREFETCH_NUM_CHUNKS, executor);
+  }
+
+  /**
+   * @param source the data source.
+   * @param start the offset of the first byte to read.
+   * @param length the number of bytes to read.
+   * @param chunkSize the number of bytes in a chunk.
+   * @param numChunks the number of chunks read ahead in parallel.
+   * @param executor the executor that reads the chunks, or null to use one shared by the whole process.
+   */
+  public PrefetchingInputStream(final RangedDataSource source, final long start, final long length,
+      final int chunkSize, final int numChunks, @Nullable final ExecutorService executor) {
+    Preconditions.checkArgument(start >= 0 && length >= 0, "invalid range [%s, %s + %s)", start, start, length);
+    Preconditions.checkArgument(chunkSize > 0 && numChunks > 0, "chunkSize and numChunks must be positive");
+    this.source = Preconditions.checkNotNull(source, "source");
+    this.chunkSize = chunkSize;
+    end = start + length;
+    nextChunkStart = start;
+    if (executor == null) {
+      this.executor = DEFAULT_EXECUTOR;
+    } else {
+      this.executor = executor;
+    }
+    chunks = new ArrayDeque<Future<Chunk>>(numChunks);
+    freeBuffers = new ArrayDeque<byte[]>(numChunks + 1);
+    for (int i = 0; i < numChunks; ++i) {
+      submitNextChunk();
+    }
+  }
+
+  /**
+   * Start reading the next chunk of the range, if any.
+   */
+  private void submitNextChunk() {
+    if (nextChunkStart >= end) {
+      return;
+    }
+    final long chunkStart = nextChunkStart;
+    final int length = (int) Math.min(chunkSize, end - chunkStart);
+    nextChunkStart += length;
+    byte[] free = freeBuffers.poll();
+    if (free == null) {
+      free = new byte[chunkSize];
+    }
+    final byte[] buffer = free;
+    chunks.add(executor.submit(new Callable<Chunk>() {
+      @Override
+      public Chunk call() throws IOException {
+        try (InputStream in = source.getInputStream(chunkStart, length)) {
+          return new Chunk(buffer, ByteStreams.read(in, buffer, 0, length));
+        }
+      }
+    }));
+  }
+
+  /**
+   * Move to the next chunk that holds data.
+   *
+   * @return false if there are no more bytes.
+   * @throws IOException if reading the chunk failed.
+   */
+  private boolean nextChunk() throws IOException {
+    while (position == current.length) {
+      Future<Chunk> chunk = chunks.poll();
+      if (chunk == null) {
+        return false;
+      }
+      if (current.buffer.length == chunkSize) {
+        freeBuffers.add(current.buffer);
+      }
+      submitNextChunk();
+      try {
+        current = chunk.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException();
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof IOException) {
+          throw (IOException) e.getCause();
+        }
+        throw new IOException(e.getCause());
+      }
+      position = 0;
+    }
+    return true;
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (!nextChunk()) {
+      return -1;
+    }
+    return current.buffer[position++] & 0xFF;
+  }
+
+  @Override
+  public int read(final byte[] b, final int off, final int len) throws IOException {
+    Preconditions.checkPositionIndexes(off, off + len, b.length);
+    if (len == 0) {
+      return 0;
+    }
+    if (!nextChunk()) {
+      return -1;
+    }
+    int n = Math.min(len, current.length - position);
+    System.arraycopy(current.buffer, position, b, off, n);
+    position += n;
+    return n;
+  }
+
+  @Override
+  public int available() {
+    return current.length - position;
+  }
+
+  @Override
+  public void close() {
+    for (Future<Chunk> chunk : chunks) {
+      chunk.cancel(true);
+    }
+    chunks.clear();
+    freeBuffers.clear();
+  }
+}
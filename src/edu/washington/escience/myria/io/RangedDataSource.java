@@ -0,0 +1,26 @@
+package edu.washington.escience.myria.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A {@link DataSource} that knows its size and can read any byte range of its data, so that several readers, e.g.,
+ * several workers, or the threads of a {@link PrefetchingInputStream}, can each read a part of it.
+ */
+public interface RangedDataSource extends DataSource {
+  /**
+   * @return the number of bytes in the data source.
+   * @throws IOException if there is an error discovering the size.
+   */
+  long size() throws IOException;
+
+  /**
+   * Returns an {@link InputStream} providing read access to the specified range of bytes in the data source.
+   *
+   * @param start the offset of the first byte to read.
+   * @param length the number of bytes to read. The stream ends early if the data source does.
+   * @return an {@link InputStream} providing read access to the specified range of bytes.
+   * @throws IOException if there is an error producing the input stream.
+   */
+  InputStream getInputStream(long start, long length) throws IOException;
+}
@@ -11,20 +11,25 @@ import java.util.List;
 import java.util.Objects;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.io.ByteStreams;
 
 /**
  * A data source that pulls data from a specified URI. The URI may be: a path on the local file system; an HDFS link; a
  * web link; an AWS link; and perhaps more.
  * 
  * If the URI points to a directory, all files in that directory will be concatenated into a single {@link InputStream}.
+ *
+ * Ranged reads seek in the underlying files, e.g., with positional reads on the local file system or HDFS. The files
+ * are resolved once, by the first read, so the files matching the URI should not change while it is read.
  */
-public class UriSource implements DataSource, Serializable {
+public class UriSource implements RangedDataSource, Serializable {
 
   /** Required for Java serialization. */
   private static final long serialVersionUID = 1L;
@@ -34,6 +39,10 @@ public class UriSource implements DataSource, Serializable {
   /** The Uniform Resource Indicator (URI) of the data source. */
   @JsonProperty
   private final String uri;
+  /** The file system of the URI, resolved on first use. */
+  private transient FileSystem fileSystem;
+  /** The files that the URI matches, in order, resolved on first use so that ranged reads do not glob again. */
+  private transient FileStatus[] files;
 
   /**
    * Construct a source of data from the specified URI. The URI may be: a path on the local file system; an HDFS link; a
@@ -49,20 +58,41 @@ public class UriSource implements DataSource, Serializable {
     this.uri = Objects.requireNonNull(uri, "Parameter uri to UriSource may not be null");
   }
 
-  @Override
-  public InputStream getInputStream() throws IOException {
-    // Use Hadoop's URI parsing machinery to extract an input stream for the underlying URI
-    Configuration conf = new Configuration();
-    FileSystem fs = FileSystem.get(URI.create(uri), conf);
-    Path rootPath = new Path(uri);
-    FileStatus[] statii = fs.globStatus(rootPath);
-
-    if (statii == null || statii.length == 0) {
-      throw new FileNotFoundException(uri);
+  /**
+   * @return the file system of the URI.
+   * @throws IOException if there is an error accessing the file system.
+   */
+  private synchronized FileSystem getFileSystem() throws IOException {
+    if (fileSystem == null) {
+      // Use Hadoop's URI parsing machinery to extract an input stream for the underlying URI
+      Configuration conf = new Configuration();
+      fileSystem = FileSystem.get(URI.create(uri), conf);
+    }
+    return fileSystem;
+  }
+
+  /**
+   * @return the files that the URI matches, in order.
+   * @throws IOException if there is an error accessing the file system, or no file matches.
+   */
+  private synchronized FileStatus[] getFiles() throws IOException {
+    if (files == null) {
+      Path rootPath = new Path(uri);
+      FileStatus[] statii = getFileSystem().globStatus(rootPath);
+
+      if (statii == null || statii.length == 0) {
+        throw new FileNotFoundException(uri);
+      }
+      files = statii;
     }
+    return files;
+  }
 
+  @Override
+  public InputStream getInputStream() throws IOException {
+    FileSystem fs = getFileSystem();
     List<InputStream> streams = new ArrayList<InputStream>();
-    for (FileStatus status : statii) {
+    for (FileStatus status : getFiles()) {
       Path path = status.getPath();
 
       LOGGER.debug("Incorporating input file: " + path);
@@ -71,4 +101,33 @@ public class UriSource implements DataSource, Serializable {
 
     return new SequenceInputStream(java.util.Collections.enumeration(streams));
   }
+
+  @Override
+  public long size() throws IOException {
+    long size = 0;
+    for (FileStatus status : getFiles()) {
+      size += status.getLen();
+    }
+    return size;
+  }
+
+  @Override
+  public InputStream getInputStream(final long start, final long length) throws IOException {
+    FileSystem fs = getFileSystem();
+    List<InputStream> streams = new ArrayList<InputStream>();
+    long end = start + length;
+    long fileStart = 0;
+    for (FileStatus status : getFiles()) {
+      long fileEnd = fileStart + status.getLen();
+      if (fileEnd > start && fileStart < end) {
+        long offset = Math.max(start - fileStart, 0);
+        FSDataInputStream in = fs.open(status.getPath());
+        in.seek(offset);
+        streams.add(ByteStreams.limit(in, Math.min(end, fileEnd) - fileStart - offset));
+      }
+      fileStart = fileEnd;
+    }
+
+    return new SequenceInputStream(java.util.Collections.enumeration(streams));
+  }
 }
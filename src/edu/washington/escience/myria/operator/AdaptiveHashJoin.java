@@ -0,0 +1,340 @@
+package edu.washington.escience.myria.operator;
+
+import java.util.ArrayDeque;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.gs.collections.impl.list.mutable.primitive.IntArrayList;
+import com.gs.collections.impl.map.mutable.primitive.IntObjectHashMap;
+
+import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.column.Column;
+import edu.washington.escience.myria.storage.MutableTupleBuffer;
+import edu.washington.escience.myria.storage.ReadableColumn;
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.storage.TupleBatchBuffer;
+import edu.washington.escience.myria.storage.TupleUtils;
+import edu.washington.escience.myria.util.HashUtils;
+import edu.washington.escience.myria.util.MyriaArrayUtils;
+
+/**
+ * A hash join that picks the side to build the hash table on at runtime, unlike {@link RightHashJoin}, which always
+ * builds on its right child, and {@link SymmetricHashJoin}, which builds on both.
+ *
+ * It first reads both children in turn, holding on to their batches, until one of them reaches EOS or a threshold
+ * number of tuples. The side that reached EOS, or else the side that did not reach the threshold, is the smaller one so
+ * far and becomes the build side. Its held and remaining tuples are put in the hash table, and then the held and
+ * remaining tuples of the other side probe it as they arrive. The output has the answer columns of the left child
+ * first, whichever side is built.
+ */
+public final class AdaptiveHashJoin extends BinaryOperator {
+  /** Required for Java serialization. */
+  private static final long serialVersionUID = 1L;
+
+  /** The logger for this class. */
+  private static final Logger LOGGER = LoggerFactory.getLogger(AdaptiveHashJoin.class);
+
+  /** The index of the left child. */
+  private static final int LEFT = 0;
+  /** The index of the right child. */
+  private static final int RIGHT = 1;
+
+  /** The names of the output columns. */
+  private final ImmutableList<String> outputColumns;
+  /** The join columns of each child, in order. */
+  private final int[][] compareIndx;
+  /** Which columns of each child are to be output. */
+  private final int[][] answerColumns;
+  /** The number of tuples a side must reach, before either side reaches EOS, for the other side to be built. */
+  private final long threshold;
+
+  /** The batches of each child read before the build side was picked. */
+  private transient List<ArrayDeque<TupleBatch>> held;
+  /** The number of tuples in {@link #held} for each child. */
+  private transient long[] numHeld;
+  /** The child the hash table is built on, or -1 if it is not picked yet. */
+  private transient int buildSide;
+  /** The tuples of the build side. */
+  private transient MutableTupleBuffer hashTable;
+  /** A hash table over {@link #hashTable}. {Hashcode -> List of tuple indices with the same hash code} */
+  private transient IntObjectHashMap<IntArrayList> hashTableIndices;
+  /** The buffer holding the results. */
+  private transient TupleBatchBuffer ans;
+
+  /**
+   * Construct an EquiJoin operator. It returns the specified columns from both children when the corresponding columns
+   * in compareIndx1 and compareIndx2 match.
+   *
+   * @param outputColumns the names of the columns in the output schema. If null, the corresponding columns will be
+   *          copied from the children.
+   * @param left the left child.
+   * @param right the right child.
+   * @param compareIndx1 the columns of the left child to be compared with the right. Order matters.
+   * @param compareIndx2 the columns of the right child to be compared with the left. Order matters.
+   * @param answerColumns1 the columns of the left child to be returned. Order matters.
+   * @param answerColumns2 the columns of the right child to be returned. Order matters.
+   * @param threshold the number of tuples a side must reach, before either side reaches EOS, for the other side to be
+   *          built.
+   * @throw IllegalArgumentException if there are duplicated column names in <tt>outputColumns</tt>, or if
+   *        <tt>outputColumns</tt> does not have the correct number of columns and column types.
+   */
+  public AdaptiveHashJoin(final List<String> outputColumns, final Operator left, final Operator right,
+      final int[] compareIndx1, final int[] compareIndx2, final int[] answerColumns1, final int[] answerColumns2,
+      final long threshold) {
+    super(left, right);
+    Preconditions.checkArgument(compareIndx1.length == compareIndx2.length);
+    Preconditions.checkArgument(threshold > 0, "threshold must be positive");
+    if (outputColumns != null) {
+      Preconditions.checkArgument(outputColumns.size() == answerColumns1.length + answerColumns2.length,
+          "length mismatch between output column names and columns selected for output");
+      Preconditions.checkArgument(ImmutableSet.copyOf(outputColumns).size() == outputColumns.size(),
+          "duplicate column names in outputColumns");
+      this.outputColumns = ImmutableList.copyOf(outputColumns);
+    } else {
+      this.outputColumns = null;
+    }
+    compareIndx =
+        new int[][] { MyriaArrayUtils.warnIfNotSet(compareIndx1), MyriaArrayUtils.warnIfNotSet(compareIndx2) };
+    answerColumns =
+        new int[][] { MyriaArrayUtils.warnIfNotSet(answerColumns1), MyriaArrayUtils.warnIfNotSet(answerColumns2) };
+    this.threshold = threshold;
+  }
+
+  @Override
+  protected Schema generateSchema() {
+    final Schema leftSchema = getLeft().getSchema();
+    final Schema rightSchema = getRight().getSchema();
+    ImmutableList.Builder<Type> types = ImmutableList.builder();
+    ImmutableList.Builder<String> names = ImmutableList.builder();
+
+    /* Assert that the compare index types are the same. */
+    for (int i = 0; i < compareIndx[RIGHT].length; ++i) {
+      int leftIndex = compareIndx[LEFT][i];
+      int rightIndex = compareIndx[RIGHT][i];
+      Type leftType = leftSchema.getColumnType(leftIndex);
+      Type rightType = rightSchema.getColumnType(rightIndex);
+      Preconditions.checkState(leftType == rightType,
+          "column types do not match for join at index %s: left column type %s [%s] != right column type %s [%s]", i,
+          leftIndex, leftType, rightIndex, rightType);
+    }
+
+    for (int i : answerColumns[LEFT]) {
+      types.add(leftSchema.getColumnType(i));
+      names.add(leftSchema.getColumnName(i));
+    }
+    for (int i : answerColumns[RIGHT]) {
+      types.add(rightSchema.getColumnType(i));
+      names.add(rightSchema.getColumnName(i));
+    }
+
+    if (outputColumns != null) {
+      return new Schema(types.build(), outputColumns);
+    } else {
+      return new Schema(types, names);
+    }
+  }
+
+  /**
+   * @return the child the hash table is built on, 0 for left and 1 for right, or -1 if it is not picked yet.
+   */
+  public int getBuildSide() {
+    return buildSide;
+  }
+
+  @Override
+  public void init(final ImmutableMap<String, Object> execEnvVars) throws DbException {
+    held = ImmutableList.of(new ArrayDeque<TupleBatch>(), new ArrayDeque<TupleBatch>());
+    numHeld = new long[2];
+    buildSide = -1;
+    hashTable = null;
+    hashTableIndices = new IntObjectHashMap<>();
+    ans = new TupleBatchBuffer(getSchema());
+  }
+
+  @Override
+  protected void cleanup() throws DbException {
+    held = null;
+    hashTable = null;
+    hashTableIndices = null;
+    ans = null;
+  }
+
+  @Override
+  protected TupleBatch fetchNextReady() throws DbException {
+    /* If any full tuple batches are ready, output them. */
+    TupleBatch nexttb = ans.popAnyUsingTimeout();
+    if (nexttb != null) {
+      return nexttb;
+    }
+
+    if (buildSide < 0 && !pickBuildSide()) {
+      return null;
+    }
+
+    /* Drain the build side. */
+    final Operator build = getChildren()[buildSide];
+    while (!build.eos()) {
+      TupleBatch tb = build.nextReady();
+      if (tb == null) {
+        /* The build child may have realized it's EOS now. If so, we must move onto the probe child. */
+        if (build.eos()) {
+          break;
+        }
+        return null;
+      }
+      addToHashTable(tb);
+    }
+
+    /* Probe with the held batches of the other side, then with the rest of it. */
+    final int probeSide = 1 - buildSide;
+    final Operator probe = getChildren()[probeSide];
+    while (true) {
+      TupleBatch tb = held.get(probeSide).poll();
+      if (tb == null) {
+        if (probe.eos()) {
+          break;
+        }
+        tb = probe.nextReady();
+        if (tb == null) {
+          break;
+        }
+      }
+      probe(tb, probeSide);
+      nexttb = ans.popAnyUsingTimeout();
+      if (nexttb != null) {
+        return nexttb;
+      }
+    }
+
+    if (probe.eos()) {
+      nexttb = ans.popAny();
+    }
+    return nexttb;
+  }
+
+  /**
+   * Read both children in turn until the build side can be picked, and put the tuples held from it in the hash table.
+   *
+   * @return true if the build side is picked, false if the children have no data to read.
+   * @throws DbException if a child fails.
+   */
+  private boolean pickBuildSide() throws DbException {
+    final Operator[] children = getChildren();
+    boolean progress = true;
+    while (buildSide < 0 && progress) {
+      progress = false;
+      for (int side = LEFT; side <= RIGHT && buildSide < 0; ++side) {
+        TupleBatch tb = null;
+        if (!children[side].eos()) {
+          tb = children[side].nextReady();
+        }
+        if (tb != null) {
+          progress = true;
+          held.get(side).add(tb);
+          numHeld[side] += tb.numTuples();
+          if (numHeld[side] >= threshold) {
+            buildSide = 1 - side;
+          }
+        } else if (children[side].eos()) {
+          buildSide = side;
+          if (children[1 - side].eos() && numHeld[1 - side] < numHeld[side]) {
+            buildSide = 1 - side;
+          }
+        }
+      }
+    }
+    if (buildSide < 0) {
+      return false;
+    }
+
+    LOGGER.debug("building on the {} child after reading {} left and {} right tuples", buildSide == LEFT ? "left"
+        : "right", numHeld[LEFT], numHeld[RIGHT]);
+    hashTable = new MutableTupleBuffer(children[buildSide].getSchema());
+    for (TupleBatch tb : held.get(buildSide)) {
+      addToHashTable(tb);
+    }
+    held.get(buildSide).clear();
+    return true;
+  }
+
+  /**
+   * @param tb a batch of the build side, whose tuples are to be added to the hash table.
+   */
+  private void addToHashTable(final TupleBatch tb) {
+    final List<? extends Column<?>> inputColumns = tb.getDataColumns();
+    for (int row = 0; row < tb.numTuples(); ++row) {
+      if (TupleUtils.hasNull(tb, compareIndx[buildSide], row)) {
+        /* a null key joins nothing. */
+        continue;
+      }
+      final int hashCode = HashUtils.hashSubRow(tb, compareIndx[buildSide], row);
+      IntArrayList tupleIndicesList = hashTableIndices.get(hashCode);
+      if (tupleIndicesList == null) {
+        tupleIndicesList = new IntArrayList(1);
+        hashTableIndices.put(hashCode, tupleIndicesList);
+      }
+      tupleIndicesList.add(hashTable.numTuples());
+      for (int column = 0; column < tb.numColumns(); column++) {
+        hashTable.put(column, inputColumns.get(column), row);
+      }
+    }
+  }
+
+  /**
+   * Join a batch of the probe side with the hash table.
+   *
+   * @param tb the batch.
+   * @param probeSide the child the batch comes from.
+   */
+  private void probe(final TupleBatch tb, final int probeSide) {
+    final int[] probeCompareIndx = compareIndx[probeSide];
+    final int[] buildCompareIndx = compareIndx[buildSide];
+    for (int row = 0; row < tb.numTuples(); ++row) {
+      if (TupleUtils.hasNull(tb, probeCompareIndx, row)) {
+        /* a null key joins nothing. */
+        continue;
+      }
+      IntArrayList matches = hashTableIndices.get(HashUtils.hashSubRow(tb, probeCompareIndx, row));
+      if (matches == null) {
+        continue;
+      }
+      for (int i = 0; i < matches.size(); ++i) {
+        int index = matches.get(i);
+        if (TupleUtils.tupleEquals(tb, probeCompareIndx, row, hashTable, buildCompareIndx, index)) {
+          addToAns(tb, row, probeSide, index);
+        }
+      }
+    }
+  }
+
+  /**
+   * @param tb the batch of the probe side.
+   * @param row the joining row of the batch.
+   * @param probeSide the child the batch comes from.
+   * @param index the joining tuple of the hash table.
+   */
+  private void addToAns(final TupleBatch tb, final int row, final int probeSide, final int index) {
+    final List<? extends Column<?>> tbColumns = tb.getDataColumns();
+    final ReadableColumn[] hashTblColumns = hashTable.getColumns(index);
+    final int tupleIdx = hashTable.getTupleIndexInContainingTB(index);
+    int outColumn = 0;
+    for (int side = LEFT; side <= RIGHT; ++side) {
+      for (int column : answerColumns[side]) {
+        if (side == probeSide) {
+          ans.put(outColumn, tbColumns.get(column), row);
+        } else {
+          ans.put(outColumn, hashTblColumns[column], tupleIdx);
+        }
+        ++outColumn;
+      }
+    }
+  }
+}
@@ -7,20 +7,29 @@ import java.io.EOFException;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 import java.util.Objects;
 
+import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.io.LittleEndianDataInputStream;
+import com.google.common.primitives.Ints;
 
 import edu.washington.escience.myria.DbException;
 import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
 import edu.washington.escience.myria.io.DataSource;
+import edu.washington.escience.myria.io.PrefetchingInputStream;
+import edu.washington.escience.myria.io.RangedDataSource;
 import edu.washington.escience.myria.storage.TupleBatch;
 import edu.washington.escience.myria.storage.TupleBatchBuffer;
 
 /**
  * Reads data from binary file. This class is written base on the code from FileScan.java
  * 
+ * If the source is a {@link RangedDataSource}, it is read ahead in parallel chunks, and the rows can be split among
+ * several workers: given the workers sharing the source, each reads a contiguous, equal share of the rows.
+ * 
  * @author leelee
  * 
  */
@@ -39,6 +48,10 @@ public class BinaryFileScan extends LeafOperator {
   private final boolean isLittleEndian;
   /** Data input to read data from the bin file. */
   private transient DataInput dataInput;
+  /** The stream under {@link #dataInput}. */
+  private transient InputStream inputStream;
+  /** The workers that share the source, or null if this operator reads all rows. */
+  private final int[] workers;
 
   /**
    * Construct a new BinaryFileScan object that reads the given binary file and create tuples from the file data that
@@ -49,9 +62,31 @@ public class BinaryFileScan extends LeafOperator {
    * @param isLittleEndian The flag that indicates the endianess of the binary file.
    */
   public BinaryFileScan(final Schema schema, final DataSource source, final boolean isLittleEndian) {
+    this(schema, source, isLittleEndian, null);
+  }
+
+  /**
+   * Construct a new BinaryFileScan object that reads this worker's share of the rows of the given binary file.
+   * 
+   * @param schema The tuple schema to be used for creating tuple from the binary file's data.
+   * @param source The source of the binary input data. Must be a {@link RangedDataSource} if workers is not null.
+   * @param isLittleEndian The flag that indicates the endianess of the binary file.
+   * @param workers The workers that share the source. The worker at index i of n reads the rows from i/n to (i+1)/n of
+   *          the source. If null, all rows are read.
+   */
+  public BinaryFileScan(final Schema schema, final DataSource source, final boolean isLittleEndian,
+      final int[] workers) {
     this.schema = Objects.requireNonNull(schema, "schema");
     this.source = Objects.requireNonNull(source, "source");
     this.isLittleEndian = isLittleEndian;
+    Preconditions.checkArgument(workers == null || workers.length > 0, "workers must not be empty");
+    Preconditions.checkArgument(workers == null || source instanceof RangedDataSource,
+        "splitting a binary file among workers requires a ranged data source");
+    if (workers == null) {
+      this.workers = null;
+    } else {
+      this.workers = Arrays.copyOf(workers, workers.length);
+    }
   }
 
   /**
@@ -113,14 +148,26 @@ public class BinaryFileScan extends LeafOperator {
     while (buffer.numTuples() > 0) {
       buffer.popAny();
     }
+    if (inputStream != null) {
+      try {
+        inputStream.close();
+      } catch (IOException e) {
+        throw new DbException(e);
+      } finally {
+        inputStream = null;
+      }
+    }
   }
 
   @Override
   protected final void init(final ImmutableMap<String, Object> execEnvVars) throws DbException {
     buffer = new TupleBatchBuffer(getSchema());
-    InputStream inputStream;
     try {
-      inputStream = new BufferedInputStream(source.getInputStream());
+      if (source instanceof RangedDataSource) {
+        inputStream = openRange((RangedDataSource) source);
+      } else {
+        inputStream = new BufferedInputStream(source.getInputStream());
+      }
     } catch (FileNotFoundException e) {
       throw new DbException(e);
     } catch (IOException e) {
@@ -134,6 +181,50 @@ public class BinaryFileScan extends LeafOperator {
     }
   }
 
+  /**
+   * Open the rows of the source that this worker reads.
+   * 
+   * @param rangedSource the source.
+   * @return a stream of the rows that this worker reads.
+   * @throws IOException if there is an error reading the source.
+   * @throws DbException if this worker does not share the source.
+   */
+  private InputStream openRange(final RangedDataSource rangedSource) throws IOException, DbException {
+    long size = rangedSource.size();
+    if (workers == null) {
+      return new PrefetchingInputStream(rangedSource, 0, size, getPrefetchExecutor());
+    }
+    int index = Ints.indexOf(workers, getNodeID());
+    if (index < 0) {
+      throw new DbException("worker " + getNodeID() + " is not one of the workers sharing the binary file: "
+          + Arrays.toString(workers));
+    }
+    int rowSize = 0;
+    for (Type type : schema.getColumnTypes()) {
+      switch (type) {
+        case INT_TYPE:
+        case FLOAT_TYPE:
+          rowSize += Integer.SIZE / Byte.SIZE;
+          break;
+        case LONG_TYPE:
+        case DOUBLE_TYPE:
+          rowSize += Long.SIZE / Byte.SIZE;
+          break;
+        default:
+          throw new UnsupportedOperationException(
+              "BinaryFileScan only support reading fixed width type from the binary file.");
+      }
+    }
+    if (size % rowSize != 0) {
+      throw new DbException("The size of the binary file, " + size + ", is not a multiple of the row size, " + rowSize);
+    }
+    long numRows = size / rowSize;
+    long first = numRows * index / workers.length;
+    long last = numRows * (index + 1) / workers.length;
+    return new PrefetchingInputStream(rangedSource, first * rowSize, (last - first) * rowSize,
+        getPrefetchExecutor());
+  }
+
   @Override
   protected Schema generateSchema() {
     return schema;
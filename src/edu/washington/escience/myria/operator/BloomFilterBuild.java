@@ -0,0 +1,104 @@
+package edu.washington.escience.myria.operator;
+
+import java.util.Objects;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.storage.TupleBatchBuffer;
+import edu.washington.escience.myria.storage.TupleUtils;
+import edu.washington.escience.myria.util.BloomFilter;
+
+/**
+ * Builds a {@link BloomFilter} of the join keys of its input and emits it as tuples (word, bits), one per word with
+ * some bit set, so that it can be sent through an exchange, e.g., broadcast, to {@link BloomFilterProbe}s.
+ *
+ * This makes a semi-join reduction of the other input of a join: below the producers of the probe side, a
+ * {@link BloomFilterProbe} drops the tuples whose keys are not in the build side, before they are shuffled. Keys with a
+ * null value are not added, since they never match in an equi-join.
+ */
+public final class BloomFilterBuild extends UnaryOperator {
+
+  /** Required for Java serialization. */
+  private static final long serialVersionUID = 1L;
+
+  /** The schema of the filter. */
+  public static final Schema FILTER_SCHEMA = new Schema(ImmutableList.of(Type.INT_TYPE, Type.LONG_TYPE),
+      ImmutableList.of("word", "bits"));
+
+  /** The columns of the join key, in order. */
+  private final int[] keyColumns;
+  /** The number of bits of the filter. */
+  private final int numBits;
+  /** The number of bits set for each key. */
+  private final int numHashes;
+
+  /** The filter. */
+  private transient BloomFilter filter;
+  /** The filter, as tuples, once the input is consumed. */
+  private transient TupleBatchBuffer ans;
+
+  /**
+   * @param child the source of the keys.
+   * @param keyColumns the columns of the join key, in order.
+   * @param numBits the number of bits of the filter.
+   * @param numHashes the number of bits set for each key.
+   */
+  public BloomFilterBuild(final Operator child, final int[] keyColumns, final int numBits, final int numHashes) {
+    super(child);
+    this.keyColumns = Objects.requireNonNull(keyColumns, "keyColumns");
+    Preconditions.checkArgument(keyColumns.length > 0, "must specify some key columns");
+    Preconditions.checkArgument(numBits > 0, "numBits must be positive");
+    Preconditions.checkArgument(numHashes > 0, "numHashes must be positive");
+    this.numBits = numBits;
+    this.numHashes = numHashes;
+  }
+
+  @Override
+  protected void init(final ImmutableMap<String, Object> execEnvVars) throws Exception {
+    filter = new BloomFilter(numBits, numHashes);
+    ans = null;
+  }
+
+  @Override
+  protected void cleanup() throws Exception {
+    filter = null;
+    ans = null;
+  }
+
+  @Override
+  protected TupleBatch fetchNextReady() throws Exception {
+    if (ans == null) {
+      final Operator child = getChild();
+      for (TupleBatch tb = child.nextReady(); tb != null; tb = child.nextReady()) {
+        for (int row = 0; row < tb.numTuples(); ++row) {
+          if (!TupleUtils.hasNull(tb, keyColumns, row)) {
+            filter.add(tb, keyColumns, row);
+          }
+        }
+      }
+      if (!child.eos()) {
+        return null;
+      }
+      ans = new TupleBatchBuffer(getSchema());
+      for (int word = 0; word < filter.getNumWords(); ++word) {
+        long bits = filter.getWord(word);
+        if (bits != 0) {
+          ans.putInt(0, word);
+          ans.putLong(1, bits);
+        }
+      }
+      filter = null;
+    }
+    return ans.popAny();
+  }
+
+  @Override
+  protected Schema generateSchema() {
+    return FILTER_SCHEMA;
+  }
+}
@@ -0,0 +1,145 @@
+package edu.washington.escience.myria.operator;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+
+import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.storage.TupleUtils;
+import edu.washington.escience.myria.util.BloomFilter;
+
+/**
+ * Drops the tuples of its right child whose join keys are not in the Bloom filter sent by its left child, which are the
+ * tuples emitted by one or more {@link BloomFilterBuild}s with the same number of bits and hashes, e.g., one per worker
+ * through a broadcast. The filters are merged, so a key passes if it is in any of them.
+ *
+ * The left child is consumed first. Tuples with a null key are dropped, since they never match in an equi-join, so
+ * this is only a valid reduction for the probe side of an inner join or a semi-join. When it closes, the operator logs
+ * how many tuples it dropped.
+ */
+public final class BloomFilterProbe extends BinaryOperator {
+
+  /** Required for Java serialization. */
+  private static final long serialVersionUID = 1L;
+
+  /** The logger for this class. */
+  private static final Logger LOGGER = LoggerFactory.getLogger(BloomFilterProbe.class);
+
+  /** The columns of the join key of the right child, in order. */
+  private final int[] keyColumns;
+  /** The number of bits of the filter. */
+  private final int numBits;
+  /** The number of bits set for each key. */
+  private final int numHashes;
+
+  /** The filter, once the left child is consumed. */
+  private transient BloomFilter filter;
+  /** The number of tuples received from the right child. */
+  private transient long numTuplesIn;
+  /** The number of tuples emitted. */
+  private transient long numTuplesOut;
+
+  /**
+   * @param filter the source of the filter, as emitted by {@link BloomFilterBuild}.
+   * @param child the source of the tuples.
+   * @param keyColumns the columns of the join key of the tuples, in the order of those of the filter.
+   * @param numBits the number of bits of the filter.
+   * @param numHashes the number of bits set for each key.
+   */
+  public BloomFilterProbe(final Operator filter, final Operator child, final int[] keyColumns, final int numBits,
+      final int numHashes) {
+    super(filter, child);
+    this.keyColumns = Objects.requireNonNull(keyColumns, "keyColumns");
+    Preconditions.checkArgument(keyColumns.length > 0, "must specify some key columns");
+    Preconditions.checkArgument(numBits > 0, "numBits must be positive");
+    Preconditions.checkArgument(numHashes > 0, "numHashes must be positive");
+    this.numBits = numBits;
+    this.numHashes = numHashes;
+  }
+
+  @Override
+  protected void init(final ImmutableMap<String, Object> execEnvVars) throws DbException {
+    if (!BloomFilterBuild.FILTER_SCHEMA.compatible(getLeft().getSchema())) {
+      throw new DbException("The left child must emit a Bloom filter, not " + getLeft().getSchema());
+    }
+    filter = new BloomFilter(numBits, numHashes);
+    numTuplesIn = 0;
+    numTuplesOut = 0;
+  }
+
+  @Override
+  protected void cleanup() throws DbException {
+    if (filter != null) {
+      LOGGER.info("Bloom filter on columns {} passed {} of {} tuples, {}% of its bits set",
+          Arrays.toString(keyColumns), numTuplesOut, numTuplesIn, Math.round(filter.getFillRatio() * 100));
+    }
+    filter = null;
+  }
+
+  @Override
+  protected TupleBatch fetchNextReady() throws Exception {
+    final Operator left = getLeft();
+    while (!left.eos()) {
+      TupleBatch tb = left.nextReady();
+      if (tb == null) {
+        if (left.eos()) {
+          break;
+        }
+        return null;
+      }
+      for (int row = 0; row < tb.numTuples(); ++row) {
+        int word = tb.getInt(0, row);
+        if (word < 0 || word >= filter.getNumWords()) {
+          throw new DbException("Bloom filter word " + word + " is out of range, the filters must have " + numBits
+              + " bits");
+        }
+        filter.mergeWord(word, tb.getLong(1, row));
+      }
+    }
+
+    final TupleBatch tb = getRight().nextReady();
+    if (tb == null) {
+      return null;
+    }
+    BitSet toRemove = new BitSet(tb.numTuples());
+    for (int row = 0; row < tb.numTuples(); ++row) {
+      if (TupleUtils.hasNull(tb, keyColumns, row) || !filter.mightContain(tb, keyColumns, row)) {
+        toRemove.set(row);
+      }
+    }
+    numTuplesIn += tb.numTuples();
+    numTuplesOut += tb.numTuples() - toRemove.cardinality();
+    return tb.filterOut(toRemove);
+  }
+
+  /**
+   * @return the number of tuples received from the right child.
+   */
+  public long getNumTuplesIn() {
+    return numTuplesIn;
+  }
+
+  /**
+   * @return the number of tuples emitted.
+   */
+  public long getNumTuplesOut() {
+    return numTuplesOut;
+  }
+
+  @Override
+  protected Schema generateSchema() {
+    Operator right = getRight();
+    if (right == null) {
+      return null;
+    }
+    return right.getSchema();
+  }
+}
@@ -0,0 +1,114 @@
+package edu.washington.escience.myria.operator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Paths;
+import java.util.Objects;
+
+import com.google.common.collect.ImmutableMap;
+
+import edu.washington.escience.myria.ColumnarBinaryTupleWriter;
+import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.client.ColumnarBinaryReader;
+import edu.washington.escience.myria.io.DataSource;
+import edu.washington.escience.myria.io.FileSource;
+import edu.washington.escience.myria.io.MappedFileInput;
+import edu.washington.escience.myria.storage.TupleBatch;
+
+/**
+ * Reads data in the columnar binary format written by {@link ColumnarBinaryTupleWriter}. Unlike {@link BinaryFileScan},
+ * every type is supported, including strings and datetimes, and values are not decoded one at a time: each block is
+ * read in one call and decoded straight into the columns of a {@link TupleBatch}. A {@link FileSource} is read through
+ * a memory-mapped file.
+ */
+public class ColumnarBinaryFileScan extends LeafOperator {
+
+  /** Required for Java serialization. */
+  private static final long serialVersionUID = 1L;
+  /** The schema for the relation stored in this file. */
+  private final Schema schema;
+  /** The source of the input data. */
+  private final DataSource source;
+  /** Reads the blocks of the input data. */
+  private transient ColumnarBinaryReader reader;
+  /** Whether the column names of the input data differ from those of the schema. */
+  private transient boolean rename;
+
+  /**
+   * Construct a new ColumnarBinaryFileScan object that reads the given columnar binary data, whose column types must
+   * match the given schema.
+   *
+   * @param schema The tuple schema. The column names may differ from those stored in the data.
+   * @param source The source of the columnar binary input data.
+   */
+  public ColumnarBinaryFileScan(final Schema schema, final DataSource source) {
+    this.schema = Objects.requireNonNull(schema, "schema");
+    this.source = Objects.requireNonNull(source, "source");
+  }
+
+  @Override
+  protected final TupleBatch fetchNextReady() throws DbException {
+    try {
+      TupleBatch tb = reader.next();
+      if (tb != null && rename) {
+        return tb.rename(schema.getColumnNames());
+      }
+      return tb;
+    } catch (IOException e) {
+      throw new DbException(e);
+    }
+  }
+
+  @Override
+  protected final void cleanup() throws DbException {
+    if (reader != null) {
+      try {
+        reader.close();
+      } catch (IOException e) {
+        throw new DbException(e);
+      } finally {
+        reader = null;
+      }
+    }
+  }
+
+  @Override
+  protected final void init(final ImmutableMap<String, Object> execEnvVars) throws DbException {
+    /* The reader reads the header as it is built, and only closes the input once it is built. */
+    Closeable input = null;
+    try {
+      if (source instanceof FileSource) {
+        MappedFileInput mapped = new MappedFileInput(Paths.get(((FileSource) source).getFilename()));
+        input = mapped;
+        reader = new ColumnarBinaryReader(mapped);
+      } else {
+        InputStream stream = source.getInputStream();
+        input = stream;
+        reader = new ColumnarBinaryReader(stream);
+      }
+    } catch (IOException e) {
+      if (input != null) {
+        try {
+          input.close();
+        } catch (IOException closeError) {
+          e.addSuppressed(closeError);
+        }
+      }
+      throw new DbException(e);
+    }
+    Schema fileSchema = reader.getSchema();
+    if (!schema.compatible(fileSchema)) {
+      cleanup();
+      throw new DbException("The schema of the data, " + fileSchema + ", does not match the expected schema, "
+          + schema);
+    }
+    rename = !schema.getColumnNames().equals(fileSchema.getColumnNames());
+  }
+
+  @Override
+  protected Schema generateSchema() {
+    return schema;
+  }
+}
@@ -0,0 +1,104 @@
+package edu.washington.escience.myria.operator;
+
+import java.util.Objects;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+
+import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.MyriaConstants;
+import edu.washington.escience.myria.RelationKey;
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.accessmethod.AccessMethod;
+import edu.washington.escience.myria.accessmethod.ConnectionInfo;
+import edu.washington.escience.myria.storage.TupleBatch;
+
+/**
+ * Moves the tuples of a table to another table, leaving it empty, and optionally copies a second table in the same
+ * transaction, using {@link AccessMethod#detachTable(RelationKey, RelationKey, Schema, RelationKey, RelationKey)}. The
+ * tuples inserted into the table while it is detached are either moved or kept, but never lost. The table is detached
+ * when this operator is opened, and its child produces no tuples.
+ */
+public class DbDetachTable extends RootOperator {
+
+  /** Required for Java serialization. */
+  private static final long serialVersionUID = 1L;
+  /** The information for the database connection. */
+  private ConnectionInfo connectionInfo;
+  /** The table to be detached. */
+  private final RelationKey relationKey;
+  /** The table its tuples are moved to. */
+  private final RelationKey detachedKey;
+  /** The schema of the table. */
+  private final Schema schema;
+  /** The table copied in the same transaction, or null. */
+  private final RelationKey snapshotOf;
+  /** The table it is copied to, or null. */
+  private final RelationKey snapshotKey;
+
+  /**
+   * @param relationKey the table to be detached.
+   * @param detachedKey the table its tuples are moved to, which is dropped first if it exists.
+   * @param schema the schema of the table.
+   * @param connectionInfo the parameters of the database connection, or null to use those of the worker.
+   */
+  public DbDetachTable(final RelationKey relationKey, final RelationKey detachedKey, final Schema schema,
+      final ConnectionInfo connectionInfo) {
+    this(relationKey, detachedKey, schema, null, null, connectionInfo);
+  }
+
+  /**
+   * @param relationKey the table to be detached.
+   * @param detachedKey the table its tuples are moved to, which is dropped first if it exists.
+   * @param schema the schema of the table.
+   * @param snapshotOf the table copied in the same transaction, which has the same schema, or null.
+   * @param snapshotKey the table it is copied to, which is dropped first if it exists, or null.
+   * @param connectionInfo the parameters of the database connection, or null to use those of the worker.
+   */
+  public DbDetachTable(final RelationKey relationKey, final RelationKey detachedKey, final Schema schema,
+      final RelationKey snapshotOf, final RelationKey snapshotKey, final ConnectionInfo connectionInfo) {
+    super(new EOSSource());
+    Preconditions.checkArgument((snapshotOf == null) == (snapshotKey == null),
+        "snapshotOf and snapshotKey must both be null or both be set");
+    this.relationKey = Objects.requireNonNull(relationKey, "relationKey");
+    this.detachedKey = Objects.requireNonNull(detachedKey, "detachedKey");
+    this.schema = Objects.requireNonNull(schema, "schema");
+    this.snapshotOf = snapshotOf;
+    this.snapshotKey = snapshotKey;
+    this.connectionInfo = connectionInfo;
+  }
+
+  @Override
+  protected void init(final ImmutableMap<String, Object> execEnvVars) throws DbException {
+    /* retrieve connection information from the environment variables, if not already set */
+    if (connectionInfo == null && execEnvVars != null) {
+      connectionInfo = (ConnectionInfo) execEnvVars.get(MyriaConstants.EXEC_ENV_VAR_DATABASE_CONN_INFO);
+    }
+    if (connectionInfo == null) {
+      throw new DbException("Unable to instantiate DbDetachTable: connection information unknown");
+    }
+
+    AccessMethod accessMethod = AccessMethod.of(connectionInfo.getDbms(), connectionInfo, false);
+    try {
+      accessMethod.detachTable(relationKey, detachedKey, schema, snapshotOf, snapshotKey);
+    } finally {
+      accessMethod.close();
+    }
+  }
+
+  @Override
+  protected void consumeTuples(final TupleBatch tuples) throws DbException {
+  }
+
+  @Override
+  protected void childEOS() throws DbException {
+  }
+
+  @Override
+  protected void childEOI() throws DbException {
+  }
+
+  @Override
+  protected void cleanup() throws DbException {
+  }
+}
@@ -23,6 +23,7 @@ import edu.washington.escience.myria.accessmethod.AccessMethod.IndexRef;
 import edu.washington.escience.myria.accessmethod.ConnectionInfo;
 import edu.washington.escience.myria.accessmethod.SQLiteInfo;
 import edu.washington.escience.myria.parallel.RelationWriteMetadata;
+import edu.washington.escience.myria.storage.ScanResultCache;
 import edu.washington.escience.myria.storage.TupleBatch;
 
 /**
@@ -45,6 +46,10 @@ public class DbInsert extends AbstractDbInsert {
   private RelationKey tempRelationKey;
   /** The indexes to be created on the table. Each entry is a list of columns. */
   private final List<List<IndexRef>> indexes;
+  /** The changelog tables that the inserted tuples are also appended to, e.g., for incremental views. */
+  private final List<RelationKey> changelogKeys;
+  /** The worker's cache of scan results, whose entries for the table this operator invalidates. */
+  private transient ScanResultCache scanResultCache;
 
   /**
    * Constructs an insertion operator to store the tuples from the specified child into the specified database. If the
@@ -115,11 +120,36 @@ public class DbInsert extends AbstractDbInsert {
    */
   public DbInsert(final Operator child, final RelationKey relationKey, final ConnectionInfo connectionInfo,
       final boolean overwriteTable, final List<List<IndexRef>> indexes) {
+    this(child, relationKey, connectionInfo, overwriteTable, indexes, null);
+  }
+
+  /**
+   * Constructs an insertion operator to store the tuples from the specified child into the specified database. If the
+   * table does not exist, it will be created. If <code>overwriteTable</code> is <code>true</code>, any existing data
+   * will be dropped. When appending, each batch of tuples is also appended, in the same transaction, to each of the
+   * specified changelog tables, which are created if they do not exist and are not recorded in the catalog.
+   * 
+   * @param child the source of tuples to be inserted.
+   * @param relationKey the key of the table the tuples should be inserted into.
+   * @param connectionInfo the parameters of the database connection.
+   * @param overwriteTable whether to overwrite a table that already exists.
+   * @param indexes the indexes to be created on the table. Each entry is a list of columns.
+   * @param changelogKeys the keys of the changelog tables the appended tuples are also inserted into.
+   */
+  public DbInsert(final Operator child, final RelationKey relationKey, final ConnectionInfo connectionInfo,
+      final boolean overwriteTable, final List<List<IndexRef>> indexes, final List<RelationKey> changelogKeys) {
     super(child);
     Objects.requireNonNull(relationKey, "relationKey");
     this.connectionInfo = connectionInfo;
     this.relationKey = relationKey;
     this.overwriteTable = overwriteTable;
+    if (changelogKeys != null) {
+      this.changelogKeys = ImmutableList.copyOf(changelogKeys);
+    } else {
+      this.changelogKeys = ImmutableList.of();
+    }
+    Preconditions.checkArgument(!overwriteTable || this.changelogKeys.isEmpty(),
+        "Cannot log the changes of an overwritten relation.");
     /* Sanity check arguments -- cannot create an index in append mode. */
     Preconditions.checkArgument(overwriteTable || indexes == null || indexes.size() == 0,
         "Cannot create indexes when appending to a relation.");
@@ -148,6 +178,11 @@ public class DbInsert extends AbstractDbInsert {
 
   @Override
   public void cleanup() {
+    if (scanResultCache != null) {
+      /* Scans that started while the table was written must not serve stale results either. */
+      scanResultCache.invalidate(relationKey);
+      scanResultCache = null;
+    }
     try {
       if (accessMethod != null) {
         accessMethod.close();
@@ -163,7 +198,13 @@ public class DbInsert extends AbstractDbInsert {
     Objects.requireNonNull(tempRelationKey, "tempRelationKey");
     Preconditions.checkArgument(tupleBatch.getSchema().equals(getSchema()),
         "tuple schema %s does not match operator schema %s", tupleBatch.getSchema(), getSchema());
-    accessMethod.tupleBatchInsert(tempRelationKey, tupleBatch);
+    if (changelogKeys.isEmpty()) {
+      accessMethod.tupleBatchInsert(tempRelationKey, tupleBatch);
+    } else {
+      /* In one transaction, so that a view recomputed from a snapshot of the table never also merges its changelog. */
+      accessMethod.tupleBatchInsert(
+          ImmutableList.<RelationKey> builder().add(tempRelationKey).addAll(changelogKeys).build(), tupleBatch);
+    }
   }
 
   @Override
@@ -178,6 +219,13 @@ public class DbInsert extends AbstractDbInsert {
       throw new DbException("Unable to instantiate DbInsert: connection information unknown");
     }
 
+    if (execEnvVars != null) {
+      scanResultCache = (ScanResultCache) execEnvVars.get(MyriaConstants.EXEC_ENV_VAR_SCAN_RESULT_CACHE);
+      if (scanResultCache != null) {
+        scanResultCache.invalidate(relationKey);
+      }
+    }
+
     if (connectionInfo instanceof SQLiteInfo) {
       /* Set WAL in the beginning. */
       final File dbFile = new File(((SQLiteInfo) connectionInfo).getDatabaseFilename());
@@ -208,6 +256,9 @@ public class DbInsert extends AbstractDbInsert {
     accessMethod.createTableIfNotExists(tempRelationKey, getSchema());
     /* Create indexes. */
     accessMethod.createIndexes(tempRelationKey, getSchema(), indexes);
+    for (RelationKey changelogKey : changelogKeys) {
+      accessMethod.createTableIfNotExists(changelogKey, getSchema());
+    }
   }
 
   @Override
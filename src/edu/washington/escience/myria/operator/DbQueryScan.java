@@ -1,6 +1,8 @@
 package edu.washington.escience.myria.operator;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 
@@ -14,6 +16,7 @@ import edu.washington.escience.myria.RelationKey;
 import edu.washington.escience.myria.Schema;
 import edu.washington.escience.myria.accessmethod.AccessMethod;
 import edu.washington.escience.myria.accessmethod.ConnectionInfo;
+import edu.washington.escience.myria.storage.ScanResultCache;
 import edu.washington.escience.myria.storage.TupleBatch;
 
 /**
@@ -55,6 +58,34 @@ public class DbQueryScan extends LeafOperator implements DbReader {
    */
   private final boolean[] ascending;
 
+  /**
+   * The version of the scanned relation, i.e., the id of the query that last wrote it, or null if the result of this
+   * scan should not be cached.
+   */
+  private Long cacheVersion;
+
+  /**
+   * The worker's cache of scan results, or null if this scan does not use it.
+   */
+  private transient ScanResultCache cache;
+
+  /**
+   * The batches that this scan has read from the database, to be cached when it completes, or null if they are not
+   * recorded.
+   */
+  private transient List<TupleBatch> recorded;
+
+  /**
+   * The estimated number of bytes in {@link #recorded}, see {@link ScanResultCache#estimateBytes(TupleBatch)}.
+   */
+  private transient long recordedBytes;
+
+  /**
+   * The token from {@link ScanResultCache#begin} that lets the cache reject a result if the relation was written during
+   * the scan.
+   */
+  private transient long cacheToken;
+
   /** Required for Java serialization. */
   private static final long serialVersionUID = 1L;
 
@@ -164,9 +195,21 @@ public class DbQueryScan extends LeafOperator implements DbReader {
     this.connectionInfo = connectionInfo;
   }
 
+  /**
+   * Let the worker cache the result of this scan of a relation, and answer it from the cache, as long as the relation
+   * is at the specified version.
+   *
+   * @param cacheVersion the id of the query that last wrote the relation.
+   */
+  public final void setCacheVersion(final long cacheVersion) {
+    this.cacheVersion = cacheVersion;
+  }
+
   @Override
   public final void cleanup() {
     tuples = null;
+    cache = null;
+    recorded = null;
   }
 
   @Override
@@ -180,8 +223,21 @@ public class DbQueryScan extends LeafOperator implements DbReader {
     if (tuples.hasNext()) {
       final TupleBatch tb = tuples.next();
       LOGGER.trace("Got {} tuples", tb.numTuples());
+      if (recorded != null) {
+        recordedBytes += ScanResultCache.estimateBytes(tb);
+        if (recordedBytes > cache.getMemoryBudget()) {
+          /* Too large to cache, so stop holding on to the batches. */
+          recorded = null;
+        } else {
+          recorded.add(tb);
+        }
+      }
       return tb;
     } else {
+      if (recorded != null) {
+        cache.put(baseSQL, relationKey, cacheVersion, cacheToken, outputSchema, recorded);
+        recorded = null;
+      }
       return null;
     }
   }
@@ -231,6 +287,18 @@ public class DbQueryScan extends LeafOperator implements DbReader {
 
         baseSQL = baseSQL.concat(orderByClause.toString());
       }
+
+      if (cacheVersion != null) {
+        cache = (ScanResultCache) execEnvVars.get(MyriaConstants.EXEC_ENV_VAR_SCAN_RESULT_CACHE);
+      }
+      if (cache != null) {
+        tuples = cache.get(baseSQL, cacheVersion);
+        if (tuples == null) {
+          cacheToken = cache.begin(relationKey);
+          recorded = new ArrayList<>();
+          recordedBytes = 0;
+        }
+      }
     }
   }
 
@@ -73,7 +73,7 @@ public final class DupElimRefOnly extends UnaryOperator {
         case STRING_TYPE:
           return tb.getString(colIndx, rowIndx1).equals(another.tb.getString(colIndx, rowIndx2));
         case DATETIME_TYPE:
-          return tb.getDateTime(colIndx, rowIndx1).equals(another.tb.getDateTime(colIndx, rowIndx2));
+          return tb.getLong(colIndx, rowIndx1) == another.tb.getLong(colIndx, rowIndx2);
       }
       return false;
     }
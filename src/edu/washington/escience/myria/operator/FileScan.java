@@ -2,6 +2,7 @@ package edu.washington.escience.myria.operator;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.Iterator;
 
@@ -19,8 +20,11 @@ import com.google.common.primitives.Floats;
 
 import edu.washington.escience.myria.DbException;
 import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
 import edu.washington.escience.myria.io.DataSource;
 import edu.washington.escience.myria.io.FileSource;
+import edu.washington.escience.myria.io.PrefetchingInputStream;
+import edu.washington.escience.myria.io.RangedDataSource;
 import edu.washington.escience.myria.storage.TupleBatch;
 import edu.washington.escience.myria.storage.TupleBatchBuffer;
 import edu.washington.escience.myria.util.DateTimeUtils;
@@ -156,7 +160,10 @@ public final class FileScan extends LeafOperator {
   }
 
   @Override
-  public void cleanup() {
+  public void cleanup() throws IOException {
+    if (parser != null) {
+      parser.close();
+    }
     parser = null;
     while (buffer.numTuples() > 0) {
       buffer.popAny();
@@ -189,6 +196,11 @@ public final class FileScan extends LeafOperator {
       }
       for (int column = 0; column < schema.numColumns(); ++column) {
         String cell = record.get(column);
+        if (cell.isEmpty() && schema.getColumnType(column) != Type.STRING_TYPE) {
+          /* An empty field is null, except in a string column where it is the empty string. */
+          buffer.putNull(column);
+          continue;
+        }
         try {
           switch (schema.getColumnType(column)) {
             case BOOLEAN_TYPE:
@@ -236,11 +248,19 @@ public final class FileScan extends LeafOperator {
 
   @Override
   protected void init(final ImmutableMap<String, Object> execEnvVars) throws DbException {
-    buffer = new TupleBatchBuffer(getSchema());
+    buffer = new TupleBatchBuffer(getSchema(), true);
     try {
+      InputStream input;
+      if (source instanceof RangedDataSource) {
+        /* Read ahead in parallel chunks while parsing. */
+        RangedDataSource rangedSource = (RangedDataSource) source;
+        input = new PrefetchingInputStream(rangedSource, 0, rangedSource.size(), getPrefetchExecutor());
+      } else {
+        input = source.getInputStream();
+      }
       parser =
-          new CSVParser(new BufferedReader(new InputStreamReader(source.getInputStream())), CSVFormat.newFormat(
-              delimiter).withQuote(quote).withEscape(escape));
+          new CSVParser(new BufferedReader(new InputStreamReader(input)), CSVFormat.newFormat(delimiter)
+              .withQuote(quote).withEscape(escape));
       iterator = parser.iterator();
       for (int i = 0; i < numberOfSkippedLines; i++) {
         iterator.next();
@@ -13,8 +13,10 @@ import edu.washington.escience.myria.MyriaConstants;
 import edu.washington.escience.myria.Schema;
 import edu.washington.escience.myria.Type;
 import edu.washington.escience.myria.operator.network.Consumer;
+import edu.washington.escience.myria.operator.network.EOIReportCombiner;
 import edu.washington.escience.myria.parallel.ExchangePairID;
 import edu.washington.escience.myria.parallel.LocalFragmentResourceManager;
+import edu.washington.escience.myria.parallel.ipc.IPCConnectionPool;
 import edu.washington.escience.myria.parallel.ipc.StreamOutputChannel;
 import edu.washington.escience.myria.storage.TupleBatch;
 import edu.washington.escience.myria.storage.TupleBatchBuffer;
@@ -22,6 +24,9 @@ import edu.washington.escience.myria.storage.TupleBatchBuffer;
 /**
  * Together with the EOSController, the IDBController controls what to serve into an iteration and when to stop an
  * iteration.
+ * 
+ * The EOI reports go either straight to the EOSController, or to an {@link EOIReportCombiner} on the same worker, which
+ * merges them with the reports of the other workers on their way to the EOSController.
  * */
 public class IDBController extends Operator implements StreamingStateful {
 
@@ -47,7 +52,8 @@ public class IDBController extends Operator implements StreamingStateful {
   private Consumer eosControllerInput;
 
   /**
-   * The workerID where the EOSController is running.
+   * The workerID where the EOSController is running, or {@link IPCConnectionPool#SELF_IPC_ID} if the reports go to an
+   * {@link EOIReportCombiner} on the same worker.
    * */
   private final int controllerWorkerID;
 
@@ -208,6 +214,9 @@ public class IDBController extends Operator implements StreamingStateful {
       return null;
     }
 
+    if (state.isIdempotent()) {
+      return fetchNextReadySyncIdempotent();
+    }
     while ((tb = iterationInput.nextReady()) != null) {
       bufferedIterTBs.add(tb);
     }
@@ -237,6 +246,35 @@ public class IDBController extends Operator implements StreamingStateful {
     return null;
   }
 
+  /**
+   * Synchronous mode for idempotent states. Tuples of the current iteration update the state as they arrive, so that
+   * neither the raw input of the iteration nor a temporary copy of the state is kept. The resulting delta is held back
+   * until the iteration ends.
+   * 
+   * @return next ready output TupleBatch.
+   * @throws DbException if any error occurs
+   */
+  private TupleBatch fetchNextReadySyncIdempotent() throws DbException {
+    TupleBatch tb;
+    while ((tb = iterationInput.nextReady()) != null) {
+      tb = state.update(tb);
+      if (tb != null && tb.numTuples() > 0) {
+        bufferedIterTBs.add(tb);
+      }
+    }
+    if (iterationInput.eoi() && !bufferCleared) {
+      Preconditions.checkArgument(deltaTuples.size() == 0);
+      deltaTuples.addAll(bufferedIterTBs);
+      emptyDelta = (deltaTuples.size() == 0);
+      bufferedIterTBs.clear();
+      bufferCleared = true;
+    }
+    if (deltaTuples.size() > 0) {
+      return deltaTuples.pop();
+    }
+    return null;
+  }
+
   @Override
   public final void checkEOSAndEOI() {
     if (!initialInputEnded) {
@@ -305,7 +343,11 @@ public class IDBController extends Operator implements StreamingStateful {
     emptyDelta = true;
     resourceManager =
         (LocalFragmentResourceManager) execEnvVars.get(MyriaConstants.EXEC_ENV_VAR_FRAGMENT_RESOURCE_MANAGER);
-    eoiReportChannel = resourceManager.startAStream(controllerWorkerID, controllerOpID);
+    int reportWorkerID = controllerWorkerID;
+    if (reportWorkerID == IPCConnectionPool.SELF_IPC_ID) {
+      reportWorkerID = resourceManager.getNodeId();
+    }
+    eoiReportChannel = resourceManager.startAStream(reportWorkerID, controllerOpID);
     state.init(execEnvVars);
     deltaTuples = new LinkedList<TupleBatch>();
     bufferedIterTBs = new ArrayList<TupleBatch>();
@@ -9,12 +9,12 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
 
 import edu.washington.escience.myria.Schema;
-import edu.washington.escience.myria.Type;
 import edu.washington.escience.myria.column.Column;
 import edu.washington.escience.myria.storage.MutableTupleBuffer;
 import edu.washington.escience.myria.storage.ReadableColumn;
 import edu.washington.escience.myria.storage.TupleBatch;
 import edu.washington.escience.myria.storage.TupleBatchBuffer;
+import edu.washington.escience.myria.storage.TupleUtils;
 
 /**
  * Orders tuples in memory.
@@ -116,37 +116,14 @@ public final class InMemoryOrderBy extends UnaryOperator {
   }
 
   /**
-   * Comparator for tuples made up of columns.
+   * Comparator for tuples made up of columns. Nulls sort first, as in {@link TupleUtils#cellCompare}.
    */
   class TupleComparator implements Comparator<Integer> {
     @Override
     public int compare(final Integer rowIdx, final Integer otherRowIdx) {
       int i = 0;
       for (int columnIdx : sortColumns) {
-        int compared = 0;
-        switch (getSchema().getColumnType(columnIdx)) {
-          case INT_TYPE:
-            compared = Type.compareRaw(table.getInt(columnIdx, rowIdx), table.getInt(columnIdx, otherRowIdx));
-            break;
-          case FLOAT_TYPE:
-            compared = Type.compareRaw(table.getFloat(columnIdx, rowIdx), table.getFloat(columnIdx, otherRowIdx));
-            break;
-          case LONG_TYPE:
-            compared = Type.compareRaw(table.getLong(columnIdx, rowIdx), table.getLong(columnIdx, otherRowIdx));
-            break;
-          case DOUBLE_TYPE:
-            compared = Type.compareRaw(table.getDouble(columnIdx, rowIdx), table.getDouble(columnIdx, otherRowIdx));
-            break;
-          case BOOLEAN_TYPE:
-            compared = Type.compareRaw(table.getBoolean(columnIdx, rowIdx), table.getBoolean(columnIdx, otherRowIdx));
-            break;
-          case STRING_TYPE:
-            compared = Type.compareRaw(table.getString(columnIdx, rowIdx), table.getString(columnIdx, otherRowIdx));
-            break;
-          case DATETIME_TYPE:
-            compared = Type.compareRaw(table.getDateTime(columnIdx, rowIdx), table.getDateTime(columnIdx, otherRowIdx));
-            break;
-        }
+        int compared = TupleUtils.cellCompare(table, columnIdx, rowIdx, table, columnIdx, otherRowIdx);
         if (compared != 0) {
           if (ascending[i]) {
             return compared;
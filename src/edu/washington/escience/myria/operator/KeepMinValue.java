@@ -137,7 +137,7 @@ public final class KeepMinValue extends StreamingState {
   @Override
   public void init(final ImmutableMap<String, Object> execEnvVars) {
     uniqueTupleIndices = new IntObjectHashMap<>();
-    uniqueTuples = new MutableTupleBuffer(getSchema());
+    uniqueTuples = new MutableTupleBuffer(getSchema(), getOp().getOffHeapMemory());
     doReplace = new ReplaceProcedure();
   }
 
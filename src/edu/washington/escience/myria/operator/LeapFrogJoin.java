@@ -2,17 +2,21 @@ package edu.washington.escience.myria.operator;
 
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.BitSet;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Objects;
 
+import org.joda.time.DateTime;
+
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.gs.collections.impl.list.mutable.primitive.IntArrayList;
+import com.gs.collections.impl.map.mutable.primitive.LongLongHashMap;
+import com.gs.collections.impl.map.mutable.primitive.ObjectLongHashMap;
+import com.gs.collections.impl.set.mutable.primitive.LongHashSet;
 
 import edu.washington.escience.myria.DbException;
 import edu.washington.escience.myria.Schema;
@@ -20,17 +24,22 @@ import edu.washington.escience.myria.Type;
 import edu.washington.escience.myria.column.Column;
 import edu.washington.escience.myria.storage.MutableTupleBuffer;
 import edu.washington.escience.myria.storage.ReadableColumn;
+import edu.washington.escience.myria.storage.TrieIndex;
 import edu.washington.escience.myria.storage.TupleBatch;
 import edu.washington.escience.myria.storage.TupleBatchBuffer;
-import edu.washington.escience.myria.storage.TupleUtils;
 
 /**
- * 
+ *
  * This operator implement Leap-Frog join algorithm (http://arxiv.org/abs/1210.0481), which takes multiple relations and
  * arbitrary join structure as input.
- * 
- * It takes pre-sorted relations as input. The variable ordering must be implied at joinFieldMapping.
- * 
+ *
+ * Once its children are drained, each input is indexed by a {@link TrieIndex} on its join fields, built once and used
+ * by every seek of the join, so the inputs need not be sorted. The values of a join variable are encoded as longs: INT
+ * and LONG values as themselves, others by a dictionary shared by the fields of the variable. Tuples with a null join
+ * field never match and are not indexed. The variable ordering is chosen from the estimated number of distinct values
+ * of each variable, smallest first, preferring variables that share a relation with those already chosen; ties keep
+ * the order of joinFieldMapping.
+ *
  */
 public class LeapFrogJoin extends NAryOperator {
   /**
@@ -44,44 +53,51 @@ public class LeapFrogJoin extends NAryOperator {
   private final int[][][] userJoinFieldMapping;
 
   /**
-   * whether to create an index on the first joined field in each relation.
+   * stores mapping from output fields to child table's fields.
    */
-  private transient boolean[] indexOnFirst;
+  private final List<JoinField> outputFieldMapping;
 
   /**
-   * {@code {@link #joinFieldMapping}[i]} is the list of JoinFields of i-th join variable.
+   * output column names.
    */
-  private transient List<List<JoinField>> joinFieldMapping;
+  private final ImmutableList<String> outputColumnNames;
 
   /**
-   * {@code {@link #joinFieldLocalOrder}[i][j]} stores join field order of j-th field of i-th child's table.
+   * The buffer holding the valid tuples from children.
    */
-  private transient List<List<JoinAttrOrder>> joinFieldLocalOrder;
+  private transient MutableTupleBuffer[] tables;
 
   /**
-   * {@code {@link #localOrderedJoinField}[i][j]} stores the join field (locally) ordered j of i-th child's table.
+   * The trie index on the join fields of each child's table, once all the children are drained.
    */
-  private transient List<List<JoinField>> localOrderedJoinField;
+  private transient TrieIndex[] tries;
 
   /**
-   * stores mapping from output fields to child table's fields.
+   * {@code {@link #depthTables}[d]} are the tables joined on the d-th variable of the chosen ordering.
    */
-  private final List<JoinField> outputFieldMapping;
+  private transient int[][] depthTables;
 
   /**
-   * output column names.
+   * {@code {@link #depthLevels}[d][i]} is the level of the d-th variable in the trie of table
+   * {@code {@link #depthTables}[d][i]}.
    */
-  private final ImmutableList<String> outputColumnNames;
+  private transient int[][] depthLevels;
 
   /**
-   * The index of the lastly ordered attribute among those who are participating join.
+   * {@code {@link #rangeEnd}[t][l]} is the end, exclusive, of the values of level l of the trie of table t under the
+   * current prefix.
    */
-  private transient List<Integer> lastJoinAttrIdx;
+  private transient int[][] rangeEnd;
 
   /**
-   * The buffer holding the valid tuples from children.
+   * {@code {@link #positions}[t][l]} is the current position on level l of the trie of table t.
    */
-  private transient MutableTupleBuffer[] tables;
+  private transient int[][] positions;
+
+  /**
+   * The row of each table being output.
+   */
+  private transient int[] currentRows;
 
   /**
    * An internal state to record how many children have EOSed.
@@ -94,113 +110,22 @@ public class LeapFrogJoin extends NAryOperator {
   private transient boolean joinFinished = false;
 
   /**
-   * Iterators on child tables.
-   */
-  private transient TableIterator[] iterators;
-
-  /**
-   * current join field (index of {@link joinFieldMapping} ).
+   * current join variable (depth in the chosen ordering), -1 before the join starts.
    */
   private transient int currentDepth;
 
-  /**
-   * current iterator index in joinFieldMapping[currentDepth].
-   */
-  private transient int currentIteratorIndex;
-
   /**
    * answer buffer.
    */
   private transient TupleBatchBuffer ansTBB;
 
   /**
-   * index on field with first local order in each table.
-   */
-  private transient IntArrayList[] firstVarIndices;
-
-  /**
-   * Pointer to a cell in a table.
-   * 
-   */
-  private final class CellPointer {
-    /**
-     * Table index of this CellPointer.
-     */
-    private final int tableIndex;
-
-    /**
-     * @return Table index of this CellPointer
-     */
-    public int getTableIndex() {
-      return tableIndex;
-    }
-
-    /**
-     * @return Field index of this CellPointer
-     */
-    public int getFieldIndex() {
-      return fieldIndex;
-    }
-
-    /**
-     * Field index of this CellPointer.
-     */
-    private final int fieldIndex;
-
-    /**
-     * row number.
-     */
-    private int row;
-
-    /**
-     * @return row number
-     */
-    public int getRow() {
-      return row;
-    }
-
-    /**
-     * @param row row number to set
-     */
-    public void setRow(final int row) {
-      Preconditions.checkElementIndex(row, tables[tableIndex].numTuples(), "row out of bound when setting row");
-      this.row = row;
-    }
-
-    /**
-     * @param tableIndex the table index of this CellPointer
-     * @param fieldIndex the field index of this CellPointer
-     * @param row row number
-     */
-    public CellPointer(final int tableIndex, final int fieldIndex, final int row) {
-      Preconditions.checkElementIndex(tableIndex, tables.length, "tableIndex exceeds legal range.");
-      Preconditions.checkElementIndex(fieldIndex, tables[tableIndex].numColumns(), "fieldIndex exceeds legal range.");
-      Preconditions.checkState(row >= 0 && row <= tables[tableIndex].numTuples(), "row number exceeds legal range.");
-      this.tableIndex = tableIndex;
-      this.fieldIndex = fieldIndex;
-      this.row = row;
-    }
-
-    /**
-     * @param cp the CellPointer to copy from
-     */
-    public CellPointer(final CellPointer cp) {
-      this(cp.getTableIndex(), cp.getFieldIndex(), cp.getRow());
-    }
-
-    @Override
-    public String toString() {
-      return "t:" + tableIndex + " f:" + fieldIndex + " r:" + row;
-    }
-  }
-
-  /**
-   * 
+   *
    * Indicate a field in a child table.
    */
   private final class JoinField implements Serializable {
     /**
-     * 
+     *
      */
     private static final long serialVersionUID = 1L;
 
@@ -216,7 +141,7 @@ public class LeapFrogJoin extends NAryOperator {
 
     /**
      * Constructor.
-     * 
+     *
      * @param tableIndex table index.
      * @param fieldIndex join field index in a table.
      */
@@ -232,275 +157,18 @@ public class LeapFrogJoin extends NAryOperator {
 
   }
 
-  /**
-   * Iterator of table, which implements a Trie like interface.
-   * 
-   */
-  private class TableIterator {
-
-    /**
-     * table index.
-     */
-    private final int tableIdx;
-
-    /**
-     * current field.
-     */
-    private int currentField = -1;
-
-    /**
-     * row number on {@value firstValueIndices[tableIndex]}.
-     */
-    private int rowOnIndex = 0;
-
-    /**
-     * iterator positions on different fields.
-     */
-    private final int[] rowIndices;
-
-    /**
-     * @return iterator position on current field.
-     */
-    public int getRowOfCurrentField() {
-      return rowIndices[currentField];
-    }
-
-    /**
-     * @param field field index.
-     * @return iterator position on given field.
-     */
-    public int getRow(final int field) {
-      Preconditions.checkElementIndex(field, rowIndices.length, "field index cannot exceed number of columns.");
-      return rowIndices[field];
-    }
-
-    /**
-     * 
-     * Set iterator position on current field.
-     * 
-     * @param row the row number.
-     */
-    public void setRowOfCurrentField(final int row) {
-      rowIndices[currentField] = row;
-      Preconditions.checkArgument(row < ranges[currentField].getMaxRow(),
-          "row: %s >= maxRow: %s, currentField: %s, tableIdx: %s, curDepth: %s", row, ranges[currentField].getMaxRow(),
-          currentField, tableIdx, currentDepth);
-      Preconditions.checkArgument(row >= ranges[currentField].getMinRow(), "row: %s < minRow: %s", row,
-          ranges[currentField].getMinRow());
-    }
-
-    /**
-     * Set iterator position on given field.
-     * 
-     * @param field the field index.
-     * @param row row number.
-     */
-    public void setRow(final int field, final int row) {
-      Preconditions.checkElementIndex(field, rowIndices.length, "field index cannot exceed number of columns.");
-      rowIndices[field] = row;
-    }
-
-    /**
-     * @param currentField current field.
-     */
-    private void setCurrentField(final int currentField) {
-      this.currentField = currentField;
-    }
-
-    /**
-     * proceed to the next value of current field.
-     */
-    public void nextValue() {
-      rowIndices[currentField] = ranges[currentField].getMaxRow();
-    }
-
-    /**
-     * the ranges of different fields.
-     */
-    private final IteratorRange[] ranges;
-
-    /**
-     * @param tableIndex table index.
-     */
-    public TableIterator(final int tableIndex) {
-      Preconditions.checkPositionIndex(tableIndex, getChildren().length,
-          "table index cannot exceed number of children.");
-
-      tableIdx = tableIndex;
-      /* initiate ranges */
-      ranges = new IteratorRange[tables[tableIndex].numColumns()];
-      for (int i = 0; i < tables[tableIndex].numColumns(); ++i) {
-        ranges[i] = new IteratorRange(0, tables[tableIndex].numTuples());
-      }
-
-      /* initiate rowIndices */
-      rowIndices = new int[tables[tableIndex].numColumns()];
-      Arrays.fill(rowIndices, 0);
-    }
-
-    /**
-     * The legal range of an iterator on a field. This is to simulate the trie data structure.
-     * 
-     */
-    private class IteratorRange {
-      /**
-       * minRow is reachable.
-       */
-      private int minRow;
-
-      /**
-       * @return minimal row.
-       */
-      public int getMinRow() {
-        return minRow;
-      }
-
-      /**
-       * @param minRow minimal row.
-       */
-      public void setMinRow(final int minRow) {
-        this.minRow = minRow;
-        Preconditions.checkState(minRow < maxRow, "minRow >= maxRow. (minRow=%s, ,maxRow=%s)", minRow, maxRow);
-      }
-
-      /**
-       * @return maximal row.
-       */
-      public int getMaxRow() {
-        return maxRow;
-      }
-
-      /**
-       * @param maxRow maximal row.
-       */
-      public void setMaxRow(final int maxRow) {
-        this.maxRow = maxRow;
-        Preconditions.checkArgument(maxRow > 0, "maxRow: %s", maxRow);
-        Preconditions.checkState(minRow < maxRow, "minRow >= maxRow. (minRow=%s, ,maxRow=%s)", minRow, maxRow);
-      }
-
-      /**
-       * @param minRow minimal row number of this range, inclusive.
-       * @param maxRow maximal row number of this range, exclusive.
-       */
-      public void setRange(final int minRow, final int maxRow) {
-        this.minRow = minRow;
-        this.maxRow = maxRow;
-        Preconditions.checkArgument(maxRow > 0, "maxRow: %s", maxRow);
-        Preconditions.checkState(minRow < maxRow, "minRow >= maxRow. (minRow=%s, ,maxRow=%s)", minRow, maxRow);
-      }
-
-      /**
-       * maxRow is unreachable.
-       */
-      private int maxRow;
-
-      /**
-       * @param aIteratorRange another IteratorRange object copying from
-       */
-      public void setRange(final IteratorRange aIteratorRange) {
-        setRange(aIteratorRange.minRow, aIteratorRange.maxRow);
-      }
-
-      /**
-       * @param minRow minimal row.
-       * @param maxRow maximal row.
-       */
-      public IteratorRange(final int minRow, final int maxRow) {
-        Preconditions.checkArgument(maxRow > 0, "maxRow: %s", maxRow);
-        this.minRow = minRow;
-        this.maxRow = maxRow;
-      }
-    }
-
-  }
-
-  /**
-   * Helper function, check whether a JoinField is ordered first in its own relation.
-   * 
-   * @param jf JoinField
-   * @return true if this JoinField is ordered first, false otherwise.
-   */
-  private boolean isIndexed(final JoinField jf) {
-    return indexOnFirst[jf.table] && getLocalOrder(jf) == 0;
-  }
-
-  /**
-   * Comparator class for sorting iterators.
-   */
-  private class JoinIteratorCompare implements Comparator<JoinField> {
-    @Override
-    public int compare(final JoinField o1, final JoinField o2) {
-      return TupleUtils.cellCompare(tables[o1.table], o1.column, iterators[o1.table].getRowOfCurrentField(),
-          tables[o2.table], o2.column, iterators[o2.table].getRowOfCurrentField());
-    }
-  }
-
-  /**
-   * the attribute order of a joined column.
-   * 
-   */
-  private final class JoinAttrOrder implements Serializable {
-    /**
-     * required.
-     */
-    private static final long serialVersionUID = 1L;
-    /**
-     * order of this attribute.
-     */
-    private int order;
-    /**
-     * column index of this attribute.
-     */
-    private final int colIdx;
-
-    /**
-     * @return order
-     */
-    private int getOrder() {
-      return order;
-    }
-
-    /**
-     * @param order set order.
-     */
-    private void setOrder(final int order) {
-      this.order = order;
-    }
-
-    /**
-     * @return column index in a table..
-     */
-    private int getColumnIdx() {
-      return colIdx;
-    }
-
-    /**
-     * @param order order of this join field.
-     * @param columnIdx column index of this join attribute.
-     */
-    public JoinAttrOrder(final int order, final int columnIdx) {
-      this.order = order;
-      colIdx = columnIdx;
-    }
-
-    @Override
-    public String toString() {
-      return colIdx + ":" + order;
-    }
-  }
-
   /**
    * @param children list of child operators
    * @param joinFieldMapping mapping of join field to child table field
    * @param outputFieldMapping mapping of output field to child table field
    * @param outputColumnNames output column names
-   * @param indexOnFirst whether the first join field of a child is indexed or not
+   * @param indexOnFirst ignored, every child is indexed on all its join fields
    */
   public LeapFrogJoin(final Operator[] children, final int[][][] joinFieldMapping, final int[][] outputFieldMapping,
       final List<String> outputColumnNames, final boolean[] indexOnFirst) {
     super(children);
     userJoinFieldMapping = Objects.requireNonNull(joinFieldMapping, "joinFieldMapping");
+    Preconditions.checkArgument(joinFieldMapping.length > 0, "must specify some join variables");
     Objects.requireNonNull(outputFieldMapping, "outputFieldMapping");
     if (outputColumnNames != null) {
       Preconditions.checkArgument(outputFieldMapping.length == outputColumnNames.size(),
@@ -523,9 +191,6 @@ public class LeapFrogJoin extends NAryOperator {
           "An array representing join field must be at length of 2. ([tableIndex,fieldIndex])");
       this.outputFieldMapping.add(new JoinField(element[0], element[1]));
     }
-
-    /* init indexOnFirst */
-    this.indexOnFirst = indexOnFirst;
   }
 
   @Override
@@ -558,17 +223,9 @@ public class LeapFrogJoin extends NAryOperator {
       }
     }
     /* Initialization before LeapFrog starts. */
-    if (currentDepth == -1) {
-      /* handle the case that one of input tables is empty. */
-      for (MutableTupleBuffer table : tables) {
-        if (table.numTuples() == 0) {
-          joinFinished = true;
-          checkEOSAndEOI();
-          return null;
-        }
-      }
-      /* Initiate table iterators. */
-      initIterators();
+    if (tries == null && !buildTries()) {
+      /* one of input tables has no tuple to join. */
+      joinFinished = true;
     }
     /* do the join, pop if there is ready tb. */
     if (!joinFinished) {
@@ -582,7 +239,7 @@ public class LeapFrogJoin extends NAryOperator {
 
   @Override
   public void checkEOSAndEOI() {
-    if (numberOfEOSChild == getChildren().length && ansTBB.numTuples() == 0) {
+    if (numberOfEOSChild == getChildren().length && joinFinished && ansTBB.numTuples() == 0) {
       setEOS();
     }
   }
@@ -603,118 +260,42 @@ public class LeapFrogJoin extends NAryOperator {
     }
   }
 
-  /**
-   * move to the next iterator.
-   */
-  private void nextIterator() {
-    currentIteratorIndex = (currentIteratorIndex + 1) % joinFieldMapping.get(currentDepth).size();
-  }
-
-  /**
-   * Initiate iterators.
-   */
-  private void initIterators() {
-    iterators = new TableIterator[tables.length];
-    for (int i = 0; i < tables.length; ++i) {
-      iterators[i] = new TableIterator(i);
-    }
-  }
-
   @Override
   public void init(final ImmutableMap<String, Object> execEnvVars) throws DbException {
 
     Operator[] children = getChildren();
 
-    /* check indexOnFirst. */
-    if (indexOnFirst == null) {
-      indexOnFirst = new boolean[children.length];
-      for (int i = 0; i < children.length; ++i) {
-        indexOnFirst[i] = false;
-      }
-    }
-    Preconditions.checkArgument(children.length == indexOnFirst.length,
-        "indexOnFirst must have the same cardinality as children.");
-
-    /* initiate join field mapping and field local order */
-    joinFieldMapping = new ArrayList<List<JoinField>>();
-    joinFieldLocalOrder = new ArrayList<>(children.length);
-
-    for (Operator element : children) {
-      List<JoinAttrOrder> localOrder = new ArrayList<>();
-      List<JoinAttrOrder> globalOrder = new ArrayList<>();
-      for (int i = 0; i < element.getSchema().numColumns(); ++i) {
-        localOrder.add(new JoinAttrOrder(-1, i));
-        globalOrder.add(new JoinAttrOrder(-1, i));
-      }
-      joinFieldLocalOrder.add(localOrder);
+    /* check join field mapping: a field joins on at most one variable, a table at most once per variable. */
+    boolean[][] isJoinField = new boolean[children.length][];
+    for (int i = 0; i < children.length; ++i) {
+      isJoinField[i] = new boolean[children[i].getSchema().numColumns()];
     }
-
-    /* set join field mapping and field local order */
-    for (int i = 0; i < userJoinFieldMapping.length; ++i) {
-      List<JoinField> joinedFieldList = new ArrayList<JoinField>();
-      for (int j = 0; j < userJoinFieldMapping[i].length; ++j) {
-        // get table index and field index of each join field
-        Preconditions.checkArgument(userJoinFieldMapping[i][j].length == 2,
+    for (int[][] variable : userJoinFieldMapping) {
+      boolean[] hasTable = new boolean[children.length];
+      for (int[] field : variable) {
+        Preconditions.checkArgument(field.length == 2,
             "the inner arrary of JoinFieldMapping must have the length of 2");
-        final int tableIdx = userJoinFieldMapping[i][j][0];
-        final int colIdx = userJoinFieldMapping[i][j][1];
-        // update joinFieldMapping and reverseJoinFieldMapping
-        Preconditions
-            .checkPositionIndex(tableIdx, children.length, "table index cannot exceed the number of children.");
-        Preconditions.checkPositionIndex(colIdx, children[tableIdx].getSchema().numColumns(),
+        final int tableIdx = field[0];
+        final int colIdx = field[1];
+        Preconditions.checkElementIndex(tableIdx, children.length, "table index cannot exceed the number of children.");
+        Preconditions.checkElementIndex(colIdx, children[tableIdx].getSchema().numColumns(),
             "field index cannot exceed the number of columns.");
-        joinedFieldList.add(new JoinField(tableIdx, colIdx));
-        joinFieldLocalOrder.get(tableIdx).get(colIdx).setOrder(i);
-      }
-      joinFieldMapping.add(joinedFieldList);
-    }
-
-    localOrderedJoinField = new ArrayList<>();
-    for (int i = 0; i < joinFieldLocalOrder.size(); ++i) {
-
-      List<JoinField> jfl = new ArrayList<>();
-      List<JoinAttrOrder> colAttrOrder = new ArrayList<>();
-      for (JoinAttrOrder localOrder : joinFieldLocalOrder.get(i)) {
-        if (localOrder.getOrder() != -1) {
-          colAttrOrder.add(new JoinAttrOrder(localOrder.getOrder(), localOrder.getColumnIdx()));
-        }
-      }
-
-      Collections.sort(colAttrOrder, new Comparator<JoinAttrOrder>() {
-        @Override
-        public int compare(final JoinAttrOrder o1, final JoinAttrOrder o2) {
-          return Integer.compare(o1.getOrder(), o2.getOrder());
-        }
-      });
-
-      for (int j = 0; j < colAttrOrder.size(); j++) {
-        jfl.add(new JoinField(i, colAttrOrder.get(j).getColumnIdx()));
+        Preconditions.checkArgument(!isJoinField[tableIdx][colIdx], "field %s:%s joins on more than one variable",
+            tableIdx, colIdx);
+        Preconditions.checkArgument(!hasTable[tableIdx], "table %s joins more than once on a variable", tableIdx);
+        isJoinField[tableIdx][colIdx] = true;
+        hasTable[tableIdx] = true;
       }
-      localOrderedJoinField.add(jfl);
     }
 
-    lastJoinAttrIdx = new ArrayList<>(children.length);
-
-    /* convert the global order to the local order and update the local order back to the joinFieldLocalOrder. */
-    for (int i = 0; i < localOrderedJoinField.size(); ++i) {
-      List<JoinField> orderedJoinField = localOrderedJoinField.get(i);
-      for (int j = 0; j < orderedJoinField.size(); j++) {
-        JoinField jf = orderedJoinField.get(j);
-        joinFieldLocalOrder.get(i).get(jf.column).setOrder(j);
-        if (j == orderedJoinField.size() - 1) {
-          lastJoinAttrIdx.add(jf.column);
-        }
-      }
-    }
-
-    /* Initiate hash tables and indices */
+    /* Initiate hash tables */
     tables = new MutableTupleBuffer[children.length];
-    firstVarIndices = new IntArrayList[children.length];
     for (int i = 0; i < children.length; ++i) {
       tables[i] = new MutableTupleBuffer(children[i].getSchema());
-      firstVarIndices[i] = new IntArrayList();
     }
-
+    tries = null;
+    numberOfEOSChild = 0;
+    joinFinished = false;
     currentDepth = -1;
 
     ansTBB = new TupleBatchBuffer(getSchema());
@@ -722,22 +303,14 @@ public class LeapFrogJoin extends NAryOperator {
 
   @Override
   protected void cleanup() throws DbException {
-    Operator[] children = getChildren();
-    for (int i = 0; i < children.length; ++i) {
-      tables[i] = null;
-      firstVarIndices[i] = null;
-    }
     tables = null;
-    firstVarIndices = null;
-    /* iterators may not be initialized */
-    if (iterators != null) {
-      for (int i = 0; i < iterators.length; ++i) {
-        iterators[i] = null;
-      }
-      iterators = null;
-    }
+    tries = null;
+    depthTables = null;
+    depthLevels = null;
+    rangeEnd = null;
+    positions = null;
+    currentRows = null;
     ansTBB = null;
-    lastJoinAttrIdx = null;
   }
 
   /**
@@ -749,382 +322,348 @@ public class LeapFrogJoin extends NAryOperator {
     for (int row = 0; row < tb.numTuples(); ++row) {
       for (int column = 0; column < tb.numColumns(); column++) {
         tables[childIndex].put(column, inputColumns.get(column), row);
-        /* put value to index table if it first appears */
-        if (isIndexed(new JoinField(childIndex, column))) {
-          int thisRow = tables[childIndex].numTuples();
-          /*
-           * If this is the last column, this tuple is already built in tables[childIndex]. So numTuples() have been
-           * updated already.
-           */
-          if (column == tb.numColumns() - 1) {
-            thisRow--;
-          }
-          int lastRow = thisRow - 1;
-          if (lastRow == -1 || TupleUtils.cellCompare(tables[childIndex], column, lastRow, tb, column, row) != 0) {
-            firstVarIndices[childIndex].add(thisRow);
-          }
-        }
       }
     }
   }
 
   /**
-   * init/restart leap-frog join.
-   */
-  private void leapfrogInit() {
-
-    for (JoinField jf : joinFieldMapping.get(currentDepth)) {
-      final int localOrder = getLocalOrder(jf);
-      final TableIterator it = iterators[jf.table];
-      if (localOrder == 0) {
-        /* if the join field is highest ordered, reset the cursor */
-        it.ranges[jf.column].setRange(0, tables[jf.table].numTuples());
-        it.setCurrentField(jf.column);
-        it.setRowOfCurrentField(0);
-        it.rowOnIndex = 0;
-      } else {
-        /* if the join field is not ordered as the first, set the cursor to last level */
-        final int lastJf = localOrderedJoinField.get(jf.table).get(localOrder - 1).column;
-        it.ranges[jf.column].setRange(it.ranges[lastJf]);
-        it.setCurrentField(jf.column);
-        it.setRowOfCurrentField(it.ranges[jf.column].getMinRow());
+   * Encode the values of a join variable as longs. If all the fields of the variable are INT or LONG, or all are of the
+   * same other primitive type, the values are used as is; otherwise they go through dictionaries shared by the fields,
+   * one per type, so that equal values have equal codes and values of different types never do.
+   *
+   * @param variable the join variable.
+   * @param nullRows the rows of each table with a null join field, updated.
+   * @return the values of each field of the variable, in the order of the join field mapping.
+   */
+  private long[][] encodeVariable(final int variable, final BitSet[] nullRows) {
+    final int[][] fields = userJoinFieldMapping[variable];
+    Type commonType = null;
+    boolean sameType = true;
+    for (int[] field : fields) {
+      Type type = valueType(tables[field[0]].getSchema().getColumnType(field[1]));
+      sameType = sameType && (commonType == null || type == commonType);
+      commonType = type;
+    }
+    final boolean direct = sameType && commonType != Type.STRING_TYPE && commonType != Type.DATETIME_TYPE;
+
+    /* the dictionaries of the values of each type, whose codes are drawn from one sequence. */
+    EnumMap<Type, LongLongHashMap> primitiveCodes = new EnumMap<>(Type.class);
+    ObjectLongHashMap<String> stringCodes = new ObjectLongHashMap<>();
+    ObjectLongHashMap<DateTime> dateTimeCodes = new ObjectLongHashMap<>();
+    long numCodes = 0;
+
+    long[][] values = new long[fields.length][];
+    for (int i = 0; i < fields.length; ++i) {
+      final MutableTupleBuffer table = tables[fields[i][0]];
+      final int column = fields[i][1];
+      final Type type = table.getSchema().getColumnType(column);
+      LongLongHashMap codes = null;
+      if (!direct && type != Type.STRING_TYPE && type != Type.DATETIME_TYPE) {
+        codes = primitiveCodes.get(valueType(type));
+        if (codes == null) {
+          codes = new LongLongHashMap();
+          primitiveCodes.put(valueType(type), codes);
+        }
+      }
+      values[i] = new long[table.numTuples()];
+      for (int row = 0; row < table.numTuples(); ++row) {
+        if (table.isNull(column, row)) {
+          nullRows[fields[i][0]].set(row);
+          continue;
+        }
+        long code;
+        switch (type) {
+          case STRING_TYPE:
+            code = stringCodes.getIfAbsentPut(table.getString(column, row), numCodes);
+            break;
+          case DATETIME_TYPE:
+            code = dateTimeCodes.getIfAbsentPut(table.getDateTime(column, row), numCodes);
+            break;
+          default:
+            code = primitiveValue(table, column, row, type);
+            if (codes != null) {
+              code = codes.getIfAbsentPut(code, numCodes);
+            }
+            break;
+        }
+        if (code == numCodes && !direct) {
+          numCodes++;
+        }
+        values[i][row] = code;
       }
     }
-
-    Collections.sort(joinFieldMapping.get(currentDepth), new JoinIteratorCompare());
-    currentIteratorIndex = joinFieldMapping.get(currentDepth).size() - 1;
+    return values;
   }
 
   /**
-   * Assuming {@value currentIteratorIndex}th iterator is pointing the max key and (currentIteratorIndex - 1)%k } th
-   * iterator is pointing at the least key.
-   * 
-   * find the next intersection in current join field.
-   * 
-   * @return at end or not.
+   * @param type the type of a join field.
+   * @return the type whose values the field is compared with: INT fields join with LONG fields.
    */
-  private boolean leapfrogSearch() {
-    boolean atEnd = false;
-    Preconditions.checkElementIndex(currentDepth, joinFieldMapping.size(), "current depth is invalid.");
-    /* get the column to proceed the search. */
-    JoinField columnToProceed = joinFieldMapping.get(currentDepth).get(currentIteratorIndex);
-    CellPointer maxKey =
-        new CellPointer(columnToProceed.table, columnToProceed.column, iterators[columnToProceed.table]
-            .getRowOfCurrentField());
-    /* if this is already the end of a trie range, return atEnd=ture. */
-    final int maxRow = iterators[columnToProceed.table].ranges[columnToProceed.column].getMaxRow();
-    Preconditions.checkState(maxKey.getRow() <= maxRow, "current row: %s, maxRow: %s", maxKey.getRow(), maxRow);
-    if (maxKey.getRow() == maxRow) {
-      return true;
+  private static Type valueType(final Type type) {
+    if (type == Type.INT_TYPE) {
+      return Type.LONG_TYPE;
     }
+    return type;
+  }
 
-    nextIterator();
-
-    while (true) {
-      JoinField fieldWithLeastKey = joinFieldMapping.get(currentDepth).get(currentIteratorIndex);
-      CellPointer leastKey =
-          new CellPointer(fieldWithLeastKey.table, fieldWithLeastKey.column, iterators[fieldWithLeastKey.table]
-              .getRowOfCurrentField());
-      if (cellCompare(leastKey, maxKey) == 0) { // if the value current
-        break;
-      } else {
-        atEnd = leapfrogSeek(fieldWithLeastKey, maxKey);
-        if (atEnd) {
-          break;
-        } else {
-          // if leapfrog_seek hasn't reach end, update max key, move to the next table
-          maxKey =
-              new CellPointer(fieldWithLeastKey.table, fieldWithLeastKey.column, iterators[fieldWithLeastKey.table]
-                  .getRowOfCurrentField());
-          nextIterator();
+  /**
+   * @param table a table.
+   * @param column a column of a primitive type.
+   * @param row a row.
+   * @param type the type of the column.
+   * @return the value of the cell as a long, equal for two cells exactly when their values are equal.
+   */
+  private static long primitiveValue(final MutableTupleBuffer table, final int column, final int row,
+      final Type type) {
+    switch (type) {
+      case INT_TYPE:
+        return table.getInt(column, row);
+      case LONG_TYPE:
+        return table.getLong(column, row);
+      case FLOAT_TYPE:
+        return Float.floatToIntBits(table.getFloat(column, row));
+      case DOUBLE_TYPE:
+        return Double.doubleToLongBits(table.getDouble(column, row));
+      case BOOLEAN_TYPE:
+        if (table.getBoolean(column, row)) {
+          return 1;
         }
-      }
+        return 0;
+      default:
+        throw new IllegalStateException("not a primitive type: " + type);
     }
-    /* checking the state */
-    for (JoinField jf : joinFieldMapping.get(currentDepth)) {
-      final int maxRowJf = iterators[jf.table].ranges[jf.column].getMaxRow();
-      final int minRowJf = iterators[jf.table].ranges[jf.column].getMinRow();
-      final int curRow = iterators[jf.table].getRow(jf.column);
-      Preconditions.checkState(curRow >= minRowJf, "curRow: %s, minRow: %s", curRow, minRowJf);
-      Preconditions.checkState(curRow < maxRowJf, "curRow: %s, maxRow: %s", curRow, maxRowJf);
-    }
-
-    return atEnd;
   }
 
   /**
-   * @param jf JoinField
-   * @throws DbException
+   * Choose the variable ordering and build the trie index of every table.
+   *
+   * @return false if some table has no tuple to join, so the join is empty.
    */
-  private void refineRange(final JoinField jf) {
-
-    int startRow = iterators[jf.table].getRow(jf.column);
-    int endRow = iterators[jf.table].ranges[jf.column].getMaxRow() - 1;
-    iterators[jf.table].ranges[jf.column].setMinRow(startRow);
-    Preconditions.checkState(startRow <= endRow, "startRow > endRow. (startRow=%s, endRow=%s)", startRow, endRow);
-
-    final CellPointer startCursor = new CellPointer(jf.table, jf.column, startRow);
-
-    /* short cut: if the maxCursor has the same value as current line */
-    CellPointer cursor = new CellPointer(jf.table, jf.column, endRow);
-    if (cellCompare(startCursor, cursor) == 0) {
-      return;
-    }
-
-    /* short cut: if the next line has different value */
-    cursor.setRow(++startRow);
-    if (cellCompare(startCursor, cursor) < 0) {
-      iterators[jf.table].ranges[jf.column].setMaxRow(startRow);
-      return;
+  private boolean buildTries() {
+    for (MutableTupleBuffer table : tables) {
+      if (table.numTuples() == 0) {
+        return false;
+      }
     }
 
-    /* refine start */
-    int step = 1;
-    while (true) {
-      int compare = cellCompare(startCursor, cursor);
-      Preconditions.checkState(compare <= 0,
-          "startCursor must point to an element that is not greater than element pointed by current cursor");
-      if (compare < 0) {
-        endRow = cursor.getRow();
-        break;
-      } else if (compare == 0) {
-        startRow = cursor.getRow();
-        cursor.setRow(startRow + step);
-        step = step * 2;
-        if (cursor.getRow() + step > endRow) {
-          break;
+    /* encode the join fields and estimate the number of distinct values of each variable. */
+    final int numVariables = userJoinFieldMapping.length;
+    BitSet[] nullRows = new BitSet[tables.length];
+    for (int i = 0; i < tables.length; ++i) {
+      nullRows[i] = new BitSet(tables[i].numTuples());
+    }
+    long[][][] values = new long[numVariables][][];
+    for (int v = 0; v < numVariables; ++v) {
+      values[v] = encodeVariable(v, nullRows);
+    }
+    int[] estimates = new int[numVariables];
+    for (int v = 0; v < numVariables; ++v) {
+      estimates[v] = Integer.MAX_VALUE;
+      for (int i = 0; i < values[v].length; ++i) {
+        final int table = userJoinFieldMapping[v][i][0];
+        LongHashSet distinct = new LongHashSet();
+        for (int row = 0; row < values[v][i].length; ++row) {
+          if (!nullRows[table].get(row)) {
+            distinct.add(values[v][i][row]);
+          }
         }
+        estimates[v] = Math.min(estimates[v], distinct.size());
       }
     }
 
-    /* refine end */
-    while (true) {
-      cursor.setRow((startRow + endRow) / 2);
-      int compare = cellCompare(startCursor, cursor);
-      if (compare == 0) { // if current cursor equals to start cursor
-        startRow = cursor.getRow();
-      } else if (compare < 0) { // if current cursor is greater than start cursor
-        endRow = cursor.getRow();
+    /* choose the ordering greedily. */
+    int[] order = new int[numVariables];
+    boolean[] chosen = new boolean[numVariables];
+    boolean[] reached = new boolean[tables.length];
+    for (int d = 0; d < numVariables; ++d) {
+      int best = -1;
+      boolean bestConnected = false;
+      for (int v = 0; v < numVariables; ++v) {
+        if (chosen[v]) {
+          continue;
+        }
+        boolean connected = false;
+        for (int[] field : userJoinFieldMapping[v]) {
+          connected = connected || reached[field[0]];
+        }
+        if (best == -1 || connected && !bestConnected || connected == bestConnected && estimates[v] < estimates[best]) {
+          best = v;
+          bestConnected = connected;
+        }
       }
-
-      if (endRow == startRow + 1) {
-        iterators[jf.table].ranges[jf.column].setMaxRow(endRow);
-        return;
+      order[d] = best;
+      chosen[best] = true;
+      for (int[] field : userJoinFieldMapping[best]) {
+        reached[field[0]] = true;
       }
     }
 
-  }
-
-  /**
-   * move the iterator to the element which is the first key larger than current max.
-   * 
-   * @param jf seek on which field of which table.
-   * @param target the target value of seeking.
-   * @return at end or not.
-   */
-  private boolean leapfrogSeek(final JoinField jf, final CellPointer target) {
-    /* switch to indexed version if possible. */
-    if (isIndexed(jf)) {
-      return leapfrogSeekWithIndex(jf, target);
-    }
-
-    int startRow = iterators[jf.table].getRow(jf.column);
-    int endRow = iterators[jf.table].ranges[jf.column].getMaxRow() - 1;
-    Preconditions.checkState(startRow <= endRow, "startRow must be no less than endRow");
-
-    final CellPointer startCursor = new CellPointer(jf.table, jf.column, startRow);
-    CellPointer cursor = new CellPointer(startCursor);
-
-    /* set row number to upper bound */
-    cursor.setRow(endRow);
-    if (cellCompare(cursor, target) < 0) {
-      return true;
+    /* the levels of each trie follow the ordering. */
+    List<List<long[]>> levelValues = new ArrayList<>(tables.length);
+    for (int i = 0; i < tables.length; ++i) {
+      levelValues.add(new ArrayList<long[]>());
     }
-
-    /* binary search: find the first row whose value is not less than target */
-    while (true) {
-      cursor.setRow((endRow + startRow) / 2);
-      int compare = cellCompare(cursor, target);
-      if (compare >= 0) { // cursor > target
-        endRow = cursor.getRow();
-      } else if (compare < 0) { // cursor < target
-        startRow = cursor.getRow();
-      }
-
-      if (startRow == endRow - 1) {
-        cursor.setRow(endRow);
-        iterators[jf.table].setRow(jf.column, endRow);
-        return false;
+    depthTables = new int[numVariables][];
+    depthLevels = new int[numVariables][];
+    for (int d = 0; d < numVariables; ++d) {
+      final int[][] fields = userJoinFieldMapping[order[d]];
+      depthTables[d] = new int[fields.length];
+      depthLevels[d] = new int[fields.length];
+      for (int i = 0; i < fields.length; ++i) {
+        depthTables[d][i] = fields[i][0];
+        depthLevels[d][i] = levelValues.get(fields[i][0]).size();
+        levelValues.get(fields[i][0]).add(values[order[d]][i]);
       }
     }
-  }
-
-  /**
-   * move the iterator to the element which is the first key larger than current max.
-   * 
-   * @param jf seek on which field of which table.
-   * @param target the target value of seeking.
-   * @return at end or not.
-   */
-  private boolean leapfrogSeekWithIndex(final JoinField jf, final CellPointer target) {
-    IntArrayList index = firstVarIndices[jf.table];
-    int startRowOnIndex = iterators[jf.table].rowOnIndex;
-    int endRowOnIndex = index.size() - 1;
-    Preconditions.checkState(startRowOnIndex <= endRowOnIndex, "startRow must be no less than endRow");
-    Preconditions.checkElementIndex(startRowOnIndex, index.size());
-    Preconditions.checkElementIndex(endRowOnIndex, index.size());
 
-    final CellPointer startCursor = new CellPointer(jf.table, jf.column, index.get(startRowOnIndex));
-    CellPointer cursor = new CellPointer(startCursor);
-
-    /* set row number to upper bound */
-    cursor.setRow(index.get(endRowOnIndex));
-    if (cellCompare(cursor, target) < 0) {
-      return true;
-    }
-
-    /* binary search: find the first row whose value is not less than target */
-    while (true) {
-      int rowOnIndex = (startRowOnIndex + endRowOnIndex) / 2;
-      cursor.setRow(index.get(rowOnIndex));
-      int compare = cellCompare(cursor, target);
-      if (compare >= 0) { // cursor > target
-        endRowOnIndex = rowOnIndex;
-      } else if (compare < 0) { // cursor < target
-        startRowOnIndex = rowOnIndex;
+    tries = new TrieIndex[tables.length];
+    rangeEnd = new int[tables.length][];
+    positions = new int[tables.length][];
+    currentRows = new int[tables.length];
+    for (int i = 0; i < tables.length; ++i) {
+      final int numTuples = tables[i].numTuples();
+      IntArrayList rows = new IntArrayList(numTuples);
+      for (int row = nullRows[i].nextClearBit(0); row < numTuples; row = nullRows[i].nextClearBit(row + 1)) {
+        rows.add(row);
       }
-
-      if (startRowOnIndex == endRowOnIndex - 1) {
-        cursor.setRow(index.get(endRowOnIndex));
-        iterators[jf.table].setRow(jf.column, index.get(endRowOnIndex));
-        iterators[jf.table].rowOnIndex = endRowOnIndex;
+      if (rows.isEmpty()) {
         return false;
       }
+      final List<long[]> levels = levelValues.get(i);
+      tries[i] = new TrieIndex(levels.toArray(new long[levels.size()][]), rows.toArray());
+      rangeEnd[i] = new int[levels.size()];
+      positions[i] = new int[levels.size()];
     }
+    return true;
   }
 
   /**
-   * Leapfrog join.
+   * Leapfrog join, until a full tuple batch has been formed or the join finishes.
    */
   private void leapfrogJoin() {
-
-    /* initiate the join for the first time */
-    if (currentDepth == -1) {
-      currentDepth = 0;
-      leapfrogInit();
-    }
-
-    /* break if a full tuple batch has been formed */
+    final int lastDepth = depthTables.length - 1;
     while (ansTBB.numTuples() < TupleBatch.BATCH_SIZE) {
-      for (JoinField jf : joinFieldMapping.get(currentDepth)) {
-        Preconditions.checkState(jf.column == iterators[jf.table].currentField,
-            "current field invariant is not correct.");
+      boolean found;
+      if (currentDepth == -1) {
+        /* initiate the join for the first time */
+        currentDepth = 0;
+        found = joinOpen(0);
+      } else {
+        /* move to the next value of the last variable */
+        found = nextValue(currentDepth);
       }
-      /* do LeapFrog search to find the next output position. */
-      boolean atEnd = leapfrogSearch();
-      if (atEnd && currentDepth == 0) {
-        /* if the first join variable reaches end, then the join finish. */
-        joinFinished = true;
-        break;
-      } else if (atEnd) {
-        /* reach to the end in current depth, go back to last depth */
-        joinUp();
-      } else if (currentDepth == joinFieldMapping.size() - 1) {
-        /* output all the tuples on this position and move to the next value. */
-        /* 1. refine ranges. */
-        for (JoinField jf : joinFieldMapping.get(currentDepth)) {
-          refineRange(jf);
-        }
-
-        /* 2. exhaust all output with current join key. */
-        exhaustOutput(0);
-
-        /* 3. move to the next value */
-        iterators[joinFieldMapping.get(currentDepth).get(currentIteratorIndex).table].nextValue();
 
-        /* 4. restore ranges */
-        for (JoinField jf : joinFieldMapping.get(currentDepth)) {
-          final int localOrder = getLocalOrder(jf);
-          final TableIterator it = iterators[jf.table];
-          if (localOrder != 0) {
-            final int lastJf = localOrderedJoinField.get(jf.table).get(localOrder - 1).column;
-            it.ranges[jf.column].setRange(it.ranges[lastJf]);
-          } else {
-            it.ranges[jf.column].setMaxRow(tables[jf.table].numTuples());
+      while (true) {
+        if (!found) {
+          if (currentDepth == 0) {
+            /* if the first join variable reaches end, then the join finish. */
+            joinFinished = true;
+            return;
           }
+          /* reach to the end in current depth, go back to last depth */
+          currentDepth--;
+          found = nextValue(currentDepth);
+        } else if (currentDepth == lastDepth) {
+          /* output all the tuples on this position. */
+          exhaustOutput(0);
+          break;
+        } else {
+          /* go to the next join variable. */
+          currentDepth++;
+          found = joinOpen(currentDepth);
         }
-
-      } else {
-        /* go to the next join variable. */
-        joinOpen();
       }
     }
-
   }
 
   /**
-   * advance to the next join variable.
+   * Open the tries of a join variable under their current prefixes and find their first common value.
+   *
+   * @param depth the depth of the variable.
+   * @return false if there is no common value.
    */
-  private void joinOpen() {
-    for (JoinField jf : joinFieldMapping.get(currentDepth)) {
-      /* refine the range of join variable at current depth */
-      refineRange(jf);
-    }
-    currentDepth++;
-    for (JoinField jf : joinFieldMapping.get(currentDepth)) {
-      iterators[jf.table].setCurrentField(jf.column);
-      iterators[jf.table].setRowOfCurrentField(iterators[jf.table].ranges[jf.column].getMinRow());
+  private boolean joinOpen(final int depth) {
+    for (int i = 0; i < depthTables[depth].length; ++i) {
+      final int table = depthTables[depth][i];
+      final int level = depthLevels[depth][i];
+      final TrieIndex trie = tries[table];
+      if (level == 0) {
+        positions[table][0] = 0;
+        rangeEnd[table][0] = trie.getNumKeys(0);
+      } else {
+        positions[table][level] = trie.getChildBegin(level - 1, positions[table][level - 1]);
+        rangeEnd[table][level] = trie.getChildEnd(level - 1, positions[table][level - 1]);
+      }
     }
-    leapfrogInit();
+    return leapfrogSearch(depth);
   }
 
   /**
-   * @param jf JoinField
-   * @return the local order of the JoinField jf, starting from 0.
+   * Move past the current common value of a join variable and find the next one.
+   *
+   * @param depth the depth of the variable.
+   * @return false if there is no more common value.
    */
-  private int getLocalOrder(final JoinField jf) {
-    return joinFieldLocalOrder.get(jf.table).get(jf.column).getOrder();
+  private boolean nextValue(final int depth) {
+    final int table = depthTables[depth][0];
+    final int level = depthLevels[depth][0];
+    if (++positions[table][level] == rangeEnd[table][level]) {
+      return false;
+    }
+    return leapfrogSearch(depth);
   }
 
   /**
-   * backtrack to previous join variable.
+   * Seek every trie of a join variable to the least value not less than the current maximum, until they all agree.
+   *
+   * @param depth the depth of the variable.
+   * @return false if some trie reaches the end of its range.
    */
-  private void joinUp() {
-
-    currentDepth--;
-
-    for (JoinField jf : joinFieldMapping.get(currentDepth)) {
-      iterators[jf.table].setCurrentField(jf.column);
+  private boolean leapfrogSearch(final int depth) {
+    final int[] joinTables = depthTables[depth];
+    final int[] joinLevels = depthLevels[depth];
+    long maxKey = Long.MIN_VALUE;
+    for (int i = 0; i < joinTables.length; ++i) {
+      maxKey = Math.max(maxKey, tries[joinTables[i]].getKey(joinLevels[i], positions[joinTables[i]][joinLevels[i]]));
     }
-
-    /* arbitrarily choose one relation, let's say, 0th. */
-    currentIteratorIndex = 0;
-    /* move its cursor to the next value. */
-    iterators[joinFieldMapping.get(currentDepth).get(currentIteratorIndex).table].nextValue();
-
-    for (JoinField jf : joinFieldMapping.get(currentDepth)) {
-      final TableIterator it = iterators[jf.table];
-      final int localOrder = getLocalOrder(jf);
-      if (localOrder == 0) {
-        it.ranges[jf.column].setRange(0, tables[jf.table].numTuples());
-      } else {
-        final int lastJf = localOrderedJoinField.get(jf.table).get(localOrder - 1).column;
-        it.ranges[jf.column].setRange(it.ranges[lastJf]);
+    while (true) {
+      boolean agreed = true;
+      for (int i = 0; i < joinTables.length; ++i) {
+        final int table = joinTables[i];
+        final int level = joinLevels[i];
+        final int position = tries[table].seek(level, positions[table][level], rangeEnd[table][level], maxKey);
+        if (position == rangeEnd[table][level]) {
+          return false;
+        }
+        positions[table][level] = position;
+        final long key = tries[table].getKey(level, position);
+        if (key != maxKey) {
+          maxKey = key;
+          agreed = false;
+        }
+      }
+      if (agreed) {
+        return true;
       }
     }
   }
 
   /**
    * Recursively output all result tuples sharing the same join key(s).
-   * 
+   *
    * @param index the current table index.
    */
   private void exhaustOutput(final int index) {
-    final int tableIdx = index;
-    final int colIdx = lastJoinAttrIdx.get(index);
-    int currentRow = iterators[tableIdx].ranges[colIdx].minRow;
-    for (; currentRow < iterators[tableIdx].ranges[colIdx].maxRow; currentRow++) {
-      iterators[tableIdx].setRowOfCurrentField(currentRow);
+    final TrieIndex trie = tries[index];
+    final int lastLevel = trie.getNumLevels() - 1;
+    int begin = 0;
+    int end = trie.getNumRows();
+    if (lastLevel >= 0) {
+      begin = trie.getChildBegin(lastLevel, positions[index][lastLevel]);
+      end = trie.getChildEnd(lastLevel, positions[index][lastLevel]);
+    }
+    for (int position = begin; position < end; ++position) {
+      currentRows[index] = trie.getRow(position);
       if (index == tables.length - 1) {
         addToAns();
       } else {
@@ -1139,31 +678,23 @@ public class LeapFrogJoin extends NAryOperator {
   private void addToAns() {
     for (int i = 0; i < outputFieldMapping.size(); ++i) {
       MutableTupleBuffer hashTable = tables[outputFieldMapping.get(i).table];
-      int row = iterators[outputFieldMapping.get(i).table].getRowOfCurrentField();
+      int row = currentRows[outputFieldMapping.get(i).table];
       int rowInTB = hashTable.getTupleIndexInContainingTB(row);
       ReadableColumn sourceColumn = hashTable.getColumns(row)[outputFieldMapping.get(i).column];
       ansTBB.put(i, sourceColumn, rowInTB);
     }
   }
 
-  /**
-   * @param cp1 CellPointer 1
-   * @param cp2 CellPointer 2
-   * @return result of comparison
-   */
-  private int cellCompare(final CellPointer cp1, final CellPointer cp2) {
-    return TupleUtils.cellCompare(tables[cp1.tableIndex], cp1.getFieldIndex(), cp1.getRow(),
-        tables[cp2.getTableIndex()], cp2.getFieldIndex(), cp2.getRow());
-  }
-
   /**
    * @return number of tuples in all the hash tables.
    */
   public long getNumTuplesInHashTables() {
     long sum = 0;
-    for (MutableTupleBuffer table : tables) {
-      if (table != null) {
-        sum += table.numTuples();
+    if (tables != null) {
+      for (MutableTupleBuffer table : tables) {
+        if (table != null) {
+          sum += table.numTuples();
+        }
       }
     }
     return sum;
@@ -1,22 +1,28 @@
 package edu.washington.escience.myria.operator;
 
-import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.ArrayDeque;
+import java.util.List;
 import java.util.Objects;
-import java.util.PriorityQueue;
-import java.util.Queue;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
 
 import edu.washington.escience.myria.DbException;
 import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.column.Column;
+import edu.washington.escience.myria.operator.network.Consumer;
+import edu.washington.escience.myria.storage.ExchangeTupleBatch;
+import edu.washington.escience.myria.storage.RowComparator;
 import edu.washington.escience.myria.storage.TupleBatch;
 import edu.washington.escience.myria.storage.TupleBatchBuffer;
-import edu.washington.escience.myria.storage.TupleUtils;
 
 /**
  * Merges the sorted output of a set of operators.
+ *
+ * Each sorted input is a run. A child that is a {@link Consumer} contributes one run per source worker, so a Merge over
+ * the Consumer of an exchange whose producers each send sorted tuples assembles a distributed sort. The runs are merged
+ * with a loser tree: each output tuple costs one comparison per level of the tree, i.e., log2 of the number of runs,
+ * against the two comparisons per level of a binary heap.
  * */
 public final class Merge extends NAryOperator {
 
@@ -29,19 +35,23 @@ public final class Merge extends NAryOperator {
   /** Indexes of columns that are sorted. */
   private int[] sortedColumns;
 
-  /**
-   * Contains a tuple batch for each child.
-   * 
-   * Contains null if there is no batch.
-   */
-  private transient ArrayList<TupleBatch> childBatches = new ArrayList<TupleBatch>();
+  /** The sorted inputs. */
+  private transient Run[] runs;
+
+  /** For each child, the index in {@link #runs} of its first run. */
+  private transient int[] firstRun;
 
   /**
-   * Index that points to the current location in the tupleBuffer of all children.
-   * 
-   * -1 indicates an invalid pointer.
+   * The loser tree over {@link #runs}. tree[0] is the run holding the smallest tuple, and tree[i] for i &gt; 0 is the
+   * run that lost the match at internal node i. The leaves, at positions runs.length and above, are implicit.
    */
-  private transient ArrayList<Integer> childRowIndexes = new ArrayList<Integer>();
+  private transient int[] tree;
+
+  /** A run whose tuple was just output and that needs more data before it can replay its matches, or -1. */
+  private transient int pendingRun;
+
+  /** Compares the tuples of the runs. */
+  private transient RowComparator comparator;
 
   /**
    * The buffer holding the results.
@@ -49,34 +59,49 @@ public final class Merge extends NAryOperator {
   private transient TupleBatchBuffer ans;
 
   /**
-   * Use a heap to find the smallest tuple (actually just the index in {@link #childBatches} to a child, where the
-   * pointer in {@link #childRowIndexes} points to the smallest tuple).
-   */
-  private transient Queue<Integer> heap;
-
-  /**
-   * Comparator for tuples in tuple batch.
+   * A sorted input: the tuples of a child, or the tuples a Consumer child receives from one source worker.
    */
-  class TupleComparator implements Comparator<Integer> {
-    @Override
-    public int compare(final Integer left, final Integer right) {
-      Integer leftPointer = childRowIndexes.get(left);
-      Integer rightPointer = childRowIndexes.get(right);
-      TupleBatch leftTb = childBatches.get(left);
-      TupleBatch rightTb = childBatches.get(right);
-      Preconditions.checkArgument(leftTb.numTuples() > leftPointer);
-      Preconditions.checkArgument(rightTb.numTuples() > rightPointer);
-      for (int columnIndex = 0; columnIndex < sortedColumns.length; columnIndex++) {
-        int compared = TupleUtils.cellCompare(leftTb, columnIndex, leftPointer, rightTb, columnIndex, rightPointer);
-        if (compared != 0) {
-          if (ascending[columnIndex]) {
-            return compared;
-          } else {
-            return -compared;
-          }
-        }
+  private static final class Run {
+    /** The child the tuples come from. */
+    private final Operator child;
+    /** The index of the child. */
+    private final int childIdx;
+    /** The index of the source worker of a Consumer child, or -1. */
+    private final int sourceWorkerIdx;
+    /** Batches received by a Consumer child from the source worker, and not yet merged. */
+    private final ArrayDeque<TupleBatch> received;
+    /** The columns of the current batch, or null if there is none. */
+    private List<? extends Column<?>> columns;
+    /** The number of tuples in the current batch. */
+    private int numTuples;
+    /** The current tuple in the current batch. */
+    private int row;
+    /** True if all the tuples of the run have been merged. */
+    private boolean done;
+
+    /**
+     * @param child the child the tuples come from.
+     * @param childIdx the index of the child.
+     * @param sourceWorkerIdx the index of the source worker of a Consumer child, or -1.
+     */
+    Run(final Operator child, final int childIdx, final int sourceWorkerIdx) {
+      this.child = child;
+      this.childIdx = childIdx;
+      this.sourceWorkerIdx = sourceWorkerIdx;
+      if (sourceWorkerIdx >= 0) {
+        received = new ArrayDeque<TupleBatch>();
+      } else {
+        received = null;
       }
-      return 0;
+    }
+
+    /**
+     * @param tb the next batch of the run, which is not empty.
+     */
+    void setBatch(final TupleBatch tb) {
+      columns = tb.getDataColumns();
+      numTuples = tb.numTuples();
+      row = 0;
     }
   }
 
@@ -84,7 +109,7 @@ public final class Merge extends NAryOperator {
    * @param children the children to be merged.
    * @param sortedColumns the indexes of columns that tuples are ordered by in the input
    * @param ascending true for each column that is ordered ascending
-   * 
+   *
    * */
   public Merge(final Operator[] children, final int[] sortedColumns, final boolean[] ascending) {
     super(children);
@@ -94,7 +119,11 @@ public final class Merge extends NAryOperator {
 
   @Override
   protected void cleanup() throws DbException {
-    childBatches.clear();
+    runs = null;
+    firstRun = null;
+    tree = null;
+    comparator = null;
+    ans = null;
   }
 
   @Override
@@ -104,84 +133,150 @@ public final class Merge extends NAryOperator {
       return nexttb;
     }
 
-    int numEOS = 0;
+    if (tree == null) {
+      // every run needs its first tuple, or to be done, before the first match
+      for (Run run : runs) {
+        if (!fill(run)) {
+          return null;
+        }
+      }
+      buildTree();
+    }
 
     while (nexttb == null) {
-      numEOS = 0;
-
-      // fill the buffers, if possible and necessary
-      boolean notEnoughData = false;
-      for (int childIdx = 0; childIdx < getNumChildren(); childIdx++) {
-        Operator child = getChild(childIdx);
-        if (child.eos()) {
-          numEOS++;
-          continue;
-        }
-        if (childBatches.get(childIdx) == null) {
-          TupleBatch tb = child.nextReady();
-
-          // After fetching from a child, it might be EOS.
-          // If we don't catch this case here but return null,
-          // this method might not be called again.
-          if (child.eos()) {
-            numEOS++;
-            continue;
-          }
-          if (tb != null) {
-            childBatches.set(childIdx, tb);
-            childRowIndexes.set(childIdx, 0);
-
-            // add the index after we refilled the batch or
-            // when the batches are initially loaded
-            heap.add(childIdx);
-          } else {
-            notEnoughData = true;
-            break;
-          }
+      if (pendingRun >= 0) {
+        if (!fill(runs[pendingRun])) {
+          return null;
         }
+        replay(pendingRun);
+        pendingRun = -1;
       }
 
-      if (notEnoughData) {
-        // break if this is EOS to ensure that we don't return
-        // null and have data in buffer which would mean that this
-        // method is never called again.
-        if (numEOS == getNumChildren()) {
-          break;
-        }
-        return null;
+      int winner = tree[0];
+      Run run = runs[winner];
+      if (run.done) {
+        // the smallest run is done, so all runs are
+        setEOS();
+        return ans.popAny();
+      }
+      for (int column = 0; column < run.columns.size(); ++column) {
+        ans.put(column, run.columns.get(column), run.row);
       }
+      if (++run.row == run.numTuples) {
+        run.columns = null;
+        // We cannot replay the run here because we don't know whether there will be data or not.
+        pendingRun = winner;
+      } else {
+        replay(winner);
+      }
+      nexttb = ans.popFilled();
+    }
 
-      Integer smallestTb = heap.poll();
-      if (smallestTb != null) {
-        Integer positionInSmallestTb = childRowIndexes.get(smallestTb);
-        ans.put(childBatches.get(smallestTb), positionInSmallestTb);
+    return nexttb;
+  }
 
-        // reset tb or advance position pointer
-        if (positionInSmallestTb == childBatches.get(smallestTb).numTuples() - 1) {
-          childRowIndexes.set(smallestTb, -1);
-          childBatches.set(smallestTb, null);
+  /**
+   * Make sure that a run has a current tuple or is done.
+   *
+   * @param run the run.
+   * @return false if the run has no current tuple because its child has no data yet.
+   * @throws DbException if the child fails.
+   */
+  private boolean fill(final Run run) throws DbException {
+    final Operator child = run.child;
+    while (run.columns == null && !run.done) {
+      if (run.received == null) {
+        TupleBatch tb = child.nextReady();
+        if (tb != null) {
+          run.setBatch(tb);
+        } else if (child.eos()) {
+          run.done = true;
         } else {
-          childRowIndexes.set(smallestTb, positionInSmallestTb + 1);
-          // We either re-add the index to the child here or when we fetch more data.
-          // We cannot re-add it here because we don't know whether there will be data or not.
-          heap.add(smallestTb);
+          return false;
         }
-        nexttb = ans.popFilled();
+        continue;
       }
 
-      if (numEOS == getNumChildren()) {
-        setEOS();
-        Preconditions.checkArgument(heap.size() == 0);
-        Preconditions.checkArgument(nexttb == null);
-        break;
+      TupleBatch tb = run.received.poll();
+      if (tb != null) {
+        run.setBatch(tb);
+        continue;
+      }
+      Consumer consumer = (Consumer) child;
+      if (consumer.eos() || consumer.isSourceWorkerEOS(run.sourceWorkerIdx)) {
+        run.done = true;
+        continue;
+      }
+      // route the next batch to the run of its source worker, and check again
+      tb = consumer.nextReady();
+      if (tb != null) {
+        int sourceWorkerIdx = consumer.getSourceWorkerIndex(((ExchangeTupleBatch) tb).getSourceWorkerID());
+        runs[firstRun[run.childIdx] + sourceWorkerIdx].received.add(tb);
+      } else if (!consumer.eos() && !consumer.isSourceWorkerEOS(run.sourceWorkerIdx)) {
+        return false;
       }
     }
+    return true;
+  }
 
-    if (nexttb == null && ans.numTuples() > 0) {
-      nexttb = ans.popAny();
+  /**
+   * Play all the matches of the loser tree, once every run has a current tuple or is done.
+   */
+  private void buildTree() {
+    final int numRuns = runs.length;
+    tree = new int[numRuns];
+    // winners[i] is the winner of the match at node i; the leaves are at numRuns and above.
+    int[] winners = new int[2 * numRuns];
+    for (int i = 0; i < numRuns; ++i) {
+      winners[numRuns + i] = i;
+    }
+    for (int node = numRuns - 1; node >= 1; --node) {
+      int left = winners[2 * node];
+      int right = winners[2 * node + 1];
+      if (less(left, right)) {
+        winners[node] = left;
+        tree[node] = right;
+      } else {
+        winners[node] = right;
+        tree[node] = left;
+      }
     }
+    tree[0] = winners[1];
+    pendingRun = -1;
+  }
 
-    return nexttb;
+  /**
+   * Replay the matches on the path from a run to the root of the loser tree, after the current tuple of the run
+   * changed.
+   *
+   * @param run the index of the run.
+   */
+  private void replay(final int run) {
+    int winner = run;
+    for (int node = (run + runs.length) / 2; node >= 1; node /= 2) {
+      int loser = tree[node];
+      if (less(loser, winner)) {
+        tree[node] = winner;
+        winner = loser;
+      }
+    }
+    tree[0] = winner;
+  }
+
+  /**
+   * @param left the index of a run.
+   * @param right the index of another run.
+   * @return true if the current tuple of the first run sorts before that of the second. Runs that are done sort last,
+   *         and ties go to the run with the lower index.
+   */
+  private boolean less(final int left, final int right) {
+    final Run leftRun = runs[left];
+    final Run rightRun = runs[right];
+    if (leftRun.done || rightRun.done) {
+      return !leftRun.done || rightRun.done && left < right;
+    }
+    int compared = comparator.compare(leftRun.columns, leftRun.row, rightRun.columns, rightRun.row);
+    return compared < 0 || compared == 0 && left < right;
   }
 
   @Override
@@ -192,16 +287,35 @@ public final class Merge extends NAryOperator {
     Preconditions.checkArgument(ascending.length == sortedColumns.length);
 
     ans = new TupleBatchBuffer(getSchema());
-    for (Operator child : getChildren()) {
+    comparator = new RowComparator(getSchema(), sortedColumns, ascending);
+    firstRun = new int[getNumChildren()];
+    int numRuns = 0;
+    for (int childIdx = 0; childIdx < getNumChildren(); ++childIdx) {
+      Operator child = getChild(childIdx);
       Preconditions.checkNotNull(child);
       Preconditions.checkArgument(getSchema().equals(child.getSchema()));
 
-      childBatches.add(null);
-      childRowIndexes.add(-1);
+      firstRun[childIdx] = numRuns;
+      if (child instanceof Consumer) {
+        numRuns += ((Consumer) child).getNumSourceWorkers();
+      } else {
+        numRuns++;
+      }
     }
 
-    Comparator<Integer> comparator = new TupleComparator();
-    heap = new PriorityQueue<Integer>(getNumChildren(), comparator);
+    runs = new Run[numRuns];
+    for (int childIdx = 0; childIdx < getNumChildren(); ++childIdx) {
+      Operator child = getChild(childIdx);
+      if (child instanceof Consumer) {
+        for (int i = 0; i < ((Consumer) child).getNumSourceWorkers(); ++i) {
+          runs[firstRun[childIdx] + i] = new Run(child, childIdx, i);
+        }
+      } else {
+        runs[firstRun[childIdx]] = new Run(child, childIdx, -1);
+      }
+    }
+    tree = null;
+    pendingRun = -1;
   }
 
   @Override
@@ -217,7 +331,7 @@ public final class Merge extends NAryOperator {
 
   /**
    * Define how the tuples are sorted in the input and how they should be sorted in the output.
-   * 
+   *
    * @param sortedColumns the indexes of columns that tuples are ordered by in the input
    * @param ascending true for each column that is ordered ascending
    */
@@ -225,4 +339,18 @@ public final class Merge extends NAryOperator {
     this.sortedColumns = sortedColumns;
     this.ascending = ascending;
   }
+
+  /**
+   * @return the indexes of columns that tuples are ordered by.
+   */
+  public int[] getSortedColumns() {
+    return sortedColumns;
+  }
+
+  /**
+   * @return true for each sorted column that is ordered ascending.
+   */
+  public boolean[] getAscending() {
+    return ascending;
+  }
 }
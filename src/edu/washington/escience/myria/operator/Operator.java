@@ -5,6 +5,7 @@ import java.util.Arrays;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 import javax.annotation.Nonnull;
 
@@ -20,7 +21,9 @@ import edu.washington.escience.myria.parallel.LocalFragment;
 import edu.washington.escience.myria.parallel.LocalFragmentResourceManager;
 import edu.washington.escience.myria.parallel.LocalSubQuery;
 import edu.washington.escience.myria.parallel.WorkerSubQuery;
+import edu.washington.escience.myria.profiling.ExecutingOperatorMarker;
 import edu.washington.escience.myria.profiling.ProfilingLogger;
+import edu.washington.escience.myria.storage.OffHeapMemoryManager;
 import edu.washington.escience.myria.storage.TupleBatch;
 
 /**
@@ -96,6 +99,12 @@ public abstract class Operator implements Serializable {
    */
   private Set<ProfilingMode> profilingMode;
 
+  /**
+   * The marker of the operator executing in the fragment, which this operator updates. Only set when sampling
+   * profiling is enabled.
+   */
+  private transient ExecutingOperatorMarker executingOperator;
+
   /**
    * @return the profilingLogger
    */
@@ -136,6 +145,31 @@ public abstract class Operator implements Serializable {
     }
   }
 
+  /**
+   * @return the off-heap memory of the fragment executing this operator, or null if it is not executed by a fragment.
+   */
+  protected final OffHeapMemoryManager getOffHeapMemory() {
+    if (execEnvVars == null) {
+      return null;
+    }
+    LocalFragmentResourceManager lfrm =
+        (LocalFragmentResourceManager) execEnvVars.get(MyriaConstants.EXEC_ENV_VAR_FRAGMENT_RESOURCE_MANAGER);
+    if (lfrm == null) {
+      return null;
+    }
+    return lfrm.getOffHeapMemory();
+  }
+
+  /**
+   * @return the worker's executor for the read-ahead of scans, or null if this operator is not executed by a worker.
+   */
+  protected final ExecutorService getPrefetchExecutor() {
+    if (execEnvVars == null) {
+      return null;
+    }
+    return (ExecutorService) execEnvVars.get(MyriaConstants.EXEC_ENV_VAR_PREFETCH_EXECUTOR);
+  }
+
   /**
    * fragment id of this operator.
    */
@@ -328,6 +362,11 @@ public abstract class Operator implements Serializable {
       startTime = profilingLogger.getTime(this);
     }
 
+    Operator callerOperator = null;
+    if (executingOperator != null) {
+      callerOperator = executingOperator.swap(this);
+    }
+
     TupleBatch result = null;
     try {
       do {
@@ -338,6 +377,10 @@ public abstract class Operator implements Serializable {
       throw e;
     } catch (Exception e) {
       throw new DbException(e);
+    } finally {
+      if (executingOperator != null) {
+        executingOperator.swap(callerOperator);
+      }
     }
     if (getProfilingMode().contains(ProfilingMode.QUERY)) {
       int numberOfTupleReturned = -1;
@@ -410,6 +453,11 @@ public abstract class Operator implements Serializable {
         profilingLogger = ((WorkerSubQuery) getLocalSubQuery()).getWorker().getProfilingLogger();
       }
     }
+    if (execEnvVars != null) {
+      executingOperator = (ExecutingOperatorMarker) execEnvVars.get(MyriaConstants.EXEC_ENV_VAR_EXECUTING_OPERATOR);
+    } else {
+      executingOperator = null;
+    }
   }
 
   /**
@@ -5,8 +5,10 @@ import java.util.Objects;
 
 import javax.annotation.Nullable;
 
+import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
 
+import edu.washington.escience.myria.DbException;
 import edu.washington.escience.myria.Schema;
 import edu.washington.escience.myria.storage.TupleBatch;
 import edu.washington.escience.myria.storage.TupleUtils;
@@ -45,7 +47,7 @@ public final class OrderedDupElim extends UnaryOperator {
    * first.
    * 
    * @param child the source of the tuples.
-   * @param sortColumns the order in which the columns of the input tuples are sorted.
+   * @param sortColumns the order in which the columns of the input tuples are sorted. Must include every column.
    */
   public OrderedDupElim(final Operator child, @Nullable final int[] sortColumns) {
     super(child);
@@ -80,6 +82,17 @@ public final class OrderedDupElim extends UnaryOperator {
         invSortColumns[i] = numColumns - i - 1;
       }
     }
+    /* Comparing with the previous tuple only finds all duplicates if the input is sorted on every column. */
+    boolean[] sorted = new boolean[schema.numColumns()];
+    for (int column : invSortColumns) {
+      Preconditions.checkElementIndex(column, sorted.length, "sort column");
+      sorted[column] = true;
+    }
+    for (int column = 0; column < sorted.length; ++column) {
+      if (!sorted[column]) {
+        throw new DbException("The input must be sorted on every column, but not on column " + column);
+      }
+    }
   };
 
   @Override
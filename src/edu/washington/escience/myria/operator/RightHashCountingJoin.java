@@ -264,6 +264,10 @@ public class RightHashCountingJoin extends BinaryOperator {
    */
   protected void processRightChildTB(final TupleBatch tb) {
     for (int row = 0; row < tb.numTuples(); ++row) {
+      if (TupleUtils.hasNull(tb, rightCompareIndx, row)) {
+        /* a null key joins nothing. */
+        continue;
+      }
       final int cntHashCode = HashUtils.hashSubRow(tb, rightCompareIndx, row);
       // only build hash table on two sides if none of the children is EOS
       updateHashTableAndOccureTimes(tb, row, cntHashCode, hashTable, hashTableIndices, rightCompareIndx, occurredTimes);
@@ -282,6 +286,10 @@ public class RightHashCountingJoin extends BinaryOperator {
     doCountingJoin.occuredTimesOnJoinAgainstChild = occurredTimes;
     doCountingJoin.joinAgainstHashTable = hashTable;
     for (int row = 0; row < tb.numTuples(); ++row) {
+      if (TupleUtils.hasNull(tb, doCountingJoin.inputCmpColumns, row)) {
+        /* a null key joins nothing. */
+        continue;
+      }
 
       /*
        * update number of count of probing the other child's hash table.
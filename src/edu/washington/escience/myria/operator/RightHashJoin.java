@@ -387,6 +387,10 @@ public final class RightHashJoin extends BinaryOperator {
     doJoin.inputTB = tb;
 
     for (int row = 0; row < tb.numTuples(); ++row) {
+      if (TupleUtils.hasNull(tb, doJoin.inputCmpColumns, row)) {
+        /* a null key joins nothing. */
+        continue;
+      }
       final int cntHashCode = HashUtils.hashSubRow(tb, doJoin.inputCmpColumns, row);
       IntArrayList tuplesWithHashCode = rightHashTableIndices.get(cntHashCode);
       if (tuplesWithHashCode != null) {
@@ -404,6 +408,10 @@ public final class RightHashJoin extends BinaryOperator {
   protected void processRightChildTB(final TupleBatch tb) {
 
     for (int row = 0; row < tb.numTuples(); ++row) {
+      if (TupleUtils.hasNull(tb, rightCompareIndx, row)) {
+        /* a null key joins nothing. */
+        continue;
+      }
       final int cntHashCode = HashUtils.hashSubRow(tb, rightCompareIndx, row);
       // only build hash table on two sides if none of the children is EOS
       addToHashTable(tb, row, rightHashTable, rightHashTableIndices, cntHashCode);
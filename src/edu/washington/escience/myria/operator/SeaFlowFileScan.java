@@ -4,20 +4,23 @@ import java.io.BufferedInputStream;
 import java.io.DataInput;
 import java.io.EOFException;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.io.InputStream;
+import java.util.Arrays;
 import java.util.Objects;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.io.LittleEndianDataInputStream;
+import com.google.common.primitives.Ints;
 
 import edu.washington.escience.myria.DbException;
 import edu.washington.escience.myria.Schema;
 import edu.washington.escience.myria.Type;
 import edu.washington.escience.myria.io.DataSource;
 import edu.washington.escience.myria.io.FileSource;
+import edu.washington.escience.myria.io.PrefetchingInputStream;
+import edu.washington.escience.myria.io.RangedDataSource;
 import edu.washington.escience.myria.storage.TupleBatch;
 import edu.washington.escience.myria.storage.TupleBatchBuffer;
 
@@ -25,6 +28,9 @@ import edu.washington.escience.myria.storage.TupleBatchBuffer;
  * Read a SeaFlow EVT/OPP file. See the formats in https://github.com/fribalet/flowPhyto/blob/master/R/Globals.R
  * 
  * This operator implements file format version 3.
+ * 
+ * If the source is a {@link RangedDataSource}, it is read ahead in parallel chunks, and the rows can be split among
+ * several workers: given the workers sharing the source, each reads a contiguous, equal share of the rows.
  */
 public class SeaFlowFileScan extends LeafOperator {
 
@@ -32,14 +38,18 @@ public class SeaFlowFileScan extends LeafOperator {
   private static final long serialVersionUID = 1L;
   /** The data input file. */
   private transient DataInput input;
+  /** The stream under {@link #input}. */
+  private transient InputStream inputStream;
   /** Holds the tuples that are ready for release. */
   private transient TupleBatchBuffer buffer;
 
   /** The group number file name. */
   private final DataSource source;
+  /** The workers that share the source, or null if this operator reads all rows. */
+  private final int[] workers;
   /** Which record the reader is currently on. */
   private int lineNumber;
-  /** The expected number of rows in the file. */
+  /** The index after the last row to read, i.e., the expected number of rows in the file if all rows are read. */
   private int numRows;
   /** The magic number at the end of each line (but the last) in a SeaFlow file. */
   private static final int EOL = 10;
@@ -59,6 +69,8 @@ public class SeaFlowFileScan extends LeafOperator {
       "chl_big"));
   /** The number of columns in the schema of a SeaFlow EVT/OPP file. */
   private static final int NUM_COLUMNS = OPP_SCHEMA.numColumns();
+  /** The number of bytes in the header of a SeaFlow EVT/OPP file, i.e., the number of rows. */
+  private static final int HEADER_SIZE = 4;
   /** The number of bytes in one row of a SeaFlow EVT/OPP file. */
   private static final int COLUMN_SIZE = OPP_SCHEMA.numColumns() * 2 + 4;
 
@@ -77,7 +89,26 @@ public class SeaFlowFileScan extends LeafOperator {
    * @param source contains the data to be read.
    */
   public SeaFlowFileScan(final DataSource source) {
+    this(source, null);
+  }
+
+  /**
+   * Construct a SeaFlowFileScan reading this worker's share of the rows in the specified data source.
+   * 
+   * @param source contains the data to be read. Must be a {@link RangedDataSource} if workers is not null.
+   * @param workers the workers that share the source. The worker at index i of n reads the rows from i/n to (i+1)/n of
+   *          the source. If null, all rows are read.
+   */
+  public SeaFlowFileScan(final DataSource source, final int[] workers) {
     this.source = Objects.requireNonNull(source);
+    Preconditions.checkArgument(workers == null || workers.length > 0, "workers must not be empty");
+    Preconditions.checkArgument(workers == null || source instanceof RangedDataSource,
+        "splitting a SeaFlow file among workers requires a ranged data source");
+    if (workers == null) {
+      this.workers = null;
+    } else {
+      this.workers = Arrays.copyOf(workers, workers.length);
+    }
   }
 
   @Override
@@ -117,26 +148,55 @@ public class SeaFlowFileScan extends LeafOperator {
   protected final void init(final ImmutableMap<String, Object> execEnvVars) throws DbException {
     buffer = new TupleBatchBuffer(getSchema());
 
+    lineNumber = 0;
     try {
-      input = new LittleEndianDataInputStream(new BufferedInputStream(source.getInputStream()));
-      numRows = input.readInt(); /* number of rows */
-      /* If the source is a FileSource, we can actually check its length. */
-      if (source instanceof FileSource) {
-        long length = Files.size(Paths.get(((FileSource) source).getFilename()));
-        long expectedSize = 4 + numRows * COLUMN_SIZE;
-        Preconditions.checkArgument(length == expectedSize, "Given %s rows, expected a file of length %s, not %s",
-            numRows, expectedSize, length);
+      if (!(source instanceof RangedDataSource)) {
+        inputStream = new BufferedInputStream(source.getInputStream());
+        input = new LittleEndianDataInputStream(inputStream);
+        numRows = input.readInt(); /* number of rows */
+        return;
+      }
+
+      RangedDataSource rangedSource = (RangedDataSource) source;
+      try (InputStream header = rangedSource.getInputStream(0, HEADER_SIZE)) {
+        numRows = new LittleEndianDataInputStream(header).readInt(); /* number of rows */
+      }
+      /* If the source knows its size, e.g., it is a FileSource, we can actually check its length. */
+      long length = rangedSource.size();
+      long expectedSize = HEADER_SIZE + (long) numRows * COLUMN_SIZE;
+      Preconditions.checkArgument(length == expectedSize, "Given %s rows, expected a file of length %s, not %s",
+          numRows, expectedSize, length);
+      if (workers != null) {
+        int index = Ints.indexOf(workers, getNodeID());
+        if (index < 0) {
+          throw new DbException("worker " + getNodeID() + " is not one of the workers sharing the SeaFlow file: "
+              + Arrays.toString(workers));
+        }
+        int first = (int) ((long) numRows * index / workers.length);
+        numRows = (int) ((long) numRows * (index + 1) / workers.length);
+        lineNumber = first;
       }
+      inputStream =
+          new PrefetchingInputStream(rangedSource, HEADER_SIZE + (long) lineNumber * COLUMN_SIZE,
+              (long) (numRows - lineNumber) * COLUMN_SIZE, getPrefetchExecutor());
+      input = new LittleEndianDataInputStream(inputStream);
     } catch (IOException e) {
       throw new DbException(e);
     }
-
-    lineNumber = 0;
   }
 
   @Override
   protected final void cleanup() throws DbException {
     buffer.clear();
+    if (inputStream != null) {
+      try {
+        inputStream.close();
+      } catch (IOException e) {
+        throw new DbException(e);
+      } finally {
+        inputStream = null;
+      }
+    }
   }
 
   @Override
@@ -0,0 +1,179 @@
+package edu.washington.escience.myria.operator;
+
+import java.util.List;
+import java.util.Objects;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+
+import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.column.Column;
+import edu.washington.escience.myria.storage.RowComparator;
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.storage.TupleBatchBuffer;
+
+/**
+ * Implementation of set difference for inputs that are both sorted on all their columns in the same order. Duplicates
+ * are not preserved.
+ *
+ * Like a merge join, this reads both inputs in step and keeps only their current tuples, instead of a hash table of the
+ * right relation and the distinct tuples of the left one as in {@link Difference}. Its output is sorted the same way.
+ */
+public final class SortedDifference extends BinaryOperator {
+
+  /** Required for Java serialization. */
+  private static final long serialVersionUID = 1L;
+
+  /** The order of the columns the inputs are sorted on. */
+  private final int[] sortColumns;
+  /** True for each column in {@link #sortColumns} that is sorted ascending. */
+  private final boolean[] ascending;
+
+  /** Compares tuples in the sort order of the inputs. */
+  private transient RowComparator comparator;
+  /** The columns of the current left batch, or null if there is none. */
+  private transient List<? extends Column<?>> leftColumns;
+  /** The number of tuples in the current left batch. */
+  private transient int leftNumTuples;
+  /** The current left tuple. */
+  private transient int leftRow;
+  /** The columns of the current right batch, or null if there is none. */
+  private transient List<? extends Column<?>> rightColumns;
+  /** The number of tuples in the current right batch. */
+  private transient int rightNumTuples;
+  /** The current right tuple. */
+  private transient int rightRow;
+  /** The columns of the last left tuple that was output or removed, or null if there is none. */
+  private transient List<? extends Column<?>> lastColumns;
+  /** The last left tuple that was output or removed. */
+  private transient int lastRow;
+  /** The buffer holding the results. */
+  private transient TupleBatchBuffer ans;
+
+  /**
+   * Instantiate a set difference operator: left EXCEPT right.
+   *
+   * @param left the operator being subtracted from.
+   * @param right the operator to be subtracted.
+   * @param sortColumns the order of the columns the inputs are sorted on, which must include every column.
+   * @param ascending true for each column in sortColumns that is sorted ascending.
+   */
+  public SortedDifference(final Operator left, final Operator right, final int[] sortColumns,
+      final boolean[] ascending) {
+    super(left, right);
+    this.sortColumns = Objects.requireNonNull(sortColumns, "sortColumns");
+    this.ascending = Objects.requireNonNull(ascending, "ascending");
+    Preconditions.checkArgument(sortColumns.length == ascending.length,
+        "sort columns number should be equal to ascending orders number");
+  }
+
+  @Override
+  protected TupleBatch fetchNextReady() throws Exception {
+    TupleBatch nexttb = ans.popFilled();
+    while (nexttb == null) {
+      if (leftColumns == null) {
+        TupleBatch tb = getLeft().nextReady();
+        if (tb == null) {
+          if (getLeft().eos()) {
+            // the rest of the right child cannot remove anything
+            nexttb = ans.popAny();
+            if (nexttb == null) {
+              setEOS();
+            }
+            return nexttb;
+          }
+          return null;
+        }
+        leftColumns = tb.getDataColumns();
+        leftNumTuples = tb.numTuples();
+        leftRow = 0;
+      }
+      if (rightColumns == null && !getRight().eos()) {
+        TupleBatch tb = getRight().nextReady();
+        if (tb != null) {
+          rightColumns = tb.getDataColumns();
+          rightNumTuples = tb.numTuples();
+          rightRow = 0;
+        } else if (!getRight().eos()) {
+          return null;
+        }
+      }
+
+      if (lastColumns != null && comparator.compare(leftColumns, leftRow, lastColumns, lastRow) == 0) {
+        advanceLeft();
+        continue;
+      }
+      int compared = -1;
+      if (rightColumns != null) {
+        compared = comparator.compare(leftColumns, leftRow, rightColumns, rightRow);
+      }
+      if (compared > 0) {
+        if (++rightRow == rightNumTuples) {
+          rightColumns = null;
+        }
+        continue;
+      }
+      if (compared < 0) {
+        for (int column = 0; column < leftColumns.size(); ++column) {
+          ans.put(column, leftColumns.get(column), leftRow);
+        }
+      }
+      lastColumns = leftColumns;
+      lastRow = leftRow;
+      advanceLeft();
+      nexttb = ans.popFilled();
+    }
+    return nexttb;
+  }
+
+  /**
+   * Move to the next left tuple.
+   */
+  private void advanceLeft() {
+    if (++leftRow == leftNumTuples) {
+      leftColumns = null;
+    }
+  }
+
+  @Override
+  protected Schema generateSchema() {
+    if (getLeft() == null) {
+      return null;
+    } else {
+      return getLeft().getSchema();
+    }
+  }
+
+  @Override
+  public void init(final ImmutableMap<String, Object> execEnvVars) throws DbException {
+    if (!getLeft().getSchema().compatible(getRight().getSchema())) {
+      throw new DbException("Incompatible input schemas");
+    }
+    boolean[] sorted = new boolean[getSchema().numColumns()];
+    for (int column : sortColumns) {
+      Preconditions.checkElementIndex(column, sorted.length, "sort column");
+      sorted[column] = true;
+    }
+    for (int column = 0; column < sorted.length; ++column) {
+      if (!sorted[column]) {
+        throw new DbException("The inputs must be sorted on every column, but not on column " + column);
+      }
+    }
+
+    comparator = new RowComparator(getSchema(), sortColumns, ascending);
+    leftColumns = null;
+    rightColumns = null;
+    lastColumns = null;
+    ans = new TupleBatchBuffer(getSchema());
+  }
+
+  @Override
+  protected void cleanup() throws DbException {
+    comparator = null;
+    leftColumns = null;
+    rightColumns = null;
+    lastColumns = null;
+    ans = null;
+  }
+}
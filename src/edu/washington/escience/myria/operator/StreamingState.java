@@ -69,6 +69,15 @@ public abstract class StreamingState implements Serializable {
    */
   public abstract int numTuples();
 
+  /**
+   * @return true if updating this state with the tuples of an iteration one batch at a time produces the same delta as
+   *         first combining them and then updating, e.g. because the state has set semantics. Synchronous recursion
+   *         can then update such a state as tuples arrive instead of buffering a whole iteration.
+   */
+  public boolean isIdempotent() {
+    return false;
+  }
+
   /**
    * @return a new instance of StreamingState with all the constructor arguments copied.
    * */
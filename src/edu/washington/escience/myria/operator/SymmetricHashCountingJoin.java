@@ -348,6 +348,10 @@ public final class SymmetricHashCountingJoin extends BinaryOperator {
     }
 
     for (int row = 0; row < tb.numTuples(); ++row) {
+      if (TupleUtils.hasNull(tb, doCountingJoin.inputCmpColumns, row)) {
+        /* a null key joins nothing. */
+        continue;
+      }
 
       /*
        * update number of count of probing the other child's hash table.
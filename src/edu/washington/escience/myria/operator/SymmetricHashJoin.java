@@ -19,6 +19,7 @@ import edu.washington.escience.myria.column.Column;
 import edu.washington.escience.myria.parallel.QueryExecutionMode;
 import edu.washington.escience.myria.storage.MutableTupleBuffer;
 import edu.washington.escience.myria.storage.ReadableColumn;
+import edu.washington.escience.myria.storage.SemiNaiveRelation;
 import edu.washington.escience.myria.storage.TupleBatch;
 import edu.washington.escience.myria.storage.TupleBatchBuffer;
 import edu.washington.escience.myria.storage.TupleUtils;
@@ -28,6 +29,10 @@ import edu.washington.escience.myria.util.MyriaArrayUtils;
 /**
  * This is an implementation of hash equal join. The same as in DupElim, this implementation does not keep the
  * references to the incoming TupleBatches in order to get better memory performance.
+ * 
+ * If the left child is an {@link IDBController} whose state is a {@link DupElim}, the tuples of the left child are not
+ * copied into a hash table: the right tuples probe the {@link SemiNaiveRelation} of the controller instead, on the rows
+ * that the controller has already emitted to this join.
  */
 public final class SymmetricHashJoin extends BinaryOperator {
   /** Required for Java serialization. */
@@ -67,6 +72,16 @@ public final class SymmetricHashJoin extends BinaryOperator {
    * The buffer holding the results.
    */
   private transient TupleBatchBuffer ans;
+  /** The state of the left child if it is an IDBController with a DupElim state, else null. */
+  private transient SemiNaiveRelation leftIDB;
+  /** The index of leftIDB on the left join columns. */
+  private transient int leftIDBIndex;
+  /** The number of tuples received from the left child, i.e., the rows of leftIDB that right tuples join with. */
+  private transient int leftIDBReceived;
+  /** The columns of leftIDB. */
+  private transient ReadableColumn[] leftIDBColumns;
+  /** The rows of leftIDB that match a right tuple. */
+  private transient IntArrayList leftIDBMatches;
   /** Which columns in the left child are to be output. */
   private final int[] leftAnswerColumns;
   /** Which columns in the right child are to be output. */
@@ -393,10 +408,27 @@ public final class SymmetricHashJoin extends BinaryOperator {
     }
   }
 
+  /**
+   * @param rightTB the TB of the right tuple.
+   * @param rightRow the row of the right tuple.
+   * @param leftRow the row of leftIDB, which the right tuple is to join with.
+   */
+  private void addIDBToAns(final TupleBatch rightTB, final int rightRow, final int leftRow) {
+    List<? extends Column<?>> tbColumns = rightTB.getDataColumns();
+    for (int i = 0; i < leftAnswerColumns.length; ++i) {
+      ans.put(i, leftIDBColumns[leftAnswerColumns[i]], leftRow);
+    }
+    for (int i = 0; i < rightAnswerColumns.length; ++i) {
+      ans.put(i + leftAnswerColumns.length, tbColumns.get(rightAnswerColumns[i]), rightRow);
+    }
+  }
+
   @Override
   protected void cleanup() throws DbException {
     hashTable1 = null;
     hashTable2 = null;
+    leftIDB = null;
+    leftIDBColumns = null;
     ans = null;
   }
 
@@ -587,8 +619,27 @@ public final class SymmetricHashJoin extends BinaryOperator {
     leftHashTableIndices = new IntObjectHashMap<IntArrayList>();
     rightHashTableIndices = new IntObjectHashMap<IntArrayList>();
 
-    hashTable1 = new MutableTupleBuffer(left.getSchema());
-    hashTable2 = new MutableTupleBuffer(right.getSchema());
+    hashTable1 = new MutableTupleBuffer(left.getSchema(), getOffHeapMemory());
+    hashTable2 = new MutableTupleBuffer(right.getSchema(), getOffHeapMemory());
+
+    leftIDB = null;
+    if (left instanceof IDBController && !setSemanticsLeft) {
+      StreamingState state = ((IDBController) left).getStreamingState();
+      if (state instanceof DupElim) {
+        leftIDB = ((DupElim) state).getRelation();
+      }
+    }
+    if (leftIDB != null) {
+      leftIDBIndex = leftIDB.addIndex(leftCompareIndx);
+      leftIDBReceived = 0;
+      leftIDBColumns = new ReadableColumn[left.getSchema().numColumns()];
+      for (int i = 0; i < leftIDBColumns.length; ++i) {
+        leftIDBColumns[i] = leftIDB.getTuples().asColumn(i);
+      }
+      leftIDBMatches = new IntArrayList();
+      leftHashTableIndices = null;
+      hashTable1 = null;
+    }
 
     ans = new TupleBatchBuffer(getSchema());
 
@@ -661,12 +712,25 @@ public final class SymmetricHashJoin extends BinaryOperator {
       doReplace.inputTB = tb;
     }
 
+    final boolean probeLeftIDB = !fromLeft && leftIDB != null;
     for (int row = 0; row < tb.numTuples(); ++row) {
+      if (TupleUtils.hasNull(tb, doJoin.inputCmpColumns, row)) {
+        /* a null key joins nothing. */
+        continue;
+      }
       final int cntHashCode = HashUtils.hashSubRow(tb, doJoin.inputCmpColumns, row);
-      IntArrayList tuplesWithHashCode = hashTable2IndicesLocal.get(cntHashCode);
-      if (tuplesWithHashCode != null) {
-        doJoin.row = row;
-        tuplesWithHashCode.forEach(doJoin);
+      if (probeLeftIDB) {
+        leftIDBMatches.clear();
+        leftIDB.probe(leftIDBIndex, tb, rightCompareIndx, row, leftIDBReceived, leftIDBMatches);
+        for (int i = 0; i < leftIDBMatches.size(); ++i) {
+          addIDBToAns(tb, row, leftIDBMatches.get(i));
+        }
+      } else {
+        IntArrayList tuplesWithHashCode = hashTable2IndicesLocal.get(cntHashCode);
+        if (tuplesWithHashCode != null) {
+          doJoin.row = row;
+          tuplesWithHashCode.forEach(doJoin);
+        }
       }
 
       if (hashTable1Local != null) {
@@ -674,6 +738,10 @@ public final class SymmetricHashJoin extends BinaryOperator {
         addToHashTable(tb, row, hashTable1Local, hashTable1IndicesLocal, cntHashCode, useSetSemantics);
       }
     }
+    if (fromLeft && leftIDB != null) {
+      /* the controller has appended these tuples to its state, so from now on the right tuples join with them. */
+      leftIDBReceived += tb.numTuples();
+    }
   }
 
   /**
@@ -1,32 +1,42 @@
 package edu.washington.escience.myria.operator;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedReader;
-import java.io.DataInput;
-import java.io.DataInputStream;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
+import java.io.EOFException;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
 import java.util.Objects;
-import java.util.Scanner;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.primitives.Ints;
 
 import edu.washington.escience.myria.DbException;
 import edu.washington.escience.myria.Schema;
 import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.column.Column;
+import edu.washington.escience.myria.column.ConstantValueColumn;
+import edu.washington.escience.myria.column.FloatColumn;
+import edu.washington.escience.myria.column.IntArrayColumn;
+import edu.washington.escience.myria.column.LongColumn;
+import edu.washington.escience.myria.io.LineIndex;
+import edu.washington.escience.myria.io.MappedFileInput;
 import edu.washington.escience.myria.storage.TupleBatch;
-import edu.washington.escience.myria.storage.TupleBatchBuffer;
 
 /**
  * Read and merge Tipsy bin file, iOrder ascii file and group number ascii file.
- * 
+ *
+ * All three files are memory-mapped. Tipsy records have a fixed size per particle type, so the offset of any record in
+ * the bin file can be computed, and the particles can be split among several workers: given the workers sharing the
+ * files, each reads a contiguous, equal share of the particles. The ascii files have one line per particle, and a
+ * worker finds its first line through a {@link LineIndex}, which it builds in memory. Each batch holds particles of
+ * one type and is built column by column straight from the mapped file.
+ *
  * @author leelee
- * 
+ *
  */
 public class TipsyFileScan extends LeafOperator {
 
@@ -40,22 +50,34 @@ public class TipsyFileScan extends LeafOperator {
   private static final int D_SIZE = 36;
   /** The star record size in bytes. */
   private static final int S_SIZE = 44;
-  /** The data input for bin file. */
-  private transient DataInput dataInputForBin;
-  /** The file stream for bin file. */
-  private transient FileInputStream fStreamForBin;
-  /** A buffer for the bin file. */
-  private transient BufferedInputStream bufferedStreamForBin;
-  /** Scanner used to parse the iOrder file. */
-  private transient Scanner iOrderScanner = null;
-  /** Scanner used to parse the group number file. */
-  private transient Scanner grpScanner = null;
-  /** InputStream for iOrder file. */
-  private transient InputStream iOrderInputStream = null;
-  /** InputStream for group number file. */
-  private transient InputStream grpInputStream = null;
-  /** Holds the tuples that are ready for release. */
-  private transient TupleBatchBuffer buffer;
+  /**
+   * The columns of the float fields of a gas record, in the order they are stored: mass, x, y, z, vx, vy, vz, rho,
+   * temp, hsmooth, metals, phi.
+   */
+  private static final int[] GAS_COLUMNS = { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 14 };
+  /**
+   * The columns of the float fields of a dark record, in the order they are stored: mass, x, y, z, vx, vy, vz, eps,
+   * phi.
+   */
+  private static final int[] DARK_COLUMNS = { 1, 2, 3, 4, 5, 6, 7, 13, 14 };
+  /**
+   * The columns of the float fields of a star record, in the order they are stored: mass, x, y, z, vx, vy, vz, metals,
+   * tform, eps, phi.
+   */
+  private static final int[] STAR_COLUMNS = { 1, 2, 3, 4, 5, 6, 7, 11, 12, 13, 14 };
+  /** The column of the iOrder. */
+  private static final int IORDER_COLUMN = 0;
+  /** The column of the group number. */
+  private static final int GRP_COLUMN = 15;
+  /** The column of the particle type. */
+  private static final int TYPE_COLUMN = 16;
+
+  /** The mapped bin file. */
+  private transient MappedFileInput binInput;
+  /** The mapped iOrder file. */
+  private transient MappedFileInput iOrderInput;
+  /** The mapped group number file. */
+  private transient MappedFileInput grpInput;
 
   /** The bin file name. */
   private final String binFileName;
@@ -63,14 +85,18 @@ public class TipsyFileScan extends LeafOperator {
   private final String iOrderFileName;
   /** The group number file name. */
   private final String grpFileName;
+  /** The workers that share the files, or null if this operator reads all particles. */
+  private final int[] workers;
   /** The number of gas particle record. */
   private int ngas;
   /** The number of star particle record. */
   private int nstar;
   /** The number of dark particle record. */
   private int ndark;
-  /** Which line of the file the scanner is currently on. */
-  private int lineNumber;
+  /** The index of the next particle to read, over gas, dark and star particles in that order. */
+  private long next;
+  /** The index after the last particle to read. */
+  private long end;
 
   /** Schema for all Tipsy files. */
   private static final Schema TIPSY_SCHEMA = new Schema(ImmutableList.of(Type.LONG_TYPE, // iOrder
@@ -96,233 +122,257 @@ public class TipsyFileScan extends LeafOperator {
   /**
    * Construct a new TipsyFileScan object using the given binary filename, iOrder filename and group number filename. By
    * default TipsyFileScan will read the given binary file in big endian format.
-   * 
+   *
    * @param binFileName The binary file that contains the data for gas, dark, star particles.
    * @param iOrderFileName The ascii file that contains the data for iOrder.
    * @param grpFileName The ascii file that contains the data for group number.
    */
   public TipsyFileScan(final String binFileName, final String iOrderFileName, final String grpFileName) {
+    this(binFileName, iOrderFileName, grpFileName, null);
+  }
+
+  /**
+   * Construct a new TipsyFileScan object that reads this worker's share of the particles in the given files.
+   *
+   * @param binFileName The binary file that contains the data for gas, dark, star particles.
+   * @param iOrderFileName The ascii file that contains the data for iOrder.
+   * @param grpFileName The ascii file that contains the data for group number.
+   * @param workers The workers that share the files. The worker at index i of n reads the particles from i/n to (i+1)/n
+   *          of the files. If null, all particles are read.
+   */
+  public TipsyFileScan(final String binFileName, final String iOrderFileName, final String grpFileName,
+      final int[] workers) {
     Objects.requireNonNull(binFileName);
     Objects.requireNonNull(iOrderFileName);
     Objects.requireNonNull(grpFileName);
+    Preconditions.checkArgument(workers == null || workers.length > 0, "workers must not be empty");
     this.binFileName = binFileName;
     this.iOrderFileName = iOrderFileName;
     this.grpFileName = grpFileName;
+    if (workers == null) {
+      this.workers = null;
+    } else {
+      this.workers = Arrays.copyOf(workers, workers.length);
+    }
   }
 
   @Override
   protected final TupleBatch fetchNextReady() throws DbException {
-    processGasRecords();
-    processDarkRecords();
-    processStarRecords();
-    return buffer.popAny();
+    if (next >= end) {
+      return null;
+    }
+    try {
+      if (next < ngas) {
+        return readRecords(Math.min(end, ngas) - next, GAS_COLUMNS, "gas");
+      } else if (next < (long) ngas + ndark) {
+        return readRecords(Math.min(end, (long) ngas + ndark) - next, DARK_COLUMNS, "dark");
+      } else {
+        return readRecords(end - next, STAR_COLUMNS, "star");
+      }
+    } catch (final IOException e) {
+      throw new DbException(e);
+    }
   }
 
   @Override
   protected final void init(final ImmutableMap<String, Object> execEnvVars) throws DbException {
-    buffer = new TupleBatchBuffer(getSchema());
-
+    long ntot;
     try {
-      iOrderInputStream = new FileInputStream(iOrderFileName);
-      grpInputStream = new FileInputStream(grpFileName);
-    } catch (FileNotFoundException e) {
-      throw new DbException(e);
-    }
-    int ntot = -1;
-    try {
-      // Create a fileInputStream for the bin file
-      fStreamForBin = new FileInputStream(binFileName);
-      bufferedStreamForBin = new BufferedInputStream(fStreamForBin);
-      dataInputForBin = new DataInputStream(bufferedStreamForBin);
+      binInput = new MappedFileInput(Paths.get(binFileName));
+      iOrderInput = new MappedFileInput(Paths.get(iOrderFileName));
+      grpInput = new MappedFileInput(Paths.get(grpFileName));
 
-      dataInputForBin.readDouble(); // time
-      ntot = dataInputForBin.readInt();
-      dataInputForBin.readInt();
-      ngas = dataInputForBin.readInt();
-      ndark = dataInputForBin.readInt();
-      nstar = dataInputForBin.readInt();
-      dataInputForBin.readInt();
-      long proposed = H_SIZE + ngas * G_SIZE + ndark * D_SIZE + nstar * S_SIZE;
-      if (ntot != ngas + ndark + nstar) {
+      binInput.readDouble(); // time
+      ntot = binInput.readInt();
+      binInput.readInt();
+      ngas = binInput.readInt();
+      ndark = binInput.readInt();
+      nstar = binInput.readInt();
+      binInput.readInt();
+      long proposed = H_SIZE + (long) ngas * G_SIZE + (long) ndark * D_SIZE + (long) nstar * S_SIZE;
+      if (ntot != (long) ngas + ndark + nstar) {
         throw new DbException("header info incorrect");
       }
-      if (proposed != fStreamForBin.getChannel().size()) {
+      if (proposed != binInput.size()) {
         throw new DbException("binary file size incorrect");
       }
-    } catch (FileNotFoundException e) {
-      throw new DbException(e);
-    } catch (IOException e) {
-      throw new DbException(e);
-    }
 
-    Preconditions.checkArgument(iOrderInputStream != null, "FileScan iOrder input stream has not been set!");
-    Preconditions.checkArgument(grpInputStream != null, "FileScan group input stream has not been set!");
-    Preconditions.checkArgument(dataInputForBin != null, "FileScan binary input stream has not been set!");
-    iOrderScanner = new Scanner(new BufferedReader(new InputStreamReader(iOrderInputStream)));
-    grpScanner = new Scanner(new BufferedReader(new InputStreamReader(grpInputStream)));
-    int numIOrder = iOrderScanner.nextInt();
-    int numGrp = grpScanner.nextInt();
-    if (numIOrder != ntot) {
-      throw new DbException("number of iOrder " + numIOrder + " is different from the number of tipsy record " + ntot
-          + ".");
-    }
-    if (numGrp != ntot) {
-      throw new DbException("number of group is different from the number of tipsy record.");
+      long numIOrder = readNumber(iOrderInput, "iOrderFile", 0);
+      long numGrp = readNumber(grpInput, "grpFile", 0);
+      if (numIOrder != ntot) {
+        throw new DbException("number of iOrder " + numIOrder + " is different from the number of tipsy record "
+            + ntot + ".");
+      }
+      if (numGrp != ntot) {
+        throw new DbException("number of group is different from the number of tipsy record.");
+      }
+
+      next = 0;
+      end = ntot;
+      if (workers != null) {
+        int index = Ints.indexOf(workers, getNodeID());
+        if (index < 0) {
+          throw new DbException("worker " + getNodeID() + " is not one of the workers sharing " + binFileName + ": "
+              + Arrays.toString(workers));
+        }
+        next = ntot * index / workers.length;
+        end = ntot * (index + 1) / workers.length;
+      }
+      binInput.seek(recordOffset(next));
+      if (next > 0) {
+        /* Line 0 holds the number of particles. */
+        LineIndex.of(iOrderInput).seek(iOrderInput, next + 1);
+        LineIndex.of(grpInput).seek(grpInput, next + 1);
+      }
+    } catch (final IOException e) {
+      throw new DbException(e);
     }
-    lineNumber = 0;
   }
 
   @Override
   protected final void cleanup() throws DbException {
-    iOrderScanner = null;
-    grpScanner = null;
-    while (buffer.numTuples() > 0) {
-      buffer.popAny();
+    try {
+      for (MappedFileInput input : new MappedFileInput[] { binInput, iOrderInput, grpInput }) {
+        if (input != null) {
+          input.close();
+        }
+      }
+    } catch (final IOException e) {
+      throw new DbException(e);
+    } finally {
+      binInput = null;
+      iOrderInput = null;
+      grpInput = null;
     }
   }
 
   /**
-   * Construct tuples for gas particle records. The expected gas particles schema in the bin file is mass, x, y, z, vx,
-   * vy, vz, rho, temp, hsmooth, metals, phi. Merge the record in the binary file with iOrder and group number and fill
-   * in the each tuple column accordingly.
-   * 
-   * @throws DbException if error reading from file.
+   * @param particle the index of a particle, over gas, dark and star particles in that order.
+   * @return the offset of its record in the bin file.
    */
-  private void processGasRecords() throws DbException {
-    while (ngas > 0 && (buffer.numTuples() < TupleBatch.BATCH_SIZE)) {
-      lineNumber++;
-      try {
-        int count = 0;
-        buffer.putLong(count++, iOrderScanner.nextLong());
-        buffer.putFloat(count++, dataInputForBin.readFloat());
-        buffer.putFloat(count++, dataInputForBin.readFloat());
-        buffer.putFloat(count++, dataInputForBin.readFloat());
-        buffer.putFloat(count++, dataInputForBin.readFloat());
-        buffer.putFloat(count++, dataInputForBin.readFloat());
-        buffer.putFloat(count++, dataInputForBin.readFloat());
-        buffer.putFloat(count++, dataInputForBin.readFloat());
-        buffer.putFloat(count++, dataInputForBin.readFloat());
-        buffer.putFloat(count++, dataInputForBin.readFloat());
-        buffer.putFloat(count++, dataInputForBin.readFloat());
-        buffer.putFloat(count++, dataInputForBin.readFloat());
-        /*
-         * TODO(leelee): Should be null for the next two columns. Put 0 for now as TupleBatchBuffer does not support
-         * null value.
-         */
-        buffer.putFloat(count++, 0);
-        buffer.putFloat(count++, 0);
-        buffer.putFloat(count++, dataInputForBin.readFloat());
-        buffer.putInt(count++, grpScanner.nextInt());
-        buffer.putString(count++, "gas");
-      } catch (final IOException e) {
-        throw new DbException(e);
-      }
-      final String iOrderRest = iOrderScanner.nextLine().trim();
-      if (iOrderRest.length() > 0) {
-        throw new DbException("iOrderFile: Unexpected output at the end of line " + lineNumber + ": " + iOrderRest);
-      }
-      final String grpRest = grpScanner.nextLine().trim();
-      if (grpRest.length() > 0) {
-        throw new DbException("grpFile: Unexpected output at the end of line " + lineNumber + ": " + grpRest);
-      }
-      ngas--;
+  private long recordOffset(final long particle) {
+    if (particle <= ngas) {
+      return H_SIZE + particle * G_SIZE;
     }
+    if (particle <= (long) ngas + ndark) {
+      return H_SIZE + (long) ngas * G_SIZE + (particle - ngas) * D_SIZE;
+    }
+    return H_SIZE + (long) ngas * G_SIZE + (long) ndark * D_SIZE + (particle - ngas - ndark) * S_SIZE;
   }
 
   /**
-   * Construct tuples for gas particle records. The expected dark particles schema in the bin file is mass, x, y, z, vx,
-   * vy, vz, eps, phi. Merge the record in the binary file with iOrder and group number and fill in the each tuple
-   * column accordingly.
-   * 
-   * @throws DbException if error reading from file.
+   * Construct a batch from the next records, which are all of one particle type. Each float field of the records is
+   * read into the column given by floatColumns, and the float columns not stored for this type are null. Merge the
+   * records in the binary file with iOrder and group number.
+   *
+   * @param remaining the number of remaining records of this type to read.
+   * @param floatColumns the column of each float field of a record, in the order they are stored.
+   * @param type the particle type.
+   * @return the batch.
+   * @throws IOException if error reading from file.
+   * @throws DbException if the ascii files are malformed.
    */
-  private void processDarkRecords() throws DbException {
-    while (ndark > 0 && (buffer.numTuples() < TupleBatch.BATCH_SIZE)) {
-      lineNumber++;
-      try {
-        int count = 0;
-        buffer.putLong(count++, iOrderScanner.nextLong());
-        buffer.putFloat(count++, dataInputForBin.readFloat());
-        buffer.putFloat(count++, dataInputForBin.readFloat());
-        buffer.putFloat(count++, dataInputForBin.readFloat());
-        buffer.putFloat(count++, dataInputForBin.readFloat());
-        buffer.putFloat(count++, dataInputForBin.readFloat());
-        buffer.putFloat(count++, dataInputForBin.readFloat());
-        buffer.putFloat(count++, dataInputForBin.readFloat());
-        /*
-         * TODO(leelee): Should be null for the next five columns. Put 0 for now as TupleBatchBuffer does not support
-         * null value.
-         */
-        buffer.putFloat(count++, 0);
-        buffer.putFloat(count++, 0);
-        buffer.putFloat(count++, 0);
-        buffer.putFloat(count++, 0);
-        buffer.putFloat(count++, 0);
-        buffer.putFloat(count++, dataInputForBin.readFloat());
-        buffer.putFloat(count++, dataInputForBin.readFloat());
-        buffer.putInt(count++, grpScanner.nextInt());
-        buffer.putString(count++, "dark");
-      } catch (final IOException e) {
-        throw new DbException(e);
-      }
-      final String iOrderRest = iOrderScanner.nextLine().trim();
-      if (iOrderRest.length() > 0) {
-        throw new DbException("iOrderFile: Unexpected output at the end of line " + lineNumber + ": " + iOrderRest);
+  private TupleBatch readRecords(final long remaining, final int[] floatColumns, final String type)
+      throws IOException, DbException {
+    final int numTuples = (int) Math.min(remaining, TupleBatch.BATCH_SIZE);
+    final float[][] fields = new float[floatColumns.length][numTuples];
+    final long[] iOrders = new long[numTuples];
+    final int[] grps = new int[numTuples];
+    for (int row = 0; row < numTuples; ++row) {
+      for (float[] field : fields) {
+        field[row] = binInput.readFloat();
       }
-      final String grpRest = grpScanner.nextLine().trim();
-      if (grpRest.length() > 0) {
-        throw new DbException("grpFile: Unexpected output at the end of line " + lineNumber + ": " + grpRest);
+      long lineNumber = next + row + 1;
+      iOrders[row] = readNumber(iOrderInput, "iOrderFile", lineNumber);
+      long grp = readNumber(grpInput, "grpFile", lineNumber);
+      if (grp != (int) grp) {
+        throw new DbException("grpFile: group number out of range on line " + lineNumber + ": " + grp);
       }
-      ndark--;
+      grps[row] = (int) grp;
+    }
+    next += numTuples;
+
+    List<Column<?>> columns = new ArrayList<Column<?>>(TIPSY_SCHEMA.numColumns());
+    BitSet allRows = new BitSet(numTuples);
+    allRows.set(0, numTuples);
+    Column<?> absent = new FloatColumn(new float[numTuples], numTuples, allRows);
+    for (int i = 0; i < TIPSY_SCHEMA.numColumns(); ++i) {
+      columns.add(absent);
+    }
+    for (int i = 0; i < floatColumns.length; ++i) {
+      columns.set(floatColumns[i], new FloatColumn(fields[i], numTuples));
     }
+    columns.set(IORDER_COLUMN, new LongColumn(iOrders, numTuples));
+    columns.set(GRP_COLUMN, new IntArrayColumn(grps, numTuples));
+    columns.set(TYPE_COLUMN, new ConstantValueColumn(type, Type.STRING_TYPE, numTuples));
+    return new TupleBatch(TIPSY_SCHEMA, columns, numTuples);
   }
 
   /**
-   * Construct tuples for gas particle records. The expected dark particles schema in the bin file is mass, x, y, z, vx,
-   * vy, vz, metals, tform, eps, phi. Merge the record in the binary file with iOrder and group number and fill in the
-   * each tuple column accordingly.
-   * 
-   * @throws DbException if error reading from file.
+   * Read the number on the next line of an ascii file and move to the start of the following line. Like
+   * {@link java.util.Scanner#nextLong()}, leading whitespace, including empty lines, is skipped.
+   *
+   * @param input the ascii file.
+   * @param fileLabel the name of the file in error messages.
+   * @param lineNumber the number of the line in error messages.
+   * @return the number.
+   * @throws IOException if error reading from file.
+   * @throws DbException if the line does not hold exactly one number.
    */
-  private void processStarRecords() throws DbException {
-    while (nstar > 0 && (buffer.numTuples() < TupleBatch.BATCH_SIZE)) {
-      lineNumber++;
-      try {
-        int count = 0;
-        buffer.putLong(count++, iOrderScanner.nextLong());
-        buffer.putFloat(count++, dataInputForBin.readFloat());
-        buffer.putFloat(count++, dataInputForBin.readFloat());
-        buffer.putFloat(count++, dataInputForBin.readFloat());
-        buffer.putFloat(count++, dataInputForBin.readFloat());
-        buffer.putFloat(count++, dataInputForBin.readFloat());
-        buffer.putFloat(count++, dataInputForBin.readFloat());
-        buffer.putFloat(count++, dataInputForBin.readFloat());
-        /*
-         * TODO(leelee): Should be null for the next three columns. Put 0 for now as TupleBatchBuffer does not support
-         * null value.
-         */
-        buffer.putFloat(count++, 0);
-        buffer.putFloat(count++, 0);
-        buffer.putFloat(count++, 0);
-        buffer.putFloat(count++, dataInputForBin.readFloat());
-        buffer.putFloat(count++, dataInputForBin.readFloat());
-        buffer.putFloat(count++, dataInputForBin.readFloat());
-        buffer.putFloat(count++, dataInputForBin.readFloat());
-        buffer.putInt(count++, grpScanner.nextInt());
-        buffer.putString(count++, "star");
-      } catch (final IOException e) {
-        throw new DbException(e);
-      }
-      final String iOrderRest = iOrderScanner.nextLine().trim();
-      if (iOrderRest.length() > 0) {
-        throw new DbException("iOrderFile: Unexpected output at the end of line " + lineNumber + ": " + iOrderRest);
+  private static long readNumber(final MappedFileInput input, final String fileLabel, final long lineNumber)
+      throws IOException, DbException {
+    int b;
+    try {
+      do {
+        b = input.readUnsignedByte();
+      } while (Character.isWhitespace(b));
+    } catch (final EOFException e) {
+      throw new DbException(fileLabel + ": Unexpected end of file at line " + lineNumber);
+    }
+    boolean negative = b == '-';
+    if (b == '-' || b == '+') {
+      b = nextByte(input);
+    }
+    if (b < '0' || b > '9') {
+      throw new DbException(fileLabel + ": Expected a number at line " + lineNumber);
+    }
+    long value = 0;
+    while (b >= '0' && b <= '9') {
+      value = value * 10 + (b - '0');
+      b = nextByte(input);
+    }
+
+    /* The rest of the line must be blank. */
+    StringBuilder rest = null;
+    while (b != '\n' && b != -1) {
+      if (rest == null && !Character.isWhitespace(b)) {
+        rest = new StringBuilder();
       }
-      final String grpRest = grpScanner.nextLine().trim();
-      if (grpRest.length() > 0) {
-        throw new DbException("grpFile: Unexpected output at the end of line " + lineNumber + ": " + grpRest);
+      if (rest != null) {
+        rest.append((char) b);
       }
-      nstar--;
+      b = nextByte(input);
+    }
+    if (rest != null) {
+      throw new DbException(fileLabel + ": Unexpected output at the end of line " + lineNumber + ": "
+          + rest.toString().trim());
+    }
+    if (negative) {
+      return -value;
+    }
+    return value;
+  }
+
+  /**
+   * @param input an ascii file.
+   * @return the next byte, or -1 at the end of the file.
+   * @throws IOException if error reading from file.
+   */
+  private static int nextByte(final MappedFileInput input) throws IOException {
+    if (input.position() == input.size()) {
+      return -1;
     }
+    return input.readUnsignedByte();
   }
 
   @Override
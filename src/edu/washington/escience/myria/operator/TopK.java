@@ -0,0 +1,229 @@
+package edu.washington.escience.myria.operator;
+
+import java.util.List;
+import java.util.Objects;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.column.Column;
+import edu.washington.escience.myria.storage.MutableTupleBuffer;
+import edu.washington.escience.myria.storage.ReadableColumn;
+import edu.washington.escience.myria.storage.ReadableTable;
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.storage.TupleBatchBuffer;
+import edu.washington.escience.myria.storage.TupleUtils;
+
+/**
+ * Emits the first k tuples of its input in sort order, i.e., <code>ORDER BY ... LIMIT k</code>, keeping only k tuples
+ * in memory. The tuples are kept in a binary heap whose top is the last of them in sort order, so each input tuple is
+ * compared with it and either dropped or swapped in for it.
+ *
+ * Because the top k of a union is the top k of the union of the top k of each part, a TopK below each producer of an
+ * exchange and another one at the consumer compute the top k of a distributed relation while shipping at most k tuples
+ * per producer. Nulls sort first, as in {@link InMemoryOrderBy}.
+ */
+public final class TopK extends UnaryOperator {
+
+  /** Required for Java serialization. */
+  private static final long serialVersionUID = 1L;
+
+  /** Which columns to sort the tuples by. */
+  private final int[] sortColumns;
+  /** True for each column in {@link #sortColumns} that should be sorted ascending. */
+  private final boolean[] ascending;
+  /** The number of tuples to emit. */
+  private final int k;
+
+  /** The best tuples seen so far, at most k of them. */
+  private transient MutableTupleBuffer table;
+  /** A max-heap of the rows of {@link #table}: heap[0] is the last in sort order. */
+  private transient int[] heap;
+  /** The tuples to emit, in sort order, once the input is consumed. */
+  private transient TupleBatchBuffer ans;
+
+  /**
+   * @param child the source of the tuples.
+   * @param sortColumns the columns that should be ordered by.
+   * @param ascending true for each column that should be sorted ascending.
+   * @param k the number of tuples to emit.
+   */
+  public TopK(final Operator child, final int[] sortColumns, final boolean[] ascending, final int k) {
+    super(child);
+    this.sortColumns = Objects.requireNonNull(sortColumns, "sortColumns");
+    this.ascending = Objects.requireNonNull(ascending, "ascending");
+    Preconditions.checkArgument(sortColumns.length == ascending.length,
+        "sort columns number should be equal to ascending orders number");
+    Preconditions.checkArgument(k >= 0, "k must be non-negative");
+    this.k = k;
+  }
+
+  /**
+   * @return the columns that the tuples are ordered by.
+   */
+  public int[] getSortColumns() {
+    return sortColumns;
+  }
+
+  /**
+   * @return true for each sort column that is sorted ascending.
+   */
+  public boolean[] getAscending() {
+    return ascending;
+  }
+
+  /**
+   * @return the number of tuples to emit.
+   */
+  public int getK() {
+    return k;
+  }
+
+  @Override
+  protected void init(final ImmutableMap<String, Object> execEnvVars) throws Exception {
+    table = new MutableTupleBuffer(getSchema());
+    heap = new int[k];
+    ans = null;
+  }
+
+  @Override
+  protected void cleanup() throws Exception {
+    table = null;
+    heap = null;
+    ans = null;
+  }
+
+  @Override
+  protected TupleBatch fetchNextReady() throws Exception {
+    if (ans == null) {
+      final Operator child = getChild();
+      for (TupleBatch tb = child.nextReady(); tb != null; tb = child.nextReady()) {
+        consume(tb);
+      }
+      if (!child.eos()) {
+        return null;
+      }
+      emit();
+    }
+    return ans.popAny();
+  }
+
+  /**
+   * Keep the tuples of a batch that are among the best k so far.
+   *
+   * @param tb the batch.
+   */
+  private void consume(final TupleBatch tb) {
+    final List<? extends Column<?>> columns = tb.getDataColumns();
+    final int numColumns = tb.numColumns();
+    for (int row = 0; row < tb.numTuples(); ++row) {
+      final int size = table.numTuples();
+      if (size < k) {
+        for (int column = 0; column < numColumns; ++column) {
+          table.put(column, columns.get(column), row);
+        }
+        heap[size] = size;
+        siftUp(size);
+      } else if (k > 0 && compare(tb, row, table, heap[0]) < 0) {
+        /* Overwrite the last of the best k in place. */
+        for (int column = 0; column < numColumns; ++column) {
+          table.replace(column, heap[0], columns.get(column), row);
+        }
+        siftDown(0, k);
+      }
+    }
+  }
+
+  /**
+   * Sort the kept tuples into {@link #ans}.
+   */
+  private void emit() {
+    ans = new TupleBatchBuffer(getSchema());
+    final int size = table.numTuples();
+    /* Heap sort: moving the top to the end of the shrinking heap leaves the rows in ascending sort order. */
+    for (int end = size - 1; end > 0; --end) {
+      swap(0, end);
+      siftDown(0, end);
+    }
+    for (int i = 0; i < size; ++i) {
+      int tupleIdx = table.getTupleIndexInContainingTB(heap[i]);
+      ReadableColumn[] columns = table.getColumns(heap[i]);
+      for (int column = 0; column < columns.length; ++column) {
+        ans.put(column, columns[column], tupleIdx);
+      }
+    }
+    table = null;
+  }
+
+  /**
+   * @param i a position in the heap.
+   */
+  private void siftUp(final int i) {
+    int child = i;
+    while (child > 0) {
+      int parent = (child - 1) / 2;
+      if (compare(table, heap[parent], table, heap[child]) >= 0) {
+        return;
+      }
+      swap(parent, child);
+      child = parent;
+    }
+  }
+
+  /**
+   * @param i a position in the heap.
+   * @param size the number of rows in the heap.
+   */
+  private void siftDown(final int i, final int size) {
+    int parent = i;
+    while (true) {
+      int largest = parent;
+      int left = 2 * parent + 1;
+      int right = left + 1;
+      if (left < size && compare(table, heap[left], table, heap[largest]) > 0) {
+        largest = left;
+      }
+      if (right < size && compare(table, heap[right], table, heap[largest]) > 0) {
+        largest = right;
+      }
+      if (largest == parent) {
+        return;
+      }
+      swap(parent, largest);
+      parent = largest;
+    }
+  }
+
+  /**
+   * @param i a position in the heap.
+   * @param j a position in the heap.
+   */
+  private void swap(final int i, final int j) {
+    int tmp = heap[i];
+    heap[i] = heap[j];
+    heap[j] = tmp;
+  }
+
+  /**
+   * Compare two tuples in sort order, as {@link TupleUtils#tupleCompare} does for {@link InMemoryOrderBy}.
+   *
+   * @param left the table of the first tuple.
+   * @param leftRow the row of the first tuple.
+   * @param right the table of the second tuple.
+   * @param rightRow the row of the second tuple.
+   * @return a negative number, zero, or a positive number if the first tuple sorts before, with, or after the second.
+   */
+  private int compare(final ReadableTable left, final int leftRow, final ReadableTable right, final int rightRow) {
+    return TupleUtils.tupleCompare(left, sortColumns, leftRow, right, sortColumns, rightRow, ascending);
+  }
+
+  @Override
+  protected Schema generateSchema() {
+    Operator child = getChild();
+    if (child == null) {
+      return null;
+    }
+    return child.getSchema();
+  }
+}
@@ -12,7 +12,8 @@ import edu.washington.escience.myria.Schema;
 import edu.washington.escience.myria.storage.TupleBatch;
 
 /**
- * Unions the output of a set of operators without eliminating duplicates.
+ * Unions the output of a set of operators without eliminating duplicates. By default the children are read round-robin
+ * as their data arrives; an ordered UnionAll instead returns all the tuples of each child before those of the next.
  */
 public final class UnionAll extends NAryOperator {
 
@@ -27,11 +28,24 @@ public final class UnionAll extends NAryOperator {
    */
   private transient LinkedList<Operator> childrenWithData;
 
+  /** Whether all the tuples of a child are returned before those of the next child. */
+  private final boolean ordered;
+
   /**
    * @param children the children to be united.
    */
   public UnionAll(final Operator[] children) {
+    this(children, false);
+  }
+
+  /**
+   * @param children the children to be united.
+   * @param ordered whether all the tuples of a child are returned before those of the next child. The later children
+   *          are not read meanwhile, so their producers are throttled by flow control.
+   */
+  public UnionAll(final Operator[] children, final boolean ordered) {
     super(children);
+    this.ordered = ordered;
   }
 
   @Override
@@ -58,7 +72,13 @@ public final class UnionAll extends NAryOperator {
       }
 
       TupleBatch tb = child.nextReady();
-      if (!child.eos()) {
+      if (ordered && !child.eos()) {
+        /* Stay on this child until it is exhausted. */
+        childrenWithData.addFirst(child);
+        if (tb == null) {
+          return null;
+        }
+      } else if (!child.eos()) {
         childrenWithData.addLast(child);
       }
 
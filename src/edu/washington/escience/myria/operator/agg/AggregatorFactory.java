@@ -16,7 +16,9 @@ import edu.washington.escience.myria.Schema;
  */
 @JsonTypeInfo(use = JsonTypeInfo.Id.NAME, include = JsonTypeInfo.As.PROPERTY, property = "type")
 @JsonSubTypes({
+    @Type(value = ApproxCountDistinctAggregatorFactory.class, name = "ApproxCountDistinct"),
     @Type(value = CountAllAggregatorFactory.class, name = "CountAll"),
+    @Type(value = QuantileAggregatorFactory.class, name = "Quantile"),
     @Type(value = SingleColumnAggregatorFactory.class, name = "SingleColumn"),
     @Type(value = UserDefinedAggregatorFactory.class, name = "UserDefined") })
 public interface AggregatorFactory extends Serializable {
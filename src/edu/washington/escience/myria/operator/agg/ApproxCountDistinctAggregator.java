@@ -0,0 +1,63 @@
+package edu.washington.escience.myria.operator.agg;
+
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.storage.AppendableTable;
+import edu.washington.escience.myria.storage.ReadableTable;
+import edu.washington.escience.myria.util.HashUtils;
+
+/**
+ * Estimates the number of distinct non-null values of a column of any type with a {@link HyperLogLog} sketch.
+ */
+public final class ApproxCountDistinctAggregator extends SketchAggregator {
+
+  /** Required for Java serialization. */
+  private static final long serialVersionUID = 1L;
+  /**
+   * The hash function of the values. It differs from the one used to shuffle tuples, so the values that reach a worker
+   * are not biased in the bits the sketch uses.
+   */
+  private static final int HASH_SEED_INDEX = 1;
+  /** The name of this aggregate. */
+  private static final String NAME = "approx_count_distinct";
+  /** The precision of the sketch. */
+  private final int precision;
+
+  /**
+   * @param inputSchema the schema of the input.
+   * @param column the column being aggregated over.
+   * @param phase which step of the aggregate this is.
+   * @param precision the precision of the {@link HyperLogLog} sketch.
+   */
+  public ApproxCountDistinctAggregator(final Schema inputSchema, final int column, final Phase phase,
+      final int precision) {
+    super(inputSchema, column, phase, NAME, Schema.ofFields(Type.LONG_TYPE, NAME + "_"
+        + getValueName(inputSchema, column, phase, NAME)));
+    this.precision = precision;
+  }
+
+  @Override
+  public Object getInitialState() {
+    return new HyperLogLog(precision);
+  }
+
+  @Override
+  protected void addValue(final ReadableTable from, final int row, final Object state) {
+    ((HyperLogLog) state).add(HashUtils.hashValueLong(from, getFromColumn(), row, HASH_SEED_INDEX));
+  }
+
+  @Override
+  protected void mergeSketch(final byte[] sketch, final Object state) {
+    ((HyperLogLog) state).merge(HyperLogLog.fromBytes(sketch));
+  }
+
+  @Override
+  protected byte[] sketchToBytes(final Object state) {
+    return ((HyperLogLog) state).toBytes();
+  }
+
+  @Override
+  protected void putEstimates(final AppendableTable dest, final int destColumn, final Object state) {
+    dest.putLong(destColumn, ((HyperLogLog) state).estimate());
+  }
+}
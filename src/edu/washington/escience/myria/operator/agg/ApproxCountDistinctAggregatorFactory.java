@@ -0,0 +1,53 @@
+package edu.washington.escience.myria.operator.agg;
+
+import java.util.Objects;
+
+import javax.annotation.Nullable;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.MoreObjects;
+
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.operator.agg.SketchAggregator.Phase;
+
+/**
+ * A factory for the {@link ApproxCountDistinctAggregator}.
+ */
+public class ApproxCountDistinctAggregatorFactory implements AggregatorFactory {
+
+  /** Required for Java serialization. */
+  private static final long serialVersionUID = 1L;
+  /** Which column of the input to aggregate over. */
+  @JsonProperty
+  private final int column;
+  /** Which step of the aggregate this is. */
+  @JsonProperty
+  private final Phase phase;
+  /** The precision of the {@link HyperLogLog} sketch. */
+  @JsonProperty
+  private final int precision;
+
+  /**
+   * @param column which column of the input to aggregate over.
+   * @param phase which step of the aggregate this is. Defaults to {@link Phase#COMPLETE}.
+   * @param precision the precision of the {@link HyperLogLog} sketch. Defaults to
+   *          {@link HyperLogLog#DEFAULT_PRECISION}. The PARTIAL and FINAL steps must use the same precision.
+   */
+  @JsonCreator
+  public ApproxCountDistinctAggregatorFactory(@JsonProperty(value = "column", required = true) final Integer column,
+      @JsonProperty("phase") @Nullable final Phase phase,
+      @JsonProperty("precision") @Nullable final Integer precision) {
+    this.column = Objects.requireNonNull(column, "column").intValue();
+    this.phase = MoreObjects.firstNonNull(phase, Phase.COMPLETE);
+    this.precision = MoreObjects.firstNonNull(precision, HyperLogLog.DEFAULT_PRECISION);
+    /* Check the precision now rather than on the workers. */
+    new HyperLogLog(this.precision);
+  }
+
+  @Override
+  public Aggregator get(final Schema inputSchema) {
+    Objects.requireNonNull(inputSchema, "inputSchema");
+    return new ApproxCountDistinctAggregator(inputSchema, column, phase, precision);
+  }
+}
@@ -40,7 +40,7 @@ public final class BooleanAggregator extends PrimitiveAggregator {
   public void add(final ReadableTable from, final Object state) {
     Objects.requireNonNull(from, "from");
     BooleanAggState b = (BooleanAggState) state;
-    b.count += from.numTuples();
+    b.count += countNonNull(from, fromColumn);
   }
 
   /**
@@ -94,6 +94,9 @@ public final class BooleanAggregator extends PrimitiveAggregator {
 
   @Override
   public void addRow(final ReadableTable from, final int row, final Object state) throws DbException {
+    if (from.isNull(fromColumn, row)) {
+      return;
+    }
     addBoolean(from.getBoolean(fromColumn, row), state);
   }
 
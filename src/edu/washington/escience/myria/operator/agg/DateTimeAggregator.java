@@ -64,17 +64,22 @@ public final class DateTimeAggregator extends PrimitiveAggregator {
       return;
     }
     if (needsCount) {
-      d.count = LongMath.checkedAdd(d.count, numTuples);
+      d.count = LongMath.checkedAdd(d.count, countNonNull(from, fromColumn));
     }
     if (needsStats) {
       for (int row = 0; row < numTuples; ++row) {
-        addDateTimeStats(from.getDateTime(fromColumn, row), d);
+        if (!from.isNull(fromColumn, row)) {
+          addDateTimeStats(from.getDateTime(fromColumn, row), d);
+        }
       }
     }
   }
 
   @Override
   public void addRow(final ReadableTable table, final int row, final Object state) {
+    if (table.isNull(fromColumn, row)) {
+      return;
+    }
     addDateTime(Objects.requireNonNull(table, "table").getDateTime(fromColumn, row), state);
   }
 
@@ -45,19 +45,24 @@ public final class DoubleAggregator extends PrimitiveAggregator {
       return;
     }
     if (needsCount) {
-      d.count = LongMath.checkedAdd(d.count, numTuples);
+      d.count = LongMath.checkedAdd(d.count, countNonNull(from, fromColumn));
     }
     if (!needsStats) {
       return;
     }
     for (int i = 0; i < numTuples; i++) {
-      addDoubleStats(from.getDouble(fromColumn, i), d);
+      if (!from.isNull(fromColumn, i)) {
+        addDoubleStats(from.getDouble(fromColumn, i), d);
+      }
     }
   }
 
   @Override
   public void addRow(final ReadableTable table, final int row, final Object state) {
     Objects.requireNonNull(table, "table");
+    if (table.isNull(fromColumn, row)) {
+      return;
+    }
     DoubleAggState d = (DoubleAggState) state;
     if (needsCount) {
       d.count = LongMath.checkedAdd(d.count, 1);
@@ -46,20 +46,25 @@ public final class FloatAggregator extends PrimitiveAggregator {
     }
 
     if (needsCount) {
-      f.count = LongMath.checkedAdd(f.count, numTuples);
+      f.count = LongMath.checkedAdd(f.count, countNonNull(from, fromColumn));
     }
 
     if (!needsStats) {
       return;
     }
     for (int i = 0; i < numTuples; i++) {
-      addFloatStats(from.getFloat(fromColumn, i), f);
+      if (!from.isNull(fromColumn, i)) {
+        addFloatStats(from.getFloat(fromColumn, i), f);
+      }
     }
   }
 
   @Override
   public void addRow(final ReadableTable table, final int row, final Object state) {
     Objects.requireNonNull(table, "table");
+    if (table.isNull(fromColumn, row)) {
+      return;
+    }
     FloatAggState f = (FloatAggState) state;
     if (needsCount) {
       f.count = LongMath.checkedAdd(f.count, 1);
@@ -0,0 +1,242 @@
+package edu.washington.escience.myria.operator.agg;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A HyperLogLog sketch that estimates the number of distinct 64-bit hashes added to it, with a relative standard error
+ * of about 1.04 / sqrt(2^precision). Sketches of the same precision can be merged, so partial sketches can be built in
+ * parallel and combined after a shuffle.
+ *
+ * A sketch starts sparse, as a list of (register, rank) pairs, and switches to an array of 2^precision registers once
+ * the list would be larger, so that the many small groups of a group-by stay small.
+ */
+public final class HyperLogLog {
+
+  /** The smallest supported precision. */
+  public static final int MIN_PRECISION = 4;
+  /** The largest supported precision. */
+  public static final int MAX_PRECISION = 18;
+  /** The default precision, for a relative standard error of about 0.8%. */
+  public static final int DEFAULT_PRECISION = 14;
+  /** The serialized tag of a sparse sketch. */
+  private static final byte SPARSE = 0;
+  /** The serialized tag of a dense sketch. */
+  private static final byte DENSE = 1;
+
+  /** The number of bits of a hash that select a register. */
+  private final int precision;
+  /** The registers, or null while the sketch is sparse. */
+  private byte[] registers;
+  /** The sparse entries, each a register index shifted left by 8 bits or'd with a rank. May contain duplicates. */
+  private int[] sparse;
+  /** The number of entries in {@link #sparse}. */
+  private int sparseSize;
+
+  /**
+   * @param precision the number of bits of a hash that select a register, between {@link #MIN_PRECISION} and
+   *          {@link #MAX_PRECISION}.
+   */
+  public HyperLogLog(final int precision) {
+    Preconditions.checkArgument(precision >= MIN_PRECISION && precision <= MAX_PRECISION,
+        "precision must be between %s and %s", MIN_PRECISION, MAX_PRECISION);
+    this.precision = precision;
+    sparse = new int[4];
+    sparseSize = 0;
+  }
+
+  /**
+   * @return the number of bits of a hash that select a register.
+   */
+  public int getPrecision() {
+    return precision;
+  }
+
+  /**
+   * @return the number of registers.
+   */
+  private int numRegisters() {
+    return 1 << precision;
+  }
+
+  /**
+   * Add a hash to the sketch. The hash should be uniformly distributed over all 64 bits.
+   *
+   * @param hash the hash of a value.
+   */
+  public void add(final long hash) {
+    int index = (int) (hash >>> (Long.SIZE - precision));
+    /* The rank is the position of the first 1 bit in the remaining bits, capped if they are all 0. */
+    int rank = Math.min(Long.numberOfLeadingZeros(hash << precision), Long.SIZE - precision) + 1;
+    set(index, rank);
+  }
+
+  /**
+   * Raise a register to the specified rank.
+   *
+   * @param index the register.
+   * @param rank the rank.
+   */
+  private void set(final int index, final int rank) {
+    if (registers != null) {
+      if (registers[index] < rank) {
+        registers[index] = (byte) rank;
+      }
+      return;
+    }
+    if (sparseSize == sparse.length) {
+      compactSparse();
+      /* Switch to registers once the sparse entries take as many bytes. */
+      if (sparseSize * (Integer.SIZE / Byte.SIZE) >= numRegisters()) {
+        toDense();
+        set(index, rank);
+        return;
+      }
+      if (sparseSize * 2 > sparse.length) {
+        sparse = Arrays.copyOf(sparse, sparse.length * 2);
+      }
+    }
+    sparse[sparseSize++] = (index << Byte.SIZE) | rank;
+  }
+
+  /**
+   * Sort the sparse entries and keep only the highest rank of each register.
+   */
+  private void compactSparse() {
+    Arrays.sort(sparse, 0, sparseSize);
+    int n = 0;
+    for (int i = 0; i < sparseSize; ++i) {
+      /* Entries of a register are sorted by rank, so the last one is the highest. */
+      if (n > 0 && (sparse[n - 1] >>> Byte.SIZE) == (sparse[i] >>> Byte.SIZE)) {
+        sparse[n - 1] = sparse[i];
+      } else {
+        sparse[n++] = sparse[i];
+      }
+    }
+    sparseSize = n;
+  }
+
+  /**
+   * Replace the sparse entries by registers.
+   */
+  private void toDense() {
+    registers = new byte[numRegisters()];
+    for (int i = 0; i < sparseSize; ++i) {
+      int index = sparse[i] >>> Byte.SIZE;
+      int rank = sparse[i] & 0xFF;
+      if (registers[index] < rank) {
+        registers[index] = (byte) rank;
+      }
+    }
+    sparse = null;
+    sparseSize = 0;
+  }
+
+  /**
+   * Add all the hashes of another sketch to this one.
+   *
+   * @param other a sketch of the same precision.
+   */
+  public void merge(final HyperLogLog other) {
+    Preconditions.checkArgument(other.precision == precision, "cannot merge sketches of precision %s and %s",
+        other.precision, precision);
+    if (other.registers != null) {
+      if (registers == null) {
+        toDense();
+      }
+      for (int i = 0; i < registers.length; ++i) {
+        if (registers[i] < other.registers[i]) {
+          registers[i] = other.registers[i];
+        }
+      }
+    } else {
+      for (int i = 0; i < other.sparseSize; ++i) {
+        set(other.sparse[i] >>> Byte.SIZE, other.sparse[i] & 0xFF);
+      }
+    }
+  }
+
+  /**
+   * @return the estimated number of distinct hashes added to the sketch.
+   */
+  public long estimate() {
+    final int m = numRegisters();
+    double sum = 0;
+    int zeros = 0;
+    if (registers != null) {
+      for (byte r : registers) {
+        sum += 1.0 / (1L << r);
+        zeros += r == 0 ? 1 : 0;
+      }
+    } else {
+      compactSparse();
+      zeros = m - sparseSize;
+      sum = zeros;
+      for (int i = 0; i < sparseSize; ++i) {
+        sum += 1.0 / (1L << (sparse[i] & 0xFF));
+      }
+    }
+    double alpha;
+    switch (m) {
+      case 16:
+        alpha = 0.673;
+        break;
+      case 32:
+        alpha = 0.697;
+        break;
+      case 64:
+        alpha = 0.709;
+        break;
+      default:
+        alpha = 0.7213 / (1 + 1.079 / m);
+    }
+    double estimate = alpha * m * m / sum;
+    if (estimate <= 2.5 * m && zeros > 0) {
+      /* Linear counting is more accurate for small cardinalities. */
+      estimate = m * Math.log((double) m / zeros);
+    }
+    return Math.round(estimate);
+  }
+
+  /**
+   * @return the sketch as bytes, which {@link #fromBytes(byte[])} reads back.
+   */
+  public byte[] toBytes() {
+    if (registers != null) {
+      ByteBuffer buf = ByteBuffer.allocate(2 + registers.length);
+      buf.put(DENSE).put((byte) precision).put(registers);
+      return buf.array();
+    }
+    compactSparse();
+    ByteBuffer buf = ByteBuffer.allocate(2 + sparseSize * (Integer.SIZE / Byte.SIZE));
+    buf.put(SPARSE).put((byte) precision);
+    for (int i = 0; i < sparseSize; ++i) {
+      buf.putInt(sparse[i]);
+    }
+    return buf.array();
+  }
+
+  /**
+   * @param bytes a sketch written by {@link #toBytes()}.
+   * @return the sketch.
+   */
+  public static HyperLogLog fromBytes(final byte[] bytes) {
+    ByteBuffer buf = ByteBuffer.wrap(bytes);
+    byte tag = buf.get();
+    HyperLogLog hll = new HyperLogLog(buf.get());
+    if (tag == DENSE) {
+      Preconditions.checkArgument(buf.remaining() == hll.numRegisters(), "corrupt HyperLogLog sketch");
+      hll.registers = new byte[hll.numRegisters()];
+      buf.get(hll.registers);
+      hll.sparse = null;
+    } else {
+      Preconditions.checkArgument(tag == SPARSE, "corrupt HyperLogLog sketch");
+      hll.sparseSize = buf.remaining() / (Integer.SIZE / Byte.SIZE);
+      hll.sparse = new int[Math.max(4, hll.sparseSize)];
+      buf.asIntBuffer().get(hll.sparse, 0, hll.sparseSize);
+    }
+    return hll;
+  }
+}
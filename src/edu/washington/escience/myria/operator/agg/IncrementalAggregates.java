@@ -0,0 +1,114 @@
+package edu.washington.escience.myria.operator.agg;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.expression.Expression;
+import edu.washington.escience.myria.expression.VariableExpression;
+import edu.washington.escience.myria.operator.Apply;
+import edu.washington.escience.myria.operator.Operator;
+import edu.washington.escience.myria.operator.agg.PrimitiveAggregator.AggregationOp;
+
+/**
+ * Maintains a group by aggregate incrementally. The state of a group is the aggregate itself, so the aggregates must be
+ * decomposable: COUNT, SUM, MIN and MAX of a column, and CountAll. New tuples are aggregated by
+ * {@link #partialAggregate}, and the partial aggregates are merged with each other and with the previous state by
+ * {@link #mergeAggregate}, which sums the counts and sums and takes the min of the mins and the max of the maxes.
+ */
+public final class IncrementalAggregates {
+  /** Utility classes do not have a public constructor. */
+  private IncrementalAggregates() {
+  }
+
+  /**
+   * @param factory an aggregator factory.
+   * @return true if the aggregates of the factory can be merged by {@link #mergeAggregate}.
+   */
+  public static boolean isDecomposable(final AggregatorFactory factory) {
+    if (factory instanceof CountAllAggregatorFactory) {
+      return true;
+    }
+    if (!(factory instanceof SingleColumnAggregatorFactory)) {
+      return false;
+    }
+    for (AggregationOp op : ((SingleColumnAggregatorFactory) factory).getAggOps()) {
+      if (op == AggregationOp.AVG || op == AggregationOp.STDEV) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @param child the new tuples.
+   * @param groupFields the columns of the child to group by.
+   * @param factories the decomposable aggregates.
+   * @return the group columns followed by the aggregates of the child.
+   */
+  public static Operator partialAggregate(final Operator child, final int[] groupFields,
+      final AggregatorFactory[] factories) {
+    Objects.requireNonNull(groupFields, "groupFields");
+    Preconditions.checkArgument(groupFields.length > 0, "must group over some fields");
+    for (AggregatorFactory factory : factories) {
+      Preconditions.checkArgument(isDecomposable(factory), "aggregate %s is not decomposable", factory);
+    }
+    return groupBy(child, groupFields, factories);
+  }
+
+  /**
+   * @param child partial aggregates, and the previous state if any, of schema stateSchema.
+   * @param numGroupFields the number of group columns, which come first in the partial aggregates.
+   * @param factories the decomposable aggregates that produced the partial aggregates.
+   * @param stateSchema the schema of the partial aggregates, which is also the schema of the result.
+   * @return the merged aggregates, one tuple per group.
+   */
+  public static Operator mergeAggregate(final Operator child, final int numGroupFields,
+      final AggregatorFactory[] factories, final Schema stateSchema) {
+    Preconditions.checkArgument(numGroupFields > 0, "must group over some fields");
+    ImmutableList.Builder<AggregatorFactory> mergeFactories = ImmutableList.builder();
+    int column = numGroupFields;
+    for (AggregatorFactory factory : factories) {
+      if (factory instanceof CountAllAggregatorFactory) {
+        mergeFactories.add(new SingleColumnAggregatorFactory(column++, AggregationOp.SUM));
+        continue;
+      }
+      for (AggregationOp op : ((SingleColumnAggregatorFactory) factory).getAggOps()) {
+        AggregationOp mergeOp = op;
+        if (op == AggregationOp.COUNT) {
+          mergeOp = AggregationOp.SUM;
+        }
+        mergeFactories.add(new SingleColumnAggregatorFactory(column++, mergeOp));
+      }
+    }
+    int[] groupFields = new int[numGroupFields];
+    for (int i = 0; i < numGroupFields; ++i) {
+      groupFields[i] = i;
+    }
+    Operator merge = groupBy(child, groupFields, mergeFactories.build().toArray(new AggregatorFactory[0]));
+
+    /* The merge renames the aggregate columns, name them back so that the state keeps its schema. */
+    List<Expression> rename = new ArrayList<>(stateSchema.numColumns());
+    for (int i = 0; i < stateSchema.numColumns(); ++i) {
+      rename.add(new Expression(stateSchema.getColumnName(i), new VariableExpression(i)));
+    }
+    return new Apply(merge, rename);
+  }
+
+  /**
+   * @param child the input.
+   * @param groupFields the columns of the input to group by.
+   * @param factories the aggregates.
+   * @return the group by aggregate.
+   */
+  private static Operator groupBy(final Operator child, final int[] groupFields, final AggregatorFactory[] factories) {
+    if (groupFields.length == 1) {
+      return new SingleGroupByAggregate(child, groupFields[0], factories);
+    }
+    return new MultiGroupByAggregate(child, groupFields, factories);
+  }
+}
@@ -46,20 +46,25 @@ public final class IntegerAggregator extends PrimitiveAggregator {
     }
 
     if (needsCount) {
-      istate.count = LongMath.checkedAdd(istate.count, numTuples);
+      istate.count = LongMath.checkedAdd(istate.count, countNonNull(from, fromColumn));
     }
 
     if (!needsStats) {
       return;
     }
     for (int i = 0; i < numTuples; i++) {
-      addIntStats(from.getInt(fromColumn, i), istate);
+      if (!from.isNull(fromColumn, i)) {
+        addIntStats(from.getInt(fromColumn, i), istate);
+      }
     }
   }
 
   @Override
   public void addRow(final ReadableTable table, final int row, final Object state) {
     Objects.requireNonNull(table, "table");
+    if (table.isNull(fromColumn, row)) {
+      return;
+    }
     IntAggState istate = (IntAggState) state;
     if (needsCount) {
       istate.count = LongMath.checkedAdd(istate.count, 1);
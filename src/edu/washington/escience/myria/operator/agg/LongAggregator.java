@@ -45,20 +45,25 @@ public final class LongAggregator extends PrimitiveAggregator {
       return;
     }
     if (needsCount) {
-      lstate.count = LongMath.checkedAdd(lstate.count, numTuples);
+      lstate.count = LongMath.checkedAdd(lstate.count, countNonNull(from, fromColumn));
     }
 
     if (!needsStats) {
       return;
     }
     for (int i = 0; i < numTuples; i++) {
-      addLongStats(from.getLong(fromColumn, i), lstate);
+      if (!from.isNull(fromColumn, i)) {
+        addLongStats(from.getLong(fromColumn, i), lstate);
+      }
     }
   }
 
   @Override
   public void addRow(final ReadableTable table, final int row, final Object state) {
     Objects.requireNonNull(table, "table");
+    if (table.isNull(fromColumn, row)) {
+      return;
+    }
     LongAggState lstate = (LongAggState) state;
     if (needsCount) {
       lstate.count = LongMath.checkedAdd(lstate.count, 1);
@@ -19,9 +19,9 @@ import edu.washington.escience.myria.Type;
 import edu.washington.escience.myria.column.Column;
 import edu.washington.escience.myria.operator.Operator;
 import edu.washington.escience.myria.operator.UnaryOperator;
+import edu.washington.escience.myria.storage.MutableTupleBuffer;
 import edu.washington.escience.myria.storage.TupleBatch;
 import edu.washington.escience.myria.storage.TupleBatchBuffer;
-import edu.washington.escience.myria.storage.TupleBuffer;
 import edu.washington.escience.myria.storage.TupleUtils;
 import edu.washington.escience.myria.util.HashUtils;
 
@@ -38,7 +38,7 @@ public final class MultiGroupByAggregate extends UnaryOperator {
   private static final long serialVersionUID = 1L;
 
   /** Holds the distinct grouping keys. */
-  private transient TupleBuffer groupKeys;
+  private transient MutableTupleBuffer groupKeys;
   /** Final group keys. */
   private List<TupleBatch> groupKeyList;
   /** Holds the corresponding aggregation state for each group key in {@link #groupKeys}. */
@@ -149,7 +149,7 @@ public final class MultiGroupByAggregate extends UnaryOperator {
    * 
    * @param tb the source {@link TupleBatch}
    * @param row the row in <code>tb</code> that contains the new group
-   * @param hashMatches the list of all rows in the output {@link TupleBuffer}s that match this hash.
+   * @param hashMatches the list of all rows in the output {@link MutableTupleBuffer}s that match this hash.
    * @throws DbException if there is an error.
    */
   private void newGroup(final TupleBatch tb, final int row, final IntArrayList hashMatches) throws DbException {
@@ -199,7 +199,8 @@ public final class MultiGroupByAggregate extends UnaryOperator {
   private TupleBatch getResultBatch() throws DbException {
     Preconditions.checkState(getChild().eos(), "cannot extract results from an aggregate until child has reached EOS");
     if (groupKeyList == null) {
-      groupKeyList = Lists.newLinkedList(groupKeys.finalResult());
+      groupKeyList = Lists.newLinkedList(groupKeys.getAll());
+      groupKeys.clear();
       groupKeys = null;
     }
 
@@ -266,7 +267,7 @@ public final class MultiGroupByAggregate extends UnaryOperator {
   protected void init(final ImmutableMap<String, Object> execEnvVars) throws DbException {
     Preconditions.checkState(getSchema() != null, "unable to determine schema in init");
     aggregators = AggUtils.allocateAggs(factories, getChild().getSchema());
-    groupKeys = new TupleBuffer(groupSchema);
+    groupKeys = new MutableTupleBuffer(groupSchema, getOffHeapMemory());
     aggStates = new ArrayList<>();
     groupKeyMap = new IntObjectHashMap<>();
   }
@@ -11,6 +11,9 @@ import com.google.common.collect.Sets;
 
 import edu.washington.escience.myria.Schema;
 import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.column.Column;
+import edu.washington.escience.myria.storage.ReadableColumn;
+import edu.washington.escience.myria.storage.ReadableTable;
 
 /**
  * Single column aggregator.
@@ -151,4 +154,24 @@ public abstract class PrimitiveAggregator implements Aggregator, Serializable {
   public final Schema getResultSchema() {
     return resultSchema;
   }
+
+  /**
+   * Nulls are not aggregated, as in SQL, so COUNT of a column is the number of its non-null values.
+   * 
+   * @param table the table.
+   * @param column the column of the table.
+   * @return the number of non-null values in the specified column of the table.
+   */
+  protected static int countNonNull(final ReadableTable table, final int column) {
+    final int numTuples = table.numTuples();
+    ReadableColumn values = table.asColumn(column);
+    if (values instanceof Column && !((Column<?>) values).hasNulls()) {
+      return numTuples;
+    }
+    int numNulls = 0;
+    for (int row = 0; row < numTuples; ++row) {
+      numNulls += table.isNull(column, row) ? 1 : 0;
+    }
+    return numTuples - numNulls;
+  }
 }
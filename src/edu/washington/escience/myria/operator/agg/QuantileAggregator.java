@@ -0,0 +1,110 @@
+package edu.washington.escience.myria.operator.agg;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.storage.AppendableTable;
+import edu.washington.escience.myria.storage.ReadableTable;
+
+/**
+ * Estimates quantiles of the non-null values of a numeric column with a {@link QuantileSketch}. Each requested quantile
+ * is a {@link Type#DOUBLE_TYPE} output column.
+ */
+public final class QuantileAggregator extends SketchAggregator {
+
+  /** Required for Java serialization. */
+  private static final long serialVersionUID = 1L;
+  /** The name of this aggregate. */
+  private static final String NAME = "quantile";
+  /** The requested quantiles, fractions between 0 and 1. */
+  private final double[] quantiles;
+  /** The accuracy parameter of the sketch. */
+  private final int k;
+  /** The type of the aggregated column. */
+  private final Type type;
+
+  /**
+   * @param inputSchema the schema of the input.
+   * @param column the column being aggregated over.
+   * @param phase which step of the aggregate this is.
+   * @param quantiles the requested quantiles, fractions between 0 and 1.
+   * @param k the accuracy parameter of the {@link QuantileSketch}.
+   */
+  public QuantileAggregator(final Schema inputSchema, final int column, final Phase phase, final double[] quantiles,
+      final int k) {
+    super(inputSchema, column, phase, NAME, estimateSchema(getValueName(inputSchema, column, phase, NAME), quantiles));
+    type = inputSchema.getColumnType(column);
+    if (phase != Phase.FINAL) {
+      Preconditions.checkArgument(type == Type.INT_TYPE || type == Type.LONG_TYPE || type == Type.FLOAT_TYPE
+          || type == Type.DOUBLE_TYPE, "quantiles apply to numeric columns, but column %s is %s", column, type);
+    }
+    this.quantiles = quantiles.clone();
+    this.k = k;
+  }
+
+  /**
+   * @param fieldName the name of the aggregated column.
+   * @param quantiles the requested quantiles.
+   * @return the schema of the estimates, one double column per quantile.
+   */
+  private static Schema estimateSchema(final String fieldName, final double[] quantiles) {
+    Preconditions.checkArgument(quantiles.length > 0, "no quantiles requested");
+    ImmutableList.Builder<Type> types = ImmutableList.builder();
+    ImmutableList.Builder<String> names = ImmutableList.builder();
+    for (double q : quantiles) {
+      Preconditions.checkArgument(q >= 0 && q <= 1, "quantile %s is not between 0 and 1", q);
+      types.add(Type.DOUBLE_TYPE);
+      /* E.g., quantile_50_x for the median of x, and quantile_99_9_x for its 99.9th percentile. */
+      double percent = Math.round(q * 10000) / 100.0;
+      String label =
+          percent == Math.rint(percent) ? Long.toString((long) percent) : Double.toString(percent).replace('.', '_');
+      names.add(NAME + "_" + label + "_" + fieldName);
+    }
+    return new Schema(types.build(), names.build());
+  }
+
+  @Override
+  public Object getInitialState() {
+    return new QuantileSketch(k);
+  }
+
+  @Override
+  protected void addValue(final ReadableTable from, final int row, final Object state) {
+    QuantileSketch sketch = (QuantileSketch) state;
+    int column = getFromColumn();
+    switch (type) {
+      case INT_TYPE:
+        sketch.add(from.getInt(column, row));
+        break;
+      case LONG_TYPE:
+        sketch.add(from.getLong(column, row));
+        break;
+      case FLOAT_TYPE:
+        sketch.add(from.getFloat(column, row));
+        break;
+      default:
+        sketch.add(from.getDouble(column, row));
+        break;
+    }
+  }
+
+  @Override
+  protected void mergeSketch(final byte[] sketch, final Object state) {
+    ((QuantileSketch) state).merge(QuantileSketch.fromBytes(sketch));
+  }
+
+  @Override
+  protected byte[] sketchToBytes(final Object state) {
+    return ((QuantileSketch) state).toBytes();
+  }
+
+  @Override
+  protected void putEstimates(final AppendableTable dest, final int destColumn, final Object state) {
+    QuantileSketch sketch = (QuantileSketch) state;
+    for (int i = 0; i < quantiles.length; ++i) {
+      dest.putDouble(destColumn + i, sketch.quantile(quantiles[i]));
+    }
+  }
+}
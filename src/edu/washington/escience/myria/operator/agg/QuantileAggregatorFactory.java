@@ -0,0 +1,59 @@
+package edu.washington.escience.myria.operator.agg;
+
+import java.util.Objects;
+
+import javax.annotation.Nullable;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.operator.agg.SketchAggregator.Phase;
+
+/**
+ * A factory for the {@link QuantileAggregator}.
+ */
+public class QuantileAggregatorFactory implements AggregatorFactory {
+
+  /** Required for Java serialization. */
+  private static final long serialVersionUID = 1L;
+  /** Which column of the input to aggregate over. */
+  @JsonProperty
+  private final int column;
+  /** The requested quantiles, fractions between 0 and 1. */
+  @JsonProperty
+  private final double[] quantiles;
+  /** Which step of the aggregate this is. */
+  @JsonProperty
+  private final Phase phase;
+  /** The accuracy parameter of the {@link QuantileSketch}. */
+  @JsonProperty
+  private final int k;
+
+  /**
+   * @param column which column of the input to aggregate over.
+   * @param quantiles the requested quantiles, fractions between 0 and 1, e.g., 0.5 for the median.
+   * @param phase which step of the aggregate this is. Defaults to {@link Phase#COMPLETE}.
+   * @param k the accuracy parameter of the {@link QuantileSketch}. Defaults to {@link QuantileSketch#DEFAULT_K}. The
+   *          PARTIAL and FINAL steps must use the same k.
+   */
+  @JsonCreator
+  public QuantileAggregatorFactory(@JsonProperty(value = "column", required = true) final Integer column,
+      @JsonProperty(value = "quantiles", required = true) final double[] quantiles,
+      @JsonProperty("phase") @Nullable final Phase phase, @JsonProperty("k") @Nullable final Integer k) {
+    this.column = Objects.requireNonNull(column, "column").intValue();
+    this.quantiles = Objects.requireNonNull(quantiles, "quantiles");
+    Preconditions.checkArgument(quantiles.length > 0, "no quantiles requested");
+    this.phase = MoreObjects.firstNonNull(phase, Phase.COMPLETE);
+    this.k = MoreObjects.firstNonNull(k, QuantileSketch.DEFAULT_K);
+    Preconditions.checkArgument(this.k >= 8, "k must be at least 8");
+  }
+
+  @Override
+  public Aggregator get(final Schema inputSchema) {
+    Objects.requireNonNull(inputSchema, "inputSchema");
+    return new QuantileAggregator(inputSchema, column, phase, quantiles, k);
+  }
+}
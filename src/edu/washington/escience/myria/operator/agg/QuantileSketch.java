@@ -0,0 +1,250 @@
+package edu.washington.escience.myria.operator.agg;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A KLL sketch that estimates the quantiles of the values added to it. The rank error is about 1.7 / k with high
+ * probability, using O(k) memory regardless of the number of values. Sketches with the same k can be merged, so partial
+ * sketches can be built in parallel and combined after a shuffle.
+ *
+ * The sketch keeps a hierarchy of compactors. Level h holds values of weight 2^h; when the levels exceed their
+ * capacities, a level is sorted and every other value, starting at a random offset, is promoted to the next level.
+ */
+public final class QuantileSketch {
+
+  /** The default k, for a rank error of about 1%. */
+  public static final int DEFAULT_K = 200;
+  /** The ratio of the capacities of consecutive levels. */
+  private static final double CAPACITY_RATIO = 2.0 / 3.0;
+
+  /** The capacity of the top level. */
+  private final int k;
+  /** The number of values added. */
+  private long count;
+  /** The values of each level. */
+  private final List<double[]> levels;
+  /** The number of values in each level. */
+  private int[] sizes;
+  /** The source of the random offsets of compactions. */
+  private final Random random;
+
+  /**
+   * @param k the capacity of the top level, which determines the accuracy. At least 8.
+   */
+  public QuantileSketch(final int k) {
+    Preconditions.checkArgument(k >= 8, "k must be at least 8");
+    this.k = k;
+    count = 0;
+    levels = new ArrayList<>();
+    sizes = new int[0];
+    /* A fixed seed keeps results reproducible; the offsets only need to be unbiased. */
+    random = new Random(k);
+    addLevel();
+  }
+
+  /**
+   * @return the number of values added to the sketch.
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * Add a level on top of the hierarchy.
+   */
+  private void addLevel() {
+    levels.add(new double[8]);
+    sizes = Arrays.copyOf(sizes, sizes.length + 1);
+  }
+
+  /**
+   * @param level a level.
+   * @return the number of values the level holds before it is compacted.
+   */
+  private int capacity(final int level) {
+    int depth = levels.size() - 1 - level;
+    return Math.max(2, (int) Math.ceil(k * Math.pow(CAPACITY_RATIO, depth)));
+  }
+
+  /**
+   * Append a value to a level.
+   *
+   * @param level the level.
+   * @param value the value.
+   */
+  private void append(final int level, final double value) {
+    double[] values = levels.get(level);
+    if (sizes[level] == values.length) {
+      values = Arrays.copyOf(values, values.length * 2);
+      levels.set(level, values);
+    }
+    values[sizes[level]++] = value;
+  }
+
+  /**
+   * Add a value to the sketch.
+   *
+   * @param value the value.
+   */
+  public void add(final double value) {
+    append(0, value);
+    ++count;
+    compress();
+  }
+
+  /**
+   * Add all the values of another sketch to this one.
+   *
+   * @param other a sketch with the same k.
+   */
+  public void merge(final QuantileSketch other) {
+    Preconditions.checkArgument(other.k == k, "cannot merge sketches with k %s and %s", other.k, k);
+    while (levels.size() < other.levels.size()) {
+      addLevel();
+    }
+    for (int h = 0; h < other.levels.size(); ++h) {
+      double[] values = other.levels.get(h);
+      for (int i = 0; i < other.sizes[h]; ++i) {
+        append(h, values[i]);
+      }
+    }
+    count += other.count;
+    compress();
+  }
+
+  /**
+   * Compact levels until the sketch fits in its total capacity.
+   */
+  private void compress() {
+    while (true) {
+      int size = 0;
+      int capacity = 0;
+      for (int h = 0; h < levels.size(); ++h) {
+        size += sizes[h];
+        capacity += capacity(h);
+      }
+      if (size < capacity) {
+        return;
+      }
+      for (int h = 0; h < levels.size(); ++h) {
+        if (sizes[h] >= capacity(h)) {
+          compact(h);
+          break;
+        }
+      }
+    }
+  }
+
+  /**
+   * Promote every other value of a level to the next one.
+   *
+   * @param level the level.
+   */
+  private void compact(final int level) {
+    if (level + 1 == levels.size()) {
+      addLevel();
+    }
+    double[] values = levels.get(level);
+    int size = sizes[level];
+    Arrays.sort(values, 0, size);
+    /* An odd value out is the smallest, and stays in the level. */
+    int leftover = size % 2;
+    int offset = random.nextBoolean() ? 1 : 0;
+    for (int i = leftover + offset; i < size; i += 2) {
+      append(level + 1, values[i]);
+    }
+    sizes[level] = leftover;
+  }
+
+  /**
+   * @param q a fraction between 0 and 1.
+   * @return the estimated q-quantile of the values, i.e., the smallest value whose rank is at least q times the count,
+   *         or NaN if the sketch is empty.
+   */
+  public double quantile(final double q) {
+    Preconditions.checkArgument(q >= 0 && q <= 1, "quantile %s is not between 0 and 1", q);
+    if (count == 0) {
+      return Double.NaN;
+    }
+    int size = 0;
+    for (int s : sizes) {
+      size += s;
+    }
+    double[] values = new double[size];
+    long[] weights = new long[size];
+    int n = 0;
+    for (int h = 0; h < levels.size(); ++h) {
+      System.arraycopy(levels.get(h), 0, values, n, sizes[h]);
+      Arrays.fill(weights, n, n + sizes[h], 1L << h);
+      n += sizes[h];
+    }
+    Integer[] order = new Integer[size];
+    for (int i = 0; i < size; ++i) {
+      order[i] = i;
+    }
+    final double[] sortValues = values;
+    Arrays.sort(order, new Comparator<Integer>() {
+      @Override
+      public int compare(final Integer a, final Integer b) {
+        return Double.compare(sortValues[a], sortValues[b]);
+      }
+    });
+    double target = q * count;
+    long rank = 0;
+    for (int i : order) {
+      rank += weights[i];
+      if (rank >= target) {
+        return values[i];
+      }
+    }
+    return values[order[size - 1]];
+  }
+
+  /**
+   * @return the sketch as bytes, which {@link #fromBytes(byte[])} reads back.
+   */
+  public byte[] toBytes() {
+    int size = 0;
+    for (int s : sizes) {
+      size += s;
+    }
+    ByteBuffer buf = ByteBuffer.allocate(16 + 4 * levels.size() + 8 * size);
+    buf.putInt(k).putLong(count).putInt(levels.size());
+    for (int h = 0; h < levels.size(); ++h) {
+      buf.putInt(sizes[h]);
+      buf.asDoubleBuffer().put(levels.get(h), 0, sizes[h]);
+      buf.position(buf.position() + 8 * sizes[h]);
+    }
+    return buf.array();
+  }
+
+  /**
+   * @param bytes a sketch written by {@link #toBytes()}.
+   * @return the sketch.
+   */
+  public static QuantileSketch fromBytes(final byte[] bytes) {
+    ByteBuffer buf = ByteBuffer.wrap(bytes);
+    QuantileSketch sketch = new QuantileSketch(buf.getInt());
+    sketch.count = buf.getLong();
+    int numLevels = buf.getInt();
+    while (sketch.levels.size() < numLevels) {
+      sketch.addLevel();
+    }
+    for (int h = 0; h < numLevels; ++h) {
+      int size = buf.getInt();
+      double[] values = new double[Math.max(8, size)];
+      buf.asDoubleBuffer().get(values, 0, size);
+      buf.position(buf.position() + 8 * size);
+      sketch.levels.set(h, values);
+      sketch.sizes[h] = size;
+    }
+    return sketch;
+  }
+}
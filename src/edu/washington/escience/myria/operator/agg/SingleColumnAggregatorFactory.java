@@ -41,6 +41,13 @@ public class SingleColumnAggregatorFactory implements AggregatorFactory {
     }
   }
 
+  /**
+   * @return the aggregate operations requested.
+   */
+  public AggregationOp[] getAggOps() {
+    return aggOps.clone();
+  }
+
   @Override
   public Aggregator get(final Schema inputSchema) {
     Objects.requireNonNull(inputSchema, "inputSchema");
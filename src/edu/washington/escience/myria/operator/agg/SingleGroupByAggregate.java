@@ -39,6 +39,12 @@ public class SingleGroupByAggregate extends UnaryOperator {
    */
   private static final long serialVersionUID = 1L;
 
+  /**
+   * The maximal range of int or long group keys for which the aggregation states are stored in an array indexed by the
+   * key. Beyond it, they are stored in a hash map.
+   */
+  private static final int MAX_DIRECT_RANGE = 1 << 16;
+
   /**
    * Factories to create the {@link Aggregator}s.
    */
@@ -86,6 +92,15 @@ public class SingleGroupByAggregate extends UnaryOperator {
    * The buffer storing in-progress group by results when the group key is double.
    */
   private transient DoubleObjectHashMap<Object[]> doubleAggState;
+  /**
+   * The buffer storing in-progress group by results when the group key is int or long and the keys seen so far are in a
+   * small range: {@code directAggState[key - directMinKey]}. null once the range is too wide.
+   */
+  private transient Object[][] directAggState;
+  /**
+   * The group key at index 0 of {@link #directAggState}.
+   */
+  private transient long directMinKey;
   /**
    * The aggregators that will initialize and update the state.
    */
@@ -118,6 +133,7 @@ public class SingleGroupByAggregate extends UnaryOperator {
     floatAggState = null;
     intAggState = null;
     longAggState = null;
+    directAggState = null;
     resultBuffer = null;
   }
 
@@ -167,6 +183,10 @@ public class SingleGroupByAggregate extends UnaryOperator {
         break;
       case INT_TYPE:
         int groupByInt = table.getInt(gColumn, row);
+        if (directAggState != null) {
+          aggState = getDirectAggState(groupByInt);
+          break;
+        }
         aggState = intAggState.get(groupByInt);
         if (aggState == null) {
           aggState = AggUtils.allocateAggStates(aggregators);
@@ -175,6 +195,10 @@ public class SingleGroupByAggregate extends UnaryOperator {
         break;
       case LONG_TYPE:
         long groupByLong = table.getLong(gColumn, row);
+        if (directAggState != null) {
+          aggState = getDirectAggState(groupByLong);
+          break;
+        }
         aggState = longAggState.get(groupByLong);
         if (aggState == null) {
           aggState = AggUtils.allocateAggStates(aggregators);
@@ -204,11 +228,83 @@ public class SingleGroupByAggregate extends UnaryOperator {
     return aggState;
   }
 
+  /**
+   * @param key an int or long group key within the range of {@link #directAggState}.
+   * @return the aggregation state for that key.
+   * @throws DbException if there is an error.
+   */
+  private Object[] getDirectAggState(final long key) throws DbException {
+    final int index = (int) (key - directMinKey);
+    Object[] aggState = directAggState[index];
+    if (aggState == null) {
+      aggState = AggUtils.allocateAggStates(aggregators);
+      directAggState[index] = aggState;
+    }
+    return aggState;
+  }
+
+  /**
+   * Extend {@link #directAggState} to the range of the int or long group keys of a batch, or move its states to the
+   * hash map if the range becomes too wide.
+   *
+   * @param tb the TupleBatch to be processed.
+   */
+  private void growDirectAggState(final TupleBatch tb) {
+    if (tb.numTuples() == 0) {
+      return;
+    }
+    long min = Long.MAX_VALUE;
+    long max = Long.MIN_VALUE;
+    for (int i = 0; i < tb.numTuples(); ++i) {
+      long key;
+      if (gColumnType == Type.INT_TYPE) {
+        key = tb.getInt(gColumn, i);
+      } else {
+        key = tb.getLong(gColumn, i);
+      }
+      min = Math.min(min, key);
+      max = Math.max(max, key);
+    }
+    if (directAggState.length > 0) {
+      min = Math.min(min, directMinKey);
+      max = Math.max(max, directMinKey + directAggState.length - 1);
+    }
+
+    /* the difference overflows if the range is wider than a long. */
+    final long range = max - min + 1;
+    if (range <= 0 || range > MAX_DIRECT_RANGE) {
+      for (int index = 0; index < directAggState.length; ++index) {
+        if (directAggState[index] == null) {
+          continue;
+        }
+        if (gColumnType == Type.INT_TYPE) {
+          intAggState.put((int) (directMinKey + index), directAggState[index]);
+        } else {
+          longAggState.put(directMinKey + index, directAggState[index]);
+        }
+      }
+      directAggState = null;
+      return;
+    }
+    if (directAggState.length == 0) {
+      directAggState = new Object[(int) range][];
+      directMinKey = min;
+    } else if (min < directMinKey || range > directAggState.length) {
+      Object[][] grown = new Object[(int) range][];
+      System.arraycopy(directAggState, 0, grown, (int) (directMinKey - min), directAggState.length);
+      directAggState = grown;
+      directMinKey = min;
+    }
+  }
+
   /**
    * @param tb the TupleBatch to be processed.
    * @throws DbException if there is an error.
    */
   private void processTupleBatch(final TupleBatch tb) throws DbException {
+    if (directAggState != null) {
+      growDirectAggState(tb);
+    }
     for (int i = 0; i < tb.numTuples(); ++i) {
       Object[] groupAgg = getAggState(tb, i);
       for (int agg = 0; agg < aggregators.length; ++agg) {
@@ -263,15 +359,29 @@ public class SingleGroupByAggregate extends UnaryOperator {
         }
         break;
       case INT_TYPE:
-        for (int key : intAggState.keySet().toArray()) {
-          resultBuffer.putInt(0, key);
-          concatResults(resultBuffer, intAggState.get(key));
-        }
-        break;
       case LONG_TYPE:
-        for (long key : longAggState.keySet().toArray()) {
-          resultBuffer.putLong(0, key);
-          concatResults(resultBuffer, longAggState.get(key));
+        if (directAggState != null) {
+          for (int index = 0; index < directAggState.length; ++index) {
+            if (directAggState[index] == null) {
+              continue;
+            }
+            if (gColumnType == Type.INT_TYPE) {
+              resultBuffer.putInt(0, (int) (directMinKey + index));
+            } else {
+              resultBuffer.putLong(0, directMinKey + index);
+            }
+            concatResults(resultBuffer, directAggState[index]);
+          }
+        } else if (gColumnType == Type.INT_TYPE) {
+          for (int key : intAggState.keySet().toArray()) {
+            resultBuffer.putInt(0, key);
+            concatResults(resultBuffer, intAggState.get(key));
+          }
+        } else {
+          for (long key : longAggState.keySet().toArray()) {
+            resultBuffer.putLong(0, key);
+            concatResults(resultBuffer, longAggState.get(key));
+          }
         }
         break;
       case FLOAT_TYPE:
@@ -337,9 +447,13 @@ public class SingleGroupByAggregate extends UnaryOperator {
         break;
       case INT_TYPE:
         intAggState = new IntObjectHashMap<Object[]>();
+        directAggState = new Object[0][];
+        directMinKey = 0;
         break;
       case LONG_TYPE:
         longAggState = new LongObjectHashMap<Object[]>();
+        directAggState = new Object[0][];
+        directMinKey = 0;
         break;
       case FLOAT_TYPE:
         floatAggState = new FloatObjectHashMap<Object[]>();
@@ -0,0 +1,165 @@
+package edu.washington.escience.myria.operator.agg;
+
+import java.util.Objects;
+
+import com.google.common.base.Preconditions;
+import com.google.common.io.BaseEncoding;
+
+import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.storage.AppendableTable;
+import edu.washington.escience.myria.storage.ReadableTable;
+
+/**
+ * An aggregator that summarizes a column with a mergeable sketch. A sketch aggregate can be computed in one step, or in
+ * two: a {@link Phase#PARTIAL} aggregate emits each group's sketch as a base64 string, and after a shuffle a
+ * {@link Phase#FINAL} aggregate merges the sketches of each group and emits the estimates. This replaces shuffling the
+ * values themselves, e.g., all the distinct values for a COUNT DISTINCT.
+ */
+public abstract class SketchAggregator implements Aggregator {
+
+  /** Required for Java serialization. */
+  private static final long serialVersionUID = 1L;
+
+  /** The steps of a sketch aggregate. */
+  public enum Phase {
+    /** Aggregate values and emit the estimates. */
+    COMPLETE,
+    /** Aggregate values and emit the sketch, for a {@link #FINAL} aggregate to merge. */
+    PARTIAL,
+    /** Merge sketches emitted by {@link #PARTIAL} aggregates and emit the estimates. */
+    FINAL
+  };
+
+  /** Which column of the input this aggregator operates over. */
+  private final int fromColumn;
+  /** Which step of the aggregate this is. */
+  private final Phase phase;
+  /** The schema of the aggregate results. */
+  private final Schema resultSchema;
+
+  /**
+   * @param inputSchema the schema of the input.
+   * @param column the column being aggregated over.
+   * @param phase which step of the aggregate this is.
+   * @param sketchName the name of the aggregate, which prefixes the names of its output columns.
+   * @param estimateSchema the schema of the estimates.
+   */
+  protected SketchAggregator(final Schema inputSchema, final int column, final Phase phase, final String sketchName,
+      final Schema estimateSchema) {
+    fromColumn = column;
+    this.phase = Objects.requireNonNull(phase, "phase");
+    if (phase == Phase.FINAL) {
+      Preconditions.checkArgument(inputSchema.getColumnType(column) == Type.STRING_TYPE,
+          "a FINAL sketch aggregate merges sketches in a string column, but column %s is %s", column, inputSchema
+              .getColumnType(column));
+    }
+    if (phase == Phase.PARTIAL) {
+      resultSchema = Schema.ofFields(Type.STRING_TYPE, sketchName + "_sketch_" + inputSchema.getColumnName(column));
+    } else {
+      resultSchema = Objects.requireNonNull(estimateSchema, "estimateSchema");
+    }
+  }
+
+  /**
+   * The name of the aggregated values, for naming the estimates. A FINAL aggregate recovers it from the name of the
+   * column of sketches, so that it produces the same schema as a COMPLETE aggregate.
+   *
+   * @param inputSchema the schema of the input.
+   * @param column the column being aggregated over.
+   * @param phase which step of the aggregate this is.
+   * @param sketchName the name of the aggregate.
+   * @return the name of the aggregated values.
+   */
+  protected static String getValueName(final Schema inputSchema, final int column, final Phase phase,
+      final String sketchName) {
+    String name = inputSchema.getColumnName(column);
+    String prefix = sketchName + "_sketch_";
+    if (phase == Phase.FINAL && name.startsWith(prefix)) {
+      return name.substring(prefix.length());
+    }
+    return name;
+  }
+
+  /**
+   * @return which column of the input this aggregator operates over.
+   */
+  protected final int getFromColumn() {
+    return fromColumn;
+  }
+
+  @Override
+  public final void add(final ReadableTable from, final Object state) throws DbException {
+    Objects.requireNonNull(from, "from");
+    final int numTuples = from.numTuples();
+    for (int row = 0; row < numTuples; ++row) {
+      addRow(from, row, state);
+    }
+  }
+
+  @Override
+  public final void addRow(final ReadableTable from, final int row, final Object state) throws DbException {
+    Objects.requireNonNull(from, "from");
+    if (from.isNull(fromColumn, row)) {
+      return;
+    }
+    if (phase == Phase.FINAL) {
+      try {
+        mergeSketch(BaseEncoding.base64().decode(from.getString(fromColumn, row)), state);
+      } catch (IllegalArgumentException e) {
+        throw new DbException("Error merging the sketch in row " + row, e);
+      }
+    } else {
+      addValue(from, row, state);
+    }
+  }
+
+  @Override
+  public final void getResult(final AppendableTable dest, final int destColumn, final Object state)
+      throws DbException {
+    Objects.requireNonNull(dest, "dest");
+    if (phase == Phase.PARTIAL) {
+      dest.putString(destColumn, BaseEncoding.base64().encode(sketchToBytes(state)));
+    } else {
+      putEstimates(dest, destColumn, state);
+    }
+  }
+
+  @Override
+  public final Schema getResultSchema() {
+    return resultSchema;
+  }
+
+  /**
+   * Add the non-null value in the specified row to the sketch.
+   *
+   * @param from the source table.
+   * @param row the row.
+   * @param state the sketch, which will be mutated.
+   */
+  protected abstract void addValue(ReadableTable from, int row, Object state);
+
+  /**
+   * Merge a serialized sketch into the sketch.
+   *
+   * @param sketch a sketch serialized by {@link #sketchToBytes(Object)}.
+   * @param state the sketch, which will be mutated.
+   */
+  protected abstract void mergeSketch(byte[] sketch, Object state);
+
+  /**
+   * @param state the sketch.
+   * @return the sketch, serialized.
+   */
+  protected abstract byte[] sketchToBytes(Object state);
+
+  /**
+   * Append the estimates computed from the sketch to the given table starting from the given column.
+   *
+   * @param dest where to store the estimates.
+   * @param destColumn the first column of the estimates.
+   * @param state the sketch.
+   */
+  protected abstract void putEstimates(AppendableTable dest, int destColumn, Object state);
+}
@@ -0,0 +1,193 @@
+package edu.washington.escience.myria.operator.agg;
+
+import java.util.Objects;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.operator.Operator;
+import edu.washington.escience.myria.operator.UnaryOperator;
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.storage.TupleBatchBuffer;
+import edu.washington.escience.myria.storage.TupleUtils;
+
+/**
+ * The Aggregation operator that computes an aggregate (e.g., sum, avg, max, min) grouped by one or more columns, for
+ * input that is clustered on the grouping columns, e.g., sorted by them. Each group is aggregated when its tuples
+ * arrive and emitted as soon as a tuple of the next group does, so only the state of the current group is kept,
+ * instead of a hash table of all the groups as in {@link MultiGroupByAggregate} and {@link SingleGroupByAggregate}.
+ *
+ * The output has the same schema as {@link MultiGroupByAggregate}, and the groups come out in input order.
+ */
+public final class SortedGroupByAggregate extends UnaryOperator {
+
+  /** Java requires this. **/
+  private static final long serialVersionUID = 1L;
+
+  /** Factories to make the Aggregators. **/
+  private final AggregatorFactory[] factories;
+  /** Group fields. **/
+  private final int[] gfields;
+  /** The actual Aggregators. **/
+  private transient Aggregator[] aggregators;
+  /** The aggregation state of the current group. */
+  private transient Object[] aggStates;
+  /** The batch holding the first tuple of the current group, or null if no group has started. */
+  private transient TupleBatch groupBatch;
+  /** The row of the first tuple of the current group in {@link #groupBatch}. */
+  private transient int groupRow;
+  /** The results of the groups that are done. */
+  private transient TupleBatchBuffer ans;
+
+  /**
+   * Groups the input tuples according to the specified grouping fields, then produces the specified aggregates.
+   *
+   * @param child The Operator that is feeding us tuples, clustered on the grouping fields.
+   * @param gfields The columns over which we are grouping the result.
+   * @param factories The factories that will produce the {@link Aggregator}s for each group.
+   */
+  public SortedGroupByAggregate(@Nullable final Operator child, final int[] gfields,
+      final AggregatorFactory... factories) {
+    super(child);
+    this.gfields = Objects.requireNonNull(gfields, "gfields");
+    this.factories = Objects.requireNonNull(factories, "factories");
+    Preconditions.checkArgument(gfields.length > 0, "to use SortedGroupByAggregate, must group over some fields");
+    Preconditions.checkArgument(factories.length != 0, "to use SortedGroupByAggregate, must specify some aggregates");
+  }
+
+  /**
+   * @param sortColumns the columns that tuples are sorted by, in order.
+   * @param gfields the grouping fields.
+   * @return true if tuples sorted by sortColumns are clustered on the grouping fields, i.e., if the grouping fields are
+   *         the first sort columns, in any order.
+   */
+  public static boolean isClustered(final int[] sortColumns, final int[] gfields) {
+    if (sortColumns.length < gfields.length) {
+      return false;
+    }
+    for (int gfield : gfields) {
+      boolean found = false;
+      for (int i = 0; i < gfields.length; ++i) {
+        found |= sortColumns[i] == gfield;
+      }
+      if (!found) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return the columns over which the result is grouped.
+   */
+  public int[] getGroupFields() {
+    return gfields;
+  }
+
+  @Override
+  protected void cleanup() throws DbException {
+    aggStates = null;
+    groupBatch = null;
+    ans = null;
+  }
+
+  @Override
+  protected TupleBatch fetchNextReady() throws DbException {
+    TupleBatch nexttb = ans.popFilled();
+    if (nexttb != null) {
+      return nexttb;
+    }
+
+    final Operator child = getChild();
+    for (TupleBatch tb = child.nextReady(); tb != null; tb = child.nextReady()) {
+      for (int row = 0; row < tb.numTuples(); ++row) {
+        if (groupBatch == null || !TupleUtils.tupleEquals(tb, gfields, row, groupBatch, gfields, groupRow)) {
+          if (groupBatch != null) {
+            emitGroup();
+          }
+          groupBatch = tb;
+          groupRow = row;
+          aggStates = AggUtils.allocateAggStates(aggregators);
+        }
+        for (int agg = 0; agg < aggregators.length; ++agg) {
+          aggregators[agg].addRow(tb, row, aggStates[agg]);
+        }
+      }
+      nexttb = ans.popFilled();
+      if (nexttb != null) {
+        return nexttb;
+      }
+    }
+
+    if (child.eos()) {
+      if (groupBatch != null) {
+        emitGroup();
+        groupBatch = null;
+        aggStates = null;
+      }
+      return ans.popAny();
+    }
+    return null;
+  }
+
+  /**
+   * Append the grouping fields and the aggregates of the current group to {@link #ans}.
+   *
+   * @throws DbException if there is an error.
+   */
+  private void emitGroup() throws DbException {
+    for (int column = 0; column < gfields.length; ++column) {
+      TupleUtils.copyValue(groupBatch, gfields[column], groupRow, ans, column);
+    }
+    int curCol = gfields.length;
+    for (int agg = 0; agg < aggregators.length; ++agg) {
+      aggregators[agg].getResult(ans, curCol, aggStates[agg]);
+      curCol += aggregators[agg].getResultSchema().numColumns();
+    }
+  }
+
+  /**
+   * The schema of the aggregate output. Grouping fields first and then aggregate fields.
+   *
+   * @return the resulting schema
+   */
+  @Override
+  protected Schema generateSchema() {
+    Operator child = getChild();
+    if (child == null) {
+      return null;
+    }
+    Schema inputSchema = child.getSchema();
+    if (inputSchema == null) {
+      return null;
+    }
+
+    final ImmutableList.Builder<Type> aggTypes = ImmutableList.<Type> builder();
+    final ImmutableList.Builder<String> aggNames = ImmutableList.<String> builder();
+    try {
+      for (Aggregator agg : AggUtils.allocateAggs(factories, inputSchema)) {
+        Schema curAggSchema = agg.getResultSchema();
+        aggTypes.addAll(curAggSchema.getColumnTypes());
+        aggNames.addAll(curAggSchema.getColumnNames());
+      }
+    } catch (DbException e) {
+      throw new RuntimeException("unable to allocate aggregators to determine output schema", e);
+    }
+    return Schema.merge(inputSchema.getSubSchema(gfields), new Schema(aggTypes, aggNames));
+  }
+
+  @Override
+  protected void init(final ImmutableMap<String, Object> execEnvVars) throws DbException {
+    Preconditions.checkState(getSchema() != null, "unable to determine schema in init");
+    aggregators = AggUtils.allocateAggs(factories, getChild().getSchema());
+    aggStates = null;
+    groupBatch = null;
+    ans = new TupleBatchBuffer(getSchema());
+  }
+}
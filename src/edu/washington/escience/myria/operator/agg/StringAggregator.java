@@ -45,11 +45,13 @@ public final class StringAggregator extends PrimitiveAggregator {
       return;
     }
     if (needsCount) {
-      sstate.count = LongMath.checkedAdd(sstate.count, numTuples);
+      sstate.count = LongMath.checkedAdd(sstate.count, countNonNull(from, fromColumn));
     }
     if (needsStats) {
       for (int i = 0; i < numTuples; ++i) {
-        addStringStats(from.getString(fromColumn, i), sstate);
+        if (!from.isNull(fromColumn, i)) {
+          addStringStats(from.getString(fromColumn, i), sstate);
+        }
       }
     }
   }
@@ -57,6 +59,9 @@ public final class StringAggregator extends PrimitiveAggregator {
   @Override
   public void addRow(final ReadableTable table, final int row, final Object state) {
     Objects.requireNonNull(table, "table");
+    if (table.isNull(fromColumn, row)) {
+      return;
+    }
     StringAggState sstate = (StringAggState) state;
     if (needsCount) {
       sstate.count = LongMath.checkedAdd(sstate.count, 1);
@@ -106,6 +111,7 @@ public final class StringAggregator extends PrimitiveAggregator {
         case SUM:
           throw new UnsupportedOperationException("Aggregate " + op + " on type String");
       }
+      idx++;
     }
   }
 
@@ -29,6 +29,11 @@ public class CollectProducer extends GenericShuffleProducer {
         new int[] { collectConsumerWorkerID }, new FixValuePartitionFunction(0), true);
   }
 
+  @Override
+  protected boolean scatterRows() {
+    return false;
+  }
+
   @Override
   protected TupleBatch[] getTupleBatchPartitions(final TupleBatch tup) {
     return new TupleBatch[] { tup };
@@ -8,6 +8,7 @@ import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Preconditions;
 import com.google.common.base.Verify;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
@@ -83,6 +84,21 @@ public class Consumer extends LeafOperator {
    */
   private transient LocalFragmentResourceManager taskResourceManager;
 
+  /**
+   * The column whose smallest values are returned first, or -1 to return batches in arrival order.
+   */
+  private int priorityColumn = -1;
+
+  /**
+   * Received data batches not yet returned, if a priority column is set.
+   */
+  private transient TupleBatchPriorityQueue prioritizedBatches;
+
+  /**
+   * An EOS or EOI received after the batches in {@link #prioritizedBatches}, processed once they are all returned.
+   */
+  private transient IPCMessage.StreamData<TupleBatch> heldMarker;
+
   /**
    * @return my exchange channels.
    * @param myWorkerID for parsing self-references.
@@ -134,6 +150,8 @@ public class Consumer extends LeafOperator {
     inputBuffer = null;
     workerEOS.clear();
     workerEOI.clear();
+    prioritizedBatches = null;
+    heldMarker = null;
   }
 
   @Override
@@ -153,6 +171,10 @@ public class Consumer extends LeafOperator {
         (QueryExecutionMode) execEnvVars.get(MyriaConstants.EXEC_ENV_VAR_EXECUTION_MODE) == QueryExecutionMode.NON_BLOCKING;
 
     inputBuffer = taskResourceManager.getInputBuffer(this);
+    if (priorityColumn >= 0) {
+      prioritizedBatches = new TupleBatchPriorityQueue(priorityColumn);
+    }
+    heldMarker = null;
   }
 
   /**
@@ -172,31 +194,20 @@ public class Consumer extends LeafOperator {
     if (!blocking) {
       timeToWait = 0;
     }
+    if (prioritizedBatches != null) {
+      return getTuplesPrioritized(timeToWait);
+    }
 
     IPCMessage.StreamData<TupleBatch> tb = null;
     TupleBatch result = null;
     while ((tb = take(timeToWait)) != null) {
-      int sourceWorkerIdx = workerIdToIndex.get(tb.getRemoteID());
       TupleBatch ttbb = tb.getPayload();
-      if (ttbb != null) {
-        ttbb = ExchangeTupleBatch.wrap(ttbb, tb.getRemoteID());
-      }
-
-      if (ttbb == null) {
-        // EOS
-        workerEOS.set(sourceWorkerIdx);
-        checkEOSAndEOI();
-        if (eos() || eoi()) {
-          break;
-        }
-      } else if (ttbb.isEOI()) {
-        workerEOI.set(sourceWorkerIdx);
-        checkEOSAndEOI();
-        if (eos() || eoi()) {
+      if (ttbb == null || ttbb.isEOI()) {
+        if (processMarker(tb)) {
           break;
         }
       } else {
-        result = ttbb;
+        result = ExchangeTupleBatch.wrap(ttbb, tb.getRemoteID());
         break;
       }
     }
@@ -204,6 +215,61 @@ public class Consumer extends LeafOperator {
     return result;
   }
 
+  /**
+   * Like {@link #getTuplesNormal(boolean)}, but returns the batch with the smallest value in the priority column among
+   * all the batches received so far. Everything already in the input buffer is moved to {@link #prioritizedBatches},
+   * up to the first EOS or EOI, which is held back until the batches received before it are all returned.
+   * 
+   * @param timeToWait wait at most this many milliseconds for the first message, or forever if negative.
+   * @return the next batch, or <code>null</code> if none is available or an EOS or EOI has been reached.
+   * @throws InterruptedException if interrupted.
+   */
+  private TupleBatch getTuplesPrioritized(final int timeToWait) throws InterruptedException {
+    while (true) {
+      if (!prioritizedBatches.isEmpty()) {
+        return prioritizedBatches.poll();
+      }
+      if (heldMarker != null) {
+        IPCMessage.StreamData<TupleBatch> marker = heldMarker;
+        heldMarker = null;
+        if (processMarker(marker)) {
+          return null;
+        }
+        continue;
+      }
+      IPCMessage.StreamData<TupleBatch> tb = take(timeToWait);
+      if (tb == null) {
+        return null;
+      }
+      while (tb != null) {
+        TupleBatch ttbb = tb.getPayload();
+        if (ttbb == null || ttbb.isEOI()) {
+          heldMarker = tb;
+          break;
+        }
+        prioritizedBatches.add(ExchangeTupleBatch.wrap(ttbb, tb.getRemoteID()));
+        tb = take(0);
+      }
+    }
+  }
+
+  /**
+   * Record an EOS (a <code>null</code> payload) or an EOI from a source worker.
+   * 
+   * @param marker the EOS or EOI message.
+   * @return true if this Consumer has reached EOS or EOI as a result.
+   */
+  private boolean processMarker(final IPCMessage.StreamData<TupleBatch> marker) {
+    int sourceWorkerIdx = workerIdToIndex.get(marker.getRemoteID());
+    if (marker.getPayload() == null) {
+      workerEOS.set(sourceWorkerIdx);
+    } else {
+      workerEOI.set(sourceWorkerIdx);
+    }
+    checkEOSAndEOI();
+    return eos() || eoi();
+  }
+
   @Override
   public final void checkEOSAndEOI() {
 
@@ -254,6 +320,29 @@ public class Consumer extends LeafOperator {
     return result;
   }
 
+  /**
+   * @return the number of workers this Consumer receives from.
+   */
+  public final int getNumSourceWorkers() {
+    return sourceWorkers.size();
+  }
+
+  /**
+   * @param workerID the ID of a source worker, as returned by {@link ExchangeTupleBatch#getSourceWorkerID()}.
+   * @return the index of the worker, between 0 and {@link #getNumSourceWorkers()}.
+   */
+  public final int getSourceWorkerIndex(final int workerID) {
+    return workerIdToIndex.get(workerID);
+  }
+
+  /**
+   * @param sourceWorkerIdx the index of a source worker, as returned by {@link #getSourceWorkerIndex(int)}.
+   * @return true if the worker has sent an EOS and all the batches it sent before it have been returned.
+   */
+  public final boolean isSourceWorkerEOS(final int sourceWorkerIdx) {
+    return workerEOS.get(sourceWorkerIdx);
+  }
+
   /**
    * @return my input buffer.
    * */
@@ -304,6 +393,26 @@ public class Consumer extends LeafOperator {
     return schema;
   }
 
+  /**
+   * Return the received batches in ascending order of their smallest value in the column, instead of in arrival order.
+   * Ordering is only among the batches that have arrived when the next batch is requested; EOS and EOI from a worker
+   * are still processed after all the batches it sent before them. Ordering is per batch, not per tuple: batches are
+   * returned whole, never split by value.
+   * 
+   * @param column the priority column, or -1 to return batches in arrival order.
+   */
+  public final void setPriorityColumn(final int column) {
+    Preconditions.checkArgument(column >= -1, "priority column must be -1 or a column index");
+    priorityColumn = column;
+  }
+
+  /**
+   * @return the column whose smallest values are returned first, or -1 if batches are returned in arrival order.
+   */
+  public final int getPriorityColumn() {
+    return priorityColumn;
+  }
+
   /**
    * @param schema the schema to set
    * */
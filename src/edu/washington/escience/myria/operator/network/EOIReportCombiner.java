@@ -0,0 +1,198 @@
+package edu.washington.escience.myria.operator.network;
+
+import java.util.BitSet;
+import java.util.HashMap;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import com.gs.collections.impl.list.mutable.primitive.IntArrayList;
+
+import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.operator.IDBController;
+import edu.washington.escience.myria.operator.Operator;
+import edu.washington.escience.myria.operator.UnionAll;
+import edu.washington.escience.myria.parallel.ExchangePairID;
+import edu.washington.escience.myria.parallel.ipc.IPCConnectionPool;
+import edu.washington.escience.myria.storage.ExchangeTupleBatch;
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.storage.TupleBatchBuffer;
+
+/**
+ * Merges the EOI reports of the {@link IDBController}s of a worker with those of the workers below it in a tree, so
+ * that the {@link EOSController} receives one report per round for the whole iteration instead of one from every
+ * IDBController of every worker.
+ * 
+ * The workers form a tree of the given fanout in the order of workerIDs, rooted at workerIDs[0]. The IDBControllers
+ * report to the combiner of their own worker ({@link IPCConnectionPool#SELF_IPC_ID} as their controller worker), each
+ * combiner reports to its parent, and the root reports to an EOSController built by
+ * {@link EOSController#EOSController(UnionAll, ExchangePairID[], int[], int)}. The r-th report of a combiner is empty
+ * when the r-th reports of all the IDBControllers below it were empty, so the EOSController ends the iteration at the
+ * same round as if it counted all the reports itself. Each worker sends one report per round, and receives at most
+ * fanout reports per round besides those of its own IDBControllers.
+ * 
+ * The plan is the same on every worker, so every combiner has a channel to every other combiner and to the
+ * EOSController. It ends the channels other than the one to its parent when it receives its first reports. Fault
+ * tolerance is not supported.
+ */
+public final class EOIReportCombiner extends Producer {
+
+  /** Required for Java serialization. */
+  private static final long serialVersionUID = 1L;
+
+  /** The workers of the tree, in tree order. */
+  private final int[] workerIDs;
+  /** The number of IDBController operators on each worker. */
+  private final int numIDBs;
+  /** The maximum number of children of a worker in the tree. */
+  private final int fanout;
+
+  /** The worker this combiner runs on. */
+  private transient int selfWorkerID;
+  /** The channel to the parent combiner, or to the EOSController at the root. */
+  private transient int parentChannel;
+  /**
+   * Mapping from the workerID of each child to its report slot. The local IDBControllers take the first slots. Null
+   * until this combiner has found its place in the tree.
+   */
+  private transient ImmutableMap<Integer, Integer> childToSlot;
+  /** The number of reports received from each slot. */
+  private transient int[] numReports;
+  /** The number of reports received for each round. */
+  private transient IntArrayList numReportsOfRound;
+  /** The rounds with some non-empty report. */
+  private transient BitSet nonEmptyRounds;
+  /** The next round to report to the parent. */
+  private transient int nextRound;
+
+  /**
+   * @param child receives the EOI reports of the local IDBController operators and of the child combiners.
+   * @param treeOpID the operatorID through which the combiners report to each other.
+   * @param controllerOpID the operatorID through which the root reports to the EOSController.
+   * @param controllerWorkerID the worker of the EOSController.
+   * @param workerIDs the workers where the IDBController operators and the combiners reside, in tree order.
+   * @param numIDBs the number of IDBController operators in each worker.
+   * @param fanout the maximum number of children of a worker in the tree.
+   * */
+  public EOIReportCombiner(final UnionAll child, final ExchangePairID treeOpID, final ExchangePairID controllerOpID,
+      final int controllerWorkerID, final int[] workerIDs, final int numIDBs, final int fanout) {
+    super(null, outputOperatorIDs(treeOpID, controllerOpID, workerIDs.length), outputWorkerIDs(workerIDs,
+        controllerWorkerID), true);
+    Preconditions.checkArgument(numIDBs > 0, "need at least one IDB");
+    Preconditions.checkArgument(fanout > 0, "fanout must be positive");
+    if (child != null) {
+      setChildren(new Operator[] { child });
+    }
+    this.workerIDs = workerIDs.clone();
+    this.numIDBs = numIDBs;
+    this.fanout = fanout;
+  }
+
+  /**
+   * @param treeOpID the operatorID through which the combiners report to each other.
+   * @param controllerOpID the operatorID through which the root reports to the EOSController.
+   * @param numWorkers the number of workers of the tree.
+   * @return the operatorIDs of the channels: one to each worker of the tree, then one to the EOSController.
+   */
+  private static ExchangePairID[] outputOperatorIDs(final ExchangePairID treeOpID,
+      final ExchangePairID controllerOpID, final int numWorkers) {
+    ExchangePairID[] ids = new ExchangePairID[numWorkers + 1];
+    for (int i = 0; i < numWorkers; ++i) {
+      ids[i] = treeOpID;
+    }
+    ids[numWorkers] = controllerOpID;
+    return ids;
+  }
+
+  /**
+   * @param workerIDs the workers of the tree, in tree order.
+   * @param controllerWorkerID the worker of the EOSController.
+   * @return the workerIDs of the channels: one to each worker of the tree, then one to the EOSController.
+   */
+  private static int[] outputWorkerIDs(final int[] workerIDs, final int controllerWorkerID) {
+    int[] ids = new int[workerIDs.length + 1];
+    System.arraycopy(workerIDs, 0, ids, 0, workerIDs.length);
+    ids[workerIDs.length] = controllerWorkerID;
+    return ids;
+  }
+
+  /**
+   * Find the place of this worker in the tree, and end the channels that are not to the parent.
+   */
+  private void joinTree() {
+    selfWorkerID = getTaskResourceManager().getNodeId();
+    int index = -1;
+    for (int i = 0; i < workerIDs.length; ++i) {
+      if (workerIDs[i] == selfWorkerID) {
+        index = i;
+      }
+    }
+    Preconditions.checkState(index >= 0, "worker %s is not in the tree", selfWorkerID);
+    if (index == 0) {
+      parentChannel = workerIDs.length;
+    } else {
+      parentChannel = (index - 1) / fanout;
+    }
+
+    HashMap<Integer, Integer> tmp = new HashMap<>();
+    int slot = numIDBs;
+    for (int i = index * fanout + 1; i <= index * fanout + fanout && i < workerIDs.length; ++i) {
+      tmp.put(workerIDs[i], slot++);
+    }
+    childToSlot = ImmutableMap.copyOf(tmp);
+    numReports = new int[slot];
+    numReportsOfRound = new IntArrayList();
+    nonEmptyRounds = new BitSet();
+    nextRound = 0;
+
+    for (int i = 0; i < numChannels(); ++i) {
+      if (i != parentChannel) {
+        channelEnds(i);
+      }
+    }
+  }
+
+  @Override
+  protected void consumeTuples(final TupleBatch tb) throws DbException {
+    if (childToSlot == null) {
+      joinTree();
+    }
+    ExchangeTupleBatch etb = (ExchangeTupleBatch) tb;
+    int sourceWorkerID = etb.getSourceWorkerID();
+    for (int i = 0; i < etb.numTuples(); ++i) {
+      int slot;
+      if (sourceWorkerID == selfWorkerID) {
+        slot = etb.getInt(0, i);
+      } else {
+        slot = childToSlot.get(sourceWorkerID);
+      }
+      int round = numReports[slot]++;
+      while (numReportsOfRound.size() <= round) {
+        numReportsOfRound.add(0);
+      }
+      numReportsOfRound.set(round, numReportsOfRound.get(round) + 1);
+      if (!etb.getBoolean(1, i)) {
+        nonEmptyRounds.set(round);
+      }
+    }
+
+    /* A round is complete once every slot has reported it, and rounds complete in order. */
+    TupleBatchBuffer reports = new TupleBatchBuffer(IDBController.EOI_REPORT_SCHEMA);
+    while (nextRound < numReportsOfRound.size() && numReportsOfRound.get(nextRound) == numReports.length) {
+      reports.putInt(0, 0);
+      reports.putBoolean(1, !nonEmptyRounds.get(nextRound));
+      nextRound++;
+    }
+    TupleBatch out = reports.popAny();
+    if (out != null) {
+      writeMessage(parentChannel, out);
+    }
+  }
+
+  @Override
+  protected void childEOS() throws DbException {
+  }
+
+  @Override
+  protected void childEOI() throws DbException {
+  }
+}
@@ -63,17 +63,43 @@ public class EOSController extends Producer {
    * @param idbOpIDs the IDB operatorIDs in each Worker
    * */
   public EOSController(final UnionAll child, final ExchangePairID[] idbOpIDs, final int[] workerIDs) {
+    this(child, idbOpIDs, workerIDs, idbOpIDs.length, workerIDs);
+  }
+
+  /**
+   * The EOI reports come merged by a tree of {@link EOIReportCombiner}s, whose root reports for all the IDBController
+   * operators as if it were a single one.
+   * 
+   * @param child The child are responsible for receiving EOI report from the root combiner.
+   * @param workerIDs the workers where the IDBController operators resides
+   * @param idbOpIDs the IDB operatorIDs in each Worker
+   * @param rootCombinerWorkerID the worker of the root combiner.
+   * */
+  public EOSController(final UnionAll child, final ExchangePairID[] idbOpIDs, final int[] workerIDs,
+      final int rootCombinerWorkerID) {
+    this(child, idbOpIDs, workerIDs, 1, new int[] { rootCombinerWorkerID });
+  }
+
+  /**
+   * @param child The child are responsible for receiving EOI report from all controlled IDBControllers.
+   * @param workerIDs the workers where the IDBController operators resides
+   * @param idbOpIDs the IDB operatorIDs in each Worker
+   * @param numReportingIDBs the number of IDBs reported on by each reporting worker.
+   * @param reportingWorkerIDs the workers that send EOI reports.
+   * */
+  private EOSController(final UnionAll child, final ExchangePairID[] idbOpIDs, final int[] workerIDs,
+      final int numReportingIDBs, final int[] reportingWorkerIDs) {
     super(null, idbOpIDs, workerIDs, false);
     if (child != null) {
       setChildren(new Operator[] { child });
     }
-    numEOI = new int[idbOpIDs.length][workerIDs.length];
+    numEOI = new int[numReportingIDBs][reportingWorkerIDs.length];
     zeroCol = new ArrayList<Integer>();
-    eosZeroColValue = idbOpIDs.length * workerIDs.length;
+    eosZeroColValue = numReportingIDBs * reportingWorkerIDs.length;
 
     int idx = 0;
     HashMap<Integer, Integer> tmp = new HashMap<>();
-    for (int workerId : workerIDs) {
+    for (int workerId : reportingWorkerIDs) {
       tmp.put(workerId, idx++);
     }
     workerIdToIndex = ImmutableMap.copyOf(tmp);
@@ -91,6 +91,20 @@ public class GenericShuffleProducer extends Producer {
 
   @Override
   protected final void consumeTuples(final TupleBatch tup) throws DbException {
+    if (scatterRows() && !tup.isEOI()) {
+      final int[] counts = writeScatteredIntoChannels(true, partitionToChannel, tup, partitionFunction.partition(tup));
+      if (getProfilingMode().contains(ProfilingMode.QUERY)) {
+        for (int partitionIdx = 0; partitionIdx < counts.length; partitionIdx++) {
+          if (counts[partitionIdx] > 0) {
+            for (int channelId : partitionToChannel[partitionIdx]) {
+              final int destWorkerId = getOutputIDs()[channelId].getRemoteID();
+              getProfilingLogger().recordSent(this, counts[partitionIdx], destWorkerId);
+            }
+          }
+        }
+      }
+      return;
+    }
     final TupleBatch[] partitions = getTupleBatchPartitions(tup);
 
     if (getProfilingMode().contains(ProfilingMode.QUERY)) {
@@ -107,6 +121,14 @@ public class GenericShuffleProducer extends Producer {
     writePartitionsIntoChannels(true, partitionToChannel, partitions);
   }
 
+  /**
+   * @return true if batches are partitioned by scattering their rows by the partition function, false if they are
+   *         partitioned by {@link #getTupleBatchPartitions(TupleBatch)}.
+   */
+  protected boolean scatterRows() {
+    return true;
+  }
+
   /**
    * call partition function to partition this tuple batch as an array of shallow copies of TupleBatch. subclasses can
    * override this method to have smarter partition approach.
@@ -27,6 +27,11 @@ public final class LocalMultiwayProducer extends GenericShuffleProducer {
         new int[] { IPCConnectionPool.SELF_IPC_ID }, new FixValuePartitionFunction(0), false);
   }
 
+  @Override
+  protected boolean scatterRows() {
+    return false;
+  }
+
   @Override
   protected TupleBatch[] getTupleBatchPartitions(final TupleBatch tup) {
     return new TupleBatch[] { tup };
@@ -1,8 +1,10 @@
 package edu.washington.escience.myria.operator.network;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Queue;
 
 import org.jboss.netty.channel.ChannelFuture;
 
@@ -62,7 +64,13 @@ public abstract class Producer extends RootOperator {
   /** tried to send tuples for each channel. */
   private List<StreamingState> triedToSendTuples;
   /** pending tuples to be sent for each channel. */
-  private transient List<LinkedList<TupleBatch>> pendingTuplesToSend;
+  private transient List<Queue<TupleBatch>> pendingTuplesToSend;
+
+  /**
+   * The column whose smallest values are sent first, or -1 to send batches in arrival order. See
+   * {@link #setPriorityColumn(int)}.
+   */
+  private int priorityColumn = -1;
 
   /**
    * output channel IDs.
@@ -199,9 +207,9 @@ public abstract class Producer extends RootOperator {
     for (int i = 0; i < numOfPartition; i++) {
       partitionBuffers[i] = new TupleBatchBuffer(getSchema());
     }
-    ioChannels = new StreamOutputChannel[outputIDs.length];
+    ioChannels = (StreamOutputChannel<TupleBatch>[]) new StreamOutputChannel<?>[outputIDs.length];
     ioChannelsAvail = new boolean[outputIDs.length];
-    pendingTuplesToSend = new ArrayList<LinkedList<TupleBatch>>();
+    pendingTuplesToSend = new ArrayList<Queue<TupleBatch>>();
     localizedOutputIDs = new StreamIOChannelID[outputIDs.length];
     for (int i = 0; i < outputIDs.length; i++) {
       if (outputIDs[i].getRemoteID() == IPCConnectionPool.SELF_IPC_ID) {
@@ -212,7 +220,11 @@ public abstract class Producer extends RootOperator {
     }
     for (int i = 0; i < localizedOutputIDs.length; i++) {
       createANewChannel(i);
-      pendingTuplesToSend.add(i, new LinkedList<TupleBatch>());
+      if (priorityColumn >= 0) {
+        pendingTuplesToSend.add(i, new TupleBatchPriorityQueue(priorityColumn));
+      } else {
+        pendingTuplesToSend.add(i, new LinkedList<TupleBatch>());
+      }
       triedToSendTuples.get(i).init(execEnvVars);
     }
     nonBlockingExecution =
@@ -257,7 +269,7 @@ public abstract class Producer extends RootOperator {
   }
 
   /**
-   * set backup buffers as KeepAndSortOnMinValue.
+   * set backup buffers as KeepAndSortOnMinValue, and send the batches with the smallest values first.
    * 
    * @param keyColIndices the same as the one in KeepMinValue
    * @param valueCol the same as the one in KeepMinValue
@@ -268,6 +280,31 @@ public abstract class Producer extends RootOperator {
       triedToSendTuples.add(i, new KeepAndSortOnMinValue(keyColIndices, valueCol));
       triedToSendTuples.get(i).setAttachedOperator(this);
     }
+    setPriorityColumn(valueCol);
+  }
+
+  /**
+   * Send the pending batches of each channel in ascending order of their smallest value in the column, instead of in
+   * arrival order. In non-blocking execution, batches are also held back while their channel is not writable, so that
+   * smaller values produced in the meantime overtake them. Held batches are sent once the channel is writable again
+   * when the next input arrives, and at the latest when the child reaches EOI or EOS. This suits monotone
+   * aggregates such as shortest paths, where the smallest updates are the most likely to survive.
+   * 
+   * Ordering is per batch, not per tuple: a batch is ranked by its smallest value and sent whole, so its larger values
+   * may still go out before smaller values of a later batch.
+   * 
+   * @param column the priority column, or -1 to send batches in arrival order.
+   */
+  public void setPriorityColumn(final int column) {
+    Preconditions.checkArgument(column >= -1, "priority column must be -1 or a column index");
+    priorityColumn = column;
+  }
+
+  /**
+   * @return the column whose smallest values are sent first, or -1 if batches are sent in arrival order.
+   */
+  public final int getPriorityColumn() {
+    return priorityColumn;
   }
 
   /** set backup buffers as DupElim. */
@@ -339,7 +376,7 @@ public abstract class Producer extends RootOperator {
    * Pop tuple batches from each of the buffers and try to write them to corresponding channels, if possible.
    * 
    * @param usingTimeout use {@link TupleBatchBuffer#popAny()} or {@link TupleBatchBuffer#popAnyUsingTimeout()} when
-   *          popping
+   *          popping. If false, all pending batches are written, even those held back by {@link #setPriorityColumn}.
    * @param channelIndices the same as {@link GenericShuffleProducer#cellPartition}.
    * @param partitions the list of partitions as tuple batches.
    * */
@@ -394,6 +431,10 @@ public abstract class Producer extends RootOperator {
         continue;
       }
       while (true) {
+        if (holdsBack(usingTimeout, priorityColumn, nonBlockingExecution, ioChannels[i].isWritable())) {
+          /* keep the batches queued so that smaller values arriving before the channel drains can overtake them. */
+          break;
+        }
         TupleBatch tb = pendingTuplesToSend.get(i).poll();
         if (tb == null) {
           break;
@@ -421,6 +462,62 @@ public abstract class Producer extends RootOperator {
     }
   }
 
+  /**
+   * @param usingTimeout if the write is not a flush at EOI or EOS.
+   * @param priorityColumn the priority column, or -1 if batches are sent in arrival order.
+   * @param nonBlocking if the query executes in non-blocking mode.
+   * @param writable if the channel is writable.
+   * @return if the pending batches of the channel are kept queued instead of written.
+   */
+  static boolean holdsBack(final boolean usingTimeout, final int priorityColumn, final boolean nonBlocking,
+      final boolean writable) {
+    return usingTimeout && priorityColumn >= 0 && nonBlocking && !writable;
+  }
+
+  /**
+   * Scatter the rows of a batch into the buffers of their partitions and try to write the completed batches to the
+   * corresponding channels. Unlike {@link #writePartitionsIntoChannels(boolean, int[][], TupleBatch[])}, no
+   * intermediate per-partition batches are built: the rows are grouped by partition with a counting sort, then copied
+   * column by column into the partition buffers.
+   * 
+   * @param usingTimeout use {@link TupleBatchBuffer#popAny()} or {@link TupleBatchBuffer#popAnyUsingTimeout()} when
+   *          popping
+   * @param channelIndices the same as {@link GenericShuffleProducer#cellPartition}.
+   * @param tb the batch to scatter.
+   * @param partitions the partition of each row of the batch.
+   * @return the number of rows of the batch in each partition.
+   */
+  protected final int[] writeScatteredIntoChannels(final boolean usingTimeout, final int[][] channelIndices,
+      final TupleBatch tb, final int[] partitions) {
+    final int[] counts = new int[numOfPartition];
+    for (int p : partitions) {
+      counts[Preconditions.checkElementIndex(p, numOfPartition)]++;
+    }
+    if (totallyLocal) {
+      /* Local channels take the batches as they are, so shallow copies are cheaper. */
+      writePartitionsIntoChannels(usingTimeout, channelIndices, tb.partition(partitions, numOfPartition));
+      return counts;
+    }
+
+    /* offsets[p] is the first entry of rows that belongs to partition p. */
+    final int[] offsets = new int[numOfPartition + 1];
+    for (int p = 0; p < numOfPartition; ++p) {
+      offsets[p + 1] = offsets[p] + counts[p];
+    }
+    final int[] next = Arrays.copyOf(offsets, numOfPartition);
+    final int[] rows = new int[partitions.length];
+    for (int row = 0; row < partitions.length; ++row) {
+      rows[next[partitions[row]]++] = row;
+    }
+    for (int p = 0; p < numOfPartition; ++p) {
+      if (counts[p] > 0) {
+        partitionBuffers[p].appendRows(tb, rows, offsets[p], offsets[p + 1]);
+      }
+    }
+    writePartitionsIntoChannels(usingTimeout, channelIndices, null);
+    return counts;
+  }
+
   /**
    * @return the number of tuples in all buffers.
    */
@@ -552,7 +649,7 @@ public abstract class Producer extends RootOperator {
       child.setEOI(false);
     } else if (child.eos()) {
       if (taskResourceManager.getFragment().getLocalSubQuery().getFTMode().equals(FTMode.REJOIN)) {
-        for (LinkedList<TupleBatch> tbs : pendingTuplesToSend) {
+        for (Queue<TupleBatch> tbs : pendingTuplesToSend) {
           if (tbs.size() > 0) {
             // due to failure, buffers are not empty, this task needs to be executed again to push these TBs out when
             // channels are available
@@ -0,0 +1,129 @@
+package edu.washington.escience.myria.operator.network;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+
+import com.google.common.base.Preconditions;
+
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.storage.TupleUtils;
+
+/**
+ * A queue of tuple batches that are polled in ascending order of the smallest value they hold in a priority column.
+ * Batches with equal priorities are polled in insertion order, and EOI batches are polled after all data batches, so
+ * draining the queue completely never reorders data across an iteration boundary. Batches are ordered as a whole and
+ * never split, so the tuples of a batch may be polled before smaller tuples of a later batch.
+ */
+final class TupleBatchPriorityQueue extends AbstractQueue<TupleBatch> {
+
+  /** A queued batch together with its priority. */
+  private static final class Entry implements Comparable<Entry> {
+    /** The batch. */
+    private final TupleBatch batch;
+    /** The priority column. */
+    private final int column;
+    /** The row holding the smallest value of the priority column, or -1 if the batch is empty. */
+    private final int minRow;
+    /** Insertion order, to break ties. */
+    private final long seq;
+
+    /**
+     * @param batch the batch.
+     * @param column the priority column.
+     * @param seq insertion order.
+     */
+    Entry(final TupleBatch batch, final int column, final long seq) {
+      this.batch = batch;
+      this.column = column;
+      this.seq = seq;
+      int min = -1;
+      for (int row = 0; row < batch.numTuples(); ++row) {
+        if (min < 0 || TupleUtils.cellCompare(batch, column, row, batch, column, min) < 0) {
+          min = row;
+        }
+      }
+      minRow = min;
+    }
+
+    @Override
+    public int compareTo(final Entry other) {
+      int cmp = Boolean.compare(batch.isEOI(), other.batch.isEOI());
+      if (cmp == 0 && minRow >= 0 && other.minRow >= 0) {
+        cmp = TupleUtils.cellCompare(batch, column, minRow, other.batch, column, other.minRow);
+      } else if (cmp == 0) {
+        cmp = Boolean.compare(minRow >= 0, other.minRow >= 0);
+      }
+      if (cmp == 0) {
+        cmp = Long.compare(seq, other.seq);
+      }
+      return cmp;
+    }
+  }
+
+  /** The queued batches. */
+  private final PriorityQueue<Entry> entries;
+  /** The priority column. */
+  private final int column;
+  /** Number of batches ever offered. */
+  private long offered;
+
+  /**
+   * @param column the priority column, smaller values are polled first.
+   */
+  TupleBatchPriorityQueue(final int column) {
+    Preconditions.checkArgument(column >= 0, "priority column must be non-negative");
+    this.column = column;
+    entries = new PriorityQueue<Entry>();
+  }
+
+  @Override
+  public boolean offer(final TupleBatch tb) {
+    Preconditions.checkNotNull(tb);
+    return entries.offer(new Entry(tb, column, offered++));
+  }
+
+  @Override
+  public TupleBatch poll() {
+    Entry e = entries.poll();
+    if (e == null) {
+      return null;
+    }
+    return e.batch;
+  }
+
+  @Override
+  public TupleBatch peek() {
+    Entry e = entries.peek();
+    if (e == null) {
+      return null;
+    }
+    return e.batch;
+  }
+
+  @Override
+  public int size() {
+    return entries.size();
+  }
+
+  @Override
+  public Iterator<TupleBatch> iterator() {
+    final Iterator<Entry> it = entries.iterator();
+    return new Iterator<TupleBatch>() {
+      @Override
+      public boolean hasNext() {
+        return it.hasNext();
+      }
+
+      @Override
+      public TupleBatch next() {
+        return it.next().batch;
+      }
+
+      @Override
+      public void remove() {
+        it.remove();
+      }
+    };
+  }
+}
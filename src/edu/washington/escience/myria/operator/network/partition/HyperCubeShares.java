@@ -0,0 +1,236 @@
+package edu.washington.escience.myria.operator.network.partition;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * The shares of a HyperCube shuffle: the number of buckets of each dimension (join variable) of the hypercube, whose
+ * cells are assigned to workers.
+ *
+ * The shares are chosen, among all the integer shares with at most one cell per worker, to minimize the expected
+ * number of tuples received per cell, i.e., the sum over relations of their size divided by the product of the shares
+ * of their dimensions, then the total number of tuples sent. A relation is replicated along the dimensions it does not
+ * hash, so its replication factor is the product of the shares of those dimensions.
+ */
+public final class HyperCubeShares {
+
+  /** The share of each dimension. */
+  private final int[] shares;
+  /** The expected number of tuples received per cell. */
+  private final double workload;
+  /** The expected number of tuples sent. */
+  private final double communication;
+  /** The total size of the relations. */
+  private final long totalSize;
+
+  /**
+   * @param shares the share of each dimension.
+   * @param workload the expected number of tuples received per cell.
+   * @param communication the expected number of tuples sent.
+   * @param totalSize the total size of the relations.
+   */
+  private HyperCubeShares(final int[] shares, final double workload, final double communication,
+      final long totalSize) {
+    this.shares = shares;
+    this.workload = workload;
+    this.communication = communication;
+    this.totalSize = totalSize;
+  }
+
+  /**
+   * Compute the optimal integer shares of a HyperCube shuffle.
+   *
+   * @param relationSizes the number of tuples of each relation.
+   * @param relationDimensions the dimensions hashed by each relation, i.e., its join variables.
+   * @param numDimensions the number of dimensions of the hypercube.
+   * @param numWorkers the number of workers, which bounds the number of cells.
+   * @return the optimal shares.
+   */
+  public static HyperCubeShares compute(final long[] relationSizes, final int[][] relationDimensions,
+      final int numDimensions, final int numWorkers) {
+    Objects.requireNonNull(relationSizes, "relationSizes");
+    Objects.requireNonNull(relationDimensions, "relationDimensions");
+    Preconditions.checkArgument(relationSizes.length == relationDimensions.length,
+        "relationSizes and relationDimensions must have the same length");
+    Preconditions.checkArgument(numDimensions > 0, "numDimensions must be positive");
+    Preconditions.checkArgument(numWorkers > 0, "numWorkers must be positive");
+    boolean[] used = new boolean[numDimensions];
+    long totalSize = 0;
+    for (int i = 0; i < relationSizes.length; ++i) {
+      Preconditions.checkArgument(relationSizes[i] >= 0, "relation sizes cannot be negative");
+      totalSize += relationSizes[i];
+      for (int dimension : relationDimensions[i]) {
+        Preconditions.checkElementIndex(dimension, numDimensions, "dimension");
+        used[dimension] = true;
+      }
+    }
+
+    Search search = new Search(relationSizes, relationDimensions, used, numWorkers);
+    search.enumerate(0, 1);
+    return new HyperCubeShares(search.bestShares, search.bestWorkload, search.bestCommunication, totalSize);
+  }
+
+  /**
+   * Exhaustive search of the shares whose product is at most the number of workers.
+   */
+  private static final class Search {
+    /** The number of tuples of each relation. */
+    private final long[] relationSizes;
+    /** The dimensions hashed by each relation. */
+    private final int[][] relationDimensions;
+    /** Whether some relation hashes each dimension; the others have a share of 1. */
+    private final boolean[] used;
+    /** The maximal number of cells. */
+    private final int numWorkers;
+    /** The shares being enumerated. */
+    private final int[] shares;
+    /** The best shares so far. */
+    private int[] bestShares;
+    /** The workload of the best shares so far. */
+    private double bestWorkload = Double.POSITIVE_INFINITY;
+    /** The communication of the best shares so far. */
+    private double bestCommunication = Double.POSITIVE_INFINITY;
+
+    /**
+     * @param relationSizes the number of tuples of each relation.
+     * @param relationDimensions the dimensions hashed by each relation.
+     * @param used whether some relation hashes each dimension.
+     * @param numWorkers the maximal number of cells.
+     */
+    Search(final long[] relationSizes, final int[][] relationDimensions, final boolean[] used, final int numWorkers) {
+      this.relationSizes = relationSizes;
+      this.relationDimensions = relationDimensions;
+      this.used = used;
+      this.numWorkers = numWorkers;
+      shares = new int[used.length];
+      Arrays.fill(shares, 1);
+    }
+
+    /**
+     * Enumerate the shares of the dimensions from a given one.
+     *
+     * @param dimension the first dimension whose share is not fixed.
+     * @param numCells the product of the shares of the previous dimensions.
+     */
+    void enumerate(final int dimension, final int numCells) {
+      if (dimension == shares.length) {
+        evaluate(numCells);
+        return;
+      }
+      if (!used[dimension]) {
+        enumerate(dimension + 1, numCells);
+        return;
+      }
+      for (int share = 1; share * numCells <= numWorkers; ++share) {
+        shares[dimension] = share;
+        enumerate(dimension + 1, share * numCells);
+      }
+      shares[dimension] = 1;
+    }
+
+    /**
+     * Keep the current shares if they are better than the best so far.
+     *
+     * @param numCells the product of the current shares.
+     */
+    private void evaluate(final int numCells) {
+      double workload = 0;
+      double communication = 0;
+      for (int i = 0; i < relationSizes.length; ++i) {
+        int hashed = 1;
+        for (int dimension : relationDimensions[i]) {
+          hashed *= shares[dimension];
+        }
+        workload += (double) relationSizes[i] / hashed;
+        communication += (double) relationSizes[i] * (numCells / hashed);
+      }
+      if (workload < bestWorkload || workload == bestWorkload && communication < bestCommunication) {
+        bestShares = shares.clone();
+        bestWorkload = workload;
+        bestCommunication = communication;
+      }
+    }
+  }
+
+  /**
+   * @return the share of each dimension.
+   */
+  public int[] getShares() {
+    return shares.clone();
+  }
+
+  /**
+   * @return the number of cells of the hypercube, i.e., the product of the shares.
+   */
+  public int getNumCells() {
+    int numCells = 1;
+    for (int share : shares) {
+      numCells *= share;
+    }
+    return numCells;
+  }
+
+  /**
+   * @return the expected number of tuples received per cell.
+   */
+  public double getWorkload() {
+    return workload;
+  }
+
+  /**
+   * @return the expected number of tuples sent per tuple of the relations, at least 1.
+   */
+  public double getReplicationFactor() {
+    if (totalSize == 0) {
+      return 1;
+    }
+    return communication / totalSize;
+  }
+
+  /**
+   * Map the partitions of a relation, as computed by a {@link MFMDHashPartitionFunction} on these shares, to the cells
+   * that receive them, which are numbered in row-major order of the dimensions. A partition is sent to every cell that
+   * matches it on the hashed dimensions.
+   *
+   * @param mappedDimensions the dimension of each hashed column of the relation, in order.
+   * @return the cells of each partition.
+   */
+  public int[][] getCellPartition(final int[] mappedDimensions) {
+    boolean[] hashed = new boolean[shares.length];
+    int numPartitions = 1;
+    for (int dimension : mappedDimensions) {
+      Preconditions.checkElementIndex(dimension, shares.length, "dimension");
+      Preconditions.checkArgument(!hashed[dimension], "dimension %s is hashed more than once", dimension);
+      hashed[dimension] = true;
+      numPartitions *= shares[dimension];
+    }
+    final int numCells = getNumCells();
+    final int cellsPerPartition = numCells / numPartitions;
+
+    int[][] cellPartition = new int[numPartitions][cellsPerPartition];
+    int[] filled = new int[numPartitions];
+    int[] coordinates = new int[shares.length];
+    for (int cell = 0; cell < numCells; ++cell) {
+      /* the coordinates of the cell, in row-major order. */
+      int rest = cell;
+      for (int dimension = shares.length - 1; dimension >= 0; --dimension) {
+        coordinates[dimension] = rest % shares[dimension];
+        rest /= shares[dimension];
+      }
+      /* the partition of the cell, in the row-major order of the hashed columns. */
+      int partition = 0;
+      for (int dimension : mappedDimensions) {
+        partition = partition * shares[dimension] + coordinates[dimension];
+      }
+      cellPartition[partition][filled[partition]++] = cell;
+    }
+    return cellPartition;
+  }
+
+  @Override
+  public String toString() {
+    return "shares " + Arrays.toString(shares) + ", replication factor " + getReplicationFactor();
+  }
+}
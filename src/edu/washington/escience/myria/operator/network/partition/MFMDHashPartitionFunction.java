@@ -31,11 +31,11 @@ public final class MFMDHashPartitionFunction extends PartitionFunction {
   public MFMDHashPartitionFunction(final int numPartitions, final int[] hypercubeDimensions, final int[] hashedColumns,
       final int[] mappedHCDimensions) {
     super(numPartitions);
+    Preconditions.checkArgument(hashedColumns.length == mappedHCDimensions.length,
+        "hashedColumns must have the same arity as mappedHCDimensions");
     partitionFunctions = new SingleFieldHashPartitionFunction[hashedColumns.length];
     for (int i = 0; i < hashedColumns.length; ++i) {
-      Preconditions.checkPositionIndex(hashedColumns[i], hypercubeDimensions.length);
-      Preconditions.checkArgument(hashedColumns.length == mappedHCDimensions.length,
-          "hashedColumns must have the same arity as mappedHCDimensions");
+      Preconditions.checkElementIndex(mappedHCDimensions[i], hypercubeDimensions.length);
       partitionFunctions[i] =
           new SingleFieldHashPartitionFunction(hypercubeDimensions[mappedHCDimensions[i]], hashedColumns[i],
               mappedHCDimensions[i]);
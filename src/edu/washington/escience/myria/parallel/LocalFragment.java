@@ -27,6 +27,7 @@ import edu.washington.escience.myria.operator.network.Consumer;
 import edu.washington.escience.myria.operator.network.Producer;
 import edu.washington.escience.myria.parallel.ipc.IPCConnectionPool;
 import edu.washington.escience.myria.parallel.ipc.StreamIOChannelID;
+import edu.washington.escience.myria.profiling.ExecutingOperatorMarker;
 import edu.washington.escience.myria.profiling.ProfilingLogger;
 import edu.washington.escience.myria.util.AtomicUtils;
 import edu.washington.escience.myria.util.concurrent.ReentrantSpinLock;
@@ -141,6 +142,9 @@ public final class LocalFragment {
   /** the thread id of this task. */
   private volatile long threadId = -1;
 
+  /** Marks the operator whose nextReady is currently running in this fragment, for sampling profiling. */
+  private final ExecutingOperatorMarker executingOperator = new ExecutingOperatorMarker();
+
   /**
    * @param connectionPool the IPC connection pool.
    * @param localSubQuery the {@link LocalSubQuery} of which this {@link LocalFragment} is a part.
@@ -272,6 +276,9 @@ public final class LocalFragment {
       IDBController p = (IDBController) currentOperator;
       ExchangePairID oID = p.getControllerOperatorID();
       int wID = p.getControllerWorkerID();
+      if (wID == IPCConnectionPool.SELF_IPC_ID) {
+        wID = ipcEntityID;
+      }
       outputExchangeChannels.add(new StreamIOChannelID(oID.getLong(), wID));
       idbControllerSet.add(p);
     }
@@ -702,6 +709,9 @@ public final class LocalFragment {
   private void initActually() throws Exception {
     ImmutableMap.Builder<String, Object> b = ImmutableMap.builder();
     b.put(MyriaConstants.EXEC_ENV_VAR_FRAGMENT_RESOURCE_MANAGER, resourceManager);
+    if (localSubQuery.getProfilingMode().contains(ProfilingMode.SAMPLING)) {
+      b.put(MyriaConstants.EXEC_ENV_VAR_EXECUTING_OPERATOR, executingOperator);
+    }
     b.putAll(execEnvVars);
     root.open(b.build());
     AtomicUtils.setBitByValue(executionCondition, STATE_INITIALIZED);
@@ -746,6 +756,13 @@ public final class LocalFragment {
     return resourceManager;
   }
 
+  /**
+   * @return the marker of the operator that is currently executing in this {@link LocalFragment}.
+   */
+  public ExecutingOperatorMarker getExecutingOperator() {
+    return executingOperator;
+  }
+
   /**
    * @return the nanosecond counter when this {@link LocalFragment} began executing.
    */
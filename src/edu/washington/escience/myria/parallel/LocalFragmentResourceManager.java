@@ -13,6 +13,7 @@ import edu.washington.escience.myria.parallel.ipc.IPCEvent;
 import edu.washington.escience.myria.parallel.ipc.IPCEventListener;
 import edu.washington.escience.myria.parallel.ipc.StreamInputBuffer;
 import edu.washington.escience.myria.parallel.ipc.StreamOutputChannel;
+import edu.washington.escience.myria.storage.OffHeapMemoryManager;
 import edu.washington.escience.myria.storage.TupleBatch;
 
 /**
@@ -41,6 +42,9 @@ public final class LocalFragmentResourceManager {
   /** The corresponding fragment. */
   private final LocalFragment fragment;
 
+  /** The off-heap memory holding the state of the fragment's operators. */
+  private final OffHeapMemoryManager offHeapMemory;
+
   /**
    * @param connectionPool connection pool.
    * @param fragment the corresponding fragment
@@ -51,6 +55,7 @@ public final class LocalFragmentResourceManager {
     outputChannels = Sets.newSetFromMap(new ConcurrentHashMap<StreamOutputChannel<TupleBatch>, Boolean>());
 
     this.fragment = fragment;
+    offHeapMemory = new OffHeapMemoryManager();
   }
 
   /**
@@ -153,6 +158,11 @@ public final class LocalFragmentResourceManager {
       releaseInputBuffer(c);
     }
     inputBuffers.clear();
+    offHeapMemory.releaseAll();
+    if (LOGGER.isDebugEnabled()) {
+      LOGGER.debug("Fragment {} used at most {} bytes of off-heap memory, freed {} bytes and left {} bytes unreleased",
+          fragment, offHeapMemory.getPeakBytes(), offHeapMemory.getFreedBytes(), offHeapMemory.getAllocatedBytes());
+    }
   }
 
   /**
@@ -162,6 +172,13 @@ public final class LocalFragmentResourceManager {
     return ipcPool.getMyIPCID();
   }
 
+  /**
+   * @return the off-heap memory holding the state of the fragment's operators.
+   */
+  public OffHeapMemoryManager getOffHeapMemory() {
+    return offHeapMemory;
+  }
+
   /**
    * @return the corresponding fragment.
    */
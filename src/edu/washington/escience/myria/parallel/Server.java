@@ -53,6 +53,7 @@ import edu.washington.escience.myria.TupleWriter;
 import edu.washington.escience.myria.Type;
 import edu.washington.escience.myria.accessmethod.AccessMethod.IndexRef;
 import edu.washington.escience.myria.api.encoding.DatasetStatus;
+import edu.washington.escience.myria.api.encoding.MaterializedViewEncoding;
 import edu.washington.escience.myria.api.encoding.QueryEncoding;
 import edu.washington.escience.myria.api.encoding.QueryStatusEncoding;
 import edu.washington.escience.myria.coordinator.catalog.CatalogException;
@@ -64,14 +65,19 @@ import edu.washington.escience.myria.expression.VariableExpression;
 import edu.washington.escience.myria.expression.WorkerIdExpression;
 import edu.washington.escience.myria.operator.Apply;
 import edu.washington.escience.myria.operator.DataOutput;
+import edu.washington.escience.myria.operator.DbDetachTable;
 import edu.washington.escience.myria.operator.DbInsert;
+import edu.washington.escience.myria.operator.DbInsertTemp;
 import edu.washington.escience.myria.operator.DbQueryScan;
 import edu.washington.escience.myria.operator.DuplicateTBGenerator;
 import edu.washington.escience.myria.operator.EOSSource;
+import edu.washington.escience.myria.operator.EmptyRelation;
 import edu.washington.escience.myria.operator.Operator;
 import edu.washington.escience.myria.operator.RootOperator;
 import edu.washington.escience.myria.operator.SinkRoot;
+import edu.washington.escience.myria.operator.UnionAll;
 import edu.washington.escience.myria.operator.agg.Aggregate;
+import edu.washington.escience.myria.operator.agg.IncrementalAggregates;
 import edu.washington.escience.myria.operator.agg.MultiGroupByAggregate;
 import edu.washington.escience.myria.operator.agg.PrimitiveAggregator.AggregationOp;
 import edu.washington.escience.myria.operator.agg.SingleColumnAggregatorFactory;
@@ -80,7 +86,10 @@ import edu.washington.escience.myria.operator.network.CollectConsumer;
 import edu.washington.escience.myria.operator.network.CollectProducer;
 import edu.washington.escience.myria.operator.network.GenericShuffleConsumer;
 import edu.washington.escience.myria.operator.network.GenericShuffleProducer;
+import edu.washington.escience.myria.operator.network.partition.MultiFieldHashPartitionFunction;
+import edu.washington.escience.myria.operator.network.partition.PartitionFunction;
 import edu.washington.escience.myria.operator.network.partition.RoundRobinPartitionFunction;
+import edu.washington.escience.myria.operator.network.partition.SingleFieldHashPartitionFunction;
 import edu.washington.escience.myria.parallel.ipc.IPCConnectionPool;
 import edu.washington.escience.myria.parallel.ipc.IPCMessage;
 import edu.washington.escience.myria.parallel.ipc.InJVMLoopbackChannelSink;
@@ -289,6 +298,8 @@ public final class Server {
   private final Map<Integer, Set<Integer>> removeWorkerAckReceived;
   /** for each worker id, record the set of workers which ADD_WORKER_ACK have been received. */
   private final Map<Integer, Set<Integer>> addWorkerAckReceived;
+  /** for each materialized view, the lock held by its refresh, so that its refreshes run one at a time. */
+  private final ConcurrentHashMap<RelationKey, Object> materializedViewLocks;
 
   /**
    * Entry point for the Master.
@@ -442,6 +453,7 @@ public final class Server {
 
     removeWorkerAckReceived = new ConcurrentHashMap<>();
     addWorkerAckReceived = new ConcurrentHashMap<>();
+    materializedViewLocks = new ConcurrentHashMap<>();
 
     queryManager = new QueryManager(catalog, this);
 
@@ -823,6 +835,8 @@ public final class Server {
           workerIds);
       addRelationToCatalogIfNotExists(MyriaConstants.RESOURCE_PROFILING_RELATION,
           MyriaConstants.RESOURCE_PROFILING_SCHEMA, workerIds);
+      addRelationToCatalogIfNotExists(MyriaConstants.SAMPLE_PROFILING_RELATION,
+          MyriaConstants.SAMPLE_PROFILING_SCHEMA, workerIds);
 
     }
   }
@@ -1029,6 +1043,251 @@ public final class Server {
 
   }
 
+  /**
+   * Create a materialized view, and compute it from its base relation.
+   * 
+   * @param view the definition of the view.
+   * @return the status of the view.
+   * @throws InterruptedException interrupted
+   * @throws DbException if there is an error
+   */
+  public DatasetStatus createMaterializedView(final MaterializedViewEncoding view) throws InterruptedException,
+      DbException {
+    final Schema baseSchema;
+    try {
+      baseSchema = catalog.getSchema(view.baseRelationKey);
+    } catch (CatalogException e) {
+      throw new DbException(e);
+    }
+    Preconditions.checkArgument(baseSchema != null, "relation %s was not found", view.baseRelationKey);
+    /* The refreshes move the changelogs with AccessMethod#detachTable, which MonetDB does not support. */
+    Preconditions.checkArgument(!getDBMS().equals(MyriaConstants.STORAGE_SYSTEM_MONETDB),
+        "materialized views are not supported on %s", getDBMS());
+    /* Check that the aggregates apply to the base relation. */
+    IncrementalAggregates.partialAggregate(EmptyRelation.of(baseSchema), view.argGroupFields, view.aggregators)
+        .getSchema();
+
+    try {
+      catalog.addMaterializedView(view);
+    } catch (CatalogException e) {
+      throw new DbException(e);
+    }
+    return refreshMaterializedView(view.relationKey);
+  }
+
+  /**
+   * Bring a materialized view up to date with its base relation. If the base relation was only appended to since the
+   * last refresh, the appended tuples, which are logged by {@link DbInsert}, are aggregated and merged into the view.
+   * Otherwise the view is recomputed from a snapshot of the base relation. The changelogs are swapped for empty ones
+   * before they are aggregated, so tuples appended during a refresh are merged by this refresh or by the next one. The
+   * snapshot is taken in the same transaction as the swap, and an append writes the base relation and the changelogs
+   * in one transaction, so the snapshot holds exactly the tuples that the swapped changelogs do not.
+   * Refreshes of the same view run one at a time, since they share the table the changelog is moved to.
+   * 
+   * @param relationKey the relation storing the view.
+   * @return the status of the view.
+   * @throws InterruptedException interrupted
+   * @throws DbException if there is an error
+   */
+  public DatasetStatus refreshMaterializedView(final RelationKey relationKey) throws InterruptedException,
+      DbException {
+    final Object lock = new Object();
+    final Object heldLock = materializedViewLocks.putIfAbsent(relationKey, lock);
+    synchronized (heldLock == null ? lock : heldLock) {
+      return refreshMaterializedViewLocked(relationKey);
+    }
+  }
+
+  /**
+   * Bring a materialized view up to date with its base relation, while holding its lock.
+   * 
+   * @param relationKey the relation storing the view.
+   * @return the status of the view.
+   * @throws InterruptedException interrupted
+   * @throws DbException if there is an error
+   * @see #refreshMaterializedView(RelationKey)
+   */
+  private DatasetStatus refreshMaterializedViewLocked(final RelationKey relationKey) throws InterruptedException,
+      DbException {
+    final MaterializedViewEncoding view;
+    final Long upToDateQueryId;
+    final Set<Integer> workers;
+    try {
+      view = catalog.getMaterializedView(relationKey);
+      Preconditions.checkArgument(view != null, "relation %s is not a materialized view", relationKey);
+      upToDateQueryId = catalog.getMaterializedViewBaseQueryId(relationKey);
+      workers = getWorkersForRelation(view.baseRelationKey, null);
+    } catch (CatalogException e) {
+      throw new DbException(e);
+    }
+    final DatasetStatus base = getDatasetStatus(view.baseRelationKey);
+    Preconditions.checkArgument(base != null, "relation %s was not found", view.baseRelationKey);
+    /* An overwrite of the base relation changes the query that wrote it, appends do not. */
+    final boolean incremental = base.getQueryId().equals(upToDateQueryId);
+    final Schema baseSchema = base.getSchema();
+    final RelationKey changelogKey = getChangelogKey(relationKey);
+    final RelationKey refreshedKey = getRefreshedChangelogKey(relationKey);
+    final RelationKey snapshotKey = getSnapshotKey(relationKey);
+    final int[] workersArray = MyriaUtils.integerSetToIntArray(workers);
+
+    /* Until this refresh succeeds, the view may be partly merged on some workers and must be recomputed. */
+    try {
+      catalog.setMaterializedViewBaseQueryId(relationKey, null);
+    } catch (CatalogException e) {
+      throw new DbException(e);
+    }
+
+    /*
+     * Move the logged tuples out of the changelogs. The appends that run concurrently log their tuples either in the
+     * moved tables, which this refresh merges, or in the new empty changelogs, which the next refresh merges. To
+     * recompute the view, the base relation is copied at the same time, and the moved tuples, which it holds, are
+     * discarded.
+     */
+    DbDetachTable detach;
+    if (incremental) {
+      detach = new DbDetachTable(changelogKey, refreshedKey, baseSchema, null);
+    } else {
+      detach = new DbDetachTable(changelogKey, refreshedKey, baseSchema, view.baseRelationKey, snapshotKey, null);
+    }
+    Map<Integer, SubQueryPlan> workerPlans = new HashMap<>();
+    for (Integer workerId : workersArray) {
+      workerPlans.put(workerId, new SubQueryPlan(detach));
+    }
+    runOnWorkers("detach changelog " + changelogKey.toString(), workerPlans);
+
+    /* The workers' plan: aggregate the new tuples, shuffle them by group and merge them into the view. */
+    Operator partial =
+        IncrementalAggregates.partialAggregate(new DbQueryScan(incremental ? refreshedKey : snapshotKey, baseSchema),
+            view.argGroupFields, view.aggregators);
+    Schema stateSchema = partial.getSchema();
+    int numGroupFields = view.argGroupFields.length;
+    PartitionFunction pf;
+    if (numGroupFields == 1) {
+      pf = new SingleFieldHashPartitionFunction(workersArray.length, 0);
+    } else {
+      int[] groupFields = new int[numGroupFields];
+      for (int i = 0; i < numGroupFields; ++i) {
+        groupFields[i] = i;
+      }
+      pf = new MultiFieldHashPartitionFunction(workersArray.length, groupFields);
+    }
+    ExchangePairID shuffleId = ExchangePairID.newID();
+    GenericShuffleProducer shuffle = new GenericShuffleProducer(partial, shuffleId, workersArray, pf);
+    Operator state = new GenericShuffleConsumer(stateSchema, shuffleId, workersArray);
+    if (incremental) {
+      state = new UnionAll(new Operator[] { state, new DbQueryScan(relationKey, stateSchema) });
+    }
+    DbInsert insert =
+        new DbInsert(IncrementalAggregates.mergeAggregate(state, numGroupFields, view.aggregators, stateSchema),
+            relationKey, true);
+    workerPlans = new HashMap<>();
+    for (Integer workerId : workersArray) {
+      workerPlans.put(workerId, new SubQueryPlan(new RootOperator[] { shuffle, insert }));
+    }
+    String planString = "refresh " + relationKey.toString();
+    runOnWorkers(planString, workerPlans);
+
+    /* Empty the moved changelogs and the snapshot, whose tuples the view now reflects. Nothing else writes them. */
+    List<RootOperator> reset = new ArrayList<>();
+    reset.add(new DbInsertTemp(EmptyRelation.of(baseSchema), refreshedKey, null, true, null));
+    if (!incremental) {
+      reset.add(new DbInsertTemp(EmptyRelation.of(baseSchema), snapshotKey, null, true, null));
+    }
+    workerPlans = new HashMap<>();
+    for (Integer workerId : workersArray) {
+      workerPlans.put(workerId, new SubQueryPlan(reset.toArray(new RootOperator[reset.size()])));
+    }
+    runOnWorkers("reset changelog " + refreshedKey.toString(), workerPlans);
+
+    try {
+      catalog.setMaterializedViewBaseQueryId(relationKey, base.getQueryId());
+    } catch (CatalogException e) {
+      throw new DbException(e);
+    }
+    return getDatasetStatus(relationKey);
+  }
+
+  /**
+   * Run the specified plans on the workers, and wait for them to finish.
+   * 
+   * @param planString the description of the query.
+   * @param workerPlans the plan of each worker.
+   * @throws InterruptedException interrupted
+   * @throws DbException if there is an error
+   */
+  private void runOnWorkers(final String planString, final Map<Integer, SubQueryPlan> workerPlans)
+      throws InterruptedException, DbException {
+    ListenableFuture<Query> qf;
+    try {
+      qf =
+          queryManager.submitQuery(planString, planString, planString, new SubQueryPlan(new SinkRoot(
+              new EOSSource())), workerPlans);
+    } catch (CatalogException e) {
+      throw new DbException("Error submitting query", e);
+    }
+    try {
+      qf.get();
+    } catch (ExecutionException e) {
+      throw new DbException("Error executing query", e.getCause());
+    }
+  }
+
+  /**
+   * @param relationKey the relation storing a materialized view.
+   * @return the table logging the tuples appended to the base relation of the view since its last refresh.
+   */
+  private static RelationKey getChangelogKey(final RelationKey relationKey) {
+    return RelationKey.of(relationKey.getUserName(), "MyriaSysDelta", relationKey.getProgramName() + "_"
+        + relationKey.getRelationName());
+  }
+
+  /**
+   * @param relationKey the relation storing a materialized view.
+   * @return the table to which a refresh of the view moves the tuples of its changelog before it merges them.
+   */
+  private static RelationKey getRefreshedChangelogKey(final RelationKey relationKey) {
+    return RelationKey.of(relationKey.getUserName(), "MyriaSysDeltaRefresh", relationKey.getProgramName() + "_"
+        + relationKey.getRelationName());
+  }
+
+  /**
+   * @param relationKey the relation storing a materialized view.
+   * @return the table to which a recomputation of the view copies the base relation before it aggregates it.
+   */
+  private static RelationKey getSnapshotKey(final RelationKey relationKey) {
+    return RelationKey.of(relationKey.getUserName(), "MyriaSysSnapshot", relationKey.getProgramName() + "_"
+        + relationKey.getRelationName());
+  }
+
+  /**
+   * @param relationKey the relation storing a materialized view.
+   * @return the definition of the view, or null if the relation is not a materialized view.
+   * @throws CatalogException if there is an error in the catalog.
+   */
+  public MaterializedViewEncoding getMaterializedView(final RelationKey relationKey) throws CatalogException {
+    return catalog.getMaterializedView(relationKey);
+  }
+
+  /**
+   * @param relationKey a relation.
+   * @return the changelogs to which the tuples appended to the relation must also be appended, one per materialized
+   *         view of the relation.
+   * @throws DbException if there is an error in the catalog
+   */
+  public List<RelationKey> getMaterializedViewChangelogs(final RelationKey relationKey) throws DbException {
+    List<RelationKey> views;
+    try {
+      views = catalog.getMaterializedViewsOf(relationKey);
+    } catch (CatalogException e) {
+      throw new DbException(e);
+    }
+    List<RelationKey> changelogs = new ArrayList<>(views.size());
+    for (RelationKey view : views) {
+      changelogs.add(getChangelogKey(view));
+    }
+    return changelogs;
+  }
+
   /**
    * @param relationKey the key of the desired relation.
    * @return the schema of the specified relation, or null if not found.
@@ -1177,7 +1436,8 @@ public final class Server {
   }
 
   /**
-   * Start a query that streams tuples from the specified relation to the specified {@link TupleWriter}.
+   * Start a query that streams tuples from the specified relation to the specified {@link TupleWriter}. The tuples of
+   * the different workers are interleaved as they arrive.
    * 
    * @param relationKey the relation to be downloaded.
    * @param writer the {@link TupleWriter} which will serialize the tuples.
@@ -1186,6 +1446,22 @@ public final class Server {
    */
   public ListenableFuture<Query> startDataStream(final RelationKey relationKey, final TupleWriter writer)
       throws DbException {
+    return startDataStream(relationKey, writer, false);
+  }
+
+  /**
+   * Start a query that streams tuples from the specified relation to the specified {@link TupleWriter}. All the workers
+   * storing the relation scan it in parallel.
+   * 
+   * @param relationKey the relation to be downloaded.
+   * @param writer the {@link TupleWriter} which will serialize the tuples.
+   * @param ordered if true, the partitions of the relation are concatenated in the order of the workers storing them.
+   *          If false, the tuples of the different workers are interleaved as they arrive.
+   * @return the query future from which the query status can be looked up.
+   * @throws DbException if there is an error in the system.
+   */
+  public ListenableFuture<Query> startDataStream(final RelationKey relationKey, final TupleWriter writer,
+      final boolean ordered) throws DbException {
     /* Get the relation's schema, to make sure it exists. */
     final Schema schema;
     try {
@@ -1203,20 +1479,36 @@ public final class Server {
       throw new DbException(e);
     }
 
-    /* Construct the operators that go elsewhere. */
-    DbQueryScan scan = new DbQueryScan(relationKey, schema);
-    final ExchangePairID operatorId = ExchangePairID.newID();
-    CollectProducer producer = new CollectProducer(scan, operatorId, MyriaConstants.MASTER_ID);
-
-    SubQueryPlan workerPlan = new SubQueryPlan(producer);
-    Map<Integer, SubQueryPlan> workerPlans = new HashMap<>(scanWorkers.size());
-    for (Integer worker : scanWorkers) {
-      workerPlans.put(worker, workerPlan);
+    final Map<Integer, SubQueryPlan> workerPlans = new HashMap<>(scanWorkers.size());
+    final Operator masterRoot;
+    if (ordered) {
+      /* One stream per worker, so that the master can read them one after the other. */
+      List<Integer> sortedWorkers = new ArrayList<>(scanWorkers);
+      Collections.sort(sortedWorkers);
+      Operator[] consumers = new Operator[sortedWorkers.size()];
+      for (int i = 0; i < consumers.length; ++i) {
+        final ExchangePairID operatorId = ExchangePairID.newID();
+        DbQueryScan scan = new DbQueryScan(relationKey, schema);
+        workerPlans.put(sortedWorkers.get(i), new SubQueryPlan(new CollectProducer(scan, operatorId,
+            MyriaConstants.MASTER_ID)));
+        consumers[i] = new CollectConsumer(schema, operatorId, ImmutableSet.of(sortedWorkers.get(i)));
+      }
+      masterRoot = new UnionAll(consumers, true);
+    } else {
+      /* Construct the operators that go elsewhere. */
+      DbQueryScan scan = new DbQueryScan(relationKey, schema);
+      final ExchangePairID operatorId = ExchangePairID.newID();
+      CollectProducer producer = new CollectProducer(scan, operatorId, MyriaConstants.MASTER_ID);
+
+      SubQueryPlan workerPlan = new SubQueryPlan(producer);
+      for (Integer worker : scanWorkers) {
+        workerPlans.put(worker, workerPlan);
+      }
+      masterRoot = new CollectConsumer(schema, operatorId, ImmutableSet.copyOf(scanWorkers));
     }
 
     /* Construct the master plan. */
-    final CollectConsumer consumer = new CollectConsumer(schema, operatorId, ImmutableSet.copyOf(scanWorkers));
-    DataOutput output = new DataOutput(consumer, writer);
+    DataOutput output = new DataOutput(masterRoot, writer);
     final SubQueryPlan masterPlan = new SubQueryPlan(output);
 
     /* Submit the plan for the download. */
@@ -1722,13 +2014,94 @@ public final class Server {
   }
 
   /**
-   * Get the query status and check whether the query ran successfully with profiling enabled.
+   * @param queryId query id.
+   * @param byOperator whether to aggregate the samples per operator instead of per stack.
+   * @param writer writer to get data.
+   * @return the sampled profile of the query. Each row is either an operator stack (operator ids from the fragment root
+   *         to the sampled operator, separated by semicolons) or an operator id, and its number of samples across all
+   *         workers.
+   * 
+   * @throws DbException if there is an error when accessing profiling logs.
+   */
+  public QueryFuture startSamplesStream(final long queryId, final boolean byOperator, final TupleWriter writer)
+      throws DbException {
+    final QueryStatusEncoding queryStatus = checkAndReturnQueryStatus(queryId, ProfilingMode.SAMPLING);
+
+    final RelationKey relationKey = MyriaConstants.SAMPLE_PROFILING_RELATION;
+    final Schema schema;
+    final String groupColumn;
+    if (byOperator) {
+      schema = Schema.ofFields("opId", Type.INT_TYPE, "numSamples", Type.LONG_TYPE);
+      groupColumn = "\"opId\"";
+    } else {
+      schema = Schema.ofFields("stack", Type.STRING_TYPE, "numSamples", Type.LONG_TYPE);
+      groupColumn = "\"stack\"";
+    }
+
+    Set<Integer> actualWorkers = queryStatus.plan.getWorkers();
+
+    String samplesQueryString =
+        Joiner.on(' ').join("SELECT", groupColumn, ", sum(\"numSamples\") FROM", relationKey.toString(getDBMS()),
+            "WHERE \"queryId\"=", queryId, "GROUP BY", groupColumn);
+
+    DbQueryScan scan = new DbQueryScan(samplesQueryString, schema);
+    final ExchangePairID operatorId = ExchangePairID.newID();
+
+    CollectProducer producer = new CollectProducer(scan, operatorId, MyriaConstants.MASTER_ID);
+
+    SubQueryPlan workerPlan = new SubQueryPlan(producer);
+    Map<Integer, SubQueryPlan> workerPlans = new HashMap<>(actualWorkers.size());
+    for (Integer worker : actualWorkers) {
+      workerPlans.put(worker, workerPlan);
+    }
+
+    /* Aggregate on master */
+    final CollectConsumer consumer =
+        new CollectConsumer(scan.getSchema(), operatorId, ImmutableSet.copyOf(actualWorkers));
+
+    // sum up samples
+    final SingleGroupByAggregate sumAggregate =
+        new SingleGroupByAggregate(consumer, 0, new SingleColumnAggregatorFactory(1, AggregationOp.SUM));
+
+    // rename columns
+    ImmutableList.Builder<Expression> renameExpressions = ImmutableList.builder();
+    renameExpressions.add(new Expression(schema.getColumnName(0), new VariableExpression(0)));
+    renameExpressions.add(new Expression("numSamples", new VariableExpression(1)));
+    final Apply rename = new Apply(sumAggregate, renameExpressions.build());
+
+    DataOutput output = new DataOutput(rename, writer);
+    final SubQueryPlan masterPlan = new SubQueryPlan(output);
+
+    /* Submit the plan for the download. */
+    String planString = Joiner.on("").join("download operator samples (query=", queryId, ")");
+    try {
+      return queryManager.submitQuery(planString, planString, planString, masterPlan, workerPlans);
+    } catch (CatalogException e) {
+      throw new DbException(e);
+    }
+  }
+
+  /**
+   * Get the query status and check whether the query ran successfully with profiling mode QUERY enabled.
    * 
    * @param queryId the query id
    * @return the query status
    * @throws DbException if the query cannot be retrieved
    */
   private QueryStatusEncoding checkAndReturnQueryStatus(final long queryId) throws DbException {
+    return checkAndReturnQueryStatus(queryId, ProfilingMode.QUERY);
+  }
+
+  /**
+   * Get the query status and check whether the query ran successfully with the specified profiling mode enabled.
+   * 
+   * @param queryId the query id
+   * @param mode the profiling mode the query must have been run with
+   * @return the query status
+   * @throws DbException if the query cannot be retrieved
+   */
+  private QueryStatusEncoding checkAndReturnQueryStatus(final long queryId, final ProfilingMode mode)
+      throws DbException {
     /* Get the relation's schema, to make sure it exists. */
     final QueryStatusEncoding queryStatus;
     try {
@@ -1740,8 +2113,8 @@ public final class Server {
     Preconditions.checkArgument(queryStatus != null, "query %s not found", queryId);
     Preconditions.checkArgument(queryStatus.status == QueryStatusEncoding.Status.SUCCESS,
         "query %s did not succeed (%s)", queryId, queryStatus.status);
-    Preconditions.checkArgument(queryStatus.profilingMode.contains(ProfilingMode.QUERY),
-        "query %s was not run with profiling mode QUERY enabled", queryId);
+    Preconditions.checkArgument(queryStatus.profilingMode.contains(mode),
+        "query %s was not run with profiling mode %s enabled", queryId, mode);
     return queryStatus;
   }
 
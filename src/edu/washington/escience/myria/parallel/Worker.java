@@ -41,6 +41,7 @@ import edu.washington.escience.myria.profiling.ProfilingLogger;
 import edu.washington.escience.myria.proto.ControlProto.ControlMessage;
 import edu.washington.escience.myria.proto.QueryProto.QueryMessage;
 import edu.washington.escience.myria.proto.TransportProto.TransportMessage;
+import edu.washington.escience.myria.storage.ScanResultCache;
 import edu.washington.escience.myria.util.IPCUtils;
 import edu.washington.escience.myria.util.JVMUtils;
 import edu.washington.escience.myria.util.concurrent.ErrorLoggingTimerTask;
@@ -226,6 +227,21 @@ public final class Worker {
     }
   }
 
+  /** Log the statistics of the scan result cache periodically, if it was used since the last time. */
+  private class ScanCacheStatsReporter extends ErrorLoggingTimerTask {
+    /** The number of lookups at the last report. */
+    private long lastLookups = 0;
+
+    @Override
+    public synchronized void runInner() {
+      long lookups = scanResultCache.getHits() + scanResultCache.getMisses();
+      if (lookups != lastLookups) {
+        lastLookups = lookups;
+        LOGGER.info("Scan result cache: {}", scanResultCache);
+      }
+    }
+  }
+
   /**
    * Periodically detect whether the {@link Worker} should be shutdown. 1) it detects whether the server is still alive.
    * If the server got killed because of any reason, the workers will be terminated. 2) it detects whether a shutdown
@@ -358,6 +374,16 @@ public final class Worker {
    */
   private final ConcurrentHashMap<String, Object> execEnvVars;
 
+  /**
+   * The cache of the results of scans over stored relations, shared by all the queries on this worker.
+   */
+  private final ScanResultCache scanResultCache;
+
+  /**
+   * {@link ExecutorService} for the read-ahead of scans, shared by all the queries on this worker.
+   */
+  private final ExecutorService prefetchExecutor;
+
   /**
    * The thread group of the main thread.
    */
@@ -639,6 +665,17 @@ public final class Worker {
     }
     LOGGER.info("Worker: Connection info " + jsonConnInfo);
     execEnvVars.put(MyriaConstants.EXEC_ENV_VAR_DATABASE_CONN_INFO, ConnectionInfo.of(databaseSystem, jsonConnInfo));
+
+    String memoryBytes = catalog.getConfigurationValue(MyriaSystemConfigKeys.SCAN_CACHE_MEMORY_BYTES);
+    String diskBytes = catalog.getConfigurationValue(MyriaSystemConfigKeys.SCAN_CACHE_DISK_BYTES);
+    scanResultCache =
+        new ScanResultCache(memoryBytes == null ? MyriaConstants.SCAN_CACHE_MEMORY_BYTES_DEFAULT_VALUE : Long
+            .parseLong(memoryBytes), new File(FilenameUtils.concat(workingDirectory, "scan_cache")),
+            diskBytes == null ? MyriaConstants.SCAN_CACHE_DISK_BYTES_DEFAULT_VALUE : Long.parseLong(diskBytes));
+    execEnvVars.put(MyriaConstants.EXEC_ENV_VAR_SCAN_RESULT_CACHE, scanResultCache);
+
+    prefetchExecutor = Executors.newCachedThreadPool(new RenamingThreadFactory("Prefetching reader"));
+    execEnvVars.put(MyriaConstants.EXEC_ENV_VAR_PREFETCH_EXECUTOR, prefetchExecutor);
   }
 
   /**
@@ -752,6 +789,7 @@ public final class Worker {
     // We have to interrupt them at shutdown.
     messageProcessingExecutor.shutdownNow();
     queryExecutor.shutdown();
+    prefetchExecutor.shutdownNow();
     scheduledTaskExecutor.shutdown();
     if (LOGGER.isInfoEnabled()) {
       LOGGER.info("Worker #" + myID + " shutdown completed");
@@ -813,6 +851,8 @@ public final class Worker {
         MyriaConstants.WORKER_SHUTDOWN_CHECKER_INTERVAL, TimeUnit.MILLISECONDS);
     scheduledTaskExecutor.scheduleAtFixedRate(new HeartbeatReporter(), 0, MyriaConstants.HEARTBEAT_INTERVAL,
         TimeUnit.MILLISECONDS);
+    scheduledTaskExecutor.scheduleAtFixedRate(new ScanCacheStatsReporter(), MyriaConstants.SCAN_CACHE_STATS_INTERVAL,
+        MyriaConstants.SCAN_CACHE_STATS_INTERVAL, TimeUnit.MILLISECONDS);
   }
 
   /**
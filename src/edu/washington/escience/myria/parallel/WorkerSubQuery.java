@@ -3,7 +3,9 @@ package edu.washington.escience.myria.parallel;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.Timer;
 import java.util.concurrent.ConcurrentHashMap;
@@ -18,12 +20,15 @@ import com.google.common.collect.ImmutableMap;
 import edu.washington.escience.myria.DbException;
 import edu.washington.escience.myria.MyriaConstants;
 import edu.washington.escience.myria.MyriaConstants.ProfilingMode;
+import edu.washington.escience.myria.operator.Operator;
 import edu.washington.escience.myria.operator.RootOperator;
 import edu.washington.escience.myria.operator.StreamingState;
 import edu.washington.escience.myria.operator.TupleSource;
 import edu.washington.escience.myria.operator.network.Producer;
 import edu.washington.escience.myria.operator.network.RecoverProducer;
 import edu.washington.escience.myria.parallel.ipc.StreamOutputChannel;
+import edu.washington.escience.myria.profiling.ExecutingOperatorMarker;
+import edu.washington.escience.myria.profiling.OperatorSampler;
 import edu.washington.escience.myria.profiling.ProfilingLogger;
 import edu.washington.escience.myria.storage.TupleBatch;
 import edu.washington.escience.myria.util.DateTimeUtils;
@@ -80,6 +85,12 @@ public class WorkerSubQuery extends LocalSubQuery {
   /** Report resource usage at a fixed rate. Only enabled when the profiling mode has resource. */
   private Timer resourceReportTimer;
 
+  /** Samples the executing operators at a fixed rate. Only enabled when the profiling mode has sampling. */
+  private Timer samplingTimer;
+
+  /** The sampler that aggregates the executing operators. Only set when the profiling mode has sampling. */
+  private OperatorSampler operatorSampler;
+
   /**
    * The future listener for processing the complete events of the execution of all the subquery's fragments.
    */
@@ -117,6 +128,10 @@ public class WorkerSubQuery extends LocalSubQuery {
             if (resourceReportTimer != null) {
               resourceReportTimer.cancel();
             }
+            if (samplingTimer != null) {
+              samplingTimer.cancel();
+              operatorSampler.flush(getWorker().getProfilingLogger(), getSubQueryId());
+            }
             getWorker().getProfilingLogger().flush();
           } catch (DbException e) {
             LOGGER.error("Error flushing profiling logger", e);
@@ -213,6 +228,15 @@ public class WorkerSubQuery extends LocalSubQuery {
       resourceReportTimer = new Timer();
       resourceReportTimer.scheduleAtFixedRate(new ResourceUsageReporter(), 0, MyriaConstants.RESOURCE_REPORT_INTERVAL);
     }
+    if (getProfilingMode().contains(ProfilingMode.SAMPLING)) {
+      Map<Operator, ExecutingOperatorMarker> sampled = new IdentityHashMap<>();
+      for (LocalFragment fragment : fragments) {
+        sampled.put(fragment.getRootOp(), fragment.getExecutingOperator());
+      }
+      operatorSampler = new OperatorSampler(sampled);
+      samplingTimer = new Timer(true);
+      samplingTimer.scheduleAtFixedRate(operatorSampler, 0, MyriaConstants.SAMPLING_PROFILING_INTERVAL);
+    }
     startMilliseconds = System.currentTimeMillis();
     for (LocalFragment t : fragments) {
       t.start();
@@ -0,0 +1,32 @@
+package edu.washington.escience.myria.profiling;
+
+import edu.washington.escience.myria.operator.Operator;
+
+/**
+ * Marks the operator whose nextReady is currently running in a fragment, for the {@link OperatorSampler}. Only the
+ * execution thread of the fragment writes the marker, the sampler reads it.
+ */
+public final class ExecutingOperatorMarker {
+
+  /** The operator whose nextReady is currently running, or null if the fragment is not running. */
+  private volatile Operator executingOperator = null;
+
+  /**
+   * Mark the operator that is currently executing.
+   *
+   * @param op the operator that starts or resumes executing, or <code>null</code> if the fragment leaves its root.
+   * @return the previously executing operator.
+   */
+  public Operator swap(final Operator op) {
+    Operator previous = executingOperator;
+    executingOperator = op;
+    return previous;
+  }
+
+  /**
+   * @return the operator that is currently executing, or <code>null</code> if the fragment is not running.
+   */
+  public Operator get() {
+    return executingOperator;
+  }
+}
@@ -0,0 +1,116 @@
+package edu.washington.escience.myria.profiling;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableMap;
+
+import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.operator.Operator;
+import edu.washington.escience.myria.parallel.SubQueryId;
+import edu.washington.escience.myria.util.concurrent.ErrorLoggingTimerTask;
+
+/**
+ * Sampling profiler for the fragments of a subquery. At every run it snapshots the operator each fragment thread is
+ * executing and counts the snapshot. Since the operators of a fragment form a tree, the call stack of a sampled
+ * operator is its path from the fragment root, so only the operator itself needs to be recorded.
+ *
+ * The per-thread cost is one volatile write per {@link Operator#nextReady()} call, independent of the sampling rate.
+ */
+public final class OperatorSampler extends ErrorLoggingTimerTask {
+
+  /** The root operator of each sampled fragment, and the marker of the operator the fragment is executing. */
+  private final Map<Operator, ExecutingOperatorMarker> fragments;
+
+  /** Number of samples per operator. */
+  private final Map<Operator, long[]> samples;
+
+  /**
+   * @param fragments the root operator of each fragment to sample, and the marker of its executing operator.
+   */
+  public OperatorSampler(final Map<Operator, ExecutingOperatorMarker> fragments) {
+    this.fragments = ImmutableMap.copyOf(fragments);
+    samples = new IdentityHashMap<Operator, long[]>();
+  }
+
+  @Override
+  public synchronized void runInner() {
+    for (ExecutingOperatorMarker marker : fragments.values()) {
+      Operator op = marker.get();
+      if (op == null) {
+        continue;
+      }
+      long[] count = samples.get(op);
+      if (count == null) {
+        count = new long[1];
+        samples.put(op, count);
+      }
+      count[0]++;
+    }
+  }
+
+  /**
+   * @return the number of samples of each sampled stack, in collapsed (semicolon-separated operator id) form.
+   */
+  public synchronized Map<String, Long> getStackSamples() {
+    Map<String, Long> ret = new HashMap<>();
+    for (Map.Entry<Operator, String> e : getSampledStacks().entrySet()) {
+      Long count = ret.get(e.getValue());
+      ret.put(e.getValue(), samples.get(e.getKey())[0] + (count == null ? 0 : count));
+    }
+    return ret;
+  }
+
+  /**
+   * Write the aggregated samples to the profiling logger and reset the counts.
+   *
+   * @param logger the profiling logger.
+   * @param subQueryId the subquery that the sampled fragments belong to.
+   * @throws DbException if insertion in the database fails
+   */
+  public synchronized void flush(final ProfilingLogger logger, final SubQueryId subQueryId) throws DbException {
+    for (Map.Entry<Operator, String> e : getSampledStacks().entrySet()) {
+      logger.recordSample(e.getKey(), subQueryId.getSubqueryId(), e.getValue(), samples.get(e.getKey())[0]);
+    }
+    samples.clear();
+  }
+
+  /**
+   * @return the stack of every sampled operator, in collapsed (semicolon-separated operator id) form.
+   */
+  private Map<Operator, String> getSampledStacks() {
+    Map<Operator, String> stacks = new IdentityHashMap<>();
+    for (Operator root : fragments.keySet()) {
+      collectStacks(root, "", stacks);
+    }
+    return stacks;
+  }
+
+  /**
+   * Collect the stacks of the sampled operators in the subtree rooted at the specified operator.
+   *
+   * @param op the root of the subtree.
+   * @param parentStack the stack of the parent of op, in collapsed (semicolon-separated) form.
+   * @param stacks the stacks of the sampled operators.
+   */
+  private void collectStacks(final Operator op, final String parentStack, final Map<Operator, String> stacks) {
+    String stack;
+    if (parentStack.isEmpty()) {
+      stack = String.valueOf(op.getOpId());
+    } else {
+      stack = parentStack + ";" + op.getOpId();
+    }
+    if (samples.containsKey(op)) {
+      stacks.put(op, stack);
+    }
+    Operator[] children = op.getChildren();
+    if (children != null) {
+      for (Operator child : children) {
+        if (child != null) {
+          collectStacks(child, stack, stacks);
+        }
+      }
+    }
+  }
+}
@@ -40,6 +40,9 @@ public class ProfilingLogger {
   /** Buffer for tuples sent. */
   private final TupleBatchBuffer resources;
 
+  /** Buffer for aggregated operator samples. */
+  private final TupleBatchBuffer samples;
+
   /**
    * Default constructor.
    * 
@@ -59,14 +62,18 @@ public class ProfilingLogger {
     accessMethod.createTableIfNotExists(MyriaConstants.SENT_PROFILING_RELATION, MyriaConstants.SENT_PROFILING_SCHEMA);
     accessMethod.createUnloggedTableIfNotExists(MyriaConstants.RESOURCE_PROFILING_RELATION,
         MyriaConstants.RESOURCE_PROFILING_SCHEMA);
+    accessMethod.createUnloggedTableIfNotExists(MyriaConstants.SAMPLE_PROFILING_RELATION,
+        MyriaConstants.SAMPLE_PROFILING_SCHEMA);
 
     createEventIndexes();
     createSentIndex();
     createResourceIndex();
+    createSampleIndex();
 
     events = new TupleBatchBuffer(MyriaConstants.EVENT_PROFILING_SCHEMA);
     sent = new TupleBatchBuffer(MyriaConstants.SENT_PROFILING_SCHEMA);
     resources = new TupleBatchBuffer(MyriaConstants.RESOURCE_PROFILING_SCHEMA);
+    samples = new TupleBatchBuffer(MyriaConstants.SAMPLE_PROFILING_SCHEMA);
   }
 
   /**
@@ -98,6 +105,21 @@ public class ProfilingLogger {
     }
   }
 
+  /**
+   * @throws DbException if index cannot be created
+   */
+  protected void createSampleIndex() throws DbException {
+    final Schema schema = MyriaConstants.SAMPLE_PROFILING_SCHEMA;
+    List<IndexRef> index =
+        ImmutableList.of(IndexRef.of(schema, "queryId"), IndexRef.of(schema, "fragmentId"), IndexRef.of(schema,
+            "opId"));
+    try {
+      accessMethod.createIndexIfNotExists(MyriaConstants.SAMPLE_PROFILING_RELATION, schema, index);
+    } catch (DbException e) {
+      LOGGER.error("Couldn't create index for profiling samples:", e);
+    }
+  }
+
   /**
    * @throws DbException if index cannot be created
    */
@@ -208,6 +230,28 @@ public class ProfilingLogger {
     flush(MyriaConstants.RESOURCE_PROFILING_RELATION, resources.popFilled());
   }
 
+  /**
+   * Record the number of times an operator was sampled while executing. The buffer is flushed at a particular number
+   * of tuples or on a call to {@link #flush()}.
+   * 
+   * @param operator the sampled operator
+   * @param subqueryId the subquery id
+   * @param stack the operator ids from the fragment root to the operator, separated by semicolons
+   * @param numSamples the number of samples in which the operator was executing
+   * @throws DbException if insertion in the database fails
+   */
+  public synchronized void recordSample(final Operator operator, final long subqueryId, final String stack,
+      final long numSamples) throws DbException {
+    samples.putLong(0, operator.getQueryId());
+    samples.putLong(1, subqueryId);
+    samples.putInt(2, operator.getFragmentId());
+    samples.putInt(3, operator.getOpId());
+    samples.putString(4, stack);
+    samples.putLong(5, numSamples);
+
+    flush(MyriaConstants.SAMPLE_PROFILING_RELATION, samples.popFilled());
+  }
+
   /**
    * Flush the profiling buffers. The buffer is flushed at a particular number of tuples or on a call to
    * {@link #flush()}.
@@ -218,10 +262,12 @@ public class ProfilingLogger {
     flush(MyriaConstants.SENT_PROFILING_RELATION, sent.popAny());
     flush(MyriaConstants.EVENT_PROFILING_RELATION, events.popAny());
     flush(MyriaConstants.RESOURCE_PROFILING_RELATION, resources.popAny());
+    flush(MyriaConstants.SAMPLE_PROFILING_RELATION, samples.popAny());
 
     Preconditions.checkState(sent.numTuples() == 0, "Unwritten sent profiling data.");
     Preconditions.checkState(events.numTuples() == 0, "Unwritten event profiling data.");
     Preconditions.checkState(resources.numTuples() == 0, "Unwritten resource profiling data.");
+    Preconditions.checkState(samples.numTuples() == 0, "Unwritten sample profiling data.");
   }
 
   /**
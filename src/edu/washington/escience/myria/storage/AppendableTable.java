@@ -75,6 +75,13 @@ public interface AppendableTable extends TupleTable {
   @Deprecated
   void putObject(final int column, @Nonnull final Object value);
 
+  /**
+   * Append a null to the specified column.
+   * 
+   * @param column index of the column.
+   */
+  void putNull(final int column);
+
   /**
    * @param column the index of the column to be returned.
    * @return a {@link ReadableColumn} representation of the specified column of this table.
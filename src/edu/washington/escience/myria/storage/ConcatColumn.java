@@ -82,6 +82,22 @@ public class ConcatColumn<T extends Comparable<?>> extends Column<T> {
     return columnIds.floorEntry(row);
   }
 
+  @Override
+  public boolean isNull(final int row) {
+    Map.Entry<Integer, Column<?>> entry = getColumnEntry(row);
+    return entry.getValue().isNull(row - entry.getKey());
+  }
+
+  @Override
+  public boolean hasNulls() {
+    for (Column<?> column : columnIds.values()) {
+      if (column.hasNulls()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   @Override
   public boolean getBoolean(final int row) {
     Map.Entry<Integer, Column<?>> entry = getColumnEntry(row);
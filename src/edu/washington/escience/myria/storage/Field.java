@@ -22,6 +22,12 @@ public class Field<T extends Comparable<?>> implements WritableColumn, Serializa
    */
   private Object value;
 
+  @Override
+  public WritableColumn appendNull() throws BufferOverflowException {
+    value = null;
+    return this;
+  }
+
   @Override
   public WritableColumn appendBoolean(final boolean value) throws BufferOverflowException {
     this.value = value;
@@ -5,6 +5,8 @@ import java.util.BitSet;
 import java.util.List;
 import java.util.Objects;
 
+import javax.annotation.Nullable;
+
 import org.joda.time.DateTime;
 
 import com.google.common.base.Preconditions;
@@ -12,11 +14,15 @@ import com.google.common.base.Preconditions;
 import edu.washington.escience.myria.Schema;
 import edu.washington.escience.myria.Type;
 import edu.washington.escience.myria.column.Column;
+import edu.washington.escience.myria.column.StringDictionary;
 import edu.washington.escience.myria.column.builder.ColumnBuilder;
 import edu.washington.escience.myria.column.builder.ColumnFactory;
 import edu.washington.escience.myria.column.builder.DateTimeColumnBuilder;
+import edu.washington.escience.myria.column.builder.StringColumnBuilder;
 import edu.washington.escience.myria.column.builder.WritableColumn;
 import edu.washington.escience.myria.column.mutable.MutableColumn;
+import edu.washington.escience.myria.column.mutable.OffHeapMutableColumn;
+import edu.washington.escience.myria.column.mutable.StringMutableColumn;
 import edu.washington.escience.myria.util.MyriaUtils;
 
 /** A simplified TupleBatchBuffer which supports random access. Designed for hash tables to use. */
@@ -36,6 +42,8 @@ public class MutableTupleBuffer implements ReadableTable, AppendableTable, Clone
   private int numColumnsReady;
   /** Internal state representing the number of tuples in the in-progress TupleBatch. */
   private int currentInProgressTuples;
+  /** The manager that completed batches of fixed-width columns are stored in, or null to store them on the heap. */
+  private final OffHeapMemoryManager memory;
 
   /**
    * Constructs an empty TupleBuffer to hold tuples matching the specified Schema.
@@ -43,7 +51,19 @@ public class MutableTupleBuffer implements ReadableTable, AppendableTable, Clone
    * @param schema specified the columns of the emitted TupleBatch objects.
    */
   public MutableTupleBuffer(final Schema schema) {
+    this(schema, null);
+  }
+
+  /**
+   * Constructs an empty TupleBuffer to hold tuples matching the specified Schema. Completed batches of the fixed-width
+   * columns are stored off-heap in the specified manager.
+   * 
+   * @param schema specified the columns of the emitted TupleBatch objects.
+   * @param memory the manager to store completed batches in, or null to store them on the heap.
+   */
+  public MutableTupleBuffer(final Schema schema, @Nullable final OffHeapMemoryManager memory) {
     this.schema = Objects.requireNonNull(schema);
+    this.memory = memory;
     readyTuples = new ArrayList<MutableColumn<?>[]>();
     currentBuildingColumns = ColumnFactory.allocateColumns(schema).toArray(new ColumnBuilder<?>[] {});
     numColumns = schema.numColumns();
@@ -56,6 +76,11 @@ public class MutableTupleBuffer implements ReadableTable, AppendableTable, Clone
    * clear this TBB.
    * */
   public final void clear() {
+    for (MutableColumn<?>[] columns : readyTuples) {
+      for (MutableColumn<?> column : columns) {
+        column.release();
+      }
+    }
     columnsReady.clear();
     currentBuildingColumns = null;
     currentInProgressTuples = 0;
@@ -73,7 +98,14 @@ public class MutableTupleBuffer implements ReadableTable, AppendableTable, Clone
     MutableColumn<?>[] buildingColumns = new MutableColumn<?>[numColumns];
     int i = 0;
     for (ColumnBuilder<?> cb : currentBuildingColumns) {
-      buildingColumns[i++] = cb.buildMutable();
+      MutableColumn<?> column = null;
+      if (memory != null) {
+        column = OffHeapMutableColumn.copyOf(cb, memory);
+      }
+      if (column == null) {
+        column = cb.buildMutable();
+      }
+      buildingColumns[i++] = column;
     }
     readyTuples.add(buildingColumns);
     currentBuildingColumns = ColumnFactory.allocateColumns(schema).toArray(new ColumnBuilder<?>[] {});
@@ -105,6 +137,20 @@ public class MutableTupleBuffer implements ReadableTable, AppendableTable, Clone
     return currentBuildingColumns[colIndex].getObject(tupleIndex);
   }
 
+  @Override
+  public final boolean isNull(final int column, final int row) {
+    int tupleBatchIndex = row / TupleBatch.BATCH_SIZE;
+    int tupleIndex = row % TupleBatch.BATCH_SIZE;
+    if (tupleBatchIndex > readyTuples.size() || tupleBatchIndex == readyTuples.size()
+        && tupleIndex >= currentInProgressTuples) {
+      throw new IndexOutOfBoundsException();
+    }
+    if (tupleBatchIndex < readyTuples.size()) {
+      return readyTuples.get(tupleBatchIndex)[column].isNull(tupleIndex);
+    }
+    return currentBuildingColumns[column].isNull(tupleIndex);
+  }
+
   @Override
   public final boolean getBoolean(final int column, final int row) {
     int tupleBatchIndex = row / TupleBatch.BATCH_SIZE;
@@ -233,6 +279,13 @@ public class MutableTupleBuffer implements ReadableTable, AppendableTable, Clone
     return numColumns;
   }
 
+  @Override
+  public final void putNull(final int column) {
+    checkPutIndex(column);
+    currentBuildingColumns[column].appendNull();
+    columnPut(column);
+  }
+
   @Override
   public final void putBoolean(final int column, final boolean value) {
     checkPutIndex(column);
@@ -290,6 +343,56 @@ public class MutableTupleBuffer implements ReadableTable, AppendableTable, Clone
     columnPut(column);
   }
 
+  /**
+   * Append a string that is encoded with a dictionary, so that the buffer keeps its code for comparisons.
+   * 
+   * @param column the STRING column.
+   * @param value the value.
+   * @param dictionary the dictionary the value is encoded with, or null if it is not encoded.
+   * @param code the code of the value in the dictionary.
+   */
+  public final void putEncodedString(final int column, final String value, @Nullable final StringDictionary dictionary,
+      final int code) {
+    checkPutIndex(column);
+    if (dictionary == null) {
+      currentBuildingColumns[column].appendString(value);
+    } else {
+      ((StringColumnBuilder) currentBuildingColumns[column]).appendEncoded(value, dictionary, code);
+    }
+    columnPut(column);
+  }
+
+  /**
+   * @param column a STRING column.
+   * @param row the row.
+   * @return the dictionary that the specified cell is encoded with, or null if it is not encoded.
+   */
+  @Nullable
+  public final StringDictionary getStringDictionary(final int column, final int row) {
+    ReadableColumn batchColumn = getColumns(row)[column];
+    if (batchColumn instanceof StringMutableColumn) {
+      return ((StringMutableColumn) batchColumn).getDictionary();
+    }
+    if (batchColumn instanceof StringColumnBuilder) {
+      return ((StringColumnBuilder) batchColumn).getDictionary();
+    }
+    return null;
+  }
+
+  /**
+   * @param column a STRING column.
+   * @param row the row.
+   * @return the code of the specified cell, if {@link #getStringDictionary(int, int)} is not null.
+   */
+  public final int getStringCode(final int column, final int row) {
+    ReadableColumn batchColumn = getColumns(row)[column];
+    int tupleIndex = row % TupleBatch.BATCH_SIZE;
+    if (batchColumn instanceof StringMutableColumn) {
+      return ((StringMutableColumn) batchColumn).getCode(tupleIndex);
+    }
+    return ((StringColumnBuilder) batchColumn).getCode(tupleIndex);
+  }
+
   /**
    * Helper function: checks whether the specified column can be inserted into.
    * 
@@ -362,6 +465,8 @@ public class MutableTupleBuffer implements ReadableTable, AppendableTable, Clone
       destColumn = currentBuildingColumns[column];
     }
 
+    boolean null1 = sourceColumn.isNull(sourceBatchRow);
+    boolean null2 = destColumn.isNull(destBatchRow);
     Type t = getSchema().getColumnType(column);
     switch (t) {
       case LONG_TYPE:
@@ -407,6 +512,12 @@ public class MutableTupleBuffer implements ReadableTable, AppendableTable, Clone
         destColumn.replaceDateTime(date1, destBatchRow);
         break;
     }
+    if (null2) {
+      sourceColumn.replaceNull(sourceBatchRow);
+    }
+    if (null1) {
+      destColumn.replaceNull(destBatchRow);
+    }
   }
 
   /**
@@ -432,6 +543,10 @@ public class MutableTupleBuffer implements ReadableTable, AppendableTable, Clone
       dest = currentBuildingColumns[destColumn];
     }
 
+    if (sourceColumn.isNull(sourceRow)) {
+      dest.replaceNull(tupleIndex);
+      return;
+    }
     switch (dest.getType()) {
       case BOOLEAN_TYPE:
         dest.replaceBoolean(sourceColumn.getBoolean(sourceRow), tupleIndex);
@@ -492,7 +607,7 @@ public class MutableTupleBuffer implements ReadableTable, AppendableTable, Clone
 
   @Override
   public MutableTupleBuffer clone() {
-    MutableTupleBuffer ret = new MutableTupleBuffer(getSchema());
+    MutableTupleBuffer ret = new MutableTupleBuffer(getSchema(), memory);
     ret.columnsReady = (BitSet) columnsReady.clone();
     ret.numColumnsReady = numColumnsReady;
     ret.currentInProgressTuples = currentInProgressTuples;
@@ -0,0 +1,213 @@
+package edu.washington.escience.myria.storage;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+import edu.washington.escience.myria.MyriaConstants;
+
+/**
+ * Allocates the direct (off-heap) buffers that hold the state of a fragment's operators, and accounts for them. Keeping
+ * large operator state off the heap keeps it out of old-generation garbage collections.
+ * 
+ * Released buffers are pooled by size and reused by later allocations, since operator state is allocated in batches of
+ * the same few sizes. The pool is bounded; buffers released beyond the bound, and all pooled buffers when the fragment
+ * finishes, are freed explicitly rather than left to the garbage collector. Buffers that their operators never release
+ * are still freed by the garbage collector, together with their on-heap handles.
+ */
+public final class OffHeapMemoryManager {
+  /** The logger for this class. */
+  private static final Logger LOGGER = LoggerFactory.getLogger(OffHeapMemoryManager.class);
+  /** Frees the memory of a direct buffer, or null if direct buffers cannot be freed explicitly. */
+  private static final BufferFreer FREER = findFreer();
+
+  /** Frees the memory of a direct buffer through the JDK's internal API. */
+  private abstract static class BufferFreer {
+    /**
+     * @param buffer a direct buffer that nothing references any more.
+     * @throws ReflectiveOperationException if the internal API fails.
+     */
+    abstract void free(ByteBuffer buffer) throws ReflectiveOperationException;
+  }
+
+  /**
+   * @return the freer for this JDK, or null if direct buffers cannot be freed explicitly.
+   */
+  private static BufferFreer findFreer() {
+    try {
+      /* Java 9 and later. */
+      final Field theUnsafe = Class.forName("sun.misc.Unsafe").getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      final Object unsafe = theUnsafe.get(null);
+      final Method invokeCleaner = unsafe.getClass().getMethod("invokeCleaner", ByteBuffer.class);
+      return new BufferFreer() {
+        @Override
+        void free(final ByteBuffer buffer) throws ReflectiveOperationException {
+          invokeCleaner.invoke(unsafe, buffer);
+        }
+      };
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      LOGGER.trace("sun.misc.Unsafe.invokeCleaner is not available", e);
+    }
+    try {
+      /* Java 8 and earlier. */
+      final Method cleaner = ByteBuffer.allocateDirect(0).getClass().getMethod("cleaner");
+      cleaner.setAccessible(true);
+      final Method clean = cleaner.getReturnType().getMethod("clean");
+      clean.setAccessible(true);
+      return new BufferFreer() {
+        @Override
+        void free(final ByteBuffer buffer) throws ReflectiveOperationException {
+          Object bufferCleaner = cleaner.invoke(buffer);
+          if (bufferCleaner != null) {
+            clean.invoke(bufferCleaner);
+          }
+        }
+      };
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      LOGGER.warn("Direct buffers cannot be freed explicitly, leaving them to the garbage collector", e);
+    }
+    return null;
+  }
+
+  /** Released buffers, by capacity. */
+  private final Map<Integer, ArrayDeque<ByteBuffer>> pool;
+  /** The maximum number of bytes in pooled buffers. */
+  private final long maxPooledBytes;
+  /** Number of bytes in buffers that are allocated and not released. */
+  private long allocatedBytes;
+  /** Maximum value of {@link #allocatedBytes}. */
+  private long peakBytes;
+  /** Number of bytes in pooled buffers. */
+  private long pooledBytes;
+  /** Number of bytes in buffers that have been freed explicitly. */
+  private long freedBytes;
+
+  /** Constructs a manager with no allocated memory that pools up to {@link MyriaConstants#OFF_HEAP_POOL_MAX_BYTES}. */
+  public OffHeapMemoryManager() {
+    this(MyriaConstants.OFF_HEAP_POOL_MAX_BYTES);
+  }
+
+  /**
+   * @param maxPooledBytes the maximum number of bytes of released buffers to keep for reuse.
+   */
+  public OffHeapMemoryManager(final long maxPooledBytes) {
+    Preconditions.checkArgument(maxPooledBytes >= 0, "maxPooledBytes must be non-negative");
+    this.maxPooledBytes = maxPooledBytes;
+    pool = new HashMap<Integer, ArrayDeque<ByteBuffer>>();
+  }
+
+  /**
+   * Allocate a direct buffer in native byte order.
+   * 
+   * @param bytes the capacity of the buffer.
+   * @return a cleared buffer with the specified capacity. Its contents are undefined.
+   */
+  public synchronized ByteBuffer allocate(final int bytes) {
+    Preconditions.checkArgument(bytes >= 0, "bytes must be non-negative");
+    ByteBuffer buffer = null;
+    ArrayDeque<ByteBuffer> free = pool.get(bytes);
+    if (free != null) {
+      buffer = free.poll();
+    }
+    if (buffer == null) {
+      buffer = ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    } else {
+      pooledBytes -= bytes;
+      buffer.clear();
+    }
+    allocatedBytes += bytes;
+    peakBytes = Math.max(peakBytes, allocatedBytes);
+    return buffer;
+  }
+
+  /**
+   * Return a buffer returned by {@link #allocate(int)} to this manager. The buffer must not be used afterwards.
+   * 
+   * @param buffer the buffer.
+   */
+  public synchronized void release(final ByteBuffer buffer) {
+    Preconditions.checkArgument(buffer.isDirect(), "buffer was not allocated by this manager");
+    final int bytes = buffer.capacity();
+    allocatedBytes -= bytes;
+    if (pooledBytes + bytes > maxPooledBytes) {
+      free(buffer);
+      return;
+    }
+    ArrayDeque<ByteBuffer> free = pool.get(bytes);
+    if (free == null) {
+      free = new ArrayDeque<ByteBuffer>();
+      pool.put(bytes, free);
+    }
+    free.push(buffer);
+    pooledBytes += bytes;
+  }
+
+  /**
+   * Free all pooled buffers. Called when the owning fragment finishes. Buffers that are still allocated are left to the
+   * garbage collector, since their columns may still be referenced.
+   */
+  public synchronized void releaseAll() {
+    for (ArrayDeque<ByteBuffer> free : pool.values()) {
+      for (ByteBuffer buffer : free) {
+        free(buffer);
+      }
+    }
+    pool.clear();
+    pooledBytes = 0;
+  }
+
+  /**
+   * Free the memory of a buffer that nothing references any more, if direct buffers can be freed explicitly.
+   * 
+   * @param buffer the buffer.
+   */
+  private void free(final ByteBuffer buffer) {
+    if (FREER == null) {
+      return;
+    }
+    try {
+      FREER.free(buffer);
+      freedBytes += buffer.capacity();
+    } catch (ReflectiveOperationException e) {
+      LOGGER.warn("Failed to free a direct buffer, leaving it to the garbage collector", e);
+    }
+  }
+
+  /**
+   * @return the number of bytes in buffers that are allocated and not released.
+   */
+  public synchronized long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  /**
+   * @return the maximum number of bytes that were allocated and not released at the same time.
+   */
+  public synchronized long getPeakBytes() {
+    return peakBytes;
+  }
+
+  /**
+   * @return the number of bytes in released buffers that are kept for reuse.
+   */
+  public synchronized long getPooledBytes() {
+    return pooledBytes;
+  }
+
+  /**
+   * @return the number of bytes in buffers that have been freed explicitly.
+   */
+  public synchronized long getFreedBytes() {
+    return freedBytes;
+  }
+}
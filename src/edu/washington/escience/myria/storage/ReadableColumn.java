@@ -8,6 +8,15 @@ import org.joda.time.DateTime;
  * An interface for a readable object holding a single column of tuples.
  */
 public interface ReadableColumn extends ColumnInterface {
+  /**
+   * Returns whether the value at the specified row in this column is null. The typed getters return a placeholder for
+   * null rows.
+   * 
+   * @param row row of element to check.
+   * @return true if the element at the specified row in this column is null.
+   */
+  boolean isNull(final int row);
+
   /**
    * Returns the boolean value at the specified row in this column.
    * 
@@ -55,7 +64,8 @@ public interface ReadableColumn extends ColumnInterface {
   int getInt(final int row);
 
   /**
-   * Returns the long value at the specified row in this column.
+   * Returns the long value at the specified row in this column. For a DATETIME column, this is the value in
+   * milliseconds since the epoch.
    * 
    * @param row row of element to return.
    * @return the element at the specified row in this column.
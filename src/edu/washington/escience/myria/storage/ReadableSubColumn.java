@@ -38,6 +38,11 @@ public final class ReadableSubColumn implements ReadableColumn {
     return inner.numTuples();
   }
 
+  @Override
+  public boolean isNull(final int row) {
+    return inner.isNull(column, row);
+  }
+
   @Override
   public boolean getBoolean(final int row) {
     return inner.getBoolean(column, row);
@@ -8,6 +8,13 @@ import org.joda.time.DateTime;
  * An interface for objects that contain a table (2-D) of tuples that is readable.
  */
 public interface ReadableTable extends TupleTable {
+  /**
+   * @param column the column of the desired value.
+   * @param row the row of the desired value.
+   * @return true if the value in the specified column and row is null.
+   */
+  boolean isNull(final int column, final int row);
+
   /**
    * @param column the column of the desired value.
    * @param row the row of the desired value.
@@ -47,7 +54,8 @@ public interface ReadableTable extends TupleTable {
   /**
    * @param column the column of the desired value.
    * @param row the row of the desired value.
-   * @return the value in the specified column and row.
+   * @return the value in the specified column and row. For a DATETIME column, this is the value in milliseconds since
+   *         the epoch.
    */
   long getLong(final int column, final int row);
 
@@ -71,4 +71,11 @@ public interface ReplaceableColumn extends ReadableColumn {
    */
   void replaceString(@Nonnull final String value, final int row);
 
+  /**
+   * Replaces the value at the specified row in this column with null.
+   * 
+   * @param row row of element to replace.
+   */
+  void replaceNull(final int row);
+
 }
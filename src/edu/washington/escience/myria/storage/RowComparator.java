@@ -0,0 +1,230 @@
+package edu.washington.escience.myria.storage;
+
+import java.util.List;
+import java.util.Objects;
+
+import com.google.common.base.Preconditions;
+
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.column.Column;
+import edu.washington.escience.myria.column.DictionaryStringColumn;
+
+/**
+ * Compares rows of tables with the same schema by a list of sort columns. The comparison of each sort column is
+ * specialized to its type once, when the comparator is built, so comparing two rows costs one typed read per cell
+ * instead of a dispatch on the column type per cell as in {@link TupleUtils#tupleCompare}. Nulls sort first, as in
+ * {@link TupleUtils#cellCompare}.
+ */
+public final class RowComparator {
+
+  /** The comparison of each sort column, in order. */
+  private final KeyComparator[] keys;
+
+  /**
+   * @param schema the schema of the rows.
+   * @param sortColumns the columns to compare by, in order.
+   * @param ascending true for each column in sortColumns that is sorted ascending.
+   */
+  public RowComparator(final Schema schema, final int[] sortColumns, final boolean[] ascending) {
+    Objects.requireNonNull(schema, "schema");
+    Objects.requireNonNull(sortColumns, "sortColumns");
+    Objects.requireNonNull(ascending, "ascending");
+    Preconditions.checkArgument(sortColumns.length == ascending.length,
+        "sort columns number should be equal to ascending orders number");
+    keys = new KeyComparator[sortColumns.length];
+    for (int i = 0; i < sortColumns.length; ++i) {
+      keys[i] = KeyComparator.of(schema.getColumnType(sortColumns[i]), sortColumns[i], ascending[i]);
+    }
+  }
+
+  /**
+   * @param left the columns of the first row.
+   * @param leftRow the first row.
+   * @param right the columns of the second row.
+   * @param rightRow the second row.
+   * @return a negative number, zero, or a positive number if the first row sorts before, with, or after the second.
+   */
+  public int compare(final List<? extends Column<?>> left, final int leftRow, final List<? extends Column<?>> right,
+      final int rightRow) {
+    for (KeyComparator key : keys) {
+      int compared = key.compare(left.get(key.column), leftRow, right.get(key.column), rightRow);
+      if (compared != 0) {
+        return compared;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Compares the cells of one sort column.
+   */
+  private abstract static class KeyComparator {
+    /** The sort column. */
+    private final int column;
+    /** 1 if the column is sorted ascending, -1 if descending. */
+    private final int sign;
+
+    /**
+     * @param column the sort column.
+     * @param ascending whether the column is sorted ascending.
+     */
+    KeyComparator(final int column, final boolean ascending) {
+      this.column = column;
+      sign = ascending ? 1 : -1;
+    }
+
+    /**
+     * @param type the type of the sort column.
+     * @param column the sort column.
+     * @param ascending whether the column is sorted ascending.
+     * @return the comparator of the cells of the column.
+     */
+    static KeyComparator of(final Type type, final int column, final boolean ascending) {
+      switch (type) {
+        case BOOLEAN_TYPE:
+          return new BooleanKey(column, ascending);
+        case DATETIME_TYPE:
+        case LONG_TYPE:
+          return new LongKey(column, ascending);
+        case DOUBLE_TYPE:
+          return new DoubleKey(column, ascending);
+        case FLOAT_TYPE:
+          return new FloatKey(column, ascending);
+        case INT_TYPE:
+          return new IntKey(column, ascending);
+        case STRING_TYPE:
+          return new StringKey(column, ascending);
+      }
+      throw new IllegalStateException("Invalid type " + type);
+    }
+
+    /**
+     * @param left the column of the first cell.
+     * @param leftRow the row of the first cell.
+     * @param right the column of the second cell.
+     * @param rightRow the row of the second cell.
+     * @return the comparison of the first cell with the second, in sort order.
+     */
+    final int compare(final ReadableColumn left, final int leftRow, final ReadableColumn right, final int rightRow) {
+      boolean leftNull = left.isNull(leftRow);
+      boolean rightNull = right.isNull(rightRow);
+      if (leftNull | rightNull) {
+        return sign * Boolean.compare(!leftNull, !rightNull);
+      }
+      return sign * compareValues(left, leftRow, right, rightRow);
+    }
+
+    /**
+     * @param left the column of the first cell.
+     * @param leftRow the row of the first cell, which is not null.
+     * @param right the column of the second cell.
+     * @param rightRow the row of the second cell, which is not null.
+     * @return the comparison of the first value with the second.
+     */
+    abstract int compareValues(ReadableColumn left, int leftRow, ReadableColumn right, int rightRow);
+  }
+
+  /** Compares BOOLEAN cells. */
+  private static final class BooleanKey extends KeyComparator {
+    /**
+     * @param column the sort column.
+     * @param ascending whether the column is sorted ascending.
+     */
+    BooleanKey(final int column, final boolean ascending) {
+      super(column, ascending);
+    }
+
+    @Override
+    int compareValues(final ReadableColumn left, final int leftRow, final ReadableColumn right, final int rightRow) {
+      return Boolean.compare(left.getBoolean(leftRow), right.getBoolean(rightRow));
+    }
+  }
+
+  /** Compares DOUBLE cells. */
+  private static final class DoubleKey extends KeyComparator {
+    /**
+     * @param column the sort column.
+     * @param ascending whether the column is sorted ascending.
+     */
+    DoubleKey(final int column, final boolean ascending) {
+      super(column, ascending);
+    }
+
+    @Override
+    int compareValues(final ReadableColumn left, final int leftRow, final ReadableColumn right, final int rightRow) {
+      return Double.compare(left.getDouble(leftRow), right.getDouble(rightRow));
+    }
+  }
+
+  /** Compares FLOAT cells. */
+  private static final class FloatKey extends KeyComparator {
+    /**
+     * @param column the sort column.
+     * @param ascending whether the column is sorted ascending.
+     */
+    FloatKey(final int column, final boolean ascending) {
+      super(column, ascending);
+    }
+
+    @Override
+    int compareValues(final ReadableColumn left, final int leftRow, final ReadableColumn right, final int rightRow) {
+      return Float.compare(left.getFloat(leftRow), right.getFloat(rightRow));
+    }
+  }
+
+  /** Compares INT cells. */
+  private static final class IntKey extends KeyComparator {
+    /**
+     * @param column the sort column.
+     * @param ascending whether the column is sorted ascending.
+     */
+    IntKey(final int column, final boolean ascending) {
+      super(column, ascending);
+    }
+
+    @Override
+    int compareValues(final ReadableColumn left, final int leftRow, final ReadableColumn right, final int rightRow) {
+      return Integer.compare(left.getInt(leftRow), right.getInt(rightRow));
+    }
+  }
+
+  /** Compares LONG cells, and DATETIME cells by their milliseconds. */
+  private static final class LongKey extends KeyComparator {
+    /**
+     * @param column the sort column.
+     * @param ascending whether the column is sorted ascending.
+     */
+    LongKey(final int column, final boolean ascending) {
+      super(column, ascending);
+    }
+
+    @Override
+    int compareValues(final ReadableColumn left, final int leftRow, final ReadableColumn right, final int rightRow) {
+      return Long.compare(left.getLong(leftRow), right.getLong(rightRow));
+    }
+  }
+
+  /** Compares STRING cells, skipping the string comparison of equal dictionary codes. */
+  private static final class StringKey extends KeyComparator {
+    /**
+     * @param column the sort column.
+     * @param ascending whether the column is sorted ascending.
+     */
+    StringKey(final int column, final boolean ascending) {
+      super(column, ascending);
+    }
+
+    @Override
+    int compareValues(final ReadableColumn left, final int leftRow, final ReadableColumn right, final int rightRow) {
+      if (left instanceof DictionaryStringColumn && right instanceof DictionaryStringColumn) {
+        DictionaryStringColumn leftDict = (DictionaryStringColumn) left;
+        DictionaryStringColumn rightDict = (DictionaryStringColumn) right;
+        if (leftDict.sharesDictionary(rightDict) && leftDict.getCode(leftRow) == rightDict.getCode(rightRow)) {
+          return 0;
+        }
+      }
+      return left.getString(leftRow).compareTo(right.getString(rightRow));
+    }
+  }
+}
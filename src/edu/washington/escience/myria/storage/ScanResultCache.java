@@ -0,0 +1,521 @@
+package edu.washington.escience.myria.storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Iterators;
+
+import edu.washington.escience.myria.RelationKey;
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.proto.DataProto.DataMessage;
+import edu.washington.escience.myria.util.IPCUtils;
+
+/**
+ * A worker-wide cache of the results of scans over stored relations, so that repeated queries need not re-read
+ * unchanged relations from the database.
+ *
+ * An entry holds the {@link TupleBatch}es of one scan, identified by its SQL, together with the version of the relation
+ * it read: the id of the query that last wrote the relation, as recorded by the master. A lookup with a different
+ * version misses and drops the entry. Writers also invalidate the entries of a relation directly with
+ * {@link #invalidate(RelationKey)}; a scan that was running at that time will not store its result.
+ *
+ * Batches are immutable, so entries share them with the scans that recorded and that read them, and their size is
+ * estimated with {@link #estimateBytes(TupleBatch)} rather than measured by serializing them. Entries are evicted in
+ * least-recently-used order once their total size exceeds the memory budget. If a directory is given, evicted entries
+ * are serialized to local files, which are evicted in turn once they exceed the disk budget, and are moved back to
+ * memory when they are hit.
+ *
+ * This class is thread-safe. The files are written, read and deleted outside the monitor, so a lookup never waits for
+ * the disk I/O of another one; an entry that is moving between memory and disk is briefly in neither, and lookups of
+ * it miss.
+ */
+public final class ScanResultCache {
+
+  /** The logger for this class. */
+  private static final org.slf4j.Logger LOGGER = org.slf4j.LoggerFactory.getLogger(ScanResultCache.class);
+
+  /** The result of one scan. */
+  private static final class Entry {
+    /** The relation that was scanned. */
+    private final RelationKey relationKey;
+    /** The version of the relation that was scanned. */
+    private final long version;
+    /** The invalidation count of the relation when the scan started, see {@link ScanResultCache#begin}. */
+    private final long token;
+    /** The schema of the tuples. */
+    private final Schema schema;
+    /** The batches, or null if the entry is on disk. */
+    private List<TupleBatch> batches;
+    /** The file holding the serialized batches if the entry is on disk. */
+    private File file;
+    /** The estimated number of bytes of the batches. */
+    private final long numBytes;
+
+    /**
+     * @param relationKey the relation that was scanned.
+     * @param version the version of the relation that was scanned.
+     * @param token the invalidation count of the relation when the scan started.
+     * @param schema the schema of the tuples.
+     * @param batches the batches.
+     * @param numBytes the estimated number of bytes of the batches.
+     */
+    Entry(final RelationKey relationKey, final long version, final long token, final Schema schema,
+        final List<TupleBatch> batches, final long numBytes) {
+      this.relationKey = relationKey;
+      this.version = version;
+      this.token = token;
+      this.schema = schema;
+      this.batches = batches;
+      this.numBytes = numBytes;
+    }
+  }
+
+  /** The maximum number of bytes of the entries in memory. */
+  private final long memoryBudget;
+  /** The directory of the entries on disk, or null if there is no disk tier. */
+  private final File directory;
+  /** The maximum number of bytes of the entries on disk. */
+  private final long diskBudget;
+  /** The entries in memory, by SQL, in least-recently-used order. */
+  private final LinkedHashMap<String, Entry> memory = new LinkedHashMap<>(16, 0.75f, true);
+  /** The entries on disk, by SQL, in least-recently-used order. */
+  private final LinkedHashMap<String, Entry> disk = new LinkedHashMap<>(16, 0.75f, true);
+  /** The number of bytes of the entries in memory. */
+  private long memoryBytes = 0;
+  /** The number of bytes of the entries on disk. */
+  private long diskBytes = 0;
+  /** How many times the entries of each relation have been invalidated. */
+  private final Map<RelationKey, Long> invalidations = new HashMap<>();
+  /** The number of the next file on disk. */
+  private long nextFile = 0;
+
+  /** The number of lookups that found an entry. */
+  private long hits = 0;
+  /** The number of lookups that did not find an entry. */
+  private long misses = 0;
+  /** The number of entries that were evicted from memory or disk. */
+  private long evictions = 0;
+
+  /**
+   * @param memoryBudget the maximum number of bytes of the entries in memory.
+   * @param directory the directory of the entries on disk, or null if there is no disk tier. Files already in it are
+   *          deleted.
+   * @param diskBudget the maximum number of bytes of the entries on disk.
+   */
+  public ScanResultCache(final long memoryBudget, @Nullable final File directory, final long diskBudget) {
+    Preconditions.checkArgument(memoryBudget >= 0 && diskBudget >= 0, "budgets must be non-negative");
+    this.memoryBudget = memoryBudget;
+    this.diskBudget = diskBudget;
+    if (directory != null && diskBudget > 0) {
+      Preconditions.checkArgument(directory.isDirectory() || directory.mkdirs(), "cannot create %s", directory);
+      File[] stale = directory.listFiles();
+      if (stale != null) {
+        for (File f : stale) {
+          if (!f.delete()) {
+            LOGGER.warn("cannot delete stale scan cache file {}", f);
+          }
+        }
+      }
+      this.directory = directory;
+    } else {
+      this.directory = null;
+    }
+  }
+
+  /**
+   * @return the maximum number of bytes of the entries in memory, i.e., the most that one scan may record.
+   */
+  public long getMemoryBudget() {
+    return memoryBudget;
+  }
+
+  /**
+   * Estimate the memory that a batch holds, from the types of its columns and the lengths of its strings.
+   *
+   * @param tb a batch.
+   * @return the estimated number of bytes of its data.
+   */
+  public static long estimateBytes(final TupleBatch tb) {
+    long numBytes = 0;
+    for (int column = 0; column < tb.numColumns(); ++column) {
+      switch (tb.getSchema().getColumnType(column)) {
+        case BOOLEAN_TYPE:
+          numBytes += tb.numTuples();
+          break;
+        case INT_TYPE:
+        case FLOAT_TYPE:
+          numBytes += (long) tb.numTuples() * Integer.SIZE / Byte.SIZE;
+          break;
+        case LONG_TYPE:
+        case DOUBLE_TYPE:
+        case DATETIME_TYPE:
+          numBytes += (long) tb.numTuples() * Long.SIZE / Byte.SIZE;
+          break;
+        case STRING_TYPE:
+          for (int row = 0; row < tb.numTuples(); ++row) {
+            numBytes += (long) tb.getString(column, row).length() * Character.SIZE / Byte.SIZE;
+          }
+          break;
+        default:
+          throw new IllegalStateException("unknown type " + tb.getSchema().getColumnType(column));
+      }
+    }
+    return numBytes;
+  }
+
+  /**
+   * Look up the result of a scan.
+   *
+   * @param sql the SQL of the scan.
+   * @param version the version of the relation that the scan reads.
+   * @return the batches of the result, or null if it is not cached.
+   */
+  @Nullable
+  public Iterator<TupleBatch> get(final String sql, final long version) {
+    Entry entry;
+    List<File> deletions = new ArrayList<>();
+    synchronized (this) {
+      entry = memory.get(sql);
+      if (entry == null) {
+        entry = disk.remove(sql);
+        if (entry != null) {
+          diskBytes -= entry.numBytes;
+          if (entry.version != version) {
+            deletions.add(entry.file);
+            entry = null;
+          }
+        }
+      } else if (entry.version != version) {
+        memory.remove(sql);
+        memoryBytes -= entry.numBytes;
+        entry = null;
+      }
+      if (entry == null) {
+        ++misses;
+      } else if (entry.batches != null) {
+        ++hits;
+        return Iterators.unmodifiableIterator(entry.batches.iterator());
+      }
+    }
+    delete(deletions);
+    if (entry == null) {
+      return null;
+    }
+
+    /* The entry is on disk, and no longer in either map, so only this thread sees it. */
+    List<TupleBatch> batches = load(entry.file, entry.schema);
+    delete(Collections.singletonList(entry.file));
+    entry.file = null;
+    entry.batches = batches;
+    LinkedHashMap<String, Entry> evicted = new LinkedHashMap<>();
+    synchronized (this) {
+      if (batches == null) {
+        ++misses;
+        return null;
+      }
+      ++hits;
+      if (entry.token == begin(entry.relationKey) && !memory.containsKey(sql)) {
+        addToMemory(sql, entry, evicted);
+      }
+    }
+    spill(evicted);
+    return Iterators.unmodifiableIterator(batches.iterator());
+  }
+
+  /**
+   * @param relationKey a relation.
+   * @return a token to pass to {@link #put}, which stores the result only if the relation is not invalidated between
+   *         the two calls.
+   */
+  public synchronized long begin(final RelationKey relationKey) {
+    Long count = invalidations.get(relationKey);
+    if (count == null) {
+      return 0;
+    }
+    return count;
+  }
+
+  /**
+   * Store the complete result of a scan.
+   *
+   * @param sql the SQL of the scan.
+   * @param relationKey the relation that the scan read.
+   * @param version the version of the relation that the scan read.
+   * @param token the token returned by {@link #begin} before the scan started.
+   * @param schema the schema of the tuples.
+   * @param batches the batches.
+   */
+  public void put(final String sql, final RelationKey relationKey, final long version, final long token,
+      final Schema schema, final List<TupleBatch> batches) {
+    Objects.requireNonNull(sql, "sql");
+    long numBytes = 0;
+    for (TupleBatch batch : batches) {
+      numBytes += estimateBytes(batch);
+    }
+    if (numBytes > memoryBudget) {
+      return;
+    }
+    List<File> deletions = new ArrayList<>();
+    LinkedHashMap<String, Entry> evicted = new LinkedHashMap<>();
+    synchronized (this) {
+      if (token != begin(relationKey)) {
+        return;
+      }
+      remove(sql, deletions);
+      addToMemory(sql, new Entry(relationKey, version, token, schema, new ArrayList<>(batches), numBytes), evicted);
+    }
+    delete(deletions);
+    spill(evicted);
+  }
+
+  /**
+   * Drop the entries of a relation, and prevent scans of it that are running from storing their results.
+   *
+   * @param relationKey the relation.
+   */
+  public void invalidate(final RelationKey relationKey) {
+    List<File> deletions = new ArrayList<>();
+    synchronized (this) {
+      invalidations.put(relationKey, begin(relationKey) + 1);
+      for (Iterator<Entry> it = memory.values().iterator(); it.hasNext();) {
+        Entry entry = it.next();
+        if (entry.relationKey.equals(relationKey)) {
+          memoryBytes -= entry.numBytes;
+          it.remove();
+        }
+      }
+      for (Iterator<Entry> it = disk.values().iterator(); it.hasNext();) {
+        Entry entry = it.next();
+        if (entry.relationKey.equals(relationKey)) {
+          diskBytes -= entry.numBytes;
+          deletions.add(entry.file);
+          it.remove();
+        }
+      }
+    }
+    delete(deletions);
+  }
+
+  /**
+   * Drop the entry of a scan, if any.
+   *
+   * @param sql the SQL of the scan.
+   * @param deletions collects the file to delete, if the entry was on disk.
+   */
+  private void remove(final String sql, final List<File> deletions) {
+    Entry entry = memory.remove(sql);
+    if (entry != null) {
+      memoryBytes -= entry.numBytes;
+    }
+    entry = disk.remove(sql);
+    if (entry != null) {
+      diskBytes -= entry.numBytes;
+      deletions.add(entry.file);
+    }
+  }
+
+  /**
+   * Add an entry to memory and evict the least-recently-used entries beyond the budget.
+   *
+   * @param sql the SQL of the scan.
+   * @param entry the entry.
+   * @param evicted collects the evicted entries, to {@link #spill} once out of the monitor.
+   */
+  private void addToMemory(final String sql, final Entry entry, final Map<String, Entry> evicted) {
+    memory.put(sql, entry);
+    memoryBytes += entry.numBytes;
+    for (Iterator<Map.Entry<String, Entry>> it = memory.entrySet().iterator(); memoryBytes > memoryBudget
+        && it.hasNext();) {
+      Map.Entry<String, Entry> eldest = it.next();
+      it.remove();
+      memoryBytes -= eldest.getValue().numBytes;
+      ++evictions;
+      evicted.put(eldest.getKey(), eldest.getValue());
+    }
+  }
+
+  /**
+   * Move entries evicted from memory to disk, if there is a disk tier. Must not be called while holding the monitor.
+   *
+   * @param evicted the evicted entries, by SQL.
+   */
+  private void spill(final Map<String, Entry> evicted) {
+    if (directory == null) {
+      return;
+    }
+    for (Map.Entry<String, Entry> e : evicted.entrySet()) {
+      Entry entry = e.getValue();
+      if (entry.numBytes > diskBudget) {
+        continue;
+      }
+      File file;
+      synchronized (this) {
+        file = new File(directory, (nextFile++) + ".scan");
+      }
+      if (!store(file, entry.batches)) {
+        continue;
+      }
+      List<File> deletions = new ArrayList<>();
+      synchronized (this) {
+        if (entry.token != begin(entry.relationKey) || memory.containsKey(e.getKey())
+            || disk.containsKey(e.getKey())) {
+          /* Invalidated or replaced while it was being written. */
+          deletions.add(file);
+        } else {
+          entry.file = file;
+          entry.batches = null;
+          addToDisk(e.getKey(), entry, deletions);
+        }
+      }
+      delete(deletions);
+    }
+  }
+
+  /**
+   * Add an entry to disk and evict the least-recently-used entries beyond the budget.
+   *
+   * @param sql the SQL of the scan.
+   * @param entry the entry, whose file is written.
+   * @param deletions collects the files of the evicted entries.
+   */
+  private void addToDisk(final String sql, final Entry entry, final List<File> deletions) {
+    disk.put(sql, entry);
+    diskBytes += entry.numBytes;
+    for (Iterator<Entry> it = disk.values().iterator(); diskBytes > diskBudget && it.hasNext();) {
+      Entry eldest = it.next();
+      it.remove();
+      diskBytes -= eldest.numBytes;
+      ++evictions;
+      deletions.add(eldest.file);
+    }
+  }
+
+  /**
+   * Write batches to a new file.
+   *
+   * @param file the file.
+   * @param batches the batches.
+   * @return whether the file was written.
+   */
+  private static boolean store(final File file, final List<TupleBatch> batches) {
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+      out.writeInt(batches.size());
+      for (TupleBatch batch : batches) {
+        byte[] bytes = batch.toTransportMessage().getDataMessage().toByteArray();
+        out.writeInt(bytes.length);
+        out.write(bytes);
+      }
+    } catch (IOException e) {
+      LOGGER.warn("cannot write scan cache file {}", file, e);
+      delete(Collections.singletonList(file));
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Read batches back from a file.
+   *
+   * @param file the file.
+   * @param schema the schema of the tuples.
+   * @return the batches, or null if the file could not be read.
+   */
+  @Nullable
+  private static List<TupleBatch> load(final File file, final Schema schema) {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+      int numBatches = in.readInt();
+      List<TupleBatch> batches = new ArrayList<>(numBatches);
+      for (int i = 0; i < numBatches; ++i) {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        batches.add(IPCUtils.tmToTupleBatch(DataMessage.parseFrom(bytes), schema));
+      }
+      return batches;
+    } catch (IOException e) {
+      LOGGER.warn("cannot read scan cache file {}", file, e);
+      return null;
+    }
+  }
+
+  /**
+   * Delete files. Must not be called while holding the monitor.
+   *
+   * @param files the files.
+   */
+  private static void delete(final List<File> files) {
+    for (File file : files) {
+      if (!file.delete()) {
+        LOGGER.warn("cannot delete scan cache file {}", file);
+      }
+    }
+  }
+
+  /**
+   * @return the number of lookups that found an entry.
+   */
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  /**
+   * @return the number of lookups that did not find an entry.
+   */
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  /**
+   * @return the fraction of lookups that found an entry, or 0 if there were none.
+   */
+  public synchronized double getHitRate() {
+    if (hits + misses == 0) {
+      return 0;
+    }
+    return (double) hits / (hits + misses);
+  }
+
+  /**
+   * @return the number of entries that were evicted from memory or disk.
+   */
+  public synchronized long getEvictions() {
+    return evictions;
+  }
+
+  /**
+   * @return the number of bytes of the entries in memory.
+   */
+  public synchronized long getMemoryBytes() {
+    return memoryBytes;
+  }
+
+  /**
+   * @return the number of bytes of the entries on disk.
+   */
+  public synchronized long getDiskBytes() {
+    return diskBytes;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return String.format("%d hits, %d misses (hit rate %.3f), %d evictions, %d entries in %d bytes in memory, "
+        + "%d entries in %d bytes on disk", hits, misses, getHitRate(), evictions, memory.size(), memoryBytes, disk
+        .size(), diskBytes);
+  }
+}
@@ -0,0 +1,209 @@
+package edu.washington.escience.myria.storage;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.gs.collections.impl.list.mutable.primitive.IntArrayList;
+import com.gs.collections.impl.map.mutable.primitive.IntObjectHashMap;
+
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.column.Column;
+import edu.washington.escience.myria.util.HashUtils;
+
+/**
+ * The state of a recursive relation under semi-naive evaluation: the set of all tuples derived so far.
+ * 
+ * Tuples are only ever appended, in the order in which they are found to be new, so the tuples that a consumer of the
+ * new tuples has received so far are always a prefix of the rows. Each tuple is indexed by its hash for duplicate
+ * elimination, and by the hash of each column list that a co-located join adds with {@link #addIndex(int[])}. Such a
+ * join probes the relation with {@link #probe} instead of keeping its own copy of the tuples, restricted to the rows it
+ * has received, so that each pair of tuples is joined exactly once.
+ */
+public final class SemiNaiveRelation {
+  /** All the tuples of the relation. */
+  private final MutableTupleBuffer tuples;
+  /** The rows of tuples, by the hash of the whole tuple. */
+  private final IntObjectHashMap<IntArrayList> tupleIndex;
+  /** The column lists that are indexed. */
+  private final List<int[]> indexColumns;
+  /** The rows of tuples, by the hash of each indexed column list. */
+  private final List<IntObjectHashMap<IntArrayList>> indexes;
+
+  /**
+   * @param schema the schema of the relation.
+   * @param memory the manager to store the tuples in, or null to store them on the heap.
+   */
+  public SemiNaiveRelation(final Schema schema, @Nullable final OffHeapMemoryManager memory) {
+    tuples = new MutableTupleBuffer(schema, memory);
+    tupleIndex = new IntObjectHashMap<IntArrayList>();
+    indexColumns = new ArrayList<>();
+    indexes = new ArrayList<>();
+  }
+
+  /**
+   * Index the tuples of the relation, including those added later, on the specified columns.
+   * 
+   * @param columns the columns to index.
+   * @return the number of the index, to be passed to {@link #probe}.
+   */
+  public int addIndex(final int[] columns) {
+    for (int column : columns) {
+      Preconditions.checkElementIndex(column, tuples.numColumns());
+    }
+    final IntObjectHashMap<IntArrayList> index = new IntObjectHashMap<IntArrayList>();
+    for (int row = 0; row < tuples.numTuples(); ++row) {
+      addToIndex(index, HashUtils.hashSubRow(tuples, columns, row), row);
+    }
+    indexColumns.add(columns.clone());
+    indexes.add(index);
+    return indexes.size() - 1;
+  }
+
+  /**
+   * Add the tuples of the specified batch that are not in the relation yet.
+   * 
+   * @param tb the tuples to add.
+   * @return the tuples of tb that were not in the relation, in their original order. Unless all of them are new, they
+   *         are copied into a new batch, so that holding on to the result does not keep tb alive. Batches of more than
+   *         {@link TupleBatch#BATCH_SIZE} tuples are filtered instead.
+   */
+  public TupleBatch insert(final TupleBatch tb) {
+    final int numTuples = tb.numTuples();
+    final List<? extends Column<?>> columns = tb.getDataColumns();
+    final int[] newRows = new int[numTuples];
+    int numNew = 0;
+    for (int row = 0; row < numTuples; ++row) {
+      final int hash = HashUtils.hashRow(tb, row);
+      IntArrayList rows = tupleIndex.get(hash);
+      if (rows == null) {
+        rows = new IntArrayList(1);
+        tupleIndex.put(hash, rows);
+      } else if (contains(rows, tb, row)) {
+        continue;
+      }
+      final int newRow = tuples.numTuples();
+      rows.add(newRow);
+      for (int column = 0; column < columns.size(); ++column) {
+        tuples.put(column, columns.get(column), row);
+      }
+      for (int i = 0; i < indexes.size(); ++i) {
+        addToIndex(indexes.get(i), HashUtils.hashSubRow(tb, indexColumns.get(i), row), newRow);
+      }
+      newRows[numNew++] = row;
+    }
+    if (numNew == numTuples) {
+      return tb;
+    }
+    if (numNew == 0) {
+      ImmutableList.Builder<Column<?>> empty = ImmutableList.builder();
+      for (Type type : tb.getSchema().getColumnTypes()) {
+        empty.add(Column.emptyColumn(type));
+      }
+      return new TupleBatch(tb.getSchema(), empty.build(), 0, tb.isEOI());
+    }
+    if (numNew > TupleBatch.BATCH_SIZE) {
+      final BitSet keep = new BitSet(numTuples);
+      for (int i = 0; i < numNew; ++i) {
+        keep.set(newRows[i]);
+      }
+      return tb.filter(keep);
+    }
+    final TupleBatchBuffer compacted = new TupleBatchBuffer(tb.getSchema());
+    compacted.appendRows(tb, newRows, 0, numNew);
+    return compacted.popAny();
+  }
+
+  /**
+   * @param rows candidate rows of tuples.
+   * @param tb a batch.
+   * @param row a row of tb.
+   * @return true if one of the candidate rows is equal to the specified row.
+   */
+  private boolean contains(final IntArrayList rows, final TupleBatch tb, final int row) {
+    for (int i = 0; i < rows.size(); ++i) {
+      if (TupleUtils.tupleEquals(tb, row, tuples, rows.get(i))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @param index an index.
+   * @param hash the key.
+   * @param row the row to add under the key.
+   */
+  private static void addToIndex(final IntObjectHashMap<IntArrayList> index, final int hash, final int row) {
+    IntArrayList rows = index.get(hash);
+    if (rows == null) {
+      rows = new IntArrayList(1);
+      index.put(hash, rows);
+    }
+    rows.add(row);
+  }
+
+  /**
+   * Find the tuples of the relation that match a tuple on an indexed column list.
+   * 
+   * @param index which of the indexed column lists to match on.
+   * @param table the table holding the probing tuple.
+   * @param columns the columns of the probing tuple to match with the indexed columns, in the same order.
+   * @param row the row of the probing tuple.
+   * @param end one past the last row to match, e.g. the number of tuples the prober has received.
+   * @param matches where to add the rows of the matching tuples, which can be read from {@link #getTuples()}.
+   */
+  public void probe(final int index, final ReadableTable table, final int[] columns, final int row, final int end,
+      final IntArrayList matches) {
+    final int[] indexed = indexColumns.get(index);
+    Preconditions.checkArgument(columns.length == indexed.length, "must probe with %s columns, not %s",
+        indexed.length, columns.length);
+    final IntArrayList rows = indexes.get(index).get(HashUtils.hashSubRow(table, columns, row));
+    if (rows == null) {
+      return;
+    }
+    for (int i = 0; i < rows.size(); ++i) {
+      final int candidate = rows.get(i);
+      if (candidate < end && TupleUtils.tupleEquals(table, columns, row, tuples, indexed, candidate)) {
+        matches.add(candidate);
+      }
+    }
+  }
+
+  /**
+   * @return all the tuples of the relation. Rows returned by {@link #probe} index into this table.
+   */
+  public ReadableTable getTuples() {
+    return tuples;
+  }
+
+  /**
+   * @return the number of tuples in the relation.
+   */
+  public int numTuples() {
+    return tuples.numTuples();
+  }
+
+  /**
+   * @return all the tuples of the relation as batches.
+   */
+  public List<TupleBatch> getAll() {
+    return tuples.getAll();
+  }
+
+  /**
+   * Release the memory held by the relation. It must not be used afterwards.
+   */
+  public void clear() {
+    tuples.clear();
+    tupleIndex.clear();
+    for (IntObjectHashMap<IntArrayList> index : indexes) {
+      index.clear();
+    }
+  }
+}
@@ -0,0 +1,229 @@
+package edu.washington.escience.myria.storage;
+
+import java.util.Objects;
+
+import com.google.common.base.Preconditions;
+import com.gs.collections.impl.list.mutable.primitive.IntArrayList;
+import com.gs.collections.impl.list.mutable.primitive.LongArrayList;
+
+/**
+ * A read-only trie over some rows of a table, keyed by a sequence of attributes whose values are encoded as longs.
+ *
+ * Level {@code l} stores, in a sorted array, the distinct values of attribute {@code l} under each distinct prefix of
+ * the first {@code l} attributes, and the children of the {@code i}th value are the positions
+ * {@code [getChildBegin(l, i), getChildEnd(l, i))} of level {@code l + 1}, or of the rows for the last level. The rows
+ * are the table rows sorted by the key, so the rows sharing a full key are contiguous. It is built once, by sorting
+ * primitive row indices, and seeks are galloping searches on primitive arrays.
+ */
+public final class TrieIndex {
+
+  /** Below this many rows, the sort falls back to an insertion sort. */
+  private static final int INSERTION_SORT_THRESHOLD = 16;
+
+  /** {@code keys[l]} are the values of level {@code l}. */
+  private final long[][] keys;
+  /** {@code offsets[l][i]} is the position of the first child of {@code keys[l][i]}, with a sentinel at the end. */
+  private final int[][] offsets;
+  /** The indexed rows of the table, sorted by key. */
+  private final int[] rows;
+
+  /**
+   * @param columns {@code columns[l][row]} is the value of attribute {@code l} in a row of the table.
+   * @param rows the rows to index, e.g., those without null values.
+   */
+  public TrieIndex(final long[][] columns, final int[] rows) {
+    Objects.requireNonNull(columns, "columns");
+    this.rows = Objects.requireNonNull(rows, "rows").clone();
+    sort(this.rows, new int[this.rows.length], 0, this.rows.length, columns);
+
+    final int numLevels = columns.length;
+    LongArrayList[] levelKeys = new LongArrayList[numLevels];
+    IntArrayList[] levelOffsets = new IntArrayList[numLevels];
+    for (int level = 0; level < numLevels; ++level) {
+      levelKeys[level] = new LongArrayList();
+      levelOffsets[level] = new IntArrayList();
+    }
+    for (int i = 0; i < this.rows.length; ++i) {
+      /* The first level at which this row starts a new value. */
+      int first = 0;
+      if (i > 0) {
+        while (first < numLevels && columns[first][this.rows[i]] == columns[first][this.rows[i - 1]]) {
+          ++first;
+        }
+      }
+      for (int level = first; level < numLevels; ++level) {
+        levelKeys[level].add(columns[level][this.rows[i]]);
+        if (level == numLevels - 1) {
+          levelOffsets[level].add(i);
+        } else {
+          levelOffsets[level].add(levelKeys[level + 1].size());
+        }
+      }
+    }
+
+    keys = new long[numLevels][];
+    offsets = new int[numLevels][];
+    for (int level = 0; level < numLevels; ++level) {
+      if (level == numLevels - 1) {
+        levelOffsets[level].add(this.rows.length);
+      } else {
+        levelOffsets[level].add(levelKeys[level + 1].size());
+      }
+      keys[level] = levelKeys[level].toArray();
+      offsets[level] = levelOffsets[level].toArray();
+    }
+  }
+
+  /**
+   * Sorts the rows in {@code [from, to)} by key, stably.
+   *
+   * @param rows the rows.
+   * @param buffer a scratch array as long as the rows.
+   * @param from the first position to sort.
+   * @param to the end of the positions to sort, exclusive.
+   * @param columns the keys of the rows, as in the constructor.
+   */
+  private static void sort(final int[] rows, final int[] buffer, final int from, final int to, final long[][] columns) {
+    if (to - from <= INSERTION_SORT_THRESHOLD) {
+      for (int i = from + 1; i < to; ++i) {
+        int row = rows[i];
+        int j = i - 1;
+        while (j >= from && compare(columns, rows[j], row) > 0) {
+          rows[j + 1] = rows[j];
+          --j;
+        }
+        rows[j + 1] = row;
+      }
+      return;
+    }
+    final int mid = (from + to) >>> 1;
+    sort(rows, buffer, from, mid, columns);
+    sort(rows, buffer, mid, to, columns);
+    if (compare(columns, rows[mid - 1], rows[mid]) <= 0) {
+      return;
+    }
+    System.arraycopy(rows, from, buffer, from, to - from);
+    int left = from;
+    int right = mid;
+    for (int i = from; i < to; ++i) {
+      if (right >= to || left < mid && compare(columns, buffer[left], buffer[right]) <= 0) {
+        rows[i] = buffer[left++];
+      } else {
+        rows[i] = buffer[right++];
+      }
+    }
+  }
+
+  /**
+   * @param columns the keys of the rows, as in the constructor.
+   * @param left a row.
+   * @param right another row.
+   * @return the lexicographic comparison of the keys of the rows.
+   */
+  private static int compare(final long[][] columns, final int left, final int right) {
+    for (long[] column : columns) {
+      int cmp = Long.compare(column[left], column[right]);
+      if (cmp != 0) {
+        return cmp;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * @return the number of attributes of the key.
+   */
+  public int getNumLevels() {
+    return keys.length;
+  }
+
+  /**
+   * @param level a level.
+   * @return the number of values in the level, over all prefixes.
+   */
+  public int getNumKeys(final int level) {
+    return keys[level].length;
+  }
+
+  /**
+   * @param level a level.
+   * @param position a position in the level.
+   * @return the value at that position.
+   */
+  public long getKey(final int level, final int position) {
+    return keys[level][position];
+  }
+
+  /**
+   * @param level a level.
+   * @param position a position in the level.
+   * @return the position of the first child of the value in the next level, or in the rows for the last level.
+   */
+  public int getChildBegin(final int level, final int position) {
+    return offsets[level][position];
+  }
+
+  /**
+   * @param level a level.
+   * @param position a position in the level.
+   * @return the end of the children of the value in the next level, or in the rows for the last level, exclusive.
+   */
+  public int getChildEnd(final int level, final int position) {
+    return offsets[level][position + 1];
+  }
+
+  /**
+   * @return the number of indexed rows.
+   */
+  public int getNumRows() {
+    return rows.length;
+  }
+
+  /**
+   * @param position a position in the sorted rows.
+   * @return the row of the table at that position.
+   */
+  public int getRow(final int position) {
+    return rows[position];
+  }
+
+  /**
+   * Finds the first value that is not less than a target, by galloping from a position then by binary search, so that
+   * a seek costs a logarithm of the distance moved rather than of the range.
+   *
+   * @param level a level.
+   * @param from the position to search from, whose value is sorted with those up to {@code to}.
+   * @param to the end of the range to search, exclusive.
+   * @param target the target value.
+   * @return the position of the first value in {@code [from, to)} not less than the target, or {@code to} if none.
+   */
+  public int seek(final int level, final int from, final int to, final long target) {
+    Preconditions.checkPositionIndexes(from, to, keys[level].length);
+    final long[] values = keys[level];
+    if (from == to || values[from] >= target) {
+      return from;
+    }
+    /* values[low] < target, gallop until values[high] >= target or the range ends. */
+    int low = from;
+    int step = 1;
+    int high = from + step;
+    while (high < to && values[high] < target) {
+      low = high;
+      step <<= 1;
+      high = from + step;
+    }
+    if (high > to) {
+      high = to;
+    }
+    /* values[low] < target <= values[high], if high < to. */
+    while (high - low > 1) {
+      int mid = (low + high) >>> 1;
+      if (values[mid] < target) {
+        low = mid;
+      } else {
+        high = mid;
+      }
+    }
+    return high;
+  }
+}
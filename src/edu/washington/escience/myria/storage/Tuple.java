@@ -61,6 +61,11 @@ public class Tuple implements Cloneable, ReadableTable, Serializable {
     return data.get(column).getObject();
   }
 
+  @Override
+  public boolean isNull(final int column, final int row) {
+    return getValue(column, row) == null;
+  }
+
   @Override
   public boolean getBoolean(final int column, final int row) {
     Preconditions.checkArgument(getSchema().getColumnType(column) == Type.BOOLEAN_TYPE);
@@ -87,6 +92,9 @@ public class Tuple implements Cloneable, ReadableTable, Serializable {
 
   @Override
   public long getLong(final int column, final int row) {
+    if (getSchema().getColumnType(column) == Type.DATETIME_TYPE) {
+      return getDateTime(column, row).getMillis();
+    }
     Preconditions.checkArgument(getSchema().getColumnType(column) == Type.LONG_TYPE);
     return (long) getValue(column, row);
   }
@@ -169,6 +169,11 @@ public class TupleBatch implements ReadableTable, Serializable {
     return new TupleBatch(schema, newColumns.build(), prefix, isEOI);
   }
 
+  @Override
+  public final boolean isNull(final int column, final int row) {
+    return columns.get(column).isNull(row);
+  }
+
   @Override
   public final boolean getBoolean(final int column, final int row) {
     return columns.get(column).getBoolean(row);
@@ -235,14 +240,25 @@ public class TupleBatch implements ReadableTable, Serializable {
    * @param pf the partition function.
    * */
   public final TupleBatch[] partition(final PartitionFunction pf) {
-    TupleBatch[] result = new TupleBatch[pf.numPartition()];
     if (isEOI) {
+      TupleBatch[] result = new TupleBatch[pf.numPartition()];
       Arrays.fill(result, this);
       return result;
     }
+    return partition(pf.partition(this), pf.numPartition());
+  }
 
-    final int[] partitions = pf.partition(this);
-
+  /**
+   * Partition this TB by the specified partition of each row. The method is implemented by shallow copy of
+   * TupleBatches.
+   * 
+   * @param partitions the partition of each row, as returned by {@link PartitionFunction#partition(TupleBatch)}.
+   * @param numPartitions the number of partitions.
+   * @return an array of TBs. The length of the array is the number of partitions. If no tuple presents in a partition,
+   *         say the i'th partition, the i'th element in the result array is null.
+   */
+  public final TupleBatch[] partition(final int[] partitions, final int numPartitions) {
+    TupleBatch[] result = new TupleBatch[numPartitions];
     BitSet[] resultBitSet = new BitSet[result.length];
     for (int i = 0; i < partitions.length; i++) {
       int p = partitions[i];
@@ -13,8 +13,10 @@ import com.google.common.base.Preconditions;
 import edu.washington.escience.myria.MyriaConstants;
 import edu.washington.escience.myria.Schema;
 import edu.washington.escience.myria.column.Column;
+import edu.washington.escience.myria.column.StringDictionary;
 import edu.washington.escience.myria.column.builder.ColumnBuilder;
 import edu.washington.escience.myria.column.builder.ColumnFactory;
+import edu.washington.escience.myria.column.builder.DateTimeColumnBuilder;
 import edu.washington.escience.myria.column.builder.WritableColumn;
 import edu.washington.escience.myria.util.MyriaUtils;
 
@@ -44,6 +46,8 @@ public class TupleBatchBuffer implements AppendableTable {
   private long lastPoppedTime;
   /** the total number of tuples in readyTuples. */
   private int readyTuplesNum;
+  /** The dictionaries that STRING columns are encoded with, or null if they are not encoded. */
+  private final StringDictionary[] dictionaries;
 
   /**
    * Constructs an empty TupleBatchBuffer to hold tuples matching the specified Schema.
@@ -51,9 +55,25 @@ public class TupleBatchBuffer implements AppendableTable {
    * @param schema specified the columns of the emitted TupleBatch objects.
    */
   public TupleBatchBuffer(final Schema schema) {
+    this(schema, false);
+  }
+
+  /**
+   * Constructs an empty TupleBatchBuffer to hold tuples matching the specified Schema.
+   * 
+   * @param schema specified the columns of the emitted TupleBatch objects.
+   * @param encodeStrings whether to dictionary-encode the STRING columns of the emitted TupleBatch objects, for as
+   *          long as they have few distinct values.
+   */
+  public TupleBatchBuffer(final Schema schema, final boolean encodeStrings) {
     this.schema = Objects.requireNonNull(schema);
+    if (encodeStrings) {
+      dictionaries = ColumnFactory.allocateDictionaries(schema);
+    } else {
+      dictionaries = null;
+    }
     readyTuples = new LinkedList<TupleBatch>();
-    currentBuildingColumns = ColumnFactory.allocateColumns(schema);
+    currentBuildingColumns = allocateColumns();
     numColumns = schema.numColumns();
     columnsReady = new BitSet(numColumns);
     numColumnsReady = 0;
@@ -62,6 +82,16 @@ public class TupleBatchBuffer implements AppendableTable {
     readyTuplesNum = 0;
   }
 
+  /**
+   * @return builders for the columns of a new batch.
+   */
+  private List<ColumnBuilder<?>> allocateColumns() {
+    if (dictionaries == null) {
+      return ColumnFactory.allocateColumns(schema);
+    }
+    return ColumnFactory.allocateColumns(schema, dictionaries);
+  }
+
   /**
    * Append the tuple batch directly into readyTuples.
    * 
@@ -142,7 +172,7 @@ public class TupleBatchBuffer implements AppendableTable {
 
     /* Update the metadata and refresh the building state. */
     readyTuplesNum += buildingColumns.get(0).size();
-    currentBuildingColumns = ColumnFactory.allocateColumns(schema);
+    currentBuildingColumns = allocateColumns();
     currentInProgressTuples = 0;
     return true;
   }
@@ -380,6 +410,13 @@ public class TupleBatchBuffer implements AppendableTable {
     }
   }
 
+  @Override
+  public final void putNull(final int column) {
+    checkPutIndex(column);
+    currentBuildingColumns.get(column).appendNull();
+    columnPut(column);
+  }
+
   @Override
   public final void putBoolean(final int column, final boolean value) {
     checkPutIndex(column);
@@ -459,6 +496,90 @@ public class TupleBatchBuffer implements AppendableTable {
     }
   }
 
+  /**
+   * Append the specified rows of the specified batch, column by column. Rows that do not fit in the in-progress batch
+   * start a new one.
+   * 
+   * @param tupleBatch the batch holding the rows.
+   * @param rows the indices of the rows to append are rows[from] to rows[to - 1].
+   * @param from the first entry of rows to append.
+   * @param to one past the last entry of rows to append.
+   */
+  public final void appendRows(final TupleBatch tupleBatch, final int[] rows, final int from, final int to) {
+    Preconditions.checkState(numColumnsReady == 0, "Cannot append rows to partially-completed tuples");
+    int start = from;
+    while (start < to) {
+      final int end = Math.min(to, start + TupleBatch.BATCH_SIZE - currentInProgressTuples);
+      for (int column = 0; column < numColumns; ++column) {
+        appendRows(tupleBatch.getDataColumns().get(column), rows, start, end, currentBuildingColumns.get(column));
+      }
+      currentInProgressTuples += end - start;
+      if (currentInProgressTuples == TupleBatch.BATCH_SIZE) {
+        finishBatch();
+      }
+      start = end;
+    }
+  }
+
+  /**
+   * Append the specified rows of a column to a builder. Dispatches on the type once for all rows.
+   * 
+   * @param from the column holding the rows.
+   * @param rows the indices of the rows to append are rows[start] to rows[end - 1].
+   * @param start the first entry of rows to append.
+   * @param end one past the last entry of rows to append.
+   * @param to the builder to append to.
+   */
+  private static void appendRows(final Column<?> from, final int[] rows, final int start, final int end,
+      final ColumnBuilder<?> to) {
+    switch (from.getType()) {
+      case BOOLEAN_TYPE:
+        for (int i = start; i < end; ++i) {
+          to.appendBoolean(from.getBoolean(rows[i]));
+        }
+        break;
+      case DATETIME_TYPE:
+        for (int i = start; i < end; ++i) {
+          ((DateTimeColumnBuilder) to).appendMillis(from.getLong(rows[i]));
+        }
+        break;
+      case DOUBLE_TYPE:
+        for (int i = start; i < end; ++i) {
+          to.appendDouble(from.getDouble(rows[i]));
+        }
+        break;
+      case FLOAT_TYPE:
+        for (int i = start; i < end; ++i) {
+          to.appendFloat(from.getFloat(rows[i]));
+        }
+        break;
+      case INT_TYPE:
+        for (int i = start; i < end; ++i) {
+          to.appendInt(from.getInt(rows[i]));
+        }
+        break;
+      case LONG_TYPE:
+        for (int i = start; i < end; ++i) {
+          to.appendLong(from.getLong(rows[i]));
+        }
+        break;
+      case STRING_TYPE:
+        for (int i = start; i < end; ++i) {
+          to.appendString(from.getString(rows[i]));
+        }
+        break;
+    }
+    if (!from.hasNulls()) {
+      return;
+    }
+    final int base = to.size() - (end - start);
+    for (int i = start; i < end; ++i) {
+      if (from.isNull(rows[i])) {
+        to.replaceNull(base + i - start);
+      }
+    }
+  }
+
   @Override
   public WritableColumn asWritableColumn(final int column) {
     return new WritableSubColumn(this, column);
@@ -114,6 +114,17 @@ public class TupleBuffer implements ReadableTable, AppendableTable {
     return currentBatch.get(column).getObject(localRow);
   }
 
+  @Override
+  public final boolean isNull(final int column, final int row) {
+    Preconditions.checkElementIndex(row, numTuples());
+    int batchIndex = row / TupleBatch.BATCH_SIZE;
+    int localRow = row % TupleBatch.BATCH_SIZE;
+    if (batchIndex < readyBatches.size()) {
+      return readyBatches.get(batchIndex).isNull(column, localRow);
+    }
+    return currentBatch.get(column).isNull(localRow);
+  }
+
   @Override
   public final boolean getBoolean(final int column, final int row) {
     Preconditions.checkElementIndex(row, numTuples());
@@ -196,6 +207,13 @@ public class TupleBuffer implements ReadableTable, AppendableTable {
     return numColumns;
   }
 
+  @Override
+  public final void putNull(final int column) {
+    checkPutIndex(column);
+    currentBatch.get(column).appendNull();
+    columnPut(column);
+  }
+
   @Override
   public final void putBoolean(final int column, final boolean value) {
     checkPutIndex(column);
@@ -3,7 +3,10 @@ package edu.washington.escience.myria.storage;
 import com.google.common.base.Preconditions;
 
 import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.column.DictionaryStringColumn;
+import edu.washington.escience.myria.column.StringDictionary;
 import edu.washington.escience.myria.column.builder.ColumnBuilder;
+import edu.washington.escience.myria.column.builder.DateTimeColumnBuilder;
 
 /**
  * Utility functions for dealing with tuples.
@@ -21,13 +24,17 @@ public final class TupleUtils {
    * @param to the destination of the value
    */
   public static void copyValue(final ReadableColumn from, final int fromRow, final ColumnBuilder<?> to) {
+    if (from.isNull(fromRow)) {
+      to.appendNull();
+      return;
+    }
     Type t = from.getType();
     switch (t) {
       case BOOLEAN_TYPE:
         to.appendBoolean(from.getBoolean(fromRow));
         break;
       case DATETIME_TYPE:
-        to.appendDateTime(from.getDateTime(fromRow));
+        ((DateTimeColumnBuilder) to).appendMillis(from.getLong(fromRow));
         break;
       case DOUBLE_TYPE:
         to.appendDouble(from.getDouble(fromRow));
@@ -57,6 +64,10 @@ public final class TupleUtils {
    */
   public static void copyValue(final ReadableColumn from, final int fromRow, final AppendableTable to,
       final int toColumn) {
+    if (from.isNull(fromRow)) {
+      to.putNull(toColumn);
+      return;
+    }
     Type t = from.getType();
     switch (t) {
       case BOOLEAN_TYPE:
@@ -78,7 +89,7 @@ public final class TupleUtils {
         to.putLong(toColumn, from.getLong(fromRow));
         break;
       case STRING_TYPE:
-        to.putString(toColumn, from.getString(fromRow));
+        putString(from, fromRow, to, toColumn);
         break;
     }
   }
@@ -94,13 +105,17 @@ public final class TupleUtils {
    */
   public static void copyValue(final ReadableTable from, final int fromColumn, final int fromRow,
       final ColumnBuilder<?> to, final int toColumn) {
+    if (from.isNull(fromColumn, fromRow)) {
+      to.appendNull();
+      return;
+    }
     Type t = from.getSchema().getColumnType(fromColumn);
     switch (t) {
       case BOOLEAN_TYPE:
         to.appendBoolean(from.getBoolean(fromColumn, fromRow));
         break;
       case DATETIME_TYPE:
-        to.appendDateTime(from.getDateTime(fromColumn, fromRow));
+        ((DateTimeColumnBuilder) to).appendMillis(from.getLong(fromColumn, fromRow));
         break;
       case DOUBLE_TYPE:
         to.appendDouble(from.getDouble(fromColumn, fromRow));
@@ -131,6 +146,10 @@ public final class TupleUtils {
    */
   public static void copyValue(final ReadableTable from, final int fromColumn, final int fromRow,
       final AppendableTable to, final int toColumn) {
+    if (from.isNull(fromColumn, fromRow)) {
+      to.putNull(toColumn);
+      return;
+    }
     Type t = from.getSchema().getColumnType(fromColumn);
     switch (t) {
       case BOOLEAN_TYPE:
@@ -152,11 +171,35 @@ public final class TupleUtils {
         to.putLong(toColumn, from.getLong(fromColumn, fromRow));
         break;
       case STRING_TYPE:
-        to.putString(toColumn, from.getString(fromColumn, fromRow));
+        if (from instanceof TupleBatch) {
+          putString(from.asColumn(fromColumn), fromRow, to, toColumn);
+        } else {
+          to.putString(toColumn, from.getString(fromColumn, fromRow));
+        }
         break;
     }
   }
 
+  /**
+   * Copy a non-null STRING value to a {@link AppendableTable}, along with its dictionary code if both the source and
+   * the destination keep codes.
+   * 
+   * @param from the source of the value
+   * @param fromRow the row of the source value
+   * @param to the destination of the value
+   * @param toColumn the destination column
+   */
+  private static void putString(final ReadableColumn from, final int fromRow, final AppendableTable to,
+      final int toColumn) {
+    if (from instanceof DictionaryStringColumn && to instanceof MutableTupleBuffer) {
+      DictionaryStringColumn encoded = (DictionaryStringColumn) from;
+      ((MutableTupleBuffer) to).putEncodedString(toColumn, encoded.getString(fromRow), encoded.getDictionary(), encoded
+          .getCode(fromRow));
+    } else {
+      to.putString(toColumn, from.getString(fromRow));
+    }
+  }
+
   /**
    * @param table1 the table that cell 1 is in
    * @param column1 column number of cell 1
@@ -170,6 +213,12 @@ public final class TupleUtils {
       final ReadableTable table2, final int column2, final int row2) {
     Preconditions.checkArgument(table1.getSchema().getColumnType(column1).equals(
         table2.getSchema().getColumnType(column2)), "The types of comparing cells are not matched.");
+    boolean isNull1 = table1.isNull(column1, row1);
+    boolean isNull2 = table2.isNull(column2, row2);
+    if (isNull1 | isNull2) {
+      /* Nulls sort first. */
+      return Boolean.compare(!isNull1, !isNull2);
+    }
     switch (table1.getSchema().getColumnType(column1)) {
       case BOOLEAN_TYPE:
         return Type.compareRaw(table1.getBoolean(column1, row1), table2.getBoolean(column2, row2));
@@ -182,9 +231,14 @@ public final class TupleUtils {
       case LONG_TYPE:
         return Type.compareRaw(table1.getLong(column1, row1), table2.getLong(column2, row2));
       case STRING_TYPE:
+        StringDictionary dictionary = dictionary(table1, column1, row1);
+        if (dictionary != null && dictionary == dictionary(table2, column2, row2)
+            && code(table1, column1, row1) == code(table2, column2, row2)) {
+          return 0;
+        }
         return Type.compareRaw(table1.getString(column1, row1), table2.getString(column2, row2));
       case DATETIME_TYPE:
-        return Type.compareRaw(table1.getDateTime(column1, row1), table2.getDateTime(column2, row2));
+        return Type.compareRaw(table1.getLong(column1, row1), table2.getLong(column2, row2));
     }
 
     throw new IllegalStateException("Invalid type.");
@@ -236,6 +290,24 @@ public final class TupleUtils {
     return tupleCompare(table, columnCompareIndexes, rowIdx, table, columnCompareIndexes, rowIdx2, ascending);
   }
 
+  /**
+   * A join key with a null column matches no key, as in SQL. Joins skip such rows, while duplicate elimination and
+   * grouping treat nulls as equal, as {@link #tupleEquals(ReadableTable, int[], int, ReadableTable, int[], int)} does.
+   * 
+   * @param table a table.
+   * @param keyColumns the columns of the key.
+   * @param row a row.
+   * @return true if some column of the key is null in the row.
+   */
+  public static boolean hasNull(final ReadableTable table, final int[] keyColumns, final int row) {
+    for (int column : keyColumns) {
+      if (table.isNull(column, row)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /**
    * Check if a tuple in uniqueTuples equals to the comparing tuple (cntTuple).
    * 
@@ -254,6 +326,12 @@ public final class TupleUtils {
       return false;
     }
     for (int i = 0; i < compareColumns1.length; ++i) {
+      boolean isNull = table1.isNull(compareColumns1[i], row1);
+      if (isNull != table2.isNull(compareColumns2[i], row2)) {
+        return false;
+      } else if (isNull) {
+        continue;
+      }
       switch (table1.getSchema().getColumnType(compareColumns1[i])) {
         case BOOLEAN_TYPE:
           if (table1.getBoolean(compareColumns1[i], row1) != table2.getBoolean(compareColumns2[i], row2)) {
@@ -281,12 +359,12 @@ public final class TupleUtils {
           }
           break;
         case STRING_TYPE:
-          if (!table1.getString(compareColumns1[i], row1).equals(table2.getString(compareColumns2[i], row2))) {
+          if (!stringEquals(table1, compareColumns1[i], row1, table2, compareColumns2[i], row2)) {
             return false;
           }
           break;
         case DATETIME_TYPE:
-          if (!table1.getDateTime(compareColumns1[i], row1).equals(table2.getDateTime(compareColumns2[i], row2))) {
+          if (table1.getLong(compareColumns1[i], row1) != table2.getLong(compareColumns2[i], row2)) {
             return false;
           }
           break;
@@ -310,6 +388,12 @@ public final class TupleUtils {
       return false;
     }
     for (int i = 0; i < table1.numColumns(); ++i) {
+      boolean isNull = table1.isNull(i, row1);
+      if (isNull != table2.isNull(i, row2)) {
+        return false;
+      } else if (isNull) {
+        continue;
+      }
       switch (table1.getSchema().getColumnType(i)) {
         case BOOLEAN_TYPE:
           if (table1.getBoolean(i, row1) != table2.getBoolean(i, row2)) {
@@ -337,12 +421,12 @@ public final class TupleUtils {
           }
           break;
         case STRING_TYPE:
-          if (!table1.getString(i, row1).equals(table2.getString(i, row2))) {
+          if (!stringEquals(table1, i, row1, table2, i, row2)) {
             return false;
           }
           break;
         case DATETIME_TYPE:
-          if (!table1.getDateTime(i, row1).equals(table2.getDateTime(i, row2))) {
+          if (table1.getLong(i, row1) != table2.getLong(i, row2)) {
             return false;
           }
           break;
@@ -369,6 +453,12 @@ public final class TupleUtils {
       return false;
     }
     for (int i = 0; i < compareColumns.length; ++i) {
+      boolean isNull = table1.isNull(compareColumns[i], row1);
+      if (isNull != table2.isNull(i, index)) {
+        return false;
+      } else if (isNull) {
+        continue;
+      }
       switch (table1.getSchema().getColumnType(i)) {
         case BOOLEAN_TYPE:
           if (table1.getBoolean(compareColumns[i], row1) != table2.getBoolean(i, index)) {
@@ -396,12 +486,12 @@ public final class TupleUtils {
           }
           break;
         case STRING_TYPE:
-          if (!table1.getString(compareColumns[i], row1).equals(table2.getString(i, index))) {
+          if (!stringEquals(table1, compareColumns[i], row1, table2, i, index)) {
             return false;
           }
           break;
         case DATETIME_TYPE:
-          if (!table1.getDateTime(compareColumns[i], row1).equals(table2.getDateTime(i, index))) {
+          if (table1.getLong(compareColumns[i], row1) != table2.getLong(i, index)) {
             return false;
           }
           break;
@@ -409,4 +499,57 @@ public final class TupleUtils {
     }
     return true;
   }
-}
\ No newline at end of file
+
+  /**
+   * @param table a table
+   * @param column a STRING column of the table
+   * @param row the row
+   * @return the dictionary that the specified cell is encoded with, or null if it is not encoded. Two cells encoded
+   *         with the same dictionary are equal iff their codes are.
+   */
+  private static StringDictionary dictionary(final ReadableTable table, final int column, final int row) {
+    /* Only batches and buffers hold their columns directly; other tables would allocate a view per call. */
+    if (table instanceof TupleBatch) {
+      ReadableColumn col = table.asColumn(column);
+      if (col instanceof DictionaryStringColumn) {
+        return ((DictionaryStringColumn) col).getDictionary();
+      }
+    } else if (table instanceof MutableTupleBuffer) {
+      return ((MutableTupleBuffer) table).getStringDictionary(column, row);
+    }
+    return null;
+  }
+
+  /**
+   * @param table a table whose specified cell is dictionary-encoded
+   * @param column the column
+   * @param row the row
+   * @return the dictionary code of the specified cell
+   */
+  private static int code(final ReadableTable table, final int column, final int row) {
+    if (table instanceof TupleBatch) {
+      return ((DictionaryStringColumn) table.asColumn(column)).getCode(row);
+    }
+    return ((MutableTupleBuffer) table).getStringCode(column, row);
+  }
+
+  /**
+   * Compares two non-null STRING cells for equality, using their dictionary codes if they share a dictionary.
+   * 
+   * @param table1 the table that cell 1 is in
+   * @param column1 column number of cell 1
+   * @param row1 row number of cell 1
+   * @param table2 the table that cell 2 is in
+   * @param column2 column number of cell 2
+   * @param row2 row number of cell 2
+   * @return true if the cells are equal
+   */
+  private static boolean stringEquals(final ReadableTable table1, final int column1, final int row1,
+      final ReadableTable table2, final int column2, final int row2) {
+    StringDictionary dictionary = dictionary(table1, column1, row1);
+    if (dictionary != null && dictionary == dictionary(table2, column2, row2)) {
+      return code(table1, column1, row1) == code(table2, column2, row2);
+    }
+    return table1.getString(column1, row1).equals(table2.getString(column2, row2));
+  }
+}
@@ -30,6 +30,12 @@ public final class WritableSubColumn implements WritableColumn {
     this.column = Preconditions.checkElementIndex(column, table.numColumns());
   }
 
+  @Override
+  public WritableColumn appendNull() throws BufferOverflowException {
+    inner.putNull(column);
+    return this;
+  }
+
   @Override
   public WritableColumn appendBoolean(final boolean value) throws BufferOverflowException {
     inner.putBoolean(column, value);
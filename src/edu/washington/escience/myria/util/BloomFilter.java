@@ -0,0 +1,111 @@
+package edu.washington.escience.myria.util;
+
+import com.google.common.base.Preconditions;
+
+import edu.washington.escience.myria.storage.ReadableTable;
+
+/**
+ * A Bloom filter of the keys of tuples, i.e., the values of some of their columns. It answers whether a key may have
+ * been added, with no false negatives and a false positive rate that depends on the number of bits per added key.
+ *
+ * The k bit positions of a key are derived from one 64-bit hash of it by double hashing, as g_i = h1 + i * h2. The hash
+ * uses its own seed, so the filter is not biased by the hash partitioning of a shuffle, which uses seed index 0.
+ */
+public final class BloomFilter {
+
+  /** The index of the seed of the hash of the keys, see {@link HashUtils#hashSubRowLong}. */
+  private static final int HASH_SEED_INDEX = 2;
+
+  /** The bits. */
+  private final long[] words;
+  /** The number of bits, a multiple of 64. */
+  private final long numBits;
+  /** The number of bits set for each key. */
+  private final int numHashes;
+
+  /**
+   * @param numBits the number of bits of the filter, rounded up to a multiple of 64.
+   * @param numHashes the number of bits set for each key.
+   */
+  public BloomFilter(final int numBits, final int numHashes) {
+    Preconditions.checkArgument(numBits > 0, "numBits must be positive");
+    Preconditions.checkArgument(numHashes > 0, "numHashes must be positive");
+    words = new long[(numBits + Long.SIZE - 1) / Long.SIZE];
+    this.numBits = (long) words.length * Long.SIZE;
+    this.numHashes = numHashes;
+  }
+
+  /**
+   * Add a key to the filter.
+   *
+   * @param table the table holding the key.
+   * @param keyColumns the columns of the key, in order.
+   * @param row the row of the key.
+   */
+  public void add(final ReadableTable table, final int[] keyColumns, final int row) {
+    long hash = HashUtils.hashSubRowLong(table, keyColumns, row, HASH_SEED_INDEX);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> Integer.SIZE);
+    for (int i = 0; i < numHashes; ++i) {
+      long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % numBits;
+      words[(int) (bit >>> 6)] |= 1L << bit;
+    }
+  }
+
+  /**
+   * @param table the table holding the key.
+   * @param keyColumns the columns of the key, in order.
+   * @param row the row of the key.
+   * @return false if the key was definitely not added, true if it may have been.
+   */
+  public boolean mightContain(final ReadableTable table, final int[] keyColumns, final int row) {
+    long hash = HashUtils.hashSubRowLong(table, keyColumns, row, HASH_SEED_INDEX);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> Integer.SIZE);
+    for (int i = 0; i < numHashes; ++i) {
+      long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % numBits;
+      if ((words[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return the number of 64-bit words of the filter.
+   */
+  public int getNumWords() {
+    return words.length;
+  }
+
+  /**
+   * @param index the index of a word.
+   * @return the bits of the word.
+   */
+  public long getWord(final int index) {
+    return words[index];
+  }
+
+  /**
+   * Merge the bits of a word of another filter with the same number of bits and hashes into this one, so that this
+   * filter contains the keys of both.
+   *
+   * @param index the index of the word.
+   * @param bits the bits of the word in the other filter.
+   */
+  public void mergeWord(final int index, final long bits) {
+    words[index] |= bits;
+  }
+
+  /**
+   * @return the fraction of the bits that are set. The false positive rate is about this to the power of the number
+   *         of hashes.
+   */
+  public double getFillRatio() {
+    long set = 0;
+    for (long word : words) {
+      set += Long.bitCount(word);
+    }
+    return (double) set / numBits;
+  }
+}
@@ -0,0 +1,173 @@
+package edu.washington.escience.myria.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * A growable byte array for serializing values without allocating intermediate objects. Integers are written digit by
+ * digit and strings are encoded to UTF-8 directly, so a builder that is {@link #reset()} and reused allocates nothing
+ * once it has grown to its working size.
+ */
+public final class ByteArrayBuilder {
+
+  /** The digits of a number, least significant first. Shared by all builders of a thread. */
+  private static final ThreadLocal<byte[]> DIGITS = new ThreadLocal<byte[]>() {
+    @Override
+    protected byte[] initialValue() {
+      return new byte[20];
+    }
+  };
+
+  /** The bytes. */
+  private byte[] bytes;
+  /** Number of valid bytes. */
+  private int length;
+
+  /**
+   * @param initialCapacity the initial capacity, in bytes.
+   */
+  public ByteArrayBuilder(final int initialCapacity) {
+    bytes = new byte[Math.max(initialCapacity, 16)];
+  }
+
+  /**
+   * Make sure there is room for the specified number of additional bytes.
+   *
+   * @param extra the number of bytes about to be appended.
+   */
+  private void ensureRoom(final int extra) {
+    if (length + extra > bytes.length) {
+      bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+    }
+  }
+
+  /**
+   * @param b the byte to append.
+   * @return this builder.
+   */
+  public ByteArrayBuilder append(final byte b) {
+    ensureRoom(1);
+    bytes[length++] = b;
+    return this;
+  }
+
+  /**
+   * @param src the bytes to append.
+   * @param offset the first byte of src to append.
+   * @param len the number of bytes of src to append.
+   * @return this builder.
+   */
+  public ByteArrayBuilder append(final byte[] src, final int offset, final int len) {
+    ensureRoom(len);
+    System.arraycopy(src, offset, bytes, length, len);
+    length += len;
+    return this;
+  }
+
+  /**
+   * Append the decimal representation of a long, as {@link Long#toString(long)} would produce it.
+   *
+   * @param value the value.
+   * @return this builder.
+   */
+  public ByteArrayBuilder append(final long value) {
+    if (value == Long.MIN_VALUE) {
+      return appendUtf8(Long.toString(value));
+    }
+    ensureRoom(20);
+    long v = value;
+    if (v < 0) {
+      bytes[length++] = '-';
+      v = -v;
+    }
+    final byte[] digits = DIGITS.get();
+    int n = 0;
+    do {
+      digits[n++] = (byte) ('0' + (v % 10));
+      v /= 10;
+    } while (v != 0);
+    while (n > 0) {
+      bytes[length++] = digits[--n];
+    }
+    return this;
+  }
+
+  /**
+   * Append a string encoded as UTF-8.
+   *
+   * @param s the string.
+   * @return this builder.
+   */
+  public ByteArrayBuilder appendUtf8(final CharSequence s) {
+    return appendUtf8(s, 0, s.length());
+  }
+
+  /**
+   * Append part of a string encoded as UTF-8. Unpaired surrogates are replaced by '?', as {@link String#getBytes}
+   * does.
+   *
+   * @param s the string.
+   * @param start the first char to append.
+   * @param end one past the last char to append.
+   * @return this builder.
+   */
+  public ByteArrayBuilder appendUtf8(final CharSequence s, final int start, final int end) {
+    ensureRoom((end - start) * 3);
+    for (int i = start; i < end; ++i) {
+      final char c = s.charAt(i);
+      if (c < 0x80) {
+        bytes[length++] = (byte) c;
+      } else if (c < 0x800) {
+        bytes[length++] = (byte) (0xC0 | (c >> 6));
+        bytes[length++] = (byte) (0x80 | (c & 0x3F));
+      } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(s.charAt(i + 1))) {
+        final int cp = Character.toCodePoint(c, s.charAt(++i));
+        /* A surrogate pair is two chars, so the three bytes per char reserved above are enough. */
+        bytes[length++] = (byte) (0xF0 | (cp >> 18));
+        bytes[length++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+        bytes[length++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+        bytes[length++] = (byte) (0x80 | (cp & 0x3F));
+      } else if (Character.isSurrogate(c)) {
+        bytes[length++] = '?';
+      } else {
+        bytes[length++] = (byte) (0xE0 | (c >> 12));
+        bytes[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+        bytes[length++] = (byte) (0x80 | (c & 0x3F));
+      }
+    }
+    return this;
+  }
+
+  /**
+   * @return the backing array. Only the first {@link #length()} bytes are valid, and the array is replaced when the
+   *         builder grows.
+   */
+  public byte[] array() {
+    return bytes;
+  }
+
+  /**
+   * @return the number of bytes appended since the last {@link #reset()}.
+   */
+  public int length() {
+    return length;
+  }
+
+  /**
+   * Discard the contents, keeping the capacity.
+   */
+  public void reset() {
+    length = 0;
+  }
+
+  /**
+   * Write the contents to a stream.
+   *
+   * @param out the stream.
+   * @throws IOException if the write fails.
+   */
+  public void writeTo(final OutputStream out) throws IOException {
+    out.write(bytes, 0, length);
+  }
+}
@@ -33,6 +33,9 @@ public final class HashUtils {
    */
   public static final int NUM_OF_HASHFUNCTIONS = 10;
 
+  /** Hashed in place of a null value, so that nulls do not collide with the placeholder values of their columns. */
+  private static final byte NULL_MARKER = (byte) 0xA5;
+
   /**
    * Compute the hash code of all the values in the specified row, in column order.
    * 
@@ -78,6 +81,22 @@ public final class HashUtils {
     return hasher.hash().asInt();
   }
 
+  /**
+   * Compute a 64-bit hash code of the value in the specified column and row of the given table with specific hashcode.
+   * 
+   * @param table the table containing the values to be hashed
+   * @param column the column containing the value to be hashed
+   * @param row the row containing the value to be hashed
+   * @param seedIndex the index of the chosen hashcode
+   * @return the 64-bit hash code of the specified seed
+   */
+  public static long hashValueLong(final ReadableTable table, final int column, final int row, final int seedIndex) {
+    Preconditions.checkElementIndex(seedIndex, NUM_OF_HASHFUNCTIONS);
+    Hasher hasher = HASH_FUNCTIONS[seedIndex].newHasher();
+    addValue(hasher, table, column, row);
+    return hasher.hash().asLong();
+  }
+
   /**
    * Compute the hash code of the specified columns in the specified row of the given table.
    * 
@@ -96,6 +115,27 @@ public final class HashUtils {
     return hasher.hash().asInt();
   }
 
+  /**
+   * Compute a 64-bit hash code of the specified columns in the specified row of the given table with specific hashcode.
+   * 
+   * @param table the table containing the values to be hashed
+   * @param hashColumns the columns to be hashed. Order matters
+   * @param row the row containing the values to be hashed
+   * @param seedIndex the index of the chosen hashcode
+   * @return the 64-bit hash code of the specified columns in the specified row of the given table
+   */
+  public static long hashSubRowLong(final ReadableTable table, final int[] hashColumns, final int row,
+      final int seedIndex) {
+    Objects.requireNonNull(table, "table");
+    Objects.requireNonNull(hashColumns, "hashColumns");
+    Preconditions.checkElementIndex(seedIndex, NUM_OF_HASHFUNCTIONS);
+    Hasher hasher = HASH_FUNCTIONS[seedIndex].newHasher();
+    for (int column : hashColumns) {
+      addValue(hasher, table, column, row);
+    }
+    return hasher.hash().asLong();
+  }
+
   /**
    * Add the value at the specified row and column to the specified hasher.
    * 
@@ -118,11 +158,14 @@ public final class HashUtils {
    * @return the hasher
    */
   private static Hasher addValue(final Hasher hasher, final ReadableColumn column, final int row) {
+    if (column.isNull(row)) {
+      return hasher.putByte(NULL_MARKER);
+    }
     switch (column.getType()) {
       case BOOLEAN_TYPE:
         return hasher.putBoolean(column.getBoolean(row));
       case DATETIME_TYPE:
-        return hasher.putObject(column.getDateTime(row), TypeFunnel.INSTANCE);
+        return hasher.putLong(column.getLong(row));
       case DOUBLE_TYPE:
         return hasher.putDouble(column.getDouble(row));
       case FLOAT_TYPE:
@@ -0,0 +1,306 @@
+package edu.washington.escience.myria.systemtest;
+
+import static org.junit.Assert.assertEquals;
+
+import java.net.HttpURLConnection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import edu.washington.escience.myria.MyriaConstants;
+import edu.washington.escience.myria.RelationKey;
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.api.MyriaJsonMapperProvider;
+import edu.washington.escience.myria.api.encoding.ApplyEncoding;
+import edu.washington.escience.myria.api.encoding.ConsumerEncoding;
+import edu.washington.escience.myria.api.encoding.DbInsertEncoding;
+import edu.washington.escience.myria.api.encoding.DupElimStateEncoding;
+import edu.washington.escience.myria.api.encoding.EOIReportCombinerEncoding;
+import edu.washington.escience.myria.api.encoding.EOSControllerEncoding;
+import edu.washington.escience.myria.api.encoding.IDBControllerEncoding;
+import edu.washington.escience.myria.api.encoding.LocalMultiwayConsumerEncoding;
+import edu.washington.escience.myria.api.encoding.LocalMultiwayProducerEncoding;
+import edu.washington.escience.myria.api.encoding.PlanFragmentEncoding;
+import edu.washington.escience.myria.api.encoding.QueryEncoding;
+import edu.washington.escience.myria.api.encoding.QueryStatusEncoding;
+import edu.washington.escience.myria.api.encoding.ShuffleConsumerEncoding;
+import edu.washington.escience.myria.api.encoding.ShuffleProducerEncoding;
+import edu.washington.escience.myria.api.encoding.TableScanEncoding;
+import edu.washington.escience.myria.api.encoding.UnionAllEncoding;
+import edu.washington.escience.myria.api.encoding.plan.SubQueryEncoding;
+import edu.washington.escience.myria.expression.ConditionalExpression;
+import edu.washington.escience.myria.expression.ConstantExpression;
+import edu.washington.escience.myria.expression.Expression;
+import edu.washington.escience.myria.expression.ExpressionOperator;
+import edu.washington.escience.myria.expression.LessThanExpression;
+import edu.washington.escience.myria.expression.PlusExpression;
+import edu.washington.escience.myria.expression.VariableExpression;
+import edu.washington.escience.myria.operator.Apply;
+import edu.washington.escience.myria.operator.DbQueryScan;
+import edu.washington.escience.myria.operator.DupElim;
+import edu.washington.escience.myria.operator.IDBController;
+import edu.washington.escience.myria.operator.Operator;
+import edu.washington.escience.myria.operator.RootOperator;
+import edu.washington.escience.myria.operator.SinkRoot;
+import edu.washington.escience.myria.operator.TBQueueExporter;
+import edu.washington.escience.myria.operator.TupleSource;
+import edu.washington.escience.myria.operator.UnionAll;
+import edu.washington.escience.myria.operator.network.CollectConsumer;
+import edu.washington.escience.myria.operator.network.CollectProducer;
+import edu.washington.escience.myria.operator.network.Consumer;
+import edu.washington.escience.myria.operator.network.EOIReportCombiner;
+import edu.washington.escience.myria.operator.network.EOSController;
+import edu.washington.escience.myria.operator.network.GenericShuffleConsumer;
+import edu.washington.escience.myria.operator.network.GenericShuffleProducer;
+import edu.washington.escience.myria.operator.network.LocalMultiwayConsumer;
+import edu.washington.escience.myria.operator.network.LocalMultiwayProducer;
+import edu.washington.escience.myria.operator.network.partition.PartitionFunction;
+import edu.washington.escience.myria.operator.network.partition.SingleFieldHashPartitionFunction;
+import edu.washington.escience.myria.parallel.ExchangePairID;
+import edu.washington.escience.myria.parallel.SocketInfo;
+import edu.washington.escience.myria.parallel.SubQueryPlan;
+import edu.washington.escience.myria.parallel.ipc.IPCConnectionPool;
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.storage.TupleBatchBuffer;
+import edu.washington.escience.myria.util.JsonAPIUtils;
+
+/**
+ * Iterations whose EOI reports are merged by a tree of {@link EOIReportCombiner}s. With four workers and a fanout of
+ * two, the tree has a root with two children, one of which has a child of its own.
+ */
+public class EOIReportCombinerTest extends SystemTestBase {
+
+  private static final int NUM_WORKERS = 4;
+  private static final int FANOUT = 2;
+  private final int MaxID = 40;
+  private final Schema table1Schema = new Schema(ImmutableList.of(Type.LONG_TYPE), ImmutableList.of("number"));
+  private final RelationKey table1Key = RelationKey.of("test", "test", "r");
+
+  @Override
+  public Map<Integer, SocketInfo> getWorkers() {
+    HashMap<Integer, SocketInfo> m = new HashMap<Integer, SocketInfo>();
+    for (int i = 0; i < NUM_WORKERS; i++) {
+      m.put(MyriaConstants.MASTER_ID + i + 1, new SocketInfo(DEFAULT_WORKER_STARTING_PORT + i));
+    }
+    return m;
+  }
+
+  /**
+   * Every worker adds one to its numbers that are smaller than MaxID until no new number appears. The EOSController
+   * runs on the first worker.
+   */
+  private Map<Integer, SubQueryPlan> generatePlans(final boolean sync, final ExchangePairID serverOpId) {
+    final ExchangePairID arrayId1 = ExchangePairID.newID();
+    final ExchangePairID arrayId2 = ExchangePairID.newID();
+    final ExchangePairID reportOpId = ExchangePairID.newID();
+    final ExchangePairID treeOpId = ExchangePairID.newID();
+    final ExchangePairID controllerOpId = ExchangePairID.newID();
+    final ExchangePairID eosReceiverOpId = ExchangePairID.newID();
+    final ExchangePairID mpId1 = ExchangePairID.newID();
+    final ExchangePairID mpId2 = ExchangePairID.newID();
+    final PartitionFunction pf0 = new SingleFieldHashPartitionFunction(workerIDs.length, 0);
+
+    final DbQueryScan scan1 = new DbQueryScan(table1Key, table1Schema);
+    final GenericShuffleProducer sp1 = new GenericShuffleProducer(scan1, arrayId1, workerIDs, pf0);
+    final GenericShuffleConsumer sc1 = new GenericShuffleConsumer(table1Schema, arrayId1, workerIDs);
+    final GenericShuffleConsumer sc3 = new GenericShuffleConsumer(table1Schema, arrayId2, workerIDs);
+    final Consumer eosReceiver = new Consumer(Schema.EMPTY_SCHEMA, eosReceiverOpId, new int[] { workerIDs[0] });
+    final IDBController idbController =
+        new IDBController(0, reportOpId, IPCConnectionPool.SELF_IPC_ID, sc1, sc3, eosReceiver, new DupElim(), sync);
+    final LocalMultiwayProducer mp = new LocalMultiwayProducer(idbController, new ExchangePairID[] { mpId1, mpId2 });
+    final LocalMultiwayConsumer mc1 = new LocalMultiwayConsumer(table1Schema, mpId1);
+    final LocalMultiwayConsumer mc2 = new LocalMultiwayConsumer(table1Schema, mpId2);
+    final CollectProducer cp = new CollectProducer(mc1, serverOpId, MASTER_ID);
+
+    ExpressionOperator var = new VariableExpression(0);
+    Expression expr =
+        new Expression("number", new ConditionalExpression(new LessThanExpression(var, new ConstantExpression(MaxID)),
+            new PlusExpression(var, new ConstantExpression(1)), var));
+    final Apply apply = new Apply(mc2, ImmutableList.of(expr));
+    final GenericShuffleProducer sp3 = new GenericShuffleProducer(apply, arrayId2, workerIDs, pf0);
+
+    final Consumer localReports = new Consumer(IDBController.EOI_REPORT_SCHEMA, reportOpId);
+    final Consumer childReports = new Consumer(IDBController.EOI_REPORT_SCHEMA, treeOpId, workerIDs);
+    final EOIReportCombiner combiner =
+        new EOIReportCombiner(new UnionAll(new Operator[] { localReports, childReports }), treeOpId, controllerOpId,
+            workerIDs[0], workerIDs, 1, FANOUT);
+
+    final Consumer rootReport = new Consumer(IDBController.EOI_REPORT_SCHEMA, controllerOpId, workerIDs);
+    final EOSController eosController =
+        new EOSController(new UnionAll(new Operator[] { rootReport }), new ExchangePairID[] { eosReceiverOpId },
+            workerIDs, workerIDs[0]);
+
+    Map<Integer, SubQueryPlan> workerPlans = new HashMap<Integer, SubQueryPlan>();
+    for (int workerID : workerIDs) {
+      SubQueryPlan plan = new SubQueryPlan(new RootOperator[] { sp1, sp3, mp, cp, combiner });
+      if (workerID == workerIDs[0]) {
+        plan.addRootOp(eosController);
+      }
+      workerPlans.put(workerID, plan);
+    }
+    return workerPlans;
+  }
+
+  private long runIteration(final boolean sync) throws Exception {
+    final ExchangePairID serverOpId = ExchangePairID.newID();
+    CollectConsumer serverCollect = new CollectConsumer(table1Schema, serverOpId, workerIDs);
+    LinkedBlockingQueue<TupleBatch> receivedTupleBatches = new LinkedBlockingQueue<TupleBatch>();
+    TBQueueExporter queueStore = new TBQueueExporter(receivedTupleBatches, serverCollect);
+    SubQueryPlan serverPlan = new SubQueryPlan(new SinkRoot(queueStore));
+
+    server.getQueryManager().submitQuery("", "", "", serverPlan, generatePlans(sync, serverOpId)).get();
+
+    TupleBatchBuffer result = new TupleBatchBuffer(queueStore.getSchema());
+    TupleBatch tb;
+    while ((tb = receivedTupleBatches.poll()) != null) {
+      tb.compactInto(result);
+    }
+    return result.numTuples();
+  }
+
+  @Test
+  public void fixpointTest() throws Exception {
+    /* Each worker starts from a different number, so the iteration runs until the smallest one reaches MaxID. */
+    for (int i = 0; i < workerIDs.length; i++) {
+      createTable(workerIDs[i], table1Key, "number long");
+      TupleBatchBuffer tbb = new TupleBatchBuffer(table1Schema);
+      tbb.putLong(0, i * 3);
+      insert(workerIDs[i], table1Key, table1Schema, tbb.popAny());
+    }
+
+    assertEquals(MaxID + 1, runIteration(true));
+    assertEquals(MaxID + 1, runIteration(false));
+  }
+
+  /**
+   * The plan of {@link #generatePlans(boolean, ExchangePairID)} as submitted through the JSON API, writing its result
+   * to the specified relation.
+   */
+  private QueryEncoding jsonPlan(final boolean sync, final RelationKey resultKey) {
+    TableScanEncoding scan = new TableScanEncoding();
+    scan.opId = 1;
+    scan.relationKey = table1Key;
+    ShuffleProducerEncoding scatter = new ShuffleProducerEncoding();
+    scatter.opId = 2;
+    scatter.argChild = scan.opId;
+    scatter.argPf = new SingleFieldHashPartitionFunction(null, 0);
+
+    ShuffleConsumerEncoding initialInput = new ShuffleConsumerEncoding();
+    initialInput.opId = 3;
+    initialInput.argOperatorId = scatter.opId;
+    ShuffleConsumerEncoding iterationInput = new ShuffleConsumerEncoding();
+    iterationInput.opId = 4;
+    iterationInput.argOperatorId = 11;
+    ConsumerEncoding eosReceiver = new ConsumerEncoding();
+    eosReceiver.opId = 5;
+    eosReceiver.argOperatorId = 19;
+    IDBControllerEncoding idb = new IDBControllerEncoding();
+    idb.opId = 6;
+    idb.argSelfIdbId = 0;
+    idb.argInitialInput = initialInput.opId;
+    idb.argIterationInput = iterationInput.opId;
+    idb.argEosControllerInput = eosReceiver.opId;
+    idb.argState = new DupElimStateEncoding();
+    idb.sync = sync;
+    LocalMultiwayProducerEncoding mp = new LocalMultiwayProducerEncoding();
+    mp.opId = 7;
+    mp.argChild = idb.opId;
+
+    LocalMultiwayConsumerEncoding mc1 = new LocalMultiwayConsumerEncoding();
+    mc1.opId = 8;
+    mc1.argOperatorId = mp.opId;
+    ExpressionOperator var = new VariableExpression(0);
+    ApplyEncoding apply = new ApplyEncoding();
+    apply.opId = 9;
+    apply.argChild = mc1.opId;
+    apply.emitExpressions =
+        ImmutableList.of(new Expression("number", new ConditionalExpression(new LessThanExpression(var,
+            new ConstantExpression(MaxID)), new PlusExpression(var, new ConstantExpression(1)), var)));
+    ShuffleProducerEncoding iterationOutput = new ShuffleProducerEncoding();
+    iterationOutput.opId = 11;
+    iterationOutput.argChild = apply.opId;
+    iterationOutput.argPf = new SingleFieldHashPartitionFunction(null, 0);
+
+    LocalMultiwayConsumerEncoding mc2 = new LocalMultiwayConsumerEncoding();
+    mc2.opId = 12;
+    mc2.argOperatorId = mp.opId;
+    DbInsertEncoding insert = new DbInsertEncoding();
+    insert.opId = 13;
+    insert.argChild = mc2.opId;
+    insert.relationKey = resultKey;
+    insert.argOverwriteTable = true;
+
+    /* The IDBController reports to the combiner of its own worker, through a local consumer. */
+    LocalMultiwayConsumerEncoding localReports = new LocalMultiwayConsumerEncoding();
+    localReports.opId = 14;
+    localReports.argOperatorId = idb.opId;
+    ConsumerEncoding childReports = new ConsumerEncoding();
+    childReports.opId = 15;
+    childReports.argOperatorId = 17;
+    UnionAllEncoding reports = new UnionAllEncoding();
+    reports.opId = 16;
+    reports.argChildren = new Integer[] { localReports.opId, childReports.opId };
+    EOIReportCombinerEncoding combiner = new EOIReportCombinerEncoding();
+    combiner.opId = 17;
+    combiner.argChild = reports.opId;
+    combiner.argTreeInput = childReports.opId;
+    combiner.argFanout = FANOUT;
+
+    ConsumerEncoding rootReport = new ConsumerEncoding();
+    rootReport.opId = 18;
+    rootReport.argOperatorId = combiner.opId;
+    UnionAllEncoding rootReports = new UnionAllEncoding();
+    rootReports.opId = 20;
+    rootReports.argChildren = new Integer[] { rootReport.opId };
+    EOSControllerEncoding eosController = new EOSControllerEncoding();
+    eosController.opId = 19;
+    eosController.argChild = rootReports.opId;
+    PlanFragmentEncoding controllerFragment = PlanFragmentEncoding.of(rootReport, rootReports, eosController);
+    controllerFragment.overrideWorkers = ImmutableList.of(workerIDs[0]);
+
+    QueryEncoding query = new QueryEncoding();
+    query.plan =
+        new SubQueryEncoding(ImmutableList.of(PlanFragmentEncoding.of(scan, scatter), PlanFragmentEncoding.of(
+            initialInput, iterationInput, eosReceiver, idb, mp), PlanFragmentEncoding.of(mc1, apply, iterationOutput),
+            PlanFragmentEncoding.of(mc2, insert), PlanFragmentEncoding.of(localReports, childReports, reports,
+                combiner), controllerFragment));
+    query.logicalRa = "EOIReportCombiner test";
+    query.rawQuery = query.logicalRa;
+    return query;
+  }
+
+  private long runJsonIteration(final boolean sync) throws Exception {
+    RelationKey resultKey = RelationKey.of("test", "test", "result");
+    String queryString = MyriaJsonMapperProvider.getWriter().writeValueAsString(jsonPlan(sync, resultKey));
+    HttpURLConnection conn = JsonAPIUtils.submitQuery("localhost", masterDaemonPort, queryString);
+    if (null != conn.getErrorStream()) {
+      throw new IllegalStateException(getContents(conn));
+    }
+    assertEquals(HttpURLConnection.HTTP_ACCEPTED, conn.getResponseCode());
+    long queryId = getQueryStatus(conn).queryId;
+    conn.disconnect();
+    while (!server.getQueryManager().queryCompleted(queryId)) {
+      Thread.sleep(100);
+    }
+    QueryStatusEncoding status = server.getQueryManager().getQueryStatus(queryId);
+    assertEquals(status.message, QueryStatusEncoding.Status.SUCCESS, status.status);
+    return server.getDatasetStatus(resultKey).getNumTuples();
+  }
+
+  @Test
+  public void jsonFixpointTest() throws Exception {
+    TupleBatchBuffer tbb = new TupleBatchBuffer(table1Schema);
+    for (int i = 0; i < workerIDs.length; i++) {
+      tbb.putLong(0, i * 3);
+    }
+    server.ingestDataset(table1Key, null, null, new TupleSource(tbb));
+
+    assertEquals(MaxID + 1, runJsonIteration(true));
+    assertEquals(MaxID + 1, runJsonIteration(false));
+  }
+}
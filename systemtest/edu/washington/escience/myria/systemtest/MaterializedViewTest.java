@@ -0,0 +1,144 @@
+package edu.washington.escience.myria.systemtest;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import edu.washington.escience.myria.RelationKey;
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.api.encoding.MaterializedViewEncoding;
+import edu.washington.escience.myria.operator.DbInsert;
+import edu.washington.escience.myria.operator.EOSSource;
+import edu.washington.escience.myria.operator.SinkRoot;
+import edu.washington.escience.myria.operator.TupleSource;
+import edu.washington.escience.myria.operator.agg.AggregatorFactory;
+import edu.washington.escience.myria.operator.agg.CountAllAggregatorFactory;
+import edu.washington.escience.myria.operator.agg.PrimitiveAggregator.AggregationOp;
+import edu.washington.escience.myria.operator.agg.SingleColumnAggregatorFactory;
+import edu.washington.escience.myria.parallel.SubQueryPlan;
+import edu.washington.escience.myria.storage.TupleBatchBuffer;
+import edu.washington.escience.myria.util.JsonAPIUtils;
+
+public class MaterializedViewTest extends SystemTestBase {
+
+  private static final int NUM_KEYS = 10;
+  private static final int NUM_APPENDS = 10;
+  private static final int APPEND_SIZE = 100;
+
+  private final Schema schema = Schema.ofFields("k", Type.LONG_TYPE, "v", Type.LONG_TYPE);
+  private final RelationKey baseKey = RelationKey.of("test", "view", "base");
+
+  private MaterializedViewEncoding view(final RelationKey relationKey) {
+    MaterializedViewEncoding view = new MaterializedViewEncoding();
+    view.relationKey = relationKey;
+    view.baseRelationKey = baseKey;
+    view.argGroupFields = new int[] { 0 };
+    view.aggregators =
+        new AggregatorFactory[] {
+            new CountAllAggregatorFactory(), new SingleColumnAggregatorFactory(1, AggregationOp.SUM) };
+    return view;
+  }
+
+  private TupleBatchBuffer data(final int start) {
+    TupleBatchBuffer tbb = new TupleBatchBuffer(schema);
+    for (int i = start; i < start + APPEND_SIZE; ++i) {
+      tbb.putLong(0, i % NUM_KEYS);
+      tbb.putLong(1, i);
+    }
+    return tbb;
+  }
+
+  /** Append to the base relation like a query would, logging the tuples for its views. */
+  private void append(final int start) throws Exception {
+    List<RelationKey> changelogs = server.getMaterializedViewChangelogs(baseKey);
+    Map<Integer, SubQueryPlan> workerPlans = new HashMap<Integer, SubQueryPlan>();
+    for (int workerID : workerIDs) {
+      workerPlans.put(workerID, new SubQueryPlan(new DbInsert(new TupleSource(data(start)), baseKey, null, false,
+          null, changelogs)));
+    }
+    server.getQueryManager().submitQuery("append", "append", "append", new SubQueryPlan(new SinkRoot(new EOSSource())),
+        workerPlans).get();
+  }
+
+  private String[] download(final RelationKey relationKey) throws Exception {
+    String[] lines =
+        JsonAPIUtils.download("localhost", masterDaemonPort, relationKey.getUserName(), relationKey.getProgramName(),
+            relationKey.getRelationName(), "csv").split("\r\n");
+    Arrays.sort(lines);
+    return lines;
+  }
+
+  /**
+   * Append to the base relation, and refresh the view from the specified number of threads until the appends are done,
+   * so that some appends land in the middle of a refresh.
+   */
+  private void appendWhileRefreshing(final RelationKey viewKey, final int numRefreshers) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(numRefreshers + 1);
+    final Future<Void> appends = executor.submit(new Callable<Void>() {
+      @Override
+      public Void call() throws Exception {
+        for (int i = 1; i <= NUM_APPENDS; ++i) {
+          append(i * APPEND_SIZE);
+        }
+        return null;
+      }
+    });
+    List<Future<Void>> refreshes = new ArrayList<>();
+    for (int i = 0; i < numRefreshers; ++i) {
+      refreshes.add(executor.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          do {
+            server.refreshMaterializedView(viewKey);
+          } while (!appends.isDone());
+          return null;
+        }
+      }));
+    }
+    appends.get();
+    for (Future<Void> refresh : refreshes) {
+      refresh.get();
+    }
+    executor.shutdown();
+    server.refreshMaterializedView(viewKey);
+  }
+
+  /** Check the view against a new view, which is computed from the whole base relation. */
+  private void checkView(final RelationKey viewKey) throws Exception {
+    RelationKey recomputedKey = RelationKey.of("test", "view", "recomputed");
+    server.createMaterializedView(view(recomputedKey));
+    String[] maintained = download(viewKey);
+    /* The header, then one line per group. */
+    assertEquals(NUM_KEYS + 1, maintained.length);
+    assertEquals(Arrays.asList(download(recomputedKey)), Arrays.asList(maintained));
+  }
+
+  @Test
+  public void refreshWhileAppending() throws Exception {
+    final RelationKey viewKey = RelationKey.of("test", "view", "maintained");
+    server.ingestDataset(baseKey, null, null, new TupleSource(data(0)));
+    server.createMaterializedView(view(viewKey));
+    appendWhileRefreshing(viewKey, 1);
+    checkView(viewKey);
+  }
+
+  @Test
+  public void concurrentRefreshes() throws Exception {
+    final RelationKey viewKey = RelationKey.of("test", "view", "maintained");
+    server.ingestDataset(baseKey, null, null, new TupleSource(data(0)));
+    server.createMaterializedView(view(viewKey));
+    appendWhileRefreshing(viewKey, 3);
+    checkView(viewKey);
+  }
+}
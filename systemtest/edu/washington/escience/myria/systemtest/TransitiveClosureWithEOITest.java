@@ -339,4 +339,121 @@ public class TransitiveClosureWithEOITest extends SystemTestBase {
     TestUtils.assertTupleBagEqual(expectedResult, resultBag);
 
   }
+
+  /**
+   * The plan of a worker for transitive closure, in which the join reads the IDB directly from the IDBController and so
+   * probes its state instead of keeping a copy of the IDB. The join outputs the derived tuples.
+   */
+  private RootOperator[] coLocatedJoinPlan(final int workerID, final RelationKey edgesKey, final Schema tableSchema,
+      final boolean sync, final ExchangePairID[] ids) {
+    final int[] workers = new int[] { workerIDs[0], workerIDs[1] };
+    final PartitionFunction pf0 = new SingleFieldHashPartitionFunction(workers.length, 0);
+    final PartitionFunction pf1 = new SingleFieldHashPartitionFunction(workers.length, 1);
+    final ExchangePairID edgesID = ids[0];
+    final ExchangePairID initialID = ids[1];
+    final ExchangePairID iterationID = ids[2];
+    final ExchangePairID eoiReceiverOpID = ids[3];
+    final ExchangePairID eosReceiverOpID = ids[4];
+    final ExchangePairID serverReceiveID = ids[5];
+    final ExchangePairID toIDBID = ids[6];
+    final ExchangePairID toServerID = ids[7];
+
+    /* The edges (a, b), partitioned on b, and the IDB tuples (b, c), partitioned on b. */
+    final GenericShuffleProducer edges =
+        new GenericShuffleProducer(new DbQueryScan(edgesKey, tableSchema), edgesID, workers, pf1);
+    final GenericShuffleProducer initial =
+        new GenericShuffleProducer(new DbQueryScan(edgesKey, tableSchema), initialID, workers, pf0);
+    final Consumer eosReceiver = new Consumer(Schema.EMPTY_SCHEMA, eosReceiverOpID, new int[] { workerIDs[0] });
+    final IDBController idbController =
+        new IDBController(0, eoiReceiverOpID, workerIDs[0], new GenericShuffleConsumer(tableSchema, initialID,
+            workers), new GenericShuffleConsumer(tableSchema, iterationID, workers), eosReceiver, new DupElim(), sync);
+
+    final SymmetricHashJoin join =
+        new SymmetricHashJoin(idbController, new GenericShuffleConsumer(tableSchema, edgesID, workers),
+            new int[] { 0 }, new int[] { 1 }, new int[] { 1 }, new int[] { 0 });
+    final LocalMultiwayProducer derived =
+        new LocalMultiwayProducer(Applys.columnSelect(join, 1, 0), new ExchangePairID[] { toIDBID, toServerID });
+    final GenericShuffleProducer iteration =
+        new GenericShuffleProducer(new LocalMultiwayConsumer(tableSchema, toIDBID), iterationID, workers, pf0);
+    final CollectProducer toServer =
+        new CollectProducer(new LocalMultiwayConsumer(tableSchema, toServerID), serverReceiveID, MASTER_ID);
+
+    if (workerID != workerIDs[0]) {
+      return new RootOperator[] { edges, initial, derived, iteration, toServer };
+    }
+    final Consumer eoiReceiver = new Consumer(IDBController.EOI_REPORT_SCHEMA, eoiReceiverOpID, workers);
+    final EOSController eosController =
+        new EOSController(new UnionAll(new Operator[] { eoiReceiver }), new ExchangePairID[] { eosReceiverOpID },
+            workers);
+    return new RootOperator[] { edges, initial, derived, iteration, toServer, eosController };
+  }
+
+  private void coLocatedJoinTransitiveClosure(final boolean sync) throws Exception {
+    final Schema tableSchema = Schema.ofFields("follower", Type.LONG_TYPE, "followee", Type.LONG_TYPE);
+    RelationKey testtableKey = RelationKey.of("test", "test", "testtable");
+    TupleBatchBuffer table1 = new TupleBatchBuffer(tableSchema);
+    createTable(workerIDs[0], testtableKey, "follower long, followee long");
+    createTable(workerIDs[1], testtableKey, "follower long, followee long");
+    for (int workerID : workerIDs) {
+      long[] followers = TestUtils.randomLong(1, MaxID - 1, numTbl1Worker1);
+      long[] followees = TestUtils.randomLong(1, MaxID - 1, numTbl1Worker1);
+      TupleBatchBuffer edges = new TupleBatchBuffer(tableSchema);
+      for (int i = 0; i < numTbl1Worker1; i++) {
+        edges.putLong(0, followers[i]);
+        edges.putLong(1, followees[i]);
+      }
+      table1.unionAll(edges);
+      for (TupleBatch tb : edges.getAll()) {
+        insert(workerID, testtableKey, tableSchema, tb);
+      }
+    }
+
+    /* Each edge (a, b) joins each tuple (b, c) of the closure exactly once. */
+    boolean[][] graph = allNodeTransitiveClosure(table1, tableSchema);
+    TupleBatchBuffer expectedTBB = new TupleBatchBuffer(tableSchema);
+    for (TupleBatch tb : table1.getAll()) {
+      for (int row = 0; row < tb.numTuples(); ++row) {
+        for (int j = 0; j < MaxID; ++j) {
+          if (graph[(int) tb.getLong(1, row)][j]) {
+            expectedTBB.putLong(0, tb.getLong(0, row));
+            expectedTBB.putLong(1, j);
+          }
+        }
+      }
+    }
+    final HashMap<Tuple, Integer> expectedResult = TestUtils.tupleBatchToTupleBag(expectedTBB);
+
+    final ExchangePairID[] ids = new ExchangePairID[8];
+    for (int i = 0; i < ids.length; ++i) {
+      ids[i] = ExchangePairID.newID();
+    }
+    final HashMap<Integer, RootOperator[]> workerPlans = new HashMap<Integer, RootOperator[]>();
+    for (int workerID : workerIDs) {
+      workerPlans.put(workerID, coLocatedJoinPlan(workerID, testtableKey, tableSchema, sync, ids));
+    }
+    final CollectConsumer serverCollect =
+        new CollectConsumer(tableSchema, ids[5], new int[] { workerIDs[0], workerIDs[1] });
+    final LinkedBlockingQueue<TupleBatch> receivedTupleBatches = new LinkedBlockingQueue<TupleBatch>();
+    final TBQueueExporter queueStore = new TBQueueExporter(receivedTupleBatches, serverCollect);
+
+    server.submitQueryPlan(new SinkRoot(queueStore), workerPlans).get();
+    TupleBatchBuffer actualResult = new TupleBatchBuffer(queueStore.getSchema());
+    while (!receivedTupleBatches.isEmpty()) {
+      TupleBatch tb = receivedTupleBatches.poll();
+      if (tb != null) {
+        tb.compactInto(actualResult);
+      }
+    }
+    TestUtils.assertTupleBagEqual(expectedResult, TestUtils.tupleBatchToTupleBag(actualResult));
+  }
+
+  @Test
+  public void coLocatedJoinTransitiveClosure() throws Exception {
+    coLocatedJoinTransitiveClosure(false);
+  }
+
+  @Test
+  public void coLocatedJoinTransitiveClosureSync() throws Exception {
+    coLocatedJoinTransitiveClosure(true);
+  }
 }
@@ -51,4 +51,21 @@ public class CSVTupleWriterTest {
     writer.done();
     assertEquals("foo_bar\r\na_1\r\nb_2\r\n", out.toString());
   }
+
+  @Test
+  public void testQuotingAndNulls() throws IOException {
+    OutputStream out = new ByteArrayOutputStream();
+    CsvTupleWriter writer = new CsvTupleWriter(out);
+    writer.writeColumnHeaders(ImmutableList.of("a", "b", "c"));
+    TupleBuffer tuples = new TupleBuffer(new Schema(ImmutableList.of(Type.LONG_TYPE, Type.STRING_TYPE, Type.INT_TYPE)));
+    tuples.putLong(0, -5);
+    tuples.putString(1, "trailing ");
+    tuples.putInt(2, -7);
+    tuples.putLong(0, 12);
+    tuples.putString(1, "line\nbreak");
+    tuples.putInt(2, 0);
+    writer.writeTuples(tuples);
+    writer.done();
+    assertEquals("a,b,c\r\n\"-5\",\"trailing \",-7\r\n12,\"line\nbreak\",0\r\n", out.toString());
+  }
 }
@@ -0,0 +1,102 @@
+package edu.washington.escience.myria;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import org.apache.commons.io.output.ByteArrayOutputStream;
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import edu.washington.escience.myria.client.ColumnarBinaryReader;
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.storage.TupleBuffer;
+
+public class ColumnarBinaryTupleWriterTest {
+
+  private static final Schema SCHEMA = new Schema(ImmutableList.of(Type.BOOLEAN_TYPE, Type.INT_TYPE, Type.LONG_TYPE,
+      Type.FLOAT_TYPE, Type.DOUBLE_TYPE, Type.STRING_TYPE, Type.DATETIME_TYPE), ImmutableList.of("b", "i", "l", "f",
+      "d", "s", "t"));
+
+  private TupleBuffer makeTuples(final int numTuples) {
+    TupleBuffer tuples = new TupleBuffer(SCHEMA);
+    for (int i = 0; i < numTuples; ++i) {
+      tuples.putBoolean(0, i % 2 == 0);
+      tuples.putInt(1, i);
+      tuples.putLong(2, -i * 1000L);
+      tuples.putFloat(3, i / 3.0f);
+      tuples.putDouble(4, i / 7.0);
+      if (i % 5 == 0) {
+        tuples.putNull(5);
+      } else {
+        tuples.putString(5, "row " + i % 17);
+      }
+      tuples.putDateTime(6, new DateTime(2000, 1, 1, 0, 0, 0).plusMinutes(i));
+    }
+    return tuples;
+  }
+
+  private void roundTrip(final boolean compress) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ColumnarBinaryTupleWriter writer = new ColumnarBinaryTupleWriter(out, SCHEMA, compress);
+    TupleBuffer tuples = makeTuples(TupleBatch.BATCH_SIZE + 123);
+    writer.writeColumnHeaders(SCHEMA.getColumnNames());
+    writer.writeTuples(tuples);
+    writer.done();
+
+    ColumnarBinaryReader reader = new ColumnarBinaryReader(new ByteArrayInputStream(out.toByteArray()));
+    assertEquals(SCHEMA, reader.getSchema());
+    int row = 0;
+    for (TupleBatch tb = reader.next(); tb != null; tb = reader.next()) {
+      for (int i = 0; i < tb.numTuples(); ++i, ++row) {
+        assertEquals(tuples.getBoolean(0, row), tb.getBoolean(0, i));
+        assertEquals(tuples.getInt(1, row), tb.getInt(1, i));
+        assertEquals(tuples.getLong(2, row), tb.getLong(2, i));
+        assertEquals(tuples.getFloat(3, row), tb.getFloat(3, i), 0);
+        assertEquals(tuples.getDouble(4, row), tb.getDouble(4, i), 0);
+        assertEquals(tuples.isNull(5, row), tb.isNull(5, i));
+        if (!tuples.isNull(5, row)) {
+          assertEquals(tuples.getString(5, row), tb.getString(5, i));
+        }
+        assertEquals(tuples.getDateTime(6, row), tb.getDateTime(6, i));
+      }
+    }
+    assertEquals(tuples.numTuples(), row);
+    assertNull(reader.next());
+    reader.close();
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    roundTrip(false);
+  }
+
+  @Test
+  public void testCompressedRoundTrip() throws IOException {
+    roundTrip(true);
+  }
+
+  @Test
+  public void testError() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ColumnarBinaryTupleWriter writer = new ColumnarBinaryTupleWriter(out, SCHEMA);
+    writer.writeColumnHeaders(SCHEMA.getColumnNames());
+    writer.writeTuples(makeTuples(10));
+    writer.error();
+
+    ColumnarBinaryReader reader = new ColumnarBinaryReader(new ByteArrayInputStream(out.toByteArray()));
+    assertEquals(10, reader.next().numTuples());
+    try {
+      reader.next();
+      assertTrue("expected the error to be reported", false);
+    } catch (IOException e) {
+      assertTrue(e.getMessage().contains("error"));
+    }
+    reader.close();
+  }
+}
@@ -1,10 +1,12 @@
 package edu.washington.escience.myria.column;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.nio.BufferOverflowException;
 
 import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
 import org.junit.Test;
 
 import edu.washington.escience.myria.column.DateTimeColumn;
@@ -25,6 +27,18 @@ public class DateTimeColumnTest {
     assertTrue(original.build().toString().equals(deserialized.toString()));
   }
 
+  @Test
+  public void testMillisAndZone() {
+    final DateTimeZone zone = DateTimeZone.forOffsetHours(-8);
+    final DateTime value = new DateTime(2010, 3, 4, 5, 6, 7, DateTimeZone.UTC);
+    final DateTimeColumnBuilder builder = new DateTimeColumnBuilder(zone);
+    builder.appendDateTime(value).appendMillis(0L);
+    final DateTimeColumn column = builder.build();
+    assertEquals(value.getMillis(), column.getLong(0));
+    assertEquals(value.withZone(zone), column.getDateTime(0));
+    assertEquals(new DateTime(0L, zone), column.getDateTime(1));
+  }
+
   @Test
   public void testFull() {
     final DateTimeColumnBuilder builder = new DateTimeColumnBuilder();
@@ -1,6 +1,7 @@
 package edu.washington.escience.myria.column;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.nio.BufferOverflowException;
@@ -33,6 +34,36 @@ public class IntColumnTest {
     assertTrue(original.build().toString().equals(deserialized.toString()));
   }
 
+  @Test
+  public void testNullProto() {
+    final IntColumnBuilder original = new IntColumnBuilder();
+    original.appendInt(1).appendNull().appendInt(5).appendNull();
+    original.replaceNull(0);
+    original.replaceInt(7, 1);
+    final IntColumn built = original.build();
+    final ColumnMessage serialized = built.serializeToProto();
+    assertTrue(serialized.hasNulls());
+    final IntColumn deserialized = IntColumnBuilder.buildFromProtobuf(serialized, original.size());
+    assertTrue(deserialized.hasNulls());
+    for (int i = 0; i < built.size(); ++i) {
+      assertEquals(built.isNull(i), deserialized.isNull(i));
+    }
+    assertTrue(deserialized.isNull(0));
+    assertFalse(deserialized.isNull(1));
+    assertEquals(7, deserialized.getInt(1));
+    assertFalse(deserialized.isNull(2));
+    assertTrue(deserialized.isNull(3));
+  }
+
+  @Test
+  public void testNoNullsProto() {
+    final IntColumnBuilder original = new IntColumnBuilder();
+    original.appendInt(1).appendInt(2);
+    final ColumnMessage serialized = original.build().serializeToProto();
+    assertFalse(serialized.hasNulls());
+    assertFalse(IntColumnBuilder.buildFromProtobuf(serialized, original.size()).hasNulls());
+  }
+
   @Test
   public void testFull() {
     final IntColumnBuilder builder = new IntColumnBuilder();
@@ -0,0 +1,89 @@
+package edu.washington.escience.myria.column;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.column.builder.LongColumnBuilder;
+import edu.washington.escience.myria.column.mutable.MutableColumn;
+import edu.washington.escience.myria.column.mutable.OffHeapMutableColumn;
+import edu.washington.escience.myria.storage.MutableTupleBuffer;
+import edu.washington.escience.myria.storage.OffHeapMemoryManager;
+import edu.washington.escience.myria.storage.TupleBatch;
+
+public class OffHeapColumnTest {
+
+  @Test
+  public void testMutableTupleBuffer() {
+    final Schema schema =
+        new Schema(ImmutableList.of(Type.INT_TYPE, Type.DOUBLE_TYPE, Type.STRING_TYPE), ImmutableList.of("a", "b",
+            "c"));
+    final OffHeapMemoryManager memory = new OffHeapMemoryManager();
+    final MutableTupleBuffer buffer = new MutableTupleBuffer(schema, memory);
+    final int numTuples = TupleBatch.BATCH_SIZE + 5;
+    for (int i = 0; i < numTuples; ++i) {
+      if (i % 7 == 0) {
+        buffer.putNull(0);
+      } else {
+        buffer.putInt(0, i);
+      }
+      buffer.putDouble(1, i / 2.0);
+      buffer.putString(2, String.valueOf(i));
+    }
+    /* The first batch is off-heap, except for the string column. */
+    final long batchBytes = TupleBatch.BATCH_SIZE * (Integer.SIZE + Double.SIZE) / Byte.SIZE;
+    assertEquals(batchBytes, memory.getAllocatedBytes());
+    for (int i = 0; i < numTuples; ++i) {
+      assertEquals(i % 7 == 0, buffer.isNull(0, i));
+      if (i % 7 != 0) {
+        assertEquals(i, buffer.getInt(0, i));
+      }
+      assertEquals(i / 2.0, buffer.getDouble(1, i), 0.0);
+    }
+
+    buffer.swap(0, 0, 1);
+    assertFalse(buffer.isNull(0, 0));
+    assertEquals(1, buffer.getInt(0, 0));
+    assertTrue(buffer.isNull(0, 1));
+
+    final MutableTupleBuffer clone = buffer.clone();
+    assertEquals(2 * batchBytes, memory.getAllocatedBytes());
+    assertEquals(buffer.getAll().get(0).getDouble(1, 10), clone.getAll().get(0).getDouble(1, 10), 0.0);
+
+    buffer.clear();
+    clone.clear();
+    assertEquals(0, memory.getAllocatedBytes());
+    assertEquals(memory.getPeakBytes(), memory.getPooledBytes());
+
+    memory.releaseAll();
+    assertEquals(0, memory.getPooledBytes());
+    assertEquals(memory.getPeakBytes(), memory.getFreedBytes());
+  }
+
+  @Test
+  public void testBoundedPool() {
+    final int bytes = TupleBatch.BATCH_SIZE * Long.SIZE / Byte.SIZE;
+    final OffHeapMemoryManager memory = new OffHeapMemoryManager(bytes);
+    final LongColumnBuilder builder = new LongColumnBuilder();
+    for (int i = 0; i < TupleBatch.BATCH_SIZE; ++i) {
+      builder.appendLong(i);
+    }
+    final MutableColumn<?> first = OffHeapMutableColumn.copyOf(builder, memory);
+    final MutableColumn<?> second = OffHeapMutableColumn.copyOf(builder, memory);
+    assertEquals(TupleBatch.BATCH_SIZE - 1, second.getLong(TupleBatch.BATCH_SIZE - 1));
+    assertTrue(second.toString().endsWith(", " + (TupleBatch.BATCH_SIZE - 1) + "]"));
+
+    /* The first released buffer is pooled, the second exceeds the bound and is freed. */
+    first.release();
+    second.release();
+    assertEquals(0, memory.getAllocatedBytes());
+    assertEquals(bytes, memory.getPooledBytes());
+    assertEquals(bytes, memory.getFreedBytes());
+  }
+}
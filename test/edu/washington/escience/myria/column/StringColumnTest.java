@@ -1,5 +1,7 @@
 package edu.washington.escience.myria.column;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.nio.BufferOverflowException;
@@ -23,6 +25,29 @@ public class StringColumnTest {
     assertTrue(original.build().toString().equals(deserialized.toString()));
   }
 
+  @Test
+  public void testDictionary() {
+    final StringDictionary dictionary = new StringDictionary(2);
+    final StringColumnBuilder first = new StringColumnBuilder(dictionary);
+    first.appendString("a").appendString(new String("b")).appendString("a");
+    final StringColumn column = first.build();
+    assertTrue(column instanceof DictionaryStringColumn);
+    assertEquals(((DictionaryStringColumn) column).getCode(0), ((DictionaryStringColumn) column).getCode(2));
+    assertEquals("[a, b, a]", column.toString().substring(column.toString().indexOf('[')));
+
+    /* Equal values of different batches are the same instance. */
+    final StringColumnBuilder second = new StringColumnBuilder(dictionary);
+    second.appendString(new String("b"));
+    assertSame(column.getString(1), second.build().getString(0));
+
+    /* The dictionary is full, so a new value stops encoding. */
+    final StringColumnBuilder third = new StringColumnBuilder(dictionary);
+    third.appendString("a").appendString("c");
+    final StringColumn plain = third.build();
+    assertTrue(plain instanceof StringArrayColumn);
+    assertEquals("c", plain.getString(1));
+  }
+
   @Test
   public void testFull() {
     final StringColumnBuilder builder = new StringColumnBuilder();
@@ -1,6 +1,8 @@
 package edu.washington.escience.myria.coordinator.catalog;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
@@ -26,8 +28,14 @@ import com.google.common.collect.ImmutableSet;
 
 import edu.washington.escience.myria.MyriaConstants;
 import edu.washington.escience.myria.MyriaConstants.ProfilingMode;
+import edu.washington.escience.myria.RelationKey;
+import edu.washington.escience.myria.api.encoding.MaterializedViewEncoding;
 import edu.washington.escience.myria.api.encoding.QueryEncoding;
 import edu.washington.escience.myria.api.encoding.QueryStatusEncoding;
+import edu.washington.escience.myria.operator.agg.AggregatorFactory;
+import edu.washington.escience.myria.operator.agg.CountAllAggregatorFactory;
+import edu.washington.escience.myria.operator.agg.PrimitiveAggregator.AggregationOp;
+import edu.washington.escience.myria.operator.agg.SingleColumnAggregatorFactory;
 import edu.washington.escience.myria.parallel.SocketInfo;
 import edu.washington.escience.myria.util.FSUtils;
 
@@ -311,4 +319,37 @@ public class CatalogTest {
     assertEquals(qs.logicalRa, query.logicalRa);
     assertEquals(ImmutableSet.copyOf(qs.profilingMode), ImmutableSet.copyOf(query.profilingMode));
   }
+
+  @Test
+  public void testCatalogMaterializedViews() throws CatalogException {
+    /* Turn off SQLite logging, it's annoying. */
+    Logger.getLogger("com.almworks.sqlite4java").setLevel(Level.OFF);
+
+    MasterCatalog catalog = MasterCatalog.createInMemory();
+    MaterializedViewEncoding view = new MaterializedViewEncoding();
+    view.relationKey = RelationKey.of("public", "adhoc", "daily");
+    view.baseRelationKey = RelationKey.of("public", "adhoc", "events");
+    view.argGroupFields = new int[] { 0, 1 };
+    view.aggregators =
+        new AggregatorFactory[] { new CountAllAggregatorFactory(),
+            new SingleColumnAggregatorFactory(2, AggregationOp.SUM, AggregationOp.MAX) };
+    catalog.addMaterializedView(view);
+
+    MaterializedViewEncoding stored = catalog.getMaterializedView(view.relationKey);
+    assertEquals(view.baseRelationKey, stored.baseRelationKey);
+    assertArrayEquals(view.argGroupFields, stored.argGroupFields);
+    assertEquals(2, stored.aggregators.length);
+    assertArrayEquals(new AggregationOp[] { AggregationOp.SUM, AggregationOp.MAX },
+        ((SingleColumnAggregatorFactory) stored.aggregators[1]).getAggOps());
+    assertEquals(ImmutableList.of(view.relationKey), catalog.getMaterializedViewsOf(view.baseRelationKey));
+    assertTrue(catalog.getMaterializedViewsOf(view.relationKey).isEmpty());
+    assertNull(catalog.getMaterializedView(view.baseRelationKey));
+
+    /* a new view is not up to date with any version of its base relation. */
+    assertNull(catalog.getMaterializedViewBaseQueryId(view.relationKey));
+    catalog.setMaterializedViewBaseQueryId(view.relationKey, 3L);
+    assertEquals(Long.valueOf(3), catalog.getMaterializedViewBaseQueryId(view.relationKey));
+    catalog.setMaterializedViewBaseQueryId(view.relationKey, null);
+    assertNull(catalog.getMaterializedViewBaseQueryId(view.relationKey));
+  }
 }
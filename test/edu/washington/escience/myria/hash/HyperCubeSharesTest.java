@@ -0,0 +1,81 @@
+package edu.washington.escience.myria.hash;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.operator.network.partition.HyperCubeShares;
+import edu.washington.escience.myria.operator.network.partition.MFMDHashPartitionFunction;
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.storage.TupleBatchBuffer;
+
+public class HyperCubeSharesTest {
+
+  /** Result(x,y,z) :- R(x,y), S(y,z), T(z,x). */
+  private static final int[][] TRIANGLE = new int[][] { { 0, 1 }, { 1, 2 }, { 2, 0 } };
+
+  @Test
+  public void testShares() {
+    HyperCubeShares shares = HyperCubeShares.compute(new long[] { 1000, 1000, 1000 }, TRIANGLE, 3, 64);
+    assertArrayEquals(new int[] { 4, 4, 4 }, shares.getShares());
+    assertEquals(4, shares.getReplicationFactor(), 0);
+
+    /* An equi-join is hash partitioned on all the workers. */
+    shares = HyperCubeShares.compute(new long[] { 1000, 10 }, new int[][] { { 0 }, { 0 } }, 1, 10);
+    assertArrayEquals(new int[] { 10 }, shares.getShares());
+    assertEquals(1, shares.getReplicationFactor(), 0);
+
+    /* A small relation is broadcast rather than the large ones replicated. */
+    shares = HyperCubeShares.compute(new long[] { 1000 * 1000, 10, 1000 * 1000 }, TRIANGLE, 3, 64);
+    assertEquals(64, shares.getNumCells());
+    assertEquals(1, shares.getShares()[1]);
+  }
+
+  @Test
+  public void testCellPartition() {
+    final Random random = new Random(48);
+    final Schema schema = Schema.ofFields("a", Type.LONG_TYPE, "b", Type.LONG_TYPE);
+    HyperCubeShares shares = HyperCubeShares.compute(new long[] { 100, 80, 10 }, TRIANGLE, 3, 24);
+    final int[] dimensions = shares.getShares();
+    final int numCells = shares.getNumCells();
+
+    int[][][] cellPartitions = new int[TRIANGLE.length][][];
+    MFMDHashPartitionFunction[] partitionFunctions = new MFMDHashPartitionFunction[TRIANGLE.length];
+    for (int r = 0; r < TRIANGLE.length; ++r) {
+      cellPartitions[r] = shares.getCellPartition(TRIANGLE[r]);
+      partitionFunctions[r] =
+          new MFMDHashPartitionFunction(cellPartitions[r].length, dimensions, new int[] { 0, 1 }, TRIANGLE[r]);
+    }
+
+    /* the cells receiving the tuples of a triangle meet in exactly one cell. */
+    for (int i = 0; i < 100; ++i) {
+      long[] triangle = new long[] { random.nextLong(), random.nextLong(), random.nextLong() };
+      Set<Integer> cells = null;
+      for (int r = 0; r < TRIANGLE.length; ++r) {
+        TupleBatchBuffer tuple = new TupleBatchBuffer(schema);
+        tuple.putLong(0, triangle[TRIANGLE[r][0]]);
+        tuple.putLong(1, triangle[TRIANGLE[r][1]]);
+        TupleBatch tb = tuple.popAny();
+        int partition = partitionFunctions[r].partition(tb)[0];
+        Set<Integer> relationCells = new HashSet<>();
+        for (int cell : cellPartitions[r][partition]) {
+          relationCells.add(cell);
+        }
+        assertEquals(numCells / (dimensions[TRIANGLE[r][0]] * dimensions[TRIANGLE[r][1]]), relationCells.size());
+        if (cells == null) {
+          cells = relationCells;
+        } else {
+          cells.retainAll(relationCells);
+        }
+      }
+      assertEquals(1, cells.size());
+    }
+  }
+}
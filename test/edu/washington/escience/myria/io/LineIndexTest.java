@@ -0,0 +1,73 @@
+package edu.washington.escience.myria.io;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LineIndexTest {
+
+  /**
+   * @param numLines the number of lines.
+   * @return a file whose line i holds the number i, padded with a random number of spaces.
+   */
+  private static File linesFile(final int numLines) throws IOException {
+    File file = File.createTempFile("lines", ".txt");
+    file.deleteOnExit();
+    Random random = new Random(numLines);
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < numLines; ++i) {
+      for (int pad = random.nextInt(5); pad > 0; --pad) {
+        sb.append(' ');
+      }
+      sb.append(i).append('\n');
+    }
+    Files.write(file.toPath(), sb.toString().getBytes(StandardCharsets.US_ASCII));
+    return file;
+  }
+
+  /**
+   * @param input a file of {@link #linesFile(int)}.
+   * @return the number on the line at the position of input.
+   */
+  private static long readLine(final MappedFileInput input) throws IOException {
+    StringBuilder sb = new StringBuilder();
+    for (byte b = input.readByte(); b != '\n'; b = input.readByte()) {
+      sb.append((char) b);
+    }
+    return Long.parseLong(sb.toString().trim());
+  }
+
+  @Test
+  public void testSeekEveryLine() throws IOException {
+    final int numLines = 1000;
+    File file = linesFile(numLines);
+    try (MappedFileInput input = new MappedFileInput(file.toPath())) {
+      for (int stride : new int[] { 1, 7, 64, numLines, 5000 }) {
+        LineIndex index = LineIndex.build(input, stride);
+        for (int line = numLines - 1; line >= 0; --line) {
+          index.seek(input, line);
+          assertEquals(line, readLine(input));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testDefaultStride() throws IOException {
+    final int numLines = 20000;
+    File file = linesFile(numLines);
+    try (MappedFileInput input = new MappedFileInput(file.toPath())) {
+      LineIndex index = LineIndex.of(input);
+      for (int line : new int[] { 0, 1, 4095, 4096, 4097, 12345, numLines - 1 }) {
+        index.seek(input, line);
+        assertEquals(line, readLine(input));
+      }
+    }
+  }
+}
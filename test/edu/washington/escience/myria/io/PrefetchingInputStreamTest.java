@@ -0,0 +1,92 @@
+package edu.washington.escience.myria.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import com.google.common.io.ByteStreams;
+
+public class PrefetchingInputStreamTest {
+
+  private static byte[] randomBytes(final int length) {
+    byte[] bytes = new byte[length];
+    new Random(length).nextBytes(bytes);
+    return bytes;
+  }
+
+  @Test
+  public void testChunksInOrder() throws IOException {
+    byte[] bytes = randomBytes(10000);
+    RangedDataSource source = new ByteArraySource(bytes);
+    for (int chunkSize : new int[] { 1, 7, 100, 9999, 10000, 20000 }) {
+      try (InputStream in = new PrefetchingInputStream(source, 0, bytes.length, chunkSize, 3, null)) {
+        assertArrayEquals(bytes, ByteStreams.toByteArray(in));
+      }
+      try (InputStream in = new PrefetchingInputStream(source, 123, 4567, chunkSize, 2, null)) {
+        assertArrayEquals(Arrays.copyOfRange(bytes, 123, 123 + 4567), ByteStreams.toByteArray(in));
+      }
+    }
+  }
+
+  @Test
+  public void testRangePastEnd() throws IOException {
+    byte[] bytes = randomBytes(1000);
+    try (InputStream in = new PrefetchingInputStream(new ByteArraySource(bytes), 900, 500, 64, 4, null)) {
+      assertArrayEquals(Arrays.copyOfRange(bytes, 900, 1000), ByteStreams.toByteArray(in));
+    }
+  }
+
+  @Test
+  public void testFileSourceRanges() throws IOException {
+    byte[] bytes = randomBytes(5000);
+    File file = File.createTempFile("prefetchinginputstream", ".bin");
+    file.deleteOnExit();
+    Files.write(file.toPath(), bytes);
+    FileSource source = new FileSource(file.getPath());
+    assertEquals(bytes.length, source.size());
+    try (InputStream in = source.getInputStream(1000, 2000)) {
+      assertArrayEquals(Arrays.copyOfRange(bytes, 1000, 3000), ByteStreams.toByteArray(in));
+    }
+    UriSource uriSource = new UriSource(file.toURI().toString());
+    assertEquals(bytes.length, uriSource.size());
+    try (InputStream in = new PrefetchingInputStream(uriSource, 4000, 1000, 300, 2, null)) {
+      assertArrayEquals(Arrays.copyOfRange(bytes, 4000, 5000), ByteStreams.toByteArray(in));
+    }
+  }
+
+  @Test
+  public void testSharedExecutor() throws IOException {
+    byte[] bytes = randomBytes(10000);
+    RangedDataSource source = new ByteArraySource(bytes);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      try (InputStream first = new PrefetchingInputStream(source, 0, 6000, 100, 4, executor);
+          InputStream second = new PrefetchingInputStream(source, 6000, 4000, 33, 3, executor)) {
+        /* Interleave the two streams, each of which recycles its buffers many times. */
+        byte[] both = new byte[bytes.length];
+        for (int i = 0; i < 4000; ++i) {
+          both[i] = (byte) first.read();
+          both[6000 + i] = (byte) second.read();
+        }
+        ByteStreams.readFully(first, both, 4000, 2000);
+        assertEquals(-1, first.read());
+        assertEquals(-1, second.read());
+        assertArrayEquals(bytes, both);
+      }
+      assertFalse(executor.isShutdown());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
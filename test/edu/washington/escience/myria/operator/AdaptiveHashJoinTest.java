@@ -0,0 +1,117 @@
+package edu.washington.escience.myria.operator;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.storage.TupleBatchBuffer;
+import edu.washington.escience.myria.util.JoinTestUtils;
+import edu.washington.escience.myria.util.TestEnvVars;
+import edu.washington.escience.myria.util.TestUtils;
+
+public class AdaptiveHashJoinTest {
+
+  private static final List<String> OUTPUT_COLUMNS = ImmutableList.of("id1", "name1", "id2", "name2");
+
+  private static TupleBatchBuffer drain(final Operator op) throws DbException {
+    op.open(TestEnvVars.get());
+    TupleBatchBuffer result = new TupleBatchBuffer(op.getSchema());
+    while (!op.eos()) {
+      TupleBatch tb = op.nextReady();
+      if (tb != null) {
+        tb.compactInto(result);
+      }
+    }
+    op.close();
+    return result;
+  }
+
+  @Test
+  public void testAdaptiveHashJoin() throws DbException {
+    TupleSource left = new TupleSource(JoinTestUtils.leftInput);
+    TupleSource right = new TupleSource(JoinTestUtils.rightInput);
+    int[] leftColumns = new int[JoinTestUtils.leftSchema.numColumns()];
+    int[] rightColumns = new int[JoinTestUtils.rightSchema.numColumns()];
+    for (int i = 0; i < leftColumns.length; ++i) {
+      leftColumns[i] = i;
+    }
+    for (int i = 0; i < rightColumns.length; ++i) {
+      rightColumns[i] = i;
+    }
+    Operator join =
+        new AdaptiveHashJoin(null, left, right, new int[] { 0, 1, 2 }, new int[] { 1, 2, 0 }, leftColumns,
+            rightColumns, 1000);
+    TupleBatchBuffer result = drain(join);
+    assertEquals(Schema.merge(JoinTestUtils.leftSchema, JoinTestUtils.rightSchema), result.getSchema());
+    assertEquals(5, result.numTuples());
+  }
+
+  @Test
+  public void testBuildsOnSmallerSide() throws DbException {
+    final int[] all = new int[] { 0, 1 };
+    final int threshold = 5000;
+    TupleBatchBuffer large = TestUtils.generateRandomTuples(4 * TupleBatch.BATCH_SIZE, 10000, false);
+    TupleBatchBuffer small = TestUtils.generateRandomTuples(2000, 10000, false);
+
+    /* The large side reaches the threshold first, whichever child it is. */
+    AdaptiveHashJoin join =
+        new AdaptiveHashJoin(OUTPUT_COLUMNS, new TupleSource(large), new TupleSource(small), new int[] { 0 },
+            new int[] { 0 }, all, all, threshold);
+    TupleBatchBuffer result = drain(join);
+    assertEquals(1, join.getBuildSide());
+    TupleBatchBuffer expected =
+        drain(new RightHashJoin(OUTPUT_COLUMNS, new TupleSource(large), new TupleSource(small), new int[] { 0 },
+            new int[] { 0 }, all, all));
+    TestUtils.assertTupleBagEqual(TestUtils.tupleBatchToTupleBag(expected), TestUtils.tupleBatchToTupleBag(result));
+
+    join =
+        new AdaptiveHashJoin(OUTPUT_COLUMNS, new TupleSource(small), new TupleSource(large), new int[] { 0 },
+            new int[] { 0 }, all, all, threshold);
+    result = drain(join);
+    assertEquals(0, join.getBuildSide());
+    expected =
+        drain(new RightHashJoin(OUTPUT_COLUMNS, new TupleSource(small), new TupleSource(large), new int[] { 0 },
+            new int[] { 0 }, all, all));
+    TestUtils.assertTupleBagEqual(TestUtils.tupleBatchToTupleBag(expected), TestUtils.tupleBatchToTupleBag(result));
+  }
+
+  @Test
+  public void testNullKeysJoinNothing() throws DbException {
+    final Schema schema = Schema.ofFields("k", Type.LONG_TYPE, "v", Type.LONG_TYPE);
+    final int[] all = new int[] { 0, 1 };
+    TupleBatchBuffer left = new TupleBatchBuffer(schema);
+    TupleBatchBuffer right = new TupleBatchBuffer(schema);
+    for (int i = 0; i < 10; ++i) {
+      left.putLong(0, i % 5);
+      left.putLong(1, i);
+      right.putLong(0, i % 2);
+      right.putLong(1, i);
+      if (i % 3 == 0) {
+        left.putNull(0);
+        left.putLong(1, -i);
+        right.putNull(0);
+        right.putLong(1, -i);
+      }
+    }
+
+    /* Keys 0 and 1 each appear twice on the left and 5 times on the right. Nulls match nothing, not even nulls. */
+    final int expected = 2 * 2 * 5;
+    assertEquals(expected, drain(
+        new AdaptiveHashJoin(OUTPUT_COLUMNS, new TupleSource(left), new TupleSource(right), new int[] { 0 },
+            new int[] { 0 }, all, all, 3)).numTuples());
+    assertEquals(expected, drain(
+        new RightHashJoin(OUTPUT_COLUMNS, new TupleSource(left), new TupleSource(right), new int[] { 0 },
+            new int[] { 0 }, all, all)).numTuples());
+    assertEquals(expected, drain(
+        new SymmetricHashJoin(OUTPUT_COLUMNS, new TupleSource(left), new TupleSource(right), new int[] { 0 },
+            new int[] { 0 }, all, all)).numTuples());
+  }
+}
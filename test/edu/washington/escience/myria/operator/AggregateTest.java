@@ -36,10 +36,13 @@ import edu.washington.escience.myria.column.builder.LongColumnBuilder;
 import edu.washington.escience.myria.column.builder.StringColumnBuilder;
 import edu.washington.escience.myria.operator.agg.Aggregate;
 import edu.washington.escience.myria.operator.agg.AggregatorFactory;
+import edu.washington.escience.myria.operator.agg.CountAllAggregatorFactory;
+import edu.washington.escience.myria.operator.agg.IncrementalAggregates;
 import edu.washington.escience.myria.operator.agg.MultiGroupByAggregate;
 import edu.washington.escience.myria.operator.agg.PrimitiveAggregator.AggregationOp;
 import edu.washington.escience.myria.operator.agg.SingleColumnAggregatorFactory;
 import edu.washington.escience.myria.operator.agg.SingleGroupByAggregate;
+import edu.washington.escience.myria.operator.agg.SortedGroupByAggregate;
 import edu.washington.escience.myria.storage.TupleBatch;
 import edu.washington.escience.myria.storage.TupleBatchBuffer;
 import edu.washington.escience.myria.storage.TupleBuffer;
@@ -916,4 +919,85 @@ public class AggregateTest {
     LongColumnBuilder builder = new LongColumnBuilder().appendLong(Long.MIN_VALUE + 1).appendLong(-3);
     doAggOpsToCol(builder, new AggregationOp[] { AggregationOp.SUM }, true);
   }
+
+  @Test
+  public void testSortedGroupByMatchesHash() throws DbException {
+    final TupleBatchBuffer tuples =
+        TestUtils.generateRandomTuples(3 * TupleBatch.BATCH_SIZE + 7, 10 * TupleBatch.BATCH_SIZE, true);
+    final AggregatorFactory[] agg =
+        new AggregatorFactory[] {
+            new SingleColumnAggregatorFactory(1, AggregationOp.MAX),
+            new SingleColumnAggregatorFactory(0, AggregationOp.COUNT, AggregationOp.SUM) };
+
+    TupleBatchBuffer sorted = drain(new SortedGroupByAggregate(new TupleSource(tuples), new int[] { 0 }, agg));
+    TupleBatchBuffer hashed = drain(new SingleGroupByAggregate(new TupleSource(tuples), 0, agg));
+    assertTrue(sorted.numTuples() > TupleBatch.BATCH_SIZE);
+    TestUtils.assertTupleBagEqual(TestUtils.tupleBatchToTupleBag(hashed), TestUtils.tupleBatchToTupleBag(sorted));
+
+    sorted = drain(new SortedGroupByAggregate(new TupleSource(tuples), new int[] { 0, 1 }, agg));
+    hashed = drain(new MultiGroupByAggregate(new TupleSource(tuples), new int[] { 0, 1 }, agg));
+    TestUtils.assertTupleBagEqual(TestUtils.tupleBatchToTupleBag(hashed), TestUtils.tupleBatchToTupleBag(sorted));
+  }
+
+  @Test
+  public void testDirectGroupByMatchesHash() throws DbException {
+    final AggregatorFactory[] agg =
+        new AggregatorFactory[] {
+            new SingleColumnAggregatorFactory(1, AggregationOp.MIN),
+            new SingleColumnAggregatorFactory(0, AggregationOp.COUNT, AggregationOp.SUM) };
+    /* keys in a small range, without then with a key far from them once some batches are aggregated. */
+    TupleBatchBuffer narrow = TestUtils.generateRandomTuples(3 * TupleBatch.BATCH_SIZE, 1000, false);
+    TupleBatchBuffer wide = TestUtils.generateRandomTuples(3 * TupleBatch.BATCH_SIZE, 1000, false);
+    wide.putLong(0, Long.MIN_VALUE);
+    wide.putString(1, "far");
+    for (TupleBatchBuffer input : new TupleBatchBuffer[] { narrow, wide }) {
+      TupleBatchBuffer direct = drain(new SingleGroupByAggregate(new TupleSource(input), 0, agg));
+      TupleBatchBuffer sorted =
+          drain(new SortedGroupByAggregate(new InMemoryOrderBy(new TupleSource(input), new int[] { 0 },
+              new boolean[] { true }), new int[] { 0 }, agg));
+      assertTrue(direct.numTuples() > 900);
+      TestUtils.assertTupleBagEqual(TestUtils.tupleBatchToTupleBag(sorted), TestUtils.tupleBatchToTupleBag(direct));
+    }
+  }
+
+  @Test
+  public void testIncrementalMatchesFull() throws DbException {
+    final AggregatorFactory[] agg =
+        new AggregatorFactory[] {
+            new CountAllAggregatorFactory(),
+            new SingleColumnAggregatorFactory(1, AggregationOp.MIN, AggregationOp.MAX, AggregationOp.COUNT),
+            new SingleColumnAggregatorFactory(0, AggregationOp.SUM) };
+    TupleBatchBuffer old = TestUtils.generateRandomTuples(2 * TupleBatch.BATCH_SIZE, 100, false);
+    TupleBatchBuffer appended = TestUtils.generateRandomTuples(TupleBatch.BATCH_SIZE + 7, 200, false);
+    for (int[] groupFields : new int[][] { { 0 }, { 1, 0 } }) {
+      Operator partial = IncrementalAggregates.partialAggregate(new TupleSource(old), groupFields, agg);
+      Schema stateSchema = partial.getSchema();
+      TupleBatchBuffer view =
+          drain(IncrementalAggregates.mergeAggregate(partial, groupFields.length, agg, stateSchema));
+
+      /* merge the aggregates of the appended tuples into the view. */
+      partial = IncrementalAggregates.partialAggregate(new TupleSource(appended), groupFields, agg);
+      TupleBatchBuffer refreshed =
+          drain(IncrementalAggregates.mergeAggregate(new UnionAll(new Operator[] { partial, new TupleSource(view) }),
+              groupFields.length, agg, stateSchema));
+      TupleBatchBuffer full =
+          drain(IncrementalAggregates.partialAggregate(new UnionAll(new Operator[] {
+              new TupleSource(old), new TupleSource(appended) }), groupFields, agg));
+      assertEquals(stateSchema, refreshed.getSchema());
+      TestUtils.assertTupleBagEqual(TestUtils.tupleBatchToTupleBag(full), TestUtils.tupleBatchToTupleBag(refreshed));
+    }
+  }
+
+  private static TupleBatchBuffer drain(final Operator op) throws DbException {
+    op.open(TestEnvVars.get());
+    TupleBatchBuffer result = new TupleBatchBuffer(op.getSchema());
+    while (!op.eos()) {
+      TupleBatch tb = op.nextReady();
+      if (tb != null) {
+        tb.compactInto(result);
+      }
+    }
+    op.close();
+    return result;
+  }
 }
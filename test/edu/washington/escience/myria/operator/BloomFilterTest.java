@@ -0,0 +1,65 @@
+package edu.washington.escience.myria.operator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.storage.TupleBatchBuffer;
+
+public class BloomFilterTest {
+
+  private static final Schema SCHEMA = Schema.ofFields("k", Type.LONG_TYPE, "v", Type.STRING_TYPE);
+
+  /** Tuples (k, "v" + k) for k = from, from + step, ... below to. */
+  private static TupleBatchBuffer keys(final long from, final long to, final long step) {
+    TupleBatchBuffer tuples = new TupleBatchBuffer(SCHEMA);
+    for (long k = from; k < to; k += step) {
+      tuples.putLong(0, k);
+      tuples.putString(1, "v" + k);
+    }
+    return tuples;
+  }
+
+  @Test
+  public void testSemiJoinReduction() throws DbException {
+    final int numBits = 1 << 16;
+    final int numHashes = 5;
+    /* Two "workers" each build a filter of half of the 1000 dimension keys, which are multiples of 100. */
+    Operator filters =
+        new UnionAll(new Operator[] {
+            new BloomFilterBuild(new TupleSource(keys(0, 50000, 100)), new int[] { 0 }, numBits, numHashes),
+            new BloomFilterBuild(new TupleSource(keys(50000, 100000, 100)), new int[] { 0 }, numBits, numHashes) });
+    TupleBatchBuffer facts = keys(0, 100000, 1);
+    facts.putNull(0);
+    facts.putString(1, "null");
+    BloomFilterProbe probe = new BloomFilterProbe(filters, new TupleSource(facts), new int[] { 0 }, numBits, numHashes);
+
+    probe.open(null);
+    Set<Long> passed = new HashSet<>();
+    while (!probe.eos()) {
+      TupleBatch tb = probe.nextReady();
+      if (tb != null) {
+        for (int row = 0; row < tb.numTuples(); ++row) {
+          passed.add(tb.getLong(0, row));
+        }
+      }
+    }
+    assertEquals(100001, probe.getNumTuplesIn());
+    assertEquals(passed.size(), probe.getNumTuplesOut());
+    probe.close();
+
+    for (long k = 0; k < 100000; k += 100) {
+      assertTrue("missing key " + k, passed.contains(k));
+    }
+    /* About 10^-5 false positives at 64 bits per key and 5 hashes. */
+    assertTrue("passed " + passed.size(), passed.size() < 1010);
+  }
+}
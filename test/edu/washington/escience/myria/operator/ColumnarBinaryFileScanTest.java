@@ -0,0 +1,145 @@
+package edu.washington.escience.myria.operator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.io.output.ByteArrayOutputStream;
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import edu.washington.escience.myria.ColumnarBinaryTupleWriter;
+import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.client.ColumnarBinaryReader;
+import edu.washington.escience.myria.io.ByteArraySource;
+import edu.washington.escience.myria.io.DataSource;
+import edu.washington.escience.myria.io.FileSource;
+import edu.washington.escience.myria.io.MappedFileInput;
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.storage.TupleBuffer;
+
+public class ColumnarBinaryFileScanTest {
+
+  private static final Schema SCHEMA = new Schema(ImmutableList.of(Type.LONG_TYPE, Type.STRING_TYPE,
+      Type.DATETIME_TYPE), ImmutableList.of("id", "name", "time"));
+
+  private static final int NUM_TUPLES = 3 * TupleBatch.BATCH_SIZE + 7;
+
+  private byte[] generateData() throws IOException {
+    TupleBuffer tuples = new TupleBuffer(SCHEMA);
+    for (int i = 0; i < NUM_TUPLES; ++i) {
+      tuples.putLong(0, i);
+      tuples.putString(1, "name " + i);
+      tuples.putDateTime(2, new DateTime(2000, 1, 1, 0, 0, 0).plusSeconds(i));
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ColumnarBinaryTupleWriter writer = new ColumnarBinaryTupleWriter(out, SCHEMA);
+    writer.writeColumnHeaders(SCHEMA.getColumnNames());
+    writer.writeTuples(tuples);
+    writer.done();
+    return out.toByteArray();
+  }
+
+  private File generateFile() throws IOException {
+    File file = File.createTempFile("columnarbinaryfilescan", ".bin");
+    file.deleteOnExit();
+    try (FileOutputStream out = new FileOutputStream(file)) {
+      out.write(generateData());
+    }
+    return file;
+  }
+
+  private static int checkTuples(final Operator scan) throws DbException {
+    scan.open(null);
+    int count = 0;
+    while (!scan.eos()) {
+      TupleBatch tb = scan.nextReady();
+      if (tb == null) {
+        continue;
+      }
+      assertEquals(scan.getSchema(), tb.getSchema());
+      for (int i = 0; i < tb.numTuples(); ++i, ++count) {
+        assertEquals(count, tb.getLong(0, i));
+        assertEquals("name " + count, tb.getString(1, i));
+        assertEquals(new DateTime(2000, 1, 1, 0, 0, 0).plusSeconds(count), tb.getDateTime(2, i));
+      }
+    }
+    scan.close();
+    return count;
+  }
+
+  @Test
+  public void testMappedFile() throws IOException, DbException {
+    File file = generateFile();
+    assertEquals(NUM_TUPLES, checkTuples(new ColumnarBinaryFileScan(SCHEMA, new FileSource(file.getPath()))));
+  }
+
+  @Test
+  public void testStream() throws IOException, DbException {
+    ColumnarBinaryFileScan scan = new ColumnarBinaryFileScan(SCHEMA, new ByteArraySource(generateData()));
+    assertEquals(NUM_TUPLES, checkTuples(scan));
+  }
+
+  @Test
+  public void testRenamedColumns() throws IOException, DbException {
+    Schema renamed = Schema.ofFields("a", Type.LONG_TYPE, "b", Type.STRING_TYPE, "c", Type.DATETIME_TYPE);
+    ColumnarBinaryFileScan scan = new ColumnarBinaryFileScan(renamed, new ByteArraySource(generateData()));
+    assertEquals(NUM_TUPLES, checkTuples(scan));
+  }
+
+  @Test(expected = DbException.class)
+  public void testWrongSchema() throws IOException, DbException {
+    Schema wrong = Schema.ofFields("id", Type.INT_TYPE, "name", Type.STRING_TYPE, "time", Type.DATETIME_TYPE);
+    new ColumnarBinaryFileScan(wrong, new ByteArraySource(generateData())).open(null);
+  }
+
+  @Test
+  public void testInputClosedOnBadHeader() throws IOException {
+    final AtomicBoolean closed = new AtomicBoolean(false);
+    DataSource source = new DataSource() {
+      @Override
+      public InputStream getInputStream() {
+        return new ByteArrayInputStream("not columnar binary".getBytes(StandardCharsets.US_ASCII)) {
+          @Override
+          public void close() throws IOException {
+            closed.set(true);
+            super.close();
+          }
+        };
+      }
+    };
+    try {
+      new ColumnarBinaryFileScan(SCHEMA, source).open(null);
+      fail("the header should not be read");
+    } catch (DbException e) {
+      assertTrue(closed.get());
+    }
+  }
+
+  @Test
+  public void testSmallMappedWindows() throws IOException {
+    File file = generateFile();
+    try (ColumnarBinaryReader reader = new ColumnarBinaryReader(new MappedFileInput(file.toPath(), 1000))) {
+      int count = 0;
+      for (TupleBatch tb = reader.next(); tb != null; tb = reader.next()) {
+        for (int i = 0; i < tb.numTuples(); ++i, ++count) {
+          assertEquals(count, tb.getLong(0, i));
+          assertEquals("name " + count, tb.getString(1, i));
+        }
+      }
+      assertEquals(NUM_TUPLES, count);
+    }
+  }
+}
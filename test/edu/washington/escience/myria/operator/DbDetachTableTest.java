@@ -0,0 +1,140 @@
+package edu.washington.escience.myria.operator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.almworks.sqlite4java.SQLiteConnection;
+import com.almworks.sqlite4java.SQLiteStatement;
+import com.google.common.collect.ImmutableList;
+
+import edu.washington.escience.myria.MyriaConstants;
+import edu.washington.escience.myria.RelationKey;
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.accessmethod.SQLiteInfo;
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.storage.TupleBatchBuffer;
+import edu.washington.escience.myria.util.FSUtils;
+
+public class DbDetachTableTest {
+
+  private final Schema schema = new Schema(ImmutableList.of(Type.LONG_TYPE), ImmutableList.of("x"));
+  private final RelationKey baseKey = RelationKey.of("test", "test", "base");
+  private final RelationKey changelogKey = RelationKey.of("test", "delta", "base");
+  private final RelationKey detachedKey = RelationKey.of("test", "detached", "base");
+  private final RelationKey snapshotKey = RelationKey.of("test", "snapshot", "base");
+
+  private Path tempDir;
+  private SQLiteInfo connectionInfo;
+
+  @Before
+  public void setUp() throws Exception {
+    Logger.getLogger("com.almworks.sqlite4java").setLevel(Level.SEVERE);
+    tempDir = Files.createTempDirectory(MyriaConstants.SYSTEM_NAME + "_DbDetachTableTest");
+    connectionInfo = SQLiteInfo.of(new File(tempDir.toString(), "DbDetachTableTest.db").getAbsolutePath());
+  }
+
+  @After
+  public void cleanUp() throws Exception {
+    FSUtils.blockingDeleteDirectory(tempDir.toString());
+  }
+
+  private TupleBatch batch(final int numTuples) {
+    TupleBatchBuffer tbb = new TupleBatchBuffer(schema);
+    for (int i = 0; i < numTuples; ++i) {
+      tbb.putLong(0, i);
+    }
+    TupleBatch tb = tbb.popAny();
+    assertNotNull(tb);
+    return tb;
+  }
+
+  private DbInsert append(final TupleBatch tb) {
+    return new DbInsert(new TupleSource(tb), baseKey, connectionInfo, false, null, ImmutableList.of(changelogKey));
+  }
+
+  private void detach() throws Exception {
+    drain(new DbDetachTable(changelogKey, detachedKey, schema, connectionInfo));
+  }
+
+  /** Open the operator if needed, and run it to the end. */
+  private void drain(final RootOperator op) throws Exception {
+    if (!op.isOpen()) {
+      op.open(null);
+    }
+    while (!op.eos()) {
+      op.nextReady();
+    }
+    op.close();
+  }
+
+  private int count(final RelationKey relationKey) throws Exception {
+    SQLiteConnection sqliteConnection = new SQLiteConnection(new File(connectionInfo.getDatabaseFilename()));
+    sqliteConnection.open(false);
+    try {
+      SQLiteStatement statement =
+          sqliteConnection
+              .prepare("SELECT COUNT(*) FROM " + relationKey.toString(MyriaConstants.STORAGE_SYSTEM_SQLITE));
+      statement.step();
+      return statement.columnInt(0);
+    } finally {
+      sqliteConnection.dispose();
+    }
+  }
+
+  @Test
+  public void appendDuringDetach() throws Exception {
+    /* A missing table is detached empty. */
+    detach();
+    assertEquals(0, count(detachedKey));
+    assertEquals(0, count(changelogKey));
+
+    /* One append is done, another one has started when the changelog is detached and writes its tuples after. */
+    drain(append(batch(3)));
+    DbInsert running = append(batch(5));
+    running.open(null);
+    detach();
+    drain(running);
+
+    assertEquals(8, count(baseKey));
+    assertEquals(3, count(detachedKey));
+    assertEquals(5, count(changelogKey));
+
+    /* Detaching again replaces the tuples detached before. */
+    detach();
+    assertEquals(5, count(detachedKey));
+    assertEquals(0, count(changelogKey));
+  }
+
+  @Test
+  public void snapshotDuringAppend() throws Exception {
+    /* One append is done, another one has started when the changelog is detached and the base table is copied. */
+    drain(append(batch(3)));
+    DbInsert running = append(batch(5));
+    running.open(null);
+    drain(new DbDetachTable(changelogKey, detachedKey, schema, baseKey, snapshotKey, connectionInfo));
+    drain(running);
+
+    /* The snapshot holds the detached tuples, and the tuples still logged are not in it. */
+    assertEquals(8, count(baseKey));
+    assertEquals(3, count(snapshotKey));
+    assertEquals(3, count(detachedKey));
+    assertEquals(5, count(changelogKey));
+
+    /* Taking a snapshot again replaces the one taken before. */
+    drain(new DbDetachTable(changelogKey, detachedKey, schema, baseKey, snapshotKey, connectionInfo));
+    assertEquals(8, count(snapshotKey));
+    assertEquals(5, count(detachedKey));
+    assertEquals(0, count(changelogKey));
+  }
+}
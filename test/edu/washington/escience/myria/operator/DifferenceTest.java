@@ -94,4 +94,29 @@ public class DifferenceTest {
     BinaryOperator diff = new Difference(left, right);
     diff.open(null);
   }
+
+  @Test
+  public void testSorted() throws Exception {
+    TupleBatchBuffer left = TestUtils.generateRandomTuples(20000, 3000, true);
+    TupleBatchBuffer right = TestUtils.generateRandomTuples(8000, 3000, true);
+
+    TupleBatchBuffer expected = drain(new Difference(new TupleSource(left), new TupleSource(right)));
+    TupleBatchBuffer result =
+        drain(new SortedDifference(new TupleSource(left), new TupleSource(right), new int[] { 0, 1 }, new boolean[] {
+            true, true }));
+    TestUtils.assertTupleBagEqual(TestUtils.tupleBatchToTupleBag(expected), TestUtils.tupleBatchToTupleBag(result));
+  }
+
+  private static TupleBatchBuffer drain(final Operator op) throws DbException {
+    op.open(null);
+    TupleBatchBuffer result = new TupleBatchBuffer(op.getSchema());
+    while (!op.eos()) {
+      TupleBatch tb = op.nextReady();
+      if (tb != null) {
+        tb.compactInto(result);
+      }
+    }
+    op.close();
+    return result;
+  }
 }
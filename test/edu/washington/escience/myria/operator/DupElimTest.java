@@ -2,6 +2,8 @@ package edu.washington.escience.myria.operator;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.util.List;
 
@@ -10,10 +12,13 @@ import org.junit.Test;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import com.gs.collections.impl.list.mutable.primitive.IntArrayList;
 
 import edu.washington.escience.myria.DbException;
 import edu.washington.escience.myria.Schema;
 import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.column.LongColumn;
+import edu.washington.escience.myria.storage.SemiNaiveRelation;
 import edu.washington.escience.myria.storage.TupleBatch;
 import edu.washington.escience.myria.storage.TupleBatchBuffer;
 import edu.washington.escience.myria.util.TestEnvVars;
@@ -114,4 +119,33 @@ public class DupElimTest {
     assertEquals(3, ans.get(0).numTuples());
     assertEquals(1, ans.get(1).numTuples());
   }
+
+  @Test
+  public void testSemiNaiveRelation() {
+    List<TupleBatch> data = makeTestData();
+    SemiNaiveRelation relation = new SemiNaiveRelation(data.get(0).getSchema(), null);
+    /* The unique tuples are copied out of the batch rather than filtered from it. */
+    TupleBatch inserted = relation.insert(data.get(0));
+    assertEquals(3, inserted.numTuples());
+    assertTrue(inserted.getDataColumns().get(3) instanceof LongColumn);
+    assertEquals(-4000000000L, inserted.getLong(3, 1));
+    assertEquals("row1", inserted.getString(4, 2));
+
+    /* An index added later covers the tuples already in the relation. */
+    int byString = relation.addIndex(new int[] { 4 });
+    assertEquals(0, relation.insert(data.get(1)).numTuples());
+    /* A batch whose tuples are all new is returned as is. */
+    TupleBatch last = data.get(3);
+    assertSame(last, relation.insert(last));
+    assertEquals(4, relation.numTuples());
+
+    /* The tuples with string "row1" are rows 2 and 3, and only the rows before the end are matched. */
+    IntArrayList matches = new IntArrayList();
+    relation.probe(byString, last, new int[] { 4 }, 0, 3, matches);
+    assertEquals(IntArrayList.newListWith(2), matches);
+    matches.clear();
+    relation.probe(byString, last, new int[] { 4 }, 0, 4, matches);
+    assertEquals(IntArrayList.newListWith(2, 3), matches);
+    assertEquals("row1", relation.getTuples().getString(4, matches.get(1)));
+  }
 }
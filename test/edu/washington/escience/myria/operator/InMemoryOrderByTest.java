@@ -11,6 +11,8 @@ import java.util.Map.Entry;
 import org.junit.Test;
 
 import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
 import edu.washington.escience.myria.storage.TupleBatch;
 import edu.washington.escience.myria.storage.TupleBatchBuffer;
 import edu.washington.escience.myria.util.TestUtils;
@@ -82,4 +84,39 @@ public class InMemoryOrderByTest {
     }
   }
 
+  @Test
+  public void testNullsSortFirst() throws DbException {
+    Schema schema = Schema.ofFields("x", Type.LONG_TYPE);
+    TupleBatchBuffer input = new TupleBatchBuffer(schema);
+    input.putLong(0, 3);
+    input.putNull(0);
+    input.putLong(0, -1);
+    input.putNull(0);
+    input.putLong(0, 0);
+
+    for (boolean ascending : new boolean[] { true, false }) {
+      InMemoryOrderBy order = new InMemoryOrderBy(new TupleSource(input), new int[] { 0 }, new boolean[] { ascending });
+      order.open(null);
+      TupleBatchBuffer sorted = new TupleBatchBuffer(schema);
+      while (!order.eos()) {
+        TupleBatch tb = order.nextReady();
+        if (tb != null) {
+          tb.compactInto(sorted);
+        }
+      }
+      order.close();
+
+      TupleBatch tb = sorted.popAny();
+      assertEquals(5, tb.numTuples());
+      if (ascending) {
+        assertTrue(tb.isNull(0, 0) && tb.isNull(0, 1));
+        assertEquals(-1, tb.getLong(0, 2));
+        assertEquals(3, tb.getLong(0, 4));
+      } else {
+        assertEquals(3, tb.getLong(0, 0));
+        assertEquals(-1, tb.getLong(0, 2));
+        assertTrue(tb.isNull(0, 3) && tb.isNull(0, 4));
+      }
+    }
+  }
 }
@@ -1,8 +1,11 @@
 package edu.washington.escience.myria.operator;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.nio.file.Paths;
+import java.util.Random;
 
 import org.junit.Test;
 
@@ -347,4 +350,110 @@ public class LeapFrogJoinTest {
     join.close();
     assertEquals(9, batches.numTuples());
   }
+
+  @Test
+  public void unsortedTriangleWithStringsAndNulls() throws DbException {
+    /* Query: Result(x,y,z) :- R(x,y),S(y,z),T(z,x), with y a string and unsorted inputs. */
+    final Schema r_schema = Schema.ofFields("r_x", Type.LONG_TYPE, "r_y", Type.STRING_TYPE);
+    final Schema s_schema = Schema.ofFields("s_y", Type.STRING_TYPE, "s_z", Type.INT_TYPE);
+    final Schema t_schema = Schema.ofFields("t_z", Type.LONG_TYPE, "t_x", Type.LONG_TYPE);
+    final int numEdges = 1000;
+    final int numVertices = 30;
+    Random random = new Random(47);
+    TupleBatchBuffer r = new TupleBatchBuffer(r_schema);
+    TupleBatchBuffer s = new TupleBatchBuffer(s_schema);
+    TupleBatchBuffer t = new TupleBatchBuffer(t_schema);
+    for (int i = 0; i < numEdges; ++i) {
+      r.putLong(0, random.nextInt(numVertices));
+      r.putString(1, "v" + random.nextInt(numVertices));
+      s.putString(0, "v" + random.nextInt(numVertices));
+      s.putInt(1, random.nextInt(numVertices));
+      t.putLong(0, random.nextInt(numVertices));
+      t.putLong(1, random.nextInt(numVertices));
+    }
+    r.putNull(0);
+    r.putString(1, "v0");
+    s.putString(0, "v0");
+    s.putNull(1);
+
+    /* count the triangles by nested loops. */
+    long expected = 0;
+    TupleBatch rTB = r.popAny();
+    TupleBatch sTB = s.popAny();
+    TupleBatch tTB = t.popAny();
+    for (int i = 0; i < rTB.numTuples(); ++i) {
+      for (int j = 0; j < sTB.numTuples(); ++j) {
+        if (rTB.isNull(0, i) || sTB.isNull(1, j) || !rTB.getString(1, i).equals(sTB.getString(0, j))) {
+          continue;
+        }
+        for (int k = 0; k < tTB.numTuples(); ++k) {
+          if (tTB.getLong(0, k) == sTB.getInt(1, j) && tTB.getLong(1, k) == rTB.getLong(0, i)) {
+            expected++;
+          }
+        }
+      }
+    }
+
+    int[][][] fieldMap = new int[][][] { { { 0, 0 }, { 2, 1 } }, { { 0, 1 }, { 1, 0 } }, { { 1, 1 }, { 2, 0 } } };
+    int[][] outputMap = new int[][] { { 0, 0 }, { 0, 1 }, { 1, 1 } };
+    LeapFrogJoin join =
+        new LeapFrogJoin(new Operator[] { new TupleSource(rTB), new TupleSource(sTB), new TupleSource(tTB) },
+            fieldMap, outputMap, ImmutableList.of("x", "y", "z"), null);
+    join.open(null);
+    long numTuples = 0;
+    while (!join.eos()) {
+      TupleBatch tb = join.nextReady();
+      if (tb != null) {
+        for (int i = 0; i < tb.numTuples(); ++i) {
+          assertFalse(tb.isNull(0, i) || tb.isNull(2, i));
+        }
+        numTuples += tb.numTuples();
+      }
+    }
+    join.close();
+    assertTrue(expected > TupleBatch.BATCH_SIZE);
+    assertEquals(expected, numTuples);
+  }
+
+  @Test
+  public void joinOnDoublesAndMixedTypes() throws DbException {
+    /* Query: Result(x,y) :- R(x,y),S(x,y), with x a double and y a float in R but a double in S. */
+    final Schema r_schema = Schema.ofFields("r_x", Type.DOUBLE_TYPE, "r_y", Type.FLOAT_TYPE);
+    final Schema s_schema = Schema.ofFields("s_x", Type.DOUBLE_TYPE, "s_y", Type.DOUBLE_TYPE);
+    TupleBatchBuffer r = new TupleBatchBuffer(r_schema);
+    TupleBatchBuffer s = new TupleBatchBuffer(s_schema);
+    for (int i = 0; i < 100; ++i) {
+      r.putDouble(0, i * 0.5);
+      r.putFloat(1, i);
+      s.putDouble(0, (i % 50) * 0.5);
+      s.putDouble(1, i);
+    }
+    int[][][] fieldMap = new int[][][] { { { 0, 0 }, { 1, 0 } }, { { 0, 1 }, { 1, 1 } } };
+    int[][] outputMap = new int[][] { { 0, 0 }, { 1, 0 } };
+
+    /* On x alone, each of the first 50 values of R matches two tuples of S. */
+    NAryOperator join =
+        new LeapFrogJoin(new Operator[] { new TupleSource(r), new TupleSource(s) }, new int[][][] { fieldMap[0] },
+            outputMap, ImmutableList.of("x1", "x2"), null);
+    assertEquals(100, countTuples(join));
+
+    /* A float value never equals a double value, so joining on y too yields nothing. */
+    join =
+        new LeapFrogJoin(new Operator[] { new TupleSource(r), new TupleSource(s) }, fieldMap, outputMap, ImmutableList
+            .of("x1", "x2"), null);
+    assertEquals(0, countTuples(join));
+  }
+
+  private static int countTuples(final Operator op) throws DbException {
+    int count = 0;
+    op.open(null);
+    while (!op.eos()) {
+      TupleBatch tb = op.nextReady();
+      if (tb != null) {
+        count += tb.numTuples();
+      }
+    }
+    op.close();
+    return count;
+  }
 }
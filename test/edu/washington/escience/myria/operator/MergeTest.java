@@ -6,6 +6,7 @@ import static org.junit.Assert.assertTrue;
 import java.util.AbstractMap.SimpleEntry;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Map.Entry;
 
 import org.junit.Test;
@@ -85,4 +86,44 @@ public class MergeTest {
 
   }
 
+  @Test
+  public void testMergeManyRuns() throws DbException {
+    /* Sort by name descending, then id ascending: not a prefix of the columns. */
+    final int[] sortColumns = new int[] { 1, 0 };
+    final boolean[] ascending = new boolean[] { false, true };
+    List<TupleBatch> all = new ArrayList<>();
+    TupleSource[] children = new TupleSource[64];
+    for (int i = 0; i < children.length; i++) {
+      List<TupleBatch> run = TestUtils.generateRandomTuples(100 * (i + 1), 5000, false).getAll();
+      all.addAll(run);
+      children[i] = new TupleSource(drain(new InMemoryOrderBy(new TupleSource(run), sortColumns, ascending)));
+    }
+
+    List<String> expected = keys(drain(new InMemoryOrderBy(new TupleSource(all), sortColumns, ascending)));
+    List<String> merged = keys(drain(new Merge(children, sortColumns, ascending)));
+    assertEquals(expected, merged);
+  }
+
+  private static List<TupleBatch> drain(final Operator op) throws DbException {
+    List<TupleBatch> result = new ArrayList<>();
+    op.open(null);
+    while (!op.eos()) {
+      TupleBatch tb = op.nextReady();
+      if (tb != null) {
+        result.add(tb);
+      }
+    }
+    op.close();
+    return result;
+  }
+
+  private static List<String> keys(final List<TupleBatch> batches) {
+    List<String> keys = new ArrayList<>();
+    for (TupleBatch tb : batches) {
+      for (int row = 0; row < tb.numTuples(); ++row) {
+        keys.add(tb.getString(1, row) + "/" + tb.getLong(0, row));
+      }
+    }
+    return keys;
+  }
 }
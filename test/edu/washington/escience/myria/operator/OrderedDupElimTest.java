@@ -53,4 +53,19 @@ public class OrderedDupElimTest {
     assertEquals(count, realCount);
   }
 
+  @Test(expected = DbException.class)
+  public void testSortColumnsMissingAColumn() throws DbException {
+    TupleSource child = new TupleSource(TestUtils.generateRandomTuples(100, 50, true));
+    /* The tuples have two columns, but the sort columns only name the first. */
+    OrderedDupElim dupElim = new OrderedDupElim(child, new int[] { 0 });
+    dupElim.open(null);
+  }
+
+  @Test
+  public void testSortColumnsInAnyOrder() throws DbException {
+    TupleSource child = new TupleSource(TestUtils.generateRandomTuples(100, 50, true));
+    OrderedDupElim dupElim = new OrderedDupElim(child, new int[] { 1, 0 });
+    dupElim.open(null);
+    dupElim.close();
+  }
 }
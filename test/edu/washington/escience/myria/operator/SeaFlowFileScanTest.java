@@ -3,11 +3,15 @@ package edu.washington.escience.myria.operator;
 import static org.junit.Assert.assertEquals;
 
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.Test;
 
 import edu.washington.escience.myria.DbException;
 import edu.washington.escience.myria.io.FileSource;
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.util.TestEnvVars;
 
 public class SeaFlowFileScanTest {
 
@@ -23,4 +27,40 @@ public class SeaFlowFileScanTest {
     /* This magic number comes from the first 4 bytes of the file, in little-Endian format. */
     assertEquals(0x5606, sink.getCount());
   }
+
+  /** Returns every tuple of the scan, in order. */
+  private static List<String> getRows(SeaFlowFileScan scan, int nodeId) throws DbException {
+    scan.open(TestEnvVars.get(nodeId));
+    List<String> rows = new ArrayList<>();
+    while (!scan.eos()) {
+      TupleBatch tb = scan.nextReady();
+      if (tb != null) {
+        for (int i = 0; i < tb.numTuples(); ++i) {
+          StringBuilder row = new StringBuilder();
+          for (int j = 0; j < tb.numColumns(); ++j) {
+            row.append(tb.getInt(j, i)).append(' ');
+          }
+          rows.add(row.toString());
+        }
+      }
+    }
+    scan.close();
+    return rows;
+  }
+
+  @Test
+  public void testWorkerShares() throws DbException {
+    FileSource source = new FileSource(Paths.get("testdata", "seaflow", "1.evt.opp").toString());
+    List<String> all = getRows(new SeaFlowFileScan(source), -1);
+    assertEquals(0x5606, all.size());
+
+    int[] workers = { 2, 5, 3 };
+    List<String> shares = new ArrayList<>();
+    for (int worker : workers) {
+      List<String> share = getRows(new SeaFlowFileScan(source, workers), worker);
+      assertEquals(0x5606 / workers.length, share.size(), 1);
+      shares.addAll(share);
+    }
+    assertEquals(all, shares);
+  }
 }
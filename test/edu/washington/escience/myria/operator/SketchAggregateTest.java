@@ -0,0 +1,150 @@
+package edu.washington.escience.myria.operator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.operator.agg.Aggregate;
+import edu.washington.escience.myria.operator.agg.ApproxCountDistinctAggregatorFactory;
+import edu.washington.escience.myria.operator.agg.HyperLogLog;
+import edu.washington.escience.myria.operator.agg.QuantileAggregatorFactory;
+import edu.washington.escience.myria.operator.agg.QuantileSketch;
+import edu.washington.escience.myria.operator.agg.SingleGroupByAggregate;
+import edu.washington.escience.myria.operator.agg.SketchAggregator.Phase;
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.storage.TupleBatchBuffer;
+
+public class SketchAggregateTest {
+
+  private static final Schema SCHEMA = new Schema(ImmutableList.of(Type.INT_TYPE, Type.LONG_TYPE, Type.STRING_TYPE),
+      ImmutableList.of("g", "v", "s"));
+
+  private static final int NUM_DISTINCT = 50000;
+
+  /** Tuples (i % 4, i % NUM_DISTINCT, "s" + i % 100) for i in [from, to). */
+  private static TupleBatchBuffer generate(final int from, final int to) {
+    TupleBatchBuffer tuples = new TupleBatchBuffer(SCHEMA);
+    for (int i = from; i < to; ++i) {
+      tuples.putInt(0, i % 4);
+      tuples.putLong(1, i % NUM_DISTINCT);
+      tuples.putString(2, "s" + i % 100);
+    }
+    return tuples;
+  }
+
+  /** Run an aggregate whose result fits in one batch. */
+  private static TupleBatch drain(final Operator op) throws DbException {
+    op.open(null);
+    TupleBatchBuffer result = new TupleBatchBuffer(op.getSchema());
+    while (!op.eos()) {
+      TupleBatch tb = op.nextReady();
+      if (tb != null) {
+        tb.compactInto(result);
+      }
+    }
+    op.close();
+    return result.popAny();
+  }
+
+  @Test
+  public void testApproxCountDistinct() throws DbException {
+    TupleBatch result =
+        drain(new Aggregate(new TupleSource(generate(0, 4 * NUM_DISTINCT)), new ApproxCountDistinctAggregatorFactory(1,
+            null, null), new ApproxCountDistinctAggregatorFactory(2, null, null)));
+    assertEquals(1, result.numTuples());
+    assertEquals(Type.LONG_TYPE, result.getSchema().getColumnType(0));
+    long estimate = result.getLong(0, 0);
+    assertTrue("estimate " + estimate, Math.abs(estimate - NUM_DISTINCT) < NUM_DISTINCT * 0.03);
+    /* Small cardinalities are nearly exact. */
+    assertEquals(100, result.getLong(1, 0));
+  }
+
+  @Test
+  public void testTwoPhaseMatchesComplete() throws DbException {
+    final int numTuples = 3 * NUM_DISTINCT;
+    TupleBatch complete =
+        drain(new SingleGroupByAggregate(new TupleSource(generate(0, numTuples)), 0,
+            new ApproxCountDistinctAggregatorFactory(1, Phase.COMPLETE, null), new QuantileAggregatorFactory(1,
+                new double[] { 0.5 }, Phase.COMPLETE, null)));
+
+    /* Four "workers" build partial sketches of a quarter of the input each. */
+    List<TupleBatch> partials = new ArrayList<>();
+    for (int w = 0; w < 4; ++w) {
+      TupleBatch partial =
+          drain(new SingleGroupByAggregate(new TupleSource(generate(w * numTuples / 4, (w + 1) * numTuples / 4)), 0,
+              new ApproxCountDistinctAggregatorFactory(1, Phase.PARTIAL, null), new QuantileAggregatorFactory(1,
+                  new double[] { 0.5 }, Phase.PARTIAL, null)));
+      assertEquals(Type.STRING_TYPE, partial.getSchema().getColumnType(1));
+      partials.add(partial);
+    }
+    TupleBatch merged =
+        drain(new SingleGroupByAggregate(new TupleSource(partials), 0, new ApproxCountDistinctAggregatorFactory(1,
+            Phase.FINAL, null), new QuantileAggregatorFactory(2, new double[] { 0.5 }, Phase.FINAL, null)));
+
+    assertEquals(4, complete.numTuples());
+    assertEquals(4, merged.numTuples());
+    assertEquals(complete.getSchema(), merged.getSchema());
+    assertEquals("quantile_50_v", merged.getSchema().getColumnName(2));
+    long[] distinct = new long[4];
+    double[] medians = new double[4];
+    for (int row = 0; row < 4; ++row) {
+      distinct[complete.getInt(0, row)] = complete.getLong(1, row);
+      medians[complete.getInt(0, row)] = complete.getDouble(2, row);
+    }
+    for (int row = 0; row < 4; ++row) {
+      int g = merged.getInt(0, row);
+      /* Merging HyperLogLog sketches is lossless. */
+      assertEquals(distinct[g], merged.getLong(1, row));
+      assertEquals(medians[g], merged.getDouble(2, row), NUM_DISTINCT * 0.03);
+      assertEquals(NUM_DISTINCT / 2.0, merged.getDouble(2, row), NUM_DISTINCT * 0.03);
+    }
+  }
+
+  @Test
+  public void testQuantileSketch() {
+    final int n = 1000000;
+    Random random = new Random(1);
+    QuantileSketch sketch = new QuantileSketch(QuantileSketch.DEFAULT_K);
+    for (int i = 0; i < n; ++i) {
+      sketch.add(random.nextDouble());
+    }
+    assertEquals(n, sketch.getCount());
+    QuantileSketch copy = QuantileSketch.fromBytes(sketch.toBytes());
+    for (double q : new double[] { 0.01, 0.25, 0.5, 0.9, 0.99 }) {
+      assertEquals(q, sketch.quantile(q), 0.02);
+      assertEquals(sketch.quantile(q), copy.quantile(q), 0);
+    }
+    assertTrue(sketch.toBytes().length < 32 * QuantileSketch.DEFAULT_K);
+  }
+
+  @Test
+  public void testHyperLogLogSerialization() {
+    HyperLogLog small = new HyperLogLog(HyperLogLog.DEFAULT_PRECISION);
+    HyperLogLog large = new HyperLogLog(HyperLogLog.DEFAULT_PRECISION);
+    Random random = new Random(1);
+    for (int i = 0; i < 10; ++i) {
+      small.add(random.nextLong());
+    }
+    for (int i = 0; i < 100000; ++i) {
+      large.add(random.nextLong());
+    }
+    /* A sparse sketch is far smaller than its registers. */
+    assertTrue(small.toBytes().length < 64);
+    assertEquals(2 + (1 << HyperLogLog.DEFAULT_PRECISION), large.toBytes().length);
+    assertEquals(small.estimate(), HyperLogLog.fromBytes(small.toBytes()).estimate());
+    assertEquals(large.estimate(), HyperLogLog.fromBytes(large.toBytes()).estimate());
+    HyperLogLog union = HyperLogLog.fromBytes(small.toBytes());
+    union.merge(large);
+    assertTrue(Math.abs(union.estimate() - 100010) < 100010 * 0.03);
+  }
+}
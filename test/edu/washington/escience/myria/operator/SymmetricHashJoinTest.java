@@ -4,8 +4,14 @@ import static org.junit.Assert.assertEquals;
 
 import org.junit.Test;
 
+import com.google.common.collect.ImmutableList;
+
 import edu.washington.escience.myria.DbException;
 import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.column.Column;
+import edu.washington.escience.myria.column.StringDictionary;
+import edu.washington.escience.myria.column.builder.StringColumnBuilder;
 import edu.washington.escience.myria.storage.TupleBatch;
 import edu.washington.escience.myria.util.JoinTestUtils;
 import edu.washington.escience.myria.util.TestEnvVars;
@@ -31,6 +37,41 @@ public class SymmetricHashJoinTest {
     assertEquals(5L, count);
   }
 
+  @Test
+  public void testDictionaryEncodedKeys() throws DbException {
+    /* Both inputs share a dictionary, so the hash table keeps the codes and probes compare them. */
+    StringDictionary dictionary = new StringDictionary();
+    Schema leftSchema = Schema.ofFields(Type.STRING_TYPE, "l");
+    Schema rightSchema = Schema.ofFields(Type.STRING_TYPE, "r");
+    StringColumnBuilder leftBuilder = new StringColumnBuilder(dictionary);
+    StringColumnBuilder rightBuilder = new StringColumnBuilder(dictionary);
+    for (int i = 0; i < 100; ++i) {
+      leftBuilder.appendString("v" + (i % 10));
+      rightBuilder.appendString("v" + (i % 20));
+    }
+    leftBuilder.appendNull();
+    rightBuilder.appendNull();
+    TupleSource left = new TupleSource(new TupleBatch(leftSchema, ImmutableList.<Column<?>> of(leftBuilder.build())));
+    TupleSource right =
+        new TupleSource(new TupleBatch(rightSchema, ImmutableList.<Column<?>> of(rightBuilder.build())));
+    Operator join = new SymmetricHashJoin(left, right, new int[] { 0 }, new int[] { 0 });
+    join.open(TestEnvVars.get());
+    long count = 0;
+    while (!join.eos()) {
+      TupleBatch tb = join.nextReady();
+      if (tb == null) {
+        continue;
+      }
+      for (int row = 0; row < tb.numTuples(); ++row) {
+        assertEquals(tb.getString(0, row), tb.getString(1, row));
+      }
+      count += tb.numTuples();
+    }
+    join.close();
+    /* Each of v0..v9 appears 10 times on the left and 5 times on the right, and the nulls join nothing. */
+    assertEquals(10 * 10 * 5, count);
+  }
+
   @Test(expected = IllegalStateException.class)
   public void testIncompatibleJoinKeys() throws DbException {
     TupleSource left = new TupleSource(JoinTestUtils.leftInput);
@@ -1,6 +1,7 @@
 package edu.washington.escience.myria.operator;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 import java.io.DataOutputStream;
 import java.io.File;
@@ -8,9 +9,16 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.junit.Test;
 
+import com.google.common.collect.ImmutableSet;
+
 import edu.washington.escience.myria.DbException;
 import edu.washington.escience.myria.Type;
 import edu.washington.escience.myria.expression.ConstantExpression;
@@ -96,6 +104,73 @@ public class TipsyFileScanTest {
     assertEquals(4, getRowCount(filter));
   }
 
+  /** Returns the iOrder, type and phi of every tuple, in order. */
+  private static List<String> getRows(Operator fileScan, int nodeId) throws DbException {
+    fileScan.open(TestEnvVars.get(nodeId));
+    List<String> rows = new ArrayList<>();
+    while (!fileScan.eos()) {
+      TupleBatch tb = fileScan.nextReady();
+      if (tb != null) {
+        for (int i = 0; i < tb.numTuples(); ++i) {
+          rows.add(tb.getLong(0, i) + " " + tb.getString(16, i) + " " + tb.getFloat(14, i));
+        }
+      }
+    }
+    fileScan.close();
+    return rows;
+  }
+
+  @Test
+  public void testWorkerShares() throws IOException, DbException {
+    String binFilename = "testdata" + File.separatorChar + "tipsyfilescan" + File.separatorChar + "tipsy3";
+    String iOrderFilename = "testdata" + File.separatorChar + "tipsyfilescan" + File.separatorChar + "iOrder3.iord";
+    String grpFilename = "testdata" + File.separatorChar + "tipsyfilescan" + File.separatorChar + "grp3.amiga.grp";
+    List<String> all = getRows(new TipsyFileScan(binFilename, iOrderFilename, grpFilename), -1);
+    assertEquals(9, all.size());
+
+    int[] workers = { 3, 1, 4, 2 };
+    List<String> shares = new ArrayList<>();
+    for (int worker : workers) {
+      List<String> share = getRows(new TipsyFileScan(binFilename, iOrderFilename, grpFilename, workers), worker);
+      assertEquals(9 / workers.length, share.size(), 1);
+      shares.addAll(share);
+    }
+    assertEquals(all, shares);
+  }
+
+  @Test
+  public void testColumnsNotStoredAreNull() throws IOException, DbException {
+    String binFilename = "testdata" + File.separatorChar + "tipsyfilescan" + File.separatorChar + "tipsy3";
+    String iOrderFilename = "testdata" + File.separatorChar + "tipsyfilescan" + File.separatorChar + "iOrder3.iord";
+    String grpFilename = "testdata" + File.separatorChar + "tipsyfilescan" + File.separatorChar + "grp3.amiga.grp";
+    /* The float columns of each particle type: mass, x, y, z, vx, vy, vz, then the ones below, then phi. */
+    Map<String, Set<Integer>> stored = new HashMap<>();
+    stored.put("gas", ImmutableSet.of(8, 9, 10, 11));
+    stored.put("dark", ImmutableSet.of(13));
+    stored.put("star", ImmutableSet.of(11, 12, 13));
+    TipsyFileScan filescan = new TipsyFileScan(binFilename, iOrderFilename, grpFilename);
+    filescan.open(TestEnvVars.get());
+    int count = 0;
+    while (!filescan.eos()) {
+      TupleBatch tb = filescan.nextReady();
+      if (tb == null) {
+        continue;
+      }
+      for (int row = 0; row < tb.numTuples(); ++row) {
+        Set<Integer> columns = stored.get(tb.getString(16, row));
+        for (int column = 8; column < 14; ++column) {
+          assertEquals(!columns.contains(column), tb.isNull(column, row));
+        }
+        for (int column : new int[] { 0, 1, 2, 3, 4, 5, 6, 7, 14, 15, 16 }) {
+          assertFalse(tb.isNull(column, row));
+        }
+        ++count;
+      }
+    }
+    filescan.close();
+    assertEquals(9, count);
+  }
+
   // @Test
   // the data is stored in /projects/db8/dataset_astro_2011/
   // this test took 161796 ms which is about 2.7 minutes on a i7 processor 8gb ram machine
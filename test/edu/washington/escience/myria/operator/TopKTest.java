@@ -0,0 +1,104 @@
+package edu.washington.escience.myria.operator;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import edu.washington.escience.myria.DbException;
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.storage.TupleBatchBuffer;
+import edu.washington.escience.myria.util.TestUtils;
+
+public class TopKTest {
+
+  private static final int[] SORT_COLUMNS = new int[] { 1, 0 };
+
+  private static final boolean[] ASCENDING = new boolean[] { false, true };
+
+  /** The (name, id) sort keys emitted by the operator, in order. */
+  private static List<String> keys(final Operator op) throws DbException {
+    op.open(null);
+    List<String> keys = new ArrayList<>();
+    while (!op.eos()) {
+      TupleBatch tb = op.nextReady();
+      if (tb != null) {
+        for (int row = 0; row < tb.numTuples(); ++row) {
+          keys.add(tb.getString(1, row) + "/" + tb.getLong(0, row));
+        }
+      }
+    }
+    op.close();
+    return keys;
+  }
+
+  /** The values of the single column emitted by the operator, in order. */
+  private static List<String> values(final Operator op) throws DbException {
+    op.open(null);
+    List<String> values = new ArrayList<>();
+    while (!op.eos()) {
+      TupleBatch tb = op.nextReady();
+      if (tb != null) {
+        for (int row = 0; row < tb.numTuples(); ++row) {
+          values.add(tb.isNull(0, row) ? "null" : Integer.toString(tb.getInt(0, row)));
+        }
+      }
+    }
+    op.close();
+    return values;
+  }
+
+  @Test
+  public void testTopKMatchesOrderBy() throws DbException {
+    List<TupleBatch> tuples = TestUtils.generateRandomTuples(52300, 5000, false).getAll();
+    List<String> sorted = keys(new InMemoryOrderBy(new TupleSource(tuples), SORT_COLUMNS, ASCENDING));
+    for (int k : new int[] { 0, 1, 1000, 52300, 60000 }) {
+      List<String> top = keys(new TopK(new TupleSource(tuples), SORT_COLUMNS, ASCENDING, k));
+      assertEquals(sorted.subList(0, Math.min(k, sorted.size())), top);
+    }
+  }
+
+  @Test
+  public void testLocalTopKs() throws DbException {
+    final int k = 500;
+    TupleBatchBuffer all = TestUtils.generateRandomTuples(40000, 5000, false);
+    List<TupleBatch> tuples = all.getAll();
+    List<String> expected = keys(new TopK(new TupleSource(tuples), SORT_COLUMNS, ASCENDING, k));
+
+    /* Each "worker" keeps its own top k, and the consumer merges them. */
+    Operator[] locals = new Operator[4];
+    for (int w = 0; w < locals.length; ++w) {
+      List<TupleBatch> part = new ArrayList<>();
+      for (int i = w; i < tuples.size(); i += locals.length) {
+        part.add(tuples.get(i));
+      }
+      locals[w] = new TopK(new TupleSource(part), SORT_COLUMNS, ASCENDING, k);
+    }
+    assertEquals(expected, keys(new TopK(new UnionAll(locals), SORT_COLUMNS, ASCENDING, k)));
+  }
+
+  @Test
+  public void testNullsFirst() throws DbException {
+    Schema schema = Schema.ofFields("x", Type.INT_TYPE);
+    TupleBatchBuffer tuples = new TupleBatchBuffer(schema);
+    for (int i = 0; i < 100; ++i) {
+      if (i % 10 == 0) {
+        tuples.putNull(0);
+      } else {
+        tuples.putInt(0, i);
+      }
+    }
+    for (boolean ascending : new boolean[] { true, false }) {
+      List<String> sorted =
+          values(new InMemoryOrderBy(new TupleSource(tuples), new int[] { 0 }, new boolean[] { ascending }));
+      List<String> top = values(new TopK(new TupleSource(tuples), new int[] { 0 }, new boolean[] { ascending }, 15));
+      assertEquals(sorted.subList(0, 15), top);
+    }
+    /* Ascending, the 10 nulls come before the 5 smallest values. */
+    assertEquals("null", values(new TopK(new TupleSource(tuples), new int[] { 0 }, new boolean[] { true }, 15)).get(9));
+  }
+}
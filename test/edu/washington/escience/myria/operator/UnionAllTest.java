@@ -146,4 +146,37 @@ public class UnionAllTest {
     UnionAll union = new UnionAll(children);
     union.open(TestEnvVars.get(2));
   }
+
+  @Test
+  public void testOrderedUnionAll() throws DbException {
+    TupleBatchBuffer[] randomTuples = new TupleBatchBuffer[3];
+    randomTuples[0] = TestUtils.generateRandomTuples(12300, 5000, false);
+    randomTuples[1] = TestUtils.generateRandomTuples(4200, 2000, false);
+    randomTuples[2] = TestUtils.generateRandomTuples(7000, 2000, false);
+
+    TupleSource[] children = new TupleSource[randomTuples.length];
+    List<Long> expected = new LinkedList<Long>();
+    for (int i = 0; i < randomTuples.length; ++i) {
+      children[i] = new TupleSource(randomTuples[i]);
+      for (TupleBatch tuples : randomTuples[i].getAll()) {
+        for (int j = 0; j < tuples.numTuples(); j++) {
+          expected.add(tuples.getLong(0, j));
+        }
+      }
+    }
+
+    UnionAll union = new UnionAll(children, true);
+    union.open(TestEnvVars.get());
+    List<Long> actual = new LinkedList<Long>();
+    while (!union.eos()) {
+      TupleBatch tb = union.nextReady();
+      if (tb != null) {
+        for (int i = 0; i < tb.numTuples(); i++) {
+          actual.add(tb.getLong(0, i));
+        }
+      }
+    }
+    union.close();
+    assertEquals(expected, actual);
+  }
 }
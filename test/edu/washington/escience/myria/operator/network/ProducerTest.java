@@ -0,0 +1,76 @@
+package edu.washington.escience.myria.operator.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+import org.junit.Test;
+
+import edu.washington.escience.myria.storage.TupleBatch;
+
+public class ProducerTest {
+
+  /**
+   * Write the pending batches of a channel the way {@link Producer#writePartitionsIntoChannels} does.
+   */
+  private static void drain(final Queue<TupleBatch> pending, final boolean usingTimeout, final boolean writable,
+      final List<TupleBatch> sent) {
+    while (!Producer.holdsBack(usingTimeout, 1, true, writable)) {
+      TupleBatch tb = pending.poll();
+      if (tb == null) {
+        break;
+      }
+      sent.add(tb);
+    }
+  }
+
+  @Test
+  public void testHoldsBack() {
+    assertTrue(Producer.holdsBack(true, 1, true, false));
+    /* flushes at EOI and EOS write everything. */
+    assertFalse(Producer.holdsBack(false, 1, true, false));
+    /* no priority column, or blocking execution: batches are written in arrival order. */
+    assertFalse(Producer.holdsBack(true, -1, true, false));
+    assertFalse(Producer.holdsBack(true, 1, false, false));
+    assertFalse(Producer.holdsBack(true, 1, true, true));
+  }
+
+  @Test
+  public void testHeldBatchesAreOvertaken() {
+    Queue<TupleBatch> pending = new TupleBatchPriorityQueue(1);
+    List<TupleBatch> sent = new ArrayList<TupleBatch>();
+
+    TupleBatch large = TupleBatchPriorityQueueTest.batch(50, 60);
+    pending.add(large);
+    drain(pending, true, false, sent);
+    assertTrue(sent.isEmpty());
+
+    TupleBatch small = TupleBatchPriorityQueueTest.batch(10);
+    pending.add(small);
+    drain(pending, true, false, sent);
+    assertTrue(sent.isEmpty());
+
+    TupleBatch medium = TupleBatchPriorityQueueTest.batch(30);
+    pending.add(medium);
+    drain(pending, true, true, sent);
+    assertEquals(3, sent.size());
+    assertEquals(small, sent.get(0));
+    assertEquals(medium, sent.get(1));
+    assertEquals(large, sent.get(2));
+  }
+
+  @Test
+  public void testFlushIgnoresWritability() {
+    Queue<TupleBatch> pending = new TupleBatchPriorityQueue(1);
+    List<TupleBatch> sent = new ArrayList<TupleBatch>();
+    pending.add(TupleBatchPriorityQueueTest.batch(5));
+    pending.add(TupleBatch.eoiTupleBatch(TupleBatchPriorityQueueTest.SCHEMA));
+    drain(pending, false, false, sent);
+    assertEquals(2, sent.size());
+    assertTrue(sent.get(1).isEOI());
+  }
+}
@@ -0,0 +1,77 @@
+package edu.washington.escience.myria.operator.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.storage.TupleBatchBuffer;
+
+public class TupleBatchPriorityQueueTest {
+
+  static final Schema SCHEMA = new Schema(ImmutableList.of(Type.LONG_TYPE, Type.LONG_TYPE), ImmutableList.of("id",
+      "value"));
+
+  static TupleBatch batch(final long... values) {
+    TupleBatchBuffer tbb = new TupleBatchBuffer(SCHEMA);
+    for (long v : values) {
+      tbb.putLong(0, 0);
+      tbb.putLong(1, v);
+    }
+    return tbb.popAny();
+  }
+
+  @Test
+  public void testSmallestValueFirst() {
+    TupleBatchPriorityQueue q = new TupleBatchPriorityQueue(1);
+    TupleBatch b7 = batch(9, 7, 8);
+    TupleBatch b2 = batch(5, 2);
+    TupleBatch b4 = batch(4, 100);
+    q.add(b7);
+    q.add(b2);
+    q.add(b4);
+    assertEquals(3, q.size());
+    assertSame(b2, q.peek());
+    assertSame(b2, q.poll());
+    /* the whole batch is returned, so 100 goes out before 7: ordering is per batch, not per tuple. */
+    assertSame(b4, q.poll());
+    assertSame(b7, q.poll());
+    assertNull(q.poll());
+    assertTrue(q.isEmpty());
+  }
+
+  @Test
+  public void testTiesInInsertionOrder() {
+    TupleBatchPriorityQueue q = new TupleBatchPriorityQueue(1);
+    TupleBatch first = batch(3, 5);
+    TupleBatch second = batch(3);
+    TupleBatch third = batch(6, 3);
+    q.add(first);
+    q.add(second);
+    q.add(third);
+    assertSame(first, q.poll());
+    assertSame(second, q.poll());
+    assertSame(third, q.poll());
+  }
+
+  @Test
+  public void testEOIAfterData() {
+    TupleBatchPriorityQueue q = new TupleBatchPriorityQueue(1);
+    TupleBatch eoi = TupleBatch.eoiTupleBatch(SCHEMA);
+    TupleBatch b9 = batch(9);
+    TupleBatch b1 = batch(1);
+    q.add(b9);
+    q.add(eoi);
+    q.add(b1);
+    assertSame(b1, q.poll());
+    assertSame(b9, q.poll());
+    assertSame(eoi, q.poll());
+  }
+}
@@ -0,0 +1,77 @@
+package edu.washington.escience.myria.profiling;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.Timer;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+import edu.washington.escience.myria.MyriaConstants;
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.operator.LeafOperator;
+import edu.washington.escience.myria.operator.Limit;
+import edu.washington.escience.myria.operator.Operator;
+import edu.washington.escience.myria.storage.TupleBatch;
+import edu.washington.escience.myria.util.TestEnvVars;
+import edu.washington.escience.myria.util.TestUtils;
+
+public class OperatorSamplerTest {
+
+  /** A leaf that sleeps before returning each of its batches. */
+  private static final class SlowSource extends LeafOperator {
+    /** Required for Java serialization. */
+    private static final long serialVersionUID = 1L;
+    /** The batch to return. */
+    private final TupleBatch batch = TestUtils.range(10).popAny();
+    /** The number of batches left to return. */
+    private int remaining = 50;
+
+    @Override
+    protected TupleBatch fetchNextReady() throws Exception {
+      if (remaining == 0) {
+        return null;
+      }
+      --remaining;
+      Thread.sleep(2);
+      return batch;
+    }
+
+    @Override
+    protected Schema generateSchema() {
+      return batch.getSchema();
+    }
+  }
+
+  @Test
+  public void testSamplesAttributedToExecutingOperator() throws Exception {
+    SlowSource source = new SlowSource();
+    source.setOpId(2);
+    Limit root = new Limit(Long.MAX_VALUE, source);
+    root.setOpId(1);
+
+    ExecutingOperatorMarker marker = new ExecutingOperatorMarker();
+    Map<String, Object> execEnvVars = TestEnvVars.get();
+    execEnvVars.put(MyriaConstants.EXEC_ENV_VAR_EXECUTING_OPERATOR, marker);
+    OperatorSampler sampler = new OperatorSampler(ImmutableMap.<Operator, ExecutingOperatorMarker> of(root, marker));
+
+    root.open(execEnvVars);
+    Timer timer = new Timer(true);
+    timer.scheduleAtFixedRate(sampler, 0, 1);
+    while (!root.eos()) {
+      root.nextReady();
+    }
+    timer.cancel();
+    root.close();
+    assertNull(marker.get());
+
+    Map<String, Long> samples = sampler.getStackSamples();
+    Long sourceSamples = samples.get("1;2");
+    Long rootSamples = samples.get("1");
+    assertTrue(samples.toString(), sourceSamples != null && sourceSamples > 0);
+    assertTrue(samples.toString(), rootSamples == null || rootSamples < sourceSamples);
+  }
+}
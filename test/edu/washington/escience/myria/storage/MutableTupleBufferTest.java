@@ -0,0 +1,89 @@
+package edu.washington.escience.myria.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+import edu.washington.escience.myria.column.Column;
+import edu.washington.escience.myria.column.DictionaryStringColumn;
+import edu.washington.escience.myria.column.StringDictionary;
+import edu.washington.escience.myria.column.builder.StringColumnBuilder;
+
+public class MutableTupleBufferTest {
+
+  /** The schema of the test batches. */
+  private static final Schema SCHEMA = Schema.ofFields(Type.STRING_TYPE, "s");
+
+  /**
+   * @param dictionary the dictionary to encode the values with.
+   * @param offset the value of the first row.
+   * @return a full batch of distinct string values, encoded with the dictionary.
+   */
+  private static TupleBatch encodedBatch(final StringDictionary dictionary, final int offset) {
+    StringColumnBuilder builder = new StringColumnBuilder(dictionary);
+    for (int i = 0; i < TupleBatch.BATCH_SIZE; ++i) {
+      builder.appendString("v" + ((offset + i) % 100));
+    }
+    return new TupleBatch(SCHEMA, ImmutableList.<Column<?>> of(builder.build()));
+  }
+
+  @Test
+  public void testKeepsDictionaryCodes() {
+    StringDictionary dictionary = new StringDictionary();
+    TupleBatch first = encodedBatch(dictionary, 0);
+    TupleBatch second = encodedBatch(dictionary, 7);
+    DictionaryStringColumn firstColumn = (DictionaryStringColumn) first.getDataColumns().get(0);
+
+    /* Fill one completed batch through the join path, then start another through the group by path. */
+    MutableTupleBuffer buffer = new MutableTupleBuffer(SCHEMA);
+    for (int row = 0; row < first.numTuples(); ++row) {
+      buffer.put(0, firstColumn, row);
+    }
+    for (int row = 0; row < 10; ++row) {
+      TupleUtils.copyValue(second, 0, row, buffer, 0);
+    }
+    buffer.putNull(0);
+    assertEquals(TupleBatch.BATCH_SIZE + 11, buffer.numTuples());
+
+    for (int row : new int[] { 0, TupleBatch.BATCH_SIZE - 1, TupleBatch.BATCH_SIZE, TupleBatch.BATCH_SIZE + 9 }) {
+      assertSame(dictionary, buffer.getStringDictionary(0, row));
+    }
+    assertEquals(firstColumn.getCode(3), buffer.getStringCode(0, 3));
+    assertTrue(buffer.isNull(0, TupleBatch.BATCH_SIZE + 10));
+
+    /* Rows 7 of the first batch and 0 of the second hold "v7", and are compared by their codes. */
+    assertTrue(TupleUtils.tupleEquals(second, new int[] { 0 }, 0, buffer, 7));
+    assertFalse(TupleUtils.tupleEquals(second, new int[] { 0 }, 0, buffer, 8));
+    assertTrue(TupleUtils.tupleEquals(first, new int[] { 0 }, 10, buffer, TupleBatch.BATCH_SIZE + 3));
+
+    /* The codes survive when the buffer is read back. */
+    List<TupleBatch> all = buffer.getAll();
+    assertEquals("v7", all.get(0).getString(0, 7));
+    assertEquals("v7", all.get(1).getString(0, 0));
+  }
+
+  @Test
+  public void testUnencodedValueDropsCodes() {
+    StringDictionary dictionary = new StringDictionary();
+    TupleBatch encoded = encodedBatch(dictionary, 0);
+    MutableTupleBuffer buffer = new MutableTupleBuffer(SCHEMA);
+    TupleUtils.copyValue(encoded, 0, 0, buffer, 0);
+    assertSame(dictionary, buffer.getStringDictionary(0, 0));
+
+    /* A value from another dictionary cannot be compared by code. */
+    TupleUtils.copyValue(encodedBatch(new StringDictionary(), 0), 0, 1, buffer, 0);
+    assertNull(buffer.getStringDictionary(0, 0));
+    assertTrue(TupleUtils.tupleEquals(encoded, new int[] { 0 }, 0, buffer, 0));
+    assertTrue(TupleUtils.tupleEquals(encoded, new int[] { 0 }, 1, buffer, 1));
+  }
+}
@@ -0,0 +1,163 @@
+package edu.washington.escience.myria.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.io.Files;
+
+import edu.washington.escience.myria.RelationKey;
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+
+public class ScanResultCacheTest {
+
+  private static final Schema SCHEMA = Schema.ofFields("x", Type.LONG_TYPE);
+
+  private static final RelationKey R = RelationKey.of("public", "adhoc", "r");
+
+  private static final RelationKey S = RelationKey.of("public", "adhoc", "s");
+
+  private static List<TupleBatch> batches(final long first, final int numTuples) {
+    TupleBatchBuffer buffer = new TupleBatchBuffer(SCHEMA);
+    for (int i = 0; i < numTuples; ++i) {
+      buffer.putLong(0, first + i);
+    }
+    return buffer.getAll();
+  }
+
+  private static long size(final List<TupleBatch> batches) {
+    long size = 0;
+    for (TupleBatch b : batches) {
+      size += ScanResultCache.estimateBytes(b);
+    }
+    return size;
+  }
+
+  private static void checkTuples(final Iterator<TupleBatch> batches, final long first, final int numTuples) {
+    assertNotNull(batches);
+    long next = first;
+    while (batches.hasNext()) {
+      TupleBatch tb = batches.next();
+      for (int row = 0; row < tb.numTuples(); ++row) {
+        assertEquals(next++, tb.getLong(0, row));
+      }
+    }
+    assertEquals(first + numTuples, next);
+  }
+
+  @Test
+  public void testHitAndVersion() {
+    ScanResultCache cache = new ScanResultCache(1L << 20, null, 0);
+    assertNull(cache.get("SELECT * FROM r", 1));
+    cache.put("SELECT * FROM r", R, 1, cache.begin(R), SCHEMA, batches(0, 2 * TupleBatch.BATCH_SIZE + 3));
+    checkTuples(cache.get("SELECT * FROM r", 1), 0, 2 * TupleBatch.BATCH_SIZE + 3);
+    /* A newer version of the relation misses and drops the entry. */
+    assertNull(cache.get("SELECT * FROM r", 2));
+    assertEquals(0, cache.getMemoryBytes());
+    assertEquals(1, cache.getHits());
+    assertEquals(2, cache.getMisses());
+  }
+
+  @Test
+  public void testInvalidate() {
+    ScanResultCache cache = new ScanResultCache(1L << 20, null, 0);
+    cache.put("SELECT * FROM r", R, 1, cache.begin(R), SCHEMA, batches(0, 10));
+    cache.put("SELECT * FROM s", S, 1, cache.begin(S), SCHEMA, batches(0, 10));
+    long token = cache.begin(R);
+    cache.invalidate(R);
+    assertNull(cache.get("SELECT * FROM r", 1));
+    checkTuples(cache.get("SELECT * FROM s", 1), 0, 10);
+    /* A scan that was running during the write does not store its result. */
+    cache.put("SELECT * FROM r", R, 1, token, SCHEMA, batches(0, 10));
+    assertNull(cache.get("SELECT * FROM r", 1));
+  }
+
+  @Test
+  public void testEvictionToDisk() {
+    List<TupleBatch> a = batches(0, 100);
+    List<TupleBatch> b = batches(1000, 100);
+    File directory = Files.createTempDir();
+    directory.deleteOnExit();
+    ScanResultCache cache = new ScanResultCache(size(a) + size(b) - 1, directory, 1L << 20);
+    cache.put("a", R, 1, cache.begin(R), SCHEMA, a);
+    cache.put("b", S, 1, cache.begin(S), SCHEMA, b);
+    /* a was the least recently used, so it moved to disk. */
+    assertEquals(1, cache.getEvictions());
+    assertEquals(size(b), cache.getMemoryBytes());
+    assertEquals(size(a), cache.getDiskBytes());
+    assertEquals(1, directory.listFiles().length);
+    /* Hitting a brings it back to memory and pushes b to disk. */
+    checkTuples(cache.get("a", 1), 0, 100);
+    assertEquals(size(a), cache.getMemoryBytes());
+    assertEquals(size(b), cache.getDiskBytes());
+    checkTuples(cache.get("b", 1), 1000, 100);
+    cache.invalidate(R);
+    cache.invalidate(S);
+    assertEquals(0, cache.getMemoryBytes() + cache.getDiskBytes());
+    assertEquals(0, directory.listFiles().length);
+    directory.delete();
+  }
+
+  @Test
+  public void testMemoryOnlyEviction() {
+    List<TupleBatch> a = batches(0, 100);
+    ScanResultCache cache = new ScanResultCache(size(a), null, 0);
+    cache.put("a", R, 1, cache.begin(R), SCHEMA, a);
+    cache.put("b", S, 1, cache.begin(S), SCHEMA, batches(1000, 100));
+    assertNull(cache.get("a", 1));
+    checkTuples(cache.get("b", 1), 1000, 100);
+    assertEquals(0.5, cache.getHitRate(), 1e-9);
+  }
+
+  @Test
+  public void testEstimateBytes() {
+    Schema schema = Schema.ofFields("i", Type.INT_TYPE, "s", Type.STRING_TYPE, "b", Type.BOOLEAN_TYPE);
+    TupleBatchBuffer buffer = new TupleBatchBuffer(schema);
+    buffer.putInt(0, 1);
+    buffer.putString(1, "abc");
+    buffer.putBoolean(2, true);
+    buffer.putInt(0, 2);
+    buffer.putString(1, "");
+    buffer.putBoolean(2, false);
+    assertEquals(2 * 4 + 3 * 2 + 2 * 1, ScanResultCache.estimateBytes(buffer.popAny()));
+  }
+
+  @Test
+  public void testInvalidateDuringLoad() throws InterruptedException {
+    /* Writers and readers race on entries that move between memory and disk; no entry may survive invalidation. */
+    final File directory = Files.createTempDir();
+    directory.deleteOnExit();
+    final ScanResultCache cache = new ScanResultCache(size(batches(0, 100)), directory, 1L << 20);
+    Thread reader = new Thread() {
+      @Override
+      public void run() {
+        for (int i = 0; i < 200; ++i) {
+          cache.put("a", R, 1, cache.begin(R), SCHEMA, batches(0, 100));
+          cache.put("b", S, 1, cache.begin(S), SCHEMA, batches(1000, 100));
+          Iterator<TupleBatch> a = cache.get("a", 1);
+          if (a != null) {
+            checkTuples(a, 0, 100);
+          }
+        }
+      }
+    };
+    reader.start();
+    for (int i = 0; i < 200; ++i) {
+      cache.invalidate(R);
+    }
+    reader.join();
+    cache.invalidate(R);
+    cache.invalidate(S);
+    assertNull(cache.get("a", 1));
+    assertEquals(0, cache.getMemoryBytes() + cache.getDiskBytes());
+    assertEquals(0, directory.listFiles().length);
+    directory.delete();
+  }
+}
@@ -0,0 +1,101 @@
+package edu.washington.escience.myria.storage;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import edu.washington.escience.myria.Schema;
+import edu.washington.escience.myria.Type;
+
+public class TupleBatchBufferTest {
+
+  /** The schema of the test batches, one column of each type. */
+  private static final Schema SCHEMA = Schema.ofFields(Type.INT_TYPE, "i", Type.LONG_TYPE, "l", Type.FLOAT_TYPE, "f",
+      Type.DOUBLE_TYPE, "d", Type.BOOLEAN_TYPE, "b", Type.STRING_TYPE, "s", Type.DATETIME_TYPE, "t");
+
+  /**
+   * @param numTuples the number of rows.
+   * @return the rows, with a null in every column of every 11th row.
+   */
+  private static List<TupleBatch> input(final int numTuples) {
+    TupleBatchBuffer buffer = new TupleBatchBuffer(SCHEMA);
+    for (int i = 0; i < numTuples; ++i) {
+      if (i % 11 == 0) {
+        for (int column = 0; column < SCHEMA.numColumns(); ++column) {
+          buffer.putNull(column);
+        }
+        continue;
+      }
+      buffer.putInt(0, i);
+      buffer.putLong(1, -i);
+      buffer.putFloat(2, i / 4.0f);
+      buffer.putDouble(3, i / 8.0);
+      buffer.putBoolean(4, i % 2 == 0);
+      buffer.putString(5, "s" + i);
+      buffer.putDateTime(6, new DateTime(i * 1000L));
+    }
+    return buffer.getAll();
+  }
+
+  @Test
+  public void testAppendRowsMatchesPartition() {
+    final int numPartitions = 3;
+    TupleBatchBuffer[] scattered = new TupleBatchBuffer[numPartitions];
+    TupleBatchBuffer[] expected = new TupleBatchBuffer[numPartitions];
+    for (int p = 0; p < numPartitions; ++p) {
+      scattered[p] = new TupleBatchBuffer(SCHEMA);
+      expected[p] = new TupleBatchBuffer(SCHEMA);
+    }
+
+    for (TupleBatch tb : input(5 * TupleBatch.BATCH_SIZE / 2)) {
+      /* Skewed partitions, so that some buffers fill up mid-batch and others do not. */
+      int[] partitions = new int[tb.numTuples()];
+      for (int row = 0; row < partitions.length; ++row) {
+        partitions[row] = (row % 7 == 0) ? 2 : row % 2;
+      }
+
+      /* The shallow copy path. */
+      TupleBatch[] shallow = tb.partition(partitions, numPartitions);
+      for (int p = 0; p < numPartitions; ++p) {
+        if (shallow[p] != null) {
+          shallow[p].compactInto(expected[p]);
+        }
+      }
+
+      /* The scatter path: append each partition's rows, in the order of the batch. */
+      for (int p = 0; p < numPartitions; ++p) {
+        int[] rows = new int[partitions.length];
+        int numRows = 0;
+        for (int row = 0; row < partitions.length; ++row) {
+          if (partitions[row] == p) {
+            rows[numRows++] = row;
+          }
+        }
+        scattered[p].appendRows(tb, rows, 0, numRows);
+      }
+    }
+
+    for (int p = 0; p < numPartitions; ++p) {
+      assertEquals(expected[p].numTuples(), scattered[p].numTuples());
+      List<TupleBatch> actual = scattered[p].getAll();
+      /* Every batch but the last is full. */
+      for (int i = 0; i < actual.size() - 1; ++i) {
+        assertEquals(TupleBatch.BATCH_SIZE, actual.get(i).numTuples());
+      }
+      int row = 0;
+      for (TupleBatch want : expected[p].getAll()) {
+        for (int r = 0; r < want.numTuples(); ++r, ++row) {
+          TupleBatch got = actual.get(row / TupleBatch.BATCH_SIZE);
+          int gotRow = row % TupleBatch.BATCH_SIZE;
+          for (int column = 0; column < SCHEMA.numColumns(); ++column) {
+            assertEquals(want.isNull(column, r), got.isNull(column, gotRow));
+            assertEquals(0, TupleUtils.cellCompare(want, column, r, got, column, gotRow));
+          }
+        }
+      }
+    }
+  }
+}